@@ -0,0 +1,567 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.PriorityQueue;
+import java.util.Properties;
+
+import com.sun.management.OperatingSystemMXBean;
+
+import vanetsim.localization.Messages;
+import vanetsim.simulation.EngineContext;
+
+/**
+ * Runs a batch of console simulations (for example a research series) in several worker JVMs. The batch is described in a
+ * job file in the format of the <code>config.txt</code>:
+ * <ul>
+ * <li><code>map</code>: the map file</li>
+ * <li><code>scenario</code>: one or more scenario files (separated by <code>;</code>)</li>
+ * <li><code>time</code>: the simulation time in milliseconds</li>
+ * <li><code>repetitions</code>: how often each combination is simulated. Each repetition uses another seed (default 1).</li>
+ * <li><code>parameter.1</code>, <code>parameter.2</code>...: a general setting of the research series and its values
+ * (<code>key=value1;value2;...</code>). All combinations of all values are simulated.</li>
+ * <li><code>workers</code>: the amount of worker JVMs (default 0 = as many as processors and memory allow)</li>
+ * <li><code>memory</code>: the maximum heap of a worker JVM in MB (default 1024)</li>
+ * <li><code>retries</code>: how often a crashed run is started again (default 1)</li>
+ * <li><code>results</code>: the results directory (default <code>results_</code> and the current time)</li>
+ * <li><code>deterministic</code>: <code>true</code> to use the deterministic mode so that the results don't depend on the
+ * amount of threads of the worker JVMs (default <code>false</code>)</li>
+ * <li><code>warmup</code>: the duration of a warm-up in milliseconds (default 0 = none). All runs of a scenario with the
+ * same seed only differ in their general settings, so they are forked from one warm-up in one worker JVM (see
+ * {@link ForkRunner}) instead of simulating the warm-up again in every run. The <code>workers</code> are divided between
+ * the warm-ups and a worker JVM gets <code>memory</code> for each fork it runs at the same time.</li>
+ * </ul>
+ * Every run gets its own directory in the results directory with the output of its JVM and all its logs. The runs are
+ * started ordered by their estimated cost (simulation time multiplied with the size of the scenario file) so that a long
+ * run started last doesn't delay the end of the whole batch. A summary of all runs is written to <code>summary.csv</code>.
+ * Runs forked from one warm-up share their JVM, so they are started again together and get the exit code and duration
+ * of this JVM.
+ */
+public final class BatchRunner implements Runnable {
+
+	/**
+	 * A single simulation run of the batch.
+	 */
+	private static final class Run implements Comparable<Run>{
+
+		/** The number of the run (also used as name of its directory). */
+		private final int number_;
+
+		/** The scenario file. */
+		private final File scenario_;
+
+		/** The seed for the vehicles of the scenario. */
+		private final int seed_;
+
+		/** The general settings (as <code>key=value</code>). */
+		private final String[] parameters_;
+
+		/** The estimated cost. */
+		private final long cost_;
+
+		/** How often the run has been started. */
+		private int attempts_ = 0;
+
+		/** The exit code of the last attempt (<code>-1</code> if the JVM couldn't be started). */
+		private int exitCode_ = -1;
+
+		/** The duration of the last attempt in milliseconds. */
+		private long duration_ = 0;
+
+		/** The runs forked from the warm-up of this run including itself (empty if no warm-up is used). */
+		private final ArrayList<Run> forks_ = new ArrayList<Run>();
+
+		/**
+		 * Instantiates a new run.
+		 *
+		 * @param number		the number of the run
+		 * @param scenario		the scenario file
+		 * @param seed			the seed for the vehicles
+		 * @param parameters	the general settings
+		 * @param cost			the estimated cost
+		 */
+		public Run(int number, File scenario, int seed, String[] parameters, long cost){
+			number_ = number;
+			scenario_ = scenario;
+			seed_ = seed;
+			parameters_ = parameters;
+			cost_ = cost;
+		}
+
+		/**
+		 * Orders the runs by descending cost (and by number if the cost is equal).
+		 *
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		public int compareTo(Run other){
+			if(cost_ != other.cost_) return cost_ > other.cost_ ? -1 : 1;
+			else return number_ - other.number_;
+		}
+	}
+
+	/** The job file. */
+	private final File jobFile_;
+
+	/** The map file. */
+	private File mapFile_ = null;
+
+	/** The simulation time in milliseconds. */
+	private int simulationTime_ = 0;
+
+	/** The amount of worker JVMs. */
+	private int workers_ = 0;
+
+	/** The maximum heap of a worker JVM in MB. */
+	private int memory_ = 1024;
+
+	/** How often a crashed run is started again. */
+	private int retries_ = 1;
+
+	/** The results directory. */
+	private File resultsDir_ = null;
+
+	/** If the runs use the deterministic mode. */
+	private boolean deterministic_ = false;
+
+	/** The duration of the warm-up in milliseconds (0 if no warm-up is used). */
+	private int warmUpTime_ = 0;
+
+	/** How many forks of a warm-up run at the same time in one worker JVM. */
+	private int parallelForks_ = 1;
+
+	/** All runs of the batch. */
+	private final ArrayList<Run> runs_ = new ArrayList<Run>();
+
+	/** The runs waiting to be started (the most expensive one first). */
+	private final PriorityQueue<Run> queue_ = new PriorityQueue<Run>();
+
+	/** The amount of runs currently running. */
+	private int running_ = 0;
+
+	/** The configuration used for all worker JVMs. */
+	private final Properties config_ = new Properties();
+
+	/**
+	 * Instantiates a new batch runner.
+	 *
+	 * @param jobFile	path of the job file
+	 */
+	public BatchRunner(String jobFile){
+		jobFile_ = new File(jobFile);
+	}
+
+	/**
+	 * Runs the whole batch and exits afterwards (with exit code 1 if a run failed).
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run(){
+		EngineContext.setConsoleStart(true);
+		System.out.println("Time:" + new Date()); //$NON-NLS-1$
+		if(!readJobFile()) System.exit(1);
+		System.out.println(Messages.getString("BatchRunner.runsCreated") + runs_.size() + " / " + workers_); //$NON-NLS-1$ //$NON-NLS-2$
+
+		Thread[] workers = new Thread[workers_];
+		for(int i = 0; i < workers.length; ++i){
+			workers[i] = new Thread("BatchWorker " + i){ //$NON-NLS-1$
+				public void run(){
+					Run run;
+					while((run = nextRun()) != null){
+						execute(run);
+						finishRun(run);
+					}
+				}
+			};
+			workers[i].start();
+		}
+		for(int i = 0; i < workers.length; ++i){
+			try{
+				workers[i].join();
+			} catch (InterruptedException e){}
+		}
+
+		int failed = 0;
+		for(int i = 0; i < runs_.size(); ++i){
+			if(runs_.get(i).exitCode_ != 0) ++failed;
+		}
+		writeSummary();
+		System.out.println("Time:" + new Date()); //$NON-NLS-1$
+		System.out.println(Messages.getString("BatchRunner.finished") + failed); //$NON-NLS-1$
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Reads the job file and creates all runs and the results directory.
+	 *
+	 * @return <code>true</code> if successful, <code>false</code> if the job file is invalid (the error is logged)
+	 */
+	private boolean readJobFile(){
+		try{
+			Properties job = new Properties();
+			FileInputStream in = new FileInputStream(jobFile_);
+			try{
+				job.load(in);
+			} finally {
+				in.close();
+			}
+			mapFile_ = new File(job.getProperty("map", "")).getAbsoluteFile(); //$NON-NLS-1$ //$NON-NLS-2$
+			if(!mapFile_.isFile()) throw new IllegalArgumentException("map"); //$NON-NLS-1$
+			simulationTime_ = Integer.parseInt(job.getProperty("time", "").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			int repetitions = Integer.parseInt(job.getProperty("repetitions", "1").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			workers_ = Integer.parseInt(job.getProperty("workers", "0").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			memory_ = Integer.parseInt(job.getProperty("memory", "1024").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			retries_ = Integer.parseInt(job.getProperty("retries", "1").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			resultsDir_ = new File(job.getProperty("results", "results_" + System.currentTimeMillis())).getAbsoluteFile(); //$NON-NLS-1$ //$NON-NLS-2$
+			deterministic_ = Boolean.parseBoolean(job.getProperty("deterministic", "false").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			warmUpTime_ = Integer.parseInt(job.getProperty("warmup", "0").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			if(warmUpTime_ < 0 || warmUpTime_ >= simulationTime_) throw new IllegalArgumentException("warmup"); //$NON-NLS-1$
+			if(workers_ < 1) workers_ = getParallelJobs(memory_);
+
+			// all combinations of the values of the general settings
+			ArrayList<String[]> combinations = new ArrayList<String[]>();
+			combinations.add(new String[0]);
+			String parameter;
+			String[] values, combination;
+			ArrayList<String[]> extended;
+			for(int i = 1; (parameter = job.getProperty("parameter." + i)) != null; ++i){ //$NON-NLS-1$
+				if(parameter.indexOf('=') < 1) throw new IllegalArgumentException("parameter." + i); //$NON-NLS-1$
+				values = parameter.substring(parameter.indexOf('=') + 1).split(";"); //$NON-NLS-1$
+				extended = new ArrayList<String[]>();
+				for(int j = 0; j < combinations.size(); ++j){
+					for(int k = 0; k < values.length; ++k){
+						combination = new String[combinations.get(j).length + 1];
+						System.arraycopy(combinations.get(j), 0, combination, 0, combinations.get(j).length);
+						combination[combination.length - 1] = parameter.substring(0, parameter.indexOf('=')).trim() + "=" + values[k].trim(); //$NON-NLS-1$
+						extended.add(combination);
+					}
+				}
+				combinations = extended;
+			}
+
+			String[] scenarios = job.getProperty("scenario", "").split(";"); //$NON-NLS-1$ //$NON-NLS-2$
+			File scenario;
+			Run run;
+			Run[] warmUps;
+			for(int i = 0; i < scenarios.length; ++i){
+				scenario = new File(scenarios[i].trim()).getAbsoluteFile();
+				if(!scenario.isFile()) throw new IllegalArgumentException("scenario " + scenarios[i]); //$NON-NLS-1$
+				warmUps = new Run[repetitions];
+				for(int j = 0; j < combinations.size(); ++j){
+					for(int k = 0; k < repetitions; ++k){
+						// the first repetition uses the default seed so that it equals a normal console run
+						run = new Run(runs_.size(), scenario, k + 1, combinations.get(j), scenario.length() * simulationTime_);
+						runs_.add(run);
+						if(warmUpTime_ > 0){
+							// the first run with this seed simulates the warm-up for all others
+							if(warmUps[k] == null){
+								warmUps[k] = run;
+								queue_.add(run);
+							}
+							warmUps[k].forks_.add(run);
+						} else queue_.add(run);
+					}
+				}
+			}
+			// the worker JVMs share the processors and the memory between their forks
+			if(warmUpTime_ > 0) parallelForks_ = Math.max(1, workers_ / queue_.size());
+
+			// the workers use the configuration of this program but keep their logs and checkpoints in their own directory
+			File config = new File("./config.txt"); //$NON-NLS-1$
+			if(config.isFile()){
+				FileInputStream configIn = new FileInputStream(config);
+				try{
+					config_.load(configIn);
+				} finally {
+					configIn.close();
+				}
+			}
+			config_.setProperty("logger_dir", "./"); //$NON-NLS-1$ //$NON-NLS-2$
+			config_.setProperty("checkpoint_dir", "./"); //$NON-NLS-1$ //$NON-NLS-2$
+			config_.remove("checkpoint_restore"); //$NON-NLS-1$
+
+			if(!resultsDir_.isDirectory() && !resultsDir_.mkdirs()) throw new IllegalArgumentException("results"); //$NON-NLS-1$
+			return true;
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("BatchRunner.jobFileError") + jobFile_.getPath(), 7, BatchRunner.class.getName(), "readJobFile", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the next run to start. Waits while other runs are still running as they might need to be started again.
+	 *
+	 * @return the run or <code>null</code> if all runs are finished
+	 */
+	private synchronized Run nextRun(){
+		while(queue_.isEmpty() && running_ > 0){
+			try{
+				wait();
+			} catch (InterruptedException e){}
+		}
+		Run run = queue_.poll();
+		if(run != null){
+			++running_;
+			System.out.println(Messages.getString("BatchRunner.runStarted") + run.number_); //$NON-NLS-1$
+		}
+		return run;
+	}
+
+	/**
+	 * Marks a run as finished. A crashed run is queued again if it hasn't been retried often enough.
+	 *
+	 * @param run	the run
+	 */
+	private synchronized void finishRun(Run run){
+		--running_;
+		if(run.exitCode_ == 0) System.out.println(Messages.getString("BatchRunner.runFinished") + run.number_ + " (" + run.duration_ + " ms)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		else {
+			ErrorLog.log(Messages.getString("BatchRunner.runFailed") + run.number_ + " (" + run.exitCode_ + ")", 6, BatchRunner.class.getName(), "finishRun", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			if(run.attempts_ <= retries_) queue_.add(run);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Executes a run in a new JVM and waits for it to finish. The output of the JVM is appended to <code>output.txt</code>
+	 * in the directory of the run.
+	 *
+	 * @param run	the run
+	 */
+	private void execute(Run run){
+		if(!run.forks_.isEmpty()){
+			executeForks(run);
+			return;
+		}
+		File dir = new File(resultsDir_, "run_" + run.number_); //$NON-NLS-1$
+		long start = System.currentTimeMillis();
+		++run.attempts_;
+		try{
+			createDirectory(dir);
+
+			ArrayList<String> command = getJavaCommand(memory_);
+			command.add(mapFile_.getPath());
+			command.add(run.scenario_.getPath());
+			command.add(String.valueOf(simulationTime_));
+			command.add("-seed"); //$NON-NLS-1$
+			command.add(String.valueOf(run.seed_));
+			command.add("-logdir"); //$NON-NLS-1$
+			command.add(dir.getPath());
+			if(deterministic_){
+				command.add("-deterministic"); //$NON-NLS-1$
+				command.add("true"); //$NON-NLS-1$
+			}
+			for(int i = 0; i < run.parameters_.length; ++i){
+				command.add("-set"); //$NON-NLS-1$
+				command.add(run.parameters_[i]);
+			}
+
+			run.exitCode_ = startJVM(command, dir);
+		} catch (Exception e){
+			run.exitCode_ = -1;
+			ErrorLog.log(Messages.getString("BatchRunner.runFailed") + run.number_, 6, BatchRunner.class.getName(), "execute", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		run.duration_ = System.currentTimeMillis() - start;
+	}
+
+	/**
+	 * Executes all runs forked from the warm-up of a run in a new JVM and waits for them to finish. The output of the JVM is
+	 * appended to <code>output.txt</code> in the directory <code>warmup_</code> and the number of the run. The logs of each
+	 * fork are written to the directory of its run.
+	 *
+	 * @param run	the run simulating the warm-up
+	 */
+	private void executeForks(Run run){
+		File dir = new File(resultsDir_, "warmup_" + run.number_); //$NON-NLS-1$
+		long start = System.currentTimeMillis();
+		++run.attempts_;
+		try{
+			createDirectory(dir);
+			Properties forks = new Properties();
+			forks.setProperty("map", mapFile_.getPath()); //$NON-NLS-1$
+			forks.setProperty("scenario", run.scenario_.getPath()); //$NON-NLS-1$
+			forks.setProperty("warmup", String.valueOf(warmUpTime_)); //$NON-NLS-1$
+			forks.setProperty("time", String.valueOf(simulationTime_)); //$NON-NLS-1$
+			forks.setProperty("seed", String.valueOf(run.seed_)); //$NON-NLS-1$
+			forks.setProperty("deterministic", String.valueOf(deterministic_)); //$NON-NLS-1$
+			forks.setProperty("parallel", String.valueOf(parallelForks_)); //$NON-NLS-1$
+			Run fork;
+			File forkDir;
+			for(int i = 0; i < run.forks_.size(); ++i){
+				fork = run.forks_.get(i);
+				forkDir = new File(resultsDir_, "run_" + fork.number_); //$NON-NLS-1$
+				if(!forkDir.isDirectory() && !forkDir.mkdirs()) throw new IllegalStateException(forkDir.getPath());
+				forks.setProperty("fork." + (i + 1), fork.scenario_.getPath()); //$NON-NLS-1$
+				forks.setProperty("fork." + (i + 1) + ".set", join(fork.parameters_)); //$NON-NLS-1$ //$NON-NLS-2$
+				forks.setProperty("fork." + (i + 1) + ".logdir", forkDir.getPath()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			File forkFile = new File(dir, "forks.txt"); //$NON-NLS-1$
+			FileOutputStream forksOut = new FileOutputStream(forkFile);
+			try{
+				forks.store(forksOut, null);
+			} finally {
+				forksOut.close();
+			}
+
+			ArrayList<String> command = getJavaCommand(memory_ * Math.min(parallelForks_, run.forks_.size()));
+			command.add("-fork"); //$NON-NLS-1$
+			command.add(forkFile.getPath());
+			run.exitCode_ = startJVM(command, dir);
+		} catch (Exception e){
+			run.exitCode_ = -1;
+			ErrorLog.log(Messages.getString("BatchRunner.runFailed") + run.number_, 6, BatchRunner.class.getName(), "executeForks", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		run.duration_ = System.currentTimeMillis() - start;
+		for(int i = 0; i < run.forks_.size(); ++i){
+			run.forks_.get(i).attempts_ = run.attempts_;
+			run.forks_.get(i).exitCode_ = run.exitCode_;
+			run.forks_.get(i).duration_ = run.duration_;
+		}
+	}
+
+	/**
+	 * Creates the working directory of a worker JVM and writes the configuration to it.
+	 *
+	 * @param dir	the directory
+	 *
+	 * @throws Exception if the directory or the configuration can't be written
+	 */
+	private void createDirectory(File dir) throws Exception{
+		if(!dir.isDirectory() && !dir.mkdirs()) throw new IllegalStateException(dir.getPath());
+		FileOutputStream configOut = new FileOutputStream(new File(dir, "config.txt")); //$NON-NLS-1$
+		try{
+			config_.store(configOut, null);
+		} finally {
+			configOut.close();
+		}
+	}
+
+	/**
+	 * Gets the command starting a worker JVM with this program (without the arguments of the program).
+	 *
+	 * @param memory	the maximum heap of the JVM in MB
+	 *
+	 * @return the command
+	 */
+	private static ArrayList<String> getJavaCommand(int memory){
+		ArrayList<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		command.add("-Xmx" + memory + "m"); //$NON-NLS-1$ //$NON-NLS-2$
+		command.add("-Djava.awt.headless=true"); //$NON-NLS-1$
+		command.add("-cp"); //$NON-NLS-1$
+		command.add(getClassPath());
+		command.add(VanetSimStarter.class.getName());
+		return command;
+	}
+
+	/**
+	 * Starts a worker JVM and waits for it to finish. Its output is appended to <code>output.txt</code> in its directory.
+	 *
+	 * @param command	the command
+	 * @param dir		the working directory of the JVM
+	 *
+	 * @return the exit code of the JVM
+	 *
+	 * @throws Exception if the JVM can't be started
+	 */
+	private static int startJVM(ArrayList<String> command, File dir) throws Exception{
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(dir);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(new File(dir, "output.txt"))); //$NON-NLS-1$
+		return builder.start().waitFor();
+	}
+
+	/**
+	 * Joins general settings to one string.
+	 *
+	 * @param parameters	the settings (as <code>key=value</code>)
+	 *
+	 * @return the settings separated by <code>;</code>
+	 */
+	private static String join(String[] parameters){
+		String joined = ""; //$NON-NLS-1$
+		for(int i = 0; i < parameters.length; ++i){
+			if(i > 0) joined += ";"; //$NON-NLS-1$
+			joined += parameters[i];
+		}
+		return joined;
+	}
+
+	/**
+	 * Writes the summary of all runs to <code>summary.csv</code> in the results directory.
+	 */
+	private void writeSummary(){
+		try{
+			BufferedWriter out = new BufferedWriter(new FileWriter(new File(resultsDir_, "summary.csv"))); //$NON-NLS-1$
+			try{
+				out.write("run,scenario,seed,settings,attempts,exit code,duration (ms)"); //$NON-NLS-1$
+				out.newLine();
+				Run run;
+				for(int i = 0; i < runs_.size(); ++i){
+					run = runs_.get(i);
+					out.write("run_" + run.number_ + "," + run.scenario_.getName() + "," + run.seed_ + ",\"" + join(run.parameters_) + "\"," + run.attempts_ + "," + run.exitCode_ + "," + run.duration_); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+					out.newLine();
+				}
+			} finally {
+				out.close();
+			}
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("BatchRunner.summaryError") + resultsDir_.getPath(), 6, BatchRunner.class.getName(), "writeSummary", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Gets the class path of this program with absolute paths (the workers run in another directory).
+	 *
+	 * @return the class path
+	 */
+	private static String getClassPath(){
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator); //$NON-NLS-1$
+		String classPath = ""; //$NON-NLS-1$
+		for(int i = 0; i < entries.length; ++i){
+			if(i > 0) classPath += File.pathSeparator;
+			classPath += new File(entries[i]).getAbsolutePath();
+		}
+		return classPath;
+	}
+
+	/**
+	 * Gets how many simulations may run in parallel without needing more than the physical memory. Not more simulations
+	 * than processors are run.
+	 *
+	 * @param memory	the memory one simulation needs in MB
+	 *
+	 * @return the amount of simulations (at least 1)
+	 */
+	public static int getParallelJobs(int memory){
+		int jobs = Runtime.getRuntime().availableProcessors();
+		try{
+			long total = ((OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean()).getTotalMemorySize() / 1048576;
+			jobs = Math.min(jobs, (int)(total / memory));
+		} catch (Exception e) {}
+		return Math.max(1, jobs);
+	}
+}
@@ -19,14 +19,24 @@ package vanetsim;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Properties;
 
-import vanetsim.gui.Renderer;
+import vanetsim.gui.helpers.AttackLogWriter;
+import vanetsim.gui.helpers.EventLogWriter;
+import vanetsim.gui.helpers.IDSLogWriter;
+import vanetsim.gui.helpers.PrivacyLogWriter;
+import vanetsim.gui.helpers.SimulationProperty;
 import vanetsim.localization.Messages;
 import vanetsim.map.Map;
+import vanetsim.scenario.IDSProcessor;
+import vanetsim.scenario.KnownPenalties;
 import vanetsim.scenario.Scenario;
+import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.EngineContext;
 import vanetsim.simulation.SimulationMaster;
+import vanetsim.simulation.WorkerThread;
 
 /**
  * This is the main class for the VANet-Simulator which starts the GUI and all other components.
@@ -45,6 +55,30 @@ public final class ConsoleStart implements Runnable {
 	/** Simulation time */
 	private static int simulationTime_ = 0;
 	
+	/** Checkpoint to restore after loading map and scenario (<code>null</code> to start from the beginning) */
+	private static File checkpointFile_ = null;
+	
+	/** Checkpoint to write when the simulation time is reached (<code>null</code> for none) */
+	private static File endCheckpointFile_ = null;
+	
+	/** Seed of the global random number generator used when loading the scenario */
+	private static long randomSeed_ = 1L;
+	
+	/** General settings which replace the ones of the scenario (as <code>key=value</code>) */
+	private static ArrayList<String> parameters_ = new ArrayList<String>();
+	
+	/** Directory for all logs enabled in the scenario (<code>null</code> to use the directories of the scenario) */
+	private static String logDir_ = null;
+	
+	/** If the deterministic mode is used (results don't depend on the amount of threads) */
+	private static boolean deterministic_ = false;
+	
+	/** CSV file for the step statistics (<code>null</code> to record no statistics) */
+	private static String statisticsFile_ = null;
+	
+	/** Interval of the step statistics in milliseconds of simulated time (0 for the default) */
+	private static int statisticsInterval_ = 0;
+	
 
 	/**
 	 * Starts the simulator in console mode
@@ -54,11 +88,40 @@ public final class ConsoleStart implements Runnable {
 	 * @param simulationTime	the simulation time in milliseconds
 	 */	
 	public ConsoleStart(String mapFile, String scenarioFile, String simulationTime){
+		this(mapFile, scenarioFile, simulationTime, new String[0]);
+	}
+
+	/**
+	 * Starts the simulator in console mode with additional options. Supported are <code>-restore file</code> to continue
+	 * from a checkpoint (overrides <code>checkpoint_restore</code> of the configuration), <code>-checkpoint file</code>
+	 * to write a checkpoint when the simulation time is reached, <code>-seed number</code> to create other vehicles from the
+	 * same scenario, <code>-set key=value</code> (may be repeated) to replace a general setting of the scenario with a value
+	 * (the keys are the ones of the research series), <code>-logdir directory</code> to write all logs enabled in the
+	 * scenario to another directory, <code>-deterministic true</code> to get the same results for any amount of threads and
+	 * <code>-stats file</code> to write the times of the steps and their phases to a CSV file every <code>-statsinterval ms</code>
+	 * of simulated time.
+	 * 
+	 * @param mapFile	path of the used map
+	 * @param scenarioFile	path of the used scenario
+	 * @param simulationTime	the simulation time in milliseconds
+	 * @param options	the additional options
+	 */	
+	public ConsoleStart(String mapFile, String scenarioFile, String simulationTime, String[] options){
 		readconfig("./config.txt");
 		
 		mapFile_ = new File(mapFile);
 		scenarioFile_ = new File(scenarioFile);
 		simulationTime_ = Integer.parseInt(simulationTime);
+		for(int i = 0; i < options.length - 1; i += 2){
+			if(options[i].equals("-restore")) checkpointFile_ = new File(options[i+1]); //$NON-NLS-1$
+			else if(options[i].equals("-checkpoint")) endCheckpointFile_ = new File(options[i+1]); //$NON-NLS-1$
+			else if(options[i].equals("-seed")) randomSeed_ = Long.parseLong(options[i+1]); //$NON-NLS-1$
+			else if(options[i].equals("-set")) parameters_.add(options[i+1]); //$NON-NLS-1$
+			else if(options[i].equals("-logdir")) logDir_ = options[i+1]; //$NON-NLS-1$
+			else if(options[i].equals("-deterministic")) deterministic_ = Boolean.parseBoolean(options[i+1]); //$NON-NLS-1$
+			else if(options[i].equals("-stats")) statisticsFile_ = options[i+1]; //$NON-NLS-1$
+			else if(options[i].equals("-statsinterval")) statisticsInterval_ = Integer.parseInt(options[i+1]); //$NON-NLS-1$
+		}
 	}
 
 	/**
@@ -67,12 +130,18 @@ public final class ConsoleStart implements Runnable {
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
-		Renderer.getInstance().setConsoleStart(true);
+		EngineContext.setConsoleStart(true);
+		WorkerThread.setDeterministic(deterministic_);
 
 		System.out.println("Time:" + new Date());
 
 		System.out.println(Messages.getString("ConsoleStart.SimMasterInit"));
 		simulationMaster_ = new SimulationMaster();
+		if(statisticsFile_ != null){
+			simulationMaster_.getStatistics().setCsvFile(statisticsFile_);
+			simulationMaster_.getStatistics().setInterval(statisticsInterval_);
+			simulationMaster_.getStatistics().setEnabled(true);
+		}
 		simulationMaster_.start();
 		System.out.println(Messages.getString("ConsoleStart.SimMasterInited"));
 		
@@ -84,9 +153,20 @@ public final class ConsoleStart implements Runnable {
 		System.out.println(Messages.getString("ConsoleStart.MapLoaded"));
 		
 		System.out.println(Messages.getString("ConsoleStart.ScenarioLoad"));
+		Vehicle.setGlobalRandomSeed(randomSeed_);
 		Scenario.getInstance().load(scenarioFile_, false);
 		System.out.println(Messages.getString("ConsoleStart.ScenarioLoaded"));
 		
+		if(checkpointFile_ != null){
+			if(!simulationMaster_.restoreCheckpoint(checkpointFile_)) System.exit(1);
+			// the settings of the scenario replace the restored ones so that a checkpoint can be continued with other parameters
+			Scenario.getInstance().loadSettings(scenarioFile_, false);
+			System.out.println(Messages.getString("Checkpoint.restored") + EngineContext.getTimePassed());
+		}
+		applyParameters();
+		if(logDir_ != null) setLogDir(logDir_);
+		simulationMaster_.requestCheckpointAfterJump(endCheckpointFile_);
+		
 		System.out.println(Messages.getString("ConsoleStart.SetSimTime"));
 		ConsoleStart.getSimulationMaster().jumpToTime(simulationTime_);
 		System.out.println(Messages.getString("ConsoleStart.SimTimeSet"));
@@ -96,6 +176,41 @@ public final class ConsoleStart implements Runnable {
 		System.out.println(Messages.getString("ConsoleStart.SimulationStarted"));
 	}
 
+	/**
+	 * Applies the general settings given with <code>-set</code>. Exits if a setting is unknown or has no valid value.
+	 */
+	private static void applyParameters(){
+		int separator;
+		String key;
+		for(int i = 0; i < parameters_.size(); ++i){
+			separator = parameters_.get(i).indexOf('=');
+			key = separator > 0 ? parameters_.get(i).substring(0, separator) : parameters_.get(i);
+			try{
+				if(SimulationProperty.getValueForKey(key) == -1) throw new IllegalArgumentException(key);
+				SimulationProperty.setValueForKey(key, Double.parseDouble(parameters_.get(i).substring(separator + 1)));
+				System.out.println(Messages.getString("ConsoleStart.ParameterSet") + parameters_.get(i));
+			} catch (Exception e){
+				ErrorLog.log(Messages.getString("ConsoleStart.ParameterError") + parameters_.get(i), 7, ConsoleStart.class.getName(), "applyParameters", e); //$NON-NLS-1$ //$NON-NLS-2$
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * Writes all logs enabled in the scenario of the current simulation context to another directory.
+	 * 
+	 * @param logDir	the directory
+	 */
+	static void setLogDir(String logDir){
+		if(Vehicle.isAttackerDataLogged_()) AttackLogWriter.setLogPath(logDir);
+		if(Vehicle.isPrivacyDataLogged_()) PrivacyLogWriter.setLogPath(logDir);
+		if(IDSProcessor.isLogIDS_()) IDSLogWriter.setLogPath(logDir);
+		if(KnownPenalties.isLogEvents_()){
+			EventLogWriter.setLogPath(logDir);
+			EventLogWriter.log("Time," + "PenaltyType," + "X," + "Y," + "Sender,"  + "Receiver"); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Returns the simulation master (for example in order to stop or start simulation).
 	 * 
@@ -110,7 +225,7 @@ public final class ConsoleStart implements Runnable {
 	 * 
 	 * @param configFilePath	path to the configuration file
 	 */
-	private static void readconfig(String configFilePath) {
+	static void readconfig(String configFilePath) {
 		String loggerFormat, loggerDir;
 		Integer loggerLevel;
 		Long loggerTrashtime;
@@ -141,6 +256,14 @@ public final class ConsoleStart implements Runnable {
 
 			ErrorLog.setParameters(loggerLevel, loggerDir, loggerFormat);
 
+			// amount of worker threads (0 = one per processor)
+			SimulationMaster.setThreadCount(Integer.parseInt(configFile.getProperty("simulation_threads", "0"))); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// checkpoints (interval in simulated milliseconds, 0 = disabled) and a checkpoint to continue from
+			SimulationMaster.setCheckpointInterval(Integer.parseInt(configFile.getProperty("checkpoint_interval", "0")), configFile.getProperty("checkpoint_dir", "./")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			String checkpoint = configFile.getProperty("checkpoint_restore", ""); //$NON-NLS-1$ //$NON-NLS-2$
+			if(!checkpoint.equals("")) checkpointFile_ = new File(checkpoint); //$NON-NLS-1$
+
 			if (loggerTrashtime < 0 || loggerTrashtime > 365000) {
 				loggerTrashtime = (long) 365000;
 				ErrorLog.log("", 4, VanetSimStart.class.getName(), "readconfig", null); //$NON-NLS-1$ //$NON-NLS-2$
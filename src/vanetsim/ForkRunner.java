@@ -0,0 +1,322 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Properties;
+
+import vanetsim.gui.helpers.SimulationProperty;
+import vanetsim.localization.Messages;
+import vanetsim.map.Map;
+import vanetsim.scenario.Scenario;
+import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.Checkpoint;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
+import vanetsim.simulation.SimulationMaster;
+import vanetsim.simulation.WorkerThread;
+
+/**
+ * Runs several console simulations in one JVM which are forked from one warm-up. The warm-up is simulated once, its state
+ * is captured in memory and restored into a new {@link SimulationContext} for each fork. The forks run side by side, each
+ * one with its own simulation master, worker threads and logs. They are described in a fork file in the format of the
+ * <code>config.txt</code>:
+ * <ul>
+ * <li><code>map</code>: the map file</li>
+ * <li><code>scenario</code>: the scenario of the warm-up</li>
+ * <li><code>warmup</code>: the duration of the warm-up in milliseconds</li>
+ * <li><code>time</code>: the simulation time of the forks in milliseconds (including the warm-up)</li>
+ * <li><code>seed</code>: the seed for the vehicles of the scenarios (default 1)</li>
+ * <li><code>deterministic</code>: <code>true</code> to use the deterministic mode (default <code>false</code>)</li>
+ * <li><code>parallel</code>: how many forks run at the same time (default 0 = as many as processors and memory allow)</li>
+ * <li><code>fork.1</code>, <code>fork.2</code>...: the scenario of a fork</li>
+ * <li><code>fork.1.set</code>...: general settings replacing the ones of the scenario of the fork
+ * (<code>key=value;key=value...</code>, the keys are the ones of the research series)</li>
+ * <li><code>fork.1.logdir</code>...: a directory for all logs enabled in the scenario of the fork</li>
+ * </ul>
+ * A fork continues like a console simulation started with <code>-restore</code>: it loads the map and its scenario,
+ * restores the state of the warm-up and applies the settings of its scenario (and its general settings) afterwards. The
+ * forks share the processors equally. Automatic checkpoints are disabled as all forks would write the same files.
+ */
+public final class ForkRunner implements Runnable {
+
+	/**
+	 * A single fork.
+	 */
+	private static final class Fork {
+
+		/** The number of the fork in the fork file. */
+		private final int number_;
+
+		/** The scenario file. */
+		private final File scenario_;
+
+		/** The general settings (as <code>key=value</code>). */
+		private final String[] parameters_;
+
+		/** The directory for the logs (<code>null</code> to use the directories of the scenario). */
+		private final String logDir_;
+
+		/** If the fork has reached the simulation time. */
+		private volatile boolean finished_ = false;
+
+		/**
+		 * Instantiates a new fork.
+		 *
+		 * @param number		the number of the fork
+		 * @param scenario		the scenario file
+		 * @param parameters	the general settings
+		 * @param logDir		the directory for the logs or <code>null</code>
+		 */
+		public Fork(int number, File scenario, String[] parameters, String logDir){
+			number_ = number;
+			scenario_ = scenario;
+			parameters_ = parameters;
+			logDir_ = logDir;
+		}
+	}
+
+	/** The fork file. */
+	private final File forkFile_;
+
+	/** The map file. */
+	private File mapFile_ = null;
+
+	/** The scenario of the warm-up. */
+	private File scenarioFile_ = null;
+
+	/** The duration of the warm-up in milliseconds. */
+	private int warmUpTime_ = 0;
+
+	/** The simulation time in milliseconds. */
+	private int simulationTime_ = 0;
+
+	/** The seed for the vehicles of the scenarios. */
+	private long randomSeed_ = 1L;
+
+	/** If the deterministic mode is used. */
+	private boolean deterministic_ = false;
+
+	/** How many forks run at the same time (0 to choose it from the processors and the memory). */
+	private int parallel_ = 0;
+
+	/** All forks. */
+	private final ArrayList<Fork> forks_ = new ArrayList<Fork>();
+
+	/** The index of the next fork to start. */
+	private int nextFork_ = 0;
+
+	/**
+	 * Instantiates a new fork runner.
+	 *
+	 * @param forkFile	path of the fork file
+	 */
+	public ForkRunner(String forkFile){
+		forkFile_ = new File(forkFile);
+	}
+
+	/**
+	 * Simulates the warm-up, runs all forks and exits afterwards (with exit code 1 if a fork failed).
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run(){
+		EngineContext.setConsoleStart(true);
+		ConsoleStart.readconfig("./config.txt"); //$NON-NLS-1$
+		SimulationMaster.setCheckpointInterval(0, "./"); //$NON-NLS-1$
+		System.out.println("Time:" + new Date()); //$NON-NLS-1$
+		if(!readForkFile()) System.exit(1);
+
+		System.out.println(Messages.getString("ForkRunner.warmUpStarted") + warmUpTime_); //$NON-NLS-1$
+		final byte[] state;
+		long memory;
+		SimulationContext.setCurrent(new SimulationContext());
+		SimulationMaster master = start(scenarioFile_, 0);
+		try{
+			master.jumpToTime(warmUpTime_);
+			master.waitUntilStopped();
+			if(EngineContext.getTimePassed() < warmUpTime_) throw new IllegalStateException(String.valueOf(EngineContext.getTimePassed()));
+			state = Checkpoint.capture();
+			System.gc();
+			memory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("ForkRunner.warmUpFailed") + warmUpTime_, 7, ForkRunner.class.getName(), "run", e); //$NON-NLS-1$ //$NON-NLS-2$
+			System.exit(1);
+			return;
+		} finally {
+			master.terminate();
+			SimulationContext.setCurrent(null);
+		}
+		System.out.println(Messages.getString("ForkRunner.warmUpFinished") + state.length); //$NON-NLS-1$
+
+		// every fork loads its own map and scenario, so it needs about as much memory as the warm-up
+		int processors = Runtime.getRuntime().availableProcessors();
+		int parallel = parallel_;
+		if(parallel < 1) parallel = (int)Math.max(1, Math.min(processors, (Runtime.getRuntime().maxMemory() - state.length) / Math.max(1, memory)));
+		parallel = Math.min(parallel, forks_.size());
+		final int workers = Math.max(1, processors / parallel);
+		System.out.println(Messages.getString("ForkRunner.forksCreated") + forks_.size() + " / " + parallel); //$NON-NLS-1$ //$NON-NLS-2$
+
+		Thread[] threads = new Thread[parallel];
+		for(int i = 0; i < threads.length; ++i){
+			threads[i] = new Thread("ForkWorker " + i){ //$NON-NLS-1$
+				public void run(){
+					Fork fork;
+					while((fork = nextFork()) != null){
+						System.out.println(Messages.getString("ForkRunner.forkStarted") + fork.number_); //$NON-NLS-1$
+						execute(fork, state, workers);
+						if(fork.finished_) System.out.println(Messages.getString("ForkRunner.forkFinished") + fork.number_); //$NON-NLS-1$
+						else ErrorLog.log(Messages.getString("ForkRunner.forkFailed") + fork.number_, 6, ForkRunner.class.getName(), "run", null); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for(int i = 0; i < threads.length; ++i){
+			try{
+				threads[i].join();
+			} catch (InterruptedException e){}
+		}
+
+		int failed = 0;
+		for(int i = 0; i < forks_.size(); ++i){
+			if(!forks_.get(i).finished_) ++failed;
+		}
+		System.out.println("Time:" + new Date()); //$NON-NLS-1$
+		System.out.println(Messages.getString("ForkRunner.finished") + failed); //$NON-NLS-1$
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Reads the fork file and creates all forks.
+	 *
+	 * @return <code>true</code> if successful, <code>false</code> if the fork file is invalid (the error is logged)
+	 */
+	private boolean readForkFile(){
+		try{
+			Properties job = new Properties();
+			FileInputStream in = new FileInputStream(forkFile_);
+			try{
+				job.load(in);
+			} finally {
+				in.close();
+			}
+			mapFile_ = new File(job.getProperty("map", "")); //$NON-NLS-1$ //$NON-NLS-2$
+			if(!mapFile_.isFile()) throw new IllegalArgumentException("map"); //$NON-NLS-1$
+			scenarioFile_ = new File(job.getProperty("scenario", "")); //$NON-NLS-1$ //$NON-NLS-2$
+			if(!scenarioFile_.isFile()) throw new IllegalArgumentException("scenario"); //$NON-NLS-1$
+			warmUpTime_ = Integer.parseInt(job.getProperty("warmup", "").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			simulationTime_ = Integer.parseInt(job.getProperty("time", "").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			if(warmUpTime_ < 0 || simulationTime_ <= warmUpTime_) throw new IllegalArgumentException("time"); //$NON-NLS-1$
+			randomSeed_ = Long.parseLong(job.getProperty("seed", "1").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			deterministic_ = Boolean.parseBoolean(job.getProperty("deterministic", "false").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+			parallel_ = Integer.parseInt(job.getProperty("parallel", "0").trim()); //$NON-NLS-1$ //$NON-NLS-2$
+
+			String scenario, parameters, key;
+			String[] settings;
+			File file;
+			for(int i = 1; (scenario = job.getProperty("fork." + i)) != null; ++i){ //$NON-NLS-1$
+				file = new File(scenario.trim());
+				if(!file.isFile()) throw new IllegalArgumentException("fork." + i); //$NON-NLS-1$
+				parameters = job.getProperty("fork." + i + ".set", "").trim(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				settings = parameters.equals("") ? new String[0] : parameters.split(";"); //$NON-NLS-1$ //$NON-NLS-2$
+				for(int j = 0; j < settings.length; ++j){
+					settings[j] = settings[j].trim();
+					if(settings[j].indexOf('=') < 1) throw new IllegalArgumentException("fork." + i + ".set"); //$NON-NLS-1$ //$NON-NLS-2$
+					key = settings[j].substring(0, settings[j].indexOf('='));
+					if(SimulationProperty.getValueForKey(key) == -1) throw new IllegalArgumentException(key);
+					Double.parseDouble(settings[j].substring(settings[j].indexOf('=') + 1));
+				}
+				forks_.add(new Fork(i, file, settings, job.getProperty("fork." + i + ".logdir"))); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if(forks_.isEmpty()) throw new IllegalArgumentException("fork.1"); //$NON-NLS-1$
+			return true;
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("ForkRunner.forkFileError") + forkFile_.getPath(), 7, ForkRunner.class.getName(), "readForkFile", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the next fork to start.
+	 *
+	 * @return the fork or <code>null</code> if all forks have been started
+	 */
+	private synchronized Fork nextFork(){
+		if(nextFork_ < forks_.size()) return forks_.get(nextFork_++);
+		else return null;
+	}
+
+	/**
+	 * Loads the map and a scenario into the context of the calling thread and starts a simulation master for it (the
+	 * simulation itself is paused).
+	 *
+	 * @param scenario	the scenario file
+	 * @param workers	the amount of worker threads or <code>0</code> to use the global amount
+	 *
+	 * @return the simulation master
+	 */
+	private SimulationMaster start(File scenario, int workers){
+		WorkerThread.setDeterministic(deterministic_);
+		Map.getInstance().initNewMap(100000, 100000, 10000, 10000);
+		Map.getInstance().signalMapLoaded();
+		Map.getInstance().load(mapFile_, false);
+		Vehicle.setGlobalRandomSeed(randomSeed_);
+		Scenario.getInstance().load(scenario, false);
+		SimulationMaster master = new SimulationMaster();
+		master.setExitAtEnd(false);
+		master.setWorkerCount(workers);
+		master.start();
+		return master;
+	}
+
+	/**
+	 * Runs a fork in a new simulation context and waits until it has finished.
+	 *
+	 * @param fork		the fork
+	 * @param state		the state of the warm-up
+	 * @param workers	the amount of worker threads of the fork
+	 */
+	private void execute(Fork fork, byte[] state, int workers){
+		SimulationContext.setCurrent(new SimulationContext());
+		SimulationMaster master = null;
+		try{
+			master = start(fork.scenario_, workers);
+			if(!master.restoreCheckpoint(state)) return;
+			// like a restored console simulation, the fork uses the settings of its own scenario
+			Scenario.getInstance().loadSettings(fork.scenario_, false);
+			int separator;
+			for(int i = 0; i < fork.parameters_.length; ++i){
+				separator = fork.parameters_[i].indexOf('=');
+				SimulationProperty.setValueForKey(fork.parameters_[i].substring(0, separator), Double.parseDouble(fork.parameters_[i].substring(separator + 1)));
+			}
+			if(fork.logDir_ != null) ConsoleStart.setLogDir(fork.logDir_);
+			master.jumpToTime(simulationTime_);
+			master.waitUntilStopped();
+			fork.finished_ = EngineContext.getTimePassed() >= simulationTime_;
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("ForkRunner.forkFailed") + fork.number_, 6, ForkRunner.class.getName(), "execute", e); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			if(master != null) master.terminate();
+			SimulationContext.setCurrent(null);
+		}
+	}
+}
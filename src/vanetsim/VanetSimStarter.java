@@ -17,6 +17,8 @@
  */
 package vanetsim;
 
+import java.util.Arrays;
+
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
@@ -30,10 +32,18 @@ public class VanetSimStarter {
 	 * @param args	command line arguments. No argument is given the simulator will start in GUI-Mode.
 	 * if 3 arguments are given the simulator will start without GUI in console mode. args[0] = map path; args[1] = scenario path args[2] = time until the simulation stops 
 	 * example for console mode: java -jar VanetSimStarter.jar /Users/Max_Mustermann/rgb-1.xml /Users/Max_Mustermann/rgb-1_scen.xml 50000 
+	 * optional arguments after the time: -restore checkpoint (continue from a checkpoint), -checkpoint file (write a checkpoint when the time is reached),
+	 * -seed number (other vehicles from the same scenario), -set key=value (replace a general setting), -logdir directory (directory for all logs),
+	 * -deterministic true (same results for any amount of threads), -stats file (write step and phase times to a CSV file),
+	 * -statsinterval ms (interval of these statistics in simulated time)
+	 * with the arguments -batch jobfile a batch of console simulations is run in several JVMs (see {@link BatchRunner})
+	 * with the arguments -fork forkfile several console simulations are forked from one warm-up in this JVM (see {@link ForkRunner})
 	 */
 	public static void main(String[] args) {
-		if(args.length < 3) SwingUtilities.invokeLater(new VanetSimStart());
-		else SwingUtilities.invokeLater(new ConsoleStart(args[0], args[1], args[2]));
+		if(args.length == 2 && args[0].equals("-batch")) new BatchRunner(args[1]).run();
+		else if(args.length == 2 && args[0].equals("-fork")) new ForkRunner(args[1]).run();
+		else if(args.length < 3) SwingUtilities.invokeLater(new VanetSimStart());
+		else SwingUtilities.invokeLater(new ConsoleStart(args[0], args[1], args[2], Arrays.copyOfRange(args, 3, args.length)));
 	}
 
 	public static void restartWithLanguage(String language){
@@ -111,6 +111,7 @@ public final class DrawingArea extends JComponent implements MouseWheelListener,
 		// it shouldn't give problems with garbage shining through.
 		//to prevent this function from overwriting anything while rendering is in progress! 
 		synchronized(renderer_){
+			long paintTime = System.nanoTime();
 			if(streetsImage_ == null || getWidth() != streetsImage_.getWidth() || getHeight() != streetsImage_.getHeight()){
 				prepareBufferedImages();
 			}
@@ -130,6 +131,7 @@ public final class DrawingArea extends JComponent implements MouseWheelListener,
 			}
 	
 			g2d.dispose();	// should be disposed to aid garbage collector
+			renderer_.setPaintTime(System.nanoTime() - paintTime);
 		}
 	}
 	
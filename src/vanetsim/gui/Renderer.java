@@ -35,7 +35,6 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.TreeMap;
-import java.util.concurrent.CyclicBarrier;
 
 import java.awt.geom.Path2D;
 import java.util.ArrayDeque;
@@ -43,6 +42,7 @@ import java.util.ArrayDeque;
 import javax.imageio.ImageIO;
 
 import vanetsim.ErrorLog;
+import vanetsim.gui.helpers.RenderSnapshot;
 import vanetsim.localization.Messages;
 import vanetsim.map.Junction;
 import vanetsim.map.Map;
@@ -61,6 +61,7 @@ import vanetsim.scenario.events.EventList;
 import vanetsim.scenario.events.EventSpot;
 import vanetsim.scenario.events.EventSpotList;
 import vanetsim.scenario.events.StartBlocking;
+import vanetsim.simulation.EngineContext;
 
 /**
  * This class performs all rendering tasks.
@@ -118,14 +119,26 @@ public final class Renderer{
 	/** If a simulation thread is currently running. */
 	private boolean simulationRunning_ = false;
 
-	/** Used to display how long the relative time in milliseconds since the simulation started. */
-	private int timePassed_ = 0;
-
 	/** A boolean indicating if a new full render (=rendering of static objects) is needed. */
 	private boolean scheduleFullRender_ = false;
 
-	/** <code>true</code> if the current painting was forced by the simulation master, else <code>false</code> (by AWT/Swing or so). */
-	private boolean doPaintInitializedBySimulation_ = false;
+	/** The two snapshots of the vehicles filled by the simulation while it is running. One is drawn while the other one is filled. */
+	private final RenderSnapshot[] snapshots_ = {new RenderSnapshot(), new RenderSnapshot()};
+
+	/** The latest complete snapshot or <code>null</code> if the simulation has not published one yet. */
+	private RenderSnapshot frontSnapshot_ = null;
+
+	/** The snapshot which is currently drawn or <code>null</code>. It must not be filled by the simulation. */
+	private RenderSnapshot drawnSnapshot_ = null;
+
+	/** The snapshot filled from the regions when no simulation is running. Only used by the drawing thread. */
+	private final RenderSnapshot liveSnapshot_ = new RenderSnapshot();
+
+	/** <code>true</code> if a repaint has been requested by the simulation but the drawing has not started yet. */
+	private volatile boolean repaintPending_ = false;
+
+	/** The time the last repaint of the drawing area took in nanoseconds. */
+	private volatile long paintTime_ = 0;
 
 	/** The {@link DrawingArea} for the simulation. */
 	private DrawingArea drawArea_;
@@ -193,15 +206,6 @@ public final class Renderer{
 	/** A street which is to be drawn marked (selected by user). */
 	private Street markedStreet_ = null;	
 
-	/** A vehicle which is to be drawn marked (selected by user). */
-	private Vehicle markedVehicle_ = null;
-	
-	/** A vehicle which is to be drawn as attacker (selected by user). */
-	private Vehicle attackerVehicle_ = null;
-	
-	/** A vehicle which is to be drawn as attacked vehicle (selected by user). */
-	private Vehicle attackedVehicle_ = null;
-	
 	/** If circles shall be displayed to indicate communication distances. */
 	private boolean highlightCommunication_ = false;
 
@@ -232,9 +236,6 @@ public final class Renderer{
 	/** If attacker and attacked vehicle should be displayed*/
 	private boolean showAttackers_ = false;
 	
-	/** If a mix zone should be added at each street corner */
-	private boolean autoAddMixZones_ = false;
-	
 	/** The minimum x coordinate which is checked during beacon monitoring. */
 	private int beaconMonitorMinX_ = -1;
 	
@@ -253,9 +254,6 @@ public final class Renderer{
 	/** The ARSU color */
 	private Color arsuColor = new Color(100,0,0);
 
-	/** A <code>CyclicBarrier</code> to signal the SimulationMaster that we are ready with rendering the dynamic objects. */
-	private CyclicBarrier barrierForSimulationMaster_;
-
 	/** An image to indicate that there's a blocking. */
 	private BufferedImage blockingImage_;
 	
@@ -268,9 +266,6 @@ public final class Renderer{
 	/** A scaled instance of the <code>slipperyImage_</code>. Is updated on every zoom change. */
 	private BufferedImage scaledSlipperyImage_;
 	
-	/** flag for console start*/
-	private boolean consoleStart = false;
-
 	/** the marked junction*/
 	private Junction markedJunction_ = null;
 
@@ -357,10 +352,29 @@ public final class Renderer{
 	 */
 	public void drawMovingObjects(Graphics2D g2d){
 		Region[][] regions = map_.getRegions();
-		if(regions != null && map_.getReadyState() && (!simulationRunning_ || doPaintInitializedBySimulation_)){
+		RenderSnapshot snapshot = null;
+		if(regions != null && map_.getReadyState()){
+			if(simulationRunning_){		// draw the latest state published by the simulation
+				synchronized(snapshots_){
+					snapshot = frontSnapshot_;
+					drawnSnapshot_ = snapshot;
+				}
+				repaintPending_ = false;
+			} else {
+				snapshot = liveSnapshot_;
+				fillSnapshot(snapshot, EngineContext.getTimePassed());
+			}
+		}
+		if(snapshot != null){
 			int i, j, k, size;
 			Vehicle vehicle;
-			Vehicle[] vehicles;
+			Vehicle[] vehicles = snapshot.getVehicles();
+			int[] xs = snapshot.getXs(), ys = snapshot.getYs(), flags = snapshot.getFlags(), commDistances = snapshot.getCommDistances();
+			Color[] colors = snapshot.getColors();
+			int vehicleCount = snapshot.getSize();
+			Vehicle markedVehicle = EngineContext.getMarkedVehicle();
+			Vehicle attackerVehicle = EngineContext.getAttackerVehicle();
+			Vehicle attackedVehicle = EngineContext.getAttackedVehicle();
 
 			// A small fix because the substance theme engine sometimes causes unwanted shifts
 			AffineTransform g2dAffine = g2d.getTransform();	//cache to save some calls
@@ -498,40 +512,27 @@ public final class Renderer{
 				g2d.setPaint(Color.black);
 				g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
 				try{
-					for(i = regionMinX_; i <= regionMaxX_; ++i){
-						for(j = regionMinY_; j <= regionMaxY_; ++j){
-							vehicles = regions[i][j].getVehicleArray();
-							size = vehicles.length;
-							for(k = 0; k < size; ++k){
-								vehicle = vehicles[k];
-								g2d.setPaint(vehicle.getColor());
-								if(vehicle.isInSlow())g2d.setPaint(Color.pink);
-								if((isShowVehicles() || vehicle.isActive()) && vehicle.getX() >= mapMinX_ && vehicle.getX() <= mapMaxX_ && vehicle.getY() >= mapMinY_ && vehicle.getY() <= mapMaxY_){		//only paint when necessary and within paint area
-									if(highlightCommunication_){
-										if(vehicle.isWiFiEnabled() && (!vehicle.isInMixZone() || Vehicle.getMixZonesFallbackEnabled())){
-											g2d.setPaint(Color.blue);
-											if(vehicle != markedVehicle_) g2d.drawOval(vehicle.getX()-vehicle.getMaxCommDistance(), vehicle.getY()-vehicle.getMaxCommDistance(),vehicle.getMaxCommDistance()*2,vehicle.getMaxCommDistance()*2);
-										} else g2d.setPaint(Color.black);
-									}
-									g2d.fillOval(vehicle.getX()-VEHICLE_SIZE/2, vehicle.getY()-VEHICLE_SIZE/2,VEHICLE_SIZE,VEHICLE_SIZE);
-								}
+					// the snapshot only contains the vehicles within the paint area
+					for(k = 0; k < vehicleCount; ++k){
+						g2d.setPaint(colors[k]);
+						if((flags[k] & RenderSnapshot.FLAG_SLOW) != 0)g2d.setPaint(Color.pink);
+						if(isShowVehicles() || (flags[k] & RenderSnapshot.FLAG_ACTIVE) != 0){		//only paint when necessary
+							if(highlightCommunication_){
+								if((flags[k] & RenderSnapshot.FLAG_COMMUNICATING) != 0){
+									g2d.setPaint(Color.blue);
+									if(vehicles[k] != markedVehicle) g2d.drawOval(xs[k]-commDistances[k], ys[k]-commDistances[k],commDistances[k]*2,commDistances[k]*2);
+								} else g2d.setPaint(Color.black);
 							}
+							g2d.fillOval(xs[k]-VEHICLE_SIZE/2, ys[k]-VEHICLE_SIZE/2,VEHICLE_SIZE,VEHICLE_SIZE);
 						}
 					}
 				} catch (Exception e){}
 				if(displayVehicleIDs_){
 					g2d.setPaint(new Color(153, 102, 100));
 					try{
-						for(i = regionMinX_; i <= regionMaxX_; ++i){
-							for(j = regionMinY_; j <= regionMaxY_; ++j){
-								vehicles = regions[i][j].getVehicleArray();
-								size = vehicles.length;
-								for(k = 0; k < size; ++k){
-									vehicle = vehicles[k];
-									if(vehicle.isActive() && vehicle.getX() >= mapMinX_ && vehicle.getX() <= mapMaxX_ && vehicle.getY() >= mapMinY_ && vehicle.getY() <= mapMaxY_){		//only paint when necessary and within paint area
-										g2d.drawString(vehicle.getHexID(), vehicle.getX() - vehicleIDFontSize_ *4, vehicle.getY() - VEHICLE_SIZE/2);
-									}
-								}
+						for(k = 0; k < vehicleCount; ++k){
+							if((flags[k] & RenderSnapshot.FLAG_ACTIVE) != 0){		//only paint when necessary
+								g2d.drawString(vehicles[k].getHexID(), xs[k] - vehicleIDFontSize_ *4, ys[k] - VEHICLE_SIZE/2);
 							}
 						}
 					} catch (Exception e){}
@@ -542,31 +543,24 @@ public final class Renderer{
 				if(showKnownVehiclesConnections_){
 					g2d.setPaint(new Color(153, 102, 100));
 					try{
-						for(i = regionMinX_; i <= regionMaxX_; ++i){
-							for(j = regionMinY_; j <= regionMaxY_; ++j){
-								vehicles = regions[i][j].getVehicleArray();
-								size = vehicles.length;
-								for(k = 0; k < size; ++k){
-									vehicle = vehicles[k];
-									if(vehicle.isActive() && vehicle.getX() >= mapMinX_ && vehicle.getX() <= mapMaxX_ && vehicle.getY() >= mapMinY_ && vehicle.getY() <= mapMaxY_){		//only paint when necessary and within paint area
-										
-										
-										KnownVehicle[] heads = vehicle.getKnownVehiclesList().getFirstKnownVehicle();
-										KnownVehicle next;
-										
-										//traverse all vehicle which sent beacons
-										for(int l = 0; l < heads.length; ++l){
-											next = heads[l];								
-											while(next != null){
-												//Find the attacker data
-												g2d.drawLine(vehicle.getX(), vehicle.getY(),next.getX(), next.getY());
-												next = next.getNext();
-											}
-										}
-										
-
+						for(k = 0; k < vehicleCount; ++k){
+							vehicle = vehicles[k];
+							if((flags[k] & RenderSnapshot.FLAG_ACTIVE) != 0){		//only paint when necessary
+								
+								
+								KnownVehicle[] knownVehicles = vehicle.getKnownVehiclesList().getKnownVehicles();
+								KnownVehicle next;
+								
+								//traverse all vehicle which sent beacons
+								for(int l = 0; l < knownVehicles.length; ++l){
+									next = knownVehicles[l];								
+									if(next != null){
+										//Find the attacker data
+										g2d.drawLine(xs[k], ys[k],next.getX(), next.getY());
 									}
 								}
+								
+
 							}
 						}
 					} catch (Exception e){e.printStackTrace();}
@@ -576,54 +570,48 @@ public final class Renderer{
 				if(showPenaltyConnections_){
 					
 					try{
-						for(i = regionMinX_; i <= regionMaxX_; ++i){
-							for(j = regionMinY_; j <= regionMaxY_; ++j){
-								vehicles = regions[i][j].getVehicleArray();
-								size = vehicles.length;
-								for(k = 0; k < size; ++k){
-									vehicle = vehicles[k];
-									if(vehicle.isActive() && vehicle.getX() >= mapMinX_ && vehicle.getX() <= mapMaxX_ && vehicle.getY() >= mapMinY_ && vehicle.getY() <= mapMaxY_){		//only paint when necessary and within paint area
-										KnownPenalties tmp = vehicle.getKnownPenalties();
+						for(k = 0; k < vehicleCount; ++k){
+							vehicle = vehicles[k];
+							if((flags[k] & RenderSnapshot.FLAG_ACTIVE) != 0){		//only paint when necessary
+								KnownPenalties tmp = vehicle.getKnownPenalties();
+								
+								if(tmp != null){
+									for(int p = 0; p < tmp.getSize(); p++){
+										if(tmp.getPenaltyType_()[p].equals("EVA_EMERGENCY_ID")) g2d.setPaint(Color.red);
+										else if(tmp.getPenaltyType_()[p].equals("HUANG_PCN")) g2d.setPaint(Color.black);
+										else if(tmp.getPenaltyType_()[p].equals("PCN_FORWARD")) g2d.setPaint(Color.gray);
+										else if(tmp.getPenaltyType_()[p].equals("HUANG_RHCN")) g2d.setPaint(Color.green);
+										else if(tmp.getPenaltyType_()[p].equals("HUANG_EVA_FORWARD")) g2d.setPaint(Color.pink);
+										else if(tmp.getPenaltyType_()[p].equals("HUANG_EEBL")) g2d.setPaint(Color.orange);
 										
-										if(tmp != null){
-											for(int p = 0; p < tmp.getSize(); p++){
-												if(tmp.getPenaltyType_()[p].equals("EVA_EMERGENCY_ID")) g2d.setPaint(Color.red);
-												else if(tmp.getPenaltyType_()[p].equals("HUANG_PCN")) g2d.setPaint(Color.black);
-												else if(tmp.getPenaltyType_()[p].equals("PCN_FORWARD")) g2d.setPaint(Color.gray);
-												else if(tmp.getPenaltyType_()[p].equals("HUANG_RHCN")) g2d.setPaint(Color.green);
-												else if(tmp.getPenaltyType_()[p].equals("HUANG_EVA_FORWARD")) g2d.setPaint(Color.pink);
-												else if(tmp.getPenaltyType_()[p].equals("HUANG_EEBL")) g2d.setPaint(Color.orange);
-												
-												
-												
-												if(tmp.getPenaltySourceVehicle_() != null && tmp.getPenaltySourceVehicle_()[p] != null)g2d.drawLine(vehicle.getX(), vehicle.getY(), tmp.getPenaltySourceVehicle_()[p].getX(), tmp.getPenaltySourceVehicle_()[p].getY());
-											}
-										}
 										
+										
+										if(tmp.getPenaltySourceVehicle_() != null && tmp.getPenaltySourceVehicle_()[p] != null)g2d.drawLine(xs[k], ys[k], tmp.getPenaltySourceVehicle_()[p].getX(), tmp.getPenaltySourceVehicle_()[p].getY());
 									}
 								}
+								
 							}
 						}
 					} catch (Exception e){e.printStackTrace();}
 				}
 				// draw vehicle marked by user
-				if(markedVehicle_ != null){
+				if(markedVehicle != null){
 					g2d.setPaint(Color.RED);
-					g2d.fillOval(markedVehicle_.getX()-VEHICLE_SIZE/2+35, markedVehicle_.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
-					if(markedVehicle_.isWiFiEnabled() && (!markedVehicle_.isInMixZone() || Vehicle.getMixZonesFallbackEnabled())) g2d.drawOval(markedVehicle_.getX()-markedVehicle_.getMaxCommDistance(), markedVehicle_.getY()-markedVehicle_.getMaxCommDistance(),markedVehicle_.getMaxCommDistance()*2,markedVehicle_.getMaxCommDistance()*2);
-					WayPoint nextDestination = markedVehicle_.getDestinations().peekFirst();
+					g2d.fillOval(markedVehicle.getX()-VEHICLE_SIZE/2+35, markedVehicle.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
+					if(markedVehicle.isWiFiEnabled() && (!markedVehicle.isInMixZone() || Vehicle.getMixZonesFallbackEnabled())) g2d.drawOval(markedVehicle.getX()-markedVehicle.getMaxCommDistance(), markedVehicle.getY()-markedVehicle.getMaxCommDistance(),markedVehicle.getMaxCommDistance()*2,markedVehicle.getMaxCommDistance()*2);
+					WayPoint nextDestination = markedVehicle.getDestinations().peekFirst();
 					if(nextDestination != null){
-						g2d.drawLine(markedVehicle_.getX(), markedVehicle_.getY(), nextDestination.getX(), nextDestination.getY());
+						g2d.drawLine(markedVehicle.getX(), markedVehicle.getY(), nextDestination.getX(), nextDestination.getY());
 						g2d.fillOval(nextDestination.getX()-VEHICLE_SIZE, nextDestination.getY()-VEHICLE_SIZE,VEHICLE_SIZE*2,VEHICLE_SIZE*2);
-						Street[] routestreets = markedVehicle_.getRouteStreets();
+						Street[] routestreets = markedVehicle.getRouteStreets();
 						if(routestreets.length > 1){
 							g2d.setPaint(Color.blue);
-							if(markedVehicle_.getCurDirection()) g2d.drawLine(markedVehicle_.getX(), markedVehicle_.getY(), markedVehicle_.getCurStreet().getEndNode().getX(), markedVehicle_.getCurStreet().getEndNode().getY());
-							else g2d.drawLine(markedVehicle_.getX(), markedVehicle_.getY(), markedVehicle_.getCurStreet().getStartNode().getX(), markedVehicle_.getCurStreet().getStartNode().getY());
-							for(i = markedVehicle_.getRoutePosition()+1; i < routestreets.length-1; ++i){
+							if(markedVehicle.getCurDirection()) g2d.drawLine(markedVehicle.getX(), markedVehicle.getY(), markedVehicle.getCurStreet().getEndNode().getX(), markedVehicle.getCurStreet().getEndNode().getY());
+							else g2d.drawLine(markedVehicle.getX(), markedVehicle.getY(), markedVehicle.getCurStreet().getStartNode().getX(), markedVehicle.getCurStreet().getStartNode().getY());
+							for(i = markedVehicle.getRoutePosition()+1; i < routestreets.length-1; ++i){
 								g2d.drawLine(routestreets[i].getStartNode().getX(), routestreets[i].getStartNode().getY(), routestreets[i].getEndNode().getX(), routestreets[i].getEndNode().getY());
 							}
-							if(!markedVehicle_.getRouteDirections()[routestreets.length-1]){
+							if(!markedVehicle.getRouteDirections()[routestreets.length-1]){
 								g2d.drawLine(nextDestination.getX(), nextDestination.getY(), routestreets[routestreets.length-1].getEndNode().getX(), routestreets[routestreets.length-1].getEndNode().getY());
 							} else {
 								g2d.drawLine(nextDestination.getX(), nextDestination.getY(), routestreets[routestreets.length-1].getStartNode().getX(), routestreets[routestreets.length-1].getStartNode().getY());
@@ -634,7 +622,7 @@ public final class Renderer{
 					//added to display more than 2 Waypoints for one vehicle (only used in vehicle edit mode, so no need to improve the performance)
 					if(isShowVehicles()){
 						
-						ArrayDeque<WayPoint> tmpDestinations = markedVehicle_.getDestinations();
+						ArrayDeque<WayPoint> tmpDestinations = markedVehicle.getDestinations();
 						
 							WayPoint oldDestination = null;
 							for(WayPoint destination : tmpDestinations){	
@@ -654,14 +642,14 @@ public final class Renderer{
 				}
 				if(showAttackers_ || simulationRunning_){
 					// draw attacker vehicle
-					if(attackerVehicle_ != null){
+					if(attackerVehicle != null){
 						g2d.setPaint(Color.LIGHT_GRAY);
-						g2d.fillOval(attackerVehicle_.getX()-VEHICLE_SIZE/2+35, attackerVehicle_.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
+						g2d.fillOval(attackerVehicle.getX()-VEHICLE_SIZE/2+35, attackerVehicle.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
 					}
 					// draw attacked vehicle
-					if(attackedVehicle_ != null){
+					if(attackedVehicle != null){
 						g2d.setPaint(Color.GREEN);
-						g2d.fillOval(attackedVehicle_.getX()-VEHICLE_SIZE/2+35, attackedVehicle_.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
+						g2d.fillOval(attackedVehicle.getX()-VEHICLE_SIZE/2+35, attackedVehicle.getY()-VEHICLE_SIZE/2+35,VEHICLE_SIZE-70,VEHICLE_SIZE-70);
 					}
 				}
 			}
@@ -698,10 +686,10 @@ public final class Renderer{
 			g2d.setPaint(Color.black);
 			g2d.setFont(timeFont_);
 			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_OFF);
-			g2d.drawString(FORMATTER.format(timePassed_) + " ms", 5 ,10 ); //$NON-NLS-1$
+			g2d.drawString(FORMATTER.format(snapshot.getTime()) + " ms", 5 ,10 ); //$NON-NLS-1$
 
 			//draw silent period sign
-			if(Vehicle.isSilent_period()){
+			if(snapshot.isSilentPeriod()){
 				// display time
 				g2d.setPaint(Color.red);
 				g2d.setFont(silentPeriodFont_);
@@ -709,16 +697,66 @@ public final class Renderer{
 				g2d.drawString("SILENT PERIOD", 5 ,this.drawHeight_ - 10); //$NON-NLS-1$
 			}
 			
-			if(simulationRunning_ && doPaintInitializedBySimulation_){
-				doPaintInitializedBySimulation_ = false;
-				try{
-					barrierForSimulationMaster_.await();	//signal SimulationMaster that we are ready!
-					barrierForSimulationMaster_.reset();
-				} catch (Exception e){}
+			if(snapshot != liveSnapshot_){
+				synchronized(snapshots_){
+					drawnSnapshot_ = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the state of all vehicles within the paint area into a snapshot. If the zoom is too far away to draw
+	 * vehicles, the snapshot stays empty.
+	 * 
+	 * @param snapshot	the snapshot to fill
+	 * @param time		the current simulation time
+	 */
+	private void fillSnapshot(RenderSnapshot snapshot, int time){
+		snapshot.clear(time, Vehicle.isSilent_period());
+		Region[][] regions = map_.getRegions();
+		if(regions == null || zoom_ <= 0.0018) return;
+		int i, j, k, size;
+		int minX = mapMinX_, maxX = mapMaxX_, minY = mapMinY_, maxY = mapMaxY_;
+		int regionMinX = Math.max(0, regionMinX_), regionMaxX = Math.min(regions.length - 1, regionMaxX_);
+		Vehicle[] vehicles;
+		Vehicle vehicle;
+		for(i = regionMinX; i <= regionMaxX; ++i){
+			for(j = Math.max(0, regionMinY_); j <= regionMaxY_ && j < regions[i].length; ++j){
+				vehicles = regions[i][j].getVehicleStore();
+				size = regions[i][j].getVehicleCount();
+				for(k = 0; k < size; ++k){
+					vehicle = vehicles[k];
+					if(vehicle.getX() >= minX && vehicle.getX() <= maxX && vehicle.getY() >= minY && vehicle.getY() <= maxY) snapshot.add(vehicle);		// only within paint area
+				}
 			}
 		}
 	}
 
+	/**
+	 * Publishes the state of the vehicles after a simulation step. Called by the {@link vanetsim.simulation.SimulationMaster}
+	 * while the workers are waiting. The drawing is done later by the Swing thread at its own pace. If both snapshots are
+	 * still in use (because drawing is slower than the simulation), this step is skipped.
+	 * 
+	 * @param time	the simulation time
+	 */
+	public void publishSnapshot(int time){
+		RenderSnapshot snapshot;
+		synchronized(snapshots_){
+			if(frontSnapshot_ != snapshots_[0] && drawnSnapshot_ != snapshots_[0]) snapshot = snapshots_[0];
+			else if(frontSnapshot_ != snapshots_[1] && drawnSnapshot_ != snapshots_[1]) snapshot = snapshots_[1];
+			else return;
+		}
+		fillSnapshot(snapshot, time);
+		synchronized(snapshots_){
+			frontSnapshot_ = snapshot;
+		}
+		if(drawArea_ != null && !repaintPending_){		// don't flood Swing with requests if drawing can't keep up
+			repaintPending_ = true;
+			drawArea_.repaint();
+		}
+	}
+
 	/**
 	 * Creates an image to see the current scale.
 	 * 
@@ -1484,7 +1522,6 @@ public final class Renderer{
 					scheduleFullRender_ = false;
 					drawArea_.prepareBufferedImages();					
 				}
-				doPaintInitializedBySimulation_ = true;
 				drawArea_.repaint();
 			}
 		}
@@ -1534,7 +1571,25 @@ public final class Renderer{
 	 * @return the time passed in milliseconds
 	 */
 	public int getTimePassed(){
-		return timePassed_;
+		return EngineContext.getTimePassed();
+	}
+
+	/**
+	 * Gets the time the last repaint of the drawing area took.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long getPaintTime(){
+		return paintTime_;
+	}
+
+	/**
+	 * Sets the time the last repaint of the drawing area took. Called by the {@link DrawingArea}.
+	 * 
+	 * @param paintTime	the time in nanoseconds
+	 */
+	public void setPaintTime(long paintTime){
+		paintTime_ = paintTime;
 	}
 
 
@@ -1570,16 +1625,16 @@ public final class Renderer{
 	 * 
 	 * @param markedVehicle the vehicle to mark
 	 */
-	public synchronized void setMarkedVehicle(Vehicle markedVehicle){
-		markedVehicle_ = markedVehicle;
+	public void setMarkedVehicle(Vehicle markedVehicle){
+		EngineContext.setMarkedVehicle(markedVehicle);
 	}
 
 	/**
 	 * Gets a marked vehicle.
 	 *
 	 */
-	public synchronized Vehicle getMarkedVehicle(){
-		return markedVehicle_;
+	public Vehicle getMarkedVehicle(){
+		return EngineContext.getMarkedVehicle();
 	}
 	
 	/**
@@ -1587,16 +1642,16 @@ public final class Renderer{
 	 * 
 	 * @param attackerVehicle the attacker vehicle
 	 */
-	public synchronized void setAttackerVehicle(Vehicle attackerVehicle){
-		attackerVehicle_ = attackerVehicle;
+	public void setAttackerVehicle(Vehicle attackerVehicle){
+		EngineContext.setAttackerVehicle(attackerVehicle);
 	}
 
 	/**
 	 * Gets the attacker vehicle.
 	 *
 	 */
-	public synchronized Vehicle getAttackerVehicle(){
-		return attackerVehicle_;
+	public Vehicle getAttackerVehicle(){
+		return EngineContext.getAttackerVehicle();
 	}
 	
 	/**
@@ -1644,16 +1699,7 @@ public final class Renderer{
 	 * @param timePassed the new time in milliseconds
 	 */
 	public void setTimePassed(int timePassed){
-		timePassed_ = timePassed;
-	}
-
-	/**
-	 * Sets the barrier for synchronization with the SimulationMaster.
-	 * 
-	 * @param barrier the barrier to use
-	 */
-	public void setBarrierForSimulationMaster(CyclicBarrier barrier){
-		barrierForSimulationMaster_ = barrier;
+		EngineContext.setTimePassed(timePassed);
 	}
 
 	/**
@@ -1768,7 +1814,7 @@ public final class Renderer{
 	 * @param autoAddMixZones <code>true</code> if you want to add mix zones to all street corners automatically else <code>false</code>
 	 */
 	public void setAutoAddMixZones(boolean autoAddMixZones) {
-		autoAddMixZones_ = autoAddMixZones;
+		EngineContext.setAutoAddMixZones(autoAddMixZones);
 	}
 
 	/**
@@ -1777,7 +1823,7 @@ public final class Renderer{
 	 * @return true if mix zones are added automatically
 	 */
 	public boolean isAutoAddMixZones() {
-		return autoAddMixZones_;
+		return EngineContext.isAutoAddMixZones();
 	}
 
 	/**
@@ -1799,11 +1845,11 @@ public final class Renderer{
 	}
 	
 	public Vehicle getAttackedVehicle() {
-		return attackedVehicle_;
+		return EngineContext.getAttackedVehicle();
 	}
 
 	public void setAttackedVehicle(Vehicle attackedVehicle_) {
-		this.attackedVehicle_ = attackedVehicle_;
+		EngineContext.setAttackedVehicle(attackedVehicle_);
 	}
 
 	public boolean isShowAttackers() {
@@ -1815,11 +1861,11 @@ public final class Renderer{
 	}
 
 	public boolean isConsoleStart() {
-		return consoleStart;
+		return EngineContext.isConsoleStart();
 	}
 
 	public void setConsoleStart(boolean consoleStart) {
-		this.consoleStart = consoleStart;
+		EngineContext.setConsoleStart(consoleStart);
 	}
 
 	/**
@@ -46,10 +46,10 @@ import vanetsim.localization.Messages;
 import vanetsim.map.Map;
 import vanetsim.map.Node;
 import vanetsim.scenario.IDSProcessor;
-import vanetsim.scenario.Vehicle;
 import vanetsim.scenario.events.Cluster;
 import vanetsim.scenario.events.EventSpot;
 import vanetsim.scenario.events.EventSpotList;
+import vanetsim.simulation.RandomStream;
 
 
 /**
@@ -369,7 +369,7 @@ public final class EditEventSpotsControlPanel extends JPanel implements ActionLi
 	 */
 	public void receiveMouseEvent(int x, int y){
 		if(addItem_.isSelected()){
-				EventSpotList.getInstance().addEventSpot(new EventSpot(x,y, ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, returnAmenityCode(eventSpotType_.getSelectedItem().toString()), Vehicle.getRandom().nextLong()));
+				EventSpotList.getInstance().addEventSpot(new EventSpot(x,y, ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, returnAmenityCode(eventSpotType_.getSelectedItem().toString()), RandomStream.nextSeed()));
 			
 		}
 		else if(deleteItem_.isSelected()){
@@ -391,11 +391,11 @@ public final class EditEventSpotsControlPanel extends JPanel implements ActionLi
 		if("clearSpots".equals(command)) EventSpotList.getInstance().clearEvents();
 		else if("importAmenities".equals(command)){
 			for(Node n:Map.getInstance().getAmenityList()){
-				if(schoolBox_.isSelected() && n.getAmenity_().equals("school"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), Vehicle.getRandom().nextLong()));
-				else if(kindergartenBox_.isSelected() && n.getAmenity_().equals("kindergarten"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), Vehicle.getRandom().nextLong()));
-				else if(policeBox_.isSelected() && n.getAmenity_().equals("police"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), Vehicle.getRandom().nextLong()));
-				else if(hospitalBox_.isSelected() && n.getAmenity_().equals("hospital"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), Vehicle.getRandom().nextLong()));
-				else if(fireBox_.isSelected() && n.getAmenity_().equals("fire_station"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), Vehicle.getRandom().nextLong()));
+				if(schoolBox_.isSelected() && n.getAmenity_().equals("school"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), RandomStream.nextSeed()));
+				else if(kindergartenBox_.isSelected() && n.getAmenity_().equals("kindergarten"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), RandomStream.nextSeed()));
+				else if(policeBox_.isSelected() && n.getAmenity_().equals("police"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), RandomStream.nextSeed()));
+				else if(hospitalBox_.isSelected() && n.getAmenity_().equals("hospital"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), RandomStream.nextSeed()));
+				else if(fireBox_.isSelected() && n.getAmenity_().equals("fire_station"))	EventSpotList.getInstance().addEventSpot(new EventSpot(n.getX(),n.getY(), ((Number)eventSpotFrequency_.getValue()).intValue()*1000, ((Number)eventSpotRadius_.getValue()).intValue()*100, n.getAmenity_(), RandomStream.nextSeed()));
 
 			}
 		}
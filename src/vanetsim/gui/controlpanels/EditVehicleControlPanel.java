@@ -29,7 +29,6 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Random;
 
 import java.util.ArrayDeque;
 
@@ -53,6 +52,7 @@ import vanetsim.map.Map;
 import vanetsim.routing.WayPoint;
 import vanetsim.scenario.IDSProcessor;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.RandomStream;
 
 /**
  * This class represents the control panel for adding random vehicles.
@@ -672,7 +672,7 @@ public class EditVehicleControlPanel extends JPanel implements ActionListener, M
 					boolean fakingEnabled;
 					ArrayDeque<WayPoint> destinations = null;
 					Vehicle tmpVehicle;
-					Random random = new Random();
+					RandomStream random = RandomStream.newStream(RandomStream.STREAM_RANDOM_VEHICLES);
 					int tmpRandom = -1;
 					
 					// create the random vehicles. It may fail lots of times if the map is almost empty. Then, possible less
@@ -837,7 +837,7 @@ public class EditVehicleControlPanel extends JPanel implements ActionListener, M
 	 * 
 	 * @return the random range
 	 */
-	private int getRandomRange(int min, int max, Random random){
+	private int getRandomRange(int min, int max, RandomStream random){
 		if(min == max) return min;
 		else {
 			if(max < min){	//swap to make sure that smallest value is in min if wrong values were passed
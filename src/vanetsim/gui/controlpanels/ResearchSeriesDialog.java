@@ -28,10 +28,12 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.LinkedHashMap;
+import java.util.Properties;
 
 import java.util.ArrayDeque;
 
@@ -46,10 +48,12 @@ import javax.swing.JPanel;
 import javax.swing.JSeparator;
 import javax.swing.JSpinner;
 import javax.swing.ListSelectionModel;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import vanetsim.BatchRunner;
 import vanetsim.ErrorLog;
 import vanetsim.VanetSimStart;
 import vanetsim.gui.Renderer;
@@ -61,11 +65,9 @@ import vanetsim.gui.helpers.VehicleSet;
 import vanetsim.localization.Messages;
 import vanetsim.map.Map;
 import vanetsim.routing.WayPoint;
-import vanetsim.scenario.IDSProcessor;
-import vanetsim.scenario.KnownEventSource;
-import vanetsim.scenario.KnownVehicle;
 import vanetsim.scenario.Scenario;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.RandomStream;
 
 /**
  * A dialog to create,edit and delete vehicle type files.
@@ -111,6 +113,9 @@ public final class ResearchSeriesDialog extends JDialog implements ActionListene
 	/** The input field for the amount of simulation runs per scenario */
 	private final JSpinner amountOfSimulationRuns_;
 	
+	/** The input field for the simulated time shared by all jobs which only differ in general settings (0 to simulate every job on its own) */
+	private final JSpinner warmUpTime_;
+	
 	/** The selectProperties mode */
 	private boolean selectPropertiesModeOn_ = true;
 	
@@ -354,6 +359,15 @@ public final class ResearchSeriesDialog extends JDialog implements ActionListene
 		add(amountOfSimulationRuns_,c);
 		++c.gridy;
 		
+		c.gridx = 0;
+		c.gridwidth = 2;
+		add(new JLabel(Messages.getString("ResearchSeriesDialog.warmUpTime")),c);
+		c.gridx = 2;
+		c.gridwidth = 1;
+		warmUpTime_ = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 60000));
+		add(warmUpTime_,c);
+		++c.gridy;
+		
 		c.gridx = 0;
 		c.gridwidth = 1;
 		JButton createScenarios = new JButton(Messages.getString("ResearchSeriesDialog.createButton"));
@@ -529,201 +543,290 @@ public final class ResearchSeriesDialog extends JDialog implements ActionListene
 	public void startJobs(){
 		VanetSimStart.setProgressBar(true);
 		ResearchSeriesDialog.getInstance().setVisible(false);
+		final int warmUpTime = ((Number)warmUpTime_.getValue()).intValue();
 		//do the job
 		Runnable job = new Runnable() {
 			public void run() {
 				ArrayList<String> jobList = new ArrayList<String>();
 				long time = System.currentTimeMillis();
+				String scenarioDir = time + "_scenarios/";
+				String command = "java -Xmx" + availableMemory_ + "m -jar VanetSimStarter.jar " + Map.getInstance().getMapName_() + " ";
+				String fileName, forkFile = null;
 				double oldValue;
 				String[] data;
 				SimulationSeries series;
 				SimulationProperty simulationProperty = null;
+				Properties forks = null;
+				int fork, parallelForks = getParallelForks();
+				
+				// with a warm-up, all jobs differing only in a general setting share their vehicles. The warm-up is simulated once and all jobs are forked from it in one JVM (see ForkRunner).
+				LinkedHashMap<String, ArrayList<String>> groups = new LinkedHashMap<String, ArrayList<String>>();
 				for(String theJob:jobList_){
+					if(warmUpTime > 0){
+						data = theJob.split(":", 4);
+						fileName = data[0] + ":" + data[3];
+					} else fileName = theJob;
+					if(!groups.containsKey(fileName)) groups.put(fileName, new ArrayList<String>());
+					groups.get(fileName).add(theJob);
+				}
+				File file = new File(System.getProperty("user.dir") + "/" + scenarioDir);
+				if(!file.exists())file.mkdir();
+				
+				for(ArrayList<String> group:groups.values()){
 					for(int n = 0; n < ((Number)amountOfSimulationRuns_.getValue()).intValue(); n++){
-						//clear old vehicles!
-						Map.getInstance().clearVehicles();
-						
-						data = theJob.split(":");
-						series = simulationSeriesList_.get(Integer.parseInt(data[0]));
-						simulationProperty = null;
-						
-						oldValue = -1;
-						if(!data[1].equals("-1")){
-							simulationProperty = series.getPropertyList_().get(Integer.parseInt(data[1]));
-							oldValue = 	getValueForKey(simulationProperty.getPropertyKey_());
-							setValueForKey(simulationProperty.getPropertyKey_(), simulationProperty.getStartValue_() + simulationProperty.getStepValue_() * Integer.parseInt(data[2]));
+						fork = 0;
+						if(warmUpTime > 0){
+							data = group.get(0).split(":");
+							series = simulationSeriesList_.get(Integer.parseInt(data[0]));
+							Map.getInstance().clearVehicles();
+							createVehicles(series, data);
+							fileName = (scenarioDir + getScenarioName(series, null, data) + "_warmup_v" + n).replace(" ", "");
+							Scenario.getInstance().save(new File(System.getProperty("user.dir") + "/" + fileName + ".xml"), false);
+							forks = new Properties();
+							forks.setProperty("map", Map.getInstance().getMapName_());
+							forks.setProperty("scenario", fileName + ".xml");
+							forks.setProperty("warmup", String.valueOf(warmUpTime));
+							forks.setProperty("time", String.valueOf(simulationDuration_));
+							forks.setProperty("parallel", String.valueOf(Math.min(parallelForks, group.size())));
+							forkFile = fileName + ".fork";
+							jobList.add("java -Xmx" + availableMemory_ * Math.min(parallelForks, group.size()) + "m -jar VanetSimStarter.jar -fork " + forkFile);
 						}
-						for(int m = 0; m < series.getVehicleSetList_().size(); m++){
-									int i, j, k, l = 0;
-									int speedDeviation = 0;
-									int maxX = Map.getInstance().getMapWidth();
-									int maxY = Map.getInstance().getMapHeight();
-									boolean wiFiEnabled;
-									boolean emergencyEnabled;
-									boolean fakingEnabled;
-									ArrayDeque<WayPoint> destinations = null;
-									Vehicle tmpVehicle;
-									Random random = new Random();
-									int tmpRandom = -1;
-									VehicleSet vehicleSet = series.getVehicleSetList_().get(m);
-									// create the random vehicles. It may fail lots of times if the map is almost empty. Then, possible less
-									// vehicles are created than specified because it's only tried 4 x amountValue!
-						
-									int minSpeedValue = vehicleSet.getMinSpeed_();
-									int maxSpeedValue = vehicleSet.getMaxSpeed_();
-									int minCommDistValue = vehicleSet.getMinCommDist_();
-									int maxCommDistValue = vehicleSet.getMaxCommDist_();
-									int minWaitValue = vehicleSet.getMinWait_();
-									int maxWaitValue = vehicleSet.getMaxWait_();
-									int minBrakingValue = vehicleSet.getMinBraking_();
-									int maxBrakingValue = vehicleSet.getMaxBraking_();
-									int minAccelerationValue = vehicleSet.getMinAcceleration_();
-									int maxAccelerationValue = vehicleSet.getMaxAcceleration_();
-									int minTimeDistance = vehicleSet.getMinTimeDistance_();
-									int maxTimeDistance = vehicleSet.getMaxTimeDistance_();
-									int minPoliteness = vehicleSet.getMinPoliteness_();
-									int maxPoliteness = vehicleSet.getMaxPoliteness_();
-									int vehiclesDeviatingMaxSpeed = vehicleSet.getVehiclesDeviatingMaxSpeed_();
-									int deviationFromSpeedLimit = vehicleSet.getDeviationFromSpeedLimit_();
-									int wiFiValue = vehicleSet.getWiFi_();
-									int emergencyValue = vehicleSet.getEmergencyVehicle_();
-									int speedRestriction = vehicleSet.getSpeedStreetRestriction_();
-									int vehiclesFaking = vehicleSet.getFakingVehicle_();
-									int amountValue = vehicleSet.getAmount_();
-									int vehicleLength = vehicleSet.getVehicleLength_();
-									
-									if(wiFiValue < 0){
-										wiFiValue = 0;
-									} else if(wiFiValue > 100){
-										wiFiValue = 100;
-									}
-									if(emergencyValue < 0){
-										emergencyValue = 0;
-									} else if(emergencyValue > 100){
-										emergencyValue = 100;
-									}
-									
-									if(vehiclesFaking < 0){
-										vehiclesFaking = 0;
-									} else if(vehiclesFaking > 100){
-										vehiclesFaking = 100;
-									}
-									
-									if(vehicleSet.getPropertyList_() != null && vehicleSet.getPropertyList_().size() > 0 && vehicleSet.getPropertyList_().get(0) != null){		
-										//SimulationProperty simProp = vehicleSet.getPropertyList_().get(0);
-										String propertyKey = vehicleSet.getPropertyList_().get(0).getPropertyKey_();
-										double value = (vehicleSet.getPropertyList_().get(0).getStartValue_() + vehicleSet.getPropertyList_().get(0).getStepValue_() *(Integer.parseInt(data[5])*(m+1)));
-										
-										if(propertyKey.equals("speed")){
-											minSpeedValue = (int)value;
-											maxSpeedValue = (int)value;
-										}
-										else if(propertyKey.equals("communication distance")){
-											minCommDistValue = (int)value;
-											maxCommDistValue = (int)value;
-										}else if(propertyKey.equals("wait time")){
-											minWaitValue = (int)value;
-											maxWaitValue = (int)value;
-										}else if(propertyKey.equals("braking rate")){
-											minBrakingValue = (int)value;
-											maxBrakingValue = (int)value;
-										}else if(propertyKey.equals("acceleration")){
-											minAccelerationValue = (int)value;
-											maxAccelerationValue = (int)value;
-										}else if(propertyKey.equals("time distance")){
-											minTimeDistance = (int)value;
-											maxTimeDistance = (int)value;
-										}else if(propertyKey.equals("politeness")){
-											minPoliteness = (int)value;
-											maxPoliteness = (int)value;
-										}else if(propertyKey.equals("vehicles deviating speed")){
-											vehiclesDeviatingMaxSpeed = (int)value;
-										}else if(propertyKey.equals("speed deviation")){
-											deviationFromSpeedLimit = (int)value;
-										}else if(propertyKey.equals("length")){
-											vehicleLength = (int)value;
-										}else if(propertyKey.equals("wifi amount")){
-											wiFiValue = (int)value;
-										}else if(propertyKey.equals("emergency amount")){
-											emergencyValue = (int)value;
-										}else if(propertyKey.equals("faking amount")){
-											vehiclesFaking = (int)value;
-										}else if(propertyKey.equals("amount")){
-											amountValue = (int)value;
-										}		
-									}
-									for(i = 0; i < amountValue;){
-										j = 0;
-										k = 0;						
-										++l;
-										destinations = new ArrayDeque<WayPoint>(2);		
-										while(j < 2 && k < 20){	// if snapping fails more than 20 times break
-											try{
-												++k;
-												WayPoint tmpWayPoint = new WayPoint(random.nextInt(maxX),random.nextInt(maxY),getRandomRange(minWaitValue, maxWaitValue, random));
-												if(tmpWayPoint.getStreet().getSpeed() <= speedRestriction){
-													destinations.add(tmpWayPoint);
-													++j;
-												}
-											} catch (Exception e) {}
-										}
-										if(k < 20) {
-											try {
-												tmpRandom = getRandomRange(1, 100, random);
-												if(tmpRandom <= vehiclesDeviatingMaxSpeed) speedDeviation = getRandomRange(-deviationFromSpeedLimit, deviationFromSpeedLimit, random);
-												else speedDeviation = 0;
-												if(getRandomRange(0, 99, random) < wiFiValue) wiFiEnabled = true;
-												else wiFiEnabled = false;
-												if(getRandomRange(0, 99, random) < emergencyValue) emergencyEnabled = true;
-												else emergencyEnabled = false;
-												if(getRandomRange(0, 99, random) < vehiclesFaking) fakingEnabled = true;
-												else fakingEnabled = false;
-												tmpVehicle = new Vehicle(destinations, vehicleLength, getRandomRange(minSpeedValue, maxSpeedValue, random), getRandomRange(minCommDistValue, maxCommDistValue, random), wiFiEnabled, emergencyEnabled, getRandomRange(minBrakingValue, maxBrakingValue, random), getRandomRange(minAccelerationValue, maxAccelerationValue, random), getRandomRange(minTimeDistance, maxTimeDistance, random), getRandomRange(minPoliteness, maxPoliteness, random), (int)Math.round(speedDeviation * 100000.0/3600),  vehicleSet.getColor_(), fakingEnabled, vehicleSet.getFakeMessagesTypes_());
-												Map.getInstance().addVehicle(tmpVehicle);
-												++i;
-											} catch (Exception e) {}				
-										}
-										if(l > amountValue*4) break;
-									}
-									int errorLevel = 2;
-									if(i < vehicleSet.getAmount_()) errorLevel = 6;
-									ErrorLog.log(Messages.getString("EditVehicleControlPanel.createdRandomVehicles") + i + " (" + vehicleSet.getAmount_() +Messages.getString("EditVehicleControlPanel.requested"), errorLevel, getClass().getName(), "actionPerformed", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-									
-								}
-						
-								String fileName = "";
-								if(Map.getInstance().getMapName_().length() > 3) fileName += Map.getInstance().getMapName_().substring(0, Map.getInstance().getMapName_().length()-4);
-								fileName += "_" + series.getName_();
-								if(simulationProperty != null) fileName += "_" + simulationProperty.getPropertyKey_() + "_" + (simulationProperty.getStartValue_() + simulationProperty.getStepValue_() * Integer.parseInt(data[2]));
-								
-								for(int o = 0; o < series.getVehicleSetList_().size(); o++) {
-									if(series.getVehicleSetList_().get(o).getPropertyList_().size() > 0 && series.getVehicleSetList_().get(o).getPropertyList_().get(0) != null) fileName += "_" + series.getVehicleSetList_().get(o).getName_() + "_" + series.getVehicleSetList_().get(o).getPropertyList_().get(0).getPropertyKey_() + "_" + (series.getVehicleSetList_().get(o).getPropertyList_().get(0).getStartValue_() + series.getVehicleSetList_().get(o).getPropertyList_().get(0).getStepValue_() * (Integer.parseInt(data[5])*(o+1)));
-									else fileName += "_" + series.getVehicleSetList_().get(o).getName_() + "_standard";
-								}
-								//save the to file
-								File file = new File(System.getProperty("user.dir") + "/" + time + "_scenarios/");
-								if(!file.exists())file.mkdir();
-								jobList.add(time + "_scenarios/" + fileName + "_v" + n +  ".xml");
-								Scenario.getInstance().save(new File((System.getProperty("user.dir") + "/" + time + "_scenarios/" + fileName + "_v" + n +  ".xml").replace(" ", "")), false);
-								
-								if(oldValue != -1 && simulationProperty != null) setValueForKey(simulationProperty.getPropertyKey_(), oldValue);
-
+						for(String theJob:group){
+							data = theJob.split(":");
+							series = simulationSeriesList_.get(Integer.parseInt(data[0]));
+							simulationProperty = null;
+							
+							oldValue = -1;
+							if(!data[1].equals("-1")){
+								simulationProperty = series.getPropertyList_().get(Integer.parseInt(data[1]));
+								oldValue = 	getValueForKey(simulationProperty.getPropertyKey_());
+								setValueForKey(simulationProperty.getPropertyKey_(), simulationProperty.getStartValue_() + simulationProperty.getStepValue_() * Integer.parseInt(data[2]));
+							}
+							if(warmUpTime <= 0){
+								//clear old vehicles!
+								Map.getInstance().clearVehicles();
+								createVehicles(series, data);
 							}
+							
+							//save the to file
+							fileName = (scenarioDir + getScenarioName(series, simulationProperty, data) + "_v" + n +  ".xml").replace(" ", "");
+							Scenario.getInstance().save(new File(System.getProperty("user.dir") + "/" + fileName), false);
+							if(warmUpTime > 0) forks.setProperty("fork." + (++fork), fileName);
+							else jobList.add(command + fileName + " " + simulationDuration_);
+							
+							if(oldValue != -1 && simulationProperty != null) setValueForKey(simulationProperty.getPropertyKey_(), oldValue);
 						}
-						String writeToFileText = "#!/bin/sh\n";
-						for(String line:jobList) writeToFileText += "java -Xmx" + availableMemory_ + "m -jar VanetSimStarter.jar " + Map.getInstance().getMapName_() + " " + line.replace(" ", "") + " " + simulationDuration_ + "\n";
-						writeToFile(writeToFileText, System.getProperty("user.dir") + "/" + time + "_scenarios/jobs.sh");
-						ResearchSeriesDialog.getInstance().setVisible(true);
-						VanetSimStart.setProgressBar(false);
-						Renderer.getInstance().ReRender(false, false);
-						//jobIsReady_ = true;
-						jobList_.clear();
+						if(warmUpTime > 0) writeForkFile(forks, System.getProperty("user.dir") + "/" + forkFile);
 					}
-			
+				}
+				String writeToFileText = "#!/bin/sh\n";
+				for(String jobLine:jobList) writeToFileText += jobLine + "\n";
+				writeToFile(writeToFileText, System.getProperty("user.dir") + "/" + scenarioDir + "jobs.sh");
+				ResearchSeriesDialog.getInstance().setVisible(true);
+				VanetSimStart.setProgressBar(false);
+				Renderer.getInstance().ReRender(false, false);
+				//jobIsReady_ = true;
+				jobList_.clear();
+			}
 		};
 		new Thread(job).start();
 	}
 	
+	/**
+	 * Writes the forks of a warm-up to a fork file (see ForkRunner).
+	 * 
+	 * @param forks		the forks
+	 * @param filePath	the path of the fork file
+	 */
+	private void writeForkFile(Properties forks, String filePath){
+		try{
+			FileOutputStream out = new FileOutputStream(filePath);
+			try{
+				forks.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Creates the random vehicles of all vehicle sets of a job.
+	 * 
+	 * @param series	the series of the job
+	 * @param data		the job (Format: SeriesIndex:GeneralPropertyIndex:GeneralPropertyAmountIndex:*VehiceSetIndex:VehicleSetPropertyIndex:VehicleSetPropertyAmountIndex*)
+	 */
+	private void createVehicles(SimulationSeries series, String[] data){
+		for(int m = 0; m < series.getVehicleSetList_().size(); m++){
+			int i, j, k, l = 0;
+			int speedDeviation = 0;
+			int maxX = Map.getInstance().getMapWidth();
+			int maxY = Map.getInstance().getMapHeight();
+			boolean wiFiEnabled;
+			boolean emergencyEnabled;
+			boolean fakingEnabled;
+			ArrayDeque<WayPoint> destinations = null;
+			Vehicle tmpVehicle;
+			RandomStream random = RandomStream.newStream(RandomStream.STREAM_RANDOM_VEHICLES);
+			int tmpRandom = -1;
+			VehicleSet vehicleSet = series.getVehicleSetList_().get(m);
+			// create the random vehicles. It may fail lots of times if the map is almost empty. Then, possible less
+			// vehicles are created than specified because it's only tried 4 x amountValue!
+
+			int minSpeedValue = vehicleSet.getMinSpeed_();
+			int maxSpeedValue = vehicleSet.getMaxSpeed_();
+			int minCommDistValue = vehicleSet.getMinCommDist_();
+			int maxCommDistValue = vehicleSet.getMaxCommDist_();
+			int minWaitValue = vehicleSet.getMinWait_();
+			int maxWaitValue = vehicleSet.getMaxWait_();
+			int minBrakingValue = vehicleSet.getMinBraking_();
+			int maxBrakingValue = vehicleSet.getMaxBraking_();
+			int minAccelerationValue = vehicleSet.getMinAcceleration_();
+			int maxAccelerationValue = vehicleSet.getMaxAcceleration_();
+			int minTimeDistance = vehicleSet.getMinTimeDistance_();
+			int maxTimeDistance = vehicleSet.getMaxTimeDistance_();
+			int minPoliteness = vehicleSet.getMinPoliteness_();
+			int maxPoliteness = vehicleSet.getMaxPoliteness_();
+			int vehiclesDeviatingMaxSpeed = vehicleSet.getVehiclesDeviatingMaxSpeed_();
+			int deviationFromSpeedLimit = vehicleSet.getDeviationFromSpeedLimit_();
+			int wiFiValue = vehicleSet.getWiFi_();
+			int emergencyValue = vehicleSet.getEmergencyVehicle_();
+			int speedRestriction = vehicleSet.getSpeedStreetRestriction_();
+			int vehiclesFaking = vehicleSet.getFakingVehicle_();
+			int amountValue = vehicleSet.getAmount_();
+			int vehicleLength = vehicleSet.getVehicleLength_();
+
+			if(wiFiValue < 0){
+				wiFiValue = 0;
+			} else if(wiFiValue > 100){
+				wiFiValue = 100;
+			}
+			if(emergencyValue < 0){
+				emergencyValue = 0;
+			} else if(emergencyValue > 100){
+				emergencyValue = 100;
+			}
+
+			if(vehiclesFaking < 0){
+				vehiclesFaking = 0;
+			} else if(vehiclesFaking > 100){
+				vehiclesFaking = 100;
+			}
+
+			if(vehicleSet.getPropertyList_() != null && vehicleSet.getPropertyList_().size() > 0 && vehicleSet.getPropertyList_().get(0) != null){		
+				//SimulationProperty simProp = vehicleSet.getPropertyList_().get(0);
+				String propertyKey = vehicleSet.getPropertyList_().get(0).getPropertyKey_();
+				double value = (vehicleSet.getPropertyList_().get(0).getStartValue_() + vehicleSet.getPropertyList_().get(0).getStepValue_() *(Integer.parseInt(data[5])*(m+1)));
+	
+				if(propertyKey.equals("speed")){
+					minSpeedValue = (int)value;
+					maxSpeedValue = (int)value;
+				}
+				else if(propertyKey.equals("communication distance")){
+					minCommDistValue = (int)value;
+					maxCommDistValue = (int)value;
+				}else if(propertyKey.equals("wait time")){
+					minWaitValue = (int)value;
+					maxWaitValue = (int)value;
+				}else if(propertyKey.equals("braking rate")){
+					minBrakingValue = (int)value;
+					maxBrakingValue = (int)value;
+				}else if(propertyKey.equals("acceleration")){
+					minAccelerationValue = (int)value;
+					maxAccelerationValue = (int)value;
+				}else if(propertyKey.equals("time distance")){
+					minTimeDistance = (int)value;
+					maxTimeDistance = (int)value;
+				}else if(propertyKey.equals("politeness")){
+					minPoliteness = (int)value;
+					maxPoliteness = (int)value;
+				}else if(propertyKey.equals("vehicles deviating speed")){
+					vehiclesDeviatingMaxSpeed = (int)value;
+				}else if(propertyKey.equals("speed deviation")){
+					deviationFromSpeedLimit = (int)value;
+				}else if(propertyKey.equals("length")){
+					vehicleLength = (int)value;
+				}else if(propertyKey.equals("wifi amount")){
+					wiFiValue = (int)value;
+				}else if(propertyKey.equals("emergency amount")){
+					emergencyValue = (int)value;
+				}else if(propertyKey.equals("faking amount")){
+					vehiclesFaking = (int)value;
+				}else if(propertyKey.equals("amount")){
+					amountValue = (int)value;
+				}		
+			}
+			for(i = 0; i < amountValue;){
+				j = 0;
+				k = 0;						
+				++l;
+				destinations = new ArrayDeque<WayPoint>(2);		
+				while(j < 2 && k < 20){	// if snapping fails more than 20 times break
+					try{
+						++k;
+						WayPoint tmpWayPoint = new WayPoint(random.nextInt(maxX),random.nextInt(maxY),getRandomRange(minWaitValue, maxWaitValue, random));
+						if(tmpWayPoint.getStreet().getSpeed() <= speedRestriction){
+							destinations.add(tmpWayPoint);
+							++j;
+						}
+					} catch (Exception e) {}
+				}
+				if(k < 20) {
+					try {
+						tmpRandom = getRandomRange(1, 100, random);
+						if(tmpRandom <= vehiclesDeviatingMaxSpeed) speedDeviation = getRandomRange(-deviationFromSpeedLimit, deviationFromSpeedLimit, random);
+						else speedDeviation = 0;
+						if(getRandomRange(0, 99, random) < wiFiValue) wiFiEnabled = true;
+						else wiFiEnabled = false;
+						if(getRandomRange(0, 99, random) < emergencyValue) emergencyEnabled = true;
+						else emergencyEnabled = false;
+						if(getRandomRange(0, 99, random) < vehiclesFaking) fakingEnabled = true;
+						else fakingEnabled = false;
+						tmpVehicle = new Vehicle(destinations, vehicleLength, getRandomRange(minSpeedValue, maxSpeedValue, random), getRandomRange(minCommDistValue, maxCommDistValue, random), wiFiEnabled, emergencyEnabled, getRandomRange(minBrakingValue, maxBrakingValue, random), getRandomRange(minAccelerationValue, maxAccelerationValue, random), getRandomRange(minTimeDistance, maxTimeDistance, random), getRandomRange(minPoliteness, maxPoliteness, random), (int)Math.round(speedDeviation * 100000.0/3600),  vehicleSet.getColor_(), fakingEnabled, vehicleSet.getFakeMessagesTypes_());
+						Map.getInstance().addVehicle(tmpVehicle);
+						++i;
+					} catch (Exception e) {}				
+				}
+				if(l > amountValue*4) break;
+			}
+			int errorLevel = 2;
+			if(i < vehicleSet.getAmount_()) errorLevel = 6;
+			ErrorLog.log(Messages.getString("EditVehicleControlPanel.createdRandomVehicles") + i + " (" + vehicleSet.getAmount_() +Messages.getString("EditVehicleControlPanel.requested"), errorLevel, getClass().getName(), "actionPerformed", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+	
+	/**
+	 * Gets the file name of a scenario of a job (without run number and extension).
+	 * 
+	 * @param series				the series of the job
+	 * @param simulationProperty	the general setting varied by the job or <code>null</code>
+	 * @param data					the job
+	 * 
+	 * @return the file name
+	 */
+	private String getScenarioName(SimulationSeries series, SimulationProperty simulationProperty, String[] data){
+		String fileName = "";
+		if(Map.getInstance().getMapName_().length() > 3) fileName += Map.getInstance().getMapName_().substring(0, Map.getInstance().getMapName_().length()-4);
+		fileName += "_" + series.getName_();
+		if(simulationProperty != null) fileName += "_" + simulationProperty.getPropertyKey_() + "_" + (simulationProperty.getStartValue_() + simulationProperty.getStepValue_() * Integer.parseInt(data[2]));
+		
+		for(int o = 0; o < series.getVehicleSetList_().size(); o++) {
+			if(series.getVehicleSetList_().get(o).getPropertyList_().size() > 0 && series.getVehicleSetList_().get(o).getPropertyList_().get(0) != null) fileName += "_" + series.getVehicleSetList_().get(o).getName_() + "_" + series.getVehicleSetList_().get(o).getPropertyList_().get(0).getPropertyKey_() + "_" + (series.getVehicleSetList_().get(o).getPropertyList_().get(0).getStartValue_() + series.getVehicleSetList_().get(o).getPropertyList_().get(0).getStepValue_() * (Integer.parseInt(data[5])*(o+1)));
+			else fileName += "_" + series.getVehicleSetList_().get(o).getName_() + "_standard";
+		}
+		return fileName;
+	}
+	
+	/**
+	 * Gets how many forked simulations may run in parallel without needing more than the physical memory.
+	 * 
+	 * @return the amount of parallel simulations (at least 1)
+	 */
+	private int getParallelForks(){
+		return BatchRunner.getParallelJobs(availableMemory_);
+	}
+	
 	public void solveRec(ArrayList<VehicleSet> vehicleSets, String s, int index){
 		if(vehicleSets.size() == index){
 			addJob(s);
@@ -780,62 +883,11 @@ public final class ResearchSeriesDialog extends JDialog implements ActionListene
 	}
 
 	public void setValueForKey(String key, double value){
-		if("fake message interval".equals(key)){
-			Vehicle.setFakeMessagesInterval_((int)value);
-		}else if("PCN threshold".equals(key)){
-			IDSProcessor.setPCNDistance_((int)value);
-		}else if("PCN forward threshold".equals(key)){
-			IDSProcessor.setPCNFORWARDThreshold_(value);
-		}else if("EVA forward threshold".equals(key)){
-			IDSProcessor.setEVAFORWARDThreshold_(value);
-		}else if("RHCN threshold".equals(key)){
-			IDSProcessor.setRHCNThreshold_(value);
-		}else if("EEBL threshold".equals(key)){
-			IDSProcessor.setEEBLThreshold_(value);
-		}else if("EVA Beacon time".equals(key)){
-			IDSProcessor.setEVABeaconTimeFactor_(value);
-		}else if("EVA Beacon threshold".equals(key)){
-			IDSProcessor.setEVABeaconFactor_(value);
-		}else if("Beacon amount".equals(key)){
-			KnownVehicle.setAmountOfSavedBeacons((int)value);
-		}else if("spam time threshold".equals(key)){
-			KnownEventSource.setSpammingTimeThreshold_((int)value);
-		}else if("spam message threshold".equals(key)){
-			KnownEventSource.setSpammingThreshold_((int)value);
-		}else if("EVA Message Delay".equals(key)){
-			Vehicle.setMaxEVAMessageDelay_((int)value);
-		}
-		
+		SimulationProperty.setValueForKey(key, value);
 	}
 	
 	public double getValueForKey(String key){
-		if("fake message interval".equals(key)){
-			return Vehicle.getFakeMessagesInterval_();
-		}else if("PCN threshold".equals(key)){
-			return IDSProcessor.getPCNDistance_();
-		}else if("PCN forward threshold".equals(key)){
-			return IDSProcessor.getPCNFORWARDThreshold_();
-		}else if("EVA forward threshold".equals(key)){
-			return IDSProcessor.getEVAFORWARDThreshold_();
-		}else if("RHCN threshold".equals(key)){
-			return IDSProcessor.getRHCNThreshold_();
-		}else if("EEBL threshold".equals(key)){
-			return IDSProcessor.getEEBLThreshold_();
-		}else if("EVA Beacon time".equals(key)){
-			return IDSProcessor.getEVABeaconTimeFactor_();
-		}else if("EVA Beacon threshold".equals(key)){
-			return IDSProcessor.getEVABeaconFactor_();
-		}else if("Beacon amount".equals(key)){
-			return KnownVehicle.getAmountOfSavedBeacons_();
-		}else if("spam time threshold".equals(key)){
-			return KnownEventSource.getSpammingtimethreshold();
-		}else if("spam message threshold".equals(key)){
-			return KnownEventSource.getSpammingthreshold();
-		}else if("EVA Message Delay".equals(key)){
-			return Vehicle.getMaxEVAMessageDelay_();
-		}
-		
-		 return -1;
+		return SimulationProperty.getValueForKey(key);
 	}
 	
 	/**
@@ -960,7 +1012,7 @@ public final class ResearchSeriesDialog extends JDialog implements ActionListene
 	 * 
 	 * @return the random range
 	 */
-	private int getRandomRange(int min, int max, Random random){
+	private int getRandomRange(int min, int max, RandomStream random){
 		if(min == max) return min;
 		else {
 			if(max < min){	//swap to make sure that smallest value is in min if wrong values were passed
@@ -95,6 +95,12 @@ public final class SimulateControlPanel extends JPanel implements ActionListener
 	/** A button to apple the target step time. */
 	private final JButton targetStepTimeApplyButton_;
 	
+	/** The input field for the steps simulated per frame (0 for automatic). Used to increase simulation speed. */
+	private final JFormattedTextField stepsPerFrame_;
+	
+	/** A button to apply the steps per frame. */
+	private final JButton stepsPerFrameApplyButton_;
+	
 	/** The input field for the target time to jump to. */
 	private final JFormattedTextField jumpToTargetTime_;
 	
@@ -245,6 +251,18 @@ public final class SimulateControlPanel extends JPanel implements ActionListener
 		tmpPanel.add(targetStepTimeApplyButton_);
 		++c.gridy;		
 		add(tmpPanel, c);
+		
+		tmpPanel = new JPanel();
+		jLabel1 = new JLabel(Messages.getString("SimulateControlPanel.stepsPerFrame")); //$NON-NLS-1$
+		tmpPanel.add(jLabel1);
+		stepsPerFrame_ = new JFormattedTextField(NumberFormat.getIntegerInstance());
+		stepsPerFrame_.setPreferredSize(new Dimension(30,20));
+		stepsPerFrame_.setValue(1);
+		tmpPanel.add(stepsPerFrame_);
+		stepsPerFrameApplyButton_ = ButtonCreator.getJButton("ok_small.png", "stepsPerFrameApply", Messages.getString("SimulateControlPanel.applyStepsPerFrame"), this); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		tmpPanel.add(stepsPerFrameApplyButton_);
+		++c.gridy;		
+		add(tmpPanel, c);
 		c.insets = new Insets(5,5,5,5);
 		
 		// information display checkboxes
@@ -427,6 +445,13 @@ public final class SimulateControlPanel extends JPanel implements ActionListener
 				} else {
 					VanetSimStart.getSimulationMaster().setTargetStepTime(tmp);
 				}
+		} else if("stepsPerFrameApply".equals(command)){ //$NON-NLS-1$
+				int tmp = ((Number)stepsPerFrame_.getValue()).intValue();
+				if(tmp < 0){
+					ErrorLog.log(Messages.getString("SimulateControlPanel.noNegativeStepsPerFrame"), 6, this.getName(), "stepsPerFrameApply", null); //$NON-NLS-1$ //$NON-NLS-2$
+				} else {
+					VanetSimStart.getSimulationMaster().setStepsPerFrame(tmp);
+				}
 		} else if("de".equals(command)){ 
 			VanetSimStarter.restartWithLanguage("de");
 		} else if("en".equals(command))
@@ -18,6 +18,7 @@
 package vanetsim.gui.helpers;
 
 import java.text.SimpleDateFormat;
+import java.util.function.Supplier;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.XMLFormatter;
@@ -26,26 +27,40 @@ import java.util.logging.Logger;
 import vanetsim.ErrorLog;
 import vanetsim.localization.Messages;
 import vanetsim.scenario.Scenario;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * Helper Class for error logging.
  */
 public final class GeneralLogWriter {
 
-	/** The <code>java.util.logging.Logger</code> instance. */
-	private static Logger logger = Logger.getLogger("GeneralLog"); //$NON-NLS-1$
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(GeneralLogWriter.class);
 
-	/** Path of log */
-	private static String logPath = "";
+	/** Creates the log of a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The log of one simulation. Each simulation context writes its own file. */
+	private static final class ContextState{
+		/** The <code>java.util.logging.Logger</code> instance (anonymous in all contexts but the default one). */
+		final Logger logger = SimulationContext.getCurrent() == SimulationContext.getDefault() ? Logger.getLogger("GeneralLog") : Logger.getAnonymousLogger(); //$NON-NLS-1$
+
+		/** Path of log */
+		String logPath = "";
 
-	/** Old path of log */
-	private static String logOldPath = "";
+		/** Old path of log */
+		String logOldPath = "";
 
-	/** file handler */
-	private static FileHandler handler = null;
-	
-	/** the complete filePath + name */
-	private static String file_ = "";
+		/** file handler */
+		FileHandler handler = null;
+
+		/** the complete filePath + name */
+		String file_ = "";
+	}
 
 	/**
 	 * Sets the parameters for the static class.
@@ -57,28 +72,29 @@ public final class GeneralLogWriter {
 	 *            <code>xml</code>)
 	 */
 	public static void setParameters(String dir, String format) {
-		logger.setLevel(Level.FINEST);
-		logPath = dir;
+		ContextState state = state();
+		state.logger.setLevel(Level.FINEST);
+		state.logPath = dir;
 		
 		java.util.Date dt = new java.util.Date();
 		SimpleDateFormat df = new SimpleDateFormat("dd.MM.yyyy_HH.mm.ss"); //$NON-NLS-1$
 		try {
-			if (!dir.equals(logOldPath)) {
-				if (handler != null)
-					logger.removeHandler(handler);
+			if (!dir.equals(state.logOldPath)) {
+				if (state.handler != null)
+					state.logger.removeHandler(state.handler);
 				String scenName = Scenario.getInstance().getScenarioName();
 				
-				if(scenName != null && !scenName.equals("")) file_ = (dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format);//$NON-NLS-1$ //$NON-NLS-2$
-				else file_ = (dir + "GeneralLog_" + df.format(dt) + "." + format);//$NON-NLS-1$ //$NON-NLS-2$
+				if(scenName != null && !scenName.equals("")) state.file_ = (dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format);//$NON-NLS-1$ //$NON-NLS-2$
+				else state.file_ = (dir + "GeneralLog_" + df.format(dt) + "." + format);//$NON-NLS-1$ //$NON-NLS-2$
 				
-				handler = new FileHandler(file_, true);//$NON-NLS-1$ //$NON-NLS-2$
-				logOldPath = dir;
-				logger.setUseParentHandlers(false); // don't log to console
-				logger.addHandler(handler);
+				state.handler = new FileHandler(state.file_, true);//$NON-NLS-1$ //$NON-NLS-2$
+				state.logOldPath = dir;
+				state.logger.setUseParentHandlers(false); // don't log to console
+				state.logger.addHandler(state.handler);
 				if (format.equals("log")) //$NON-NLS-1$
-					handler.setFormatter(new LogFormatter());
+					state.handler.setFormatter(new LogFormatter());
 				else
-					handler.setFormatter(new XMLFormatter());
+					state.handler.setFormatter(new XMLFormatter());
 			
 			}
 		} catch (Exception e) {
@@ -98,7 +114,7 @@ public final class GeneralLogWriter {
 	 */
 	public static synchronized void log(String message, int mode) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out
 					.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -114,7 +130,7 @@ public final class GeneralLogWriter {
 	 */
 	public static synchronized void log(String message) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			new_e.printStackTrace();
@@ -123,18 +139,27 @@ public final class GeneralLogWriter {
 
 	public static void setLogPath(String logPath) {
 		setParameters(logPath + "/", "log");
-		GeneralLogWriter.logPath = logPath;
+		state().logPath = logPath;
 	}
 
 	public static String getLogPath() {
-		return logPath;
+		return state().logPath;
 	}
 
 	public static String getFile_() {
-		return file_;
+		return state().file_;
 	}
 
 	public static void setFile_(String file_) {
-		GeneralLogWriter.file_ = file_;
+		state().file_ = file_;
+	}
+
+	/**
+	 * Gets the log of the current simulation context.
+	 * 
+	 * @return the log
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
 	}
 }
\ No newline at end of file
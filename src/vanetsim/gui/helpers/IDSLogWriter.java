@@ -18,6 +18,7 @@
 package vanetsim.gui.helpers;
 
 import java.text.SimpleDateFormat;
+import java.util.function.Supplier;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.XMLFormatter;
@@ -26,23 +27,37 @@ import java.util.logging.Logger;
 import vanetsim.ErrorLog;
 import vanetsim.localization.Messages;
 import vanetsim.scenario.Scenario;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * Helper Class for error logging.
  */
 public final class IDSLogWriter {
 
-	/** The <code>java.util.logging.Logger</code> instance. */
-	private static Logger logger = Logger.getLogger("IDSLog"); //$NON-NLS-1$
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(IDSLogWriter.class);
 
-	/** Path of log */
-	private static String logPath = "";
+	/** Creates the log of a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The log of one simulation. Each simulation context writes its own file. */
+	private static final class ContextState{
+		/** The <code>java.util.logging.Logger</code> instance (anonymous in all contexts but the default one). */
+		final Logger logger = SimulationContext.getCurrent() == SimulationContext.getDefault() ? Logger.getLogger("IDSLog") : Logger.getAnonymousLogger(); //$NON-NLS-1$
 
-	/** Old path of log */
-	private static String logOldPath = "";
+		/** Path of log */
+		String logPath = "";
 
-	/** file handler */
-	private static FileHandler handler = null;
+		/** Old path of log */
+		String logOldPath = "";
+
+		/** file handler */
+		FileHandler handler = null;
+	}
 
 	/**
 	 * Sets the parameters for the static class.
@@ -54,29 +69,30 @@ public final class IDSLogWriter {
 	 *            <code>xml</code>)
 	 */
 	public static void setParameters(String dir, String format) {
-		logger.setLevel(Level.FINEST);
+		ContextState state = state();
+		state.logger.setLevel(Level.FINEST);
 		if(dir.equals("/")){
 			dir = System.getProperty("user.dir") + "/";
 		}
 		
-		logPath = dir;
+		state.logPath = dir;
 		
 		java.util.Date dt = new java.util.Date();
 		SimpleDateFormat df = new SimpleDateFormat("dd.MM.yyyy_HH.mm.ss"); //$NON-NLS-1$
 		try {
-			if (!dir.equals(logOldPath)) {
-				if (handler != null)
-					logger.removeHandler(handler);
+			if (!dir.equals(state.logOldPath)) {
+				if (state.handler != null)
+					state.logger.removeHandler(state.handler);
 				String scenName = Scenario.getInstance().getScenarioName();
-				if(scenName != null && !scenName.equals("")) handler = new FileHandler(dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
-				else handler = new FileHandler(dir + "IDSLog_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
-				logOldPath = dir;
-				logger.setUseParentHandlers(false); // don't log to console
-				logger.addHandler(handler);
+				if(scenName != null && !scenName.equals("")) state.handler = new FileHandler(dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
+				else state.handler = new FileHandler(dir + "IDSLog_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
+				state.logOldPath = dir;
+				state.logger.setUseParentHandlers(false); // don't log to console
+				state.logger.addHandler(state.handler);
 				if (format.equals("log")) //$NON-NLS-1$
-					handler.setFormatter(new LogFormatter());
+					state.handler.setFormatter(new LogFormatter());
 				else
-					handler.setFormatter(new XMLFormatter());
+					state.handler.setFormatter(new XMLFormatter());
 			}
 		} catch (Exception e) {
 			ErrorLog
@@ -95,7 +111,7 @@ public final class IDSLogWriter {
 	 */
 	public static synchronized void log(String message, int mode) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out
 					.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -111,7 +127,7 @@ public final class IDSLogWriter {
 	 */
 	public static synchronized void log(String message) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out
 					.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -121,10 +137,19 @@ public final class IDSLogWriter {
 
 	public static void setLogPath(String logPath) {
 		setParameters(logPath + "/", "log");
-		IDSLogWriter.logPath = logPath;
+		state().logPath = logPath;
 	}
 
 	public static String getLogPath() {
-		return logPath;
+		return state().logPath;
+	}
+
+	/**
+	 * Gets the log of the current simulation context.
+	 * 
+	 * @return the log
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
 	}
 }
\ No newline at end of file
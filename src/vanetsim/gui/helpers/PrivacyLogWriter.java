@@ -18,6 +18,7 @@
 package vanetsim.gui.helpers;
 
 import java.text.SimpleDateFormat;
+import java.util.function.Supplier;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.XMLFormatter;
@@ -26,23 +27,37 @@ import java.util.logging.Logger;
 import vanetsim.ErrorLog;
 import vanetsim.localization.Messages;
 import vanetsim.scenario.Scenario;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * Helper Class for error logging.
  */
 public final class PrivacyLogWriter {
 
-	/** The <code>java.util.logging.Logger</code> instance. */
-	private static Logger logger = Logger.getLogger("privacyLog"); //$NON-NLS-1$
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(PrivacyLogWriter.class);
 
-	/** Path of log */
-	private static String logPath = "";
+	/** Creates the log of a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The log of one simulation. Each simulation context writes its own file. */
+	private static final class ContextState{
+		/** The <code>java.util.logging.Logger</code> instance (anonymous in all contexts but the default one). */
+		final Logger logger = SimulationContext.getCurrent() == SimulationContext.getDefault() ? Logger.getLogger("privacyLog") : Logger.getAnonymousLogger(); //$NON-NLS-1$
 
-	/** Old path of log */
-	private static String logOldPath = "";
+		/** Path of log */
+		String logPath = "";
 
-	/** file handler */
-	private static FileHandler handler = null;
+		/** Old path of log */
+		String logOldPath = "";
+
+		/** file handler */
+		FileHandler handler = null;
+	}
 
 	/**
 	 * Sets the parameters for the static class.
@@ -54,25 +69,26 @@ public final class PrivacyLogWriter {
 	 *            <code>xml</code>)
 	 */
 	public static void setParameters(String dir, String format) {
-		logger.setLevel(Level.FINEST);
-		logPath = dir;
+		ContextState state = state();
+		state.logger.setLevel(Level.FINEST);
+		state.logPath = dir;
 
 		java.util.Date dt = new java.util.Date();
 		SimpleDateFormat df = new SimpleDateFormat("dd.MM.yyyy_HH.mm.ss"); //$NON-NLS-1$
 		try {
-			if (!dir.equals(logOldPath)) {
-				if (handler != null)
-					logger.removeHandler(handler);
+			if (!dir.equals(state.logOldPath)) {
+				if (state.handler != null)
+					state.logger.removeHandler(state.handler);
 				String scenName = Scenario.getInstance().getScenarioName();
-				if(scenName != null && !scenName.equals("")) handler = new FileHandler(dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
-				else handler = new FileHandler(dir + "privacyLog_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
-				logOldPath = dir;
-				logger.setUseParentHandlers(false); // don't log to console
-				logger.addHandler(handler);
+				if(scenName != null && !scenName.equals("")) state.handler = new FileHandler(dir + scenName.substring(0, scenName.length()-4) + "_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
+				else state.handler = new FileHandler(dir + "privacyLog_" + df.format(dt) + "." + format, true);//$NON-NLS-1$ //$NON-NLS-2$
+				state.logOldPath = dir;
+				state.logger.setUseParentHandlers(false); // don't log to console
+				state.logger.addHandler(state.handler);
 				if (format.equals("log")) //$NON-NLS-1$
-					handler.setFormatter(new LogFormatter());
+					state.handler.setFormatter(new LogFormatter());
 				else
-					handler.setFormatter(new XMLFormatter());
+					state.handler.setFormatter(new XMLFormatter());
 			}
 		} catch (Exception e) {
 			ErrorLog
@@ -91,7 +107,7 @@ public final class PrivacyLogWriter {
 	 */
 	public static synchronized void log(String message, int mode) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out
 					.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -107,7 +123,7 @@ public final class PrivacyLogWriter {
 	 */
 	public static synchronized void log(String message) {
 		try {
-			logger.log(Level.FINEST, message);
+			state().logger.log(Level.FINEST, message);
 		} catch (Exception new_e) {
 			System.out
 					.println(Messages.getString("ErrorLog.whileLogging") + message + ")! " + new_e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -117,11 +133,20 @@ public final class PrivacyLogWriter {
 
 	public static void setLogPath(String logPath) {
 		setParameters(logPath + "/", "log");
-		PrivacyLogWriter.logPath = logPath;
+		state().logPath = logPath;
 		System.out.println("log is:" + logPath); 
 	}
 
 	public static String getLogPath() {
-		return logPath;
+		return state().logPath;
+	}
+
+	/**
+	 * Gets the log of the current simulation context.
+	 * 
+	 * @return the log
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.gui.helpers;
+
+import java.awt.Color;
+
+import vanetsim.scenario.Vehicle;
+
+/**
+ * The state of the visible vehicles after a simulation step. The {@link vanetsim.gui.Renderer} keeps two of these: the
+ * simulation fills one after each step while the other one is drawn, so drawing never has to wait for the simulation and
+ * the simulation never has to wait for drawing. Only the values needed to draw the vehicles are copied. The vehicles
+ * themselves are kept for the (rarely used) debugging overlays.
+ */
+public final class RenderSnapshot {
+
+	/** Flag: the vehicle is active. */
+	public static final int FLAG_ACTIVE = 1;
+
+	/** Flag: the vehicle is in a slow zone. */
+	public static final int FLAG_SLOW = 2;
+
+	/** Flag: the vehicle may communicate (WiFi enabled and not in a mix zone). */
+	public static final int FLAG_COMMUNICATING = 4;
+
+	/** The simulation time of the snapshot. */
+	private int time_ = 0;
+
+	/** If a silent period was active. */
+	private boolean silentPeriod_ = false;
+
+	/** The amount of vehicles. */
+	private int size_ = 0;
+
+	/** The vehicles. */
+	private Vehicle[] vehicles_ = new Vehicle[64];
+
+	/** The x coordinates of the vehicles. */
+	private int[] xs_ = new int[64];
+
+	/** The y coordinates of the vehicles. */
+	private int[] ys_ = new int[64];
+
+	/** The maximum communication distances of the vehicles. */
+	private int[] commDistances_ = new int[64];
+
+	/** The colors of the vehicles. */
+	private Color[] colors_ = new Color[64];
+
+	/** The flags of the vehicles (see the <code>FLAG_</code> constants). */
+	private int[] flags_ = new int[64];
+
+	/**
+	 * Removes all vehicles and starts a new snapshot.
+	 *
+	 * @param time			the simulation time
+	 * @param silentPeriod	if a silent period is active
+	 */
+	public void clear(int time, boolean silentPeriod){
+		for(int i = 0; i < size_; ++i){		// don't keep references to vehicles which might be deleted
+			vehicles_[i] = null;
+		}
+		size_ = 0;
+		time_ = time;
+		silentPeriod_ = silentPeriod;
+	}
+
+	/**
+	 * Copies the state of a vehicle into this snapshot.
+	 *
+	 * @param vehicle	the vehicle
+	 */
+	public void add(Vehicle vehicle){
+		if(size_ == xs_.length){
+			int length = size_ * 2;
+			Vehicle[] newVehicles = new Vehicle[length];
+			System.arraycopy(vehicles_, 0, newVehicles, 0, size_);
+			vehicles_ = newVehicles;
+			int[] newInts = new int[length];
+			System.arraycopy(xs_, 0, newInts, 0, size_);
+			xs_ = newInts;
+			newInts = new int[length];
+			System.arraycopy(ys_, 0, newInts, 0, size_);
+			ys_ = newInts;
+			newInts = new int[length];
+			System.arraycopy(commDistances_, 0, newInts, 0, size_);
+			commDistances_ = newInts;
+			Color[] newColors = new Color[length];
+			System.arraycopy(colors_, 0, newColors, 0, size_);
+			colors_ = newColors;
+			newInts = new int[length];
+			System.arraycopy(flags_, 0, newInts, 0, size_);
+			flags_ = newInts;
+		}
+		int flags = 0;
+		if(vehicle.isActive()) flags |= FLAG_ACTIVE;
+		if(vehicle.isInSlow()) flags |= FLAG_SLOW;
+		if(vehicle.isWiFiEnabled() && (!vehicle.isInMixZone() || Vehicle.getMixZonesFallbackEnabled())) flags |= FLAG_COMMUNICATING;
+		vehicles_[size_] = vehicle;
+		xs_[size_] = vehicle.getX();
+		ys_[size_] = vehicle.getY();
+		commDistances_[size_] = vehicle.getMaxCommDistance();
+		colors_[size_] = vehicle.getColor();
+		flags_[size_] = flags;
+		++size_;
+	}
+
+	/**
+	 * Gets the simulation time of this snapshot.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public int getTime(){
+		return time_;
+	}
+
+	/**
+	 * Checks if a silent period was active.
+	 *
+	 * @return <code>true</code> if a silent period was active
+	 */
+	public boolean isSilentPeriod(){
+		return silentPeriod_;
+	}
+
+	/**
+	 * Gets the amount of vehicles in this snapshot.
+	 *
+	 * @return the amount
+	 */
+	public int getSize(){
+		return size_;
+	}
+
+	/**
+	 * Gets the vehicles. Only the first {@link #getSize()} entries are valid. Note that the vehicles are not copied so
+	 * their current state might differ from the snapshot.
+	 *
+	 * @return the vehicles
+	 */
+	public Vehicle[] getVehicles(){
+		return vehicles_;
+	}
+
+	/**
+	 * Gets the x coordinates of the vehicles.
+	 *
+	 * @return the coordinates
+	 */
+	public int[] getXs(){
+		return xs_;
+	}
+
+	/**
+	 * Gets the y coordinates of the vehicles.
+	 *
+	 * @return the coordinates
+	 */
+	public int[] getYs(){
+		return ys_;
+	}
+
+	/**
+	 * Gets the maximum communication distances of the vehicles.
+	 *
+	 * @return the distances in cm
+	 */
+	public int[] getCommDistances(){
+		return commDistances_;
+	}
+
+	/**
+	 * Gets the colors of the vehicles.
+	 *
+	 * @return the colors
+	 */
+	public Color[] getColors(){
+		return colors_;
+	}
+
+	/**
+	 * Gets the flags of the vehicles (see the <code>FLAG_</code> constants).
+	 *
+	 * @return the flags
+	 */
+	public int[] getFlags(){
+		return flags_;
+	}
+}
@@ -17,6 +17,11 @@
  */
 package vanetsim.gui.helpers;
 
+import vanetsim.scenario.IDSProcessor;
+import vanetsim.scenario.KnownEventSource;
+import vanetsim.scenario.KnownVehicle;
+import vanetsim.scenario.Vehicle;
+
 public class SimulationProperty {
 	private final String propertyKey_;
 	private final double startValue_;
@@ -49,4 +54,76 @@ public class SimulationProperty {
 	public String toString(){
 		return "Key:" + propertyKey_ + " :Start:" + startValue_ + " :Step:" + stepValue_ + " :Amount:" + stepAmount_;
 	}
+
+	/**
+	 * Sets a general setting which can be varied in a research series.
+	 * 
+	 * @param key	the name of the setting (as used in the research series dialog)
+	 * @param value	the new value
+	 */
+	public static void setValueForKey(String key, double value){
+		if("fake message interval".equals(key)){
+			Vehicle.setFakeMessagesInterval_((int)value);
+		}else if("PCN threshold".equals(key)){
+			IDSProcessor.setPCNDistance_((int)value);
+		}else if("PCN forward threshold".equals(key)){
+			IDSProcessor.setPCNFORWARDThreshold_(value);
+		}else if("EVA forward threshold".equals(key)){
+			IDSProcessor.setEVAFORWARDThreshold_(value);
+		}else if("RHCN threshold".equals(key)){
+			IDSProcessor.setRHCNThreshold_(value);
+		}else if("EEBL threshold".equals(key)){
+			IDSProcessor.setEEBLThreshold_(value);
+		}else if("EVA Beacon time".equals(key)){
+			IDSProcessor.setEVABeaconTimeFactor_(value);
+		}else if("EVA Beacon threshold".equals(key)){
+			IDSProcessor.setEVABeaconFactor_(value);
+		}else if("Beacon amount".equals(key)){
+			KnownVehicle.setAmountOfSavedBeacons((int)value);
+		}else if("spam time threshold".equals(key)){
+			KnownEventSource.setSpammingTimeThreshold_((int)value);
+		}else if("spam message threshold".equals(key)){
+			KnownEventSource.setSpammingThreshold_((int)value);
+		}else if("EVA Message Delay".equals(key)){
+			Vehicle.setMaxEVAMessageDelay_((int)value);
+		}
+		
+	}
+	
+	/**
+	 * Gets the current value of a general setting which can be varied in a research series.
+	 * 
+	 * @param key	the name of the setting
+	 * 
+	 * @return the value or <code>-1</code> if the key is unknown
+	 */
+	public static double getValueForKey(String key){
+		if("fake message interval".equals(key)){
+			return Vehicle.getFakeMessagesInterval_();
+		}else if("PCN threshold".equals(key)){
+			return IDSProcessor.getPCNDistance_();
+		}else if("PCN forward threshold".equals(key)){
+			return IDSProcessor.getPCNFORWARDThreshold_();
+		}else if("EVA forward threshold".equals(key)){
+			return IDSProcessor.getEVAFORWARDThreshold_();
+		}else if("RHCN threshold".equals(key)){
+			return IDSProcessor.getRHCNThreshold_();
+		}else if("EEBL threshold".equals(key)){
+			return IDSProcessor.getEEBLThreshold_();
+		}else if("EVA Beacon time".equals(key)){
+			return IDSProcessor.getEVABeaconTimeFactor_();
+		}else if("EVA Beacon threshold".equals(key)){
+			return IDSProcessor.getEVABeaconFactor_();
+		}else if("Beacon amount".equals(key)){
+			return KnownVehicle.getAmountOfSavedBeacons_();
+		}else if("spam time threshold".equals(key)){
+			return KnownEventSource.getSpammingtimethreshold();
+		}else if("spam message threshold".equals(key)){
+			return KnownEventSource.getSpammingthreshold();
+		}else if("EVA Message Delay".equals(key)){
+			return Vehicle.getMaxEVAMessageDelay_();
+		}
+		
+		 return -1;
+	}
 }
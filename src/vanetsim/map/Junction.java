@@ -17,9 +17,13 @@
  */
 package vanetsim.map;
 
-import vanetsim.gui.Renderer;
+import java.io.IOException;
+
 import vanetsim.scenario.LaneObject;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
 
 /**
  * A junction which always belongs to one specific node. If vehicles move from one priority street to another, they don't have to wait.
@@ -44,9 +48,6 @@ public final class Junction{
 	 * doesn't signal that it has passed the junction within this time, another vehicle gets the permission! */
 	//private static final int MAXIMUM_TIME_ON_JUNCTION = 2500;
 	private static final int MAXIMUM_TIME_ON_JUNCTION = 1000;
-	/** A static reference to the renderer. */
-	private static final Renderer renderer_ = Renderer.getInstance();
-	
 	/** The node this junction belongs to. */
 	private final Node node_;
 	
@@ -168,7 +169,7 @@ public final class Junction{
 	 * @param priority	the priority of the vehicle to pass this junction
 	 */
 	public synchronized void addWaitingVehicle(Vehicle vehicle, int priority){
-		int curTime = renderer_.getTimePassed();
+		int curTime = EngineContext.getTimePassed();
 		if(curTime > vehicleAllowedSetTime_){		// Sets the vehicle which will be allowed to pass in the current step.
 			vehicleAllowedSetTime_ = curTime;
 			if(vehicleOnJunction_ && vehicleOnJunctionSince_ > curTime - MAXIMUM_TIME_ON_JUNCTION) vehicleAllowedThisStep_ = null;
@@ -303,7 +304,7 @@ public final class Junction{
 			if(priority == 3) junctionQueuePriority3_.delFirstVehicle();
 			else junctionQueuePriority4_.delFirstVehicle();
 			vehicleOnJunction_ = true;
-			vehicleOnJunctionSince_ = renderer_.getTimePassed();
+			vehicleOnJunctionSince_ = EngineContext.getTimePassed();
 			
 		
 			return true;
@@ -311,6 +312,50 @@ public final class Junction{
 	}
 
 	
+	/**
+	 * Writes the vehicles waiting on and passing this junction to a checkpoint. The rules are part of the map and not written.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeVehicle(vehicleAllowedThisStep_);
+		out.writeInt(vehicleAllowedSetTime_);
+		out.writeBoolean(vehicleOnJunction_);
+		out.writeInt(vehicleOnJunctionSince_);
+		out.writeInt(nextJunctionQueueCleanUp_);
+		junctionQueuePriority3_.writeCheckpoint(out);
+		junctionQueuePriority4_.writeCheckpoint(out);
+	}
+	
+	/**
+	 * Reads the vehicles waiting on and passing this junction from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		vehicleAllowedThisStep_ = in.readVehicle();
+		vehicleAllowedSetTime_ = in.readInt();
+		vehicleOnJunction_ = in.readBoolean();
+		vehicleOnJunctionSince_ = in.readInt();
+		nextJunctionQueueCleanUp_ = in.readInt();
+		junctionQueuePriority3_.readCheckpoint(in);
+		junctionQueuePriority4_.readCheckpoint(in);
+	}
+	
+	/**
+	 * Removes all vehicles waiting on or passing this junction.
+	 */
+	public synchronized void clearVehicles(){
+		vehicleAllowedThisStep_ = null;
+		vehicleAllowedSetTime_ = 0;
+		vehicleOnJunction_ = false;
+		vehicleOnJunctionSince_ = -1;
+		junctionQueuePriority3_ = new JunctionQueue();
+		junctionQueuePriority4_ = new JunctionQueue();
+	}
+	
 	/**
 	 * Deletes the traffic light on this junction an resets the street values.	 * 
 	 */
@@ -17,8 +17,12 @@
  */
 package vanetsim.map;
 
-import vanetsim.gui.Renderer;
+import java.io.IOException;
+
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
 
 /**
  * A queue for the vehicles waiting on a junction.
@@ -29,9 +33,6 @@ public final class JunctionQueue{
 	 * calling the addVehicle-function. */
 	private static final int LAST_SEEN_TIMEOUT = 2500;
 	
-	/** A static reference to the renderer. */
-	private static final Renderer renderer_ = Renderer.getInstance();
-	
 	/** The vehicles in this queue. */
 	private Vehicle[] vehicles_;
 	
@@ -63,7 +64,7 @@ public final class JunctionQueue{
 		int i;
 		for(i = 0; i < size_; ++i){
 			if(vehicles_[i] == vehicle){
-				lastSeen_[i] = renderer_.getTimePassed();
+				lastSeen_[i] = EngineContext.getTimePassed();
 				return false;
 			}
 		}
@@ -81,15 +82,15 @@ public final class JunctionQueue{
 			System.arraycopy (lastSeen_,0,newArray2,0,size_);
 			lastSeen_ = newArray2;
 		}
-		int curTime = renderer_.getTimePassed();
+		int curTime = EngineContext.getTimePassed();
 		// find other vehicles which were inserted in the current step in order to get a thread-safe ordering!
 		for(i = size_ - 1; i > -1; --i){
 			if(waitingSince_[i] != curTime) break;
 			else if (vehicles_[i].getX() > vehicle.getX()) break;
 			else if (vehicles_[i].getX() == vehicle.getX()){
 				if (vehicles_[i].getY() > vehicle.getY()) break;
-				else if (vehicles_[i].getY() > vehicle.getY()){
-					if (vehicles_[i].hashCode() > vehicle.hashCode()) break;
+				else if (vehicles_[i].getY() == vehicle.getY()){
+					if (vehicles_[i].getID() > vehicle.getID()) break;	// the ID (unlike the hash code) is the same in every run
 				}
 			}
 		}
@@ -138,7 +139,7 @@ public final class JunctionQueue{
 	 * Cleans up. This removes vehicles which haven't been seen for a long time and thus prevents from stalls.
 	 */
 	public synchronized void cleanUp(){
-		int i, checkTime = renderer_.getTimePassed() - LAST_SEEN_TIMEOUT;
+		int i, checkTime = EngineContext.getTimePassed() - LAST_SEEN_TIMEOUT;
 		for(i = size_ - 1; i > -1; --i){	// going backwards because it's easier for deletion!
 			if(lastSeen_[i] < checkTime){
 				--size_;
@@ -149,6 +150,32 @@ public final class JunctionQueue{
 		}
 	}
 	
+	/**
+	 * Writes this queue to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeInt(size_);
+		out.writeVehicles(vehicles_, size_);
+		out.writeInts(waitingSince_, size_);
+		out.writeInts(lastSeen_, size_);
+	}
+	
+	/**
+	 * Replaces the content of this queue with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		size_ = in.readInt();
+		vehicles_ = in.readVehicles();
+		waitingSince_ = in.readInts();
+		lastSeen_ = in.readInts();
+	}
+	
 	/**
 	 * Gets the first vehicle in this queue.
 	 * 
@@ -27,6 +27,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -54,6 +55,8 @@ import vanetsim.scenario.Scenario;
 import vanetsim.scenario.Vehicle;
 import vanetsim.scenario.RSU;
 import vanetsim.scenario.events.EventSpot;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * The map. The coordinate system is 2-dimensional with each axis allowing values from
@@ -66,8 +69,15 @@ import vanetsim.scenario.events.EventSpot;
  */
 public final class Map{
 
-	/** The only instance of this class (singleton). */
-	private static final Map INSTANCE = new Map();
+	/** The slot of the map in the {@link SimulationContext}. There is one instance per simulation context. */
+	private static final int SLOT = SimulationContext.newSlot(Map.class);
+
+	/** Creates the map of a new simulation context. */
+	private static final Supplier<Map> NEW_INSTANCE = new Supplier<Map>(){
+		public Map get(){
+			return new Map();
+		}
+	};
 	
 	/** The width of a single lane (3m). Used in various other places in this program! */
 	public static final int LANE_WIDTH = 300;
@@ -108,12 +118,12 @@ public final class Map{
 	}	
 
 	/**
-	 * Gets the single instance of this map.
+	 * Gets the single instance of this map in the current simulation context.
 	 * 
-	 * @return single instance of this map
+	 * @return single instance of this map in the current simulation context
 	 */
 	public static Map getInstance(){
-		return INSTANCE;
+		return SimulationContext.state(SLOT, NEW_INSTANCE);
 	}
 
 	/**
@@ -129,25 +139,26 @@ public final class Map{
 		if(ready_ == true){
 			ready_ = false;
 			//cleanup!
-			if(!Renderer.getInstance().isConsoleStart()){
+			if(!EngineContext.isConsoleStart()){
 				Scenario.getInstance().initNewScenario();	//stops the simulation thread so we don't need to do it here
 				Scenario.getInstance().setReadyState(true);
 			}
 			
 			A_Star_LookupTableFactory.clear();
 			Node.resetNodeID();
+			Vehicle.clearTable();
 			width_ = width;
 			height_ = height;
 			regionWidth_ = regionWidth;
 			regionHeight_ = regionHeight;
 
-			Renderer.getInstance().setMarkedStreet(null);
-			Renderer.getInstance().setMarkedVehicle(null);
-			Renderer.getInstance().setAttackerVehicle(null);
-			Renderer.getInstance().setAttackedVehicle(null);
+			if(!EngineContext.isConsoleStart()) Renderer.getInstance().setMarkedStreet(null);
+			EngineContext.setMarkedVehicle(null);
+			EngineContext.setAttackerVehicle(null);
+			EngineContext.setAttackedVehicle(null);
 
 			
-			if(!Renderer.getInstance().isConsoleStart())MouseClickManager.getInstance().cleanMarkings();
+			if(!EngineContext.isConsoleStart())MouseClickManager.getInstance().cleanMarkings();
 
 			// create the regions on the map
 			regionCountX_ = width_/regionWidth_;
@@ -183,7 +194,7 @@ public final class Map{
 			}
 		}
 		ready_ = true;
-		if(!Renderer.getInstance().isConsoleStart()){
+		if(!EngineContext.isConsoleStart()){
 			Renderer.getInstance().setMiddle(width_/2, height_/2);
 			Renderer.getInstance().setMapZoom(Math.exp(5/100.0)/1000);
 			Renderer.getInstance().ReRender(true, false);
@@ -213,7 +224,7 @@ public final class Map{
 	 */
 	public void load(File file, boolean zip){
 		try{
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(true);
+			if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(true);
 			String childtype, setting, streetName, streetType, trafficSignalException, amenity ="";
 			int x = 0, y = 0, maxSpeed, isOneway, lanes, newMapWidth, newMapHeight, newRegionWidth, newRegionHeight;
 			Color displayColor;
@@ -269,9 +280,9 @@ public final class Map{
 						}
 					}
 					if(newMapWidth > 0 && newMapHeight > 0 && newRegionWidth > 0 && newRegionHeight > 0){		// only continue if settings were all found
-						if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(false);
+						if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(false);
 						CyclicBarrier barrier = new CyclicBarrier(2);
-						if(!Renderer.getInstance().isConsoleStart()){
+						if(!EngineContext.isConsoleStart()){
 							
 							new MapSizeDialog(newMapWidth, newMapHeight, newRegionWidth, newRegionHeight, barrier);	//initialize new map
 							//try {
@@ -281,7 +292,7 @@ public final class Map{
 						else Map.getInstance().initNewMap(newMapWidth, newMapHeight, newRegionWidth, newRegionHeight);
 						int addX = (width_ - newMapWidth)/2;
 						int addY = (height_ - newMapHeight)/2;
-						if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(true);
+						if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(true);
 						while (childCrsr.getNext() != null){
 							if(childCrsr.getLocalName().toLowerCase().equals("streets")){ //$NON-NLS-1$
 								streetCrsr = childCrsr.childElementCursor();
@@ -394,7 +405,7 @@ public final class Map{
 			sr.close();
 			filestream.close();
 		} catch (Exception e) {ErrorLog.log(Messages.getString("Map.errorLoading"), 7, getClass().getName(), "load", e);} //$NON-NLS-1$ //$NON-NLS-2$
-		if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(false);
+		if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(false);
 		signalMapLoaded();
 		ErrorLog.log(Messages.getString("Map.loadingFinished"), 3, getClass().getName(), "load", null); //$NON-NLS-1$ //$NON-NLS-2$	
 	}
@@ -408,7 +419,7 @@ public final class Map{
 	 */
 	public void save(File file, boolean zip){
 		try{
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(true);
+			if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(true);
 			ErrorLog.log(Messages.getString("Map.savingMap") + file.getName(), 3, getClass().getName(), "save", null); //$NON-NLS-1$ //$NON-NLS-2$
 			int i, j, k;
 			Street[] streetsArray;
@@ -487,7 +498,7 @@ public final class Map{
 			xw.close();
 			filestream.close();
 		}catch (Exception e) {ErrorLog.log(Messages.getString("Map.errorSavingMap") , 6, getClass().getName(), "save", e);} //$NON-NLS-1$ //$NON-NLS-2$
-		if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(false);
+		if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(false);
 	}
 
 	/**
@@ -778,11 +789,16 @@ public final class Map{
 	}
 	
 	/**
-	 * Delete every Vehicle on this map
+	 * Delete every Vehicle on this map. RSUs and junctions forget the vehicles, too, so that the vehicle table can be emptied.
 	 */
 	public void clearVehicles(){
-		Renderer.getInstance().setMarkedVehicle(null);
+		EngineContext.setMarkedVehicle(null);
+		EngineContext.setAttackerVehicle(null);
+		EngineContext.setAttackedVehicle(null);
 		for(int i = 0; i < regionCountX_; ++i) for(int j = 0; j < regionCountY_; ++j) regions_[i][j].cleanVehicles();
+		RSU.clearColoredVehicles();
+		Vehicle.setSleepersChanged(true);	// the scheduler drops the sleeping vehicles
+		Vehicle.clearTable();
 	}
 	
 	/**
@@ -934,7 +950,7 @@ public final class Map{
 			}
 		}
 		
-		Renderer.getInstance().ReRender(true, true);
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(true, true);
 		
 		saveReloadMap();
 	}
@@ -18,18 +18,38 @@
 package vanetsim.map;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
+import vanetsim.localization.Messages;
 import vanetsim.scenario.RSU;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * A node on the map.
  */
 public final class Node {
 			
-	/** A common counter to generate unique IDs */
-	private static int counter_ = 0;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(Node.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all nodes of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** A common counter to generate unique IDs */
+		int counter_ = 0;
+	}
+
 	/** A unique ID for this node */
 	private final int nodeID_;
 	
@@ -82,8 +102,7 @@ public final class Node {
 		x_ = x;
 		y_ = y;
 		hasTrafficSignal_ = false;
-		nodeID_ = counter_;
-		++counter_;
+		nodeID_ = state().counter_++;
 	}
 	
 	/**
@@ -97,8 +116,7 @@ public final class Node {
 		x_ = x;
 		y_ = y;
 		hasTrafficSignal_ = hasTrafficSignal;
-		nodeID_ = counter_;
-		++counter_;
+		nodeID_ = state().counter_++;
 	}
 
 	
@@ -350,6 +368,40 @@ public final class Node {
 		return junction_;
 	}
 	
+	/**
+	 * Writes the state of the junction and the traffic light on this node to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		if(junction_ == null) out.writeByte(0);
+		else {
+			out.writeByte(trafficLight_ == null ? 1 : 3);
+			junction_.writeCheckpoint(out);
+			if(trafficLight_ != null) trafficLight_.writeCheckpoint(out);
+		}
+	}
+	
+	/**
+	 * Reads the state of the junction and the traffic light on this node from a checkpoint. The junction must have been
+	 * calculated already. A traffic light is created or removed if necessary.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read or doesn't fit to this node
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		int flags = in.readByte();
+		if((flags & 1) != (junction_ == null ? 0 : 1)) throw new IOException(Messages.getString("Checkpoint.otherMap") + nodeID_); //$NON-NLS-1$
+		if(junction_ != null){
+			junction_.readCheckpoint(in);
+			if((flags & 2) != 0){
+				if(trafficLight_ == null) new TrafficLight(junction_);
+				trafficLight_.readCheckpoint(in);
+			} else if(trafficLight_ != null) junction_.delTrafficLight();
+		}
+	}
+	
 	/**
 	 * Adds an outgoing street. If the array already contains the street, nothing is done.
 	 * Note that this operation is not thread-safe.
@@ -566,14 +618,14 @@ public final class Node {
 	 * @return the maximum ID
 	 */
 	public static int getMaxNodeID(){
-		return counter_;
+		return state().counter_;
 	}
 	
 	/**
 	 * Resets the node ID counter so that newly created nodes begin with an ID of 0.
 	 */
 	public static void resetNodeID(){
-		counter_ = 0;
+		state().counter_ = 0;
 	}
 	
 	/**
@@ -620,6 +672,7 @@ public final class Node {
 
 	public void setHasTrafficSignal_(boolean hasTrafficSignal_) {
 		this.hasTrafficSignal_ = hasTrafficSignal_;
+		TrafficLight.setChanged(true);
 	}
 
 	/**
@@ -627,6 +680,7 @@ public final class Node {
 	 */
 	public void setTrafficLight_(TrafficLight trafficLight_) {
 		this.trafficLight_ = trafficLight_;
+		TrafficLight.setChanged(true);
 	}
 
 	/**
@@ -723,4 +777,13 @@ public final class Node {
 
 	
 	
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
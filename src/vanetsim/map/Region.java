@@ -17,12 +17,23 @@
  */
 package vanetsim.map;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
-import vanetsim.gui.Renderer;
 import vanetsim.gui.helpers.PrivacyLogWriter;
+import vanetsim.localization.Messages;
 import vanetsim.scenario.Vehicle;
 import vanetsim.scenario.RSU;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.InteractionBuffer;
+import vanetsim.simulation.MigrationQueue;
+import vanetsim.simulation.SimulationContext;
 import vanetsim.simulation.WorkerThread;
 
 /**
@@ -32,6 +43,31 @@ public final class Region{
 	
 	/** An empty vehicle array to prevent unnecessary object creation on <code>toArray()</code> operation. */
 	private static final Vehicle[] EMPTY_VEHICLE = new Vehicle[0];
+
+	/** Flag in the packed vehicle state: the vehicle is active. */
+	public static final int VEHICLE_ACTIVE = 1;
+
+	/** Flag in the packed vehicle state: the vehicle has WiFi enabled. */
+	public static final int VEHICLE_WIFI = 2;
+
+	/** Both flags which a vehicle needs to receive messages and beacons. */
+	public static final int VEHICLE_COMMUNICATING = VEHICLE_ACTIVE | VEHICLE_WIFI;
+
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(Region.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all regions of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The idle regions to which a vehicle has been added since the simulation has checked last (not written to checkpoints). */
+		final transient ConcurrentLinkedQueue<Region> woken_ = new ConcurrentLinkedQueue<Region>();
+	}
 	
 	/** The position on the x axis (in relation to all other regions => does not correspond to map coordinates!). */
 	private final int x_;
@@ -63,20 +99,32 @@ public final class Region{
 	/** An array storing all streets in this region. */
 	private Street[] streets_ = new Street[0];		// This has a little bit overhead while loading compared to an ArrayList but requires less memory and is faster when iterating
 
-	/** An <code>ArrayList</code> storing all vehicles in this region. */
-	private ArrayList<Vehicle> vehicles_;	// changes relatively often so use ArrayList here
+	/** An array storing all vehicles in this region. Only the first <code>vehicleCount_</code> entries are valid. Vehicles are removed by moving the last one into their slot. */
+	private Vehicle[] vehicles_;	// changes relatively often so it's not an exact copy like the other arrays
+
+	/** The amount of vehicles in this region. */
+	private int vehicleCount_ = 0;
+
+	/** The x coordinates of the vehicles. Same order as <code>vehicles_</code> so that neighbour searches don't need to touch vehicles which are too far away. */
+	private int[] vehicleXs_;
+
+	/** The y coordinates of the vehicles (same order as <code>vehicles_</code>). */
+	private int[] vehicleYs_;
 
-	/** The simulation requests an array for the vehicles which is cached here. */
+	/** The flags of the vehicles (see <code>VEHICLE_ACTIVE</code> and <code>VEHICLE_WIFI</code>, same order as <code>vehicles_</code>). */
+	private int[] vehicleFlags_;
+
+	/** Incremented on every change of the vehicles so that the simulation knows when to refresh its cached data. */
+	private int vehiclesVersion_ = 0;
+
+	/** Other classes (like the GUI) request an exact copy of the vehicles which is cached here. */
 	private Vehicle[] vehiclesArray_;
 	
-	/** The worker thread this region is associated with. */
-	private WorkerThread thread_ = null;
-	
-	/** The number of this region in the worker thread. */
-	private int numberInThread_ = -1;
-
 	/** <code>true</code> to indicate that the vehicles have changed since the last call to getVehicleArray() */
 	private boolean vehiclesDirty_ = true;
+	
+	/** <code>true</code> if the simulation skips this region because nothing happens in it. Adding a vehicle wakes it up. */
+	private boolean idle_ = false;
 
 	public ArrayList<String> xxx = new ArrayList<String>();
 	public ArrayList<String> yyy = new ArrayList<String>();
@@ -93,7 +141,10 @@ public final class Region{
 	 * @param lowerBoundary	the coordinate of the lower boundary
 	 */
 	public Region(int x, int y, int leftBoundary, int rightBoundary, int upperBoundary, int lowerBoundary){
-		vehicles_ = new ArrayList<Vehicle>(1);
+		vehicles_ = new Vehicle[1];
+		vehicleXs_ = new int[1];
+		vehicleYs_ = new int[1];
+		vehicleFlags_ = new int[1];
 		x_ = x;
 		y_ = y;
 		leftBoundary_ = leftBoundary;
@@ -269,36 +320,156 @@ public final class Region{
 	}
 
 	/**
-	 * Function to add a vehicle to this region.
+	 * Function to add a vehicle to this region. If called by a worker during a phase, the vehicle is added at the end
+	 * of the phase.
 	 * 
 	 * @param vehicle vehicle to add
 	 * @param doCheck 	<code>true</code> if a check should be made if this vehicle already exists; else <code>false</code> to skip the test
 	 */
 	public synchronized void addVehicle(Vehicle vehicle, boolean doCheck){
-		if(doCheck){
-			if(!vehicles_.contains(vehicle)){
-				vehicles_.add(vehicle);
-				if(thread_ != null) thread_.addChangedRegion(numberInThread_);
-				vehiclesDirty_ = true;
-			}
-		} else {
-			vehicles_.add(vehicle);
-			if(thread_ != null) thread_.addChangedRegion(numberInThread_);
-			vehiclesDirty_ = true;
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: added at the end of the phase
+			buffer.addRegionAdd(this, vehicle, doCheck);
+			return;
+		}
+		MigrationQueue queue = WorkerThread.getMigrationQueue();
+		if(queue != null){		// the vehicle arrays must not change while the workers use them
+			queue.addRegionAdd(this, vehicle, doCheck);
+			return;
+		}
+		if(doCheck && findVehicle(vehicle) > -1) return;
+		if(vehicleCount_ == vehicles_.length){
+			vehicles_ = Arrays.copyOf(vehicles_, vehicleCount_ * 2);
+			vehicleXs_ = Arrays.copyOf(vehicleXs_, vehicleCount_ * 2);
+			vehicleYs_ = Arrays.copyOf(vehicleYs_, vehicleCount_ * 2);
+			vehicleFlags_ = Arrays.copyOf(vehicleFlags_, vehicleCount_ * 2);
+		}
+		vehicles_[vehicleCount_] = vehicle;
+		vehicle.setRegionSlot(vehicleCount_);
+		writeVehicleState(vehicleCount_, vehicle);
+		++vehicleCount_;
+		++vehiclesVersion_;
+		vehiclesDirty_ = true;
+		if(idle_){
+			idle_ = false;
+			state().woken_.add(this);
 		}
 	}
 
 	/**
-	 * Function to delete a vehicle from this region.
+	 * Function to delete a vehicle from this region. If called by a worker during a phase, the vehicle is removed at the
+	 * end of the phase.
 	 * 
 	 * @param vehicle the vehicle to remove
 	 */
 	public synchronized void delVehicle(Vehicle vehicle){
-		vehicles_.remove(vehicle);
-		if(thread_ != null) thread_.addChangedRegion(numberInThread_);
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: removed at the end of the phase
+			buffer.addRegionDelete(this, vehicle);
+			return;
+		}
+		MigrationQueue queue = WorkerThread.getMigrationQueue();
+		if(queue != null){
+			queue.addRegionDelete(this, vehicle);
+			return;
+		}
+		int slot = findVehicle(vehicle);
+		if(slot == -1) return;
+		--vehicleCount_;
+		if(slot < vehicleCount_){		// fill the gap with the last vehicle
+			vehicles_[slot] = vehicles_[vehicleCount_];
+			vehicles_[slot].setRegionSlot(slot);
+			vehicleXs_[slot] = vehicleXs_[vehicleCount_];
+			vehicleYs_[slot] = vehicleYs_[vehicleCount_];
+			vehicleFlags_[slot] = vehicleFlags_[vehicleCount_];
+		}
+		vehicles_[vehicleCount_] = null;
+		++vehiclesVersion_;
 		vehiclesDirty_ = true;
 	}
 
+	/**
+	 * Gets the position of a vehicle in the vehicle array of this region.
+	 * 
+	 * @param vehicle	the vehicle
+	 * 
+	 * @return the position or <code>-1</code> if the vehicle is not in this region
+	 */
+	private int findVehicle(Vehicle vehicle){
+		int slot = vehicle.getRegionSlot();
+		if(slot > -1 && slot < vehicleCount_ && vehicles_[slot] == vehicle) return slot;
+		for(slot = 0; slot < vehicleCount_; ++slot){		// the slot belongs to another region. Search anyway in case a vehicle has been added to several regions
+			if(vehicles_[slot] == vehicle) return slot;
+		}
+		return -1;
+	}
+
+	/**
+	 * Copies the position and the flags of a vehicle into the packed arrays which are used by the neighbour searches.
+	 * Vehicles call this whenever one of these values changes. If the vehicle is about to be moved into this region at the
+	 * end of the current phase, nothing is done as the values are copied when it is added.
+	 * 
+	 * @param vehicle	the vehicle
+	 */
+	public void updateVehicleState(Vehicle vehicle){
+		int slot = vehicle.getRegionSlot();
+		if(slot > -1 && slot < vehicleCount_ && vehicles_[slot] == vehicle) writeVehicleState(slot, vehicle);
+	}
+
+	/**
+	 * Writes the position and the flags of a vehicle into the packed arrays.
+	 * 
+	 * @param slot		the position of the vehicle in the vehicle array
+	 * @param vehicle	the vehicle
+	 */
+	private void writeVehicleState(int slot, Vehicle vehicle){
+		int flags = 0;
+		if(vehicle.isActive()) flags |= VEHICLE_ACTIVE;
+		if(vehicle.isWiFiEnabled()) flags |= VEHICLE_WIFI;
+		vehicleXs_[slot] = vehicle.getX();
+		vehicleYs_[slot] = vehicle.getY();
+		vehicleFlags_[slot] = flags;
+	}
+
+	/**
+	 * Writes the vehicles in this region and the state of its RSUs to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a message of an RSU could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(vehicleCount_);
+		out.writeVehicles(vehicles_, vehicleCount_);
+		out.writeInts(vehicleXs_, vehicleCount_);
+		out.writeInts(vehicleYs_, vehicleCount_);
+		out.writeInts(vehicleFlags_, vehicleCount_);
+		out.writeInt(vehiclesVersion_);
+		out.writeInt(rsus_.length);
+		for(int i = 0; i < rsus_.length; ++i) rsus_[i].writeCheckpoint(out);
+	}
+	
+	/**
+	 * Reads the vehicles in this region and the state of its RSUs from a checkpoint. The region is not idle afterwards.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public synchronized void readCheckpoint(CheckpointReader in) throws IOException{
+		vehicleCount_ = in.readInt();
+		vehicles_ = in.readVehicles();
+		vehicleXs_ = in.readInts();
+		vehicleYs_ = in.readInts();
+		vehicleFlags_ = in.readInts();
+		vehiclesVersion_ = in.readInt();
+		if(in.readInt() != rsus_.length) throw new IOException(Messages.getString("Checkpoint.otherMap") + x_ + "," + y_); //$NON-NLS-1$ //$NON-NLS-2$
+		vehiclesArray_ = null;
+		vehiclesDirty_ = true;
+		idle_ = false;
+		for(int i = 0; i < rsus_.length; ++i) rsus_[i].readCheckpoint(in);
+	}
+	
 	/**
 	 * Function to get the x axis position of this region.
 	 * 
@@ -322,13 +493,13 @@ public final class Region{
 	 * and what their priority streets are. Furthermore, mixing zones are generated.
 	 */
 	public void calculateJunctions(){
-		if(Renderer.getInstance().isAutoAddMixZones()) mixZoneNodes_ = new Node[0];
+		if(EngineContext.isAutoAddMixZones()) mixZoneNodes_ = new Node[0];
 		
 		for(int i = 0; i < nodes_.length; ++i){
 			nodes_[i].calculateJunction();		
 			
 			//Mix zones are only added if autoAddMixZones is activated
-			if(Renderer.getInstance().isAutoAddMixZones()){
+			if(EngineContext.isAutoAddMixZones()){
 				if(nodes_[i].getJunction() != null){
 					Node[] newArray = new Node[mixZoneNodes_.length+1];
 					System.arraycopy (mixZoneNodes_,0,newArray,0,mixZoneNodes_.length);
@@ -882,13 +1053,26 @@ public final class Region{
 	}
 
 	/**
-	 * This function should be called before initializing a new scenario to delete all vehicles.
+	 * This function should be called before initializing a new scenario to delete all vehicles. The RSUs and junctions of
+	 * this region forget all vehicles, too.
 	 */
 	public void cleanVehicles(){
-		vehicles_ = new ArrayList<Vehicle>(1);
-		for(int i = 0; i < streets_.length; ++i){
+		vehicles_ = new Vehicle[1];
+		vehicleXs_ = new int[1];
+		vehicleYs_ = new int[1];
+		vehicleFlags_ = new int[1];
+		vehicleCount_ = 0;
+		++vehiclesVersion_;
+		int i;
+		for(i = 0; i < streets_.length; ++i){
 			streets_[i].clearLanes();
 		}
+		for(i = 0; i < nodes_.length; ++i){
+			if(nodes_[i].getJunction() != null) nodes_[i].getJunction().clearVehicles();
+		}
+		for(i = 0; i < rsus_.length; ++i){
+			rsus_[i].forgetVehicles();
+		}
 		vehiclesDirty_ = true;
 	}
 	
@@ -940,43 +1124,79 @@ public final class Region{
 	}
 
 	/**
-	 * Used to return the <code>ArrayList</code> of all vehicles. Note that it can not guaranteed, that no
-	 * changes are made after you received this.
+	 * Returns the vehicle array of this region itself (without copying). Only the first {@link #getVehicleCount()} entries
+	 * are valid. The array only changes between the phases of the simulation so the workers can use it while processing a
+	 * phase. Everyone else should use {@link #getVehicleArray()}.
 	 * 
-	 * @return the <code>ArrayList</code> containing all vehicles
+	 * @return the array containing all vehicles
 	 */
-	public ArrayList<Vehicle> getVehicleArrayList(){
+	public Vehicle[] getVehicleStore(){
 		return vehicles_;
 	}
 
+	/**
+	 * Returns the amount of vehicles in this region.
+	 * 
+	 * @return the amount of vehicles
+	 */
+	public int getVehicleCount(){
+		return vehicleCount_;
+	}
+
+	/**
+	 * Returns the x coordinates of the vehicles of this region (without copying). The order is the same as in
+	 * {@link #getVehicleStore()} and only the first {@link #getVehicleCount()} entries are valid. A neighbour search should
+	 * check the packed values first and only access the vehicles which are within its range.
+	 * 
+	 * @return the array containing the x coordinates
+	 */
+	public int[] getVehicleXs(){
+		return vehicleXs_;
+	}
 
 	/**
-	 * Creates an array as a copy of the vehicle <code>ArrayList</code> to prevent problems during simulation caused by
-	 * changing the <code>ArrayList</code> while reading it in another thread. The array is cached so that new ones are only
-	 * created when needed.
+	 * Returns the y coordinates of the vehicles of this region (without copying, see {@link #getVehicleXs()}).
+	 * 
+	 * @return the array containing the y coordinates
+	 */
+	public int[] getVehicleYs(){
+		return vehicleYs_;
+	}
+
+	/**
+	 * Returns the flags of the vehicles of this region (without copying, see {@link #getVehicleXs()}). The flags are a
+	 * combination of {@link #VEHICLE_ACTIVE} and {@link #VEHICLE_WIFI}.
+	 * 
+	 * @return the array containing the flags
+	 */
+	public int[] getVehicleFlags(){
+		return vehicleFlags_;
+	}
+
+	/**
+	 * Returns a number which changes whenever a vehicle is added to or removed from this region.
+	 * 
+	 * @return the version of the vehicles
+	 */
+	public int getVehiclesVersion(){
+		return vehiclesVersion_;
+	}
+
+	/**
+	 * Creates an exact copy of the vehicle array to prevent problems caused by changing the array while reading it in
+	 * another thread. The array is cached so that new ones are only created when needed.
 	 * 
 	 * @return the array copy of all vehicles in this region or an empty array if there are no elements
 	 */
 	public Vehicle[] getVehicleArray(){
 		if(vehiclesDirty_){
-			if(vehicles_.size() == 0) vehiclesArray_ = EMPTY_VEHICLE;
-			else vehiclesArray_ = vehicles_.toArray(EMPTY_VEHICLE);
+			if(vehicleCount_ == 0) vehiclesArray_ = EMPTY_VEHICLE;
+			else vehiclesArray_ = Arrays.copyOf(vehicles_, vehicleCount_);
 			vehiclesDirty_ = false;
 		}
 		return vehiclesArray_;
 	}
 	
-	/**
-	 * Creates a backlink to the worker thread which computes this region.
-	 * 
-	 * @param thread			the thread
-	 * @param numberinThread	the number in the thread
-	 */
-	public void createBacklink(WorkerThread thread, int numberinThread){
-		thread_ = thread;
-		numberInThread_ = numberinThread;
-	}
-	
 	/**
 	 * Gets the coordinate of the left boundary of this region.
 	 * 
@@ -1012,4 +1232,40 @@ public final class Region{
 	public int getLowerBoundary(){
 		return lowerBoundary_;
 	}
+
+	/**
+	 * Sets if this region is idle. The simulation skips idle regions until a vehicle is added to them (see {@link #pollWokenRegion()}).
+	 * 
+	 * @param idle	<code>true</code> if nothing happens in this region
+	 */
+	public synchronized void setIdle(boolean idle){
+		idle_ = idle;
+	}
+
+	/**
+	 * Checks if this region is idle.
+	 * 
+	 * @return <code>true</code> if the simulation skips this region
+	 */
+	public synchronized boolean isIdle(){
+		return idle_;
+	}
+
+	/**
+	 * Gets the next idle region to which a vehicle has been added. The region is not idle any more afterwards.
+	 * 
+	 * @return the region or <code>null</code> if no idle region has been woken up
+	 */
+	public static Region pollWokenRegion(){
+		return state().woken_.poll();
+	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -19,10 +19,13 @@ package vanetsim.map;
 
 import java.awt.Color;
 import java.awt.geom.Point2D;
+import java.io.IOException;
 import java.util.ArrayList;
 
 import vanetsim.scenario.LaneContainer;
 import vanetsim.scenario.LaneObject;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
 
 
 /**
@@ -322,6 +325,50 @@ public final class Street {
 		else endToStartLane_.updatePosition(object, newPosition);
 	}
 	
+	/**
+	 * Writes the objects on the lanes and the states of the traffic lights of this street to a checkpoint. Empty lanes and
+	 * streets without traffic lights only need one byte.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an object could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		int flags = 0;
+		if(startToEndLane_.getHead() != null || startToEndLane_.size() != 0) flags |= 1;
+		if(endToStartLane_.getHead() != null || endToStartLane_.size() != 0) flags |= 2;
+		if(startNodeTrafficLightState_ != -1 || endNodeTrafficLightState_ != -1) flags |= 4;
+		out.writeByte(flags);
+		if((flags & 1) != 0) startToEndLane_.writeCheckpoint(out);
+		if((flags & 2) != 0) endToStartLane_.writeCheckpoint(out);
+		if((flags & 4) != 0){
+			out.writeInt(startNodeTrafficLightState_);
+			out.writeInt(endNodeTrafficLightState_);
+		}
+	}
+	
+	/**
+	 * Reads the objects on the lanes and the states of the traffic lights of this street from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		int flags = in.readByte();
+		if((flags & 1) != 0) startToEndLane_.readCheckpoint(in);
+		else startToEndLane_.clear();
+		if((flags & 2) != 0) endToStartLane_.readCheckpoint(in);
+		else endToStartLane_.clear();
+		if((flags & 4) != 0){
+			startNodeTrafficLightState_ = in.readInt();
+			endNodeTrafficLightState_ = in.readInt();
+		} else {
+			startNodeTrafficLightState_ = -1;
+			endNodeTrafficLightState_ = -1;
+		}
+	}
+	
 	/**
 	 * Clears all objects from the lanes container.
 	 */
@@ -17,6 +17,14 @@
  */
 package vanetsim.map;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 
 
@@ -32,6 +40,22 @@ public class TrafficLight {
 	/** A static time to free a junction after a change of phases in ms. */
 	private static final double JUNCTION_FREE_TIME = 2000;
 	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(TrafficLight.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all traffic lights of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** <code>true</code> if a traffic light has been added to or removed from a node since the schedule was built. */
+		volatile boolean changed_ = true;
+	}
+	
 	/** Duration of the red phase in ms for the priority street. */
 	private double redPhaseLength_;
 	
@@ -54,6 +78,9 @@ public class TrafficLight {
 	/** Timer for this traffic light; because all traffic lights on a junction run synchronously just one timer is needed. */
 	private double timer_;
 	
+	/** The simulation time of the step in which the timer was set (or of the creation of this traffic light). The timer is only updated when the state changes. */
+	private int timerTime_;
+	
 	/** The <code>Junction</code> this traffic light. */
 	private Junction junction_;
 
@@ -158,6 +185,7 @@ public class TrafficLight {
 			calculateTrafficLightPosition(streets_[i]);
 		}		
 		timer_ = greenPhaseLength_;
+		timerTime_ = EngineContext.getTimePassed();
 		
 		//tell the node, that he now has a traffic light
 		junction_.getNode().setHasTrafficSignal_(true);
@@ -165,11 +193,33 @@ public class TrafficLight {
 	}
 	
 	/**
-	 * This function should change the states of the traffic lights if necessary. Should be called after the first greenphase
+	 * Gets the simulation time of the step in which the state of this traffic light changes the next time. The timer
+	 * runs down by <code>timePerStep</code> in each step and the state changes in the first step in which the remaining
+	 * time is smaller than <code>timePerStep</code>.
+	 * 
+	 * @param timePerStep	the time per step in milliseconds
+	 * 
+	 * @return the simulation time of the step
+	 */
+	public int getNextChange(int timePerStep){
+		double time = timerTime_ + (Math.floor(timer_ / timePerStep) + 1) * timePerStep;
+		if(time > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+		else return (int)time;
+	}
+	
+	/**
+	 * This function changes the states of the traffic lights if the change is due in the step at the given time
+	 * (see {@link #getNextChange(int)}). Steps without a change don't need to call this function.
+	 * 
+	 * @param time			the simulation time of the current step
+	 * @param timePerStep	the time per step in milliseconds
+	 * 
+	 * @return <code>true</code> if the states were changed, else <code>false</code>
 	 */
-	public void changePhases(int timePerStep){
-		//if remaining time is smaller than the timerPerStep we have to change the states
-		if(timer_ < timePerStep){
+	public boolean changePhases(int time, int timePerStep){
+		//if remaining time is smaller than the timerPerStep in this step we have to change the states
+		if(getNextChange(timePerStep) <= time){
+			timerTime_ = time;
 			state = (state +1) % 4;		
 
 			//could be less code, but this way I get a better performanz
@@ -196,9 +246,53 @@ public class TrafficLight {
 					streets_[i].updateEndNodeTrafficLightState();
 				}
 			}
+			return true;
 		}
-		//else change timer
-		else timer_ = timer_ - timePerStep;
+		//else nothing to do as the timer is only updated when the states change
+		else return false;
+	}
+	
+	/**
+	 * Writes the phases and the timer of this traffic light to a checkpoint. The states of the streets are written with
+	 * the streets.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeDouble(redPhaseLength_);
+		out.writeDouble(yellowPhaseLength_);
+		out.writeDouble(greenPhaseLength_);
+		out.writeInt(state);
+		out.writeDouble(timer_);
+		out.writeInt(timerTime_);
+		out.writeBoolean(switcher);
+	}
+	
+	/**
+	 * Reads the phases and the timer of this traffic light from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		redPhaseLength_ = in.readDouble();
+		yellowPhaseLength_ = in.readDouble();
+		greenPhaseLength_ = in.readDouble();
+		state = in.readInt();
+		timer_ = in.readDouble();
+		timerTime_ = in.readInt();
+		switcher = in.readBoolean();
+	}
+	
+	/**
+	 * Makes sure that the timer wasn't set after the given time. This might happen if the simulation time has been reset
+	 * (for example by loading a scenario) while this traffic light was kept. The remaining time then starts at the given time.
+	 * 
+	 * @param time	the current simulation time
+	 */
+	public void checkTimer(int time){
+		if(timerTime_ > time) timerTime_ = time;
 	}
 	
 	/* Calculates Traffic light position */
@@ -337,7 +431,31 @@ public class TrafficLight {
 		this.streets_ = streets_;
 	}
 
+	/**
+	 * Checks if a traffic light has been added to or removed from a node since the last call of {@link #setChanged(boolean)}.
+	 * 
+	 * @return <code>true</code> if the traffic lights have changed
+	 */
+	public static boolean isChanged(){
+		return state().changed_;
+	}
 
+	/**
+	 * Sets if the traffic lights have changed. Setting this to <code>true</code> lets the simulation rebuild its schedule
+	 * of the traffic lights.
+	 * 
+	 * @param changed	<code>true</code> if the traffic lights have changed
+	 */
+	public static void setChanged(boolean changed){
+		state().changed_ = changed;
+	}
 
-
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
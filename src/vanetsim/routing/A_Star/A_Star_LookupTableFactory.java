@@ -18,8 +18,10 @@
 package vanetsim.routing.A_Star;
 
 import java.util.ArrayDeque;
+import java.util.function.Supplier;
 
 import vanetsim.map.Node;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * A factory for creating LookupTables (mapping between <code>Node</code>s and <code>A_Star_Node</code>s)for the A* algorithm.
@@ -27,14 +29,40 @@ import vanetsim.map.Node;
  * which is relatively costly because of the huge amount of objects and necessary garbage collection.
  * This factory takes correctly care of multithreading so you may concurrently calculate routes. However, this may take some memory
  * as every concurrent LookupTable is completely independent and will be stored for the whole program life!<br>
+ * The LookupTables are kept per {@link SimulationContext} as they are sized for the map of the simulation.
  */
 public final class A_Star_LookupTableFactory{
 	
-	/** A queue with the LookupTables. */
-	private static final ArrayDeque<A_Star_LookupTable<Node, A_Star_Node>> table_ = new ArrayDeque<A_Star_LookupTable<Node, A_Star_Node>>();
+	/** The slot of the cached LookupTables in the {@link SimulationContext}. */
+	private static final int SLOT = SimulationContext.newSlot(A_Star_LookupTableFactory.class);
+
+	/** Creates the LookupTables of a new simulation context. */
+	private static final Supplier<Tables> NEW_INSTANCE = new Supplier<Tables>(){
+		public Tables get(){
+			return new Tables();
+		}
+	};
 	
-	/** A counter per LookupTable value to detect if an <code>A_Star_Node</code> in the LookupTable is from a previous run or not. */
-	private static final ArrayDeque<Integer> counter_ = new ArrayDeque<Integer>();
+	/**
+	 * The cached LookupTables of one simulation context. This is not part of a checkpoint.
+	 */
+	private static final class Tables{
+	
+		/** A queue with the LookupTables. */
+		final ArrayDeque<A_Star_LookupTable<Node, A_Star_Node>> table_ = new ArrayDeque<A_Star_LookupTable<Node, A_Star_Node>>();
+		
+		/** A counter per LookupTable value to detect if an <code>A_Star_Node</code> in the LookupTable is from a previous run or not. */
+		final ArrayDeque<Integer> counter_ = new ArrayDeque<Integer>();
+	}
+	
+	/**
+	 * Gets the cached LookupTables of the current simulation context.
+	 * 
+	 * @return the cached LookupTables
+	 */
+	private static Tables tables(){
+		return SimulationContext.state(SLOT, NEW_INSTANCE);
+	}
 	
 	/**
 	 * Gets a LookupTable. Don't forget to put the LookupTable back if you don't need it anymore!
@@ -43,17 +71,20 @@ public final class A_Star_LookupTableFactory{
 	 * 
 	 * @return the LookupTable
 	 */
-	public static synchronized A_Star_LookupTable<Node, A_Star_Node> getTable(int[] counter){
-		if(table_.isEmpty()){
-			counter[0] = Integer.MIN_VALUE;
-			return new A_Star_LookupTable<Node, A_Star_Node>(Node.getMaxNodeID()+1);			
-		} else {
-			counter[0] = counter_.poll() + 1;
-			if(counter[0] == Integer.MAX_VALUE){	//this only happens after an enormous amount of routings. Recycling further would be dangerous => use a new one with resetted counter!
-				table_.poll();
+	public static A_Star_LookupTable<Node, A_Star_Node> getTable(int[] counter){
+		Tables tables = tables();
+		synchronized(tables){
+			if(tables.table_.isEmpty()){
 				counter[0] = Integer.MIN_VALUE;
-				return new A_Star_LookupTable<Node, A_Star_Node>(Node.getMaxNodeID()+1);
-			} else return table_.poll();
+				return new A_Star_LookupTable<Node, A_Star_Node>(Node.getMaxNodeID()+1);			
+			} else {
+				counter[0] = tables.counter_.poll() + 1;
+				if(counter[0] == Integer.MAX_VALUE){	//this only happens after an enormous amount of routings. Recycling further would be dangerous => use a new one with resetted counter!
+					tables.table_.poll();
+					counter[0] = Integer.MIN_VALUE;
+					return new A_Star_LookupTable<Node, A_Star_Node>(Node.getMaxNodeID()+1);
+				} else return tables.table_.poll();
+			}
 		}
 	}
 	
@@ -63,16 +94,22 @@ public final class A_Star_LookupTableFactory{
 	 * @param counter	the counter value
 	 * @param table		the LookupTable
 	 */
-	public static synchronized void putTable(int counter, A_Star_LookupTable<Node, A_Star_Node> table){
-		table_.add(table);
-		counter_.add(counter);
+	public static void putTable(int counter, A_Star_LookupTable<Node, A_Star_Node> table){
+		Tables tables = tables();
+		synchronized(tables){
+			tables.table_.add(table);
+			tables.counter_.add(counter);
+		}
 	}
 	
 	/**
 	 * Clear the cached versions. This should be done on map reload to free otherwise unnecessarily wasted memory.
 	 */
-	public static synchronized void clear(){
-		table_.clear();
-		counter_.clear();
+	public static void clear(){
+		Tables tables = tables();
+		synchronized(tables){
+			tables.table_.clear();
+			tables.counter_.clear();
+		}
 	}
 }
\ No newline at end of file
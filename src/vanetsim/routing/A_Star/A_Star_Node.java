@@ -206,10 +206,11 @@ public final class A_Star_Node implements Comparable<Object>{
 		A_Star_Node otherNode = (A_Star_Node)other;  //throws a ClassCastException like expected by Comparable so we don't need an additional check!
 		if(f_ > otherNode.getF()) return 1;
 		else if(f_ < otherNode.getF()) return -1;
-		else {		// should almost never happen but just returning 0 would not allow storing two in reality different nodes with the same f in a tree!
-			if(this.hashCode() < other.hashCode()) return -1;
-			else if(this.hashCode() > other.hashCode()) return 1;
-			else{		// should happen even less probable as hashcode is normally built from the internal address of the object according to javadoc...
+		else {		// just returning 0 would not allow storing two in reality different nodes with the same f in a tree! The node ID is used
+					// instead of the (address based) hashcode so that routes are the same in every run, also after restoring a checkpoint.
+			if(realNode_.getNodeID() < otherNode.getRealNode().getNodeID()) return -1;
+			else if(realNode_.getNodeID() > otherNode.getRealNode().getNodeID()) return 1;
+			else{		// should never happen as each real node only has one A_Star_Node...
 				if(realNode_.getX() > otherNode.getRealNode().getX()) return -1;
 				else if(realNode_.getX() < otherNode.getRealNode().getX()) return 1;
 				else{
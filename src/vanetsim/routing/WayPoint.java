@@ -17,11 +17,14 @@
  */
 package vanetsim.routing;
 
+import java.io.IOException;
 import java.text.ParseException;
 
 import vanetsim.localization.Messages;
 import vanetsim.map.MapHelper;
 import vanetsim.map.Street;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
 
 /**
  * A waypoint used for routing.
@@ -67,6 +70,36 @@ public final class WayPoint{
 		} else throw new ParseException(Messages.getString("WayPoint.snappingFailed"),0); //$NON-NLS-1$
 	}
 	
+	/**
+	 * Reads a waypoint from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public WayPoint(CheckpointReader in) throws IOException{
+		x_ = in.readInt();
+		y_ = in.readInt();
+		street_ = in.readStreet();
+		positionOnStreet_ = in.readDouble();
+		waitTime_ = in.readInt();
+	}
+	
+	/**
+	 * Writes this waypoint to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if the street could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeStreet(street_);
+		out.writeDouble(positionOnStreet_);
+		out.writeInt(waitTime_);
+	}
+	
 	/**
 	 * Gets the position on the street.
 	 * 
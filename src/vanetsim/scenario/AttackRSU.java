@@ -17,7 +17,16 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import vanetsim.gui.Renderer;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
+
 
 
 /**
@@ -26,9 +35,22 @@ import vanetsim.gui.Renderer;
 
 public final class AttackRSU {
 	
-	/** A common counter to generate unique IDs */
-	private static int counter_ = 1;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(AttackRSU.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all attacker RSUs of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** A common counter to generate unique IDs */
+		int counter_ = 1;
+	}
+
 	/** The x coordinate. */
 	private final int x_;
 	
@@ -53,8 +75,8 @@ public final class AttackRSU {
 		y_ = y;
 		wifiRadius_ = radius;
 		
-		arsuID_ = counter_;
-		++counter_;
+		arsuID_ = state().counter_;
+		++state().counter_;
 		
 		//add this Attack-RSU to the list with all ARSUS (an array is used for a better performance)
 		int arrayLength = Vehicle.getArsuList().length;
@@ -67,6 +89,32 @@ public final class AttackRSU {
 		Vehicle.setArsuList(tempArray);
 	}
 	
+	/**
+	 * Reads an Attack-RSU from a checkpoint. It is not added to the list with all ARSUs.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public AttackRSU(CheckpointReader in) throws IOException{
+		x_ = in.readInt();
+		y_ = in.readInt();
+		wifiRadius_ = in.readInt();
+		arsuID_ = in.readLong();
+	}
+	
+	/**
+	 * Writes this Attack-RSU to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeInt(wifiRadius_);
+		out.writeLong(arsuID_);
+	}
+	
 	/**
 	 * Searches for an arsu near this coordinates and deletes it. Returns true if an arsu was found and deleted.
 	 * 
@@ -97,7 +145,7 @@ public final class AttackRSU {
 				tempArray[i]=Vehicle.getArsuList()[i];
 			}
 			Vehicle.setArsuList(tempArray);
-			Renderer.getInstance().ReRender(true, false);
+			if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(true, false);
 			returnValue = true;
 			}
 		
@@ -161,4 +209,13 @@ public final class AttackRSU {
 	public long getArsuID_() {
 		return arsuID_;
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
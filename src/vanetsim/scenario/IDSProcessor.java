@@ -17,10 +17,18 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 
 
 import vanetsim.gui.helpers.IDSLogWriter;
 import vanetsim.map.Street;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * A known vehicle (discovered by receiving a beacon). The variables represent what is known and might
@@ -48,14 +56,60 @@ public class IDSProcessor{
 	/** Array to save the n last lastUpdate for the IDS */
 	private int[] savedLastUpdate_;
 	
-	/** Amount of saved beacons (-1 == off) */
-	private static int amountOfSavedBeacons_ = 10;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(IDSProcessor.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all IDS processors of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** Amount of saved beacons (-1 == off) */
+		int amountOfSavedBeacons_ = 10;
+
+		String[] activeRules_;
+
+		int[] falsePositiv = new int[6];
+
+		int[] falseNegativ = new int[6];
+
+		int[] truePositiv = new int[6];
+
+		int[] trueNegativ = new int[6];
+
+		int PCNDistance_ = 625;
+
+		double PCNFORWARDThreshold_ = 0.5;
+
+		double RHCNThreshold_ = 0.5;
+
+		double EEBLThreshold_ = 0.5;
+
+		double EVAFORWARDThreshold_ = 0.5;
+
+		double EVABeaconTimeFactor_ = 2;
+
+		double EVABeaconFactor_ = 3;
+
+		/** flag to activate the advanced IDS attack rules*/
+		boolean advancedIDSRules_ = false;
+
+		int fake = 0;
+
+		int noFake = 0;
+
+		String[] idsData_ = {"HUANG_EEBL", "HUANG_PCN", "PCN_FORWARD", "HUANG_RHCN", "HUANG_EVA_FORWARD", "EVA_EMERGENCY_ID"};
+
+		boolean logIDS_ = true;
+	}
+
 	/** counter to fill the array */
 	private int arrayCounter = -1;
 	
-	private static String[] activeRules_;
-	
 	private Vehicle sourceVehicle_;
 	private long ID_;
 	private long monitoredVehicleID_;
@@ -73,41 +127,20 @@ public class IDSProcessor{
 	private Street street_;
 	//private boolean direction_;
 	private int directionAsNumber_;
-	private static int[] falsePositiv = new int[6];
-	private static int[] falseNegativ = new int[6];
-	private static int[] truePositiv = new int[6];
-	private static int[] trueNegativ = new int[6];
 	//private KnownVehicle knownVehicle_;
 	//private boolean createBlocking_;
 	private Vehicle penaltySourceVehicle_;
 	
-	private static int PCNDistance_ = 625;
-	private static double PCNFORWARDThreshold_ = 0.5;
-	private static double RHCNThreshold_ = 0.5;
-	private static double EEBLThreshold_ = 0.5;
-	private static double EVAFORWARDThreshold_ = 0.5;
-	private static double EVABeaconTimeFactor_ = 2;
-	private static double EVABeaconFactor_ = 3;
-
-	/** flag to activate the advanced IDS attack rules*/
-	private static boolean advancedIDSRules_ = false;
-	
+
 	private boolean ready_ = false;
 	
 	private boolean deleteProcessor_ = false;
 	
-	public static int fake = 0;
-	public static int noFake = 0;
-	
 	/** a flag to make no logging (0), compact logging (1) and large logging (2) */
 	private int loggingType_ = 1;
 	
 	/** A JList to save all available IDS rules **/
 	//private static String[] idsData_ = {"HUANG_EEBL", "HUANG_PCN", "HUANG_RHCN", "HUANG_RFN", "HUANG_SVA", "HUANG_CCW", "HUANG_CVW", "HUANG_CL", "HUANG_EVA"};
-	private static String[] idsData_ = {"HUANG_EEBL", "HUANG_PCN", "PCN_FORWARD", "HUANG_RHCN", "HUANG_EVA_FORWARD", "EVA_EMERGENCY_ID"};
-	
-	private static boolean logIDS_ = true;
-	
 	private int instantIDS_ = -1;
 	
 	/** the vehicle this structure belongs to */
@@ -170,6 +203,76 @@ public class IDSProcessor{
 		if(loggingType_ > 1)writeLog(sourceVehicle_.getID() +  ":Monitoring:" + monitoredVehicleID_ + ":for:" + rule_);
 	}
 
+	/**
+	 * Creates an IDS processor from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public IDSProcessor(CheckpointReader in) throws IOException{
+		lastUpdate_ = in.readInt();
+		savedX_ = in.readInts();
+		savedY_ = in.readInts();
+		savedSpeed_ = in.readDoubles();
+		savedLastUpdate_ = in.readInts();
+		arrayCounter = in.readInt();
+		sourceVehicle_ = in.readVehicle();
+		ID_ = in.readLong();
+		monitoredVehicleID_ = in.readLong();
+		rule_ = in.readString();
+		lane_ = in.readInts();
+		x_ = in.readInts();
+		y_ = in.readInts();
+		speed_ = in.readDoubles();
+		AMOUNT_OF_BEACONS_LOGGED = in.readInt();
+		isFake_ = in.readBoolean();
+		street_ = in.readStreet();
+		directionAsNumber_ = in.readInt();
+		penaltySourceVehicle_ = in.readVehicle();
+		ready_ = in.readBoolean();
+		deleteProcessor_ = in.readBoolean();
+		loggingType_ = in.readInt();
+		instantIDS_ = in.readInt();
+		vehicle_ = in.readVehicle();
+		classicMode_ = in.readBoolean();
+	}
+	
+	/**
+	 * Writes this IDS processor to a checkpoint. The links to the other entries of the list are not written.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a reference could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(lastUpdate_);
+		out.writeInts(savedX_);
+		out.writeInts(savedY_);
+		out.writeDoubles(savedSpeed_);
+		out.writeInts(savedLastUpdate_);
+		out.writeInt(arrayCounter);
+		out.writeVehicle(sourceVehicle_);
+		out.writeLong(ID_);
+		out.writeLong(monitoredVehicleID_);
+		out.writeString(rule_);
+		out.writeInts(lane_);
+		out.writeInts(x_);
+		out.writeInts(y_);
+		out.writeDoubles(speed_);
+		out.writeInt(AMOUNT_OF_BEACONS_LOGGED);
+		out.writeBoolean(isFake_);
+		out.writeStreet(street_);
+		out.writeInt(directionAsNumber_);
+		out.writeVehicle(penaltySourceVehicle_);
+		out.writeBoolean(ready_);
+		out.writeBoolean(deleteProcessor_);
+		out.writeInt(loggingType_);
+		out.writeInt(instantIDS_);
+		out.writeVehicle(vehicle_);
+		out.writeBoolean(classicMode_);
+	}
+	
 	/**
 	 *  test the persistent contact the vehicle had
 	 */
@@ -177,14 +280,14 @@ public class IDSProcessor{
 		int beaconInterval = Vehicle.getBeaconInterval();
 		int counter = 0;
 		int savedLastUpdate = savedLastUpdate_[0];
-		for(int i = 1; i <  amountOfSavedBeacons_; i++){
+		for(int i = 1; i <  state().amountOfSavedBeacons_; i++){
 			if((savedLastUpdate_[i] - savedLastUpdate) == beaconInterval){
 				counter++;
 			}
 			savedLastUpdate = savedLastUpdate_[i];
 
 		}
-		if((savedLastUpdate_[0] - savedLastUpdate_[amountOfSavedBeacons_-1]) == beaconInterval){
+		if((savedLastUpdate_[0] - savedLastUpdate_[state().amountOfSavedBeacons_-1]) == beaconInterval){
 			counter++;
 		}
 		return counter;
@@ -218,6 +321,7 @@ public class IDSProcessor{
 
 	
 	public String checkIDS(){
+		ContextState state = state();
 		//can be deleted after that
 		lastUpdate_ = 0;
 		
@@ -228,7 +332,7 @@ public class IDSProcessor{
 		if(lastLoggedBeacon == 0 && !rule_.equals("EVA_EMERGENCY_ID")) return "";
 		
 		boolean quit = true;
-		for(int j = 0; j < activeRules_.length;j++)if(activeRules_[j].equals(rule_)){
+		for(int j = 0; j < state.activeRules_.length;j++)if(state.activeRules_[j].equals(rule_)){
 			quit = false;
 		}
 		if(quit) return "";
@@ -257,26 +361,26 @@ public class IDSProcessor{
 			
 			
 			distance = Math.sqrt(dx * dx + dy * dy);
-			if(advancedIDSRules_){
+			if(state.advancedIDSRules_){
 				//get the time standing in beacon amount
 				int beaconsWithZeroSpeed = 0;
 				//we do not need the last one
 				for(int i = 0; i < AMOUNT_OF_BEACONS_LOGGED-1; i++) if(speed_[i] == 0) beaconsWithZeroSpeed++;
 				int[] timeStanding = vehicle_.getKnownVehiclesList().hasBeenSeenWaitingFor(monitoredVehicleID_);
-				if((timeStanding[0] - beaconsWithZeroSpeed) < (timeStanding[1] - (AMOUNT_OF_BEACONS_LOGGED-1)) || (timeStanding[0] == 0 && PCNDistance_ < distance)){
-					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNDistance_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+				if((timeStanding[0] - beaconsWithZeroSpeed) < (timeStanding[1] - (AMOUNT_OF_BEACONS_LOGGED-1)) || (timeStanding[0] == 0 && state.PCNDistance_ < distance)){
+					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNDistance_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 			
-					if(isFake_) truePositiv[0]++;
-					else falsePositiv[0]++;
+					if(isFake_) state.truePositiv[0]++;
+					else state.falsePositiv[0]++;
 					
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 					return rule_;
 				}
 				else{
-					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNDistance_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1]  + ":" + beaconsWithZeroSpeed);
+					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNDistance_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1]  + ":" + beaconsWithZeroSpeed);
 					
-					if(!isFake_) trueNegativ[0]++;
-					else  falseNegativ[0]++;
+					if(!isFake_) state.trueNegativ[0]++;
+					else  state.falseNegativ[0]++;
 					
 					Street[] routeStreets = vehicle_.getRouteStreets();
 					boolean[] routeDirections = vehicle_.getRouteDirections();
@@ -308,7 +412,7 @@ public class IDSProcessor{
 						long tmp1 = street_.getStartNode().getX() - x_[0];
 						long tmp2 = street_.getStartNode().getY() - y_[0];
 						for(int i = 1; i <= street_.getLanesCount(); ++i){
-							//if(createBlocking_)sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+							//if(createBlocking_)sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 						}	
 					}
 					*/
@@ -321,22 +425,22 @@ public class IDSProcessor{
 			else{
 				
 
-				if((PCNDistance_ < distance)){
+				if((state.PCNDistance_ < distance)){
 
 
-					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNDistance_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNDistance_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
 			
-					if(isFake_) truePositiv[0]++;
-					else falsePositiv[0]++;
+					if(isFake_) state.truePositiv[0]++;
+					else state.falsePositiv[0]++;
 					
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 					return rule_;
 				}
 				else{
-					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNDistance_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));
+					if(loggingType_ > 0)writeLog("Type:HUANG_PCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNDistance_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));
 					
-					if(!isFake_) trueNegativ[0]++;
-					else  falseNegativ[0]++;
+					if(!isFake_) state.trueNegativ[0]++;
+					else  state.falseNegativ[0]++;
 					
 					
 					Street[] routeStreets = vehicle_.getRouteStreets();
@@ -366,7 +470,7 @@ public class IDSProcessor{
 						long tmp1 = street_.getStartNode().getX() - x_[0];
 						long tmp2 = street_.getStartNode().getY() - y_[0];
 						for(int i = 1; i <= street_.getLanesCount(); ++i){
-							//if(createBlocking_)sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+							//if(createBlocking_)sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 						}	
 					}
 					*/
@@ -393,11 +497,11 @@ public class IDSProcessor{
 			double ratio = 0;
 			if(speed_[0] != 0) ratio = (speed_[lastLoggedBeacon-1]/speed_[0]);
 			
-			if(ratio > PCNFORWARDThreshold_){
-				if(loggingType_ > 0)writeLog("Type:PCN_FOWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
+			if(ratio > state.PCNFORWARDThreshold_){
+				if(loggingType_ > 0)writeLog("Type:PCN_FOWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
 				
-				if(isFake_) truePositiv[1]++;
-				else falsePositiv[1]++;
+				if(isFake_) state.truePositiv[1]++;
+				else state.falsePositiv[1]++;
 				
 				//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
@@ -405,17 +509,17 @@ public class IDSProcessor{
 				return rule_;
 			}
 			else{
-				if(loggingType_ > 0)writeLog("Type:PCN_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + PCNFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));
+				if(loggingType_ > 0)writeLog("Type:PCN_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.PCNFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));
 				
-				if(!isFake_) trueNegativ[1]++;
-				else falseNegativ[1]++;
+				if(!isFake_) state.trueNegativ[1]++;
+				else state.falseNegativ[1]++;
 				
 				sourceVehicle_.calculateRoute(true, true);
 				/*
 				long tmp1 = street_.getStartNode().getX() - x_[0];
 				long tmp2 = street_.getStartNode().getY() - y_[0];
 				for(int i = 1; i <= street_.getLanesCount(); ++i){
-					sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+					sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 
 				}
 				*/
@@ -446,7 +550,7 @@ public class IDSProcessor{
 			
 			//if((advancedAttackRules_ && speed_[0] == 0 && lastSpeedValues == 0) || ratio > RHCNThreshold_){
 			
-			if(advancedIDSRules_){
+			if(state.advancedIDSRules_){
 				double[] advancedSpeedData = vehicle_.getKnownVehiclesList().getSpecificSpeedDataSet(monitoredVehicleID_, 7);
 				/*
 				if((vehicle_.getID() + "").equals("234092945793091839") && (monitoredVehicleID_ + "").equals("2799064286177330538")){
@@ -465,25 +569,25 @@ public class IDSProcessor{
 				//int editLastValue = 0;
 				//if(speed_[lastLoggedBeacon-1] == 0) editLastValue = 1;
 				//if(((timeStanding[0] - beaconsWithZeroSpeed + editLastValue) > 0) || (ratio > RHCNThreshold_)){
-				if(speed_[0] == 0 || (speed_[0] > 400 && ratio > RHCNThreshold_)){
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+				if(speed_[0] == 0 || (speed_[0] > 400 && ratio > state.RHCNThreshold_)){
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(isFake_) truePositiv[2]++;
-					else falsePositiv[2]++;
+					if(isFake_) state.truePositiv[2]++;
+					else state.falsePositiv[2]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				}
 				else{
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(!isFake_) trueNegativ[2]++;
-					else falseNegativ[2]++;
+					if(!isFake_) state.trueNegativ[2]++;
+					else state.falseNegativ[2]++;
 					/*
 					long tmp1 = street_.getStartNode().getX() - x_[0];
 					long tmp2 = street_.getStartNode().getY() - y_[0];
 					for(int i = 1; i <= street_.getLanesCount(); ++i){
-						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 
 					}
 					*/
@@ -498,25 +602,25 @@ public class IDSProcessor{
 				
 				
 				distance = Math.sqrt(dx * dx + dy * dy);
-				if(distance > RHCNThreshold_){
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+				if(distance > state.RHCNThreshold_){
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(isFake_) truePositiv[2]++;
-					else falsePositiv[2]++;
+					if(isFake_) state.truePositiv[2]++;
+					else state.falsePositiv[2]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				}
 				else{
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(!isFake_) trueNegativ[2]++;
-					else falseNegativ[2]++;
+					if(!isFake_) state.trueNegativ[2]++;
+					else state.falseNegativ[2]++;
 					/*
 					long tmp1 = street_.getStartNode().getX() - x_[0];
 					long tmp2 = street_.getStartNode().getY() - y_[0];
 					for(int i = 1; i <= street_.getLanesCount(); ++i){
-						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 
 					}
 					*/
@@ -548,25 +652,25 @@ public class IDSProcessor{
 				
 				
 				if(speed_[0] != 0) ratio = (speed_[lastLoggedBeacon-1]/speed_[0]);
-				if(speed_[0] == 0 || (speed_[0] > 400 && ratio > RHCNThreshold_)){
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + ratio + ":braking:" + amountOfBrakesSave + ":lastLoggedBeacon:" + lastLoggedBeacon + ":startSpeed:" + speed_[0] + ":lastSpeed:" + speed_[lastLoggedBeacon-1] + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+				if(speed_[0] == 0 || (speed_[0] > 400 && ratio > state.RHCNThreshold_)){
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + ratio + ":braking:" + amountOfBrakesSave + ":lastLoggedBeacon:" + lastLoggedBeacon + ":startSpeed:" + speed_[0] + ":lastSpeed:" + speed_[lastLoggedBeacon-1] + ":Attack:" + true + ":Correct:" + (isFake_==true)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(isFake_) truePositiv[2]++;
-					else falsePositiv[2]++;
+					if(isFake_) state.truePositiv[2]++;
+					else state.falsePositiv[2]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				}
 				else{
-					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + RHCNThreshold_ + ":Distance:" + ratio + ":braking:" + amountOfBrakesSave + ":lastLoggedBeacon:" + lastLoggedBeacon + ":startSpeed:" + speed_[0] +  ":lastSpeed:" + speed_[lastLoggedBeacon-1] + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
+					if(loggingType_ > 0)writeLog("Type:HUANG_RHCN:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.RHCNThreshold_ + ":Distance:" + ratio + ":braking:" + amountOfBrakesSave + ":lastLoggedBeacon:" + lastLoggedBeacon + ":startSpeed:" + speed_[0] +  ":lastSpeed:" + speed_[lastLoggedBeacon-1] + ":Attack:" + false + ":Correct:" + (isFake_==false)  + timeStanding[0] + ":" + timeStanding[1] + ":" + beaconsWithZeroSpeed);
 					
-					if(!isFake_) trueNegativ[2]++;
-					else falseNegativ[2]++;
+					if(!isFake_) state.trueNegativ[2]++;
+					else state.falseNegativ[2]++;
 					/*
 					long tmp1 = street_.getStartNode().getX() - x_[0];
 					long tmp2 = street_.getStartNode().getY() - y_[0];
 					for(int i = 1; i <= street_.getLanesCount(); ++i){
-						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (Renderer.getInstance().getTimePassed() + 10000)));
+						sourceVehicle_.getTmpBlockings().add(new BlockingObject(i, direction_, street_, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), rule_, (EngineContext.getTimePassed() + 10000)));
 
 					}
 					*/
@@ -597,17 +701,17 @@ public class IDSProcessor{
 				
 				
 				distance = Math.sqrt(dx * dx + dy * dy);
-				if(distance > EVAFORWARDThreshold_){	
-					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EVAFORWARDThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
-					if(isFake_) truePositiv[3]++;
-					else falsePositiv[3]++;
+				if(distance > state.EVAFORWARDThreshold_){	
+					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EVAFORWARDThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(isFake_) state.truePositiv[3]++;
+					else state.falsePositiv[3]++;
 				//	sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 				}
 				else{
 					if(!sourceVehicle_.isDrivingOnTheSide_() && sourceVehicle_.getKnownPenalties().hasToMoveOutOfTheWay(penaltySourceVehicle_))sourceVehicle_.setMoveOutOfTheWay_(true);
-					if(!isFake_) trueNegativ[3]++;
-					else falseNegativ[3]++;
-					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EVAFORWARDThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));
+					if(!isFake_) state.trueNegativ[3]++;
+					else state.falseNegativ[3]++;
+					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EVAFORWARDThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));
 				
 					if(!sourceVehicle_.isDrivingOnTheSide_() && hasToMoveOutOfTheWay(penaltySourceVehicle_)){
 						sourceVehicle_.setMoveOutOfTheWay_(true);
@@ -635,17 +739,17 @@ public class IDSProcessor{
 				
 				if(speed_[0] != 0) ratio = (speed_[lastLoggedBeacon-1]/speed_[0]);
 
-				if(ratio > EVAFORWARDThreshold_){	
-					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EVAFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
-					if(isFake_) truePositiv[3]++;
-					else falsePositiv[3]++;
+				if(ratio > state.EVAFORWARDThreshold_){	
+					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EVAFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(isFake_) state.truePositiv[3]++;
+					else state.falsePositiv[3]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 				}
 				else{
 					if(!sourceVehicle_.isDrivingOnTheSide_() && sourceVehicle_.getKnownPenalties().hasToMoveOutOfTheWay(penaltySourceVehicle_))sourceVehicle_.setMoveOutOfTheWay_(true);
-					if(!isFake_) trueNegativ[3]++;
-					else falseNegativ[3]++;
-					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EVAFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));
+					if(!isFake_) state.trueNegativ[3]++;
+					else state.falseNegativ[3]++;
+					if(loggingType_ > 0)writeLog("Type:HUANG_EVA_FORWARD:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EVAFORWARDThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));
 				
 					if(!sourceVehicle_.isDrivingOnTheSide_() && hasToMoveOutOfTheWay(penaltySourceVehicle_)){
 						sourceVehicle_.setMoveOutOfTheWay_(true);
@@ -667,8 +771,8 @@ public class IDSProcessor{
 			
 				//double thresholdTime = ((double)(beaconAmount * Vehicle.getBeaconInterval())/EVABeaconTimeFactor_);
 
-				double thresholdTime = ((double)(beaconAmount * Vehicle.getBeaconInterval())/EVABeaconFactor_);
-				double thresholdBeacon = ((double)beaconAmount/EVABeaconFactor_);
+				double thresholdTime = ((double)(beaconAmount * Vehicle.getBeaconInterval())/state.EVABeaconFactor_);
+				double thresholdBeacon = ((double)beaconAmount/state.EVABeaconFactor_);
 				
 				//we have no neighbors and therefore, have to rely on our own data
 				if(response[2] == 0){
@@ -679,8 +783,8 @@ public class IDSProcessor{
 
 					if((thresholdBeacon > response[1]) && thresholdTime > response[0]){
 
-						if(isFake_) truePositiv[4]++;
-						else if(!isFake_) falsePositiv[4]++;
+						if(isFake_) state.truePositiv[4]++;
+						else if(!isFake_) state.falsePositiv[4]++;
 						try{
 							if(loggingType_ > 0)writeLog("Type:EVA_EMERGENCY_ID:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Beacon-Threshold:" + thresholdBeacon + ":Beaconvalue:" +  response[1] + ":Time-Threshold:" + thresholdTime + ":Timevalue:" +  response[0]  + "Neighbours:" + response[2] + ":Attack:" + true + ":Correct:" + (isFake_==true));
 						}
@@ -691,8 +795,8 @@ public class IDSProcessor{
 					}
 					else{
 						if(loggingType_ > 0)writeLog("Type:EVA_EMERGENCY_ID:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Beacon-Threshold:" + thresholdBeacon + ":Beaconvalue:" +  response[1] + ":Time-Threshold:" + thresholdTime + ":Timevalue:" +  response[0]  + "Neighbours:" + response[2] + ":Attack:" + false + ":Correct:" + (isFake_==false));
-						if(!isFake_) trueNegativ[4]++;
-						else if(isFake_) falseNegativ[4]++;
+						if(!isFake_) state.trueNegativ[4]++;
+						else if(isFake_) state.falseNegativ[4]++;
 						
 						
 						if(!sourceVehicle_.isDrivingOnTheSide_() && sourceVehicle_.getKnownPenalties().hasToMoveOutOfTheWay(penaltySourceVehicle_)){
@@ -718,7 +822,7 @@ public class IDSProcessor{
 			if(speed_[0] != 0) ratio = (speed_[lastLoggedBeacon-1]/speed_[0]);
 			
 			
-			if(advancedIDSRules_){
+			if(state.advancedIDSRules_){
 				
 				double[] advancedSpeedData = vehicle_.getKnownVehiclesList().getSpecificSpeedDataSet(monitoredVehicleID_, 12);
 				
@@ -728,20 +832,20 @@ public class IDSProcessor{
 				
 				
 				
-				if(useRule && advancedSpeedData[0] == 0 || ratio > EEBLThreshold_){
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
-					if(isFake_) truePositiv[5]++;
-					else if(!isFake_) falsePositiv[5]++;
+				if(useRule && advancedSpeedData[0] == 0 || ratio > state.EEBLThreshold_){
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(isFake_) state.truePositiv[5]++;
+					else if(!isFake_) state.falsePositiv[5]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				
 				}
 				else {
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));	
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));	
 					
-					if(!isFake_) trueNegativ[5]++;
-					else if(isFake_) falseNegativ[5]++;
+					if(!isFake_) state.trueNegativ[5]++;
+					else if(isFake_) state.falseNegativ[5]++;
 					
 					//long tmp1 = street_.getStartNode().getX() - x_[0];
 					//long tmp2 = street_.getStartNode().getY() - y_[0]; 
@@ -752,10 +856,10 @@ public class IDSProcessor{
 					if(direction_) direction = 1; //$NON-NLS-1$
 					else direction = -1; //$NON-NLS-1$
 					try{
-						StartBlocking start = new StartBlocking(Renderer.getInstance().getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
+						StartBlocking start = new StartBlocking(EngineContext.getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
 						if(!EventList.getInstance().eventAlreadyExists(start)){
 							EventList.getInstance().addEvent(start); //$NON-NLS-1$	
-							EventList.getInstance().addEvent(new StopBlocking(Renderer.getInstance().getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
+							EventList.getInstance().addEvent(new StopBlocking(EngineContext.getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
 						}
 
 					}
@@ -775,20 +879,20 @@ public class IDSProcessor{
 				
 				
 				distance = Math.sqrt(dx * dx + dy * dy);
-				if(distance > EEBLThreshold_){
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
-					if(isFake_) truePositiv[5]++;
-					else if(!isFake_) falsePositiv[5]++;
+				if(distance > state.EEBLThreshold_){
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + distance + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(isFake_) state.truePositiv[5]++;
+					else if(!isFake_) state.falsePositiv[5]++;
 					//sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				
 				}
 				else {
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));	
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + distance + ":Attack:" + false + ":Correct:" + (isFake_==false));	
 					
-					if(!isFake_) trueNegativ[5]++;
-					else if(isFake_) falseNegativ[5]++;
+					if(!isFake_) state.trueNegativ[5]++;
+					else if(isFake_) state.falseNegativ[5]++;
 					
 					//long tmp1 = street_.getStartNode().getX() - x_[0];
 					//long tmp2 = street_.getStartNode().getY() - y_[0]; 
@@ -799,10 +903,10 @@ public class IDSProcessor{
 					if(direction_) direction = 1; //$NON-NLS-1$
 					else direction = -1; //$NON-NLS-1$
 					try{
-						StartBlocking start = new StartBlocking(Renderer.getInstance().getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
+						StartBlocking start = new StartBlocking(EngineContext.getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
 						if(!EventList.getInstance().eventAlreadyExists(start)){
 							EventList.getInstance().addEvent(start); //$NON-NLS-1$	
-							EventList.getInstance().addEvent(new StopBlocking(Renderer.getInstance().getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
+							EventList.getInstance().addEvent(new StopBlocking(EngineContext.getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
 						}
 
 					}
@@ -816,20 +920,20 @@ public class IDSProcessor{
 				}
 			}
 			else{
-				if(ratio > EEBLThreshold_){
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
-					if(isFake_) truePositiv[5]++;
-					else if(!isFake_) falsePositiv[5]++;
+				if(ratio > state.EEBLThreshold_){
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + true + ":Correct:" + (isFake_==true));
+					if(isFake_) state.truePositiv[5]++;
+					else if(!isFake_) state.falsePositiv[5]++;
 				//	sourceVehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle_, monitoredVehicleID_, sourceX_, sourceY_, speed_[0], true);
 
 					return rule_;
 				
 				}
 				else {
-					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));	
+					if(loggingType_ > 0)writeLog("Type:HUANG_EEBL:Source:" + sourceVehicle_.getID() +  ":Monitored:" + monitoredVehicleID_ + ":Threshold:" + state.EEBLThreshold_ + ":Distance:" + ratio + ":Attack:" + false + ":Correct:" + (isFake_==false));	
 					
-					if(!isFake_) trueNegativ[5]++;
-					else if(isFake_) falseNegativ[5]++;
+					if(!isFake_) state.trueNegativ[5]++;
+					else if(isFake_) state.falseNegativ[5]++;
 					
 					//long tmp1 = street_.getStartNode().getX() - x_[0];
 					//long tmp2 = street_.getStartNode().getY() - y_[0]; 
@@ -840,10 +944,10 @@ public class IDSProcessor{
 					if(direction_) direction = 1; //$NON-NLS-1$
 					else direction = -1; //$NON-NLS-1$
 					try{
-						StartBlocking start = new StartBlocking(Renderer.getInstance().getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
+						StartBlocking start = new StartBlocking(EngineContext.getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
 						if(!EventList.getInstance().eventAlreadyExists(start)){
 							EventList.getInstance().addEvent(start); //$NON-NLS-1$	
-							EventList.getInstance().addEvent(new StopBlocking(Renderer.getInstance().getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
+							EventList.getInstance().addEvent(new StopBlocking(EngineContext.getTimePassed() + 3000, x_[0], y_[0], start)); //$NON-NLS-1$
 						}
 
 					}
@@ -870,7 +974,7 @@ public class IDSProcessor{
 	 */
 	public static boolean ruleIsActive(String rule){
 		boolean returnValue = false;
-		for(int i = 0; i < activeRules_.length;i++) if(activeRules_[i].equals(rule)) returnValue = true;
+		for(int i = 0; i < state().activeRules_.length;i++) if(state().activeRules_[i].equals(rule)) returnValue = true;
 		return returnValue;
 	}
 
@@ -878,13 +982,13 @@ public class IDSProcessor{
 	 * reports stats
 	 */
 	public static String getReport(){
-		return "\nfake: "  + fake + "\nnofake: " + noFake + 	"\n:TP:TN:FP:FN:\n" + "PCN:	:" + truePositiv[0] + ":" + trueNegativ[0] + ":" + falsePositiv[0] + ":" + falseNegativ[0] + "\n" + "PCN_FOWARD:	:" + truePositiv[1] + ":" + trueNegativ[1] + ":" + falsePositiv[1] + ":" + falseNegativ[1] + "\n" +"RHCN:	" + truePositiv[2] + ":" + trueNegativ[2] + ":" + falsePositiv[2] + ":" + falseNegativ[2] + "\n"+"EVA FORWARD	:" + truePositiv[3] + ":" + trueNegativ[3] + ":" + falsePositiv[3] + ":" + falseNegativ[3] + "\n"+"EVA	:" + truePositiv[4] + ":" + trueNegativ[4] + ":" + falsePositiv[4] + ":" + falseNegativ[4] + "\n"+"EEBL	:" + truePositiv[5] + ":" + trueNegativ[5] + ":" + falsePositiv[5] + ":" + falseNegativ[5] + "\n";
+		return "\nfake: "  + state().fake + "\nnofake: " + state().noFake + 	"\n:TP:TN:FP:FN:\n" + "PCN:	:" + state().truePositiv[0] + ":" + state().trueNegativ[0] + ":" + state().falsePositiv[0] + ":" + state().falseNegativ[0] + "\n" + "PCN_FOWARD:	:" + state().truePositiv[1] + ":" + state().trueNegativ[1] + ":" + state().falsePositiv[1] + ":" + state().falseNegativ[1] + "\n" +"RHCN:	" + state().truePositiv[2] + ":" + state().trueNegativ[2] + ":" + state().falsePositiv[2] + ":" + state().falseNegativ[2] + "\n"+"EVA FORWARD	:" + state().truePositiv[3] + ":" + state().trueNegativ[3] + ":" + state().falsePositiv[3] + ":" + state().falseNegativ[3] + "\n"+"EVA	:" + state().truePositiv[4] + ":" + state().trueNegativ[4] + ":" + state().falsePositiv[4] + ":" + state().falseNegativ[4] + "\n"+"EEBL	:" + state().truePositiv[5] + ":" + state().trueNegativ[5] + ":" + state().falsePositiv[5] + ":" + state().falseNegativ[5] + "\n";
 	} 
 	
 	
 	public void writeLog(String s){
 		try{
-			if(logIDS_)IDSLogWriter.log(s);
+			if(state().logIDS_)IDSLogWriter.log(s);
 		}
 		catch(Exception e){
 			
@@ -1035,7 +1139,7 @@ public class IDSProcessor{
 	 * @return the aMOUNT_OF_SAVED_BEACONS
 	 */
 	public static int getAmountOfSavedBeacons_() {
-		return amountOfSavedBeacons_;
+		return state().amountOfSavedBeacons_;
 	}
 
 
@@ -1043,7 +1147,7 @@ public class IDSProcessor{
 	 * @param aMOUNT_OF_SAVED_BEACONS the aMOUNT_OF_SAVED_BEACONS to set
 	 */
 	public static void setAmountOfSavedBeacons(int amountOfSavedBeacons) {
-		amountOfSavedBeacons_ = amountOfSavedBeacons;
+		state().amountOfSavedBeacons_ = amountOfSavedBeacons;
 	}
 
 
@@ -1080,98 +1184,98 @@ public class IDSProcessor{
 	 * @return the idsData_
 	 */
 	public static String[] getIdsData_() {
-		return idsData_;
+		return state().idsData_;
 	}
 
 	/**
 	 * @param idsData_ the idsData_ to set
 	 */
 	public static void setIdsData_(String[] idsData_) {
-		IDSProcessor.idsData_ = idsData_;
+		state().idsData_ = idsData_;
 	}
 
 	/**
 	 * @return the logIDS_
 	 */
 	public static boolean isLogIDS_() {
-		return logIDS_;
+		return state().logIDS_;
 	}
 
 	/**
 	 * @param logIDS_ the logIDS_ to set
 	 */
 	public static void setLogIDS_(boolean logIDS_) {
-		IDSProcessor.logIDS_ = logIDS_;
+		state().logIDS_ = logIDS_;
 	}
 
 	/**
 	 * @return the pCNDistance_
 	 */
 	public static int getPCNDistance_() {
-		return PCNDistance_;
+		return state().PCNDistance_;
 	}
 
 	/**
 	 * @param pCNDistance_ the pCNDistance_ to set
 	 */
 	public static void setPCNDistance_(int pCNDistance_) {
-		PCNDistance_ = pCNDistance_;
+		state().PCNDistance_ = pCNDistance_;
 	}
 
 	/**
 	 * @return the pCNFORWARDThreshold_
 	 */
 	public static double getPCNFORWARDThreshold_() {
-		return PCNFORWARDThreshold_;
+		return state().PCNFORWARDThreshold_;
 	}
 
 	/**
 	 * @param pCNFORWARDThreshold_ the pCNFORWARDThreshold_ to set
 	 */
 	public static void setPCNFORWARDThreshold_(double pCNFORWARDThreshold_) {
-		PCNFORWARDThreshold_ = pCNFORWARDThreshold_;
+		state().PCNFORWARDThreshold_ = pCNFORWARDThreshold_;
 	}
 
 	/**
 	 * @return the rHCNThreshold_
 	 */
 	public static double getRHCNThreshold_() {
-		return RHCNThreshold_;
+		return state().RHCNThreshold_;
 	}
 
 	/**
 	 * @param rHCNThreshold_ the rHCNThreshold_ to set
 	 */
 	public static void setRHCNThreshold_(double rHCNThreshold_) {
-		RHCNThreshold_ = rHCNThreshold_;
+		state().RHCNThreshold_ = rHCNThreshold_;
 	}
 
 	/**
 	 * @return the eEBLThreshold_
 	 */
 	public static double getEEBLThreshold_() {
-		return EEBLThreshold_;
+		return state().EEBLThreshold_;
 	}
 
 	/**
 	 * @param eEBLThreshold_ the eEBLThreshold_ to set
 	 */
 	public static void setEEBLThreshold_(double eEBLThreshold_) {
-		EEBLThreshold_ = eEBLThreshold_;
+		state().EEBLThreshold_ = eEBLThreshold_;
 	}
 
 	/**
 	 * @return the activeRules_
 	 */
 	public static String[] getActiveRules_() {
-		return activeRules_;
+		return state().activeRules_;
 	}
 
 	/**
 	 * @param activeRules_ the activeRules_ to set
 	 */
 	public static void setActiveRules_(String[] activeRules_) {
-		IDSProcessor.activeRules_ = activeRules_;
+		state().activeRules_ = activeRules_;
 	}
 
 	/**
@@ -1196,11 +1300,11 @@ public class IDSProcessor{
 	}
 
 	public static double getEVAFORWARDThreshold_() {
-		return EVAFORWARDThreshold_;
+		return state().EVAFORWARDThreshold_;
 	}
 
 	public static void setEVAFORWARDThreshold_(double eVAFORWARDThreshold_) {
-		EVAFORWARDThreshold_ = eVAFORWARDThreshold_;
+		state().EVAFORWARDThreshold_ = eVAFORWARDThreshold_;
 	}
 
 	/**
@@ -1225,30 +1329,36 @@ public class IDSProcessor{
 
 
 	public static double getEVABeaconTimeFactor_() {
-		return EVABeaconTimeFactor_;
+		return state().EVABeaconTimeFactor_;
 	}
 
 	public static void setEVABeaconTimeFactor_(double eVABeaconTimeFactor_) {
-		EVABeaconTimeFactor_ = eVABeaconTimeFactor_;
+		state().EVABeaconTimeFactor_ = eVABeaconTimeFactor_;
 	}
 
 	public static double getEVABeaconFactor_() {
-		return EVABeaconFactor_;
+		return state().EVABeaconFactor_;
 	}
 
 	public static void setEVABeaconFactor_(double eVABeaconFactor_) {
-		EVABeaconFactor_ = eVABeaconFactor_;
+		state().EVABeaconFactor_ = eVABeaconFactor_;
 	}
 
 
 	public static boolean isAdvancedIDSRules_() {
-		return advancedIDSRules_;
+		return state().advancedIDSRules_;
 	}
 
 	public static void setAdvancedIDSRules_(boolean advancedIDSRules_) {
-		IDSProcessor.advancedIDSRules_ = advancedIDSRules_;
+		state().advancedIDSRules_ = advancedIDSRules_;
 	}
 
-
-
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -17,7 +17,14 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import vanetsim.map.Street;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * A list of all known vehicles which was discovered through beacons. In contrast to the KnownPenalties-
@@ -37,9 +44,22 @@ public class IDSProcessorList{
 	/** How many hash buckets will be used. Increase if you expect lots of known vehicles! */
 	private static final int HASH_SIZE = 32;
 	
-	/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
-	private static int timePassed_ = 0;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(IDSProcessorList.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all lists of IDS processors of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
+		int timePassed_ = 0;
+	}
+
 	/** The array with all heads of the linked lists */
 	private IDSProcessor[] head_ = new IDSProcessor[HASH_SIZE];
 	
@@ -77,7 +97,7 @@ public class IDSProcessorList{
 		IDSProcessor next = head_[hash];
 		while(next != null){
 			if(next.getMonitoredVehicleID_() == ID){	// update of entry possible
-				next.addBeacon(lane, x, y, speed, timePassed_);
+				next.addBeacon(lane, x, y, speed, state().timePassed_);
 				//break; <-- there can be more than one ids processor for a vehicle id!
 			}
 			next = next.getNext();
@@ -115,7 +135,7 @@ public class IDSProcessorList{
 			next = next.getNext();	// still works as we didn't change it. Garbage Collector will remove it now.
 		}
 
-		next = new IDSProcessor(x, y, street, direction, vehicle, ID, monitoredVehicleID, penaltySourceVehicle, penaltyType, isFake, emergencyVehicle, createBlocking, timePassed_, vehicle_);
+		next = new IDSProcessor(x, y, street, direction, vehicle, ID, monitoredVehicleID, penaltySourceVehicle, penaltyType, isFake, emergencyVehicle, createBlocking, state().timePassed_, vehicle_);
 
 		next.setNext(head_[hash]);
 		next.setPrevious(null);
@@ -135,7 +155,7 @@ public class IDSProcessorList{
 		IDSProcessor next = head_[hash];
 
 		
-		next = new IDSProcessor(x, y, street, direction, vehicle, ID, monitoredVehicleID, penaltySourceVehicle, penaltyType, isFake, emergencyVehicle, createBlocking, timePassed_, vehicle_);
+		next = new IDSProcessor(x, y, street, direction, vehicle, ID, monitoredVehicleID, penaltySourceVehicle, penaltyType, isFake, emergencyVehicle, createBlocking, state().timePassed_, vehicle_);
 		next.setNext(head_[hash]);
 		next.setPrevious(null);
 		if(head_[hash] != null) head_[hash].setPrevious(next);
@@ -154,7 +174,7 @@ public class IDSProcessorList{
 	 * sure that no other thread uses any function on this object at the same time!
 	 */
 	public void checkOutdatedProcessors(){
-		int timeout = timePassed_ - VALID_TIME;
+		int timeout = state().timePassed_ - VALID_TIME;
 		IDSProcessor next;
 		for(int i = 0; i < HASH_SIZE; ++i){
 			next = head_[i];
@@ -297,7 +317,51 @@ public class IDSProcessorList{
 	 * @param time the new time in milliseconds
 	 */
 	public static void setTimePassed(int time){
-		timePassed_ = time;
+		state().timePassed_ = time;
+	}
+	
+	/**
+	 * Writes this list to a checkpoint. The chains of the hash table are written in their order.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an entry could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(size_);
+		IDSProcessor next;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = 0;
+			for(next = head_[i]; next != null; next = next.getNext()) ++count;
+			out.writeInt(count);
+			for(next = head_[i]; next != null; next = next.getNext()) next.writeCheckpoint(out);
+		}
+	}
+	
+	/**
+	 * Replaces the content of this list with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		size_ = in.readInt();
+		head_ = new IDSProcessor[HASH_SIZE];
+		IDSProcessor next, previous;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = in.readInt();
+			previous = null;
+			for(int j = 0; j < count; ++j){
+				next = new IDSProcessor(in);
+				next.setPrevious(previous);
+				if(previous == null) head_[i] = next;
+				else previous.setNext(next);
+				previous = next;
+			}
+		}
 	}
 	
 	/**
@@ -309,4 +373,12 @@ public class IDSProcessorList{
 	}
 	
 
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -17,6 +17,13 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
+
 
 
 /**
@@ -60,15 +67,28 @@ public class KnownEventSource{
 	/** The updates of the eventsource */
 	private int updates_ = 0;
 	
-	/** Alert if spamming */
-	private static boolean spamCheck_ = false;
-	
-	/** Threshold what message amount is spamming */
-	private static int spammingThreshold_ = 3;
-	
-	/** Threshold in what time the messages where sent in average */
-	private static int spammingTimeThreshold_ = 240000;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownEventSource.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all known event sources of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** Alert if spamming */
+		boolean spamCheck_ = false;
+
+		/** Threshold what message amount is spamming */
+		int spammingThreshold_ = 3;
+
+		/** Threshold in what time the messages where sent in average */
+		int spammingTimeThreshold_ = 240000;
+	}
+
 	private int spamCounter_ = 0;
 	/**
 	 * Instantiates a new known vehicle.
@@ -95,6 +115,46 @@ public class KnownEventSource{
 	}
 
 	
+	/**
+	 * Creates a known event source from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public KnownEventSource(CheckpointReader in) throws IOException{
+		vehicle_ = in.readVehicle();
+		ID_ = in.readLong();
+		firstContact_ = in.readInt();
+		x_ = in.readInt();
+		y_ = in.readInt();
+		speed_ = in.readDouble();
+		lastUpdate_ = in.readInt();
+		fakeMessageCounter_ = in.readInt();
+		realMessageCounter_ = in.readInt();
+		updates_ = in.readInt();
+		spamCounter_ = in.readInt();
+	}
+	
+	/**
+	 * Writes this known event source to a checkpoint. The links to the other entries of the list are not written.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeVehicle(vehicle_);
+		out.writeLong(ID_);
+		out.writeInt(firstContact_);
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeDouble(speed_);
+		out.writeInt(lastUpdate_);
+		out.writeInt(fakeMessageCounter_);
+		out.writeInt(realMessageCounter_);
+		out.writeInt(updates_);
+		out.writeInt(spamCounter_);
+	}
+	
 	/**
 	 * Updates the x coordinate.
 	 * 
@@ -257,8 +317,8 @@ public class KnownEventSource{
 	public void setUpdates_(int updates) {
 		updates_ = updates;
 		
-		if(spamCheck_){
-			if(updates_ >= (spammingThreshold_-1) && (lastUpdate_ - firstContact_- (updates_*80)) <= updates_*spammingTimeThreshold_){
+		if(state().spamCheck_){
+			if(updates_ >= (state().spammingThreshold_-1) && (lastUpdate_ - firstContact_- (updates_*80)) <= updates_*state().spammingTimeThreshold_){
 				spamCounter_++;
 			}
 		}
@@ -276,32 +336,38 @@ public class KnownEventSource{
 
 
 	public static int getSpammingthreshold() {
-		return spammingThreshold_;
+		return state().spammingThreshold_;
 	}
 
 
 	public static int getSpammingtimethreshold() {
-		return spammingTimeThreshold_;
+		return state().spammingTimeThreshold_;
 	}
 
 	public static void setSpammingThreshold_(int spammingThreshold_) {
-		KnownEventSource.spammingThreshold_ = spammingThreshold_;
+		state().spammingThreshold_ = spammingThreshold_;
 	}
 	
 	public static void setSpammingTimeThreshold_(int spammingTimeThreshold_) {
-		KnownEventSource.spammingTimeThreshold_ = spammingTimeThreshold_;
+		state().spammingTimeThreshold_ = spammingTimeThreshold_;
 	}
 
 
 	public static boolean isSpamcheck() {
-		return spamCheck_;
+		return state().spamCheck_;
 	}
 
 
 	public static void setSpamCheck_(boolean spamCheck_) {
-		KnownEventSource.spamCheck_ = spamCheck_;
+		state().spamCheck_ = spamCheck_;
 	}
 
-
-
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -17,8 +17,15 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 
 import vanetsim.gui.helpers.GeneralLogWriter;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * ...
@@ -28,9 +35,22 @@ public class KnownEventSourcesList{
 	/** How many hash buckets will be used. Increase if you expect lots of known event sources! */
 	private static final int HASH_SIZE = 16;
 	
-	/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
-	private static int timePassed_ = 0;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownEventSourcesList.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all lists of known event sources of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
+		int timePassed_ = 0;
+	}
+
 	/** The array with all heads of the linked lists */
 	private KnownEventSource[] head_ = new KnownEventSource[HASH_SIZE];
 	
@@ -88,8 +108,8 @@ public class KnownEventSourcesList{
 				updatedSources++;
 				next.setX(x);
 				next.setY(y);
-				timeBetweenUpdates = timeBetweenUpdates + (timePassed_ - next.getLastUpdate());
-				next.setLastUpdate(timePassed_);
+				timeBetweenUpdates = timeBetweenUpdates + (state().timePassed_ - next.getLastUpdate());
+				next.setLastUpdate(state().timePassed_);
 				next.setSpeed(speed);		
 				next.setUpdates_(next.getUpdates_()+1);
 				if(isFake)next.setFakeMessageCounter_(next.getFakeMessageCounter_() + 1);
@@ -106,7 +126,7 @@ public class KnownEventSourcesList{
 			//GeneralLogWriter.log(timePassed_ + ":" + ID + ":create");
 			//if(timePassed_ > 59999)GeneralLogWriter.log(timePassed_ + ":" + ID + ":create");
 			createdSources++;
-			next = new KnownEventSource(vehicle, ID, x, y, speed, timePassed_, isFake);
+			next = new KnownEventSource(vehicle, ID, x, y, speed, state().timePassed_, isFake);
 			next.setNext(head_[hash]);
 			next.setPrevious(null);
 			if(head_[hash] != null) head_[hash].setPrevious(next);
@@ -143,7 +163,7 @@ public class KnownEventSourcesList{
 	 * @param time the new time in milliseconds
 	 */
 	public static void setTimePassed(int time){
-		timePassed_ = time;
+		state().timePassed_ = time;
 	}
 	
 
@@ -164,6 +184,58 @@ public class KnownEventSourcesList{
 		this.createdSources = createdSources;
 	}
 
+	/**
+	 * Writes this list to a checkpoint. The chains of the hash table are written in their order.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an entry could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(size_);
+		out.writeInt(updatedSources);
+		out.writeInt(createdSources);
+		out.writeInt(timeBetweenUpdates);
+		out.writeInt(spamCount);
+		KnownEventSource next;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = 0;
+			for(next = head_[i]; next != null; next = next.getNext()) ++count;
+			out.writeInt(count);
+			for(next = head_[i]; next != null; next = next.getNext()) next.writeCheckpoint(out);
+		}
+	}
+	
+	/**
+	 * Replaces the content of this list with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		size_ = in.readInt();
+		updatedSources = in.readInt();
+		createdSources = in.readInt();
+		timeBetweenUpdates = in.readInt();
+		spamCount = in.readInt();
+		head_ = new KnownEventSource[HASH_SIZE];
+		KnownEventSource next, previous;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = in.readInt();
+			previous = null;
+			for(int j = 0; j < count; ++j){
+				next = new KnownEventSource(in);
+				next.setPrevious(previous);
+				if(previous == null) head_[i] = next;
+				else previous.setNext(next);
+				previous = next;
+			}
+		}
+	}
+	
 	/**
 	 * Clears everything from this data structure.
 	 */
@@ -230,4 +302,13 @@ public class KnownEventSourcesList{
 	public void setSpamCount(int spamCount) {
 		this.spamCount = spamCount;
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
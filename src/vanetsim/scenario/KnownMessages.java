@@ -17,9 +17,13 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+
 
-import vanetsim.gui.Renderer;
 import vanetsim.scenario.messages.Message;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
 
 /**
  * This class stores various messages in multiple separate arrays:
@@ -30,7 +34,10 @@ import vanetsim.scenario.messages.Message;
  * <li>old messages to prevent problems in broadcast mode</li>
  * </ul>
  * The arrays are not resized on every operation. Deletion of an element only changes the corresponding 
- * size variable, addition only leads to a larger array if there's not enough space left.
+ * size variable, addition doubles the size of an array if there's not enough space left.<br>
+ * To find out quickly if a message is already known, a hash table on the sequence numbers of the messages stores
+ * in which of the arrays each message is. The old messages are only needed for this check, so they are just sorted
+ * into buckets by the time at which they get outdated. Only the buckets whose time has come are checked.
  */
 public class KnownMessages{
 	
@@ -41,8 +48,23 @@ public class KnownMessages{
 	/** The timeout for an old message in milliseconds. After this time it will get deleted. */
 	private static final int MAX_OLD_TIME = 5000;
 	
-	/** A reference to the renderer */
-	private static final Renderer renderer_ = Renderer.getInstance();
+	/** State of a message: it is in the messages which will get executed. */
+	private static final int STATE_EXECUTE = 1;
+	
+	/** State of a message: it is in the unprocessed or in the forward messages. */
+	private static final int STATE_FORWARD = 2;
+	
+	/** State of a message: it is in the old messages. */
+	private static final int STATE_OLD = 4;
+	
+	/** The initial size of the hash table with the states of the messages (must be a power of two). */
+	private static final int INITIAL_STATE_CAPACITY = 8;
+	
+	/** The time covered by one bucket of old messages as a power of two (512ms). */
+	private static final int OLD_BUCKET_SHIFT = 9;
+	
+	/** The amount of buckets for old messages (must be a power of two). All buckets together should cover more than <code>MAX_OLD_TIME</code>. */
+	private static final int OLD_BUCKET_COUNT = 16;
 	
 	/** The vehicle this data structure belongs to. */
 	private final Vehicle vehicle_;
@@ -68,15 +90,33 @@ public class KnownMessages{
 	/** An array to store when the messages arrived. */
 	private int[] forwardArrivalTime_;
 	
-	/** Messages which were already received. Used so that messages don't get transmitted again and again (especially in flooding mode). */
-	private Message[] oldMessages_ ;
+	/** The earliest time at which one of the forward messages might get outdated. */
+	private int forwardExpiry_ = Integer.MAX_VALUE;
+	
+	/** The sequence numbers of all stored messages (hash table with open addressing). Only valid where <code>states_</code> is not <code>0</code>. */
+	private long[] sequences_;
+	
+	/** Where the messages in <code>sequences_</code> are stored (combination of the <code>STATE_</code> constants). <code>0</code> marks an empty slot. */
+	private byte[] states_;
+	
+	/** The amount of messages in the hash table. */
+	private int stateSize_ = 0;
+	
+	/** Messages which were already received, sorted into buckets by the time when they get outdated. Used so that messages don't get transmitted again and again (especially in flooding mode). */
+	private Message[][] oldMessages_ = null;
+	
+	/** The times when the old messages get outdated. */
+	private int[][] oldMessageExpiry_ = null;
+	
+	/** The amount of old messages in each bucket. */
+	private int[] oldBucketSizes_ = null;
+	
+	/** The bucket (time shifted by <code>OLD_BUCKET_SHIFT</code>) up to which the old messages were checked last. */
+	private int oldCheckedBucket_ = 0;
 	
 	/** The size of the messages which were already received. */
 	private int oldMessageSize_ = 0;
 	
-	/** An array to store when an old messages arrived. */
-	private int[] oldMessageArrivalTime_;
-	
 	/** How many forward messages were deleted because they could not be forwarded within time. */
 	private int failedToForwardCount_ = 0;
 	
@@ -94,8 +134,8 @@ public class KnownMessages{
 		unprocessedMessages_ = new Message[2];
 		forwardMessages_ = new Message[2];
 		forwardArrivalTime_ = new int[2];
-		oldMessages_ = new Message[2];
-		oldMessageArrivalTime_ = new int[2];
+		sequences_ = new long[INITIAL_STATE_CAPACITY];
+		states_ = new byte[INITIAL_STATE_CAPACITY];
 	}
 	
 	public KnownMessages(){
@@ -104,8 +144,8 @@ public class KnownMessages{
 		unprocessedMessages_ = new Message[2];
 		forwardMessages_ = new Message[2];
 		forwardArrivalTime_ = new int[2];
-		oldMessages_ = new Message[2];
-		oldMessageArrivalTime_ = new int[2];
+		sequences_ = new long[INITIAL_STATE_CAPACITY];
+		states_ = new byte[INITIAL_STATE_CAPACITY];
 	}
 	
 	/**
@@ -116,73 +156,34 @@ public class KnownMessages{
 	 * @param doForward <code>true</code> if you want the message to be forwarded, else <code>false</code>
 	 */
 	public synchronized void addMessage(Message message, boolean doExecute, boolean doForward){
-		boolean foundExecute = false;
-		boolean foundForward = false;
-		
-		int i;
+		int state = getState(message);
+		int newState = state;
 
-		for(i = 0; i < oldMessageSize_; ++i){
-			if(oldMessages_[i] == message){
-				foundExecute = true;
-				foundForward = true;
-				break;
-			}
-		}
-
-
-		if(doExecute && !foundExecute){
-			for(i = 0; i < executeMessageSize_; ++i){
-				if(executeMessages_[i] == message){
-					foundExecute = true;
-					break;
-				}
-			}
-		}
-		
-		if(doForward && !foundForward){
-			for(i = 0; i < forwardMessageSize_; ++i){
-				if(forwardMessages_[i] == message){
-					foundForward = true;
-					break;
-				}
-			}
-		}
-		
-		if(doForward && !foundForward){
-			for(i = 0; i < unprocessedMessageSize; ++i){
-				if(unprocessedMessages_[i] == message){
-					foundForward = true;
-					break;
-				}
-			}
-		}	
-
-		if(doExecute && !foundExecute){	
+		if(doExecute && (state & (STATE_OLD | STATE_EXECUTE)) == 0){	
 			hasNewMessages_ = true;			
-			if(executeMessageSize_ < executeMessages_.length){	// array is still large enough that we may use the space
-				executeMessages_[executeMessageSize_] = message;
-			} else {	// create larger arrays and insert element
-				Message[] newArray = new Message[executeMessageSize_ + 2];
+			if(executeMessageSize_ == executeMessages_.length){	// create larger array
+				Message[] newArray = new Message[executeMessageSize_ * 2];
 				System.arraycopy (executeMessages_,0,newArray,0,executeMessageSize_);
-				newArray[executeMessageSize_] = message;
 				executeMessages_ = newArray;
 			}
+			executeMessages_[executeMessageSize_] = message;
 			++executeMessageSize_;
+			newState |= STATE_EXECUTE;
 		}
 
-		if(doForward && !foundForward){
+		if(doForward && (state & (STATE_OLD | STATE_FORWARD)) == 0){
 			hasNewMessages_ = true;
 			// add to unprocessed messages
-			if(unprocessedMessageSize < unprocessedMessages_.length){	// array is still large enough that we may use the space
-				unprocessedMessages_[unprocessedMessageSize] = message;
-			} else {	// create larger arrays and insert element
-				Message[] newArray = new Message[unprocessedMessageSize + 2];
+			if(unprocessedMessageSize == unprocessedMessages_.length){	// create larger array
+				Message[] newArray = new Message[unprocessedMessageSize * 2];
 				System.arraycopy (unprocessedMessages_,0,newArray,0,unprocessedMessageSize);
-				newArray[unprocessedMessageSize] = message;
 				unprocessedMessages_ = newArray;
 			}
+			unprocessedMessages_[unprocessedMessageSize] = message;
 			++unprocessedMessageSize;
+			newState |= STATE_FORWARD;
 		}
+		if(newState != state) setState(message, newState);
 	}
 	
 	/**
@@ -193,24 +194,12 @@ public class KnownMessages{
 	 */
 	public synchronized void deleteForwardMessage(int position, boolean addToOld){
 		if(position > -1 && position < forwardMessageSize_){
-			if(addToOld){
-				if(oldMessageSize_ + 1 > oldMessages_.length){	//need to resize
-					Message[] newArray = new Message[oldMessageSize_ + 3];
-					if(oldMessageSize_ > 0) System.arraycopy(oldMessages_,0,newArray,0,oldMessageSize_);
-					oldMessages_ = newArray;
-				
-					int[] newArray2 = new int[oldMessageSize_ + 3];
-					if(oldMessageSize_ > 0) System.arraycopy(oldMessageArrivalTime_,0,newArray2,0,oldMessageSize_);
-					oldMessageArrivalTime_ = newArray2;				
-				}
-				oldMessages_[oldMessageSize_] = forwardMessages_[position];
-				oldMessageArrivalTime_[oldMessageSize_] = renderer_.getTimePassed();
-				++oldMessageSize_;
-			}
+			removeForwardState(forwardMessages_[position], addToOld, EngineContext.getTimePassed());
 			// dont' really remove but just change size and copy leftwards
 			--forwardMessageSize_;
 			System.arraycopy(forwardMessages_,position+1,forwardMessages_,position,forwardMessageSize_-position);
 			System.arraycopy(forwardArrivalTime_,position+1,forwardArrivalTime_,position,forwardMessageSize_-position);
+			forwardMessages_[forwardMessageSize_] = null;
 		}
 	}
 	
@@ -220,24 +209,13 @@ public class KnownMessages{
 	 * @param addToOld	<code>true</code> to add all to the old messages, else <code>false</code>
 	 */
 	public synchronized void deleteAllForwardMessages(boolean addToOld){
-		if(addToOld){
-			if(oldMessageSize_ + forwardMessageSize_ > oldMessages_.length){	//need to resize
-				Message[] newArray = new Message[oldMessageSize_ + 3];
-				if(oldMessageSize_ > 0) System.arraycopy(oldMessages_,0,newArray,0,oldMessageSize_);
-				oldMessages_ = newArray;
-			
-				int[] newArray2 = new int[oldMessageSize_ + 3];
-				if(oldMessageSize_ > 0) System.arraycopy(oldMessageArrivalTime_,0,newArray2,0,oldMessageSize_);
-				oldMessageArrivalTime_ = newArray2;				
-			}
-			System.arraycopy(forwardMessages_,0,oldMessages_,oldMessageSize_,forwardMessageSize_);
-			int time = renderer_.getTimePassed();
-			for(int i = oldMessageSize_ + forwardMessageSize_ - 1; i >= oldMessageSize_; --i){
-				oldMessageArrivalTime_[i] = time;
-			}
-			oldMessageSize_ += forwardMessageSize_;
+		int time = EngineContext.getTimePassed();
+		for(int i = 0; i < forwardMessageSize_; ++i){
+			removeForwardState(forwardMessages_[i], addToOld, time);
+			forwardMessages_[i] = null;
 		}
 		forwardMessageSize_ = 0;
+		forwardExpiry_ = Integer.MAX_VALUE;
 	}
 	
 	/** 
@@ -246,29 +224,15 @@ public class KnownMessages{
 	 * @param addToOld	<code>true</code> to add the removed flooding messages to the old messages, else <code>false</code>
 	 */
 	public synchronized void deleteAllFloodingForwardMessages(boolean addToOld){
-		Message[] newArray;
-		int[] newArray2;
-		int time = renderer_.getTimePassed();
+		int time = EngineContext.getTimePassed();
 		for(int i = forwardMessageSize_ - 1; i > -1; --i){
 			if(forwardMessages_[i].getFloodingMode()){
-				if(addToOld){
-					if(oldMessageSize_ + 1 > oldMessages_.length){	//need to resize
-						newArray = new Message[oldMessageSize_ + 3];
-						if(oldMessageSize_ > 0) System.arraycopy(oldMessages_,0,newArray,0,oldMessageSize_);
-						oldMessages_ = newArray;
-					
-						newArray2 = new int[oldMessageSize_ + 3];
-						if(oldMessageSize_ > 0) System.arraycopy(oldMessageArrivalTime_,0,newArray2,0,oldMessageSize_);
-						oldMessageArrivalTime_ = newArray2;				
-					}
-					oldMessages_[oldMessageSize_] = forwardMessages_[i];
-					oldMessageArrivalTime_[oldMessageSize_] = time;
-					++oldMessageSize_;
-				}
+				removeForwardState(forwardMessages_[i], addToOld, time);
 				// don't remove. just copy everything 1 step leftwards
 				--forwardMessageSize_;
 				System.arraycopy(forwardMessages_,i+1,forwardMessages_,i,forwardMessageSize_-i);
 				System.arraycopy(forwardArrivalTime_,i+1,forwardArrivalTime_,i,forwardMessageSize_-i);
+				forwardMessages_[forwardMessageSize_] = null;
 			}
 		}
 	}
@@ -282,25 +246,36 @@ public class KnownMessages{
 			for(int i = 0; i < executeMessageSize_; ++i){
 				if(vehicle_ != null)executeMessages_[i].execute(vehicle_);
 			}
+			for(int i = 0; i < executeMessageSize_; ++i){
+				setState(executeMessages_[i], getState(executeMessages_[i]) & ~STATE_EXECUTE);
+				executeMessages_[i] = null;
+			}
 			executeMessageSize_ = 0;
 		}
 		
 		if(unprocessedMessageSize > 0){
 			if(unprocessedMessageSize + forwardMessageSize_ > forwardMessages_.length){	//need to resize
-				Message[] newArray = new Message[unprocessedMessageSize + forwardMessageSize_ + 2];
+				int length = Math.max(forwardMessages_.length * 2, unprocessedMessageSize + forwardMessageSize_);
+				Message[] newArray = new Message[length];
 				if(forwardMessageSize_ > 0) System.arraycopy(forwardMessages_,0,newArray,0,forwardMessageSize_);
 				forwardMessages_ = newArray;
 			
-				int[] newArray2 = new int[unprocessedMessageSize + forwardMessageSize_ + 2];
+				int[] newArray2 = new int[length];
 				if(forwardMessageSize_ > 0) System.arraycopy(forwardArrivalTime_,0,newArray2,0,forwardMessageSize_);
 				forwardArrivalTime_ = newArray2;				
 			}
 			// copy unprocessedMessages_ at end of forwardMessages_
 			System.arraycopy(unprocessedMessages_,0,forwardMessages_,forwardMessageSize_,unprocessedMessageSize);
 				
-			int time = renderer_.getTimePassed();
+			int time = EngineContext.getTimePassed();
+			int expiry;
 			for(int i = forwardMessageSize_ + unprocessedMessageSize - 1; i >= forwardMessageSize_; --i){
 				forwardArrivalTime_[i] = time;
+				expiry = getExpiry(forwardMessages_[i], time, MAX_FORWARD_TIME);
+				if(expiry < forwardExpiry_) forwardExpiry_ = expiry;
+			}
+			for(int i = 0; i < unprocessedMessageSize; ++i){
+				unprocessedMessages_[i] = null;
 			}
 			
 			forwardMessageSize_ += unprocessedMessageSize;			
@@ -311,49 +286,231 @@ public class KnownMessages{
 	
 	/**
 	 * !!!Checks for outdated messages and deletes them. Note that this function is not synchronized! You need to make
-	 * sure that no other thread uses any function on this object at the same time!
+	 * sure that no other thread uses any function on this object at the same time!<br>
+	 * The forward messages are only checked if one of them might be outdated. Of the old messages, only the buckets
+	 * which contain messages that might be outdated are checked.
 	 * 
 	 * @param addToOld	<code>true</code> to add all to outdated forward messages to the old messages, else <code>false</code>
 	 */
 	public void checkOutdatedMessages(boolean addToOld){
-		int timeout = renderer_.getTimePassed() - MAX_FORWARD_TIME;
-		// Check forward messages for outdated entries		
-		for(int i = forwardMessageSize_ - 1; i > -1; --i){		// going backwards because it's easier for deletion!
-			if(forwardArrivalTime_[i] < timeout || !forwardMessages_[i].isValid()){
-				if(addToOld){
-					if(oldMessageSize_ + 1 > oldMessages_.length){	//need to resize
-						Message[] newArray = new Message[oldMessageSize_ + 3];
-						if(oldMessageSize_ > 0) System.arraycopy(oldMessages_,0,newArray,0,oldMessageSize_);
-						oldMessages_ = newArray;
+		int time = EngineContext.getTimePassed();
+		if(time >= forwardExpiry_){
+			int timeout = time - MAX_FORWARD_TIME;
+			int expiry, nextExpiry = Integer.MAX_VALUE;
+			// Check forward messages for outdated entries		
+			for(int i = forwardMessageSize_ - 1; i > -1; --i){		// going backwards because it's easier for deletion!
+				if(forwardArrivalTime_[i] < timeout || !forwardMessages_[i].isValid()){
+					removeForwardState(forwardMessages_[i], addToOld, time);
 					
-						int[] newArray2 = new int[oldMessageSize_ + 3];
-						if(oldMessageSize_ > 0) System.arraycopy(oldMessageArrivalTime_,0,newArray2,0,oldMessageSize_);
-						oldMessageArrivalTime_ = newArray2;				
-					}
-					oldMessages_[oldMessageSize_] = forwardMessages_[i];
-					oldMessageArrivalTime_[oldMessageSize_] = renderer_.getTimePassed();
-					++oldMessageSize_;
-				}				
-				
-				--forwardMessageSize_;
-				System.arraycopy(forwardMessages_,i+1,forwardMessages_,i,forwardMessageSize_-i);
-				System.arraycopy(forwardArrivalTime_,i+1,forwardArrivalTime_,i,forwardMessageSize_-i);
-				
-				++failedToForwardCount_;
+					--forwardMessageSize_;
+					System.arraycopy(forwardMessages_,i+1,forwardMessages_,i,forwardMessageSize_-i);
+					System.arraycopy(forwardArrivalTime_,i+1,forwardArrivalTime_,i,forwardMessageSize_-i);
+					forwardMessages_[forwardMessageSize_] = null;
+					
+					++failedToForwardCount_;
+				} else {
+					expiry = getExpiry(forwardMessages_[i], forwardArrivalTime_[i], MAX_FORWARD_TIME);
+					if(expiry < nextExpiry) nextExpiry = expiry;
+				}
 			}
+			forwardExpiry_ = nextExpiry;
 		}
 		
-		timeout = renderer_.getTimePassed() - MAX_OLD_TIME;
-		// Check old messages for outdated entries
-		for(int i = oldMessageSize_ - 1; i > -1; --i){		// going backwards because it's easier for deletion!
-			if(oldMessageArrivalTime_[i] < timeout  || !oldMessages_[i].isValid()){
-				--oldMessageSize_;
-				System.arraycopy(oldMessages_,i+1,oldMessages_,i,oldMessageSize_-i);
-				System.arraycopy(oldMessageArrivalTime_,i+1,oldMessageArrivalTime_,i,oldMessageSize_-i);
+		// Check the buckets of old messages for outdated entries
+		int lastBucket = time >> OLD_BUCKET_SHIFT;
+		if(oldMessageSize_ > 0){
+			int bucket = oldCheckedBucket_;
+			if(lastBucket - bucket >= OLD_BUCKET_COUNT) bucket = lastBucket - OLD_BUCKET_COUNT + 1;	// all buckets need to be checked
+			int i, j, size, index;
+			Message[] messages;
+			int[] expiries;
+			for(; bucket <= lastBucket; ++bucket){
+				index = bucket & (OLD_BUCKET_COUNT - 1);
+				size = oldBucketSizes_[index];
+				if(size > 0){
+					messages = oldMessages_[index];
+					expiries = oldMessageExpiry_[index];
+					j = 0;
+					for(i = 0; i < size; ++i){
+						if(expiries[i] <= time){		// outdated or not valid anymore
+							setState(messages[i], getState(messages[i]) & ~STATE_OLD);
+							--oldMessageSize_;
+						} else {	// a later time which falls into the same bucket
+							messages[j] = messages[i];
+							expiries[j] = expiries[i];
+							++j;
+						}
+					}
+					for(i = j; i < size; ++i){
+						messages[i] = null;
+					}
+					oldBucketSizes_[index] = j;
+				}
 			}
 		}
+		oldCheckedBucket_ = lastBucket;
 	}	
 	
+	/**
+	 * Removes the state of being a forward message from a message and optionally adds it to the old messages. The caller
+	 * needs to remove the message from the forward messages.
+	 * 
+	 * @param message	the message
+	 * @param addToOld	<code>true</code> to add it to the old messages, else <code>false</code>
+	 * @param time		the current time
+	 */
+	private void removeForwardState(Message message, boolean addToOld, int time){
+		int state = getState(message) & ~STATE_FORWARD;
+		if(addToOld && (state & STATE_OLD) == 0){
+			if(oldMessages_ == null){
+				oldMessages_ = new Message[OLD_BUCKET_COUNT][];
+				oldMessageExpiry_ = new int[OLD_BUCKET_COUNT][];
+				oldBucketSizes_ = new int[OLD_BUCKET_COUNT];
+			}
+			int expiry = getExpiry(message, time, MAX_OLD_TIME);
+			if(expiry < time) expiry = time;	// already invalid: deleted with the next check
+			int index = (expiry >> OLD_BUCKET_SHIFT) & (OLD_BUCKET_COUNT - 1);
+			int size = oldBucketSizes_[index];
+			if(oldMessages_[index] == null){
+				oldMessages_[index] = new Message[4];
+				oldMessageExpiry_[index] = new int[4];
+			} else if(size == oldMessages_[index].length){	//need to resize
+				Message[] newArray = new Message[size * 2];
+				System.arraycopy(oldMessages_[index],0,newArray,0,size);
+				oldMessages_[index] = newArray;
+			
+				int[] newArray2 = new int[size * 2];
+				System.arraycopy(oldMessageExpiry_[index],0,newArray2,0,size);
+				oldMessageExpiry_[index] = newArray2;
+			}
+			oldMessages_[index][size] = message;
+			oldMessageExpiry_[index][size] = expiry;
+			oldBucketSizes_[index] = size + 1;
+			++oldMessageSize_;
+			state |= STATE_OLD;
+		}
+		setState(message, state);
+	}
+	
+	/**
+	 * Gets the time from which on a message is outdated.
+	 * 
+	 * @param message	the message
+	 * @param arrival	the time when the message arrived
+	 * @param maxTime	how long the message may be kept
+	 * 
+	 * @return the time in milliseconds from which on the message should be deleted
+	 */
+	private static int getExpiry(Message message, int arrival, int maxTime){
+		int expiry = arrival + maxTime + 1;
+		if(message.getValidUntil() < expiry) return message.getValidUntil();
+		else return expiry;
+	}
+	
+	/**
+	 * Gets where a message is stored.
+	 * 
+	 * @param message	the message
+	 * 
+	 * @return a combination of the <code>STATE_</code> constants or <code>0</code> if the message is not stored
+	 */
+	private int getState(Message message){
+		long sequence = message.getSequenceNumber();
+		int mask = states_.length - 1;
+		int i = getSlot(sequence, mask);
+		while(states_[i] != 0){
+			if(sequences_[i] == sequence) return states_[i];
+			i = (i + 1) & mask;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Sets where a message is stored. A message is retained as long as it is stored here and released afterwards (see
+	 * {@link Message#retain()}) so it must not be used anymore after its state was set to <code>0</code>.
+	 * 
+	 * @param message	the message
+	 * @param state		a combination of the <code>STATE_</code> constants or <code>0</code> if the message is not stored anymore
+	 */
+	private void setState(Message message, int state){
+		long sequence = message.getSequenceNumber();
+		int mask = states_.length - 1;
+		int i = getSlot(sequence, mask);
+		while(states_[i] != 0){
+			if(sequences_[i] == sequence){
+				if(state != 0) states_[i] = (byte)state;
+				else {
+					removeState(i);
+					message.release();
+				}
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		if(state == 0) return;
+		if((stateSize_ + 1) * 4 > states_.length * 3){		// keep the load below 75% so that the probe sequences stay short
+			long[] oldSequences = sequences_;
+			byte[] oldStates = states_;
+			sequences_ = new long[oldStates.length * 2];
+			states_ = new byte[oldStates.length * 2];
+			mask = states_.length - 1;
+			for(int j = 0; j < oldStates.length; ++j){
+				if(oldStates[j] != 0){
+					i = getSlot(oldSequences[j], mask);
+					while(states_[i] != 0){
+						i = (i + 1) & mask;
+					}
+					sequences_[i] = oldSequences[j];
+					states_[i] = oldStates[j];
+				}
+			}
+			i = getSlot(sequence, mask);
+			while(states_[i] != 0){
+				i = (i + 1) & mask;
+			}
+		}
+		sequences_[i] = sequence;
+		states_[i] = (byte)state;
+		++stateSize_;
+		message.retain();
+	}
+	
+	/**
+	 * Removes the entry in a slot of the hash table with the states. The following entries of the probe sequence are moved
+	 * back so that no entry gets unreachable.
+	 * 
+	 * @param slot	the slot
+	 */
+	private void removeState(int slot){
+		int mask = states_.length - 1;
+		int hole = slot, i = slot, home;
+		while(true){
+			i = (i + 1) & mask;
+			if(states_[i] == 0) break;
+			home = getSlot(sequences_[i], mask);
+			if(((i - home) & mask) >= ((i - hole) & mask)){	// the entry may be moved to the hole without getting in front of its home slot
+				sequences_[hole] = sequences_[i];
+				states_[hole] = states_[i];
+				hole = i;
+			}
+		}
+		states_[hole] = 0;
+		--stateSize_;
+	}
+	
+	/**
+	 * Gets the home slot of a sequence number in the hash table with the states.
+	 * 
+	 * @param sequence	the sequence number of the message
+	 * @param mask		the size of the hash table minus one
+	 * 
+	 * @return the slot
+	 */
+	private static int getSlot(long sequence, int mask){
+		int hash = (int)(sequence ^ (sequence >>> 32)) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+	
 	/**
 	 * Gets all messages which shall be forwarded. Note that there might be garbage at the end so
 	 * use the getSize()-methode to get the real size!
@@ -400,9 +557,99 @@ public class KnownMessages{
 	}
 	
 	/**
-	 * Clears everything from this data structure.
+	 * Writes this data structure to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a message could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(executeMessageSize_);
+		out.writeMessages(executeMessages_, executeMessageSize_);
+		out.writeInt(unprocessedMessageSize);
+		out.writeMessages(unprocessedMessages_, unprocessedMessageSize);
+		out.writeInt(forwardMessageSize_);
+		out.writeMessages(forwardMessages_, forwardMessageSize_);
+		out.writeInts(forwardArrivalTime_, forwardMessageSize_);
+		out.writeInt(forwardExpiry_);
+		out.writeLongs(sequences_, sequences_.length);
+		out.writeBytes(states_);
+		out.writeInt(stateSize_);
+		out.writeBoolean(oldMessages_ != null);
+		if(oldMessages_ != null){
+			out.writeInts(oldBucketSizes_);
+			for(int i = 0; i < OLD_BUCKET_COUNT; ++i){
+				out.writeMessages(oldMessages_[i], oldBucketSizes_[i]);
+				out.writeInts(oldMessageExpiry_[i], oldBucketSizes_[i]);
+			}
+		}
+		out.writeInt(oldCheckedBucket_);
+		out.writeInt(oldMessageSize_);
+		out.writeInt(failedToForwardCount_);
+		out.writeBoolean(hasNewMessages_);
+	}
+	
+	/**
+	 * Replaces the content of this data structure with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		executeMessageSize_ = in.readInt();
+		executeMessages_ = in.readMessages();
+		unprocessedMessageSize = in.readInt();
+		unprocessedMessages_ = in.readMessages();
+		forwardMessageSize_ = in.readInt();
+		forwardMessages_ = in.readMessages();
+		forwardArrivalTime_ = in.readInts();
+		forwardExpiry_ = in.readInt();
+		sequences_ = in.readLongs();
+		states_ = in.readBytes();
+		stateSize_ = in.readInt();
+		if(in.readBoolean()){
+			oldBucketSizes_ = in.readInts();
+			oldMessages_ = new Message[OLD_BUCKET_COUNT][];
+			oldMessageExpiry_ = new int[OLD_BUCKET_COUNT][];
+			for(int i = 0; i < OLD_BUCKET_COUNT; ++i){
+				oldMessages_[i] = in.readMessages();
+				oldMessageExpiry_[i] = in.readInts();
+			}
+		} else {
+			oldBucketSizes_ = null;
+			oldMessages_ = null;
+			oldMessageExpiry_ = null;
+		}
+		oldCheckedBucket_ = in.readInt();
+		oldMessageSize_ = in.readInt();
+		failedToForwardCount_ = in.readInt();
+		hasNewMessages_ = in.readBoolean();
+	}
+	
+	/**
+	 * Clears everything from this data structure. Synchronized like {@link #addMessage(Message, boolean, boolean)} as a
+	 * recycled vehicle may be cleared while other workers still send messages to it. Otherwise a message could be
+	 * released although it is stored again.
 	 */
-	public void clear(){
+	public synchronized void clear(){
+		int i, j;
+		for(i = 0; i < executeMessageSize_; ++i){		// release all messages
+			setState(executeMessages_[i], 0);
+		}
+		for(i = 0; i < unprocessedMessageSize; ++i){
+			setState(unprocessedMessages_[i], 0);
+		}
+		for(i = 0; i < forwardMessageSize_; ++i){
+			setState(forwardMessages_[i], 0);
+		}
+		if(oldMessages_ != null){
+			for(i = 0; i < OLD_BUCKET_COUNT; ++i){
+				for(j = 0; j < oldBucketSizes_[i]; ++j){
+					setState(oldMessages_[i][j], 0);
+				}
+			}
+		}
 		executeMessages_ = new Message[2];
 		executeMessageSize_ = 0;
 		unprocessedMessages_ = new Message[2];
@@ -410,9 +657,15 @@ public class KnownMessages{
 		forwardMessages_ = new Message[2];
 		forwardMessageSize_ = 0;
 		forwardArrivalTime_ = new int[2];
-		oldMessages_ = new Message[2];
+		forwardExpiry_ = Integer.MAX_VALUE;
+		sequences_ = new long[INITIAL_STATE_CAPACITY];
+		states_ = new byte[INITIAL_STATE_CAPACITY];
+		stateSize_ = 0;
+		oldMessages_ = null;
+		oldMessageExpiry_ = null;
+		oldBucketSizes_ = null;
+		oldCheckedBucket_ = 0;
 		oldMessageSize_ = 0;
-		oldMessageArrivalTime_ = new int[2];
 		failedToForwardCount_ = 0;
 		hasNewMessages_ = false;
 	}
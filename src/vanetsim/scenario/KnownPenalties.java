@@ -17,13 +17,20 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 
-import vanetsim.gui.Renderer;
 import vanetsim.gui.helpers.EventLogWriter;
 import vanetsim.map.Street;
 import vanetsim.scenario.events.EventList;
 import vanetsim.scenario.events.StartBlocking;
 import vanetsim.scenario.events.StopBlocking;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * Stores all known penalties for streets. The streets are stored together with their direction and a penalty
@@ -71,14 +78,27 @@ public class KnownPenalties{
 	/** The lane */
 	private int lane_[];
 	
-	/** if events should be logged */
-	private static boolean logEvents_ = false;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownPenalties.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all lists of known penalties of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** if events should be logged */
+		boolean logEvents_ = false;
+
+		/** Alert if spamming */
+		boolean spamCheck_ = false;
+	}
+
 	private Vehicle[] penaltySourceVehicle_;
 
-	/** Alert if spamming */
-	private static boolean spamCheck_ = false;
-	
 	/**
 	 * Constructor.
 	 * 
@@ -116,7 +136,7 @@ public class KnownPenalties{
 		boolean otherPenaltyValue = false;
 		boolean reallySamePenalty = false;
 		
-		if(spamCheck_){
+		if(state().spamCheck_){
 			//spam check. Please use fake vehicle with eebl messages to measure the spam.
 			if(penaltyType.equals("HUANG_EEBL")){
 				vehicle_.getKnownEventSourcesList_().update(penaltySourceVehicle, ID, 0, 0, 0, false);
@@ -125,7 +145,7 @@ public class KnownPenalties{
 
 
 		for(int i = 0; i < streets_.length; ++i){
-			if(streets_[i] == street && directions_[i] == direction && isFake_[i] == isFake && penaltyType_[i] == penaltyType){	// update existing value
+			if(streets_[i] == street && directions_[i] == direction && isFake_[i] == isFake && penaltyType.equals(penaltyType_[i])){	// update existing value
 				found = true;
 				if(penalties_[i] != penalty) otherPenaltyValue = true;
 				//if(penaltyType_[i] != penaltyType) otherPenaltyValue = true;
@@ -232,9 +252,9 @@ public class KnownPenalties{
 			//log data
 			
 			//** change event logger to do k-means analysis
-			if(logEvents_) EventLogWriter.log(Renderer.getInstance().getTimePassed() + "," + penaltyType + "," + x + "," + y + "," + ID + "," + vehicle_.getID());
+			if(state().logEvents_) EventLogWriter.log(EngineContext.getTimePassed() + "," + penaltyType + "," + x + "," + y + "," + ID + "," + vehicle_.getID());
 
-			//if(logEvents_) EventLogWriter.log(Renderer.getInstance().getTimePassed() + ":PenaltyType:" + penaltyType + ":x:" + x + ":y:" + y + ":Sender:" + ID + ":Receiver:" + vehicle_.getID());
+			//if(logEvents_) EventLogWriter.log(EngineContext.getTimePassed() + ":PenaltyType:" + penaltyType + ":x:" + x + ":y:" + y + ":Sender:" + ID + ":Receiver:" + vehicle_.getID());
 			//lets check if it is a false message
 			if(Vehicle.isIdsActivated() && ruleActive){
 				if(vehicle_.getID() != ID){
@@ -293,7 +313,7 @@ public class KnownPenalties{
 					//long tmp1 = street.getStartNode().getX() - x;
 				//	long tmp2 = street.getStartNode().getY() - y;
 				//	for(int j = 1; j <= street.getLanesCount(); ++j){
-					//	if(createBlocking)vehicle_.getTmpBlockings().add(new BlockingObject(j, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (Renderer.getInstance().getTimePassed() + 10000)));
+					//	if(createBlocking)vehicle_.getTmpBlockings().add(new BlockingObject(j, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (EngineContext.getTimePassed() + 10000)));
 				//	}
 				}
 				
@@ -305,13 +325,13 @@ public class KnownPenalties{
 					
 					
 					try{
-						StartBlocking start = new StartBlocking(Renderer.getInstance().getTimePassed(), x_[0], y_[0], direction, 20, false, "HUANG_RHCN");
+						StartBlocking start = new StartBlocking(EngineContext.getTimePassed(), x_[0], y_[0], direction, 20, false, "HUANG_RHCN");
 						EventList.getInstance().addEvent(start); //$NON-NLS-1$	
-						EventList.getInstance().addEvent(new StopBlocking(Renderer.getInstance().getTimePassed() + 10000, x_[0], y_[0], start)); //$NON-NLS-1$
+						EventList.getInstance().addEvent(new StopBlocking(EngineContext.getTimePassed() + 10000, x_[0], y_[0], start)); //$NON-NLS-1$
 					}
 					catch(Exception e){e.printStackTrace();}
 					//for(int j = 1; j <= street.getLanesCount(); ++j){
-					//	vehicle_.getTmpBlockings().add(new BlockingObject(j, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (Renderer.getInstance().getTimePassed() + 10000), x_[0], y_[0]));
+					//	vehicle_.getTmpBlockings().add(new BlockingObject(j, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (EngineContext.getTimePassed() + 10000), x_[0], y_[0]));
 					//}
 
 				}
@@ -326,13 +346,13 @@ public class KnownPenalties{
 					long tmp2 = street.getStartNode().getY() - y;
 				
 					try{
-						StartBlocking start = new StartBlocking(Renderer.getInstance().getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
+						StartBlocking start = new StartBlocking(EngineContext.getTimePassed(), x_[0], y_[0], direction, lane_[0], false, "HUANG_EEBL");
 						EventList.getInstance().addEvent(start); //$NON-NLS-1$	
-						EventList.getInstance().addEvent(new StopBlocking(Renderer.getInstance().getTimePassed() + 2000, x_[0], y_[0], start)); //$NON-NLS-1$
+						EventList.getInstance().addEvent(new StopBlocking(EngineContext.getTimePassed() + 2000, x_[0], y_[0], start)); //$NON-NLS-1$
 					}
 					catch(Exception e){e.printStackTrace();}
 					*/
-					//vehicle_.getTmpBlockings().add(new BlockingObject(lane, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (Renderer.getInstance().getTimePassed() + 2000), x_[0], y_[0]));
+					//vehicle_.getTmpBlockings().add(new BlockingObject(lane, direction < 1 ? true : false, street, Math.sqrt(tmp1 * tmp1 + tmp2 * tmp2), penaltyType, (EngineContext.getTimePassed() + 2000), x_[0], y_[0]));
 				}
 			}
 		}
@@ -344,7 +364,7 @@ public class KnownPenalties{
 	 * sure that no other thread uses any function on this object at the same time!
 	 */
 	public void checkValidUntil(){
-		int timeout = Renderer.getInstance().getTimePassed();
+		int timeout = EngineContext.getTimePassed();
 		boolean updateRoute = false;
 		for(int i = size - 1; i > -1; --i){	// going backwards because it's easier for deletion!
 			if(validUntil_[i] < timeout){
@@ -469,14 +489,14 @@ public class KnownPenalties{
 	 * @return the logEvents_
 	 */
 	public static boolean isLogEvents_() {
-		return logEvents_;
+		return state().logEvents_;
 	}
 
 	/**
 	 * @param logEvents_ the logEvents_ to set
 	 */
 	public static void setLogEvents_(boolean logEvents) {
-		logEvents_ = logEvents;
+		state().logEvents_ = logEvents;
 	}
 
 	public Vehicle getVehicle_() {
@@ -493,13 +513,57 @@ public class KnownPenalties{
 
 
 	public static boolean isSpamcheck() {
-		return spamCheck_;
+		return state().spamCheck_;
 	}
 
 	public static void setSpamCheck_(boolean spamCheck_) {
-		KnownPenalties.spamCheck_ = spamCheck_;
+		state().spamCheck_ = spamCheck_;
 	}
 
+	/**
+	 * Writes the known penalties to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a street could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(size);
+		out.writeStreets(streets_, size);
+		out.writeInts(directions_, size);
+		out.writeInts(penalties_, size);
+		out.writeInts(validUntil_, size);
+		out.writeBooleans(isFake_, size);
+		out.writeStrings(penaltyType_, size);
+		out.writeBooleans(routeUpdateNecessary_, size);
+		out.writeInts(x_, size);
+		out.writeInts(y_, size);
+		out.writeInts(lane_, size);
+		out.writeVehicles(penaltySourceVehicle_, size);
+	}
+	
+	/**
+	 * Replaces the known penalties with the ones read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		size = in.readInt();
+		streets_ = in.readStreets();
+		directions_ = in.readInts();
+		penalties_ = in.readInts();
+		validUntil_ = in.readInts();
+		isFake_ = in.readBooleans();
+		penaltyType_ = in.readStrings();
+		routeUpdateNecessary_ = in.readBooleans();
+		x_ = in.readInts();
+		y_ = in.readInts();
+		lane_ = in.readInts();
+		penaltySourceVehicle_ = in.readVehicles();
+	}
+	
 	/**
 	 * Clears everything from this data structure.
 	 */
@@ -517,4 +581,13 @@ public class KnownPenalties{
 		lane_ = new int[2];
 		penaltySourceVehicle_ = new Vehicle[2];
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -17,6 +17,11 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+
 /**
  * A known RSU (discovered by receiving a beacon). The variables represent what is known and might
  * differ from the real ones if it hasn't been updated for some time!
@@ -67,6 +72,38 @@ public class KnownRSU{
 	}
 	
 	
+	/**
+	 * Creates a known RSU from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public KnownRSU(CheckpointReader in) throws IOException{
+		rsu_ = in.readRSU();
+		ID_ = in.readLong();
+		x_ = in.readInt();
+		y_ = in.readInt();
+		isEncrypted_ = in.readBoolean();
+		lastUpdate_ = in.readInt();
+	}
+	
+	/**
+	 * Writes this known RSU to a checkpoint. The links to the other entries of the list are not written.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a reference could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeRSU(rsu_);
+		out.writeLong(ID_);
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeBoolean(isEncrypted_);
+		out.writeInt(lastUpdate_);
+	}
+	
 	/**
 	 * Updates the x coordinate.
 	 * 
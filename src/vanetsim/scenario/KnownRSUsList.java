@@ -17,8 +17,17 @@
  */
 package vanetsim.scenario;
 
-import vanetsim.gui.Renderer;
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import vanetsim.gui.helpers.AttackLogWriter;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.InteractionBuffer;
+import vanetsim.simulation.SimulationContext;
+import vanetsim.simulation.WorkerThread;
 
 /**
  * A list of all known Road-Side-Units which was discovered through beacons. In contrast to the KnownPenalties-
@@ -38,9 +47,22 @@ public class KnownRSUsList{
 	/** How many hash buckets will be used. Increase if you expect lots of known RSUs! */
 	private static final int HASH_SIZE = 16;
 	
-	/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
-	private static int timePassed_ = 0;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownRSUsList.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all lists of known RSUs of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
+		int timePassed_ = 0;
+	}
+
 	/** The array with all heads of the linked lists */
 	private KnownRSU[] head_ = new KnownRSU[HASH_SIZE];
 	
@@ -66,6 +88,11 @@ public class KnownRSUsList{
 	 * @param isEncrypted	if Beacon was encrypted
 	 */
 	public synchronized void updateRSU(RSU rsu, long ID, int x, int y, boolean isEncrypted){
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: updated at the end of the phase
+			buffer.addKnownRSU(this, rsu, ID, x, y, isEncrypted);
+			return;
+		}
 		boolean found = false;
 		int hash = (int)(ID % HASH_SIZE);
 		if(hash < 0) hash = -hash;
@@ -75,7 +102,7 @@ public class KnownRSUsList{
 				next.setX(x);
 				next.setY(y);
 				next.setEncrypted(isEncrypted);
-				next.setLastUpdate(timePassed_+VALID_TIME);
+				next.setLastUpdate(state().timePassed_+VALID_TIME);
 				found = true;
 				break;
 			}
@@ -83,7 +110,7 @@ public class KnownRSUsList{
 		}					
 		
 		if(!found){
-			next = new KnownRSU(rsu, ID, x, y, isEncrypted, timePassed_);
+			next = new KnownRSU(rsu, ID, x, y, isEncrypted, state().timePassed_);
 			next.setNext(head_[hash]);
 			next.setPrevious(null);
 			if(head_[hash] != null) head_[hash].setPrevious(next);
@@ -91,7 +118,7 @@ public class KnownRSUsList{
 			++size_;
 		}
 		
-		AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Any RSU Communication:" + rsu.getRSUID() + ":Any-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":" + isEncrypted);
+		AttackLogWriter.log(EngineContext.getTimePassed() + ":Any RSU Communication:" + rsu.getRSUID() + ":Any-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":" + isEncrypted);
 	}
 	
 	/**
@@ -99,7 +126,7 @@ public class KnownRSUsList{
 	 * sure that no other thread uses any function on this object at the same time!
 	 */
 	public void checkOutdatedRSUs(){
-		int timeout = timePassed_ - VALID_TIME;
+		int timeout = state().timePassed_ - VALID_TIME;
 		KnownRSU next;
 		for(int i = 0; i < HASH_SIZE; ++i){
 			next = head_[i];
@@ -183,7 +210,51 @@ public class KnownRSUsList{
 	 * @param time the new time in milliseconds
 	 */
 	public static void setTimePassed(int time){
-		timePassed_ = time;
+		state().timePassed_ = time;
+	}
+	
+	/**
+	 * Writes this list to a checkpoint. The chains of the hash table are written in their order.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an entry could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(size_);
+		KnownRSU next;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = 0;
+			for(next = head_[i]; next != null; next = next.getNext()) ++count;
+			out.writeInt(count);
+			for(next = head_[i]; next != null; next = next.getNext()) next.writeCheckpoint(out);
+		}
+	}
+	
+	/**
+	 * Replaces the content of this list with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		size_ = in.readInt();
+		head_ = new KnownRSU[HASH_SIZE];
+		KnownRSU next, previous;
+		int count;
+		for(int i = 0; i < HASH_SIZE; ++i){
+			count = in.readInt();
+			previous = null;
+			for(int j = 0; j < count; ++j){
+				next = new KnownRSU(in);
+				next.setPrevious(previous);
+				if(previous == null) head_[i] = next;
+				else previous.setNext(next);
+				previous = next;
+			}
+		}
 	}
 	
 	/**
@@ -193,4 +264,13 @@ public class KnownRSUsList{
 		head_ = new KnownRSU[HASH_SIZE];
 		size_ = 0;
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
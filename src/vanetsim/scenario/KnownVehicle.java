@@ -17,6 +17,13 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
+
 
 /**
  * A known vehicle (discovered by receiving a beacon). The variables represent what is known and might
@@ -24,14 +31,14 @@ package vanetsim.scenario;
  */
 public class KnownVehicle{
 	
-	/** The vehicle associated. */
-	private final Vehicle vehicle_;
+	/** The index of the vehicle associated (see {@link Vehicle#getIndex()}). */
+	private int vehicleIndex_;
 	
 	/** The ID of the vehicle. */
-	private final long ID_;
+	private long ID_;
 	
 	/** The time of the first contact with the vehicle */
-	private final int firstContact_;
+	private int firstContact_;
 	
 	/** The current x coordinate. */
 	private int x_;
@@ -48,12 +55,6 @@ public class KnownVehicle{
 	/** The time when the vehicle was last updated in milliseconds. */
 	private int lastUpdate_;
 	
-	/** Link to the previous object. */
-	protected KnownVehicle previous_;
-	
-	/** Link to the next object. */
-	protected KnownVehicle next_;
-	
 	/** Array to save the n last x for the IDS */
 	private int[] savedX_;
 	
@@ -66,9 +67,22 @@ public class KnownVehicle{
 	/** Array to save the n last lastUpdate for the IDS */
 	private int[] savedLastUpdate_;
 	
-	/** Amount of saved beacons (-1 == off) */
-	private static int amountOfSavedBeacons_ = 10;
-	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownVehicle.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all known vehicles of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** Amount of saved beacons (-1 == off) */
+		int amountOfSavedBeacons_ = 10;
+	}
+
 	/** counter to fill the array */
 	private int arrayCounter = -1;
 	
@@ -85,7 +99,68 @@ public class KnownVehicle{
 	 * @param isEncrypted	if Beacon was encrypted
 	 */
 	public KnownVehicle(Vehicle vehicle, long ID, int x, int y, int time, double speed, boolean isEncrypted, int timePassed){
-		vehicle_ = vehicle;
+		reset(vehicle, ID, x, y, time, speed, isEncrypted, timePassed);
+	}
+	
+	/**
+	 * Creates a known vehicle from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public KnownVehicle(CheckpointReader in) throws IOException{
+		vehicleIndex_ = in.readInt();
+		ID_ = in.readLong();
+		firstContact_ = in.readInt();
+		x_ = in.readInt();
+		y_ = in.readInt();
+		speed_ = in.readDouble();
+		isEncrypted_ = in.readBoolean();
+		lastUpdate_ = in.readInt();
+		savedX_ = in.readInts();
+		savedY_ = in.readInts();
+		savedSpeed_ = in.readDoubles();
+		savedLastUpdate_ = in.readInts();
+		arrayCounter = in.readInt();
+	}
+	
+	/**
+	 * Writes this known vehicle to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeInt(vehicleIndex_);
+		out.writeLong(ID_);
+		out.writeInt(firstContact_);
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeDouble(speed_);
+		out.writeBoolean(isEncrypted_);
+		out.writeInt(lastUpdate_);
+		out.writeInts(savedX_);
+		out.writeInts(savedY_);
+		out.writeDoubles(savedSpeed_);
+		out.writeInts(savedLastUpdate_);
+		out.writeInt(arrayCounter);
+	}
+	
+	/**
+	 * Sets all values as if this known vehicle was newly created. Used to reuse known vehicles which have timed out. The
+	 * arrays for the saved beacons are only created again if their size has changed.
+	 * 
+	 * @param vehicle	the vehicle
+	 * @param ID		the ID of the vehicle
+	 * @param x 		the x coordinate
+	 * @param y			the y coordinate
+	 * @param time		the current time
+	 * @param speed		the current speed
+	 * @param isEncrypted	if Beacon was encrypted
+	 * @param timePassed	the time of the first contact
+	 */
+	public void reset(Vehicle vehicle, long ID, int x, int y, int time, double speed, boolean isEncrypted, int timePassed){
+		vehicleIndex_ = vehicle.getIndex();
 		ID_ = ID;
 		x_ = x;
 		y_ = y;
@@ -93,16 +168,28 @@ public class KnownVehicle{
 		lastUpdate_ = time;
 		isEncrypted_ = isEncrypted;
 		firstContact_ = timePassed;
-		if(amountOfSavedBeacons_ != -1){
-			arrayCounter = -1;
-			savedX_ = new int[amountOfSavedBeacons_];
-			savedY_ = new int[amountOfSavedBeacons_];
-			savedSpeed_ = new double[amountOfSavedBeacons_];
-			for(int i = 0; i < amountOfSavedBeacons_;i++) savedSpeed_[i] = -1;
-			savedLastUpdate_ = new int[amountOfSavedBeacons_];
+		arrayCounter = -1;
+		int amount = state().amountOfSavedBeacons_;
+		if(amount != -1){
+			if(savedX_ == null || savedX_.length != amount){
+				savedX_ = new int[amount];
+				savedY_ = new int[amount];
+				savedSpeed_ = new double[amount];
+				savedLastUpdate_ = new int[amount];
+			} else {
+				for(int i = 0; i < amount; i++){
+					savedX_[i] = 0;
+					savedY_[i] = 0;
+					savedLastUpdate_[i] = 0;
+				}
+			}
+			for(int i = 0; i < amount;i++) savedSpeed_[i] = -1;
+		} else {
+			savedX_ = null;
+			savedY_ = null;
+			savedSpeed_ = null;
+			savedLastUpdate_ = null;
 		}
-		
-		
 	}
 
 	/**
@@ -112,14 +199,14 @@ public class KnownVehicle{
 		int beaconInterval = Vehicle.getBeaconInterval();
 		int counter = 1;
 		int savedLastUpdate = savedLastUpdate_[0];
-		for(int i = 1; i <  amountOfSavedBeacons_; i++){
+		for(int i = 1; i <  state().amountOfSavedBeacons_; i++){
 			if((savedLastUpdate_[i] - savedLastUpdate) == beaconInterval){
 				counter++;
 			}
 			savedLastUpdate = savedLastUpdate_[i];
 
 		}
-		if((savedLastUpdate_[0] - savedLastUpdate_[amountOfSavedBeacons_-1]) == beaconInterval){
+		if((savedLastUpdate_[0] - savedLastUpdate_[state().amountOfSavedBeacons_-1]) == beaconInterval){
 			counter++;
 		}
 		return counter;
@@ -131,7 +218,7 @@ public class KnownVehicle{
 	public int[] getTimeStanding(){
 		int[] counter = new int[2];
 		
-		for(int i = 0; i <  amountOfSavedBeacons_; i++){
+		for(int i = 0; i <  state().amountOfSavedBeacons_; i++){
 			//skip empty beacon slots (-1)
 			if(savedSpeed_[i] != -1){
 				counter[1]++;
@@ -149,9 +236,9 @@ public class KnownVehicle{
 	 */
 	public void showSpeedData(){
 		int starter = arrayCounter + 1;
-		if(starter == amountOfSavedBeacons_) starter = 0;
-		for(int i = starter; i <  (amountOfSavedBeacons_ + starter); i++){
-			System.out.println("savedspeed:" + savedSpeed_[i%(amountOfSavedBeacons_)]);
+		if(starter == state().amountOfSavedBeacons_) starter = 0;
+		for(int i = starter; i <  (state().amountOfSavedBeacons_ + starter); i++){
+			System.out.println("savedspeed:" + savedSpeed_[i%(state().amountOfSavedBeacons_)]);
 		}
 	}
 	
@@ -181,8 +268,8 @@ public class KnownVehicle{
 	*/
 	public double[] getSpecificSpeedDataSet(int index){
 		double[] returnValue = new double[2];
-		returnValue[0] = savedSpeed_[(arrayCounter + 1 + index)%amountOfSavedBeacons_];
-		returnValue[1] = savedSpeed_[(amountOfSavedBeacons_ + arrayCounter)%(amountOfSavedBeacons_)];
+		returnValue[0] = savedSpeed_[(arrayCounter + 1 + index)%state().amountOfSavedBeacons_];
+		returnValue[1] = savedSpeed_[(state().amountOfSavedBeacons_ + arrayCounter)%(state().amountOfSavedBeacons_)];
 		return returnValue;
 	}
 	/*
@@ -280,55 +367,27 @@ public class KnownVehicle{
 	 * @return the vehicle
 	 */
 	public Vehicle getVehicle(){
-		return vehicle_;
+		return Vehicle.getByIndex(vehicleIndex_);
 	}
 	
 	/**
-	 * Gets when this vehicle was last updated.
+	 * Gets the index of the vehicle (see {@link Vehicle#getIndex()}).
 	 * 
-	 * @return the last update time in milliseconds
+	 * @return the index
 	 */
-	public int getLastUpdate(){
-		return lastUpdate_;
+	public int getVehicleIndex(){
+		return vehicleIndex_;
 	}
 	
 	/**
-	 * Returns the KnownVehicle after this one.
-	 * 
-	 * @return the next
-	 */
-	public KnownVehicle getNext() {
-		return next_;
-	}
-
-	/**
-	 * Returns the KnownVehicle before this one.
-	 * 
-	 * @return the previous
-	 */
-	public KnownVehicle getPrevious() {
-		return previous_;
-	}
-
-	/**
-	 * Sets the KnownVehicle after this one.
-	 * 
-	 * @param next	the object which comes after this one
-	 */
-	public void setNext(KnownVehicle next) {
-		next_ = next;
-	}
-
-	/**
-	 * Sets the KnownVehicle before this one.
+	 * Gets when this vehicle was last updated.
 	 * 
-	 * @param previous	the object which comes before this one
+	 * @return the last update time in milliseconds
 	 */
-	public void setPrevious(KnownVehicle previous) {
-		previous_ = previous;
+	public int getLastUpdate(){
+		return lastUpdate_;
 	}
-
-
+	
 	public boolean isEncrypted_() {
 		return isEncrypted_;
 	}
@@ -407,7 +466,7 @@ public class KnownVehicle{
 	 * @return the aMOUNT_OF_SAVED_BEACONS
 	 */
 	public static int getAmountOfSavedBeacons_() {
-		return amountOfSavedBeacons_;
+		return state().amountOfSavedBeacons_;
 	}
 
 
@@ -415,7 +474,7 @@ public class KnownVehicle{
 	 * @param aMOUNT_OF_SAVED_BEACONS the aMOUNT_OF_SAVED_BEACONS to set
 	 */
 	public static void setAmountOfSavedBeacons(int amountOfSavedBeacons) {
-		amountOfSavedBeacons_ = amountOfSavedBeacons;
+		state().amountOfSavedBeacons_ = amountOfSavedBeacons;
 	}
 
 
@@ -441,4 +500,12 @@ public class KnownVehicle{
 		return firstContact_;
 	}
 
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
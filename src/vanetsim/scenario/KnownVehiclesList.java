@@ -17,18 +17,29 @@
  */
 package vanetsim.scenario;
 
-import vanetsim.gui.Renderer;
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import vanetsim.gui.helpers.AttackLogWriter;
 import vanetsim.gui.helpers.GeneralLogWriter;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.InteractionBuffer;
+import vanetsim.simulation.SimulationContext;
+import vanetsim.simulation.WorkerThread;
 
 /**
  * A list of all known vehicles which was discovered through beacons. In contrast to the KnownPenalties-
  * class, an own class is used for storing the information about the vehicles. Although this means slightly
  * more overhead, it should not be a big case and allows better extensibility.<br>
- * A simple hash algorithm based on the vehicle ID is used to get better performance. The hash determines the 
- * corresponding linked list(beginnings of linked lists are found in <code>head_</code>). Known vehicles with the
- * same hash are connected together through their <code>next_</code> and <code>previous_</code> values (see 
- * KnownVehicle-class).
+ * The known vehicles are stored in a hash table with open addressing (linear probing) on the vehicle ID. The IDs are
+ * kept in an own array so that a lookup doesn't need to touch the known vehicles. The table grows if it gets too full
+ * and known vehicles which time out are kept in a small pool so that they (and the arrays of their saved beacons) can
+ * be reused for the next new vehicle.<br>
+ * Updates may come from other regions. In the deterministic mode, they are buffered and applied by one thread at the end
+ * of the phase. Otherwise, this list is only locked if several workers process the phase.
  */
 public class KnownVehiclesList{
 	
@@ -36,27 +47,50 @@ public class KnownVehiclesList{
 	 * it is dropped from the list! */
 	private static final int VALID_TIME = 2000;
 	
-	/** How many hash buckets will be used. Increase if you expect lots of known vehicles! */
-	private static final int HASH_SIZE = 16;
+	/** The initial size of the hash table (must be a power of two). The table grows if it gets too full. */
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/** How many removed known vehicles are kept for reuse. */
+	private static final int POOL_SIZE = 8;
 	
-	/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
-	private static int timePassed_ = 0;
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(KnownVehiclesList.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all lists of known vehicles of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** How much time has passed since beginning of the simulation. Stored here as it's really needed often. */
+		int timePassed_ = 0;
+
+		/** time per step. Redundant data because of performance */
+		int timePerStep_ = 0;
+	}
+
+	/** The IDs of the known vehicles in the hash table. Only valid where <code>entries_</code> is not <code>null</code>. */
+	private long[] ids_ = new long[INITIAL_CAPACITY];
 	
-	/** The array with all heads of the linked lists */
-	private KnownVehicle[] head_ = new KnownVehicle[HASH_SIZE];
+	/** The hash table with the known vehicles. Empty slots are <code>null</code>. */
+	private KnownVehicle[] entries_ = new KnownVehicle[INITIAL_CAPACITY];
 	
 	/** The amount of items stored. */
 	private int size_ = 0;
 	
-	/** time per step. Redundant data because of performance */
-	private static int timePerStep_ = 0;
+	/** Removed known vehicles which can be reused. */
+	private KnownVehicle[] pool_ = null;
+	
+	/** The amount of known vehicles in the pool. */
+	private int poolSize_ = 0;
+	
 	/**
 	 * Empty constructor.
 	 */
 	public KnownVehiclesList(){
-		for(int i = 0; i < HASH_SIZE; ++i){
-			head_[i] = null;
-		}
 	}
 	
 	private boolean logKnownTime = false;
@@ -72,61 +106,90 @@ public class KnownVehiclesList{
 	 * @param isEncrypted	if Beacon was encrypted
 	 * @param isARSU	if Beacon was sent from an ARSU
 	 */
-	public synchronized void updateVehicle(Vehicle vehicle, long ID, int x, int y, double speed, long sourceID, boolean isEncrypted, boolean isARSU){
-		boolean found = false;
-		int hash = (int)(ID % HASH_SIZE);
-		if(hash < 0) hash = -hash;
-		KnownVehicle next = head_[hash];
-		while(next != null){
-			if(next.getID() == ID){	// update of entry possible
+	public void updateVehicle(Vehicle vehicle, long ID, int x, int y, double speed, long sourceID, boolean isEncrypted, boolean isARSU){
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: updated at the end of the phase
+			buffer.addKnownVehicle(this, vehicle, ID, x, y, speed, sourceID, isEncrypted, isARSU);
+			return;
+		}
+		if(WorkerThread.isConcurrentPhase()){
+			synchronized(this){
+				storeVehicle(vehicle, ID, x, y, speed, sourceID, isEncrypted, isARSU);
+			}
+		} else storeVehicle(vehicle, ID, x, y, speed, sourceID, isEncrypted, isARSU);
+	}
+	
+	/**
+	 * Updates a vehicle or adds it if it doesn't exist yet. The caller needs to make sure that no other thread changes
+	 * this list at the same time.
+	 * 
+	 * @param vehicle	a reference to the vehicle
+	 * @param ID		the ID of the vehicle
+	 * @param x			the x coordinate
+	 * @param y			the y coordinate
+	 * @param speed		the speed
+	 * @param sourceID	ID of the source
+	 * @param isEncrypted	if Beacon was encrypted
+	 * @param isARSU	if Beacon was sent from an ARSU
+	 */
+	private void storeVehicle(Vehicle vehicle, long ID, int x, int y, double speed, long sourceID, boolean isEncrypted, boolean isARSU){
+		int mask = entries_.length - 1;
+		int i = getSlot(ID, mask);
+		KnownVehicle next;
+		while((next = entries_[i]) != null && ids_[i] != ID){
+			i = (i + 1) & mask;
+		}
+		if(next != null){	// update of entry possible
 				
-				//saved last beacons if advanced ids is activated
-				if(KnownVehicle.getAmountOfSavedBeacons_() != -1){
-					next.setArrayCounter((next.getArrayCounter() + 1) % KnownVehicle.getAmountOfSavedBeacons_());	
-					int counter = next.getArrayCounter();
-					next.getSavedX_()[counter] = next.getX();
-					next.getSavedY_()[counter] = next.getY();
-					next.getSavedSpeed_()[counter] = next.getSpeed();
-					next.getSavedLastUpdate_()[counter] = next.getLastUpdate();
+			//saved last beacons if advanced ids is activated
+			if(KnownVehicle.getAmountOfSavedBeacons_() != -1){
+				next.setArrayCounter((next.getArrayCounter() + 1) % KnownVehicle.getAmountOfSavedBeacons_());	
+				int counter = next.getArrayCounter();
+				next.getSavedX_()[counter] = next.getX();
+				next.getSavedY_()[counter] = next.getY();
+				next.getSavedSpeed_()[counter] = next.getSpeed();
+				next.getSavedLastUpdate_()[counter] = next.getLastUpdate();
+			}
+			
+			next.setX(x);
+			next.setY(y);
+			//next.setLastUpdate(timePassed_+VALID_TIME);
+			next.setLastUpdate(state().timePassed_);
+			next.setSpeed(speed);
+			next.setEncrypted_(isEncrypted);
+		} else {
+			if((size_ + 1) * 4 > entries_.length * 3){		// keep the load below 75% so that the probe sequences stay short
+				resize(entries_.length * 2);
+				mask = entries_.length - 1;
+				i = getSlot(ID, mask);
+				while(entries_[i] != null){
+					i = (i + 1) & mask;
 				}
-				
-				next.setX(x);
-				next.setY(y);
-				//next.setLastUpdate(timePassed_+VALID_TIME);
-				next.setLastUpdate(timePassed_);
-				next.setSpeed(speed);
-				next.setEncrypted_(isEncrypted);
-				
-				found = true;
-
-				break;
 			}
-			next = next.getNext();
-		}					
-		
-		if(!found){
-			next = new KnownVehicle(vehicle, ID, x, y, timePassed_ + VALID_TIME, speed, isEncrypted, timePassed_);
-			next.setNext(head_[hash]);
-			next.setPrevious(null);
-			if(head_[hash] != null) head_[hash].setPrevious(next);
-			head_[hash] = next;
+			if(poolSize_ > 0){
+				next = pool_[--poolSize_];
+				pool_[poolSize_] = null;
+				next.reset(vehicle, ID, x, y, state().timePassed_ + VALID_TIME, speed, isEncrypted, state().timePassed_);
+			} else next = new KnownVehicle(vehicle, ID, x, y, state().timePassed_ + VALID_TIME, speed, isEncrypted, state().timePassed_);
+			ids_[i] = ID;
+			entries_[i] = next;
 			++size_;
 		}
 		
 		if(Vehicle.isAttackerDataLogged_()){
-			if(Renderer.getInstance().getAttackerVehicle() != null && this.equals(Renderer.getInstance().getAttackerVehicle().getKnownVehiclesList()) && Vehicle.isAttackerDataLogged_()){
+			if(EngineContext.getAttackerVehicle() != null && this.equals(EngineContext.getAttackerVehicle().getKnownVehiclesList()) && Vehicle.isAttackerDataLogged_()){
 				if(!isEncrypted || (Vehicle.isAttackerEncryptedDataLogged_() && isEncrypted)){
 					if(isARSU){
-						if(Renderer.getInstance().getAttackedVehicle() != null && Renderer.getInstance().getAttackedVehicle().getID() == ID) AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Source(Attacker-RSU):" + sourceID + ":Attacked-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted );
-						else AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Source(Attacker-RSU):" + sourceID + ":Other-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted );
+						if(EngineContext.getAttackedVehicle() != null && EngineContext.getAttackedVehicle().getID() == ID) AttackLogWriter.log(EngineContext.getTimePassed() + ":Source(Attacker-RSU):" + sourceID + ":Attacked-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted );
+						else AttackLogWriter.log(EngineContext.getTimePassed() + ":Source(Attacker-RSU):" + sourceID + ":Other-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted );
 					}
 					
 					else{
-						if(Renderer.getInstance().getAttackedVehicle() != null && Renderer.getInstance().getAttackedVehicle().getID() == ID) AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Source(Attacker):"+ Long.toHexString(sourceID) + ":Attacked-Vehicle-Data:" + Long.toHexString(ID) + ":" + x + ":" +  y + ":"+ speed + ":" + isEncrypted);
-						else AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Source(Attacker):"+ Long.toHexString(sourceID) + ":Other-Vehicle-Data:" + Long.toHexString(ID) + ":" + x + ":" +  y + ":"+ speed + ":" + isEncrypted);
+						if(EngineContext.getAttackedVehicle() != null && EngineContext.getAttackedVehicle().getID() == ID) AttackLogWriter.log(EngineContext.getTimePassed() + ":Source(Attacker):"+ Long.toHexString(sourceID) + ":Attacked-Vehicle-Data:" + Long.toHexString(ID) + ":" + x + ":" +  y + ":"+ speed + ":" + isEncrypted);
+						else AttackLogWriter.log(EngineContext.getTimePassed() + ":Source(Attacker):"+ Long.toHexString(sourceID) + ":Other-Vehicle-Data:" + Long.toHexString(ID) + ":" + x + ":" +  y + ":"+ speed + ":" + isEncrypted);
 					}
 				}
-			}else AttackLogWriter.log(Renderer.getInstance().getTimePassed() + ":Any Communication:" + sourceID + ":Any-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted);
+			}else AttackLogWriter.log(EngineContext.getTimePassed() + ":Any Communication:" + sourceID + ":Any-Vehicle Data:" + Long.toHexString(ID) + ":" +  x + ":" +  y + ":"+ speed + ":" + isEncrypted);
 		}
 
 	}
@@ -136,26 +199,104 @@ public class KnownVehiclesList{
 	 * sure that no other thread uses any function on this object at the same time!
 	 */
 	public void checkOutdatedVehicles(){
-		int timeout = timePassed_ - VALID_TIME;
+		if(size_ == 0) return;
+		int timeout = state().timePassed_ - VALID_TIME;
 		KnownVehicle next;
-		for(int i = 0; i < HASH_SIZE; ++i){
-			next = head_[i];
-			while(next != null){
-				if(next.getLastUpdate() < timeout){ // remove!
-					if(logKnownTime)GeneralLogWriter.log(String.valueOf(next.getLastUpdate() - next.getFirstContact_()));
-
-					if(next.getNext() != null) next.getNext().setPrevious(next.getPrevious());
-					if(next.getPrevious() != null) next.getPrevious().setNext(next.getNext());
-					else { //it is the head!
-						head_[i] = next.getNext();
-					}
-					--size_;
+		int i = 0;
+		while(i < entries_.length){
+			next = entries_[i];
+			if(next != null && next.getLastUpdate() < timeout){ // remove!
+				if(logKnownTime)GeneralLogWriter.log(String.valueOf(next.getLastUpdate() - next.getFirstContact_()));
+				remove(i);
+				if(poolSize_ < POOL_SIZE){
+					if(pool_ == null) pool_ = new KnownVehicle[POOL_SIZE];
+					pool_[poolSize_++] = next;
 				}
-				next = next.getNext();	// still works as we didn't change it. Garbage Collector will remove it now.
-			}
+			} else ++i;		// else check the slot again as another vehicle might have been moved into it
 		}		
 	}
 	
+	/**
+	 * Removes the known vehicle in a slot of the hash table. The following vehicles of the probe sequence are moved back so
+	 * that no vehicle gets unreachable.
+	 * 
+	 * @param slot	the slot
+	 */
+	private void remove(int slot){
+		int mask = entries_.length - 1;
+		int hole = slot, i = slot, home;
+		while(true){
+			i = (i + 1) & mask;
+			if(entries_[i] == null) break;
+			home = getSlot(ids_[i], mask);
+			if(((i - home) & mask) >= ((i - hole) & mask)){	// the vehicle may be moved to the hole without getting in front of its home slot
+				ids_[hole] = ids_[i];
+				entries_[hole] = entries_[i];
+				hole = i;
+			}
+		}
+		entries_[hole] = null;
+		--size_;
+	}
+	
+	/**
+	 * Changes the size of the hash table.
+	 * 
+	 * @param capacity	the new size (must be a power of two and larger than the amount of stored vehicles)
+	 */
+	private void resize(int capacity){
+		long[] oldIds = ids_;
+		KnownVehicle[] oldEntries = entries_;
+		long[] ids = new long[capacity];
+		KnownVehicle[] entries = new KnownVehicle[capacity];
+		int mask = capacity - 1;
+		int i, j;
+		for(j = 0; j < oldEntries.length; ++j){
+			if(oldEntries[j] != null){
+				i = getSlot(oldIds[j], mask);
+				while(entries[i] != null){
+					i = (i + 1) & mask;
+				}
+				ids[i] = oldIds[j];
+				entries[i] = oldEntries[j];
+			}
+		}
+		ids_ = ids;
+		entries_ = entries;
+	}
+	
+	/**
+	 * Finds a known vehicle.
+	 * 
+	 * @param ID	the ID of the vehicle
+	 * 
+	 * @return the known vehicle or <code>null</code> if it is not known
+	 */
+	private KnownVehicle find(long ID){
+		int mask = entries_.length - 1;
+		int i = getSlot(ID, mask);
+		KnownVehicle next;
+		while((next = entries_[i]) != null){
+			if(ids_[i] == ID) return next;
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the home slot of an ID in the hash table. The bits of the ID are mixed as IDs are often not random in their
+	 * lower bits.
+	 * 
+	 * @param ID	the ID of the vehicle
+	 * @param mask	the size of the hash table minus one
+	 * 
+	 * @return the slot
+	 */
+	private static int getSlot(long ID, int mask){
+		int hash = (int)(ID ^ (ID >>> 32)) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+	
 	/**
 	 * Finds the nearest known vehicle to a destination.
 	 * 
@@ -175,9 +316,10 @@ public class KnownVehiclesList{
 		bestDistance = dx * dx + dy * dy;		// Pythagorean theorem but without costly sqrt because it's unnecessary
 		KnownVehicle bestVehicle = null;
 		KnownVehicle next;
-		for(int i = 0; i < HASH_SIZE; ++i){
-			next = head_[i];
-			while(next != null){
+		KnownVehicle[] entries = entries_;
+		for(int i = 0; i < entries.length; ++i){
+			next = entries[i];
+			if(next != null){
 				dx = next.getX() - destX;
 				dy = next.getY() - destY;
 				tmpDistance = dx * dx + dy * dy;
@@ -189,7 +331,6 @@ public class KnownVehiclesList{
 						bestVehicle = next;
 					}
 				}
-				next = next.getNext();
 			}
 		}		
 		if(bestVehicle != null) return bestVehicle.getVehicle();
@@ -206,17 +347,17 @@ public class KnownVehiclesList{
 		int constantContact = 0;
 		int counter = 0;
 		double[] response;
-		for(int i = 0; i < HASH_SIZE; ++i){
-			KnownVehicle next = head_[i];
-			while(next != null){
+		KnownVehicle[] entries = entries_;
+		for(int i = 0; i < entries.length; ++i){
+			KnownVehicle next = entries[i];
+			if(next != null){
 				response = next.getVehicle().getKnownVehiclesList().checkBeacons(monitoredID);
 				if(response != null){
-					if(response[0] > timePerStep_) knownTime += (response[0] - timePerStep_);
+					if(response[0] > state().timePerStep_) knownTime += (response[0] - state().timePerStep_);
 					else  knownTime += response[0];
 					constantContact += response[1];
 					counter++;
 				}
-				next = next.getNext();
 			}
 		}
 		double[] responseValue = {((double)knownTime/counter), ((double)constantContact/counter), (double) counter};
@@ -229,19 +370,14 @@ public class KnownVehiclesList{
 	 */
 	
 	public double[] checkBeacons(long ID){
-		double[] returnValue = new double[3];
-		int hash = (int)(ID % HASH_SIZE);
-		if(hash < 0) hash = -hash;
-		KnownVehicle next = head_[hash];
-		while(next != null){
-			if(next.getID() == ID){	
-				returnValue[0] = next.getLastUpdate() - VALID_TIME - next.getFirstContact_();
-				if(returnValue[0] < 0) returnValue[0] = 0;
-				returnValue[1] = next.getPersistentContactCount();
-				returnValue[2] = 0;
-				return returnValue;
-			}
-			next = next.getNext();
+		KnownVehicle next = find(ID);
+		if(next != null){	
+			double[] returnValue = new double[3];
+			returnValue[0] = next.getLastUpdate() - VALID_TIME - next.getFirstContact_();
+			if(returnValue[0] < 0) returnValue[0] = 0;
+			returnValue[1] = next.getPersistentContactCount();
+			returnValue[2] = 0;
+			return returnValue;
 		}
 		return null;
 	}
@@ -253,14 +389,9 @@ public class KnownVehiclesList{
 	
 	public int[] hasBeenSeenWaitingFor(long ID){
 		int[] returnValue = {-1,-1};
-		int hash = (int)(ID % HASH_SIZE);
-		if(hash < 0) hash = -hash;
-		KnownVehicle next = head_[hash];
-		while(next != null){
-			if(next.getID() == ID){	
-				return next.getTimeStanding();
-			}
-			next = next.getNext();
+		KnownVehicle next = find(ID);
+		if(next != null){	
+			return next.getTimeStanding();
 		}
 		return returnValue;
 	}
@@ -290,40 +421,29 @@ public class KnownVehiclesList{
 	 */
 	
 	public void showSpeedData(long ID){
-		int hash = (int)(ID % HASH_SIZE);
-		if(hash < 0) hash = -hash;
-		KnownVehicle next = head_[hash];
-		while(next != null){
-			if(next.getID() == ID){	
-				next.showSpeedData();
-			}
-			next = next.getNext();
+		KnownVehicle next = find(ID);
+		if(next != null){	
+			next.showSpeedData();
 		}
 	}
 	
 	public double[] getSpecificSpeedDataSet(long ID, int index1){
-		int hash = (int)(ID % HASH_SIZE);
-		if(hash < 0) hash = -hash;
-		KnownVehicle next = head_[hash];
-		while(next != null){
-			if(next.getID() == ID){	
-				return next.getSpecificSpeedDataSet(index1);
-			}
-			next = next.getNext();
+		KnownVehicle next = find(ID);
+		if(next != null){	
+			return next.getSpecificSpeedDataSet(index1);
 		}
 		
 		return null;
 	}
 	
 	/**
-	 * Gets an hashed array with known vehicles (array length depends on the HASH_SIZE). You can iterate through 
-	 * all known vehicles by using <code>getNext()</code> until you get to a <code>null</code> element on all 
-	 * elements of this array
+	 * Gets the hash table with the known vehicles. You can iterate through all known vehicles by skipping the 
+	 * <code>null</code> elements of this array. The table is replaced if it grows so don't keep the array.
 	 * 
 	 * @return the array with known vehicles
 	 */
-	public KnownVehicle[] getFirstKnownVehicle(){
-		return head_;
+	public KnownVehicle[] getKnownVehicles(){
+		return entries_;
 	}
 	
 	/**
@@ -341,24 +461,71 @@ public class KnownVehiclesList{
 	 * @param time the new time in milliseconds
 	 */
 	public static void setTimePassed(int time){
-		timePassed_ = time;
+		state().timePassed_ = time;
 	}
 	
 	public static void setTimePerStep_(int timePerStep) {
-		timePerStep_ = timePerStep;
+		state().timePerStep_ = timePerStep;
 	}
 
-	public static int getHashSize() {
-		return HASH_SIZE;
+	/**
+	 * Writes this list to a checkpoint. The hash table is written slot by slot so that it is exactly the same after restoring.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeInt(entries_.length);
+		out.writeInt(size_);
+		out.writeBoolean(logKnownTime);
+		for(int i = 0; i < entries_.length; ++i){
+			if(entries_[i] == null) out.writeBoolean(false);
+			else {
+				out.writeBoolean(true);
+				out.writeLong(ids_[i]);
+				entries_[i].writeCheckpoint(out);
+			}
+		}
 	}
-
+	
+	/**
+	 * Replaces the content of this list with the content read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		int capacity = in.readInt();
+		ids_ = new long[capacity];
+		entries_ = new KnownVehicle[capacity];
+		size_ = in.readInt();
+		logKnownTime = in.readBoolean();
+		for(int i = 0; i < capacity; ++i){
+			if(in.readBoolean()){
+				ids_[i] = in.readLong();
+				entries_[i] = new KnownVehicle(in);
+			}
+		}
+	}
+	
 	/**
 	 * Clears everything from this data structure.
 	 */
 	public void clear(){
-		head_ = new KnownVehicle[HASH_SIZE];
+		ids_ = new long[INITIAL_CAPACITY];
+		entries_ = new KnownVehicle[INITIAL_CAPACITY];
 		size_ = 0;
+		pool_ = null;
+		poolSize_ = 0;
 	}
 	
 
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
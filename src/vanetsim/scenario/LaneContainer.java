@@ -17,6 +17,11 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+
 /**
  * A LaneContainer contains all LaneObjects in one direction of a street. The objects may be on different lanes.
  * but they must all be in the same direction!<br>
@@ -404,6 +409,33 @@ public class LaneContainer{
 		return size_;
 	}
 	
+	/**
+	 * Writes the head, the tail and the size of this container to a checkpoint. The links between the objects are written
+	 * with the objects.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an object could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeLaneObject(head_);
+		out.writeLaneObject(tail_);
+		out.writeInt(size_);
+	}
+	
+	/**
+	 * Reads the head, the tail and the size of this container from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		head_ = in.readLaneObject();
+		tail_ = in.readLaneObject();
+		size_ = in.readInt();
+	}
+	
 	/**
 	 * Removes all elements from this container.
 	 */
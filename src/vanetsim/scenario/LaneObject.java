@@ -17,7 +17,11 @@
  */
 package vanetsim.scenario;
 
+import java.io.IOException;
+
 import vanetsim.map.Street;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
 
 /**
  * This class represents an object which is on a lane of a street. Use this class as a base for all
@@ -52,6 +56,44 @@ public class LaneObject{
 	/** The direction of the object on the street.<br> <code>true</code> = moving from startNode to endNode<br> <code>false</code> = moving from endNode to startNode */
 	protected boolean curDirection_ = true;
 	
+	/**
+	 * Writes the position of this object and its links to its neighbours on the lane to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a neighbour or the street could not be written
+	 */
+	protected void writeLaneCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeLaneObject(previous_);
+		out.writeLaneObject(next_);
+		out.writeInt(curX_);
+		out.writeInt(curY_);
+		out.writeDouble(curSpeed_);
+		out.writeDouble(curPosition_);
+		out.writeInt(curLane_);
+		out.writeStreet(curStreet_);
+		out.writeBoolean(curDirection_);
+	}
+	
+	/**
+	 * Reads the position of this object and its links to its neighbours on the lane from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	protected void readLaneCheckpoint(CheckpointReader in) throws IOException{
+		previous_ = in.readLaneObject();
+		next_ = in.readLaneObject();
+		curX_ = in.readInt();
+		curY_ = in.readInt();
+		curSpeed_ = in.readDouble();
+		curPosition_ = in.readDouble();
+		curLane_ = in.readInt();
+		curStreet_ = in.readStreet();
+		curDirection_ = in.readBoolean();
+	}
+	
 	/**
 	 * Calculate position on map (curX and curY). Needed for rendering, communication and so on.
 	 */
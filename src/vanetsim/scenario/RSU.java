@@ -18,17 +18,25 @@
 package vanetsim.scenario;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.ArrayDeque;
+import java.util.function.Supplier;
 
 
-import vanetsim.gui.Renderer;
 import vanetsim.gui.controlpanels.ReportingControlPanel;
 import vanetsim.map.Node;
 import vanetsim.map.Region;
 import vanetsim.map.Street;
 import vanetsim.scenario.messages.Message;
 import vanetsim.map.Map;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.InteractionBuffer;
+import vanetsim.simulation.SimulationContext;
+import vanetsim.simulation.WorkerThread;
 
 
 /**
@@ -40,27 +48,65 @@ public final class RSU {
 	/** A reference to the reporting control panel so that we don't need to call this over and over again. */
 	private static final ReportingControlPanel REPORT_PANEL = Vehicle.getREPORT_PANEL();
 	
-	/** A common counter to generate unique IDs */
-	private static int counter_ = 1;
-	
-	/** How long a Road-Side-Unit waits to communicate again (in milliseconds). Also used for cleaning up outdated known messages. */
-	private static int communicationInterval_ = Vehicle.getCommunicationInterval();
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(RSU.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all RSUs of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** A common counter to generate unique IDs */
+		int counter_ = 1;
+
+		/** How long a Road-Side-Unit waits to communicate again (in milliseconds). Also used for cleaning up outdated known messages. */
+		int communicationInterval_ = Vehicle.getCommunicationInterval();
+
+		/** How long a Road-Side-Unit waits to send its beacons again. */
+		int beaconInterval_ = Vehicle.getBeaconInterval();
+
+		/** If communication is enabled */
+		boolean communicationEnabled_ = Vehicle.getCommunicationEnabled();	
+
+		/** If beacons are enabled */
+		boolean beaconsEnabled_ = Vehicle.getBeaconsEnabled();
+
+		/** An array holding all regions of the map (part of the map, not written to checkpoints). */
+		transient Region[][] regions_;
+
+		/** If monitoring the beacon is enabled or not. */
+		boolean beaconMonitorEnabled_ = false;
+
+		/** The minimum x coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMinX_ = -1;
+
+		/** The maximum x coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMaxX_ = -1;
+
+		/** The minimum y coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMinY_ = -1;
+
+		/** The maximum y coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMaxY_ = -1;
+
+		/** activates demonstration mode of encrypted Mix-Zones */
+		boolean showEncryptedBeaconsInMix_ = false;
+
+		/** saves all colored vehicles */
+		ArrayDeque<Vehicle> coloredVehicles = new ArrayDeque<Vehicle>();
+
+		RSU lastSender = null;
+
+		/** flag to clear vehicle color */
+		boolean colorCleared = false;
+	}
+
 
-	/** How long a Road-Side-Unit waits to send its beacons again. */
-	private static int beaconInterval_ = Vehicle.getBeaconInterval();
-	
-	/** If communication is enabled */
-	private static boolean communicationEnabled_ = Vehicle.getCommunicationEnabled();	
 
-	/** If beacons are enabled */
-	private static boolean beaconsEnabled_ = Vehicle.getBeaconsEnabled();
-	
-	/** A reference to the map so that we don't need to call this over and over again. */
-	private static final Map MAP = Map.getInstance();
-	
-	/** An array holding all regions of the map. */
-	private static Region[][] regions_;
-	
 	/** When known vehicles are rechecked for outdated entries. Measured in milliseconds. */
 	private static final int KNOWN_VEHICLES_TIMEOUT_CHECKINTERVAL = 1000;
 	
@@ -91,20 +137,6 @@ public final class RSU {
 	/** A countdown for rechecking if known vehicles are outdated. */
 	private int knownVehiclesTimeoutCountdown_;
 	
-	/** If monitoring the beacon is enabled or not. */
-	private static boolean beaconMonitorEnabled_ = false;
-	
-	/** The minimum x coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMinX_ = -1;
-	
-	/** The maximum x coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMaxX_ = -1;
-	
-	/** The minimum y coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMinY_ = -1;
-	
-	/** The maximum y coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMaxY_ = -1;
 
 	/** A class storing messages of different states: execute, forward and old ones. Also used in the Vehicle class */
 	private final KnownMessages knownMessages_ = new KnownMessages();
@@ -112,9 +144,6 @@ public final class RSU {
 	/** A list of all vehicles currently known because of received beacons. */
 	private final KnownVehiclesList knownVehiclesList_ = new KnownVehiclesList();
 	
-	/** activates demonstration mode of encrypted Mix-Zones */
-	private static boolean showEncryptedBeaconsInMix_ = false;
-	
 	/** static array to save the colored vehicles that are behind the marked vehicle */
 	private Vehicle[] vehicleBehind_;
 	
@@ -124,14 +153,6 @@ public final class RSU {
 	/** static array to save the colored vehicles that are toward the marked vehicle */
 	private Vehicle[] vehicleToward_;
 	
-	/** saves all colored vehicles */
-	public static ArrayDeque<Vehicle> coloredVehicles = new ArrayDeque<Vehicle>();
-	
-	public static RSU lastSender = null;
-	
-	/** flag to clear vehicle color */
-	public static boolean colorCleared = false;
-	
 	/**
 	 * Instantiates a new RSU.
 	 * 
@@ -145,12 +166,12 @@ public final class RSU {
 		y_ = y;
 		wifiRadius_ = radius;
 		isEncrypted_ = isEncrypted;
-		rsuID_ = counter_;
-		++counter_;
+		rsuID_ = state().counter_;
+		++state().counter_;
 		
 		//set the countdowns so that not all fire at the same time!
-		beaconCountdown_ = (int)Math.round(x_)%beaconInterval_;
-		communicationCountdown_ = (int)Math.round(x_)%communicationInterval_;
+		beaconCountdown_ = (int)Math.round(x_)%state().beaconInterval_;
+		communicationCountdown_ = (int)Math.round(x_)%state().communicationInterval_;
 		knownVehiclesTimeoutCountdown_ = (int)Math.round(x_)%KNOWN_VEHICLES_TIMEOUT_CHECKINTERVAL;
 	}
 	
@@ -159,12 +180,14 @@ public final class RSU {
 	 * to the RSUs(often to far away)
 	 */
 	public void sendMessages(){
-		communicationCountdown_ += communicationInterval_;
+		communicationCountdown_ += state().communicationInterval_;
 
 		Message[] messages = knownMessages_.getForwardMessages();
 		int messageSize = knownMessages_.getSize();
 		
 		int i, j, k, size, MapMinX, MapMinY, MapMaxX, MapMaxY, RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
+		int[] xs, ys, flags;
+		Region region;
 		Vehicle[] vehicles = null;
 		Vehicle vehicle = null;
 
@@ -193,11 +216,11 @@ public final class RSU {
 		else MapMaxY = Integer.MAX_VALUE;
 
 		// Get the regions to be considered for sending beacons
-		Region tmpregion = MAP.getRegionOfPoint(MapMinX, MapMinY);
+		Region tmpregion = Map.getInstance().getRegionOfPoint(MapMinX, MapMinY);
 		RegionMinX = tmpregion.getX();
 		RegionMinY = tmpregion.getY();
 
-		tmpregion = MAP.getRegionOfPoint(MapMaxX, MapMaxY);
+		tmpregion = Map.getInstance().getRegionOfPoint(MapMaxX, MapMaxY);
 		RegionMaxX = tmpregion.getX();
 		RegionMaxY = tmpregion.getY();
 		long maxCommDistanceSquared = (long)wifiRadius_ * wifiRadius_;
@@ -208,14 +231,18 @@ public final class RSU {
 		// only iterate through those regions which are within the distance
 		for(i = RegionMinX; i <= RegionMaxX; ++i){
 			for(j = RegionMinY; j <= RegionMaxY; ++j){
-				vehicles = regions_[i][j].getVehicleArray();	//use the array as it's MUCH faster!
-				size = vehicles.length;
+				region = state().regions_[i][j];
+				vehicles = region.getVehicleStore();	//use the array as it's MUCH faster!
+				xs = region.getVehicleXs();		// the packed values so that vehicles out of range are not touched at all
+				ys = region.getVehicleYs();
+				flags = region.getVehicleFlags();
+				size = region.getVehicleCount();
 				for(k = 0; k < size; ++k){
-					vehicle = vehicles[k];
 					// precheck if the vehicle is near enough and valid (check is not exact as its a rectangular box and not circle)
-					if(vehicle.isWiFiEnabled() && vehicle.isActive() && vehicle.getX() >= MapMinX && vehicle.getX() <= MapMaxX && vehicle.getY() >= MapMinY && vehicle.getY() <= MapMaxY){
-						dx = vehicle.getX() - x_;
-						dy = vehicle.getY() - y_;
+					if((flags[k] & Region.VEHICLE_COMMUNICATING) == Region.VEHICLE_COMMUNICATING && xs[k] >= MapMinX && xs[k] <= MapMaxX && ys[k] >= MapMinY && ys[k] <= MapMaxY){
+						vehicle = vehicles[k];
+						dx = xs[k] - x_;
+						dy = ys[k] - y_;
 						++sendCount;
 						if((dx * dx + dy * dy) <= maxCommDistanceSquared){	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
 							for(int l = messageSize - 1; l > -1; --l){		
@@ -239,9 +266,11 @@ public final class RSU {
 	 * </ul>
 	 */
 	public void sendBeacons(){
-		beaconCountdown_ += beaconInterval_;
+		beaconCountdown_ += state().beaconInterval_;
 
 		int i, j, k, size, MapMinX, MapMinY, MapMaxX, MapMaxY, RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
+		int[] xs, ys, flags;
+		Region region;
 		Vehicle[] vehicles = null;
 		Vehicle vehicle = null;
 
@@ -270,11 +299,11 @@ public final class RSU {
 		else MapMaxY = Integer.MAX_VALUE;
 
 		// Get the regions to be considered for sending beacons
-		Region tmpregion = MAP.getRegionOfPoint(MapMinX, MapMinY);
+		Region tmpregion = Map.getInstance().getRegionOfPoint(MapMinX, MapMinY);
 		RegionMinX = tmpregion.getX();
 		RegionMinY = tmpregion.getY();
 
-		tmpregion = MAP.getRegionOfPoint(MapMaxX, MapMaxY);
+		tmpregion = Map.getInstance().getRegionOfPoint(MapMaxX, MapMaxY);
 		RegionMaxX = tmpregion.getX();
 		RegionMaxY = tmpregion.getY();
 		long maxCommDistanceSquared = (long)wifiRadius_ * wifiRadius_;
@@ -284,14 +313,18 @@ public final class RSU {
 		// only iterate through those regions which are within the distance
 		for(i = RegionMinX; i <= RegionMaxX; ++i){
 			for(j = RegionMinY; j <= RegionMaxY; ++j){
-				vehicles = regions_[i][j].getVehicleArray();	//use the array as it's MUCH faster!
-				size = vehicles.length;
+				region = state().regions_[i][j];
+				vehicles = region.getVehicleStore();	//use the array as it's MUCH faster!
+				xs = region.getVehicleXs();		// the packed values so that vehicles out of range are not touched at all
+				ys = region.getVehicleYs();
+				flags = region.getVehicleFlags();
+				size = region.getVehicleCount();
 				for(k = 0; k < size; ++k){
-					vehicle = vehicles[k];
 					// precheck if the vehicle is near enough and valid (check is not exact as its a rectangular box and not circle)
-					if(vehicle.isWiFiEnabled() && vehicle.isActive() && vehicle.getX() >= MapMinX && vehicle.getX() <= MapMaxX && vehicle.getY() >= MapMinY && vehicle.getY() <= MapMaxY){
-						dx = vehicle.getX() - x_;
-						dy = vehicle.getY() - y_;
+					if((flags[k] & Region.VEHICLE_COMMUNICATING) == Region.VEHICLE_COMMUNICATING && xs[k] >= MapMinX && xs[k] <= MapMaxX && ys[k] >= MapMinY && ys[k] <= MapMaxY){
+						vehicle = vehicles[k];
+						dx = xs[k] - x_;
+						dy = ys[k] - y_;
 						if((dx * dx + dy * dy) <= maxCommDistanceSquared){	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
 							vehicle.getKnownRSUsList().updateRSU(this, rsuID_, x_, y_, isEncrypted_);
 						}
@@ -302,8 +335,8 @@ public final class RSU {
 
 		
 		// allow beacon monitoring
-		if(beaconMonitorEnabled_){
-			if(x_ >= beaconMonitorMinX_ && x_ <= beaconMonitorMaxX_ && y_ >= beaconMonitorMinY_ && y_ <= beaconMonitorMaxY_){
+		if(state().beaconMonitorEnabled_){
+			if(x_ >= state().beaconMonitorMinX_ && x_ <= state().beaconMonitorMaxX_ && y_ >= state().beaconMonitorMinY_ && y_ <= state().beaconMonitorMaxY_){
 				REPORT_PANEL.addBeacon(this, rsuID_, x_, y_, false);
 			}
 		}
@@ -319,11 +352,11 @@ public final class RSU {
 	 * </ul>
 	 */
 	public void sendEncryptedBeacons(){
-		beaconCountdown_ += beaconInterval_;
+		beaconCountdown_ += state().beaconInterval_;
 		
-		if(lastSender != null && this.equals(lastSender)){
-			for(Vehicle v : coloredVehicles) v.setColor(Color.black);			
-			coloredVehicles.clear();
+		if(state().lastSender != null && this.equals(state().lastSender)){
+			for(Vehicle v : state().coloredVehicles) v.setColor(Color.black);			
+			state().coloredVehicles.clear();
 		}
 		
 		// variables to tmp save the different vehicles and information. 
@@ -354,12 +387,12 @@ public final class RSU {
 		long distanceSenderToNodeFront, senderDxFront, senderDyFront, distanceSenderToNodeBehind, senderDxBehind, senderDyBehind, distanceRecipientToNodeFront, recipientDxFront, recipientDyFront, distanceRecipientToNodeBehind, recipientDxBehind, recipientDyBehind, distanceRecipientToNodeJunction, nodeJunctionDx, nodeJunctionDy, tmpDx, tmpDy, dxMix = 0, dyMix = 0;
 		
 		//lists to compare every vehicle with every vehicle
-		KnownVehicle[] senderHeads = knownVehiclesList_.getFirstKnownVehicle();
+		KnownVehicle[] senderHeads = knownVehiclesList_.getKnownVehicles();
 		Vehicle senderVehicle = null;
 		KnownVehicle senderNext;
 
 		
-		KnownVehicle[] recipientHeads = knownVehiclesList_.getFirstKnownVehicle();
+		KnownVehicle[] recipientHeads = knownVehiclesList_.getKnownVehicles();
 		Vehicle recipientVehicle = null;
 		KnownVehicle recipientNext;
 
@@ -372,7 +405,7 @@ public final class RSU {
 		//traverse every vehicle in the mix zone
 		for(int j = 0; j < senderHeads.length; ++j){
 			senderNext = senderHeads[j];								
-			while(senderNext != null){
+			if(senderNext != null){
 				senderVehicle = senderNext.getVehicle();
 					//clear the data of the previous round
 					tmpVehicles.clear();	
@@ -446,7 +479,7 @@ public final class RSU {
 					for(int i = 0; i < recipientHeads.length; ++i){
 
 						recipientNext = recipientHeads[i];								
-						while(recipientNext != null){
+						if(recipientNext != null){
 
 							recipientVehicle = recipientNext.getVehicle();
 
@@ -559,7 +592,6 @@ public final class RSU {
 								}
 							}
 
-						recipientNext = recipientNext.getNext();
 						}	
 					}
 					//clear colored vehicles
@@ -568,38 +600,37 @@ public final class RSU {
 					for(int k = 0; k < vehicleBehind_.length; k++){
 						if(vehicleBehind_[k] != null){
 							vehicleBehind_[k].getKnownVehiclesList().updateVehicle(senderVehicle, senderVehicle.getID(), senderVehicle.getX(), senderVehicle.getY(), senderVehicle.getCurSpeed(), rsuID_, true, false);
-							if(senderVehicle.equals(Renderer.getInstance().getMarkedVehicle()) && showEncryptedBeaconsInMix_) {
-								coloredVehicles.add(vehicleBehind_[k]);
+							if(senderVehicle.equals(EngineContext.getMarkedVehicle()) && state().showEncryptedBeaconsInMix_) {
+								state().coloredVehicles.add(vehicleBehind_[k]);
 								vehicleBehind_[k].setColor(Color.red);
-								lastSender = this;
+								state().lastSender = this;
 							}
 						}
 						if(vehicleFront_[k] != null){
 							vehicleFront_[k].getKnownVehiclesList().updateVehicle(senderVehicle, senderVehicle.getID(), senderVehicle.getX(), senderVehicle.getY(), senderVehicle.getCurSpeed(), rsuID_, true, false);
-							if(senderVehicle.equals(Renderer.getInstance().getMarkedVehicle()) && showEncryptedBeaconsInMix_){
-								coloredVehicles.add(vehicleFront_[k]);
+							if(senderVehicle.equals(EngineContext.getMarkedVehicle()) && state().showEncryptedBeaconsInMix_){
+								state().coloredVehicles.add(vehicleFront_[k]);
 								vehicleFront_[k].setColor(Color.red);
-								lastSender = this;
+								state().lastSender = this;
 							}
 						}
 						if(vehicleToward_[k] != null){
 							vehicleToward_[k].getKnownVehiclesList().updateVehicle(senderVehicle, senderVehicle.getID(), senderVehicle.getX(), senderVehicle.getY(), senderVehicle.getCurSpeed(), rsuID_, true, false);
-							if(senderVehicle.equals(Renderer.getInstance().getMarkedVehicle()) && showEncryptedBeaconsInMix_){
-								coloredVehicles.add(vehicleToward_[k]);
+							if(senderVehicle.equals(EngineContext.getMarkedVehicle()) && state().showEncryptedBeaconsInMix_){
+								state().coloredVehicles.add(vehicleToward_[k]);
 								vehicleToward_[k].setColor(Color.red);
-								lastSender = this;
+								state().lastSender = this;
 							}
 						}
 					}	
 					for(Vehicle v : tmpVehicles.values()) {
 						v.getKnownVehiclesList().updateVehicle(senderVehicle, senderVehicle.getID(), senderVehicle.getX(), senderVehicle.getY(), senderVehicle.getCurSpeed(), rsuID_, true, false);
-						if(senderVehicle.equals(Renderer.getInstance().getMarkedVehicle()) && showEncryptedBeaconsInMix_){
-							coloredVehicles.add(v);
+						if(senderVehicle.equals(EngineContext.getMarkedVehicle()) && state().showEncryptedBeaconsInMix_){
+							state().coloredVehicles.add(v);
 							v.setColor(Color.red);
-							lastSender = this;
+							state().lastSender = this;
 						}
 					}
-				senderNext = senderNext.getNext();
 			}		
 		}
 	}	
@@ -613,6 +644,11 @@ public final class RSU {
 	 * @param message	the message
 	 */
 	public final void receiveMessage(int sourceX, int sourceY, Message message){
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: received at the end of the phase
+			buffer.addMessage(this, sourceX, sourceY, message);
+			return;
+		}
 		//set broadcast mode, otherwise all vehicles would forward the broadcasted message (performance)
 		message.setFloodingMode(true);
 		
@@ -629,14 +665,14 @@ public final class RSU {
 	public void cleanup(int timePerStep){
 		//Has to be a special step because in all other steps other communication is done. This could create
 		//some synchronization problems!	
-		if(communicationEnabled_){
+		if(state().communicationEnabled_){
 			if(knownMessages_.hasNewMessages()) knownMessages_.processMessages();
 			communicationCountdown_ -= timePerStep;
 			if(communicationCountdown_ < 1) knownMessages_.checkOutdatedMessages(true);
 				
-			if(beaconsEnabled_) beaconCountdown_ -= timePerStep;	
+			if(state().beaconsEnabled_) beaconCountdown_ -= timePerStep;	
 		}
-		if(beaconsEnabled_){
+		if(state().beaconsEnabled_){
 			beaconCountdown_ -= timePerStep;
 
 			// recheck known vehicles for outdated entries.
@@ -647,6 +683,17 @@ public final class RSU {
 		}
 	}
 	
+	/**
+	 * Forgets all vehicles and the messages received so far. Called when all vehicles are removed from the map.
+	 */
+	public void forgetVehicles(){
+		knownVehiclesList_.clear();
+		knownMessages_.clear();
+		vehicleBehind_ = null;
+		vehicleFront_ = null;
+		vehicleToward_ = null;
+	}
+	
 	/**
 	 * Resets this rsu so that it can be reused.
 	
@@ -663,6 +710,50 @@ public final class RSU {
 	}
 	/*
 	
+	/**
+	 * Writes the countdowns, the known messages and vehicles and the vehicles in reach of this RSU to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a message could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(beaconCountdown_);
+		out.writeInt(communicationCountdown_);
+		out.writeInt(knownVehiclesTimeoutCountdown_);
+		knownMessages_.writeCheckpoint(out);
+		knownVehiclesList_.writeCheckpoint(out);
+		out.writeVehicles(vehicleBehind_, vehicleBehind_ == null ? 0 : vehicleBehind_.length);
+		out.writeVehicles(vehicleFront_, vehicleFront_ == null ? 0 : vehicleFront_.length);
+		out.writeVehicles(vehicleToward_, vehicleToward_ == null ? 0 : vehicleToward_.length);
+	}
+	
+	/**
+	 * Reads the countdowns, the known messages and vehicles and the vehicles in reach of this RSU from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		beaconCountdown_ = in.readInt();
+		communicationCountdown_ = in.readInt();
+		knownVehiclesTimeoutCountdown_ = in.readInt();
+		knownMessages_.readCheckpoint(in);
+		knownVehiclesList_.readCheckpoint(in);
+		vehicleBehind_ = in.readVehicles();
+		vehicleFront_ = in.readVehicles();
+		vehicleToward_ = in.readVehicles();
+	}
+	
+	/**
+	 * Forgets the vehicles colored in the demonstration mode of encrypted mix zones.
+	 */
+	public static void clearColoredVehicles(){
+		state().coloredVehicles.clear();
+		state().lastSender = null;
+	}
+	
 	/**
 	 * Returns the Road-Side-Unit id
 	 * 
@@ -741,7 +832,7 @@ public final class RSU {
 	 * @param regions	the array with all regions
 	 */
 	public static void setRegions(Region[][] regions){
-		regions_ = regions;
+		state().regions_ = regions;
 	}
 
 	/**
@@ -750,7 +841,7 @@ public final class RSU {
 	 * @param state	<code>true</code> to enable beacons, else <code>false</code> 
 	 */
 	public static void setBeaconsEnabled(boolean state){
-		beaconsEnabled_ = state;
+		state().beaconsEnabled_ = state;
 	}
 	
 	/**
@@ -759,7 +850,7 @@ public final class RSU {
 	 * @param state	<code>true</code> to enable communication, else <code>false</code> 
 	 */
 	public static void setCommunicationEnabled(boolean state){
-		communicationEnabled_ = state;
+		state().communicationEnabled_ = state;
 	}
 	
 	/**
@@ -768,7 +859,7 @@ public final class RSU {
 	 * @param communicationInterval	the new value 
 	 */
 	public static void setCommunicationInterval(int communicationInterval){
-		communicationInterval_ = communicationInterval;
+		state().communicationInterval_ = communicationInterval;
 	}
 
 	/**
@@ -777,7 +868,7 @@ public final class RSU {
 	 * @param beaconInterval	the new value 
 	 */
 	public static void setBeaconInterval(int beaconInterval){
-		beaconInterval_ = beaconInterval;
+		state().beaconInterval_ = beaconInterval;
 	}
 	
 	/**
@@ -786,7 +877,7 @@ public final class RSU {
 	 * @param beaconMonitorEnabled	<code>true</code> to enable monitoring mix zones, else <code>false</code> 
 	 */
 	public static void setBeaconMonitorZoneEnabled(boolean beaconMonitorEnabled){
-		beaconMonitorEnabled_ = beaconMonitorEnabled;
+		state().beaconMonitorEnabled_ = beaconMonitorEnabled;
 	}
 	
 	/**
@@ -799,10 +890,10 @@ public final class RSU {
 	 * @param beaconMonitorMaxY	the maximum y coordinate
 	 */
 	public static void setMonitoredMixZoneVariables(int beaconMonitorMinX, int beaconMonitorMaxX, int beaconMonitorMinY, int beaconMonitorMaxY){
-		beaconMonitorMinX_ = beaconMonitorMinX;
-		beaconMonitorMaxX_ = beaconMonitorMaxX;
-		beaconMonitorMinY_ = beaconMonitorMinY;
-		beaconMonitorMaxY_ = beaconMonitorMaxY;
+		state().beaconMonitorMinX_ = beaconMonitorMinX;
+		state().beaconMonitorMaxX_ = beaconMonitorMaxX;
+		state().beaconMonitorMinY_ = beaconMonitorMinY;
+		state().beaconMonitorMaxY_ = beaconMonitorMaxY;
 	}
 
 	public boolean isEncrypted_() {
@@ -814,11 +905,20 @@ public final class RSU {
 	}
 
 	public static boolean isShowEncryptedBeaconsInMix_() {
-		return showEncryptedBeaconsInMix_;
+		return state().showEncryptedBeaconsInMix_;
 	}
 
 	public static void setShowEncryptedBeaconsInMix_(
 			boolean showEncryptedBeaconsInMix_) {
-		RSU.showEncryptedBeaconsInMix_ = showEncryptedBeaconsInMix_;
+		state().showEncryptedBeaconsInMix_ = showEncryptedBeaconsInMix_;
+	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
 	}
 }
\ No newline at end of file
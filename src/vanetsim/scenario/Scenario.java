@@ -27,6 +27,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.function.Supplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -35,6 +36,7 @@ import java.util.ArrayDeque;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -63,6 +65,8 @@ import vanetsim.scenario.events.EventSpot;
 import vanetsim.scenario.events.EventSpotList;
 import vanetsim.scenario.events.StartBlocking;
 import vanetsim.scenario.events.StopBlocking;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 import vanetsim.simulation.WorkerThread;
 
 /**
@@ -70,8 +74,15 @@ import vanetsim.simulation.WorkerThread;
  */
 public final class Scenario{
 
-	/** The only instance of this class (singleton). */
-	private static final Scenario INSTANCE = new Scenario();
+	/** The slot of the scenario in the {@link SimulationContext}. There is one instance per simulation context. */
+	private static final int SLOT = SimulationContext.newSlot(Scenario.class);
+
+	/** Creates the scenario of a new simulation context. */
+	private static final Supplier<Scenario> NEW_INSTANCE = new Supplier<Scenario>(){
+		public Scenario get(){
+			return new Scenario();
+		}
+	};
 
 	/** A flag to signal if loading is ready. While loading is in progress, simulation and rendering is not possible. */
 	private boolean ready_ = true;
@@ -86,12 +97,12 @@ public final class Scenario{
 	}	
 
 	/**
-	 * Gets the single instance of this scenario.
+	 * Gets the single instance of this scenario in the current simulation context.
 	 * 
-	 * @return single instance of this scenario
+	 * @return single instance of this scenario in the current simulation context
 	 */
 	public static Scenario getInstance(){
-		return INSTANCE;
+		return SimulationContext.state(SLOT, NEW_INSTANCE);
 	}
 
 	/**
@@ -100,36 +111,30 @@ public final class Scenario{
 	public void initNewScenario(){
 		if(ready_ == true){
 			ready_ = false;
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getSimulationMaster().stopThread();
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getSimulatePanel().setSimulationStop();
+			if(!EngineContext.isConsoleStart())VanetSimStart.getSimulationMaster().stopThread();
+			if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getSimulatePanel().setSimulationStop();
 			KnownVehiclesList.setTimePassed(0);
 			IDSProcessorList.setTimePassed(0);
 			KnownRSUsList.setTimePassed(0);
-			Renderer.getInstance().setTimePassed(0);
-			Renderer.getInstance().setMarkedVehicle(null);
-			Renderer.getInstance().setShowVehicles(false);
-			Renderer.getInstance().setShowRSUs(false);
-			Renderer.getInstance().setShowMixZones(false);
-			Renderer.getInstance().setAttackedVehicle(null);
-			Renderer.getInstance().setAttackerVehicle(null);
-			Renderer.getInstance().setShowAttackers(false);
+			EngineContext.setTimePassed(0);
+			EngineContext.setMarkedVehicle(null);
+			EngineContext.setAttackedVehicle(null);
+			EngineContext.setAttackerVehicle(null);
+			if(!EngineContext.isConsoleStart()){
+				Renderer.getInstance().setShowVehicles(false);
+				Renderer.getInstance().setShowRSUs(false);
+				Renderer.getInstance().setShowMixZones(false);
+				Renderer.getInstance().setShowAttackers(false);
+			}
 			Vehicle.setMaximumCommunicationDistance(0);
 			Vehicle.resetGlobalRandomGenerator();
 			Vehicle.setMinTravelTimeForRecycling(60000);	// standard value for recycle time
 			Vehicle.setArsuList(new AttackRSU[0]);
 			Vehicle.setAttackedVehicleID_(0);
-			if(!Renderer.getInstance().isConsoleStart())MouseClickManager.getInstance().cleanMarkings();
-			Region[][] Regions = Map.getInstance().getRegions();
-			int Region_max_x = Map.getInstance().getRegionCountX();
-			int Region_max_y = Map.getInstance().getRegionCountY();
-			int i, j;
-			for(i = 0; i < Region_max_x; ++i){
-				for(j = 0; j < Region_max_y; ++j){
-					Regions[i][j].cleanVehicles();
-				}
-			}
+			if(!EngineContext.isConsoleStart())MouseClickManager.getInstance().cleanMarkings();
+			Map.getInstance().clearVehicles();
 			EventList.getInstance().clearEvents();
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditEventPanel().updateList();
+			if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditEventPanel().updateList();
 		}		
 	}
 
@@ -144,18 +149,18 @@ public final class Scenario{
 		Map.getInstance().clearMixZones();
 		Map.getInstance().clearRSUs();
 		try{
-			if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(true);
+			if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(true);
 			initNewScenario();
 			String type, penaltyType, fakeMessageType, eventSpotType;
 			int x, y, frequency, radius, time, maxSpeed, vehicleLength, maxCommDistance, direction, lanes, braking_rate, acceleration_rate, timeDistance, politeness, speedDeviation, color, mixX, mixY, mixRadius, wifiX, wifiY, wifiRadius;
-			boolean tmpBoolean, wifi, emergencyVehicle, tmpAttacker, tmpAttacked, isEncrypted, mixHasRSU, isFake, fakingMessages;
+			boolean wifi, emergencyVehicle, tmpAttacker, tmpAttacked, isEncrypted, mixHasRSU, isFake, fakingMessages;
 			long seed;
 			ArrayDeque<WayPoint> destinations;
 			WayPoint tmpWayPoint;
 			Vehicle tmpVehicle;
 			Node[] tmpNodes;
 			Node tmpNode;
-			SMInputCursor childCrsr, vehicleCrsr, vehiclesCrsr, mixNodeCrsr, mixNodesCrsr, settingsCrsr, eventCrsr, eventsCrsr, eventSpotCrsr, eventSpotsCrsr, destinationsCrsr, waypointCrsr, rsuCrsr, rsusCrsr, aRsuCrsr, aRsusCrsr;
+			SMInputCursor childCrsr, vehicleCrsr, vehiclesCrsr, mixNodeCrsr, mixNodesCrsr, eventCrsr, eventsCrsr, eventSpotCrsr, eventSpotsCrsr, destinationsCrsr, waypointCrsr, rsuCrsr, rsusCrsr, aRsuCrsr, aRsusCrsr;
 			XMLInputFactory factory = XMLInputFactory.newInstance();
 
 			
@@ -182,345 +187,7 @@ public final class Scenario{
 				childCrsr = rootCrsr.childElementCursor();
 				while(childCrsr.getNext() != null){
 					if(childCrsr.getLocalName().toLowerCase().equals("settings")){	//$NON-NLS-1$
-						settingsCrsr = childCrsr.childElementCursor();
-						while (settingsCrsr.getNext() != null){
-							if(settingsCrsr.getLocalName().toLowerCase().equals("communicationenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setCommunication(tmpBoolean);
-								Vehicle.setCommunicationEnabled(tmpBoolean);
-								RSU.setCommunicationEnabled(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconsenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setBeacons(tmpBoolean);
-								Vehicle.setBeaconsEnabled(tmpBoolean);
-								RSU.setBeaconsEnabled(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("fallbackinmixzonesenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesFallbackEnabled(tmpBoolean);
-								Vehicle.setMixZonesFallbackEnabled(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("fallbackinmixzonesfloodingonly")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesFallbackFloodingOnly(tmpBoolean);
-								Vehicle.setMixZonesFallbackFloodingOnly(tmpBoolean);								
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("globalInfrastructureenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setGlobalInfrastructure(tmpBoolean);
-								// implementation missing
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("mixzonesenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesEnabled(tmpBoolean);
-								Vehicle.setMixZonesEnabled(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("vehiclerecyclingenabled")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setRecyclingEnabled(tmpBoolean);
-								Vehicle.setRecyclingEnabled(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("communicationinterval")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setCommunicationInterval(tmp);
-									Vehicle.setCommunicationInterval(tmp);
-									RSU.setCommunicationInterval(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconsinterval")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setBeaconInterval(tmp);
-									Vehicle.setBeaconInterval(tmp);
-									RSU.setBeaconInterval(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("mixzoneradius")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZoneRadius(tmp);
-									Vehicle.setMixZoneRadius(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("autoaddmixzones")){ //$NON-NLS-1$
-								if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
-								else tmpBoolean = false;
-								if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getAutoAddMixZones().setEnabled(tmpBoolean);
-								Renderer.getInstance().setAutoAddMixZones(tmpBoolean);
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("routingmode")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									if(tmp > 1) tmp = 1;
-									else if (tmp < 0) tmp = 0;
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setRoutingMode(tmp);
-									Vehicle.setRoutingMode(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("mintraveltimeforrecycling")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setMinTravelTimeForRecycling(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsulog")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(Vehicle.isAttackerDataLogged_()) AttackLogWriter.setLogPath(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsuloggingenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogAttackerCheckBox_().setSelected(true);
-										Vehicle.setAttackerDataLogged_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogAttackerCheckBox_().setSelected(false);
-										Vehicle.setAttackerDataLogged_(false);
-									}
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsuencryptedloggingenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getEncryptedLogging_().setSelected(true);
-										Vehicle.setAttackerEncryptedDataLogged_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getEncryptedLogging_().setSelected(false);
-										Vehicle.setAttackerEncryptedDataLogged_(false);
-									}
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("privacyloggingenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogPrivacyCheckBox_().setSelected(true);
-										Vehicle.setPrivacyDataLogged_(true);
-										PrivacyLogWriter.setLogPath(System.getProperty("user.dir"));
-
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogPrivacyCheckBox_().setSelected(false);
-										Vehicle.setPrivacyDataLogged_(false);
-									}
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("idslog")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(IDSProcessor.isLogIDS_()) IDSLogWriter.setLogPath(tmp);
-									if(!Renderer.getInstance().isConsoleStart()  && !tmp.equals(""))VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSPath_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("idsloggingenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSCheckBox_().setSelected(true);
-										IDSProcessor.setLogIDS_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSCheckBox_().setSelected(false);
-										IDSProcessor.setLogIDS_(false);
-									}
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("eventlog")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(KnownPenalties.isLogEvents_() && !tmp.equals("")) {
-										EventLogWriter.setLogPath(tmp);
-										EventLogWriter.log("Time," + "PenaltyType," + "X," + "Y," + "Sender,"  + "Receiver");
-									}
-									if(!Renderer.getInstance().isConsoleStart()  && !tmp.equals(""))VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventPath_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("eventloggingenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventCheckBox_().setSelected(true);
-										KnownPenalties.setLogEvents_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventCheckBox_().setSelected(false);
-										KnownPenalties.setLogEvents_(false);
-									}
-								} catch (Exception e) {}	
-								
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("showencryptedcomminmix")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getShowEncryptedBeacons_().setSelected(true);
-										RSU.setShowEncryptedBeaconsInMix_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getShowEncryptedBeacons_().setSelected(false);
-										RSU.setShowEncryptedBeaconsInMix_(false);
-									}
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodsenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										Vehicle.setSilentPeriodsOn(true);
-									}
-									else{
-										Vehicle.setSilentPeriodsOn(false);
-									}
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodduration")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setTIME_OF_SILENT_PERIODS(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodfrequency")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setTIME_BETWEEN_SILENT_PERIODS(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowenabled")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										Vehicle.setSlowOn(true);
-									}
-									else{
-										Vehicle.setSlowOn(false);
-									}
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowtimetochangepseudonym")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setTIME_TO_PSEUDONYM_CHANGE(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowspeedlimit")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setSLOW_SPEED_LIMIT(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("idsactivated")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										Vehicle.setIdsActivated(true);
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateIDSCheckBox_().setSelected(true);
-									}
-									else{
-										Vehicle.setIdsActivated(false);
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateIDSCheckBox_().setSelected(false);
-									}
-
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("advancedidsrules")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateAdvancedIDSCheckBox_().setSelected(true);
-										IDSProcessor.setAdvancedIDSRules_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateAdvancedIDSCheckBox_().setSelected(false);
-										IDSProcessor.setAdvancedIDSRules_(false);
-									}
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("activerules")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									IDSProcessor.setActiveRules_(tmp.split(":"));
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().updateGUI();
-
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconslogged")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									KnownVehicle.setAmountOfSavedBeacons(tmp);
-									if(!Renderer.getInstance().isConsoleStart())if(tmp > 0)VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getBeaconsLogged_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("fakemessageinterval")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setFakeMessagesInterval_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getFakeMessageInterval_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("pcnthreshold")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setPCNDistance_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getPCNThreshold_().setValue(Math.sqrt(tmp));
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("pcnforwardthreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setPCNFORWARDThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getPCNFORWARDThreshold_().setValue(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("evaforwardthreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setEVAFORWARDThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVAFORWARDThreshold_().setValue(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("rhcnthreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setRHCNThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getRHCNThreshold_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("eeblthreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setEEBLThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())	VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEEBLThreshold_().setValue(tmp);
-								} catch (Exception e) {}	
-							}else if(settingsCrsr.getLocalName().toLowerCase().equals("evabeacontimethreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setEVABeaconTimeFactor_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVABeaconTimeThreshold_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("evabeaconthreshold")){ //$NON-NLS-1$
-								try{
-									double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
-									IDSProcessor.setEVABeaconFactor_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVABeaconThreshold_().setValue(tmp);
-								} catch (Exception e) {}	
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("evamessagedelay")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									Vehicle.setMaxEVAMessageDelay_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVAMessageDelay_().setValue(tmp);
-								} catch (Exception e) {}	
-							}  else if(settingsCrsr.getLocalName().toLowerCase().equals("spamdetection")){ //$NON-NLS-1$
-								try{
-									String tmp = settingsCrsr.collectDescendantText(false);
-									if(tmp.equals("true")){
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamDetectionCheckBox_().setSelected(true);
-										KnownEventSource.setSpamCheck_(true);
-										KnownPenalties.setSpamCheck_(true);
-									}
-									else{
-										if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamDetectionCheckBox_().setSelected(false);
-										KnownEventSource.setSpamCheck_(false);
-										KnownPenalties.setSpamCheck_(false);
-									}
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("spammessagethreshold")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									KnownEventSource.setSpammingThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamMessageAmountThreshold_().setValue(tmp);
-								} catch (Exception e) {}
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("spamtimethreshold")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									KnownEventSource.setSpammingTimeThreshold_(tmp);
-									if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamTimeThreshold_().setValue(tmp);
-								} catch (Exception e) {}
-
-							} else if(settingsCrsr.getLocalName().toLowerCase().equals("trafficmodel")){ //$NON-NLS-1$
-								try{
-									int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
-									WorkerThread.setSimulationMode_(tmp);
-								} catch (Exception e) {}
-
-							}
-						}
+						loadSettings(childCrsr.childElementCursor());
 					} else if(childCrsr.getLocalName().toLowerCase().equals("vehicles")){	//$NON-NLS-1$
 						vehiclesCrsr = childCrsr.childElementCursor();
 						while (vehiclesCrsr.getNext() != null){
@@ -640,9 +307,9 @@ public final class Scenario{
 									try{
 										tmpVehicle = new Vehicle(destinations, vehicleLength, maxSpeed, maxCommDistance, wifi, emergencyVehicle, braking_rate, acceleration_rate, timeDistance, politeness, speedDeviation, new Color(color), fakingMessages, fakeMessageType);
 										Map.getInstance().addVehicle(tmpVehicle);
-										if(tmpAttacker) Renderer.getInstance().setAttackerVehicle(tmpVehicle);
+										if(tmpAttacker) EngineContext.setAttackerVehicle(tmpVehicle);
 										if(tmpAttacked) {
-											Renderer.getInstance().setAttackedVehicle(tmpVehicle);
+											EngineContext.setAttackedVehicle(tmpVehicle);
 											Vehicle.setAttackedVehicleID_(tmpVehicle.getID());
 										}
 										tmpAttacker = false;
@@ -696,7 +363,7 @@ public final class Scenario{
 														Regions[i][j].addMixZone(tmpNode, mixRadius);
 														if(maxMixRadius < mixRadius)maxMixRadius = mixRadius;
 														Vehicle.setEncryptedBeaconsInMix_(false);
-														if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getEncryptedBeacons_().setSelected(false);
+														if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getEncryptedBeacons_().setSelected(false);
 													}
 												}
 											}
@@ -880,13 +547,394 @@ public final class Scenario{
 				}
 			} else ErrorLog.log(Messages.getString("Scenario.wrongRoot"), 7, getClass().getName(), "load", null); //$NON-NLS-1$ //$NON-NLS-2$
 		} catch (Exception e) {ErrorLog.log(Messages.getString("Scenario.errorLoading"), 7, getClass().getName(), "load", e);} //$NON-NLS-1$ //$NON-NLS-2$
-		if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(false);
+		if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(false);
 		ready_ = true;
-		Renderer.getInstance().ReRender(false, false);
-		if(!Renderer.getInstance().isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditEventPanel().updateList();
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(false, false);
+		if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditEventPanel().updateList();
 		ErrorLog.log(Messages.getString("Scenario.finishedLoading"), 3, getClass().getName(), "load", null); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	/**
+	 * Applies the settings of a scenario without loading its vehicles, events and RSUs. This is used to continue a restored
+	 * checkpoint with other settings (for example the variants of a parameter sweep).
+	 * 
+	 * @param file	the scenario file
+	 * @param zip	<code>true</code> if the file given is zipped, else <code>false</code>
+	 */
+	public void loadSettings(File file, boolean zip){
+		try{
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+			InputStream filestream;
+			if(zip){
+				filestream = new ZipInputStream(new FileInputStream(file));
+				((ZipInputStream) filestream).getNextEntry();
+			} else filestream = new FileInputStream(file);
+			XMLStreamReader sr = factory.createXMLStreamReader(filestream);	
+			SMInputCursor rootCrsr = SMInputFactory.rootElementCursor(sr);
+			rootCrsr.getNext();
+			if(rootCrsr.getLocalName().toLowerCase().equals("scenario")){ //$NON-NLS-1$
+				SMInputCursor childCrsr = rootCrsr.childElementCursor();
+				while(childCrsr.getNext() != null){
+					if(childCrsr.getLocalName().toLowerCase().equals("settings")) loadSettings(childCrsr.childElementCursor());	//$NON-NLS-1$
+				}
+			} else ErrorLog.log(Messages.getString("Scenario.wrongRoot"), 7, getClass().getName(), "loadSettings", null); //$NON-NLS-1$ //$NON-NLS-2$
+			filestream.close();
+		} catch (Exception e) {ErrorLog.log(Messages.getString("Scenario.errorLoading"), 7, getClass().getName(), "loadSettings", e);} //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Reads the settings section of a scenario and applies it.
+	 * 
+	 * @param settingsCrsr	the cursor on the children of the settings element
+	 * 
+	 * @throws XMLStreamException if the settings could not be read
+	 */
+	private void loadSettings(SMInputCursor settingsCrsr) throws XMLStreamException{
+		boolean tmpBoolean;
+		while (settingsCrsr.getNext() != null){
+			if(settingsCrsr.getLocalName().toLowerCase().equals("communicationenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setCommunication(tmpBoolean);
+				Vehicle.setCommunicationEnabled(tmpBoolean);
+				RSU.setCommunicationEnabled(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconsenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setBeacons(tmpBoolean);
+				Vehicle.setBeaconsEnabled(tmpBoolean);
+				RSU.setBeaconsEnabled(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("fallbackinmixzonesenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesFallbackEnabled(tmpBoolean);
+				Vehicle.setMixZonesFallbackEnabled(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("fallbackinmixzonesfloodingonly")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesFallbackFloodingOnly(tmpBoolean);
+				Vehicle.setMixZonesFallbackFloodingOnly(tmpBoolean);								
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("globalInfrastructureenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setGlobalInfrastructure(tmpBoolean);
+				// implementation missing
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("mixzonesenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZonesEnabled(tmpBoolean);
+				Vehicle.setMixZonesEnabled(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("vehiclerecyclingenabled")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setRecyclingEnabled(tmpBoolean);
+				Vehicle.setRecyclingEnabled(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("communicationinterval")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setCommunicationInterval(tmp);
+					Vehicle.setCommunicationInterval(tmp);
+					RSU.setCommunicationInterval(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconsinterval")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setBeaconInterval(tmp);
+					Vehicle.setBeaconInterval(tmp);
+					RSU.setBeaconInterval(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("mixzoneradius")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setMixZoneRadius(tmp);
+					Vehicle.setMixZoneRadius(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("autoaddmixzones")){ //$NON-NLS-1$
+				if(settingsCrsr.collectDescendantText(false).equals("true")) tmpBoolean = true;	//$NON-NLS-1$
+				else tmpBoolean = false;
+				if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getAutoAddMixZones().setEnabled(tmpBoolean);
+				EngineContext.setAutoAddMixZones(tmpBoolean);
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("routingmode")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					if(tmp > 1) tmp = 1;
+					else if (tmp < 0) tmp = 0;
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditSettingsPanel().setRoutingMode(tmp);
+					Vehicle.setRoutingMode(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("mintraveltimeforrecycling")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setMinTravelTimeForRecycling(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsulog")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(Vehicle.isAttackerDataLogged_()) AttackLogWriter.setLogPath(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsuloggingenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogAttackerCheckBox_().setSelected(true);
+						Vehicle.setAttackerDataLogged_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogAttackerCheckBox_().setSelected(false);
+						Vehicle.setAttackerDataLogged_(false);
+					}
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("arsuencryptedloggingenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getEncryptedLogging_().setSelected(true);
+						Vehicle.setAttackerEncryptedDataLogged_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getEncryptedLogging_().setSelected(false);
+						Vehicle.setAttackerEncryptedDataLogged_(false);
+					}
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("privacyloggingenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogPrivacyCheckBox_().setSelected(true);
+						Vehicle.setPrivacyDataLogged_(true);
+						PrivacyLogWriter.setLogPath(System.getProperty("user.dir"));
+
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogPrivacyCheckBox_().setSelected(false);
+						Vehicle.setPrivacyDataLogged_(false);
+					}
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("idslog")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(IDSProcessor.isLogIDS_()) IDSLogWriter.setLogPath(tmp);
+					if(!EngineContext.isConsoleStart()  && !tmp.equals(""))VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSPath_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("idsloggingenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSCheckBox_().setSelected(true);
+						IDSProcessor.setLogIDS_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogIDSCheckBox_().setSelected(false);
+						IDSProcessor.setLogIDS_(false);
+					}
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("eventlog")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(KnownPenalties.isLogEvents_() && !tmp.equals("")) {
+						EventLogWriter.setLogPath(tmp);
+						EventLogWriter.log("Time," + "PenaltyType," + "X," + "Y," + "Sender,"  + "Receiver");
+					}
+					if(!EngineContext.isConsoleStart()  && !tmp.equals(""))VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventPath_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("eventloggingenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventCheckBox_().setSelected(true);
+						KnownPenalties.setLogEvents_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditLogControlPanel_().getLogEventCheckBox_().setSelected(false);
+						KnownPenalties.setLogEvents_(false);
+					}
+				} catch (Exception e) {}	
+				
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("showencryptedcomminmix")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getShowEncryptedBeacons_().setSelected(true);
+						RSU.setShowEncryptedBeaconsInMix_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditMixZonePanel_().getShowEncryptedBeacons_().setSelected(false);
+						RSU.setShowEncryptedBeaconsInMix_(false);
+					}
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodsenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						Vehicle.setSilentPeriodsOn(true);
+					}
+					else{
+						Vehicle.setSilentPeriodsOn(false);
+					}
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodduration")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setTIME_OF_SILENT_PERIODS(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("silentperiodfrequency")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setTIME_BETWEEN_SILENT_PERIODS(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowenabled")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						Vehicle.setSlowOn(true);
+					}
+					else{
+						Vehicle.setSlowOn(false);
+					}
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowtimetochangepseudonym")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setTIME_TO_PSEUDONYM_CHANGE(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("slowspeedlimit")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setSLOW_SPEED_LIMIT(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("idsactivated")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						Vehicle.setIdsActivated(true);
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateIDSCheckBox_().setSelected(true);
+					}
+					else{
+						Vehicle.setIdsActivated(false);
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateIDSCheckBox_().setSelected(false);
+					}
+
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("advancedidsrules")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateAdvancedIDSCheckBox_().setSelected(true);
+						IDSProcessor.setAdvancedIDSRules_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getActivateAdvancedIDSCheckBox_().setSelected(false);
+						IDSProcessor.setAdvancedIDSRules_(false);
+					}
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("activerules")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					IDSProcessor.setActiveRules_(tmp.split(":"));
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().updateGUI();
+
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("beaconslogged")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					KnownVehicle.setAmountOfSavedBeacons(tmp);
+					if(!EngineContext.isConsoleStart())if(tmp > 0)VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getBeaconsLogged_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("fakemessageinterval")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setFakeMessagesInterval_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getFakeMessageInterval_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("pcnthreshold")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setPCNDistance_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getPCNThreshold_().setValue(Math.sqrt(tmp));
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("pcnforwardthreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setPCNFORWARDThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getPCNFORWARDThreshold_().setValue(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("evaforwardthreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setEVAFORWARDThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVAFORWARDThreshold_().setValue(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("rhcnthreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setRHCNThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getRHCNThreshold_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("eeblthreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setEEBLThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())	VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEEBLThreshold_().setValue(tmp);
+				} catch (Exception e) {}	
+			}else if(settingsCrsr.getLocalName().toLowerCase().equals("evabeacontimethreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setEVABeaconTimeFactor_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVABeaconTimeThreshold_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("evabeaconthreshold")){ //$NON-NLS-1$
+				try{
+					double tmp = Double.parseDouble(settingsCrsr.collectDescendantText(false));
+					IDSProcessor.setEVABeaconFactor_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVABeaconThreshold_().setValue(tmp);
+				} catch (Exception e) {}	
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("evamessagedelay")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					Vehicle.setMaxEVAMessageDelay_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getEVAMessageDelay_().setValue(tmp);
+				} catch (Exception e) {}	
+			}  else if(settingsCrsr.getLocalName().toLowerCase().equals("spamdetection")){ //$NON-NLS-1$
+				try{
+					String tmp = settingsCrsr.collectDescendantText(false);
+					if(tmp.equals("true")){
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamDetectionCheckBox_().setSelected(true);
+						KnownEventSource.setSpamCheck_(true);
+						KnownPenalties.setSpamCheck_(true);
+					}
+					else{
+						if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamDetectionCheckBox_().setSelected(false);
+						KnownEventSource.setSpamCheck_(false);
+						KnownPenalties.setSpamCheck_(false);
+					}
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("spammessagethreshold")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					KnownEventSource.setSpammingThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamMessageAmountThreshold_().setValue(tmp);
+				} catch (Exception e) {}
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("spamtimethreshold")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					KnownEventSource.setSpammingTimeThreshold_(tmp);
+					if(!EngineContext.isConsoleStart())VanetSimStart.getMainControlPanel().getEditPanel().getEditIDSControlPanel_().getSpamTimeThreshold_().setValue(tmp);
+				} catch (Exception e) {}
+
+			} else if(settingsCrsr.getLocalName().toLowerCase().equals("trafficmodel")){ //$NON-NLS-1$
+				try{
+					int tmp = Integer.parseInt(settingsCrsr.collectDescendantText(false));
+					WorkerThread.setSimulationMode_(tmp);
+				} catch (Exception e) {}
+
+			}
+		}
+	}
+
 	/**
 	 * Sets the ready state of the scenario.
 	 * 
@@ -942,7 +990,7 @@ public final class Scenario{
 			settings.addElement("BeaconsInterval").addValue(Vehicle.getBeaconInterval()); //$NON-NLS-1$
 			settings.addElement("MixZonesEnabled").addValue(Vehicle.getMixZonesEnabled()); //$NON-NLS-1$
 			settings.addElement("MixZoneRadius").addValue(Vehicle.getMixZoneRadius()); //$NON-NLS-1$
-			settings.addElement("AutoAddMixZones").addValue(Renderer.getInstance().isAutoAddMixZones()); //$NON-NLS-1$
+			settings.addElement("AutoAddMixZones").addValue(EngineContext.isAutoAddMixZones()); //$NON-NLS-1$
 			settings.addElement("RoutingMode").addValue(Vehicle.getRoutingMode()); //$NON-NLS-1$
 			settings.addElement("VehicleRecyclingEnabled").addValue(Vehicle.getRecyclingEnabled()); //$NON-NLS-1$
 			settings.addElement("FallBackInMixZonesEnabled").addValue(Vehicle.getMixZonesFallbackEnabled());	//$NON-NLS-1$
@@ -1026,9 +1074,9 @@ public final class Scenario{
 						level1.addElement("Color").addValue(vehicle.getColor().getRGB()); //$NON-NLS-1$
 						level1.addElement("isFakingMessages").addValue(vehicle.isFakingMessages());
 						level1.addElement("fakingMessageType").addCharacters(vehicle.getFakeMessageType());
-						if(Renderer.getInstance().getAttackerVehicle() == vehicle) level1.addElement("isAttacker").addValue(true); //$NON-NLS-1$
+						if(EngineContext.getAttackerVehicle() == vehicle) level1.addElement("isAttacker").addValue(true); //$NON-NLS-1$
 						else level1.addElement("isAttacker").addValue(false);
-						if(Renderer.getInstance().getAttackedVehicle() == vehicle) level1.addElement("isAttacked").addValue(true); //$NON-NLS-1$
+						if(EngineContext.getAttackedVehicle() == vehicle) level1.addElement("isAttacked").addValue(true); //$NON-NLS-1$
 						else level1.addElement("isAttacked").addValue(false);
 						level2 = level1.addElement("Destinations"); //$NON-NLS-1$
 						//add the start point manually as this was already "popped" from the vehicle's destinations
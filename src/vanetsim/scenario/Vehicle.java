@@ -18,17 +18,18 @@
 package vanetsim.scenario;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.Iterator;
-import java.util.Random;
 
 
 
 import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
 import vanetsim.VanetSimStart;
-import vanetsim.gui.Renderer;
 import vanetsim.gui.controlpanels.ReportingControlPanel;
 import vanetsim.gui.helpers.GeneralLogWriter;
 import vanetsim.gui.helpers.PrivacyLogWriter;
@@ -43,15 +44,20 @@ import vanetsim.routing.A_Star.A_Star_Algorithm;
 import vanetsim.scenario.events.BlockingObject;
 import vanetsim.scenario.messages.Message;
 import vanetsim.scenario.messages.PenaltyMessage;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.InteractionBuffer;
+import vanetsim.simulation.RandomStream;
+import vanetsim.simulation.SimulationContext;
+import vanetsim.simulation.WorkerThread;
 
 /**
  * A vehicle which can move and communicate (if wifi is enabled).
  */
 public class Vehicle extends LaneObject{
 	
-	/** A reference to the map so that we don't need to call this over and over again. */
-	private static final Map MAP = Map.getInstance();
-	
 	/** A reference to the reporting control panel so that we don't need to call this over and over again. */
 	private static final ReportingControlPanel REPORT_PANEL = getReportingPanel();
 	
@@ -106,127 +112,173 @@ public class Vehicle extends LaneObject{
 	/** Deviation from max speed limit. Simulation fluctuations in the drivers speed when reaching the speed limit. Maximum in cm/s^2 */
 	private static final int SPEED_FLUCTUATION_MAX = 6;
 	
-	/** A global random number generator used to initialize the generators of the vehicles. */
-	private static final Random RANDOM = new Random(1L);
+	/** The penalty streets used for routing as long as no penalty is known. */
+	private static final Street[] NO_PENALTY_STREETS = new Street[0];
+
+	/** The penalty directions and values used for routing as long as no penalty is known. */
+	private static final int[] NO_PENALTY_VALUES = new int[0];
+
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(Vehicle.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all vehicles of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The routing mode used. See the A_Star_Algo for details. */
+		int routingMode_ = 1;
+
+		/** The minimum time a vehicle must have traveled to get recycled. This shall prevent very shortliving 
+		 * vehicles from consuming lots of CPU time for recycling. */
+		int minTravelTimeForRecycling_ = 60000;
+
+		/** If communication is enabled */
+		boolean communicationEnabled_ = true;	
+
+		/** If beacons are enabled */
+		boolean beaconsEnabled_ = true;
+
+		/** If mix zones are enabled */
+		boolean mixZonesEnabled_ = true;
+
+		/** If a fallback to the beaconless method shall be done in mix zones */
+		boolean mixZonesFallbackEnabled_ = true;
+
+		/** If the fallback mode only sends messages which are in flooding/broadcast mode. */
+		boolean mixZonesFallbackFloodingOnly_ = true;
+
+		/** How large a mix is in cm. Set in the common settings */
+		int mixZoneRadius_ = 10000;
+
+		/** How large a mix is in cm max. */
+		int maxMixZoneRadius_ = 0;
+
+		/** How long a vehicle waits to communicate again (in milliseconds). Also used for cleaning up outdated known messages. */
+		int communicationInterval_ = 160;
+
+		/** How long a vehicle waits to send its beacons again. */
+		int beaconInterval_ = 240;
+
+		/** The maximum communication distance a vehicle has. */
+		int maximumCommunicationDistance_ = 0;
+
+		/** An array holding all regions of the map (part of the map, not written to checkpoints). */
+		transient Region[][] regions_;
+
+		/** If monitoring the beacon is enabled or not. */
+		boolean beaconMonitorEnabled_ = false;
+
+		/** The minimum x coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMinX_ = -1;
+
+		/** The maximum x coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMaxX_ = -1;
+
+		/** The minimum y coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMinY_ = -1;
+
+		/** The maximum y coordinate which is checked during beacon monitoring. */
+		int beaconMonitorMaxY_ = -1;
+
+		/** If recycling of vehicles is allowed or not */
+		boolean recyclingEnabled_ = true;
+
+		/** List of all AttackRSUs */
+		AttackRSU arsuList[] = new AttackRSU[0];
+
+		/** If attacker logging is enabled */
+		boolean attackerDataLogged_ = false;	
+
+		/** If attacker encrypted logging is enabled */
+		boolean attackerEncryptedDataLogged_ = false;
+
+		/** If attacker logging is enabled */
+		boolean privacyDataLogged_ = false;	
+
+		/** ID of the attacked vehicle */
+		long attackedVehicleID_ = 0;
+
+		/** Time for reroute of attacker */
+		int reRouteTime_ = -1;
+
+		/** encrypted beacon communication in Mix-Zones */
+		boolean encryptedBeaconsInMix_ = false;
+
+		/** A counter for the steady id. Vehicles are recycled by several threads at once outside the deterministic mode. */
+		final AtomicInteger steadyIDCounter = new AtomicInteger();
+
+		/** All vehicles of this simulation. The index in this table is {@link Vehicle#getIndex()}. Checkpoints write the vehicles themselves. */
+		transient volatile Vehicle[] vehicles_ = new Vehicle[64];
+
+		/** The amount of vehicles in the table. */
+		transient int vehicleCount_ = 0;
+
+		/** time between silent-periods (in ms)*/
+		int TIME_BETWEEN_SILENT_PERIODS = 10000;
+
+		/** time of silent-periods (in ms)*/
+		int TIME_OF_SILENT_PERIODS = 2000;
+
+		/** flag to show if there is a silent period at the moment */
+		boolean silent_period = false;
+
+		/** flag to turn silent periods on/off */
+		boolean silentPeriodsOn = false;
+
+		/** flag to show if at least one vehicle has an IDS processor which needs to be fired */
+		volatile boolean idsProcessorsPending_ = false;
+
+		/** flag to show that sleeping vehicles need to be woken up because something changed which might affect them */
+		volatile boolean sleepersChanged_ = false;
+
+		/** time until pseudonym change in slow model */
+		int TIME_TO_PSEUDONYM_CHANGE = 3000;
+
+		/** speed limit for slow model */
+		int  SLOW_SPEED_LIMIT = (int)(30 * 100000.0/3600);
+
+		/** enable/disable slow */
+		boolean slowOn = false;
+
+		/** ids is activated */
+		boolean idsActivated = false;
+
+		/** the interval to generate fake messages */
+		int fakeMessagesInterval_ = 10000;
+
+		/** mode to send message only to vehicles within reach and to disable forwarding! (used for IDS evaluation) */
+		boolean directCommunicationMode_ = true;
+
+		/** How many simulation steps we wait until we send the RHCN message */
+		int WAIT_TO_SEND_RHCN_ = 4;
+
+		/** emergency braking interval */
+		int emergencyBrakingInterval_ = 600000;
+
+		int minEVAMessageDelay_ = 1;
+
+		int maxEVAMessageDelay_ = 10;
+	}
+
 
 	/** The routing algorithm used. */
 	private static final RoutingAlgorithm ROUTING_ALGO = new A_Star_Algorithm();	
 
-	/** The routing mode used. See the A_Star_Algo for details. */
-	private static int routingMode_ = 1;
-	
-	/** The minimum time a vehicle must have traveled to get recycled. This shall prevent very shortliving 
-	 * vehicles from consuming lots of CPU time for recycling. */
-	private static int minTravelTimeForRecycling_ = 60000;
 
-	/** If communication is enabled */
-	private static boolean communicationEnabled_ = true;	
 
-	/** If beacons are enabled */
-	private static boolean beaconsEnabled_ = true;
 
-	/** If mix zones are enabled */
-	private static boolean mixZonesEnabled_ = true;
-	
-	/** If a fallback to the beaconless method shall be done in mix zones */
-	private static boolean mixZonesFallbackEnabled_ = true;
-	
-	/** If the fallback mode only sends messages which are in flooding/broadcast mode. */
-	private static boolean mixZonesFallbackFloodingOnly_ = true;
 
-	/** How large a mix is in cm. Set in the common settings */
-	private static int mixZoneRadius_ = 10000;
-	
-	/** How large a mix is in cm max. */
-	private static int maxMixZoneRadius_ = 0;
-	
-	/** How long a vehicle waits to communicate again (in milliseconds). Also used for cleaning up outdated known messages. */
-	private static int communicationInterval_ = 160;
 
-	/** How long a vehicle waits to send its beacons again. */
-	private static int beaconInterval_ = 240;
 
-	/** The maximum communication distance a vehicle has. */
-	private static int maximumCommunicationDistance_ = 0;
 
-	/** An array holding all regions of the map. */
-	private static Region[][] regions_;
 
-	/** If monitoring the beacon is enabled or not. */
-	private static boolean beaconMonitorEnabled_ = false;
-	
-	/** The minimum x coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMinX_ = -1;
-	
-	/** The maximum x coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMaxX_ = -1;
-	
-	/** The minimum y coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMinY_ = -1;
-	
-	/** The maximum y coordinate which is checked during beacon monitoring. */
-	private static int beaconMonitorMaxY_ = -1;
-	
-	/** If recycling of vehicles is allowed or not */
-	private static boolean recyclingEnabled_ = true;
-	
-	/** List of all AttackRSUs */
-	private static AttackRSU arsuList[] = new AttackRSU[0];
-	
-	/** If attacker logging is enabled */
-	private static boolean attackerDataLogged_ = false;	
-	
-	/** If attacker encrypted logging is enabled */
-	private static boolean attackerEncryptedDataLogged_ = false;
-	
-	/** If attacker logging is enabled */
-	private static boolean privacyDataLogged_ = false;	
-	
-	/** ID of the attacked vehicle */
-	private static long attackedVehicleID_ = 0;
-	
-	/** Time for reroute of attacker */
-	private static int reRouteTime_ = -1;
-	
-	/** encrypted beacon communication in Mix-Zones */
-	private static boolean encryptedBeaconsInMix_ = false;
 
-	/** A counter for the steady id */
-	private static int steadyIDCounter = 0;
-	
-	/** time between silent-periods (in ms)*/
-	private static int TIME_BETWEEN_SILENT_PERIODS = 10000;
 
-	/** time of silent-periods (in ms)*/
-	private static int TIME_OF_SILENT_PERIODS = 2000;
-	
-	/** flag to show if there is a silent period at the moment */
-	private static boolean silent_period = false;
-	
-	/** flag to turn silent periods on/off */
-	private static boolean silentPeriodsOn = false;
-	
-	/** time until pseudonym change in slow model */
-	private static int TIME_TO_PSEUDONYM_CHANGE = 3000;
-	
-	/** speed limit for slow model */
-	private static int  SLOW_SPEED_LIMIT = (int)(30 * 100000.0/3600);
-	
-	/** enable/disable slow */
-	private static boolean slowOn = false;
-	
-	/** ids is activated */
-	private static boolean idsActivated = false;
-	
-	/** the interval to generate fake messages */
-	private static int fakeMessagesInterval_ = 10000;
-	
-	/** mode to send message only to vehicles within reach and to disable forwarding! (used for IDS evaluation) */
-	private static boolean directCommunicationMode_ = true;
-	
-	
-	/** How many simulation steps we wait until we send the RHCN message */
-	private static int WAIT_TO_SEND_RHCN_ = 4;
 	
 	/** the counter for the rhcn message */
 	private int waitToSendRHCNCounter_ = -1;
@@ -264,31 +316,37 @@ public class Vehicle extends LaneObject{
 	/** Deviation from max speed limit. Simulates driver types which drive slower / faster */
 	private int speedDeviation_;
 	
+	// The following data structures are only needed if the vehicle communicates. They are created on first use (see the
+	// getters) so that vehicles in scenarios without communication or IDS don't carry them. Until then they are null.
+
 	/** A class storing messages of different states: execute, forward and old ones. Could also be stored inside the
 	 * vehicle class but it's a lot more clearly arranged like that. */ 
-	private final KnownMessages knownMessages_ = new KnownMessages(this);
+	private volatile KnownMessages knownMessages_ = null;
 
 	/** A list of all vehicles currently known because of received beacons. */
-	private final KnownVehiclesList knownVehiclesList_ = new KnownVehiclesList();
+	private volatile KnownVehiclesList knownVehiclesList_ = null;
 	
 
 	/** A list of all idsprocessors currently running. */
-	private final IDSProcessorList idsProcessorList_ = new IDSProcessorList(this);
+	private volatile IDSProcessorList idsProcessorList_ = null;
 	
 	/** A list of all known event sources. */
-	private final KnownEventSourcesList knownEventSourcesList_ = new KnownEventSourcesList(this.getID());
+	private volatile KnownEventSourcesList knownEventSourcesList_ = null;
 	
 	/** A list of all Road-Side-Units currently known because of received beacons. */
-	private final KnownRSUsList knownRSUsList_ = new KnownRSUsList();
+	private volatile KnownRSUsList knownRSUsList_ = null;
 
 	/** All known penalties. */
-	private final KnownPenalties knownPenalties_ = new KnownPenalties(this);
+	private volatile KnownPenalties knownPenalties_ = null;
 	
 	/** <code>true</code> if this vehicle has a communication device (WiFi), else <code>false</code> . */
 	private boolean wiFiEnabled_;
 	
-	/** A random number generator for each vehicle. Primarily used for ID generation but can be used for other tasks, too. */
-	private final Random ownRandom_;
+	/** The key of the random numbers of this vehicle (see {@link RandomStream}). Primarily used for ID generation but can be used for other tasks, too. */
+	private long randomKey_;
+
+	/** The amount of random numbers this vehicle has drawn since its key was set. */
+	private long randomCounter_ = 0;
 
 	/** An ID used in communication (beacons). This might change (=> mixing zone)!It cannot be guaranteed 
 	 * that this is really an unique ID as it's generated randomly! */
@@ -297,6 +355,9 @@ public class Vehicle extends LaneObject{
 	/** An ID used to track vehicles after changing pseudonyms (for logging purpose only) */
 	private int steadyID_;
 	
+	/** The index of this vehicle in the vehicle table of its simulation. Other objects may refer to this vehicle by it. It doesn't change when the vehicle is recycled. */
+	private final int index_;
+	
 	/** The destinations this vehicle wants to visit. */
 	private ArrayDeque<WayPoint> destinations_;
 
@@ -336,10 +397,20 @@ public class Vehicle extends LaneObject{
 	/** The current region. */
 	private Region curRegion_;
 
+	/** The position of this vehicle in the vehicle array of its region. */
+	private int regionSlot_ = -1;
+
 	/** The time in milliseconds before doing the next movement. During waiting the vehicle communicates but does not 
 	 * block other cars from passing. */
 	private int curWaitTime_;
 
+	/** The simulation time at which this sleeping vehicle needs to be processed again, <code>Integer.MAX_VALUE</code> if it sleeps until
+	 * it is woken up explicitly or <code>-1</code> if the vehicle is awake. See {@link #fallAsleep(int, int)}. */
+	private int wakeTime_ = -1;
+
+	/** The simulation time at which this vehicle fell asleep. <code>curWaitTime_</code> has not been decreased since then. */
+	private int sleepTime_ = 0;
+
 	/** The total time in milliseconds this vehicle traveled (excludes predefined waittimes!) */
 	private int totalTravelTime_;
 
@@ -520,8 +591,6 @@ public class Vehicle extends LaneObject{
 	/** number of fake message types */
 	private int fakeMessageTypesCount = IDSProcessor.getIdsData_().length;
 	
-	/** emergency braking interval */
-	private static int emergencyBrakingInterval_ = 600000;
 
 	/** emergency braking */
 	private boolean emergencyBraking_ = false;
@@ -562,9 +631,6 @@ public class Vehicle extends LaneObject{
 
 	private int EVAMessageDelay_ = 3;
 
-	private static int minEVAMessageDelay_ = 1;
-	private static int maxEVAMessageDelay_ = 10;
-	
 	private boolean logBeaconsAfterEvent_ = false;
 	private String beaconString_ = "";
 	private int amountOfLoggedBeacons_ = 0;
@@ -594,8 +660,9 @@ public class Vehicle extends LaneObject{
 		if(destinations != null && destinations.size()>1){
 			originalDestinations_ = destinations; 
 			destinations_ = originalDestinations_.clone();			
-			ID_ = RANDOM.nextLong();
-			steadyID_ = steadyIDCounter++;
+			steadyID_ = state().steadyIDCounter.getAndIncrement();
+			randomKey_ = RandomStream.key(RandomStream.getSeed(), steadyID_, RandomStream.STREAM_VEHICLE);
+			ID_ = nextRandomLong();
 			vehicleLength_ = vehicleLength;
 			maxSpeed_ = maxSpeed;
 			emergencyVehicle_ = emergencyVehicle;
@@ -608,7 +675,6 @@ public class Vehicle extends LaneObject{
 			startingWayPoint_ = destinations_.pollFirst();		// take the first element and remove it from the destinations!
 			wiFiEnabled_ = wiFiEnabled;
 			speedDeviation_ = speedDeviation;
-			ownRandom_ = new Random(RANDOM.nextLong());
 			curX_ = startingWayPoint_.getX();
 			curY_ = startingWayPoint_.getY();
 			curPosition_ = startingWayPoint_.getPositionOnStreet();
@@ -638,8 +704,8 @@ public class Vehicle extends LaneObject{
 			calculatePosition();
 			
 			//set the countdowns so that not all fire at the same time!
-			beaconCountdown_ = (int)Math.round(curPosition_)%beaconInterval_;
-			communicationCountdown_ = (int)Math.round(curPosition_)%communicationInterval_;
+			beaconCountdown_ = (int)Math.round(curPosition_)%state().beaconInterval_;
+			communicationCountdown_ = (int)Math.round(curPosition_)%state().communicationInterval_;
 			mixCheckCountdown_ = (int)Math.round(curPosition_)%MIX_CHECK_INTERVAL;
 			knownVehiclesTimeoutCountdown_ = (int)Math.round(curPosition_)%KNOWN_VEHICLES_TIMEOUT_CHECKINTERVAL;
 			knownPenaltiesTimeoutCountdown_ = (int)Math.round(curPosition_)%KNOWN_PENALTIES_TIMEOUT_CHECKINTERVAL;
@@ -647,14 +713,376 @@ public class Vehicle extends LaneObject{
 
 			knownRSUsTimeoutCountdown_ = (int)Math.round(curPosition_)%KNOWN_RSUS_TIMEOUT_CHECKINTERVAL;
 			speedFluctuationCountdown_ = (int)Math.round(curPosition_)%SPEED_FLUCTUATION_CHECKINTERVAL;
-			fakeMessageCountdown_ = (int)Math.round(curPosition_)%fakeMessagesInterval_;
-			emergencyBrakingCountdown_ = ownRandom_.nextInt(emergencyBrakingInterval_)+1;
+			fakeMessageCountdown_ = (int)Math.round(curPosition_)%state().fakeMessagesInterval_;
+			emergencyBrakingCountdown_ = nextRandomInt(state().emergencyBrakingInterval_)+1;
 			
-			EVAMessageDelay_ = minEVAMessageDelay_ + ownRandom_.nextInt(maxEVAMessageDelay_);
+			EVAMessageDelay_ = state().minEVAMessageDelay_ + nextRandomInt(state().maxEVAMessageDelay_);
+			index_ = addToTable(this);
 		} else throw new ParseException(Messages.getString("Vehicle.errorNotEnoughDestinations"),0); //$NON-NLS-1$
 	}
 
 
+	/**
+	 * Reads a vehicle from a checkpoint. Only the destinations are read here, all other variables are read with
+	 * {@link #readCheckpoint(CheckpointReader)} after all vehicles have been created (as vehicles refer to each other).
+	 * The vehicle is not added to the vehicle table of the current simulation (see {@link #restoreTable(Vehicle[], int)}).
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public Vehicle(CheckpointReader in) throws IOException{
+		int count = in.readInt();
+		WayPoint[] waypoints = null;
+		if(count > -1){
+			waypoints = new WayPoint[count];
+			originalDestinations_ = new ArrayDeque<WayPoint>(Math.max(count, 2));
+			for(int i = 0; i < count; ++i){
+				waypoints[i] = new WayPoint(in);
+				originalDestinations_.add(waypoints[i]);
+			}
+		}
+		startingWayPoint_ = readWayPoint(in, waypoints);
+		count = in.readInt();
+		if(count > -1){
+			destinations_ = new ArrayDeque<WayPoint>(Math.max(count, 2));
+			for(int i = 0; i < count; ++i) destinations_.add(readWayPoint(in, waypoints));
+		}
+		maxBrakingDistance_ = in.readInt();
+		index_ = in.addVehicle(this);
+	}
+	
+	/**
+	 * Writes the destinations of this vehicle to a checkpoint (see {@link #Vehicle(CheckpointReader)}).
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a waypoint could not be written
+	 */
+	public void writeDestinations(CheckpointWriter out) throws IOException{
+		WayPoint[] waypoints = null;
+		if(originalDestinations_ == null) out.writeInt(-1);
+		else {
+			waypoints = originalDestinations_.toArray(new WayPoint[originalDestinations_.size()]);
+			out.writeInt(waypoints.length);
+			for(int i = 0; i < waypoints.length; ++i) waypoints[i].writeCheckpoint(out);
+		}
+		writeWayPoint(out, startingWayPoint_, waypoints);
+		if(destinations_ == null) out.writeInt(-1);
+		else {
+			out.writeInt(destinations_.size());
+			Iterator<WayPoint> iterator = destinations_.iterator();
+			while(iterator.hasNext()) writeWayPoint(out, iterator.next(), waypoints);
+		}
+		out.writeInt(maxBrakingDistance_);
+	}
+	
+	/**
+	 * Writes a waypoint to a checkpoint. Waypoints which are part of the original destinations are written as their
+	 * position in the original destinations.
+	 * 
+	 * @param out		the checkpoint
+	 * @param waypoint	the waypoint
+	 * @param waypoints	the original destinations (may be <code>null</code>)
+	 * 
+	 * @throws IOException if the waypoint could not be written
+	 */
+	private static void writeWayPoint(CheckpointWriter out, WayPoint waypoint, WayPoint[] waypoints) throws IOException{
+		if(waypoint == null){
+			out.writeInt(-2);
+			return;
+		}
+		if(waypoints != null){
+			for(int i = 0; i < waypoints.length; ++i){
+				if(waypoints[i] == waypoint){
+					out.writeInt(i);
+					return;
+				}
+			}
+		}
+		out.writeInt(-1);
+		waypoint.writeCheckpoint(out);
+	}
+	
+	/**
+	 * Reads a waypoint written with {@link #writeWayPoint(CheckpointWriter, WayPoint, WayPoint[])}.
+	 * 
+	 * @param in		the checkpoint
+	 * @param waypoints	the original destinations (may be <code>null</code>)
+	 * 
+	 * @return the waypoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	private static WayPoint readWayPoint(CheckpointReader in, WayPoint[] waypoints) throws IOException{
+		int position = in.readInt();
+		if(position == -2) return null;
+		else if(position == -1) return new WayPoint(in);
+		else if(waypoints == null || position < 0 || position >= waypoints.length) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + position); //$NON-NLS-1$
+		else return waypoints[position];
+	}
+	
+	/**
+	 * Writes the state of this vehicle to a checkpoint. The destinations are written with
+	 * {@link #writeDestinations(CheckpointWriter)}.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a street, message or lane object could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(waitToSendRHCNCounter_);
+		out.writeInt(vehicleLength_);
+		out.writeInt(maxSpeed_);
+		out.writeColor(color_);
+		out.writeInt(brakingRate_);
+		out.writeInt(accelerationRate_);
+		out.writeBoolean(emergencyVehicle_);
+		out.writeInt(speedDeviation_);
+		out.writeBoolean(wiFiEnabled_);
+		out.writeLong(randomKey_);
+		out.writeLong(randomCounter_);
+		out.writeLong(ID_);
+		out.writeInt(steadyID_);
+		out.writeDouble(newSpeed_);
+		out.writeInt(newLane_);
+		out.writeBoolean(active_);
+		out.writeStreets(routeStreets_);
+		out.writeBooleans(routeDirections_);
+		out.writeInt(routePosition_);
+		out.writeInt(curBrakingDistance_);
+		out.writeDouble(speedAtLastBrakingDistanceCalculation_);
+		out.writeBoolean(isInMixZone_);
+		out.writeNode(junctionAllowed_);
+		out.writeInt(maxCommDistance_);
+		out.writeRegion(curRegion_);
+		out.writeInt(regionSlot_);
+		out.writeInt(curWaitTime_);
+		out.writeInt(wakeTime_);
+		out.writeInt(sleepTime_);
+		out.writeInt(totalTravelTime_);
+		out.writeLong(totalTravelDistance_);
+		out.writeBoolean(brakeForDestination_);
+		out.writeInt(brakeForDestinationCountdown_);
+		out.writeInt(destinationCheckCountdown_);
+		out.writeInt(laneChangeCountdown);
+		out.writeInt(communicationCountdown_);
+		out.writeInt(beaconCountdown_);
+		out.writeInt(mixCheckCountdown_);
+		out.writeInt(knownVehiclesTimeoutCountdown_);
+		out.writeInt(knownRSUsTimeoutCountdown_);
+		out.writeInt(knownPenaltiesTimeoutCountdown_);
+		out.writeInt(speedFluctuationCountdown_);
+		out.writeBoolean(isBraking_);
+		out.writeDouble(fluctuation_);
+		out.writeInt(lastRHCNMessageCreated);
+		out.writeInt(lastPCNMessageCreated);
+		out.writeInt(lastPCNFORWARDMessageCreated);
+		out.writeInt(lastEVAMessageCreated);
+		out.writeInt(stopTime_);
+		out.writeInt(messagesCounter_);
+		out.writeInt(pcnMessagesCreated_);
+		out.writeInt(pcnForwardMessagesCreated_);
+		out.writeInt(evaMessagesCreated_);
+		out.writeInt(evaForwardMessagesCreated_);
+		out.writeInt(rhcnMessagesCreated_);
+		out.writeInt(eeblMessagesCreated_);
+		out.writeInt(fakeMessagesCreated_);
+		out.writeInt(IDsChanged_);
+		out.writeBoolean(mayBeRecycled_);
+		out.writeBoolean(doNotRecycle_);
+		out.writeBooleanObject(attackerWasInMix);
+		out.writeBooleanObject(attackedWasInMix);
+		out.writeBooleanObject(firstContact);
+		out.writeNode(curMixNode_);
+		out.writeBoolean(waitingForSignal_);
+		out.writeInt(timeDistance_);
+		out.writeInt(politeness_);
+		out.writeBoolean(silentPeriod);
+		out.writeString(savedBeacon1);
+		out.writeString(savedBeacon2);
+		out.writeInt(logNextBeacons);
+		out.writeBoolean(isInSlow);
+		out.writeBoolean(changedPseudonymInSlow);
+		out.writeInt(slowTimestamp);
+		out.writeBoolean(slowBeaconsLogged);
+		out.writeBoolean(vehicleJustStartedInSlow);
+		out.writeBoolean(moveOutOfTheWay_);
+		out.writeBoolean(forwardMessage_);
+		out.writeBoolean(fakingMessages_);
+		out.writeString(fakeMessageType_);
+		out.writeInt(fakeMessageCountdown_);
+		out.writeInt(fakeMessageCounter_);
+		out.writeInt(fakeMessageTypesCount);
+		out.writeBoolean(emergencyBraking_);
+		out.writeInt(emergencyBrakingDuration_);
+		out.writeInt(emergencyBrakingCountdown_);
+		out.writeBoolean(EEBLmessageIsCreated_);
+		out.writeInt(emergencyBeacons);
+		out.writeBoolean(drivingOnTheSide_);
+		out.writeVehicle(waitingForVehicle_);
+		out.writeBoolean(passingBlocking_);
+		out.writeBoolean(inTrafficJam_);
+		out.writeBoolean(checkIDSProcessors_);
+		out.writeInt(spamCounter_);
+		out.writeInt(EVAMessageDelay_);
+		out.writeBoolean(logBeaconsAfterEvent_);
+		out.writeString(beaconString_);
+		out.writeInt(amountOfLoggedBeacons_);
+		writeLaneCheckpoint(out);
+		out.writeBoolean(knownMessages_ != null);
+		if(knownMessages_ != null) knownMessages_.writeCheckpoint(out);
+		out.writeBoolean(knownVehiclesList_ != null);
+		if(knownVehiclesList_ != null) knownVehiclesList_.writeCheckpoint(out);
+		out.writeBoolean(idsProcessorList_ != null);
+		if(idsProcessorList_ != null) idsProcessorList_.writeCheckpoint(out);
+		out.writeBoolean(knownEventSourcesList_ != null);
+		if(knownEventSourcesList_ != null) knownEventSourcesList_.writeCheckpoint(out);
+		out.writeBoolean(knownRSUsList_ != null);
+		if(knownRSUsList_ != null) knownRSUsList_.writeCheckpoint(out);
+		out.writeBoolean(knownPenalties_ != null);
+		if(knownPenalties_ != null) knownPenalties_.writeCheckpoint(out);
+	}
+	
+	/**
+	 * Reads the state of this vehicle from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		waitToSendRHCNCounter_ = in.readInt();
+		vehicleLength_ = in.readInt();
+		maxSpeed_ = in.readInt();
+		color_ = in.readColor();
+		brakingRate_ = in.readInt();
+		accelerationRate_ = in.readInt();
+		emergencyVehicle_ = in.readBoolean();
+		speedDeviation_ = in.readInt();
+		wiFiEnabled_ = in.readBoolean();
+		randomKey_ = in.readLong();
+		randomCounter_ = in.readLong();
+		ID_ = in.readLong();
+		steadyID_ = in.readInt();
+		newSpeed_ = in.readDouble();
+		newLane_ = in.readInt();
+		active_ = in.readBoolean();
+		routeStreets_ = in.readStreets();
+		routeDirections_ = in.readBooleans();
+		routePosition_ = in.readInt();
+		curBrakingDistance_ = in.readInt();
+		speedAtLastBrakingDistanceCalculation_ = in.readDouble();
+		isInMixZone_ = in.readBoolean();
+		junctionAllowed_ = in.readNode();
+		maxCommDistance_ = in.readInt();
+		curRegion_ = in.readRegion();
+		regionSlot_ = in.readInt();
+		curWaitTime_ = in.readInt();
+		wakeTime_ = in.readInt();
+		sleepTime_ = in.readInt();
+		totalTravelTime_ = in.readInt();
+		totalTravelDistance_ = in.readLong();
+		brakeForDestination_ = in.readBoolean();
+		brakeForDestinationCountdown_ = in.readInt();
+		destinationCheckCountdown_ = in.readInt();
+		laneChangeCountdown = in.readInt();
+		communicationCountdown_ = in.readInt();
+		beaconCountdown_ = in.readInt();
+		mixCheckCountdown_ = in.readInt();
+		knownVehiclesTimeoutCountdown_ = in.readInt();
+		knownRSUsTimeoutCountdown_ = in.readInt();
+		knownPenaltiesTimeoutCountdown_ = in.readInt();
+		speedFluctuationCountdown_ = in.readInt();
+		isBraking_ = in.readBoolean();
+		fluctuation_ = in.readDouble();
+		lastRHCNMessageCreated = in.readInt();
+		lastPCNMessageCreated = in.readInt();
+		lastPCNFORWARDMessageCreated = in.readInt();
+		lastEVAMessageCreated = in.readInt();
+		stopTime_ = in.readInt();
+		messagesCounter_ = in.readInt();
+		pcnMessagesCreated_ = in.readInt();
+		pcnForwardMessagesCreated_ = in.readInt();
+		evaMessagesCreated_ = in.readInt();
+		evaForwardMessagesCreated_ = in.readInt();
+		rhcnMessagesCreated_ = in.readInt();
+		eeblMessagesCreated_ = in.readInt();
+		fakeMessagesCreated_ = in.readInt();
+		IDsChanged_ = in.readInt();
+		mayBeRecycled_ = in.readBoolean();
+		doNotRecycle_ = in.readBoolean();
+		attackerWasInMix = in.readBooleanObject();
+		attackedWasInMix = in.readBooleanObject();
+		firstContact = in.readBooleanObject();
+		curMixNode_ = in.readNode();
+		waitingForSignal_ = in.readBoolean();
+		timeDistance_ = in.readInt();
+		politeness_ = in.readInt();
+		silentPeriod = in.readBoolean();
+		savedBeacon1 = in.readString();
+		savedBeacon2 = in.readString();
+		logNextBeacons = in.readInt();
+		isInSlow = in.readBoolean();
+		changedPseudonymInSlow = in.readBoolean();
+		slowTimestamp = in.readInt();
+		slowBeaconsLogged = in.readBoolean();
+		vehicleJustStartedInSlow = in.readBoolean();
+		moveOutOfTheWay_ = in.readBoolean();
+		forwardMessage_ = in.readBoolean();
+		fakingMessages_ = in.readBoolean();
+		fakeMessageType_ = in.readString();
+		fakeMessageCountdown_ = in.readInt();
+		fakeMessageCounter_ = in.readInt();
+		fakeMessageTypesCount = in.readInt();
+		emergencyBraking_ = in.readBoolean();
+		emergencyBrakingDuration_ = in.readInt();
+		emergencyBrakingCountdown_ = in.readInt();
+		EEBLmessageIsCreated_ = in.readBoolean();
+		emergencyBeacons = in.readInt();
+		drivingOnTheSide_ = in.readBoolean();
+		waitingForVehicle_ = in.readVehicle();
+		passingBlocking_ = in.readBoolean();
+		inTrafficJam_ = in.readBoolean();
+		checkIDSProcessors_ = in.readBoolean();
+		spamCounter_ = in.readInt();
+		EVAMessageDelay_ = in.readInt();
+		logBeaconsAfterEvent_ = in.readBoolean();
+		beaconString_ = in.readString();
+		amountOfLoggedBeacons_ = in.readInt();
+		readLaneCheckpoint(in);
+		if(in.readBoolean()){
+			KnownMessages messages = new KnownMessages(this);
+			messages.readCheckpoint(in);
+			knownMessages_ = messages;
+		} else knownMessages_ = null;
+		if(in.readBoolean()){
+			KnownVehiclesList list = new KnownVehiclesList();
+			list.readCheckpoint(in);
+			knownVehiclesList_ = list;
+		} else knownVehiclesList_ = null;
+		if(in.readBoolean()){
+			IDSProcessorList list = new IDSProcessorList(this);
+			list.readCheckpoint(in);
+			idsProcessorList_ = list;
+		} else idsProcessorList_ = null;
+		if(in.readBoolean()){
+			KnownEventSourcesList list = new KnownEventSourcesList(ID_);
+			list.readCheckpoint(in);
+			knownEventSourcesList_ = list;
+		} else knownEventSourcesList_ = null;
+		if(in.readBoolean()){
+			KnownRSUsList list = new KnownRSUsList();
+			list.readCheckpoint(in);
+			knownRSUsList_ = list;
+		} else knownRSUsList_ = null;
+		if(in.readBoolean()){
+			KnownPenalties penalties = new KnownPenalties(this);
+			penalties.readCheckpoint(in);
+			knownPenalties_ = penalties;
+		} else knownPenalties_ = null;
+	}
+	
 	/**
 	 * (Re-)Calculates the route to the next destination.
 	 * 
@@ -683,7 +1111,10 @@ public class Vehicle extends LaneObject{
 			if(!careAboutDirection) direction = 0;
 			else if(curDirection_) direction = -1;
 			else direction = 1;
-			ArrayDeque<Node> routing = ROUTING_ALGO.getRouting(routingMode_, direction, curX_, curY_, curStreet_, curPosition_, nextPoint.getX(), nextPoint.getY(), nextPoint.getStreet(), nextPoint.getPositionOnStreet(), knownPenalties_.getStreets(), knownPenalties_.getDirections(), knownPenalties_.getPenalties(), knownPenalties_.getSize(), maxSpeed_);
+			KnownPenalties penalties = knownPenalties_;
+			ArrayDeque<Node> routing;
+			if(penalties == null) routing = ROUTING_ALGO.getRouting(state().routingMode_, direction, curX_, curY_, curStreet_, curPosition_, nextPoint.getX(), nextPoint.getY(), nextPoint.getStreet(), nextPoint.getPositionOnStreet(), NO_PENALTY_STREETS, NO_PENALTY_VALUES, NO_PENALTY_VALUES, 0, maxSpeed_);
+			else routing = ROUTING_ALGO.getRouting(state().routingMode_, direction, curX_, curY_, curStreet_, curPosition_, nextPoint.getX(), nextPoint.getY(), nextPoint.getStreet(), nextPoint.getPositionOnStreet(), penalties.getStreets(), penalties.getDirections(), penalties.getPenalties(), penalties.getSize(), maxSpeed_);
 
 			if(routing.size() > 0){
 				if(routing.size() == 1){
@@ -750,7 +1181,7 @@ public class Vehicle extends LaneObject{
 				if(!isReroute && destinations_.size() < 2) {
 					active_ = false;
 					curWaitTime_ = Integer.MIN_VALUE;
-					if(totalTravelTime_ >= minTravelTimeForRecycling_) mayBeRecycled_ = true;
+					if(totalTravelTime_ >= state().minTravelTimeForRecycling_) mayBeRecycled_ = true;
 				}
 				return false;
 			}
@@ -767,18 +1198,18 @@ public class Vehicle extends LaneObject{
 	 */
 	
 	public void adjustSpeedWithIDM(int timePerStep){
+		adjustSpeedWithIDM(timePerStep, true);
+	}
+
+	/**
+	 * A method to be filled when implementing IDE
+	 * @param timePerStep
+	 * @param updateWaitTime	<code>false</code> if {@link #updateWaitTime(int)} has already been called in this step
+	 */
+	
+	public void adjustSpeedWithIDM(int timePerStep, boolean updateWaitTime){
 		// start vehicle
-		if(curWaitTime_ != 0 && curWaitTime_ != Integer.MIN_VALUE){
-			if(curWaitTime_ <= timePerStep){
-				//the time the vehicle will wait until it starts driving
-				curWaitTime_ = 0;
-				//needs to be set for vehicle to start driving
-				active_ = true;
-				brakeForDestination_ = false;
-				//add the vehicle to the current lane object
-				curStreet_.addLaneObject(this, curDirection_);
-			} else curWaitTime_ -= timePerStep;
-		}
+		if(updateWaitTime) updateWaitTime(timePerStep);
 		if(active_){
 			if(curWaitTime_ == 0 && curStreet_ != null){
 				//as a result of this method a newSpeed_ must be set
@@ -815,6 +1246,7 @@ public class Vehicle extends LaneObject{
 		
 		//add the vehicle to the current lane object
 		curStreet_.addLaneObject(this, curDirection_);
+		curRegion_.updateVehicleState(this);
 
 		//as a result of this method a newSpeed_ must be set
 		newSpeed_ = 1800;	
@@ -836,6 +1268,7 @@ public class Vehicle extends LaneObject{
 		
 		//add the vehicle to the current lane object
 		curStreet_.addLaneObject(this, curDirection_);
+		curRegion_.updateVehicleState(this);
 
 		//as a result of this method a newSpeed_ must be set
 		newSpeed_ = 1800;	
@@ -850,15 +1283,42 @@ public class Vehicle extends LaneObject{
 	 */
 
 	public void adjustSpeed(int timePerStep){
-		waitingForSignal_ = false;
+		adjustSpeed(timePerStep, true);
+	}
+
+	/**
+	 * Decreases the wait time and starts the vehicle (adds it to its lane) if the wait time is over. This is normally done
+	 * at the beginning of {@link #adjustSpeed(int)}. In the deterministic mode, all vehicles are started in a separate phase
+	 * so that the speed of all vehicles is adjusted with the same vehicles on the lanes.
+	 * 
+	 * @param timePerStep the time per step in milliseconds
+	 */
+	public void updateWaitTime(int timePerStep){
 		if(curWaitTime_ != 0 && curWaitTime_ != Integer.MIN_VALUE){
 			if(curWaitTime_ <= timePerStep){
+				//the time the vehicle will wait until it starts driving
 				curWaitTime_ = 0;
+				//needs to be set for vehicle to start driving
 				active_ = true;
 				brakeForDestination_ = false;
+				//add the vehicle to the current lane object
 				curStreet_.addLaneObject(this, curDirection_);
+				curRegion_.updateVehicleState(this);
 			} else curWaitTime_ -= timePerStep;
 		}
+	}
+
+	/**
+	 * Adjust the speed if reaching crossings or other cars. Furthermore some cleanup in the known messages and vehicles is
+	 * done and new jam messages are created if necessary.
+	 * 
+	 * @param timePerStep		the time per step in milliseconds
+	 * @param updateWaitTime	<code>false</code> if {@link #updateWaitTime(int)} has already been called in this step
+	 */
+	public void adjustSpeed(int timePerStep, boolean updateWaitTime){
+		ContextState state = state();
+		waitingForSignal_ = false;
+		if(updateWaitTime) updateWaitTime(timePerStep);
 
 		if(active_){
 			if(curWaitTime_ == 0 && curStreet_ != null){
@@ -917,7 +1377,7 @@ public class Vehicle extends LaneObject{
 				// ================================= 
 				// Step 2: Check for vehicle/blocking in front of this one or a slower street and try to change lane
 				// ================================= 
-				int result = checkCurrentBraking(curLane_);
+				int result = checkCurrentBraking(curLane_, state);
 				boolean changedLane = false;
 				laneChangeCountdown -= timePerStep;
 				if(laneChangeCountdown < 0 && curLane_ == 0) newLane_ = 1;
@@ -925,7 +1385,7 @@ public class Vehicle extends LaneObject{
 				if(laneChangeCountdown < 0 && result == 1){
 					if(curLane_ > 1){
 						curBrakingDistance_ += 2000;	//make it little bit longer so that changes are not made too often if one lane has a little bit more space ;)
-						int result2 = checkCurrentBraking(curLane_-1);
+						int result2 = checkCurrentBraking(curLane_-1, state);
 						curBrakingDistance_ -= 2000;
 						
 						if(result2 == 0 && checkLaneFree(curLane_+1)){	// only change lane if there are no obstacles on other lane or emergency vehicle is approaching
@@ -943,7 +1403,7 @@ public class Vehicle extends LaneObject{
 					}
 					if(result == 1 && curStreet_.getLanesCount() > curLane_){
 						curBrakingDistance_ += 2000;
-						int result2 = checkCurrentBraking(curLane_+1);
+						int result2 = checkCurrentBraking(curLane_+1, state);
 						curBrakingDistance_ -= 2000;
 						if(result2 == 0 && checkLaneFree(curLane_+1)){	// only change lane if there are no obstacles on other lane
 							newLane_ = curLane_ + 1;
@@ -1029,16 +1489,16 @@ public class Vehicle extends LaneObject{
 						if(destX != -1 && destY != -1){
 							int direction = -1;
 							if(!curDirection_) direction = 1;
-							int time = Renderer.getInstance().getTimePassed();
-							PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, waitingForVehicle_ , "HUANG_EVA_FORWARD", false, false);
+							int time = EngineContext.getTimePassed();
+							PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, waitingForVehicle_ , "HUANG_EVA_FORWARD", false, false);
 							message.setFloodingMode(false);	// enable flooding mode if within distance!						
-							knownMessages_.addMessage(message, false, true);
+							getKnownMessages().addMessage(message, false, true);
 							++evaForwardMessagesCreated_;
 													
 						}	
 					}
 					
-					if(newLane_ == curStreet_.getLanesCount() && ownRandom_.nextInt(100) == 0) {
+					if(newLane_ == curStreet_.getLanesCount() && nextRandomInt(100) == 0) {
 						drivingOnTheSide_ = true;
 						newLane_= curLane_-1;
 						changedLane = true;
@@ -1083,7 +1543,7 @@ public class Vehicle extends LaneObject{
 
 				if(newSpeed_ > (maxSpeed_ + speedDeviation_)) newSpeed_ = (maxSpeed_ + speedDeviation_);
 				else if (newSpeed_ < 0) newSpeed_ = 0;	//no negative speed
-				if((curStreet_.getSpeed() + speedDeviation_) > 0 && newSpeed_ > (curStreet_.getSpeed() + speedDeviation_) && this != Renderer.getInstance().getAttackerVehicle() && !emergencyVehicle_) newSpeed_ = (curStreet_.getSpeed() + speedDeviation_);
+				if((curStreet_.getSpeed() + speedDeviation_) > 0 && newSpeed_ > (curStreet_.getSpeed() + speedDeviation_) && this != EngineContext.getAttackerVehicle() && !emergencyVehicle_) newSpeed_ = (curStreet_.getSpeed() + speedDeviation_);
 			}
 
 		
@@ -1100,7 +1560,7 @@ public class Vehicle extends LaneObject{
 				isBraking_ = !isBraking_;
 				if(isBraking_){
 			
-					fluctuation_ = ownRandom_.nextInt(SPEED_FLUCTUATION_MAX);
+					fluctuation_ = nextRandomInt(SPEED_FLUCTUATION_MAX);
 			
 					speedFluctuationCountdown_ += SPEED_FLUCTUATION_CHECKINTERVAL;
 				
@@ -1110,8 +1570,8 @@ public class Vehicle extends LaneObject{
 					speedFluctuationCountdown_ += SPEED_NO_FLUCTUATION_CHECKINTERVAL;
 					fluctuation_ = 0;
 				}
-				//currentSpeedFluctuation_ = ownRandom_.nextInt(SPEED_FLUCTUATION_MAX) + 1;
-				//if(Renderer.getInstance().getMarkedVehicle() != null && Renderer.getInstance().getMarkedVehicle().equals(this)) System.out.println("Geschwindigkeit: " + currentSpeedFluctuation_);
+				//currentSpeedFluctuation_ = nextRandomInt(SPEED_FLUCTUATION_MAX) + 1;
+				//if(EngineContext.getMarkedVehicle() != null && EngineContext.getMarkedVehicle().equals(this)) System.out.println("Geschwindigkeit: " + currentSpeedFluctuation_);
 			}
 			else speedFluctuationCountdown_ -= timePerStep;
 			
@@ -1168,14 +1628,14 @@ public class Vehicle extends LaneObject{
 						if(destX != -1 && destY != -1){
 							int direction = -1;
 							if(!curDirection_) direction = 1;
-							int time = Renderer.getInstance().getTimePassed();
-							PenaltyMessage message = new PenaltyMessage(this.getX(), this.getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "HUANG_EEBL", false, true);
+							int time = EngineContext.getTimePassed();
+							PenaltyMessage message = PenaltyMessage.create(this.getX(), this.getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "HUANG_EEBL", false, true);
 							long dx = message.getDestinationX_() - curX_;
 							long dy = message.getDestinationY_() - curY_;
 							if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 								message.setFloodingMode(true);	// enable flooding mode if within distance!
 							}								
-							knownMessages_.addMessage(message, true, true);
+							getKnownMessages().addMessage(message, true, true);
 
 							++eeblMessagesCreated_;
 						}	
@@ -1186,34 +1646,34 @@ public class Vehicle extends LaneObject{
 				//}
 				
 			
-			if(isWiFiEnabled() && communicationEnabled_){
+			if(isWiFiEnabled() && state.communicationEnabled_){
 				
-				if(knownMessages_.hasNewMessages()) {
+				if(knownMessages_ != null && knownMessages_.hasNewMessages()) {
 					
-					knownMessages_.processMessages();
+					getKnownMessages().processMessages();
 				}
 				communicationCountdown_ -= timePerStep;
-				if(communicationCountdown_ < 1) knownMessages_.checkOutdatedMessages(true);
+				if(communicationCountdown_ < 1 && knownMessages_ != null) knownMessages_.checkOutdatedMessages(true);
 
 				knownPenaltiesTimeoutCountdown_ -= timePerStep;
 				if(knownPenaltiesTimeoutCountdown_ < 1){
-					if(knownPenalties_.getSize() > 0) knownPenalties_.checkValidUntil();
+					if(knownPenalties_ != null && knownPenalties_.getSize() > 0) knownPenalties_.checkValidUntil();
 					knownPenaltiesTimeoutCountdown_ += KNOWN_PENALTIES_TIMEOUT_CHECKINTERVAL;
 				}
 
-				if(beaconsEnabled_){
+				if(state.beaconsEnabled_){
 					beaconCountdown_ -= timePerStep;
 
 					// recheck known vehicles for outdated entries.
 					if(knownVehiclesTimeoutCountdown_ < 1){
-						knownVehiclesList_.checkOutdatedVehicles();
-						idsProcessorList_.checkOutdatedProcessors();
+						if(knownVehiclesList_ != null) knownVehiclesList_.checkOutdatedVehicles();
+						if(idsProcessorList_ != null) idsProcessorList_.checkOutdatedProcessors();
 						knownVehiclesTimeoutCountdown_ += KNOWN_VEHICLES_TIMEOUT_CHECKINTERVAL;
 					} else knownVehiclesTimeoutCountdown_ -= timePerStep;
 					
 					// recheck known RSUs for outdated entries.
 					if(knownRSUsTimeoutCountdown_ < 1){
-						knownRSUsList_.checkOutdatedRSUs();
+						if(knownRSUsList_ != null) knownRSUsList_.checkOutdatedRSUs();
 						knownRSUsTimeoutCountdown_ += KNOWN_RSUS_TIMEOUT_CHECKINTERVAL;
 					} else knownRSUsTimeoutCountdown_ -= timePerStep;
 					
@@ -1277,14 +1737,14 @@ public class Vehicle extends LaneObject{
 							if(destX != -1 && destY != -1){
 								int direction = -1;
 								if(!curDirection_) direction = 1;
-								int time = Renderer.getInstance().getTimePassed();
-								PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "HUANG_PCN", false, false);
+								int time = EngineContext.getTimePassed();
+								PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "HUANG_PCN", false, false);
 								long dx = message.getDestinationX_() - curX_;
 								long dy = message.getDestinationY_() - curY_;
 								if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 									message.setFloodingMode(true);	// enable flooding mode if within distance!
 								}								
-								knownMessages_.addMessage(message, false, true);
+								getKnownMessages().addMessage(message, false, true);
 
 								++pcnMessagesCreated_;
 							}							
@@ -1301,45 +1761,45 @@ public class Vehicle extends LaneObject{
 				// Step 8: Check if vehicle is inside a mix zone and change vehicle ID if entering mix zone
 				// ================================= 
 
-				if(mixZonesEnabled_){
+				if(state.mixZonesEnabled_){
 					mixCheckCountdown_ -= MIX_CHECK_INTERVAL;
 					if(mixCheckCountdown_ <= 0){
 						int MapMinX, MapMinY, MapMaxX, MapMaxY, RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
 						int i, j, k, size;
 						Node node;
-						long dx, dy, mixDistanceSquared = (long)getMaxMixZoneRadius() * getMaxMixZoneRadius();
+						long dx, dy, mixDistanceSquared = (long)state.maxMixZoneRadius_ * state.maxMixZoneRadius_;
 						boolean needsToMix = false;
 
 						// Minimum x coordinate to be considered
-						long tmp = curX_ - getMaxMixZoneRadius();
+						long tmp = curX_ - state.maxMixZoneRadius_;
 						if (tmp < 0) MapMinX = 0;	// Map stores only positive coordinates
 						else if(tmp < Integer.MAX_VALUE) MapMinX = (int) tmp;
 						else MapMinX = Integer.MAX_VALUE;
 
 						// Maximum x coordinate to be considered
-						tmp = curX_ + getMaxMixZoneRadius();
+						tmp = curX_ + state.maxMixZoneRadius_;
 						if (tmp < 0) MapMaxX = 0;
 						else if(tmp < Integer.MAX_VALUE) MapMaxX = (int) tmp;
 						else MapMaxX = Integer.MAX_VALUE;
 
 						// Minimum y coordinate to be considered
-						tmp = curY_ - getMaxMixZoneRadius();
+						tmp = curY_ - state.maxMixZoneRadius_;
 						if (tmp < 0) MapMinY = 0;
 						else if(tmp < Integer.MAX_VALUE) MapMinY = (int) tmp;
 						else MapMinY = Integer.MAX_VALUE;
 
 						// Maximum y coordinate to be considered
-						tmp = curY_ + getMaxMixZoneRadius();
+						tmp = curY_ + state.maxMixZoneRadius_;
 						if (tmp < 0) MapMaxY = 0;
 						else if(tmp < Integer.MAX_VALUE) MapMaxY = (int) tmp;
 						else MapMaxY = Integer.MAX_VALUE;
 
 						// Get the regions to be considered
-						Region tmpregion = MAP.getRegionOfPoint(MapMinX, MapMinY);
+						Region tmpregion = Map.getInstance().getRegionOfPoint(MapMinX, MapMinY);
 						RegionMinX = tmpregion.getX();
 						RegionMinY = tmpregion.getY();
 
-						tmpregion = MAP.getRegionOfPoint(MapMaxX, MapMaxY);
+						tmpregion = Map.getInstance().getRegionOfPoint(MapMaxX, MapMaxY);
 						RegionMaxX = tmpregion.getX();
 						RegionMaxY = tmpregion.getY();
 
@@ -1347,7 +1807,7 @@ public class Vehicle extends LaneObject{
 						for(i = RegionMinX; i <= RegionMaxX; ++i){
 	
 							for(j = RegionMinY; j <= RegionMaxY; ++j){
-								Node[] mixNodes = regions_[i][j].getMixZoneNodes();
+								Node[] mixNodes = state.regions_[i][j].getMixZoneNodes();
 								size = mixNodes.length;
 								for(k = 0; k < size; ++k){
 									node = mixNodes[k];
@@ -1372,13 +1832,13 @@ public class Vehicle extends LaneObject{
 						}
 						
 						if(needsToMix != isInMixZone_){
-							if(privacyDataLogged_){
-								if(needsToMix) 	PrivacyLogWriter.log(Renderer.getInstance().getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:" + curMixNode_.getNodeID() + ":Direction:IN" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() +  ":x:" + this.curX_ + ":y:" + this.curY_);
-								else PrivacyLogWriter.log(Renderer.getInstance().getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:" + curMixNode_.getNodeID() + ":Direction:OUT" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() + ":x:" + this.curX_ + ":y:" + this.curY_);
+							if(state.privacyDataLogged_){
+								if(needsToMix) 	PrivacyLogWriter.log(EngineContext.getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:" + curMixNode_.getNodeID() + ":Direction:IN" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() +  ":x:" + this.curX_ + ":y:" + this.curY_);
+								else PrivacyLogWriter.log(EngineContext.getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:" + curMixNode_.getNodeID() + ":Direction:OUT" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() + ":x:" + this.curX_ + ":y:" + this.curY_);
 							}
 							if(needsToMix){
 								++IDsChanged_;
-								ID_ = ownRandom_.nextLong();
+								ID_ = nextRandomLong();
 							}
 							isInMixZone_ = needsToMix;
 						}
@@ -1394,9 +1854,9 @@ public class Vehicle extends LaneObject{
 					if(fakeMessageCountdown_ < 0){
 						
 						//fake messages
-						fakeMessageCountdown_ = fakeMessagesInterval_;
+						fakeMessageCountdown_ = state.fakeMessagesInterval_;
 						String messageType = fakeMessageType_;
-						if(fakeMessageType_.equals("all") || fakeMessageType_.equals("Alle")) messageType = IDSProcessor.getIdsData_()[ownRandom_.nextInt(fakeMessageTypesCount)];
+						if(fakeMessageType_.equals("all") || fakeMessageType_.equals("Alle")) messageType = IDSProcessor.getIdsData_()[nextRandomInt(fakeMessageTypesCount)];
 						
 						// find the destination for the message. Will be sent to the next junction behind us! (if its pcn we send it in front)
 						boolean tmpDirection2 = curDirection_;
@@ -1438,11 +1898,11 @@ public class Vehicle extends LaneObject{
 						if(destX != -1 && destY != -1){
 							int direction = -1;
 							//if(!curDirection_) direction = 1;
-							int time = Renderer.getInstance().getTimePassed();
+							int time = EngineContext.getTimePassed();
 							if(messageType.equals("HUANG_EVA_FORWARD")){
-								PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this,  messageType, false, true);
+								PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this,  messageType, false, true);
 								message.setFloodingMode(true);	// enable flooding mode if within distance!				
-								knownMessages_.addMessage(message, false, true);
+								getKnownMessages().addMessage(message, false, true);
 							}
 							else if(messageType.equals("EVA_EMERGENCY_ID")){
 								if(emergencyBeacons == -1){
@@ -1467,27 +1927,27 @@ public class Vehicle extends LaneObject{
 										}
 										*/
 	
-										PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this, messageType, false, true);
+										PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this, messageType, false, true);
 
 										long dx = message.getDestinationX_() - curX_;
 										long dy = message.getDestinationY_() - curY_;
 										if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 											message.setFloodingMode(true);	// enable flooding mode if within distance!
 										}
-										knownMessages_.addMessage(message, false, true);
+										getKnownMessages().addMessage(message, false, true);
 									//}
 								//}
 							}
 							//else if(messageType.equals("PCN_FORWARD")){}
 							else{
-								PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this, messageType, false, true);
+								PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this, messageType, false, true);
 
 								long dx = message.getDestinationX_() - curX_;
 								long dy = message.getDestinationY_() - curY_;
 								if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 									message.setFloodingMode(true);	// enable flooding mode if within distance!
 								}
-							    knownMessages_.addMessage(message, false, true);
+							    getKnownMessages().addMessage(message, false, true);
 
 							}
 					//		System.out.println(time + ":fake message created: " + messageType);
@@ -1656,7 +2116,7 @@ public class Vehicle extends LaneObject{
 		if(next_ != null){
 			if(next_.getCurLane() == lane){	// next one is on the same lane
 				//System.out.println("Fahrzeug vor uns: (1.Versuch) " + next_.curPosition_);
-				if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)next_).setColor(Color.cyan);
+				if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)next_).setColor(Color.cyan);
 				f = (Vehicle)next_;
 				vehicleInFront = true;
 			} else {	// need to search for the next which is on our lane
@@ -1664,7 +2124,7 @@ public class Vehicle extends LaneObject{
 				while(tmpLaneObject != null){
 					if(tmpLaneObject.getCurLane() == lane){
 					//	System.out.println("Fahrzeug vor uns: (2. Versuch)" + tmpLaneObject.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						f = (Vehicle)tmpLaneObject;
 						vehicleInFront = true;
 						break;	// only check the first on our lane!
@@ -1684,7 +2144,7 @@ public class Vehicle extends LaneObject{
 				while(tmpLaneObject != null){
 					if(tmpLaneObject.getCurLane() == lane){
 						//System.out.println("Fahrzeug vor uns: (3. Versuch)" + tmpLaneObject.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						f = (Vehicle) tmpLaneObject;
 						i=routeStreets_.length;
 						break;
@@ -1699,7 +2159,7 @@ public class Vehicle extends LaneObject{
 		if(next_ != null){
 			if(next_.getCurLane() == lane+1){	// next one is on the same lane
 				//System.out.println("!!!Fahrzeug dann vor uns: (1.Versuch) " + next_.curPosition_);
-				if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)next_).setColor(Color.cyan);
+				if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)next_).setColor(Color.cyan);
 				f2 = (Vehicle)next_;
 				vehicleInFront2 = true;
 			} else {	// need to search for the next which is on our lane
@@ -1707,7 +2167,7 @@ public class Vehicle extends LaneObject{
 				while(tmpLaneObject != null){
 					if(tmpLaneObject.getCurLane() == lane+1){
 						//System.out.println("!!!Fahrzeug dann vor uns: (2. Versuch)" + tmpLaneObject.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						f2 = (Vehicle)tmpLaneObject;
 						vehicleInFront2 = true;
 						break;	// only check the first on our lane!
@@ -1728,7 +2188,7 @@ public class Vehicle extends LaneObject{
 
 					if(tmpLaneObject.getCurLane() == lane+1){
 						//System.out.println("!!!Fahrzeug dann vor uns: (3. Versuch)" + tmpLaneObject.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						f2 = (Vehicle) tmpLaneObject;
 						i = routeStreets_.length;
 						break;
@@ -1751,7 +2211,7 @@ public class Vehicle extends LaneObject{
 			if(previous_.getCurLane() == lane){	// is on the same lane
 				vehicleBehind = true;
 				//System.out.println("Fahrzeug hinter uns: (1. Versuch)" + previous_.curPosition_);
-				if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)previous_).setColor(Color.cyan);
+				if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)previous_).setColor(Color.cyan);
 				b = (Vehicle)previous_;
 			} else {	// need to search for the previous one which is on our lane
 				LaneObject tmpLaneObject = previous_.getPrevious();
@@ -1759,7 +2219,7 @@ public class Vehicle extends LaneObject{
 					if(tmpLaneObject.getCurLane() == lane){
 						vehicleBehind = true;
 					//	System.out.println("Fahrzeug hinter uns: (2. Versuch)" + previous_.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						b = (Vehicle)tmpLaneObject;
 						break;	// only check the first on our lane!
 					}
@@ -1802,7 +2262,7 @@ public class Vehicle extends LaneObject{
 					while(tmpLaneObject != null){
 						if(tmpLaneObject.getCurLane() == lane && !tmpLaneObject.equals(this)){
 						//	System.out.println("Fahrzeug hinter uns: (3. Versuch)" + tmpLaneObject.curPosition_);
-							if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+							if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 							b = (Vehicle)tmpLaneObject;
 							counter = 3;
 							break;
@@ -1825,7 +2285,7 @@ public class Vehicle extends LaneObject{
 			if(previous_.getCurLane() == lane+1){	// is on the same lane
 				vehicleBehind2 = true;
 			//	System.out.println("!!!Fahrzeug dann hinter uns: (1. Versuch)" + previous_.curPosition_);
-				if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)previous_).setColor(Color.cyan);
+				if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)previous_).setColor(Color.cyan);
 				b2 = (Vehicle)previous_;
 			} else {	// need to search for the previous one which is on our lane
 				LaneObject tmpLaneObject = previous_.getPrevious();
@@ -1833,7 +2293,7 @@ public class Vehicle extends LaneObject{
 					if(tmpLaneObject.getCurLane() == lane+1){
 						vehicleBehind2 = true;
 					//	System.out.println("!!!Fahrzeug dann hinter uns: (2. Versuch)" + previous_.curPosition_);
-						if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+						if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 						b2 = (Vehicle)tmpLaneObject;
 						break;	// only check the first on our lane!
 					}
@@ -1891,7 +2351,7 @@ public class Vehicle extends LaneObject{
 							if(tmpDirection) distance =  tmpStreet.getLength()-tmpLaneObject.getCurPosition()+distance;
 							else distance = tmpLaneObject.getCurPosition()+distance;
 							
-							if(this.equals(Renderer.getInstance().getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
+							if(this.equals(EngineContext.getMarkedVehicle())) ((Vehicle)tmpLaneObject).setColor(Color.cyan);
 							b2 = (Vehicle)tmpLaneObject;
 
 							break;
@@ -2058,11 +2518,12 @@ public class Vehicle extends LaneObject{
 	 * Check if braking is necessary on the specified lane.
 	 * 
 	 * @param lane	the lane to check
+	 * @param state	the shared variables of the current simulation context
 	 * 
 	 * @return <code>0</code> if braking is not necessary, <code>1</code> if braking is necessary because of an object on a lane,
 	 * 	<code>2</code> if braking is necessary because of a lower speed street or junction
 	 */
-	private final int checkCurrentBraking(int lane){
+	private final int checkCurrentBraking(int lane, ContextState state){
 		boolean foundNextVehicle = false;
 	
 				
@@ -2115,10 +2576,10 @@ public class Vehicle extends LaneObject{
 									if(destX != -1 && destY != -1){
 										int direction = -1;
 										if(!curDirection_) direction = 1;
-										int time = Renderer.getInstance().getTimePassed();
-										PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "EVA_EMERGENCY_ID", true, true);
+										int time = EngineContext.getTimePassed();
+										PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "EVA_EMERGENCY_ID", true, true);
 										message.setFloodingMode(true);	// enable flooding mode if within distance!						
-										knownMessages_.addMessage(message, false, true);
+										getKnownMessages().addMessage(message, false, true);
 										
 										++evaMessagesCreated_;
 									}							
@@ -2167,14 +2628,14 @@ public class Vehicle extends LaneObject{
 									if(destX != -1 && destY != -1){
 										int direction = -1;
 										if(!curDirection_) direction = 1;
-										int time = Renderer.getInstance().getTimePassed();
-										PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, null,  "PCN_FORWARD", false, false);
+										int time = EngineContext.getTimePassed();
+										PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, null,  "PCN_FORWARD", false, false);
 										long dx = message.getDestinationX_() - curX_;
 										long dy = message.getDestinationY_() - curY_;
 										if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 											message.setFloodingMode(true);	// enable flooding mode if within distance!
 										}									
-										knownMessages_.addMessage(message, false, true);
+										getKnownMessages().addMessage(message, false, true);
 
 										++pcnForwardMessagesCreated_;
 									}	
@@ -2189,7 +2650,7 @@ public class Vehicle extends LaneObject{
 							passingBlocking_ = true;
 							if(((BlockingObject) next_).getPenaltyType_().equals("HUANG_RHCN"))	{
 								if(lastRHCNMessageCreated >= MESSAGE_INTERVAL){
-									if(waitToSendRHCNCounter_ < 0)waitToSendRHCNCounter_ = WAIT_TO_SEND_RHCN_;
+									if(waitToSendRHCNCounter_ < 0)waitToSendRHCNCounter_ = state.WAIT_TO_SEND_RHCN_;
 									else if(waitToSendRHCNCounter_ > 0) waitToSendRHCNCounter_--;
 									else{	
 										waitToSendRHCNCounter_ = -1;	
@@ -2234,14 +2695,14 @@ public class Vehicle extends LaneObject{
 										if(destX != -1 && destY != -1){
 											int direction = -1;
 											if(!curDirection_) direction = 1;
-											int time = Renderer.getInstance().getTimePassed();
-											PenaltyMessage message = new PenaltyMessage(((BlockingObject) next_).getX(), ((BlockingObject) next_).getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "HUANG_RHCN", false, true);
+											int time = EngineContext.getTimePassed();
+											PenaltyMessage message = PenaltyMessage.create(((BlockingObject) next_).getX(), ((BlockingObject) next_).getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "HUANG_RHCN", false, true);
 											long dx = message.getDestinationX_() - curX_;
 											long dy = message.getDestinationY_() - curY_;
 											if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 												message.setFloodingMode(true);	// enable flooding mode if within distance!
 											}								
-											knownMessages_.addMessage(message, false, true);
+											getKnownMessages().addMessage(message, false, true);
 
 											++rhcnMessagesCreated_;
 										}	
@@ -2303,11 +2764,11 @@ public class Vehicle extends LaneObject{
 											if(destX != -1 && destY != -1){
 												int direction = -1;
 												if(!curDirection_) direction = 1;
-												int time = Renderer.getInstance().getTimePassed();
+												int time = EngineContext.getTimePassed();
 												
-												PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "EVA_EMERGENCY_ID", true, true);
+												PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_EVA_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "EVA_EMERGENCY_ID", true, true);
 												message.setFloodingMode(true);	// enable flooding mode if within distance!								
-												knownMessages_.addMessage(message, false, true);
+												getKnownMessages().addMessage(message, false, true);
 										
 
 												++evaMessagesCreated_;
@@ -2356,14 +2817,14 @@ public class Vehicle extends LaneObject{
 											if(destX != -1 && destY != -1){
 												int direction = -1;
 												if(!curDirection_) direction = 1;
-												int time = Renderer.getInstance().getTimePassed();
-												PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "PCN_FORWARD", false, false);
+												int time = EngineContext.getTimePassed();
+												PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this,  "PCN_FORWARD", false, false);
 												long dx = message.getDestinationX_() - curX_;
 												long dy = message.getDestinationY_() - curY_;
 												if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 													message.setFloodingMode(true);	// enable flooding mode if within distance!
 												}							
-												knownMessages_.addMessage(message, false, true);
+												getKnownMessages().addMessage(message, false, true);
 
 												++pcnForwardMessagesCreated_;
 											}															
@@ -2417,14 +2878,14 @@ public class Vehicle extends LaneObject{
 											if(destX != -1 && destY != -1){
 												int direction = -1;
 												if(!curDirection_) direction = 1;
-												int time = Renderer.getInstance().getTimePassed();
-												PenaltyMessage message = new PenaltyMessage(((BlockingObject) next_).getX(), ((BlockingObject) next_).getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "HUANG_RHCN", false, true);
+												int time = EngineContext.getTimePassed();
+												PenaltyMessage message = PenaltyMessage.create(((BlockingObject) next_).getX(), ((BlockingObject) next_).getY(), destX, destY, PENALTY_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, false, ID_, this, "HUANG_RHCN", false, true);
 												long dx = message.getDestinationX_() - curX_;
 												long dy = message.getDestinationY_() - curY_;
 												if((long)PENALTY_MESSAGE_RADIUS * PENALTY_MESSAGE_RADIUS >= (dx*dx + dy*dy)){
 													message.setFloodingMode(true);	// enable flooding mode if within distance!
 												}								
-												knownMessages_.addMessage(message, false, true);
+												getKnownMessages().addMessage(message, false, true);
 												++rhcnMessagesCreated_;
 
 											}							
@@ -2705,21 +3166,23 @@ public class Vehicle extends LaneObject{
 	 * </ul>
 	 */
 	public void sendMessages(){
+		ContextState state = state();
 	
 		//clean up old penalties 		
 		//ArrayList<BlockingObject> tmpO = new ArrayList<BlockingObject>(tmpBlockings);
-		//for(BlockingObject o:tmpO) if(o.removeFromLane(this, Renderer.getInstance().getTimePassed())) tmpBlockings.remove(o);
+		//for(BlockingObject o:tmpO) if(o.removeFromLane(this, EngineContext.getTimePassed())) tmpBlockings.remove(o);
 				
-		communicationCountdown_ += communicationInterval_;
-		if(beaconsEnabled_ && !isInMixZone_){
-			Message[] messages = knownMessages_.getForwardMessages();
-			int size = knownMessages_.getSize();
+		communicationCountdown_ += state.communicationInterval_;
+		if(knownMessages_ == null) return;	// nothing received or created yet so there's nothing to forward
+		if(state.beaconsEnabled_ && !isInMixZone_){
+			Message[] messages = getKnownMessages().getForwardMessages();
+			int size = getKnownMessages().getSize();
 			Vehicle nearestVehicle;
 			
 			//send messages to all knownRSUs
 			RSU nearestRSU;
 			for(int i = size - 1; i > -1; --i){			
-				KnownRSU[] rsuHeads = knownRSUsList_.getFirstKnownRSU();
+				KnownRSU[] rsuHeads = getKnownRSUsList().getFirstKnownRSU();
 				int sendCount = 0;
 				KnownRSU rsuNext;
 				long dx, dy, maxCommSquared = (long)maxCommDistance_ * maxCommDistance_;
@@ -2739,38 +3202,38 @@ public class Vehicle extends LaneObject{
 				
 				// flooding mode => send to all known vehicles
 				if(messages[i].getFloodingMode()){
-					KnownVehicle[] heads = knownVehiclesList_.getFirstKnownVehicle();
+					KnownVehicle[] knownVehicles = getKnownVehiclesList().getKnownVehicles();
+					Vehicle[] vehicles = state.vehicles_;
 					KnownVehicle next;
-					for(int j = 0; j < heads.length; ++j){
-						next = heads[j];								
-						while(next != null){
+					for(int j = 0; j < knownVehicles.length; ++j){
+						next = knownVehicles[j];								
+						if(next != null){
 							++sendCount;
-							nearestVehicle = next.getVehicle();
+							nearestVehicle = vehicles[next.getVehicleIndex()];
 							dx = nearestVehicle.getX() - curX_;
 							dy = nearestVehicle.getY() - curY_;
 							if((dx * dx + dy * dy) < maxCommSquared){	//check if vehicle really is in communication distance
 								//nearestVehicle.setColor(Color.red);
 								nearestVehicle.receiveMessage(curX_, curY_, messages[i]);
 							}
-							next = next.getNext();
 						}
 					}
 
-					if(sendCount > 0) knownMessages_.deleteForwardMessage(i, true);
+					if(sendCount > 0) getKnownMessages().deleteForwardMessage(i, true);
 				// line based mode => only communicate with the nearest known vehicle to message destination
 				} else {
 					
-					nearestVehicle = knownVehiclesList_.findNearestVehicle(curX_, curY_, messages[i].getDestinationX_(), messages[i].getDestinationY_(), maxCommDistance_);
+					nearestVehicle = getKnownVehiclesList().findNearestVehicle(curX_, curY_, messages[i].getDestinationX_(), messages[i].getDestinationY_(), maxCommDistance_);
 					if(nearestVehicle != null){	// only communicate if a nearer vehicle was found!
 						nearestVehicle.receiveMessage(curX_, curY_, messages[i]);
 						//nearestVehicle.setColor(Color.green);
-						knownMessages_.deleteForwardMessage(i, true);
+						getKnownMessages().deleteForwardMessage(i, true);
 					}
 				}
 			}
-		} else if (!isInMixZone_ || mixZonesFallbackEnabled_){	
-			Message[] messages = knownMessages_.getForwardMessages();
-			int messageSize = knownMessages_.getSize();
+		} else if (!isInMixZone_ || state.mixZonesFallbackEnabled_){	
+			Message[] messages = getKnownMessages().getForwardMessages();
+			int messageSize = getKnownMessages().getSize();
 			if(messageSize > 0){
 				// only look through all vehicles if beacons are generally disabled and messages need to be sent in a bruteforce-mode or if the fallback mode in mix zones is enabled
 				int MapMinX, MapMinY, MapMaxX, MapMaxY, RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
@@ -2800,16 +3263,18 @@ public class Vehicle extends LaneObject{
 				else MapMaxY = Integer.MAX_VALUE;
 	
 				// Get the regions to be considered for communication
-				Region tmpregion = MAP.getRegionOfPoint(MapMinX, MapMinY);
+				Region tmpregion = Map.getInstance().getRegionOfPoint(MapMinX, MapMinY);
 				RegionMinX = tmpregion.getX();
 				RegionMinY = tmpregion.getY();
 	
-				tmpregion = MAP.getRegionOfPoint(MapMaxX, MapMaxY);
+				tmpregion = Map.getInstance().getRegionOfPoint(MapMaxX, MapMaxY);
 				RegionMaxX = tmpregion.getX();
 				RegionMaxY = tmpregion.getY();
 				long maxCommDistance_square = (long)maxCommDistance_ * maxCommDistance_;
 				long dx, dy, distance = 0;
 				int i, j, k, l, size;
+				int[] xs, ys, flags;
+				Region region;
 				Vehicle[] vehicles = null;
 				Vehicle vehicle = null;
 				
@@ -2821,17 +3286,21 @@ public class Vehicle extends LaneObject{
 				for(i = RegionMinX; i <= RegionMaxX; ++i){
 					for(j = RegionMinY; j <= RegionMaxY; ++j){
 						//send to vehicles
-						vehicles = regions_[i][j].getVehicleArray();	//use the array as it's MUCH faster!
-						size = vehicles.length;
+						region = state.regions_[i][j];
+						vehicles = region.getVehicleStore();	//use the array as it's MUCH faster!
+						xs = region.getVehicleXs();		// the packed values so that vehicles out of range are not touched at all
+						ys = region.getVehicleYs();
+						flags = region.getVehicleFlags();
+						size = region.getVehicleCount();
 						for(k = 0; k < size; ++k){
-							vehicle = vehicles[k];
 							// precheck if the vehicle is near enough and valid (check is not exact as its a rectangular box and not circle)
-							if(vehicle.isWiFiEnabled() && vehicle.isActive() && vehicle != this && vehicle.getX() >= MapMinX && vehicle.getX() <= MapMaxX && vehicle.getY() >= MapMinY && vehicle.getY() <= MapMaxY){
-								dx = vehicle.getX() - curX_;
-								dy = vehicle.getY() - curY_;
+							if((flags[k] & Region.VEHICLE_COMMUNICATING) == Region.VEHICLE_COMMUNICATING && xs[k] >= MapMinX && xs[k] <= MapMaxX && ys[k] >= MapMinY && ys[k] <= MapMaxY && vehicles[k] != this){
+								vehicle = vehicles[k];
+								dx = xs[k] - curX_;
+								dy = ys[k] - curY_;
 								distance = dx * dx + dy * dy; 	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
 								if(distance <= maxCommDistance_square){
-									if(!isInMixZone_ || !mixZonesFallbackFloodingOnly_){
+									if(!isInMixZone_ || !state.mixZonesFallbackFloodingOnly_){
 										for(l = 0; l < messageSize; ++l){
 											vehicle.receiveMessage(curX_, curY_, messages[l]);
 											//vehicle.setColor(Color.blue);
@@ -2849,7 +3318,7 @@ public class Vehicle extends LaneObject{
 						}
 						
 						//send to Road-Side-Units
-						rsus = regions_[i][j].getRSUs();	//use the array as it's MUCH faster!
+						rsus = state.regions_[i][j].getRSUs();	//use the array as it's MUCH faster!
 						size = rsus.length;
 						for(k = 0; k < size; ++k){
 							rsu = rsus[k];
@@ -2859,7 +3328,7 @@ public class Vehicle extends LaneObject{
 								dy = rsu.getY() - curY_;
 								distance = dx * dx + dy * dy; 	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
 								if(distance <= maxCommDistance_square){
-									if(!isInMixZone_ || !mixZonesFallbackFloodingOnly_){
+									if(!isInMixZone_ || !state.mixZonesFallbackFloodingOnly_){
 										for(l = 0; l < messageSize; ++l){
 											rsu.receiveMessage(curX_, curY_, messages[l]);
 										}
@@ -2873,8 +3342,8 @@ public class Vehicle extends LaneObject{
 						}
 					}
 				}
-				if(!isInMixZone_ || !mixZonesFallbackFloodingOnly_) knownMessages_.deleteAllForwardMessages(true);
-				else knownMessages_.deleteAllFloodingForwardMessages(true);
+				if(!isInMixZone_ || !state.mixZonesFallbackFloodingOnly_) getKnownMessages().deleteAllForwardMessages(true);
+				else getKnownMessages().deleteAllFloodingForwardMessages(true);
 			}
 		} 
 	}
@@ -2887,28 +3356,34 @@ public class Vehicle extends LaneObject{
 	 * @param message	the message
 	 */
 	public final void receiveMessage(int sourceX, int sourceY, Message message){
+		ContextState state = state();
+		InteractionBuffer buffer = WorkerThread.getInteractionBuffer();
+		if(buffer != null){		// deterministic mode: received at the end of the phase
+			buffer.addMessage(this, sourceX, sourceY, message);
+			return;
+		}
 		long dx = message.getDestinationX_() - curX_;
 		long dy = message.getDestinationY_() - curY_;
 		long distanceToDestinationSquared = dx*dx + dy*dy;
 		
 		if(message.getFloodingMode()){	// in flooding mode, vehicles only forward messages they got if they are within the target area
-			if((message.getDestinationRadiusSquared() >= distanceToDestinationSquared) && !directCommunicationMode_){
-				knownMessages_.addMessage(message, true, true);
-			} else knownMessages_.addMessage(message, true, false);
+			if((message.getDestinationRadiusSquared() >= distanceToDestinationSquared) && !state.directCommunicationMode_){
+				getKnownMessages().addMessage(message, true, true);
+			} else getKnownMessages().addMessage(message, true, false);
 		} else {	// line-based mode
 			if(message.getDestinationRadiusSquared() >= distanceToDestinationSquared){
 				message.setFloodingMode(true);	// enable flooding mode if within distance!
 			}
-			if(beaconsEnabled_){	// if beacons are enabled, we can be sure that we are nearer than the last vehicle
-				if(directCommunicationMode_)knownMessages_.addMessage(message, true, false);
-				else knownMessages_.addMessage(message, true, true);
+			if(state.beaconsEnabled_){	// if beacons are enabled, we can be sure that we are nearer than the last vehicle
+				if(state.directCommunicationMode_)getKnownMessages().addMessage(message, true, false);
+				else getKnownMessages().addMessage(message, true, true);
 			} else {
 				// no beacons. check manually if we are nearer to the destination than the sending vehicle
 				dx = message.getDestinationX_() - sourceX;
 				dy = message.getDestinationY_() - sourceY;
-				if(((dx * dx + dy * dy) > distanceToDestinationSquared)  && !directCommunicationMode_){
-					knownMessages_.addMessage(message, true, true);
-				} else knownMessages_.addMessage(message, true, false);
+				if(((dx * dx + dy * dy) > distanceToDestinationSquared)  && !state.directCommunicationMode_){
+					getKnownMessages().addMessage(message, true, true);
+				} else getKnownMessages().addMessage(message, true, false);
 			}
 		}
 	}
@@ -2925,62 +3400,65 @@ public class Vehicle extends LaneObject{
 	 * </ul>
 	 */
 	public void sendBeacons(){
-		beaconCountdown_ += beaconInterval_;
+		ContextState state = state();
+		beaconCountdown_ += state.beaconInterval_;
 		
 			
-		if(isInSlow && !changedPseudonymInSlow && Renderer.getInstance().getTimePassed() >= (slowTimestamp + TIME_TO_PSEUDONYM_CHANGE - (2*beaconInterval_))){
+		if(isInSlow && !changedPseudonymInSlow && EngineContext.getTimePassed() >= (slowTimestamp + state.TIME_TO_PSEUDONYM_CHANGE - (2*state.beaconInterval_))){
 			changedPseudonymInSlow = true;
 			
 			++IDsChanged_;
-			ID_ = ownRandom_.nextLong();
+			ID_ = nextRandomLong();
 		}
 		
-		if(slowOn){
-			if(privacyDataLogged_ && isInSlow && !slowBeaconsLogged){
+		if(state.slowOn){
+			if(state.privacyDataLogged_ && isInSlow && !slowBeaconsLogged){
 				slowBeaconsLogged = true;
 				if(!vehicleJustStartedInSlow)PrivacyLogWriter.log(savedBeacon2.replace("%0%aa%0%", "IN")  + "\n" + savedBeacon1.replace("%0%aa%0%", "IN") );
 			}
 			
-			else if(privacyDataLogged_ && !isInSlow && slowBeaconsLogged){
+			else if(state.privacyDataLogged_ && !isInSlow && slowBeaconsLogged){
 				slowBeaconsLogged = false;
 				
 				logNextBeacons = 2;
 			}
 		}
 		/*
-		if(((Renderer.getInstance().getTimePassed() - slowTimestamp) > 60000) && !vehicleCounted){
+		if(((EngineContext.getTimePassed() - slowTimestamp) > 60000) && !vehicleCounted){
 			vehicleCounted = true;
 			vehiclesInSlow++;
 		}
-		if(Renderer.getInstance().getTimePassed()%24000 == 0)System.out.println(vehiclesInSlow);
+		if(EngineContext.getTimePassed()%24000 == 0)System.out.println(vehiclesInSlow);
 		*/
-		if(slowOn){
-			if(!isInSlow && this.curSpeed_ <= SLOW_SPEED_LIMIT && logNextBeacons == 0){
+		if(state.slowOn){
+			if(!isInSlow && this.curSpeed_ <= state.SLOW_SPEED_LIMIT && logNextBeacons == 0){
 				isInSlow = true;
-				slowTimestamp = Renderer.getInstance().getTimePassed();
+				slowTimestamp = EngineContext.getTimePassed();
 				changedPseudonymInSlow = false;
 
 			}
-			else if(isInSlow && this.curSpeed_ > SLOW_SPEED_LIMIT && (Renderer.getInstance().getTimePassed() - slowTimestamp) > (2*beaconInterval_)){
+			else if(isInSlow && this.curSpeed_ > state.SLOW_SPEED_LIMIT && (EngineContext.getTimePassed() - slowTimestamp) > (2*state.beaconInterval_)){
 				isInSlow = false;
 			}
 		}
 
 
 		
-		if(silent_period != silentPeriod){ 
-			silentPeriod = silent_period;
+		if(state.silent_period != silentPeriod){ 
+			silentPeriod = state.silent_period;
 			
-			if(!silent_period) logNextBeacons = 2;
+			if(!state.silent_period) logNextBeacons = 2;
 			//log beacon
-			if(silentPeriod && privacyDataLogged_ && isSilentPeriodsOn()) PrivacyLogWriter.log(savedBeacon2 + "\n" + savedBeacon1);
+			if(silentPeriod && state.privacyDataLogged_ && isSilentPeriodsOn()) PrivacyLogWriter.log(savedBeacon2 + "\n" + savedBeacon1);
 		}
 		
 
 		
-		if(!silent_period && !isInSlow){
+		if(!state.silent_period && !isInSlow){
 			//beaconCountdown_ += beaconInterval_;
 			int i, j, k, size = 0, MapMinX, MapMinY, MapMaxX, MapMaxY, RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
+			int[] xs, ys, flags;
+			Region region;
 			Vehicle[] vehicles = null;
 			Vehicle vehicle = null;
 		
@@ -3010,11 +3488,11 @@ public class Vehicle extends LaneObject{
 			else MapMaxY = Integer.MAX_VALUE;
 
 			// Get the regions to be considered for sending beacons
-			Region tmpregion = MAP.getRegionOfPoint(MapMinX, MapMinY);
+			Region tmpregion = Map.getInstance().getRegionOfPoint(MapMinX, MapMinY);
 			RegionMinX = tmpregion.getX();
 			RegionMinY = tmpregion.getY();
 
-			tmpregion = MAP.getRegionOfPoint(MapMaxX, MapMaxY);
+			tmpregion = Map.getInstance().getRegionOfPoint(MapMaxX, MapMaxY);
 			RegionMaxX = tmpregion.getX();
 			RegionMaxY = tmpregion.getY();
 			long maxCommDistanceSquared = (long)maxCommDistance_ * maxCommDistance_;
@@ -3024,15 +3502,19 @@ public class Vehicle extends LaneObject{
 			// only iterate through those regions which are within the distance
 			for(i = RegionMinX; i <= RegionMaxX; ++i){
 				for(j = RegionMinY; j <= RegionMaxY; ++j){
-					vehicles = regions_[i][j].getVehicleArray();	//use the array as it's MUCH faster!
-					size = vehicles.length;
+					region = state.regions_[i][j];
+					vehicles = region.getVehicleStore();	//use the array as it's MUCH faster!
+					xs = region.getVehicleXs();		// the packed values so that vehicles out of range are not touched at all
+					ys = region.getVehicleYs();
+					flags = region.getVehicleFlags();
+					size = region.getVehicleCount();
 
 					for(k = 0; k < size; ++k){
-						vehicle = vehicles[k];
 						// precheck if the vehicle is near enough and valid (check is not exact as its a rectangular box and not circle)
-						if(vehicle.isWiFiEnabled() && vehicle.isActive() && vehicle != this && vehicle.getX() >= MapMinX && vehicle.getX() <= MapMaxX && vehicle.getY() >= MapMinY && vehicle.getY() <= MapMaxY){
-							dx = vehicle.getX() - curX_;
-							dy = vehicle.getY() - curY_;
+						if((flags[k] & Region.VEHICLE_COMMUNICATING) == Region.VEHICLE_COMMUNICATING && xs[k] >= MapMinX && xs[k] <= MapMaxX && ys[k] >= MapMinY && ys[k] <= MapMaxY && vehicles[k] != this){
+							vehicle = vehicles[k];
+							dx = xs[k] - curX_;
+							dy = ys[k] - curY_;
 							if((dx * dx + dy * dy) <= maxCommDistanceSquared){	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
 								if(emergencyBeacons > 0){
 									vehicle.getIdsProcessorList_().updateProcessor((ID_-1), curX_, curY_, curSpeed_, curLane_);
@@ -3080,11 +3562,11 @@ public class Vehicle extends LaneObject{
 									if(destX != -1 && destY != -1){
 										int direction = -1;
 										//if(!curDirection_) direction = 1;
-										int time = Renderer.getInstance().getTimePassed();
+										int time = EngineContext.getTimePassed();
 										
-										PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, (ID_-1), this,  "EVA_EMERGENCY_ID", true, true);
+										PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, (ID_-1), this,  "EVA_EMERGENCY_ID", true, true);
 										message.setFloodingMode(true);	// enable flooding mode if within distance!				
-										knownMessages_.addMessage(message, false, true);	
+										getKnownMessages().addMessage(message, false, true);	
 										
 										emergencyBeacons = -1;								
 									}		
@@ -3108,16 +3590,16 @@ public class Vehicle extends LaneObject{
 			if(emergencyBeacons >= 0) emergencyBeacons--;
 				/*
 				if(emergencyBeacons == 0){
-					PenaltyMessage message = new PenaltyMessage(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this,  messageType, true, true);
+					PenaltyMessage message = PenaltyMessage.create(curX_, curY_, destX, destY, PENALTY_FAKE_MESSAGE_RADIUS, time + PENALTY_MESSAGE_VALID, curStreet_, curLane_, direction, PENALTY_MESSAGE_VALUE, time + PENALTY_VALID, true, ID_, this,  messageType, true, true);
 					message.setFloodingMode(false);	// enable flooding mode if within distance!				
-					knownMessages_.addMessage(message, true, true);
+					getKnownMessages().addMessage(message, true, true);
 				}
 				
 			}
 			*/
 			// allow beacon monitoring
-			if(beaconMonitorEnabled_){
-				if(curX_ >= beaconMonitorMinX_ && curX_ <= beaconMonitorMaxX_ && curY_ >= beaconMonitorMinY_ && curY_ <= beaconMonitorMaxY_){
+			if(state.beaconMonitorEnabled_){
+				if(curX_ >= state.beaconMonitorMinX_ && curX_ <= state.beaconMonitorMaxX_ && curY_ >= state.beaconMonitorMinY_ && curY_ <= state.beaconMonitorMaxY_){
 					REPORT_PANEL.addBeacon(this, ID_, curX_, curY_, curSpeed_, false);
 				}
 			}
@@ -3146,19 +3628,19 @@ public class Vehicle extends LaneObject{
 			    	
 			   
 					if((dx * dx + dy * dy) <= maxCommDistanceSquared){	// Pythagorean theorem: a^2 + b^2 = c^2 but without the needed Math.sqrt to save a little bit performance
-						if(Renderer.getInstance().getAttackerVehicle() != null && !Renderer.getInstance().getAttackerVehicle().equals(this))Renderer.getInstance().getAttackerVehicle().getKnownVehiclesList().updateVehicle(this, ID_, curX_, curY_, curSpeed_, tempARSUList[l].getArsuID_(), false, true);
+						if(EngineContext.getAttackerVehicle() != null && !EngineContext.getAttackerVehicle().equals(this))EngineContext.getAttackerVehicle().getKnownVehiclesList().updateVehicle(this, ID_, curX_, curY_, curSpeed_, tempARSUList[l].getArsuID_(), false, true);
 					}	    	
 			      }
 
 			}
 
-			if(privacyDataLogged_ && (silentPeriodsOn || slowOn)){				
+			if(state.privacyDataLogged_ && (state.silentPeriodsOn || state.slowOn)){				
 				savedBeacon2 = savedBeacon1;
-				savedBeacon1 = Renderer.getInstance().getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:None" + ":Direction:%0%aa%0%" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() +  ":x:" + this.curX_ + ":y:" + this.curY_;
+				savedBeacon1 = EngineContext.getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:None" + ":Direction:%0%aa%0%" + ":Street:" + this.getCurStreet().getName() + ":StreetSpeed:" + this.getCurStreet().getSpeed() + ":VehicleSpeed:" + this.getCurSpeed() +  ":x:" + this.curX_ + ":y:" + this.curY_;
 			
 				if(logNextBeacons == 1){
 					logNextBeacons = 0;
-					if(!slowOn || !vehicleJustStartedInSlow)PrivacyLogWriter.log(savedBeacon2.replace("%0%aa%0%", "OUT") + ":TimeInSlow:" +  (Renderer.getInstance().getTimePassed() - slowTimestamp) + "\n" + savedBeacon1.replace("%0%aa%0%", "OUT"));
+					if(!state.slowOn || !vehicleJustStartedInSlow)PrivacyLogWriter.log(savedBeacon2.replace("%0%aa%0%", "OUT") + ":TimeInSlow:" +  (EngineContext.getTimePassed() - slowTimestamp) + "\n" + savedBeacon1.replace("%0%aa%0%", "OUT"));
 					if(vehicleJustStartedInSlow) vehicleJustStartedInSlow = false;
 				}
 				else if(logNextBeacons == 2){
@@ -3181,8 +3663,9 @@ public class Vehicle extends LaneObject{
 	 * </ul>
 	 */
 	public void sendEncryptedBeacons(){
+		ContextState state = state();
 		if(!silentPeriod){
-			beaconCountdown_ += beaconInterval_;
+			beaconCountdown_ += state.beaconInterval_;
 			
 			RSU tmpRSU = null;
 
@@ -3191,8 +3674,8 @@ public class Vehicle extends LaneObject{
 				tmpRSU.getKnownVehiclesList_().updateVehicle(this, ID_, curX_, curY_, curSpeed_, tmpRSU.getRSUID(), true, false);
 
 				// allow beacon monitoring
-				if(beaconMonitorEnabled_){
-					if(curX_ >= beaconMonitorMinX_ && curX_ <= beaconMonitorMaxX_ && curY_ >= beaconMonitorMinY_ && curY_ <= beaconMonitorMaxY_){
+				if(state.beaconMonitorEnabled_){
+					if(curX_ >= state.beaconMonitorMinX_ && curX_ <= state.beaconMonitorMaxX_ && curY_ >= state.beaconMonitorMinY_ && curY_ <= state.beaconMonitorMaxY_){
 						REPORT_PANEL.addBeacon(this, ID_, curX_, curY_, curSpeed_, true);
 					}
 				}
@@ -3201,17 +3684,17 @@ public class Vehicle extends LaneObject{
 		}
 		
 		//check if the static flag is the same as the object flag. If not a silent period is beginning or ending -> log
-		if(silent_period != silentPeriod){ 
-			silentPeriod = silent_period;
+		if(state.silent_period != silentPeriod){ 
+			silentPeriod = state.silent_period;
 			
 			//silent period did begin -> log
 			if(silentPeriod){
-				if(privacyDataLogged_) PrivacyLogWriter.log(Renderer.getInstance().getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:none" + ":Direction:IN" +  ":x:" + this.curX_ + ":y:" + this.curY_);
+				if(state.privacyDataLogged_) PrivacyLogWriter.log(EngineContext.getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:none" + ":Direction:IN" +  ":x:" + this.curX_ + ":y:" + this.curY_);
 			}
 			//silent perdiod did end -> log and change pseudonym
 			else{
-				ID_ = ownRandom_.nextLong();
-				if(privacyDataLogged_) PrivacyLogWriter.log(Renderer.getInstance().getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:none" + ":Direction:OUT" +  ":x:" + this.curX_ + ":y:" + this.curY_);
+				ID_ = nextRandomLong();
+				if(state.privacyDataLogged_) PrivacyLogWriter.log(EngineContext.getTimePassed() + ":Steady ID:" + this.steadyID_ + ":Pseudonym:" + Long.toHexString(this.ID_) + ":TraveledDistance:" + totalTravelDistance_ + ":TraveledTime:" + totalTravelTime_ + ":Node ID:none" + ":Direction:OUT" +  ":x:" + this.curX_ + ":y:" + this.curY_);
 			}
 		}
 	}
@@ -3222,6 +3705,7 @@ public class Vehicle extends LaneObject{
 	 * @param timePerStep	the time per step in milliseconds
 	 */
 	public void move(int timePerStep){
+		ContextState state = state();
 		if(curWaitTime_ == 0 && curStreet_ != null){
 
 			curLane_ = newLane_;
@@ -3254,11 +3738,11 @@ public class Vehicle extends LaneObject{
 						} while(!calculateRoute(true, false));
 						if(destinations_.isEmpty()){
 							//if logging and slow is active write in privacy log to flag that the last slow won't be counted
-							if(slowOn)PrivacyLogWriter.log("VehicleReachedDestination:" + this.steadyID_ + ":" + Long.toHexString(this.ID_));
+							if(state.slowOn)PrivacyLogWriter.log("VehicleReachedDestination:" + this.steadyID_ + ":" + Long.toHexString(this.ID_));
 							
 							active_ = false;	//found no new destination where we can route to
 							curWaitTime_ = Integer.MIN_VALUE;
-							if(totalTravelTime_ >= minTravelTimeForRecycling_) mayBeRecycled_ = true;
+							if(totalTravelTime_ >= state.minTravelTimeForRecycling_) mayBeRecycled_ = true;
 							break;	
 						} else brakeForDestinationCountdown_ = Integer.MAX_VALUE;
 						if(curWaitTime_ > 0){
@@ -3286,7 +3770,7 @@ public class Vehicle extends LaneObject{
 						if(destinations_.isEmpty()){
 							active_ = false;	//found no new destination where we can route to
 							curWaitTime_ = Integer.MIN_VALUE;
-							if(totalTravelTime_ >= minTravelTimeForRecycling_) mayBeRecycled_ = true;
+							if(totalTravelTime_ >= state.minTravelTimeForRecycling_) mayBeRecycled_ = true;
 							break;	
 						} else brakeForDestinationCountdown_ = Integer.MAX_VALUE;
 						if(curWaitTime_ > 0){
@@ -3369,9 +3853,9 @@ public class Vehicle extends LaneObject{
 			// recalculate region
 			if(curX_ < curRegion_.getLeftBoundary() || curX_ > curRegion_.getRightBoundary() || curY_ < curRegion_.getUpperBoundary() || curY_ > curRegion_.getLowerBoundary()){
 				curRegion_.delVehicle(this);
-				curRegion_ = MAP.getRegionOfPoint(curX_, curY_);
+				curRegion_ = Map.getInstance().getRegionOfPoint(curX_, curY_);
 				curRegion_.addVehicle(this, false);
-			}			
+			} else curRegion_.updateVehicleState(this);	// the neighbour searches use the packed position in the region
 		}
 
 	}
@@ -3381,13 +3865,13 @@ public class Vehicle extends LaneObject{
 	 * Move Attacker. 
 	 */
 	public final void moveAttacker(){
-		Vehicle tmpAttacked = Renderer.getInstance().getAttackedVehicle();
+		Vehicle tmpAttacked = EngineContext.getAttackedVehicle();
 		//Save if attacker is in mix-zone
 		if(isInMixZone_ && firstContact) attackerWasInMix = true;
 		
 		//If attacked vehicle drives in mix-zone set it null and save information that the attacked vehicle was in mix-zone
 		if(tmpAttacked != null && tmpAttacked.isInMixZone_ && firstContact) {
-			Renderer.getInstance().setAttackedVehicle(null);
+			EngineContext.setAttackedVehicle(null);
 			Vehicle.setAttackedVehicleID_(0);
 			attackedWasInMix = true;
 			newSpeed_ = curStreet_.getSpeed();
@@ -3399,26 +3883,26 @@ public class Vehicle extends LaneObject{
 		if(attackedWasInMix && attackerWasInMix && !isInMixZone_ && firstContact){
 			if(getKnownVehiclesList().findNearestVehicle(0, 0, curX_, curY_, 10000000) != null){
 				Vehicle.setAttackedVehicleID_(getKnownVehiclesList().findNearestVehicle(0, 0, curX_, curY_, 10000000).getID());
-				Renderer.getInstance().setAttackedVehicle(getKnownVehiclesList().findNearestVehicle(0, 0, curX_, curY_, 10000000));
+				EngineContext.setAttackedVehicle(getKnownVehiclesList().findNearestVehicle(0, 0, curX_, curY_, 10000000));
 				attackedWasInMix = false;
 			}
 		}
 		
 		//Attacker knows attacked Vehicle: follow it
-		if(attackedVehicleID_ != 0) {
-			reRouteTime_--;
-			if(reRouteTime_ < 0){
-				reRouteTime_=ATTACKER_INTERVAL;
+		if(state().attackedVehicleID_ != 0) {
+			state().reRouteTime_--;
+			if(state().reRouteTime_ < 0){
+				state().reRouteTime_=ATTACKER_INTERVAL;
 				long dx, dy, dg;
-				KnownVehicle[] heads = knownVehiclesList_.getFirstKnownVehicle();
+				KnownVehicle[] knownVehicles = getKnownVehiclesList().getKnownVehicles();
 				KnownVehicle next;
 				
 				//traverse all vehicle which sent beacons
-				for(int l = 0; l < heads.length; ++l){
-					next = heads[l];								
-					while(next != null){
+				for(int l = 0; l < knownVehicles.length; ++l){
+					next = knownVehicles[l];								
+					if(next != null){
 						//Find the attacker data
-						if(next.getVehicle().getID() == attackedVehicleID_){
+						if(next.getVehicle().getID() == state().attackedVehicleID_){
 							firstContact = true;
 							
 							dx = next.getVehicle().getX() - curX_;
@@ -3427,7 +3911,7 @@ public class Vehicle extends LaneObject{
 	
 							//update speed if attacker is to near / to far
 							if(dg > 60000000) newSpeed_ = maxSpeed_;
-							else if(dg > 20000000 && dg < 60000000) newSpeed_ = Renderer.getInstance().getAttackedVehicle().getCurSpeed();
+							else if(dg > 20000000 && dg < 60000000) newSpeed_ = EngineContext.getAttackedVehicle().getCurSpeed();
 							else if(dg < 20000000) newSpeed_ = 0;
 							
 							//clear destinations and add new ones (only if the attacker is far enough away
@@ -3446,9 +3930,7 @@ public class Vehicle extends LaneObject{
 									e.printStackTrace();
 								}
 							}
-						next = null;
 						}
-						else next = next.getNext();
 					}
 				}
 			}
@@ -3623,12 +4105,15 @@ public class Vehicle extends LaneObject{
 	 * Resets this vehicle so that it can be reused. It will travel on the same route as last time!
 	 */
 	public void reset(){
+		wakeTime_ = -1;
 		//ArrayList<BlockingObject> tmpO = new ArrayList<BlockingObject>(tmpBlockings);
 		//for(BlockingObject o:tmpO) tmpBlockings.remove(o);
 		
 		//reset countdowns and other variables
-		ID_ = ownRandom_.nextLong();
-		steadyID_ = steadyIDCounter++;
+		steadyID_ = state().steadyIDCounter.getAndIncrement();
+		randomKey_ = RandomStream.key(RandomStream.getSeed(), steadyID_, RandomStream.STREAM_VEHICLE);
+		randomCounter_ = 0;
+		ID_ = nextRandomLong();
 		curSpeed_ = brakingRate_/2;
 		newSpeed_ = curSpeed_;
 		totalTravelTime_ = 0;
@@ -3645,10 +4130,10 @@ public class Vehicle extends LaneObject{
 		communicationCountdown_ = 0;
 		knownVehiclesTimeoutCountdown_ = 0;
 		knownPenaltiesTimeoutCountdown_ = 0;
-		beaconCountdown_ = (int)Math.round(curPosition_)%beaconInterval_;
-		communicationCountdown_ = (int)Math.round(curPosition_)%communicationInterval_;
+		beaconCountdown_ = (int)Math.round(curPosition_)%state().beaconInterval_;
+		communicationCountdown_ = (int)Math.round(curPosition_)%state().communicationInterval_;
 		mixCheckCountdown_ = (int)Math.round(curPosition_)%MIX_CHECK_INTERVAL;
-		emergencyBrakingCountdown_ = ownRandom_.nextInt(emergencyBrakingInterval_)+1;
+		emergencyBrakingCountdown_ = nextRandomInt(state().emergencyBrakingInterval_)+1;
 	//	lastMessageCreated = 0;
 		lastRHCNMessageCreated = 0;		
 		lastPCNMessageCreated = 0;
@@ -3678,19 +4163,19 @@ public class Vehicle extends LaneObject{
 		vehicleJustStartedInSlow = true;
 		
 		//reset communication info
-		knownVehiclesList_.clear();
-		knownPenalties_.clear();
-		knownMessages_.clear();
-		idsProcessorList_.clear();
+		if(knownVehiclesList_ != null) knownVehiclesList_.clear();
+		if(knownPenalties_ != null) knownPenalties_.clear();
+		if(knownMessages_ != null) knownMessages_.clear();
+		if(idsProcessorList_ != null) idsProcessorList_.clear();
 		
 		//reset RSU infos
-		knownRSUsList_.clear();
+		if(knownRSUsList_ != null) knownRSUsList_.clear();
 		knownRSUsTimeoutCountdown_ = 0;
 		
 		speedFluctuationCountdown_ = (int)Math.round(curPosition_)%SPEED_FLUCTUATION_CHECKINTERVAL;
 		
 		//reset known event sources
-		knownEventSourcesList_.clear();
+		if(knownEventSourcesList_ != null) knownEventSourcesList_.clear();
 		
 		// reset position
 		curX_ = startingWayPoint_.getX();
@@ -3718,17 +4203,113 @@ public class Vehicle extends LaneObject{
 		
 		//reset region
 		curRegion_.delVehicle(this);
-		curRegion_ = MAP.getRegionOfPoint(curX_, curY_);
+		curRegion_ = Map.getInstance().getRegionOfPoint(curX_, curY_);
 		curRegion_.addVehicle(this, false);
 		
 		mayBeRecycled_ = false;
 	}
 	
+	/**
+	 * Checks if this vehicle has nothing to do in the next steps so that it doesn't need to be processed until its wait
+	 * time ends (or, if it has reached its last destination and won't be recycled, at all). Only valid in the VANETsim and
+	 * IDM models as the trace file models start all vehicles immediately.
+	 * 
+	 * @param timePerStep		the time per step in milliseconds
+	 * @param recyclingEnabled	<code>true</code> if recycling of vehicles is enabled
+	 * 
+	 * @return <code>true</code> if the vehicle may fall asleep, else <code>false</code>
+	 */
+	public boolean mayFallAsleep(int timePerStep, boolean recyclingEnabled){
+		if(active_ || wakeTime_ != -1 || checkIDSProcessors_ || curStreet_ == null) return false;
+		if(curWaitTime_ == Integer.MIN_VALUE) return !recyclingEnabled || !mayBeRecycled_ || doNotRecycle_;
+		else return curWaitTime_ > timePerStep;
+	}
+
+	/**
+	 * Lets this vehicle fall asleep. A sleeping vehicle is not processed by the worker threads. Its wait time is not decreased
+	 * while it sleeps but when it is woken up (see {@link #wakeUp(int)}) so that it starts in exactly the same step as if it had
+	 * been processed all the time.
+	 * 
+	 * @param time			the current simulation time (the wait time has not been decreased for this step yet)
+	 * @param timePerStep	the time per step in milliseconds
+	 * 
+	 * @return the simulation time at which the vehicle needs to be woken up or <code>Integer.MAX_VALUE</code> if it only needs
+	 * 			to be woken up if a setting changes
+	 */
+	public int fallAsleep(int time, int timePerStep){
+		sleepTime_ = time;
+		if(curWaitTime_ == Integer.MIN_VALUE) wakeTime_ = Integer.MAX_VALUE;
+		else wakeTime_ = time + ((curWaitTime_ - 1) / timePerStep) * timePerStep;	// the step in which the wait time ends
+		return wakeTime_;
+	}
+
+	/**
+	 * Wakes this vehicle up and decreases its wait time by the time it has slept.
+	 * 
+	 * @param time	the current simulation time (the wait time has not been decreased for this step yet)
+	 */
+	public void wakeUp(int time){
+		if(wakeTime_ == -1) return;
+		if(curWaitTime_ != Integer.MIN_VALUE){
+			curWaitTime_ -= time - sleepTime_;
+			if(curWaitTime_ < 1) curWaitTime_ = 1;	// woken up too late. Start in this step.
+		}
+		wakeTime_ = -1;
+	}
+
+	/**
+	 * Gets the time at which this vehicle needs to be woken up.
+	 * 
+	 * @return the simulation time, <code>Integer.MAX_VALUE</code> if it only needs to be woken up if a setting changes or
+	 * 			<code>-1</code> if the vehicle is awake
+	 */
+	public int getWakeTime(){
+		return wakeTime_;
+	}
+
+	/**
+	 * Checks if this vehicle is sleeping.
+	 * 
+	 * @return <code>true</code> if the vehicle sleeps, else <code>false</code>
+	 */
+	public boolean isAsleep(){
+		return wakeTime_ != -1;
+	}
+	
+	/**
+	 * Gets the next random <code>long</code> of this vehicle.
+	 * 
+	 * @return the number
+	 */
+	private long nextRandomLong(){
+		return RandomStream.nextLong(randomKey_, randomCounter_++);
+	}
+	
+	/**
+	 * Gets the next random <code>int</code> of this vehicle which is between <code>0</code> (inclusive) and <code>bound</code> (exclusive).
+	 * 
+	 * @param bound	the upper bound (must be positive)
+	 * 
+	 * @return the number
+	 */
+	private int nextRandomInt(int bound){
+		return RandomStream.nextInt(randomKey_, randomCounter_++, bound);
+	}
+	
 	/**
 	 * Resets the global random number generator
 	 */
 	public static void resetGlobalRandomGenerator(){
-		RANDOM.setSeed(1L);
+		RandomStream.reset();
+	}
+	
+	/**
+	 * Sets the seed used when the global random number generator is reset (on loading a scenario). The default is <code>1</code>.
+	 * 
+	 * @param seed	the seed
+	 */
+	public static void setGlobalRandomSeed(long seed){
+		RandomStream.setSeed(seed);
 	}
 	
 
@@ -3831,6 +4412,24 @@ public class Vehicle extends LaneObject{
 		return curRegion_.getY();
 	}
 
+	/**
+	 * Gets the position of this vehicle in the vehicle array of its region. Only used by the region.
+	 * 
+	 * @return the position or <code>-1</code> if the vehicle has never been added to a region
+	 */
+	public int getRegionSlot() {
+		return regionSlot_;
+	}
+
+	/**
+	 * Sets the position of this vehicle in the vehicle array of its region. Only used by the region.
+	 * 
+	 * @param regionSlot	the position
+	 */
+	public void setRegionSlot(int regionSlot) {
+		regionSlot_ = regionSlot;
+	}
+
 	/**
 	 * Gets the maximum speed of this vehicle.
 	 * 
@@ -3847,7 +4446,7 @@ public class Vehicle extends LaneObject{
 	 */
 	public int getWaittime(){
 		if(curWaitTime_ < 0) return 0; 
-		else return curWaitTime_;
+		else return getCurWaitTime();
 	}
 
 	/**
@@ -3901,7 +4500,17 @@ public class Vehicle extends LaneObject{
 	 * @return the data structure
 	 */
 	public KnownMessages getKnownMessages(){
-		return knownMessages_;
+		KnownMessages messages = knownMessages_;
+		if(messages == null){
+			synchronized(this){		// other vehicles might send the first message at the same time
+				messages = knownMessages_;
+				if(messages == null){
+					messages = new KnownMessages(this);
+					knownMessages_ = messages;
+				}
+			}
+		}
+		return messages;
 	}
 	
 	/**
@@ -3910,7 +4519,17 @@ public class Vehicle extends LaneObject{
 	 * @return the data structure
 	 */
 	public KnownPenalties getKnownPenalties(){
-		return knownPenalties_;
+		KnownPenalties penalties = knownPenalties_;
+		if(penalties == null){
+			synchronized(this){
+				penalties = knownPenalties_;
+				if(penalties == null){
+					penalties = new KnownPenalties(this);
+					knownPenalties_ = penalties;
+				}
+			}
+		}
+		return penalties;
 	}
 
 	/**
@@ -3919,7 +4538,17 @@ public class Vehicle extends LaneObject{
 	 * @return the data structure
 	 */
 	public KnownVehiclesList getKnownVehiclesList(){
-		return knownVehiclesList_;
+		KnownVehiclesList list = knownVehiclesList_;
+		if(list == null){
+			synchronized(this){
+				list = knownVehiclesList_;
+				if(list == null){
+					list = new KnownVehiclesList();
+					knownVehiclesList_ = list;
+				}
+			}
+		}
+		return list;
 	}
 	
 	/**
@@ -3928,7 +4557,17 @@ public class Vehicle extends LaneObject{
 	 * @return the data structure
 	 */
 	public KnownRSUsList getKnownRSUsList(){
-		return knownRSUsList_;
+		KnownRSUsList list = knownRSUsList_;
+		if(list == null){
+			synchronized(this){
+				list = knownRSUsList_;
+				if(list == null){
+					list = new KnownRSUsList();
+					knownRSUsList_ = list;
+				}
+			}
+		}
+		return list;
 	}
 	
 
@@ -3988,16 +4627,95 @@ public class Vehicle extends LaneObject{
 	 * @return the interval in milliseconds
 	 */
 	public static int getCommunicationInterval(){
-		return communicationInterval_;
+		return state().communicationInterval_;
 	}
 
+	/**
+	 * Adds a new vehicle to the vehicle table of the current simulation.
+	 * 
+	 * @param vehicle	the vehicle
+	 * 
+	 * @return the index of the vehicle in the table
+	 */
+	private static int addToTable(Vehicle vehicle){
+		ContextState state = state();
+		synchronized(state){	// vehicles may be created by several workers at once (event spots)
+			Vehicle[] vehicles = state.vehicles_;
+			if(state.vehicleCount_ == vehicles.length){
+				Vehicle[] newVehicles = new Vehicle[vehicles.length * 2];
+				System.arraycopy(vehicles, 0, newVehicles, 0, vehicles.length);
+				vehicles = newVehicles;
+			}
+			vehicles[state.vehicleCount_] = vehicle;
+			state.vehicles_ = vehicles;
+			return state.vehicleCount_++;
+		}
+	}
+	
+	/**
+	 * Gets a vehicle of the current simulation by its index.
+	 * 
+	 * @param index	the index (see {@link #getIndex()})
+	 * 
+	 * @return the vehicle
+	 */
+	public static Vehicle getByIndex(int index){
+		return state().vehicles_[index];
+	}
+	
+	/**
+	 * Gets the amount of vehicles in the vehicle table of the current simulation.
+	 * 
+	 * @return the amount of vehicles (all indices are below this value)
+	 */
+	public static int getTableSize(){
+		return state().vehicleCount_;
+	}
+	
+	/**
+	 * Empties the vehicle table of the current simulation. Must only be called when no object refers to the vehicles by
+	 * their index anymore (a new map has been created or all vehicles have been removed, see {@link Map#clearVehicles()}).
+	 */
+	public static void clearTable(){
+		ContextState state = state();
+		synchronized(state){
+			state.vehicles_ = new Vehicle[64];
+			state.vehicleCount_ = 0;
+		}
+	}
+	
+	/**
+	 * Replaces the vehicle table of the current simulation with the vehicles read from a checkpoint.
+	 * 
+	 * @param vehicles	the vehicles (the index in this array is the index of the vehicle)
+	 * @param count		the amount of vehicles
+	 */
+	public static void restoreTable(Vehicle[] vehicles, int count){
+		ContextState state = state();
+		synchronized(state){
+			Vehicle[] table = new Vehicle[Math.max(64, Integer.highestOneBit(Math.max(count, 1)) * 2)];
+			System.arraycopy(vehicles, 0, table, 0, count);
+			state.vehicles_ = table;
+			state.vehicleCount_ = count;
+		}
+	}
+	
+	/**
+	 * Gets the index of this vehicle in the vehicle table of its simulation.
+	 * 
+	 * @return the index
+	 */
+	public int getIndex(){
+		return index_;
+	}
+	
 	/**
 	 * Returns the interval between beacons.
 	 * 
 	 * @return the interval in milliseconds
 	 */
 	public static int getBeaconInterval(){
-		return beaconInterval_;
+		return state().beaconInterval_;
 	}
 
 
@@ -4007,7 +4725,7 @@ public class Vehicle extends LaneObject{
 	 * @return	<code>true</code> if communication is enabled, else <code>false</code>
 	 */
 	public static boolean getCommunicationEnabled(){
-		return communicationEnabled_;
+		return state().communicationEnabled_;
 	}
 	
 	/**
@@ -4016,7 +4734,7 @@ public class Vehicle extends LaneObject{
 	 * @return	<code>true</code> if recycling is enabled, else <code>false</code>
 	 */
 	public static boolean getRecyclingEnabled(){
-		return recyclingEnabled_;
+		return state().recyclingEnabled_;
 	}
 
 	/**
@@ -4025,7 +4743,7 @@ public class Vehicle extends LaneObject{
 	 * @return <code>true</code> if beacons are enabled, else <code>false</code>
 	 */
 	public static boolean getBeaconsEnabled(){
-		return beaconsEnabled_;
+		return state().beaconsEnabled_;
 	}
 	
 	/**
@@ -4034,7 +4752,7 @@ public class Vehicle extends LaneObject{
 	 * @return <code>true</code> if mix zones are enabled, else <code>false</code>
 	 */
 	public static boolean getMixZonesEnabled(){
-		return mixZonesEnabled_;
+		return state().mixZonesEnabled_;
 	}
 	
 	/**
@@ -4044,7 +4762,7 @@ public class Vehicle extends LaneObject{
 	 * @return <code>true</code> if the fallback mode is enabled, else <code>false</code>
 	 */
 	public static boolean getMixZonesFallbackEnabled(){
-		return mixZonesFallbackEnabled_;
+		return state().mixZonesFallbackEnabled_;
 	}
 	
 	/**
@@ -4053,7 +4771,7 @@ public class Vehicle extends LaneObject{
 	 * @return <code>true</code> if only flooding messages are sent, else <code>false</code>
 	 */
 	public static boolean getMixZonesFallbackFloodingOnly(){
-		return mixZonesFallbackFloodingOnly_;
+		return state().mixZonesFallbackFloodingOnly_;
 	}
 
 	/**
@@ -4062,7 +4780,7 @@ public class Vehicle extends LaneObject{
 	 * @return the routing mode
 	 */
 	public static int getRoutingMode(){
-		return routingMode_;
+		return state().routingMode_;
 	}
 
 	/**
@@ -4071,7 +4789,7 @@ public class Vehicle extends LaneObject{
 	 * @return the maximum communication distance in cm
 	 */
 	public static int getMaximumCommunicationDistance(){
-		return maximumCommunicationDistance_;
+		return state().maximumCommunicationDistance_;
 	}
 	
 	/**
@@ -4081,7 +4799,7 @@ public class Vehicle extends LaneObject{
 	 * @return the time in milliseconds
 	 */
 	public static int getMinTravelTimeForRecycling(){
-		return minTravelTimeForRecycling_;
+		return state().minTravelTimeForRecycling_;
 	}
 
 	/**
@@ -4090,7 +4808,7 @@ public class Vehicle extends LaneObject{
 	 * @return the mix zone radius in cm
 	 */
 	public static int getMixZoneRadius(){
-		return mixZoneRadius_;
+		return state().mixZoneRadius_;
 	}
 
 	/**
@@ -4099,7 +4817,7 @@ public class Vehicle extends LaneObject{
 	 * @param maxMixZoneRadius	the maximum radius of the mix zones in cm
 	 */
 	public static void setMaxMixZoneRadius(int maxMixZoneRadius) {
-		maxMixZoneRadius_ = maxMixZoneRadius;
+		state().maxMixZoneRadius_ = maxMixZoneRadius;
 	}
 
 	/**
@@ -4108,7 +4826,7 @@ public class Vehicle extends LaneObject{
 	 * @return maxMixZoneRadius_ the maximum mix zone radius in cm
 	 */
 	public static int getMaxMixZoneRadius() {
-		return maxMixZoneRadius_;
+		return state().maxMixZoneRadius_;
 	}
 
 
@@ -4118,7 +4836,7 @@ public class Vehicle extends LaneObject{
 	 * @param mixZoneRadius	the radius of the mix zones in cm
 	 */
 	public static void setMixZoneRadius(int mixZoneRadius){
-		mixZoneRadius_ = mixZoneRadius;
+		state().mixZoneRadius_ = mixZoneRadius;
 	}
 	
 	/**
@@ -4128,7 +4846,7 @@ public class Vehicle extends LaneObject{
 	 * @param minTravelTimeForRecycling	the time in milliseconds
 	 */
 	public static void setMinTravelTimeForRecycling(int minTravelTimeForRecycling){
-		minTravelTimeForRecycling_ = minTravelTimeForRecycling;
+		state().minTravelTimeForRecycling_ = minTravelTimeForRecycling;
 	}
 
 	/**
@@ -4137,7 +4855,7 @@ public class Vehicle extends LaneObject{
 	 * @param maximumCommunicationDistance	the maximum communication distance in cm
 	 */
 	public static void setMaximumCommunicationDistance(int maximumCommunicationDistance){
-		maximumCommunicationDistance_ = maximumCommunicationDistance;
+		state().maximumCommunicationDistance_ = maximumCommunicationDistance;
 	}
 
 	/**
@@ -4146,7 +4864,7 @@ public class Vehicle extends LaneObject{
 	 * @param regions	the array with all regions
 	 */
 	public static void setRegions(Region[][] regions){
-		regions_ = regions;
+		state().regions_ = regions;
 	}
 
 	/**
@@ -4155,7 +4873,7 @@ public class Vehicle extends LaneObject{
 	 * @param communicationInterval	the new value 
 	 */
 	public static void setCommunicationInterval(int communicationInterval){
-		communicationInterval_ = communicationInterval;
+		state().communicationInterval_ = communicationInterval;
 	}
 
 	/**
@@ -4164,7 +4882,7 @@ public class Vehicle extends LaneObject{
 	 * @param beaconInterval	the new value 
 	 */
 	public static void setBeaconInterval(int beaconInterval){
-		beaconInterval_ = beaconInterval;
+		state().beaconInterval_ = beaconInterval;
 	}
 
 	/**
@@ -4174,7 +4892,7 @@ public class Vehicle extends LaneObject{
 	 */
 	public static void setCommunicationEnabled(boolean state){
 		RSU.setCommunicationEnabled(state);
-		communicationEnabled_ = state;
+		state().communicationEnabled_ = state;
 	}
 	
 	/**
@@ -4183,7 +4901,8 @@ public class Vehicle extends LaneObject{
 	 * @param state	<code>true</code> to enable recycling, else <code>false</code> 
 	 */
 	public static void setRecyclingEnabled(boolean state){
-		recyclingEnabled_ = state;
+		state().recyclingEnabled_ = state;
+		state().sleepersChanged_ = true;	// finished vehicles might need to be recycled now
 	}
 
 	/**
@@ -4193,7 +4912,7 @@ public class Vehicle extends LaneObject{
 	 */
 	public static void setBeaconsEnabled(boolean state){
 		RSU.setBeaconsEnabled(state);
-		beaconsEnabled_ = state;
+		state().beaconsEnabled_ = state;
 	}
 
 	/**
@@ -4202,7 +4921,7 @@ public class Vehicle extends LaneObject{
 	 * @param state	<code>true</code> to enable mix zones, else <code>false</code> 
 	 */
 	public static void setMixZonesEnabled(boolean state){
-		mixZonesEnabled_ = state;
+		state().mixZonesEnabled_ = state;
 	}
 	
 	/**
@@ -4212,7 +4931,7 @@ public class Vehicle extends LaneObject{
 	 * @param state	<code>true</code> if the fallback mode is enabled, else <code>false</code>
 	 */
 	public static void setMixZonesFallbackEnabled(boolean state){
-		mixZonesFallbackEnabled_ = state;
+		state().mixZonesFallbackEnabled_ = state;
 	}
 	
 	/**
@@ -4221,7 +4940,7 @@ public class Vehicle extends LaneObject{
 	 * @param state	<code>true</code> if only flooding messages are sent, else <code>false</code>
 	 */
 	public static void setMixZonesFallbackFloodingOnly(boolean state){
-		mixZonesFallbackFloodingOnly_ = state;
+		state().mixZonesFallbackFloodingOnly_ = state;
 	}
 	
 	/**
@@ -4230,7 +4949,7 @@ public class Vehicle extends LaneObject{
 	 * @param beaconMonitorEnabled	<code>true</code> to enable monitoring mix zones, else <code>false</code> 
 	 */
 	public static void setBeaconMonitorZoneEnabled(boolean beaconMonitorEnabled){
-		beaconMonitorEnabled_ = beaconMonitorEnabled;
+		state().beaconMonitorEnabled_ = beaconMonitorEnabled;
 		RSU.setBeaconMonitorZoneEnabled(beaconMonitorEnabled);
 	}
 	
@@ -4240,7 +4959,7 @@ public class Vehicle extends LaneObject{
 	 * @return beaconMonitorEnabled_ <code>true</code> if beacon monitor is enabled
 	 */
 	public static boolean getbeaconMonitorEnabled() {
-		return beaconMonitorEnabled_;
+		return state().beaconMonitorEnabled_;
 	}
 	
 	/**
@@ -4253,10 +4972,10 @@ public class Vehicle extends LaneObject{
 	 * @param beaconMonitorMaxY	the maximum y coordinate
 	 */
 	public static void setMonitoredMixZoneVariables(int beaconMonitorMinX, int beaconMonitorMaxX, int beaconMonitorMinY, int beaconMonitorMaxY){
-		beaconMonitorMinX_ = beaconMonitorMinX;
-		beaconMonitorMaxX_ = beaconMonitorMaxX;
-		beaconMonitorMinY_ = beaconMonitorMinY;
-		beaconMonitorMaxY_ = beaconMonitorMaxY;		
+		state().beaconMonitorMinX_ = beaconMonitorMinX;
+		state().beaconMonitorMaxX_ = beaconMonitorMaxX;
+		state().beaconMonitorMinY_ = beaconMonitorMinY;
+		state().beaconMonitorMaxY_ = beaconMonitorMaxY;		
 		RSU.setMonitoredMixZoneVariables(beaconMonitorMinX,beaconMonitorMaxX,beaconMonitorMinY,beaconMonitorMaxY);
 	}
 	
@@ -4266,7 +4985,7 @@ public class Vehicle extends LaneObject{
 	 * @return beaconMonitorMinX_ the minX coordinate of the beacon monitor window
 	 */
 	public static int getbeaconMonitorMinX() {
-		return beaconMonitorMinX_;
+		return state().beaconMonitorMinX_;
 	}
 	
 	/**
@@ -4275,7 +4994,7 @@ public class Vehicle extends LaneObject{
 	 * @return beaconMonitorMaxX_ the maxX coordinate of the beacon monitor window
 	 */
 	public static int getbeaconMonitorMaxX() {
-		return beaconMonitorMaxX_;
+		return state().beaconMonitorMaxX_;
 	}
 	
 	/**
@@ -4284,7 +5003,7 @@ public class Vehicle extends LaneObject{
 	 * @return beaconMonitorMinY_ the minY coordinate of the beacon monitor window
 	 */
 	public static int getbeaconMonitorMinY() {
-		return beaconMonitorMinX_;
+		return state().beaconMonitorMinX_;
 	}
 	
 	/**
@@ -4293,7 +5012,7 @@ public class Vehicle extends LaneObject{
 	 * @return beaconMonitorMaxY_ the maxY coordinate of the beacon monitor window
 	 */
 	public static int getbeaconMonitorMaxY() {
-		return beaconMonitorMaxY_;
+		return state().beaconMonitorMaxY_;
 	}
 
 	/**
@@ -4310,7 +5029,7 @@ public class Vehicle extends LaneObject{
 	 * @param mode	the new routing mode
 	 */
 	public static void setRoutingMode(int mode){
-		routingMode_ = mode;
+		state().routingMode_ = mode;
 	}
 
 	/**
@@ -4329,6 +5048,7 @@ public class Vehicle extends LaneObject{
 	 */
 	public void setWiFiEnabled(boolean wiFiEnabled) {
 		wiFiEnabled_ = wiFiEnabled;
+		if(curRegion_ != null) curRegion_.updateVehicleState(this);
 	}
 
 
@@ -4356,6 +5076,10 @@ public class Vehicle extends LaneObject{
 	 * @param curWaitTime the current wait time in ms.
 	 */
 	public void setCurWaitTime(int curWaitTime) {
+		if(wakeTime_ != -1){
+			wakeTime_ = -1;
+			state().sleepersChanged_ = true;
+		}
 		curWaitTime_ = curWaitTime;
 	}
 
@@ -4365,7 +5089,8 @@ public class Vehicle extends LaneObject{
 	 * @return curWaitTime_ the current wait time
 	 */
 	public int getCurWaitTime() {
-		return curWaitTime_;
+		if(wakeTime_ != -1 && curWaitTime_ != Integer.MIN_VALUE) return curWaitTime_ - (EngineContext.getTimePassed() - sleepTime_);
+		else return curWaitTime_;
 	}
 
 	/**
@@ -4462,53 +5187,53 @@ public class Vehicle extends LaneObject{
 
 
 	public static AttackRSU[] getArsuList() {
-		return arsuList;
+		return state().arsuList;
 	}
 
 
 	public static void setArsuList(AttackRSU[] arsuList) {
-		Vehicle.arsuList = arsuList;
+		state().arsuList = arsuList;
 	}
 
 
 	public static boolean isAttackerDataLogged_() {
-		return attackerDataLogged_;
+		return state().attackerDataLogged_;
 	}
 
 
 	public static void setAttackerDataLogged_(boolean attackerDataLogged_) {
-		Vehicle.attackerDataLogged_ = attackerDataLogged_;
+		state().attackerDataLogged_ = attackerDataLogged_;
 	}
 
 
 	public static long getAttackedVehicleID_() {
-		return attackedVehicleID_;
+		return state().attackedVehicleID_;
 	}
 
 
 	public static void setAttackedVehicleID_(long attackedVehicleID_) {
-		Vehicle.attackedVehicleID_ = attackedVehicleID_;
+		state().attackedVehicleID_ = attackedVehicleID_;
 	}
 
 
 	public static boolean isEncryptedBeaconsInMix_() {
-		return encryptedBeaconsInMix_;
+		return state().encryptedBeaconsInMix_;
 	}
 
 
 	public static void setEncryptedBeaconsInMix_(boolean encryptedBeaconsInMix_) {
-		Vehicle.encryptedBeaconsInMix_ = encryptedBeaconsInMix_;
+		state().encryptedBeaconsInMix_ = encryptedBeaconsInMix_;
 	}
 
 
 	public static boolean isAttackerEncryptedDataLogged_() {
-		return attackerEncryptedDataLogged_;
+		return state().attackerEncryptedDataLogged_;
 	}
 
 
 	public static void setAttackerEncryptedDataLogged_(
 			boolean attackerEncryptedDataLogged_) {
-		Vehicle.attackerEncryptedDataLogged_ = attackerEncryptedDataLogged_;
+		state().attackerEncryptedDataLogged_ = attackerEncryptedDataLogged_;
 	}
 
 
@@ -4522,7 +5247,7 @@ public class Vehicle extends LaneObject{
 	}
 
 	public static ReportingControlPanel getReportingPanel(){
-		if(Renderer.getInstance().isConsoleStart()) return null;
+		if(EngineContext.isConsoleStart()) return null;
 		else return VanetSimStart.getMainControlPanel().getReportingPanel();
 	}
 
@@ -4544,12 +5269,12 @@ public class Vehicle extends LaneObject{
 
 
 	public static boolean isPrivacyDataLogged_() {
-		return privacyDataLogged_;
+		return state().privacyDataLogged_;
 	}
 
 
 	public static void setPrivacyDataLogged_(boolean privacyDataLogged_) {
-		Vehicle.privacyDataLogged_ = privacyDataLogged_;
+		state().privacyDataLogged_ = privacyDataLogged_;
 	}
 
 	public void setTimeDistance(int timeDistance) {
@@ -4571,38 +5296,38 @@ public class Vehicle extends LaneObject{
 	}
 
 	public static int getTIME_BETWEEN_SILENT_PERIODS() {
-		return TIME_BETWEEN_SILENT_PERIODS;
+		return state().TIME_BETWEEN_SILENT_PERIODS;
 	}
 
 	public static void setTIME_BETWEEN_SILENT_PERIODS(int i){
-		TIME_BETWEEN_SILENT_PERIODS = i;
+		state().TIME_BETWEEN_SILENT_PERIODS = i;
 	}
 
 	public static int getTIME_OF_SILENT_PERIODS() {
-		return TIME_OF_SILENT_PERIODS;
+		return state().TIME_OF_SILENT_PERIODS;
 	}
 
 	public static void setTIME_OF_SILENT_PERIODS(int i){
-		TIME_OF_SILENT_PERIODS = i;
+		state().TIME_OF_SILENT_PERIODS = i;
 	}
 
 	public static boolean isSilent_period() {
-		return silent_period;
+		return state().silent_period;
 	}
 
 
 	public static void setSilent_period(boolean silent_period) {
-		Vehicle.silent_period = silent_period;
+		state().silent_period = silent_period;
 	}
 
 
 	public static boolean isSilentPeriodsOn() {
-		return silentPeriodsOn;
+		return state().silentPeriodsOn;
 	}
 
 
 	public static void setSilentPeriodsOn(boolean silentPeriodsOn) {
-		Vehicle.silentPeriodsOn = silentPeriodsOn;
+		state().silentPeriodsOn = silentPeriodsOn;
 	}
 
 
@@ -4610,7 +5335,7 @@ public class Vehicle extends LaneObject{
 	 * @return the tIME_TO_PSEUDONYM_CHANGE
 	 */
 	public static int getTIME_TO_PSEUDONYM_CHANGE() {
-		return TIME_TO_PSEUDONYM_CHANGE;
+		return state().TIME_TO_PSEUDONYM_CHANGE;
 	}
 
 
@@ -4618,7 +5343,7 @@ public class Vehicle extends LaneObject{
 	 * @param tIME_TO_PSEUDONYM_CHANGE the tIME_TO_PSEUDONYM_CHANGE to set
 	 */
 	public static void setTIME_TO_PSEUDONYM_CHANGE(int tIME_TO_PSEUDONYM_CHANGE) {
-		TIME_TO_PSEUDONYM_CHANGE = tIME_TO_PSEUDONYM_CHANGE;
+		state().TIME_TO_PSEUDONYM_CHANGE = tIME_TO_PSEUDONYM_CHANGE;
 	}
 
 
@@ -4626,7 +5351,7 @@ public class Vehicle extends LaneObject{
 	 * @return the sLOW_SPEED_LIMIT
 	 */
 	public static int getSLOW_SPEED_LIMIT() {
-		return SLOW_SPEED_LIMIT;
+		return state().SLOW_SPEED_LIMIT;
 	}
 
 
@@ -4634,7 +5359,7 @@ public class Vehicle extends LaneObject{
 	 * @param sLOW_SPEED_LIMIT the sLOW_SPEED_LIMIT to set
 	 */
 	public static void setSLOW_SPEED_LIMIT(int sLOW_SPEED_LIMIT) {
-		SLOW_SPEED_LIMIT = sLOW_SPEED_LIMIT;
+		state().SLOW_SPEED_LIMIT = sLOW_SPEED_LIMIT;
 	}
 
 
@@ -4642,7 +5367,7 @@ public class Vehicle extends LaneObject{
 	 * @return the slowOn
 	 */
 	public static boolean isSlowOn() {
-		return slowOn;
+		return state().slowOn;
 	}
 
 
@@ -4650,7 +5375,7 @@ public class Vehicle extends LaneObject{
 	 * @param slowOn the slowOn to set
 	 */
 	public static void setSlowOn(boolean slowOn) {
-		Vehicle.slowOn = slowOn;
+		state().slowOn = slowOn;
 	}
 
 
@@ -4722,7 +5447,7 @@ public class Vehicle extends LaneObject{
 	 * @return the idsActivated
 	 */
 	public static boolean isIdsActivated() {
-		return idsActivated;
+		return state().idsActivated;
 	}
 
 
@@ -4730,7 +5455,7 @@ public class Vehicle extends LaneObject{
 	 * @param idsActivated the idsActivated to set
 	 */
 	public static void setIdsActivated(boolean idsActivated) {
-		Vehicle.idsActivated = idsActivated;
+		state().idsActivated = idsActivated;
 	}
 
 
@@ -4786,7 +5511,7 @@ public class Vehicle extends LaneObject{
 	 * @return the fakeMessagesInterval_
 	 */
 	public static int getFakeMessagesInterval_() {
-		return fakeMessagesInterval_;
+		return state().fakeMessagesInterval_;
 	}
 
 
@@ -4794,7 +5519,7 @@ public class Vehicle extends LaneObject{
 	 * @param fakeMessagesInterval_ the fakeMessagesInterval_ to set
 	 */
 	public static void setFakeMessagesInterval_(int fakeMessagesInterval_) {
-		Vehicle.fakeMessagesInterval_ = fakeMessagesInterval_;
+		state().fakeMessagesInterval_ = fakeMessagesInterval_;
 	}
 
 
@@ -4847,13 +5572,6 @@ public class Vehicle extends LaneObject{
 	}
 
 
-	/**
-	 * @return the random
-	 */
-	public static Random getRandom() {
-		return RANDOM;
-	}
-
 
 	/**
 	 * @return the doNotRecycle_
@@ -4868,6 +5586,7 @@ public class Vehicle extends LaneObject{
 	 */
 	public void setDoNotRecycle_(boolean doNotRecycle_) {
 		this.doNotRecycle_ = doNotRecycle_;
+		if(wakeTime_ != -1) state().sleepersChanged_ = true;
 	}
 
 
@@ -4915,7 +5634,17 @@ public class Vehicle extends LaneObject{
 	 * @return the idsProcessorList_
 	 */
 	public IDSProcessorList getIdsProcessorList_() {
-		return idsProcessorList_;
+		IDSProcessorList list = idsProcessorList_;
+		if(list == null){
+			synchronized(this){
+				list = idsProcessorList_;
+				if(list == null){
+					list = new IDSProcessorList(this);
+					idsProcessorList_ = list;
+				}
+			}
+		}
+		return list;
 	}
 
 
@@ -5014,6 +5743,37 @@ public class Vehicle extends LaneObject{
 	 */
 	public void setCheckIDSProcessors_(boolean checkIDSProcessors_) {
 		this.checkIDSProcessors_ = checkIDSProcessors_;
+		if(checkIDSProcessors_) state().idsProcessorsPending_ = true;
+	}
+
+
+	/**
+	 * @return <code>true</code> if an IDS processor of any vehicle needs to be fired
+	 */
+	public static boolean isIDSProcessorsPending() {
+		return state().idsProcessorsPending_;
+	}
+
+
+	/**
+	 * @param idsProcessorsPending the idsProcessorsPending_ to set
+	 */
+	public static void setIDSProcessorsPending(boolean idsProcessorsPending) {
+		state().idsProcessorsPending_ = idsProcessorsPending;
+	}
+
+	/**
+	 * @return <code>true</code> if sleeping vehicles need to be woken up because a setting or a sleeping vehicle was changed
+	 */
+	public static boolean isSleepersChanged() {
+		return state().sleepersChanged_;
+	}
+
+	/**
+	 * @param sleepersChanged the sleepersChanged_ to set
+	 */
+	public static void setSleepersChanged(boolean sleepersChanged) {
+		state().sleepersChanged_ = sleepersChanged;
 	}
 
 
@@ -5038,7 +5798,17 @@ public class Vehicle extends LaneObject{
 
 
 	public KnownEventSourcesList getKnownEventSourcesList_() {
-		return knownEventSourcesList_;
+		KnownEventSourcesList list = knownEventSourcesList_;
+		if(list == null){
+			synchronized(this){
+				list = knownEventSourcesList_;
+				if(list == null){
+					list = new KnownEventSourcesList(ID_);
+					knownEventSourcesList_ = list;
+				}
+			}
+		}
+		return list;
 	}
 
 
@@ -5062,10 +5832,6 @@ public class Vehicle extends LaneObject{
 	}
 
 
-	public Random getOwnRandom_() {
-		return ownRandom_;
-	}
-
 
 	public int getEVAMessageDelay_() {
 		return EVAMessageDelay_;
@@ -5076,11 +5842,11 @@ public class Vehicle extends LaneObject{
 	}
 	
 	public static int getMaxEVAMessageDelay_() {
-		return maxEVAMessageDelay_;
+		return state().maxEVAMessageDelay_;
 	}
 
 	public static void setMaxEVAMessageDelay_(int theMaxEVAMessageDelay_) {
-		maxEVAMessageDelay_ = theMaxEVAMessageDelay_;
+		state().maxEVAMessageDelay_ = theMaxEVAMessageDelay_;
 	}
 
 
@@ -5113,4 +5879,12 @@ public class Vehicle extends LaneObject{
 		this.beaconString_ = beaconString_;
 	}
 
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -21,8 +21,15 @@ package vanetsim.scenario.events;
 import vanetsim.map.Street;
 import vanetsim.scenario.LaneObject;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+
+import java.io.IOException;
 
 public class BlockingObject extends LaneObject{
+
+	/** The necessary constant for serializing. */
+	private static final long serialVersionUID = -7788931882934389399L;
 	
 	/**
 	 * Instantiates a new blocking object.
@@ -62,6 +69,51 @@ public class BlockingObject extends LaneObject{
 		curY_ = y;
 	}
 	
+	/**
+	 * Reads a blocking object from a checkpoint. It is not added to a lane as the lanes are restored separately. The
+	 * position is read with {@link #readLaneState(CheckpointReader)}.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public BlockingObject(CheckpointReader in) throws IOException{
+		penaltyType_ = in.readString();
+		timestamp_ = in.readInt();
+	}
+	
+	/**
+	 * Writes the type and the timestamp of this blocking object to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeString(penaltyType_);
+		out.writeInt(timestamp_);
+	}
+	
+	/**
+	 * Writes the position of this blocking object to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if a neighbour on the lane could not be written
+	 */
+	public void writeLaneState(CheckpointWriter out) throws IOException{
+		writeLaneCheckpoint(out);
+	}
+	
+	/**
+	 * Reads the position of this blocking object from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readLaneState(CheckpointReader in) throws IOException{
+		readLaneCheckpoint(in);
+	}
+	
 	/**
 	 * Remove this BlockingObject from it's current lane.
 	 */ 
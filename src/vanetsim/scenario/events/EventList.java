@@ -17,9 +17,17 @@
  */
 package vanetsim.scenario.events;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.PriorityQueue;
+import java.util.function.Supplier;
+
+import vanetsim.localization.Messages;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
 
 
 /**
@@ -27,8 +35,15 @@ import java.util.PriorityQueue;
  */
 public final class EventList{
 
-	/** The only instance of this class (singleton). */
-	private static final EventList INSTANCE = new EventList();
+	/** The slot of the event list in the {@link SimulationContext}. There is one instance per simulation context. */
+	private static final int SLOT = SimulationContext.newSlot(EventList.class);
+
+	/** Creates the event list of a new simulation context. */
+	private static final Supplier<EventList> NEW_INSTANCE = new Supplier<EventList>(){
+		public EventList get(){
+			return new EventList();
+		}
+	};
 
 	/** A <code>PriorityQueue</code> storing all coming events. */
 	private final PriorityQueue<Event> allEvents_ = new PriorityQueue<Event>(16);
@@ -43,12 +58,12 @@ public final class EventList{
 	}	
 
 	/**
-	 * Gets the single instance of this EventList.
+	 * Gets the single instance of this EventList in the current simulation context.
 	 * 
-	 * @return single instance of this EventList
+	 * @return single instance of this EventList in the current simulation context
 	 */
 	public static EventList getInstance(){
-		return INSTANCE;
+		return SimulationContext.state(SLOT, NEW_INSTANCE);
 	}
 
 	/**
@@ -134,6 +149,118 @@ public final class EventList{
 		currentBlockings_.remove(event);
 	}
 
+	/**
+	 * Writes all coming and active events to a checkpoint. The blocking events are written first (including those which
+	 * are only reachable through a stop event or the active list), then the stop events, the order of the queue and the
+	 * active blocking events.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if an event could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		Event[] queue = allEvents_.toArray(new Event[allEvents_.size()]);
+		ArrayList<StartBlocking> starts = new ArrayList<StartBlocking>(queue.length);
+		ArrayList<StopBlocking> stops = new ArrayList<StopBlocking>(queue.length);
+		IdentityHashMap<Event, Integer> ids = new IdentityHashMap<Event, Integer>();
+		for(int i = 0; i < queue.length; ++i){
+			if(queue[i].getClass() == StartBlocking.class) addStart((StartBlocking)queue[i], starts, ids);
+			else if(queue[i].getClass() == StopBlocking.class) addStart(((StopBlocking)queue[i]).getStartBlockingEvent(), starts, ids);
+			else throw new IOException(Messages.getString("Checkpoint.unknownObject") + queue[i].getClass().getName()); //$NON-NLS-1$
+		}
+		for(int i = 0; i < currentBlockings_.size(); ++i) addStart(currentBlockings_.get(i), starts, ids);
+		for(int i = 0; i < starts.size(); ++i){
+			if(starts.get(i).getStopBlockingEvent() != null){
+				ids.put(starts.get(i).getStopBlockingEvent(), Integer.valueOf(starts.size() + stops.size()));
+				stops.add(starts.get(i).getStopBlockingEvent());
+			}
+		}
+		out.writeInt(starts.size());
+		for(int i = 0; i < starts.size(); ++i) starts.get(i).writeCheckpoint(out);
+		ArrayList<BlockingObject> objects;
+		for(int i = 0; i < starts.size(); ++i){
+			objects = starts.get(i).getBlockingObjects();
+			if(objects != null){
+				for(int j = 0; j < objects.size(); ++j) objects.get(j).writeLaneState(out);
+			}
+		}
+		out.writeInt(stops.size());
+		for(int i = 0; i < stops.size(); ++i){
+			out.writeInt(stops.get(i).getTime());
+			out.writeInt(ids.get(stops.get(i).getStartBlockingEvent()).intValue());
+		}
+		out.writeInt(queue.length);
+		for(int i = 0; i < queue.length; ++i) out.writeInt(ids.get(queue[i]).intValue());
+		out.writeInt(currentBlockings_.size());
+		for(int i = 0; i < currentBlockings_.size(); ++i) out.writeInt(ids.get(currentBlockings_.get(i)).intValue());
+	}
+	
+	/**
+	 * Adds a blocking event to the events to write if it isn't known yet.
+	 * 
+	 * @param event		the blocking event
+	 * @param starts	the blocking events to write
+	 * @param ids		the numbers of the events
+	 */
+	private static void addStart(StartBlocking event, ArrayList<StartBlocking> starts, IdentityHashMap<Event, Integer> ids){
+		if(!ids.containsKey(event)){
+			ids.put(event, Integer.valueOf(starts.size()));
+			starts.add(event);
+		}
+	}
+	
+	/**
+	 * Replaces all events with the events read from a checkpoint. The blocking objects are registered with the checkpoint
+	 * so that they can be referenced from the lanes.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		int startCount = in.readInt();
+		StartBlocking[] starts = new StartBlocking[startCount];
+		for(int i = 0; i < startCount; ++i) starts[i] = new StartBlocking(in);
+		ArrayList<BlockingObject> objects;
+		for(int i = 0; i < startCount; ++i){
+			objects = starts[i].getBlockingObjects();
+			if(objects != null){
+				for(int j = 0; j < objects.size(); ++j) objects.get(j).readLaneState(in);
+			}
+		}
+		Event[] events = new Event[startCount + in.readInt()];
+		System.arraycopy(starts, 0, events, 0, startCount);
+		int time, start;
+		for(int i = startCount; i < events.length; ++i){
+			time = in.readInt();
+			start = in.readInt();
+			if(start < 0 || start >= startCount) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + start); //$NON-NLS-1$
+			events[i] = new StopBlocking(time, 0, 0, starts[start]);
+		}
+		allEvents_.clear();
+		int count = in.readInt();
+		for(int i = 0; i < count; ++i) allEvents_.add(readEvent(in, events));
+		currentBlockings_.clear();
+		count = in.readInt();
+		for(int i = 0; i < count; ++i) currentBlockings_.add((StartBlocking)readEvent(in, events));
+	}
+	
+	/**
+	 * Reads the number of an event from a checkpoint.
+	 * 
+	 * @param in		the checkpoint
+	 * @param events	all events of the checkpoint
+	 * 
+	 * @return the event
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	private static Event readEvent(CheckpointReader in, Event[] events) throws IOException{
+		int id = in.readInt();
+		if(id < 0 || id >= events.length) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + id); //$NON-NLS-1$
+		return events[id];
+	}
+	
 	/**
 	 * Process next event(s).
 	 * 
@@ -18,9 +18,10 @@
 package vanetsim.scenario.events;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.text.ParseException;
-import java.util.Random;
 import java.util.ArrayDeque;
+import java.util.function.Supplier;
 
 import vanetsim.ErrorLog;
 import vanetsim.gui.Renderer;
@@ -30,6 +31,12 @@ import vanetsim.map.Region;
 import vanetsim.routing.WayPoint;
 import vanetsim.scenario.Vehicle;
 import vanetsim.scenario.messages.PenaltyMessage;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.RandomStream;
+import vanetsim.simulation.SimulationContext;
 import vanetsim.simulation.SimulationMaster;
 
 
@@ -83,17 +90,27 @@ public class EventSpot{
 	/** The school zone color */
 	private static Color kindergartenColor = Color.green;
 	
-	/** A reference to the map so that we don't need to call this over and over again. */
-	private static final Map MAP = Map.getInstance();
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(EventSpot.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all event spots of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** the map regions (part of the map, not written to checkpoints) */
+		transient Region[][] regions_;
+	}
 
-	/** the map regions */
-	private static Region[][] regions_;
-	
 	/** the random number generator seed */
 	private long seed_;
 	
-	/** A random number generator used for the creation of emergency vehicles. */
-	private Random random_ = null;
+	/** The random numbers used for the creation of emergency vehicles. */
+	private RandomStream random_ = null;
 	
 	/** EventSpot Multiplier */
 	private boolean multiplier_ = true;
@@ -103,7 +120,7 @@ public class EventSpot{
 		x_ = x;
 		y_ = y;
 		frequency_ = frequency;
-		if(seed != -1)	random_ = new Random(seed);
+		if(seed != -1)	random_ = new RandomStream(seed, 0, RandomStream.STREAM_EVENT_SPOT);
 		eventSpotTiming_ = random_.nextInt(frequency) + 1;
 		if(SimulationMaster.getEventSpotCountdown_() > eventSpotTiming_) SimulationMaster.setEventSpotCountdown_(eventSpotTiming_); 
 		radius_ = radius;
@@ -218,18 +235,18 @@ public class EventSpot{
 					}catch (Exception e2) { ErrorLog.log(Messages.getString("EditEventControlPanel.errorCreatingEvent"), 6, getClass().getName(), "actionPerformed", e2);} //$NON-NLS-1$ //$NON-NLS-2$
 				} catch (Exception e) {}
 			}
-			Renderer.getInstance().ReRender(false, false);
+			if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(false, false);
 		}
 		else if(eventSpotType_.equals("school") || eventSpotType_.equals("kindergarten")){
 			int RegionMinX, RegionMinY, RegionMaxX, RegionMaxY;
 			long dx, dy, maxDistanceSquared = (long)radius_ * radius_;
 
 			// Get the regions to be considered
-			Region tmpregion = MAP.getRegionOfPoint((x_ - radius_), (y_ - radius_));
+			Region tmpregion = Map.getInstance().getRegionOfPoint((x_ - radius_), (y_ - radius_));
 			RegionMinX = tmpregion.getX();
 			RegionMinY = tmpregion.getY();
 
-			tmpregion = MAP.getRegionOfPoint((x_ + radius_), (y_ + radius_));
+			tmpregion = Map.getInstance().getRegionOfPoint((x_ + radius_), (y_ + radius_));
 			RegionMaxX = tmpregion.getX();
 			RegionMaxY = tmpregion.getY();
 			
@@ -237,7 +254,7 @@ public class EventSpot{
 			Vehicle tmpVehicle = null;
 			while(i < 100){		//there could be some vehicles in the region but no vehicle in the zone!
 				i++;
-				Vehicle[] tmpVehicleArray = regions_[(RegionMinX + random_.nextInt(RegionMaxX - RegionMinX + 1))][(RegionMinY + random_.nextInt(RegionMaxY - RegionMinY + 1))].getVehicleArray();
+				Vehicle[] tmpVehicleArray = state().regions_[(RegionMinX + random_.nextInt(RegionMaxX - RegionMinX + 1))][(RegionMinY + random_.nextInt(RegionMaxY - RegionMinY + 1))].getVehicleArray();
 				tmpVehicle = tmpVehicleArray[random_.nextInt(tmpVehicleArray.length)];
 				
 				//check if vehicle is driving. Otherwise a emergency braking does not make any sense!
@@ -247,11 +264,11 @@ public class EventSpot{
 					
 					if((dx*dx + dy*dy) <= maxDistanceSquared) {
 
-						PenaltyMessage message = new PenaltyMessage(tmpVehicle.getX(), tmpVehicle.getY(), tmpVehicle.getX(), tmpVehicle.getY(), 50000, (timePassed + 2000), tmpVehicle.getCurStreet(), tmpVehicle.getCurLane(), (int) tmpVehicle.getCurPosition(), 500, (timePassed + 2000), false, tmpVehicle.getID(), null,  "HUANG_EEBL", false, true);							
+						PenaltyMessage message = PenaltyMessage.create(tmpVehicle.getX(), tmpVehicle.getY(), tmpVehicle.getX(), tmpVehicle.getY(), 50000, (timePassed + 2000), tmpVehicle.getCurStreet(), tmpVehicle.getCurLane(), (int) tmpVehicle.getCurPosition(), 500, (timePassed + 2000), false, tmpVehicle.getID(), null,  "HUANG_EEBL", false, true);							
 						tmpVehicle.getKnownMessages().addMessage(message, false, true);
 						message.setFloodingMode(true);	// enable flooding mode if within distance!				
 						//tmpVehicle.getTmpBlockings().add(new BlockingObject(tmpVehicle.getCurLane(), tmpVehicle.getCurDirection(), tmpVehicle.getCurStreet(),  tmpVehicle.getCurPosition(), "HUANG_EEBL", (timePassed + 2000)));
-						//Renderer.getInstance().setMarkedVehicle(tmpVehicle);
+						//EngineContext.setMarkedVehicle(tmpVehicle);
 					
 						tmpVehicle.setEmergencyBraking_(true);
 						tmpVehicle.setEEBLmessageIsCreated_(true);
@@ -263,6 +280,45 @@ public class EventSpot{
 		}
 	}
 	
+	/**
+	 * Reads an event spot from a checkpoint. It is not linked to the other event spots.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public EventSpot(CheckpointReader in) throws IOException{
+		x_ = in.readInt();
+		y_ = in.readInt();
+		frequency_ = in.readInt();
+		radius_ = in.readInt();
+		eventSpotType_ = in.readString();
+		eventSpotColor_ = in.readColor();
+		eventSpotTiming_ = in.readInt();
+		seed_ = in.readLong();
+		if(in.readBoolean()) random_ = new RandomStream(in);
+		multiplier_ = in.readBoolean();
+	}
+	
+	/**
+	 * Writes this event spot to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeInt(frequency_);
+		out.writeInt(radius_);
+		out.writeString(eventSpotType_);
+		out.writeColor(eventSpotColor_);
+		out.writeInt(eventSpotTiming_);
+		out.writeLong(seed_);
+		out.writeBoolean(random_ != null);
+		if(random_ != null) random_.writeCheckpoint(out);
+		out.writeBoolean(multiplier_);
+	}
+	
 	/**
 	 * Gets the frequency of the event
 	 * 
@@ -371,7 +427,7 @@ public class EventSpot{
 	 * @param regions_ the regions_ to set
 	 */
 	public static void setRegions_(Region[][] regions) {
-		regions_ = regions;
+		state().regions_ = regions;
 	}
 
 	public long getSeed_() {
@@ -381,4 +437,13 @@ public class EventSpot{
 	public  void setSeed_(long seed) {
 		seed_ = seed;
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
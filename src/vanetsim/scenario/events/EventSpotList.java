@@ -22,13 +22,19 @@ import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 
 import vanetsim.VanetSimStart;
 import vanetsim.gui.Renderer;
 import vanetsim.map.Map;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 
 
@@ -38,8 +44,15 @@ import vanetsim.map.Map;
  */
 public final class EventSpotList{
 
-	/** The only instance of this class (singleton). */
-	private static final EventSpotList INSTANCE = new EventSpotList();
+	/** The slot of the event spot list in the {@link SimulationContext}. There is one instance per simulation context. */
+	private static final int SLOT = SimulationContext.newSlot(EventSpotList.class);
+
+	/** Creates the event spot list of a new simulation context. */
+	private static final Supplier<EventSpotList> NEW_INSTANCE = new Supplier<EventSpotList>(){
+		public EventSpotList get(){
+			return new EventSpotList();
+		}
+	};
 
 	
 	/** the head of the event spot */
@@ -61,12 +74,12 @@ public final class EventSpotList{
 	}	
 
 	/**
-	 * Gets the single instance of this EventList.
+	 * Gets the single instance of this EventList in the current simulation context.
 	 * 
-	 * @return single instance of this EventList
+	 * @return single instance of this EventList in the current simulation context
 	 */
 	public static EventSpotList getInstance(){
-		return INSTANCE;
+		return SimulationContext.state(SLOT, NEW_INSTANCE);
 	}
 
 	/**
@@ -91,6 +104,49 @@ public final class EventSpotList{
 		}
 	}
 
+	/**
+	 * Writes all event spots and the grids to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		int count = 0;
+		for(EventSpot spot = head_; spot != null; spot = spot.getNext_()) ++count;
+		out.writeInt(count);
+		for(EventSpot spot = head_; spot != null; spot = spot.getNext_()) spot.writeCheckpoint(out);
+		out.writeIntArrays(gridEEBL_);
+		out.writeIntArrays(gridPCN_);
+		out.writeIntArrays(gridPCNFORWARD_);
+		out.writeIntArrays(gridRHCN_);
+		out.writeIntArrays(gridEVAFORWARD_);
+		out.writeIntArrays(gridEVA_);
+	}
+	
+	/**
+	 * Replaces all event spots and the grids with those read from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public void readCheckpoint(CheckpointReader in) throws IOException{
+		int count = in.readInt();
+		EventSpot head = null, tail = null, spot;
+		for(int i = 0; i < count; ++i){
+			spot = new EventSpot(in);
+			if(head == null) head = spot;
+			else tail.setNext_(spot);
+			tail = spot;
+		}
+		head_ = head;
+		gridEEBL_ = in.readIntArrays();
+		gridPCN_ = in.readIntArrays();
+		gridPCNFORWARD_ = in.readIntArrays();
+		gridRHCN_ = in.readIntArrays();
+		gridEVAFORWARD_ = in.readIntArrays();
+		gridEVA_ = in.readIntArrays();
+	}
+	
 	/**
 	 * Removes an event.
 	 * 
@@ -145,7 +201,7 @@ public final class EventSpotList{
 			while(tmpSpot != null){
 				if(tmpSpot.getEventSpotTiming_() <= time) {
 					
-					tmpSpot.execute(Renderer.getInstance().getTimePassed());
+					tmpSpot.execute(EngineContext.getTimePassed());
 				}
 				tmpSpot = tmpSpot.getNext_();
 			}
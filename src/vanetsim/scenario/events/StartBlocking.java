@@ -18,6 +18,7 @@
 package vanetsim.scenario.events;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 
@@ -25,11 +26,16 @@ import vanetsim.ErrorLog;
 import vanetsim.localization.Messages;
 import vanetsim.map.MapHelper;
 import vanetsim.map.Street;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointWriter;
 
 /**
  * This class represents an event which starts blocking on a street.
  */
 public final class StartBlocking extends Event{
+
+	/** The necessary constant for serializing. */
+	private static final long serialVersionUID = 996597191556889741L;
 	
 	/** The affected street. */
 	private final Street affectedStreet_; 
@@ -88,6 +94,62 @@ public final class StartBlocking extends Event{
 		} else throw new ParseException(Messages.getString("StartBlocking.snappingFailed"),0); //$NON-NLS-1$
 	}
 	
+	/**
+	 * Reads a blocking event from a checkpoint. The blocking objects are created and registered but their position is
+	 * read later. The stop event is linked when it is read.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	StartBlocking(CheckpointReader in) throws IOException{
+		time_ = in.readInt();
+		color_ = Color.red;
+		affectedStreet_ = in.readStreet();
+		affectedStreetPos_ = in.readDouble();
+		affectedDirection_ = in.readInt();
+		affectedLanes_ = in.readInt();
+		isFake_ = in.readBoolean();
+		penaltyType_ = in.readString();
+		isFirst_ = in.readBoolean();
+		int count = in.readInt();
+		if(count > -1){
+			blockingObjects_ = new ArrayList<BlockingObject>(Math.max(count, 2));
+			BlockingObject object;
+			for(int i = 0; i < count; ++i){
+				object = new BlockingObject(in);
+				in.addBlockingObject(object);
+				blockingObjects_.add(object);
+			}
+		}
+	}
+	
+	/**
+	 * Writes this blocking event to a checkpoint and registers its blocking objects.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if the street could not be written
+	 */
+	void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(time_);
+		out.writeStreet(affectedStreet_);
+		out.writeDouble(affectedStreetPos_);
+		out.writeInt(affectedDirection_);
+		out.writeInt(affectedLanes_);
+		out.writeBoolean(isFake_);
+		out.writeString(penaltyType_);
+		out.writeBoolean(isFirst_);
+		if(blockingObjects_ == null) out.writeInt(-1);
+		else {
+			out.writeInt(blockingObjects_.size());
+			for(int i = 0; i < blockingObjects_.size(); ++i){
+				blockingObjects_.get(i).writeCheckpoint(out);
+				out.addBlockingObject(blockingObjects_.get(i));
+			}
+		}
+	}
+	
 	/**
 	 * Returns a descriptive text for display in the GUI.
 	 * 
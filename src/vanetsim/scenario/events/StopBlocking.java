@@ -30,6 +30,9 @@ import vanetsim.localization.Messages;
  * This class represents an event which ends blocking on a street ("unblock").
  */
 public final class StopBlocking extends Event{
+
+	/** The necessary constant for serializing. */
+	private static final long serialVersionUID = 9114687091727165224L;
 	
 	/** The event which starts the blocking. */
 	private final StartBlocking startBlockingEvent_; 
@@ -107,6 +110,15 @@ public final class StopBlocking extends Event{
 		return startBlockingEvent_.getY();
 	}
 	
+	/**
+	 * Gets the blocking event which is ended by this event.
+	 * 
+	 * @return the blocking event
+	 */
+	public StartBlocking getStartBlockingEvent(){
+		return startBlockingEvent_;
+	}
+	
 	/**
 	 * Returns a descriptive text for display in the GUI.
 	 * 
@@ -17,18 +17,24 @@
  */
 package vanetsim.scenario.messages;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
 
-import vanetsim.gui.Renderer;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.EngineContext;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * An abstract class for messages.
  */
 public abstract class Message{
 	
-	/** A reference to the renderer. */
-	private static final Renderer renderer_ = Renderer.getInstance();
-	
 	/** The x coordinate of the destination of this message. */
 	protected int destinationX_;
 	
@@ -53,7 +59,132 @@ public abstract class Message{
 	
 	/** The steadyID of the source of the message **/
 	protected long ID_;
+	
+	/** The sequence number which identifies this message. */
+	private long sequenceNumber_;
+	
+	/** How many stores of messages (known messages of vehicles and RSUs, interaction buffers) currently contain this message. */
+	private volatile int references_ = 0;
+	
+	/** Changes <code>references_</code> atomically as messages are stored by several threads. */
+	private static final AtomicIntegerFieldUpdater<Message> REFERENCES = AtomicIntegerFieldUpdater.newUpdater(Message.class, "references_"); //$NON-NLS-1$
+	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(Message.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
 
+	/** The variables shared by all messages of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The sequence number of the next message. Messages are created by several threads. */
+		final AtomicLong nextSequenceNumber_ = new AtomicLong();
+	}
+	
+	/**
+	 * Creates a message with a new sequence number.
+	 */
+	protected Message(){
+		renew();
+	}
+	
+	/**
+	 * Creates a message from a checkpoint. It keeps the sequence number and the references it had when the checkpoint
+	 * was taken.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	protected Message(CheckpointReader in) throws IOException{
+		destinationX_ = in.readInt();
+		destinationY_ = in.readInt();
+		destinationRadius_ = in.readInt();
+		destinationRadiusSquared_ = in.readLong();
+		floodingMode_ = in.readBoolean();
+		validUntil_ = in.readInt();
+		isFake_ = in.readBoolean();
+		ID_ = in.readLong();
+		sequenceNumber_ = in.readLong();
+		references_ = in.readInt();
+	}
+	
+	/**
+	 * Writes this message to a checkpoint. Subclasses need to write their own variables after calling this method.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if the message could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		out.writeInt(destinationX_);
+		out.writeInt(destinationY_);
+		out.writeInt(destinationRadius_);
+		out.writeLong(destinationRadiusSquared_);
+		out.writeBoolean(floodingMode_);
+		out.writeInt(validUntil_);
+		out.writeBoolean(isFake_);
+		out.writeLong(ID_);
+		out.writeLong(sequenceNumber_);
+		out.writeInt(references_);
+	}
+	
+	/**
+	 * Prepares a recycled message to be used again. It gets a new sequence number so that it isn't mistaken for the
+	 * message it was before.
+	 */
+	protected final void renew(){
+		sequenceNumber_ = state().nextSequenceNumber_.getAndIncrement();
+		references_ = 0;
+		floodingMode_ = false;
+		isFake_ = false;
+	}
+	
+	/**
+	 * Marks that a store of messages contains this message. Has to be called before the message is made available to
+	 * other threads through the store.
+	 */
+	public void retain(){
+		REFERENCES.incrementAndGet(this);
+	}
+	
+	/**
+	 * Marks that a store of messages doesn't contain this message anymore. If no store contains it anymore, the message
+	 * can't be received by any vehicle again and is recycled.
+	 */
+	public void release(){
+		if(REFERENCES.decrementAndGet(this) == 0) recycle();
+	}
+	
+	/**
+	 * Called when no store of messages contains this message anymore. Messages which are created often should put
+	 * themselves into a pool here. After this call, the message may be changed and used by another thread at any time.
+	 */
+	protected void recycle(){
+	}
+	
+	/**
+	 * Gets the sequence number of this message. It is unique within a simulation and is used to find out quickly
+	 * if a message is already known.
+	 * 
+	 * @return the sequence number
+	 */
+	public long getSequenceNumber(){
+		return sequenceNumber_;
+	}
+	
+	/**
+	 * Gets until when this message is valid.
+	 * 
+	 * @return the time in milliseconds (measured from simulation start)
+	 */
+	public int getValidUntil(){
+		return validUntil_;
+	}
 	
 	/**
 	 * Checks if the message is still valid.
@@ -61,7 +192,7 @@ public abstract class Message{
 	 * @return <code>true</code> if it's valid, else <code>false</code>
 	 */
 	public boolean isValid(){
-		if(renderer_.getTimePassed() < validUntil_) return true;
+		if(EngineContext.getTimePassed() < validUntil_) return true;
 		else return false;
 	}
 	
@@ -143,4 +274,12 @@ public abstract class Message{
 		this.isFake_ = isFake_;
 	}
 
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
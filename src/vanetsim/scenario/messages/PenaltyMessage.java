@@ -17,41 +17,51 @@
  */
 package vanetsim.scenario.messages;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import vanetsim.map.Street;
 import vanetsim.scenario.Vehicle;
+import vanetsim.simulation.CheckpointReader;
+import vanetsim.simulation.CheckpointState;
+import vanetsim.simulation.CheckpointWriter;
+import vanetsim.simulation.SimulationContext;
 
 /**
  * A message which indicates some kind of traffic jam through assigning a penalty to the street on which the jam is.
+ * Penalty messages are created very often, so they are created through {@link #create(int, int, int, int, int, int, Street, int, int, int, int, boolean, long, Vehicle, String, boolean, boolean)}
+ * which reuses messages that no vehicle or RSU knows anymore. This is why the values of a message are not final: a
+ * recycled message gets all of them again when it is reused. They must not be changed while the message is known by any vehicle or RSU.
  */
 public class PenaltyMessage extends Message{
 	
 	/** The penalty street. */
-	private final Street penaltyStreet_;
+	private Street penaltyStreet_;
 	
 	/** The direction. <code>1</code> means from endNode to startNode, <code>0</code> means
 	 * 	both directions and <code>-1</code> means from startNode to endNode */
-	private final int penaltyDirection_;
+	private int penaltyDirection_;
 	
 	/** A value for the penalty in cm. */
-	private final int penaltyValue_;
+	private int penaltyValue_;
 	
 	/** Until when this penalty is valid. */
-	private final int penaltyValidUntil_;
+	private int penaltyValidUntil_;
 	
 	/** The x destination where the message occured */
-	private final int x_;
+	private int x_;
 	
 	/** The y destination where the message occured */
-	private final int y_;
+	private int y_;
 
 	/** if sender is a emergency vehicle */
 	private boolean emergencyVehicle_;
 	
 	/** the lane */
-	private final int lane_;
+	private int lane_;
 	
 	/** flag if a blocking will be created */
-	private final boolean createBlocking_;
+	private boolean createBlocking_;
 	
 	/** the vehicle object (used to compare routes of emergency vehicle) */
 	private Vehicle penaltySourceVehicle_ = null;
@@ -61,12 +71,56 @@ public class PenaltyMessage extends Message{
 	/** The type of penalty. Emergency Electronic Brake lights (EEBL, 1), Post Crash Notification (PCN, 2), Road Hazard Condition Notification (RHCN, 3), Road Feature Notification (RFN, 4), 
 Stopped/Slow Vehicle Advisor (SVA, 5), Cooperative Collision Warning (CCW, 6), Cooperative Violation Warning (CVW, 7), Congested Road Notification(CRN, 8),
 Change of Lanes (CL, 9), Emergency Vehicle approaching (EVA, 10). */
-	private final String penaltyType_;
+	private String penaltyType_;
+	
+	/** The maximum amount of recycled messages kept in the pool. */
+	private static final int MAX_POOL_SIZE = 4096;
+	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(PenaltyMessage.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The pool of recycled messages of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The recycled messages (not written to checkpoints). */
+		transient PenaltyMessage[] pool_ = null;
+		
+		/** The amount of messages in the pool. */
+		transient int poolSize_ = 0;
+	}
 
 
+	/**
+	 * Gets a penalty message. A recycled message is used if one is available, otherwise a new one is created. The
+	 * parameters are the same as in {@link #PenaltyMessage(int, int, int, int, int, int, Street, int, int, int, int, boolean, long, Vehicle, String, boolean, boolean)}.
+	 * 
+	 * @return the message
+	 */
+	public static PenaltyMessage create(int x, int y, int destinationX, int destinationY, int destinationRadius, int validUntil, Street penaltyStreet, int lane, int penaltyDirection, int penaltyValue, int penaltyValidUntil, boolean isFake, long ID, Vehicle penaltySourceVehicle, String penaltyType, boolean emergencyVehicle, boolean createBlocking){
+		PenaltyMessage message = null;
+		ContextState state = state();
+		synchronized(state){
+			if(state.poolSize_ > 0){
+				--state.poolSize_;
+				message = state.pool_[state.poolSize_];
+				state.pool_[state.poolSize_] = null;
+			}
+		}
+		if(message == null) return new PenaltyMessage(x, y, destinationX, destinationY, destinationRadius, validUntil, penaltyStreet, lane, penaltyDirection, penaltyValue, penaltyValidUntil, isFake, ID, penaltySourceVehicle, penaltyType, emergencyVehicle, createBlocking);
+		message.renew();
+		message.init(x, y, destinationX, destinationY, destinationRadius, validUntil, penaltyStreet, lane, penaltyDirection, penaltyValue, penaltyValidUntil, isFake, ID, penaltySourceVehicle, penaltyType, emergencyVehicle, createBlocking);
+		return message;
+	}
 
 	/**
-	 * Instantiates a new penalty message.
+	 * Instantiates a new penalty message. Use {@link #create(int, int, int, int, int, int, Street, int, int, int, int, boolean, long, Vehicle, String, boolean, boolean)}
+	 * to reuse recycled messages.
 	 * 
 	 * @param destinationX		the x coordinate of the destination of the message
 	 * @param destinationY		the y coordinate of the destination of the message
@@ -79,6 +133,37 @@ Change of Lanes (CL, 9), Emergency Vehicle approaching (EVA, 10). */
 	 * @param penaltyValidUntil	how long the penalty is valid in ms (measured from simulation start)
 	 */
 	public PenaltyMessage(int x, int y, int destinationX, int destinationY, int destinationRadius, int validUntil, Street penaltyStreet, int lane, int penaltyDirection, int penaltyValue, int penaltyValidUntil, boolean isFake, long ID, Vehicle penaltySourceVehicle, String penaltyType, boolean emergencyVehicle, boolean createBlocking){
+		init(x, y, destinationX, destinationY, destinationRadius, validUntil, penaltyStreet, lane, penaltyDirection, penaltyValue, penaltyValidUntil, isFake, ID, penaltySourceVehicle, penaltyType, emergencyVehicle, createBlocking);
+	}
+	
+	/**
+	 * Creates a message from a checkpoint.
+	 * 
+	 * @param in	the checkpoint
+	 * 
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public PenaltyMessage(CheckpointReader in) throws IOException{
+		super(in);
+		penaltyStreet_ = in.readStreet();
+		penaltyDirection_ = in.readInt();
+		penaltyValue_ = in.readInt();
+		penaltyValidUntil_ = in.readInt();
+		x_ = in.readInt();
+		y_ = in.readInt();
+		emergencyVehicle_ = in.readBoolean();
+		lane_ = in.readInt();
+		createBlocking_ = in.readBoolean();
+		penaltySourceVehicle_ = in.readVehicle();
+		logData_ = in.readBoolean();
+		penaltyType_ = in.readString();
+	}
+	
+	/**
+	 * Sets all values of this message. See {@link #PenaltyMessage(int, int, int, int, int, int, Street, int, int, int, int, boolean, long, Vehicle, String, boolean, boolean)}
+	 * for the parameters.
+	 */
+	private void init(int x, int y, int destinationX, int destinationY, int destinationRadius, int validUntil, Street penaltyStreet, int lane, int penaltyDirection, int penaltyValue, int penaltyValidUntil, boolean isFake, long ID, Vehicle penaltySourceVehicle, String penaltyType, boolean emergencyVehicle, boolean createBlocking){
 		destinationX_ = destinationX;
 		destinationY_ = destinationY;
 		x_ = x;
@@ -120,5 +205,60 @@ Change of Lanes (CL, 9), Emergency Vehicle approaching (EVA, 10). */
 	public void execute(Vehicle vehicle){
 		vehicle.getKnownPenalties().updatePenalty(x_, y_, penaltyStreet_, lane_, penaltyDirection_, penaltyValue_, penaltyValidUntil_, isFake_, penaltyType_, ID_, penaltySourceVehicle_, emergencyVehicle_, createBlocking_);
 	}
+	
+	/**
+	 * Writes this message to a checkpoint.
+	 * 
+	 * @param out	the checkpoint
+	 * 
+	 * @throws IOException if the message could not be written
+	 */
+	public void writeCheckpoint(CheckpointWriter out) throws IOException{
+		super.writeCheckpoint(out);
+		out.writeStreet(penaltyStreet_);
+		out.writeInt(penaltyDirection_);
+		out.writeInt(penaltyValue_);
+		out.writeInt(penaltyValidUntil_);
+		out.writeInt(x_);
+		out.writeInt(y_);
+		out.writeBoolean(emergencyVehicle_);
+		out.writeInt(lane_);
+		out.writeBoolean(createBlocking_);
+		out.writeVehicle(penaltySourceVehicle_);
+		out.writeBoolean(logData_);
+		out.writeString(penaltyType_);
+	}
+	
+	/**
+	 * Puts this message into the pool so that it can be reused by {@link #create(int, int, int, int, int, int, Street, int, int, int, int, boolean, long, Vehicle, String, boolean, boolean)}.
+	 * 
+	 * @see vanetsim.scenario.messages.Message#recycle()
+	 */
+	protected void recycle(){
+		penaltyStreet_ = null;		// don't keep references to objects which might be deleted
+		penaltySourceVehicle_ = null;
+		penaltyType_ = null;
+		ContextState state = state();
+		synchronized(state){
+			if(state.pool_ == null) state.pool_ = new PenaltyMessage[64];
+			else if(state.poolSize_ == state.pool_.length){
+				if(state.poolSize_ == MAX_POOL_SIZE) return;
+				PenaltyMessage[] newArray = new PenaltyMessage[state.poolSize_ * 2];
+				System.arraycopy(state.pool_,0,newArray,0,state.poolSize_);
+				state.pool_ = newArray;
+			}
+			state.pool_[state.poolSize_] = this;
+			++state.poolSize_;
+		}
+	}
+	
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 
 }
\ No newline at end of file
@@ -0,0 +1,595 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import vanetsim.ErrorLog;
+import vanetsim.localization.Messages;
+import vanetsim.map.Map;
+import vanetsim.map.Node;
+import vanetsim.map.Region;
+import vanetsim.map.Street;
+import vanetsim.scenario.AttackRSU;
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+import vanetsim.scenario.events.EventList;
+import vanetsim.scenario.events.EventSpotList;
+
+/**
+ * Captures and restores the complete state of a running simulation. A checkpoint contains all vehicles (including routes,
+ * known vehicles, messages, penalties and IDS processors), the vehicles on the lanes and in the regions, the state of the
+ * junctions, traffic lights and RSUs, the event queues and the state all other classes keep in the {@link SimulationContext}
+ * (including the random generators). The map itself is not part of a checkpoint: the state is restored into the objects of
+ * the current map, which needs to be the one the checkpoint was taken on. Checkpoints are always taken from and restored
+ * into the context of the calling thread.
+ * <br><br>
+ * The state is written as plain values into one buffer (see {@link CheckpointWriter}) while the worker threads wait at the
+ * start barrier. Compressing and writing it to disk afterwards is done in a background thread so that the simulation can
+ * continue immediately. The buffer is reused for the next checkpoint once it has been written, so regular checkpoints
+ * don't need to allocate (and copy while growing) a buffer of the size of the whole state each time.
+ * <br><br>
+ * Restoring is all or nothing: if a checkpoint can't be read completely, the state which was current before is restored
+ * again.
+ */
+public final class Checkpoint {
+
+	/** Marks a checkpoint file ("VSCP"). */
+	private static final int MAGIC = 0x56534350;
+
+	/** The version of the checkpoint format. Checkpoints with another version are rejected. */
+	private static final int FORMAT_VERSION = 8;
+
+	/** The initial size of the buffer for capturing in bytes. */
+	private static final int INITIAL_CAPACITY = 1 << 20;
+
+	/** A writer whose buffer can be reused or <code>null</code> if there is none (because it is still being written to disk). */
+	private static CheckpointWriter spareWriter_ = null;
+
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private Checkpoint(){
+	}
+
+	/**
+	 * Captures the current simulation state. May only be called while no simulation step is in progress!
+	 *
+	 * @return the (uncompressed) state
+	 *
+	 * @throws IOException if an object of the state can't be written
+	 */
+	public static byte[] capture() throws IOException{
+		CheckpointWriter out = takeWriter();
+		try{
+			capture(out);
+			return out.toByteArray();
+		} finally {
+			releaseWriter(out);
+		}
+	}
+
+	/**
+	 * Captures the current simulation state into a writer. May only be called while no simulation step is in progress!
+	 *
+	 * @param out	the writer
+	 *
+	 * @throws IOException if an object of the state can't be written
+	 */
+	private static void capture(CheckpointWriter out) throws IOException{
+		Region[][] regions = Map.getInstance().getRegions();
+		out.writeLong(signature(regions));
+		out.writeInt(countJunctions(regions));
+		int vehicleCount = Vehicle.getTableSize();
+		out.writeInt(vehicleCount);
+		for(int i = 0; i < vehicleCount; ++i) Vehicle.getByIndex(i).writeDestinations(out);
+		EventList.getInstance().writeCheckpoint(out);
+		for(int i = 0; i < vehicleCount; ++i) Vehicle.getByIndex(i).writeCheckpoint(out);
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j) regions[i][j].writeCheckpoint(out);
+		}
+		Node[] nodes;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				for(int k = 0; k < nodes.length; ++k) nodes[k].writeCheckpoint(out);
+			}
+		}
+		Street[] streets;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				for(int k = 0; k < nodes.length; ++k){
+					streets = nodes[k].getCrossingStreets();
+					for(int l = 0; l < streets.length; ++l){
+						if(streets[l].getStartNode() == nodes[k]) streets[l].writeCheckpoint(out);
+					}
+				}
+			}
+		}
+		EventSpotList.getInstance().writeCheckpoint(out);
+		writeSlots(out, SimulationContext.getCurrent());
+	}
+
+	/**
+	 * Gets an empty writer, reusing the buffer of the last checkpoint if it is not in use any more.
+	 *
+	 * @return the writer
+	 */
+	private static synchronized CheckpointWriter takeWriter(){
+		CheckpointWriter writer = spareWriter_;
+		spareWriter_ = null;
+		if(writer == null) return new CheckpointWriter(INITIAL_CAPACITY);
+		writer.reset();
+		return writer;
+	}
+
+	/**
+	 * Keeps a writer which is not used any more for the next checkpoint.
+	 *
+	 * @param writer	the writer
+	 */
+	private static synchronized void releaseWriter(CheckpointWriter writer){
+		spareWriter_ = writer;
+	}
+
+	/**
+	 * Writes a captured state compressed to a file.
+	 *
+	 * @param state	the state as returned by {@link #capture()}
+	 * @param time	the simulation time at which the state was captured
+	 * @param file	the target file
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public static void write(byte[] state, int time, File file) throws IOException{
+		write(state, state.length, time, file);
+	}
+
+	/**
+	 * Writes the first bytes of a buffer compressed to a file.
+	 *
+	 * @param state		the buffer with the state
+	 * @param length	the amount of bytes of the state
+	 * @param time		the simulation time at which the state was captured
+	 * @param file		the target file
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private static void write(byte[] state, int length, int time, File file) throws IOException{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(time);
+			GZIPOutputStream zip = new GZIPOutputStream(out, 65536);
+			zip.write(state, 0, length);
+			zip.finish();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Captures the current simulation state and writes it to a file in a background thread. May only be called while no
+	 * simulation step is in progress! Only capturing is done by the calling thread, errors while writing are logged.
+	 *
+	 * @param time	the current simulation time
+	 * @param file	the target file
+	 *
+	 * @throws IOException if an object of the state can't be written
+	 */
+	public static void writeInBackground(final int time, final File file) throws IOException{
+		final CheckpointWriter out = takeWriter();
+		boolean captured = false;
+		try{
+			capture(out);
+			captured = true;
+		} finally {
+			if(!captured) releaseWriter(out);
+		}
+		Thread writer = new Thread("CheckpointWriter"){ //$NON-NLS-1$
+			public void run(){
+				try{
+					write(out.getBuffer(), out.size(), time, file);
+					ErrorLog.log(Messages.getString("Checkpoint.written") + file.getPath(), 3, Checkpoint.class.getName(), "writeInBackground", null); //$NON-NLS-1$ //$NON-NLS-2$
+				} catch (Exception e){
+					ErrorLog.log(Messages.getString("Checkpoint.writeError") + file.getPath(), 6, Checkpoint.class.getName(), "writeInBackground", e); //$NON-NLS-1$ //$NON-NLS-2$
+				} finally {
+					releaseWriter(out);
+				}
+			}
+		};
+		writer.start();
+	}
+
+	/**
+	 * Restores the simulation state from a checkpoint file. The simulation must not be running and the worker threads
+	 * need to be recreated afterwards. The file is read and decompressed completely and checked against the current map
+	 * before anything is changed, so the current state is kept if the file is damaged or belongs to another map.
+	 *
+	 * @param file	the checkpoint file
+	 *
+	 * @return the simulation time at which the checkpoint was taken
+	 *
+	 * @throws IOException if the file could not be read or is no valid checkpoint
+	 */
+	public static int restore(File file) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try{
+			if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + file.getPath()); //$NON-NLS-1$
+			int time = in.readInt();
+			GZIPInputStream zip = new GZIPInputStream(in, 65536);
+			ByteArrayOutputStream state = new ByteArrayOutputStream(INITIAL_CAPACITY);
+			byte[] buffer = new byte[65536];
+			int length;
+			while((length = zip.read(buffer)) > 0) state.write(buffer, 0, length);	// checks the CRC at the end
+			restore(state.toByteArray());
+			return time;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Restores the simulation state from a state captured in memory. The state must have been captured on the current map.
+	 * The current state is captured first. If the state can't be read completely, this one is restored again so that
+	 * the simulation is never left half restored.
+	 *
+	 * @param state	the state as returned by {@link #capture()}
+	 *
+	 * @throws IOException if the state could not be read or belongs to another map
+	 */
+	public static void restore(byte[] state) throws IOException{
+		Region[][] regions = Map.getInstance().getRegions();
+		CheckpointReader in = new CheckpointReader(state, regions);
+		if(in.readLong() != signature(regions)) throw new IOException(Messages.getString("Checkpoint.otherMap") + Map.getInstance().getMapName_()); //$NON-NLS-1$
+		byte[] current = capture();
+		try{
+			restore(in, regions, state.length);
+		} catch (IOException e){
+			CheckpointReader rollback = new CheckpointReader(current, regions);
+			rollback.readLong();
+			restore(rollback, regions, current.length);
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads a state after its signature.
+	 *
+	 * @param in		the state
+	 * @param regions	the regions of the map
+	 * @param length	the length of the state in bytes
+	 *
+	 * @throws IOException if the state could not be read
+	 */
+	private static void restore(CheckpointReader in, Region[][] regions, int length) throws IOException{
+		// junctions are calculated when the simulation is started for the first time
+		if(in.readInt() > 0 && countJunctions(regions) == 0){
+			for(int i = 0; i < regions.length; ++i){
+				for(int j = 0; j < regions[i].length; ++j) regions[i][j].calculateJunctions();
+			}
+		}
+		try{
+			int vehicleCount = in.readInt();
+			for(int i = 0; i < vehicleCount; ++i) new Vehicle(in);
+			EventList.getInstance().readCheckpoint(in);
+			Vehicle[] vehicles = in.getVehicles();
+			for(int i = 0; i < vehicleCount; ++i) vehicles[i].readCheckpoint(in);
+			for(int i = 0; i < regions.length; ++i){
+				for(int j = 0; j < regions[i].length; ++j) regions[i][j].readCheckpoint(in);
+			}
+			Node[] nodes;
+			for(int i = 0; i < regions.length; ++i){
+				for(int j = 0; j < regions[i].length; ++j){
+					nodes = regions[i][j].getNodes();
+					for(int k = 0; k < nodes.length; ++k) nodes[k].readCheckpoint(in);
+				}
+			}
+			Street[] streets;
+			for(int i = 0; i < regions.length; ++i){
+				for(int j = 0; j < regions[i].length; ++j){
+					nodes = regions[i][j].getNodes();
+					for(int k = 0; k < nodes.length; ++k){
+						streets = nodes[k].getCrossingStreets();
+						for(int l = 0; l < streets.length; ++l){
+							if(streets[l].getStartNode() == nodes[k]) streets[l].readCheckpoint(in);
+						}
+					}
+				}
+			}
+			EventSpotList.getInstance().readCheckpoint(in);
+			readSlots(in, SimulationContext.getCurrent());
+			if(!in.isAtEnd()) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + length); //$NON-NLS-1$
+			Vehicle.restoreTable(vehicles, vehicleCount);
+		} catch (RuntimeException e){
+			throw new IOException(e);
+		}
+		// all regions have been woken up by the restore
+		while(Region.pollWokenRegion() != null);
+	}
+
+	/**
+	 * Calculates a signature of a map from its nodes and streets. Checkpoints can only be restored on a map with the
+	 * same signature.
+	 *
+	 * @param regions	the regions of the map
+	 *
+	 * @return the signature
+	 */
+	private static long signature(Region[][] regions){
+		long signature = regions.length;
+		Node[] nodes;
+		for(int i = 0; i < regions.length; ++i){
+			signature = signature * 31 + regions[i].length;
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				signature = signature * 31 + nodes.length;
+				for(int k = 0; k < nodes.length; ++k){
+					signature = signature * 31 + nodes[k].getNodeID();
+					signature = signature * 31 + nodes[k].getX();
+					signature = signature * 31 + nodes[k].getY();
+					signature = signature * 31 + nodes[k].getCrossingStreets().length;
+				}
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * Counts the junctions of a map.
+	 *
+	 * @param regions	the regions of the map
+	 *
+	 * @return the amount of nodes which are junctions
+	 */
+	private static int countJunctions(Region[][] regions){
+		int count = 0;
+		Node[] nodes;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				for(int k = 0; k < nodes.length; ++k){
+					if(nodes[k].getJunction() != null) ++count;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the variables of all slots of a context which hold a {@link CheckpointState}. Slots holding a cache or
+	 * objects which are written separately (like the event list) are skipped. The variables are written with their names.
+	 *
+	 * @param out		the checkpoint
+	 * @param context	the context
+	 *
+	 * @throws IOException if a variable could not be written
+	 */
+	private static void writeSlots(CheckpointWriter out, SimulationContext context) throws IOException{
+		Class<?>[] owners = SimulationContext.getOwners();
+		int count = 0;
+		for(int i = 0; i < owners.length; ++i){
+			if(context.get(i) instanceof CheckpointState) ++count;
+		}
+		out.writeInt(count);
+		Object state;
+		ArrayList<Field> fields;
+		for(int i = 0; i < owners.length; ++i){
+			state = context.get(i);
+			if(state instanceof CheckpointState){
+				out.writeString(owners[i].getName());
+				out.writeString(state.getClass().getName());
+				fields = getStateFields(state.getClass());
+				out.writeInt(fields.size());
+				for(int j = 0; j < fields.size(); ++j){
+					out.writeString(fields.get(j).getName());
+					writeValue(out, fields.get(j), state);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the variables of the slots of a context. The slots are looked up by the name of their owner as the slot numbers
+	 * depend on the order in which the classes were loaded. Slots which are still empty are filled.
+	 *
+	 * @param in		the checkpoint
+	 * @param context	the context which shall be restored
+	 *
+	 * @throws IOException if a variable could not be read or does not exist any more
+	 */
+	private static void readSlots(CheckpointReader in, SimulationContext context) throws IOException{
+		try{
+			int count = in.readInt();
+			String owner;
+			int slot, fieldCount;
+			Class<?> clazz;
+			Object state;
+			Constructor<?> constructor;
+			Field field;
+			for(int i = 0; i < count; ++i){
+				owner = in.readString();
+				slot = SimulationContext.getSlot(Class.forName(owner));
+				if(slot < 0) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + owner); //$NON-NLS-1$
+				clazz = Class.forName(in.readString());
+				state = context.get(slot);
+				if(state == null || state.getClass() != clazz){
+					constructor = clazz.getDeclaredConstructor();
+					constructor.setAccessible(true);
+					state = constructor.newInstance();
+					context.set(slot, state);
+				}
+				fieldCount = in.readInt();
+				for(int j = 0; j < fieldCount; ++j){
+					field = clazz.getDeclaredField(in.readString());
+					if(!isState(field)) throw new IOException(Messages.getString("Checkpoint.wrongFormat") + field.getName()); //$NON-NLS-1$
+					readValue(in, field, state);
+				}
+			}
+		} catch (ReflectiveOperationException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Gets the variables of a class which are part of the simulation state.
+	 *
+	 * @param clazz	the class
+	 *
+	 * @return the variables
+	 */
+	private static ArrayList<Field> getStateFields(Class<?> clazz){
+		Field[] fields = clazz.getDeclaredFields();
+		ArrayList<Field> state = new ArrayList<Field>(fields.length);
+		for(int i = 0; i < fields.length; ++i){
+			if(isState(fields[i])) state.add(fields[i]);
+		}
+		return state;
+	}
+
+	/**
+	 * Writes the value of a variable of a slot. Only the types used in the slots are supported.
+	 *
+	 * @param out		the checkpoint
+	 * @param field		the variable
+	 * @param target	the object holding the variable
+	 *
+	 * @throws IOException if the type of the variable is not supported
+	 */
+	private static void writeValue(CheckpointWriter out, Field field, Object target) throws IOException{
+		Class<?> type = field.getType();
+		try{
+			if(type == int.class) out.writeInt(field.getInt(target));
+			else if(type == long.class) out.writeLong(field.getLong(target));
+			else if(type == double.class) out.writeDouble(field.getDouble(target));
+			else if(type == boolean.class) out.writeBoolean(field.getBoolean(target));
+			else if(type == String.class) out.writeString((String)field.get(target));
+			else if(type == String[].class){
+				String[] values = (String[])field.get(target);
+				out.writeStrings(values, values == null ? 0 : values.length);
+			} else if(type == int[].class) out.writeInts((int[])field.get(target));
+			else if(type == Vehicle.class) out.writeVehicle((Vehicle)field.get(target));
+			else if(type == RSU.class) out.writeRSU((RSU)field.get(target));
+			else if(type == AtomicInteger.class) out.writeInt(((AtomicInteger)field.get(target)).get());
+			else if(type == AtomicLong.class) out.writeLong(((AtomicLong)field.get(target)).get());
+			else if(type == AttackRSU[].class){
+				AttackRSU[] values = (AttackRSU[])field.get(target);
+				if(values == null) out.writeInt(-1);
+				else {
+					out.writeInt(values.length);
+					for(int i = 0; i < values.length; ++i) values[i].writeCheckpoint(out);
+				}
+			} else if(type == ArrayDeque.class){
+				ArrayDeque<?> values = (ArrayDeque<?>)field.get(target);
+				if(values == null) out.writeInt(-1);
+				else {
+					out.writeInt(values.size());
+					Iterator<?> iterator = values.iterator();
+					Object value;
+					while(iterator.hasNext()){
+						value = iterator.next();
+						if(!(value instanceof Vehicle)) throw new IOException(Messages.getString("Checkpoint.unknownObject") + value.getClass().getName()); //$NON-NLS-1$
+						out.writeVehicle((Vehicle)value);
+					}
+				}
+			} else throw new IOException(Messages.getString("Checkpoint.unknownObject") + field.getDeclaringClass().getName() + "." + field.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IllegalAccessException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads the value of a variable of a slot written with {@link #writeValue(CheckpointWriter, Field, Object)}.
+	 *
+	 * @param in		the checkpoint
+	 * @param field		the variable
+	 * @param target	the object holding the variable
+	 *
+	 * @throws IOException if the value could not be read
+	 */
+	private static void readValue(CheckpointReader in, Field field, Object target) throws IOException{
+		Class<?> type = field.getType();
+		try{
+			if(type == int.class) field.setInt(target, in.readInt());
+			else if(type == long.class) field.setLong(target, in.readLong());
+			else if(type == double.class) field.setDouble(target, in.readDouble());
+			else if(type == boolean.class) field.setBoolean(target, in.readBoolean());
+			else if(type == String.class) field.set(target, in.readString());
+			else if(type == String[].class) field.set(target, in.readStrings());
+			else if(type == int[].class) field.set(target, in.readInts());
+			else if(type == Vehicle.class) field.set(target, in.readVehicle());
+			else if(type == RSU.class) field.set(target, in.readRSU());
+			else if(type == AtomicInteger.class) ((AtomicInteger)field.get(target)).set(in.readInt());
+			else if(type == AtomicLong.class) ((AtomicLong)field.get(target)).set(in.readLong());
+			else if(type == AttackRSU[].class){
+				int count = in.readInt();
+				AttackRSU[] values = null;
+				if(count > -1){
+					values = new AttackRSU[count];
+					for(int i = 0; i < count; ++i) values[i] = new AttackRSU(in);
+				}
+				field.set(target, values);
+			} else if(type == ArrayDeque.class){
+				int count = in.readInt();
+				ArrayDeque<Vehicle> values = null;
+				if(count > -1){
+					values = new ArrayDeque<Vehicle>(Math.max(count, 2));
+					for(int i = 0; i < count; ++i) values.add(in.readVehicle());
+				}
+				field.set(target, values);
+			} else throw new IOException(Messages.getString("Checkpoint.unknownObject") + field.getDeclaringClass().getName() + "." + field.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IllegalAccessException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Checks if an instance variable is part of the simulation state and makes it accessible.
+	 *
+	 * @param field		the variable
+	 *
+	 * @return <code>true</code> if the variable needs to be saved and restored
+	 */
+	private static boolean isState(Field field){
+		int modifiers = field.getModifiers();
+		if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) return false;
+		field.setAccessible(true);
+		return true;
+	}
+}
@@ -0,0 +1,605 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import vanetsim.localization.Messages;
+import vanetsim.map.Node;
+import vanetsim.map.Region;
+import vanetsim.map.Street;
+import vanetsim.scenario.LaneObject;
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+import vanetsim.scenario.events.BlockingObject;
+import vanetsim.scenario.messages.Message;
+import vanetsim.scenario.messages.PenaltyMessage;
+
+/**
+ * Reads a state written by a {@link CheckpointWriter}. References to objects of the map are resolved on the current map,
+ * references to vehicles on the vehicles created while reading (see {@link #addVehicle(Vehicle)}). All reading methods
+ * throw an <code>IOException</code> if the data ends too early or refers to an object which does not exist.
+ */
+public final class CheckpointReader {
+
+	/** The data. */
+	private final ByteBuffer buffer_;
+
+	/** The regions of the map. */
+	private final Region[][] regions_;
+
+	/** The nodes of the map by their ID. */
+	private final Node[] nodes_;
+
+	/** The vehicles read so far by their index. */
+	private Vehicle[] vehicles_ = new Vehicle[64];
+
+	/** The amount of vehicles read so far. */
+	private int vehicleCount_ = 0;
+
+	/** The messages read so far by their number. */
+	private Message[] messages_ = new Message[64];
+
+	/** The amount of messages read so far. */
+	private int messageCount_ = 0;
+
+	/** The blocking objects read so far by their number. */
+	private final ArrayList<BlockingObject> blockingObjects_ = new ArrayList<BlockingObject>();
+
+	/**
+	 * Creates a new reader.
+	 *
+	 * @param data		the data as returned by {@link CheckpointWriter#toByteArray()}
+	 * @param regions	the regions of the map on which the state is restored
+	 */
+	public CheckpointReader(byte[] data, Region[][] regions){
+		buffer_ = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		regions_ = regions;
+		int maxID = -1;
+		Node[] nodes;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				for(int k = 0; k < nodes.length; ++k){
+					if(nodes[k].getNodeID() > maxID) maxID = nodes[k].getNodeID();
+				}
+			}
+		}
+		nodes_ = new Node[maxID + 1];
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				nodes = regions[i][j].getNodes();
+				for(int k = 0; k < nodes.length; ++k) nodes_[nodes[k].getNodeID()] = nodes[k];
+			}
+		}
+	}
+
+	/**
+	 * Creates the exception for data which does not fit.
+	 *
+	 * @param what	a description of the problem
+	 *
+	 * @return the exception
+	 */
+	private static IOException invalid(String what){
+		return new IOException(Messages.getString("Checkpoint.wrongFormat") + what); //$NON-NLS-1$
+	}
+
+	/**
+	 * Checks if all data has been read.
+	 *
+	 * @return <code>true</code> if the end has been reached
+	 */
+	public boolean isAtEnd(){
+		return !buffer_.hasRemaining();
+	}
+
+	/**
+	 * Reads an integer.
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public int readInt() throws IOException{
+		try{
+			return buffer_.getInt();
+		} catch (BufferUnderflowException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads a long.
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public long readLong() throws IOException{
+		try{
+			return buffer_.getLong();
+		} catch (BufferUnderflowException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads a double.
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public double readDouble() throws IOException{
+		try{
+			return buffer_.getDouble();
+		} catch (BufferUnderflowException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads a byte.
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public byte readByte() throws IOException{
+		try{
+			return buffer_.get();
+		} catch (BufferUnderflowException e){
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads a boolean.
+	 *
+	 * @return the value
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public boolean readBoolean() throws IOException{
+		return readByte() != 0;
+	}
+
+	/**
+	 * Reads a <code>Boolean</code> object.
+	 *
+	 * @return the value or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public Boolean readBooleanObject() throws IOException{
+		byte value = readByte();
+		if(value == -1) return null;
+		else return Boolean.valueOf(value != 0);
+	}
+
+	/**
+	 * Reads a string. The string is interned as most strings in checkpoints are type names (penalty types, rules...) of
+	 * which a simulation only has a few.
+	 *
+	 * @return the string or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public String readString() throws IOException{
+		int length = readInt();
+		if(length == -1) return null;
+		if(length < 0 || length * 2 > buffer_.remaining()) throw invalid("string"); //$NON-NLS-1$
+		char[] chars = new char[length];
+		for(int i = 0; i < length; ++i) chars[i] = buffer_.getChar();
+		return new String(chars).intern();
+	}
+
+	/**
+	 * Reads a color.
+	 *
+	 * @return the color or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public Color readColor() throws IOException{
+		if(readBoolean()) return new Color(readInt(), true);
+		else return null;
+	}
+
+	/**
+	 * Reads the length of an array.
+	 *
+	 * @return the length or <code>-1</code> for <code>null</code>
+	 *
+	 * @throws IOException if the data ends or the length is invalid
+	 */
+	private int readLength() throws IOException{
+		int length = readInt();
+		if(length < -1) throw invalid("array"); //$NON-NLS-1$
+		return length;
+	}
+
+	/**
+	 * Reads the amount of used elements of an array.
+	 *
+	 * @param length	the length of the array
+	 * @param size		the minimum size of one element in bytes
+	 *
+	 * @return the amount
+	 *
+	 * @throws IOException if the data ends or the amount is invalid
+	 */
+	private int readCount(int length, int size) throws IOException{
+		int count = readInt();
+		if(count < 0 || count > length || (long)count * size > buffer_.remaining()) throw invalid("array"); //$NON-NLS-1$
+		return count;
+	}
+
+	/**
+	 * Reads an array of integers written with {@link CheckpointWriter#writeInts(int[], int)}. Unused elements are
+	 * <code>0</code>.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public int[] readInts() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		int[] values = new int[length];
+		if(count < CheckpointWriter.BULK_COPY_THRESHOLD){
+			for(int i = 0; i < count; ++i) values[i] = buffer_.getInt();
+		} else {
+			buffer_.asIntBuffer().get(values, 0, count);
+			buffer_.position(buffer_.position() + 4 * count);
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array of longs written with {@link CheckpointWriter#writeLongs(long[], int)}.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public long[] readLongs() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 8);
+		long[] values = new long[length];
+		if(count < CheckpointWriter.BULK_COPY_THRESHOLD){
+			for(int i = 0; i < count; ++i) values[i] = buffer_.getLong();
+		} else {
+			buffer_.asLongBuffer().get(values, 0, count);
+			buffer_.position(buffer_.position() + 8 * count);
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array of doubles.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public double[] readDoubles() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 8);
+		double[] values = new double[length];
+		if(count < CheckpointWriter.BULK_COPY_THRESHOLD){
+			for(int i = 0; i < count; ++i) values[i] = buffer_.getDouble();
+		} else {
+			buffer_.asDoubleBuffer().get(values, 0, count);
+			buffer_.position(buffer_.position() + 8 * count);
+		}
+		return values;
+	}
+
+	/**
+	 * Reads an array of booleans.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public boolean[] readBooleans() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 1);
+		boolean[] values = new boolean[length];
+		for(int i = 0; i < count; ++i) values[i] = buffer_.get() != 0;
+		return values;
+	}
+
+	/**
+	 * Reads an array of bytes.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public byte[] readBytes() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 1);
+		byte[] values = new byte[length];
+		buffer_.get(values, 0, count);
+		return values;
+	}
+
+	/**
+	 * Reads an array of strings.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public String[] readStrings() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		String[] values = new String[length];
+		for(int i = 0; i < count; ++i) values[i] = readString();
+		return values;
+	}
+
+	/**
+	 * Reads a two-dimensional array of integers.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if the data ends
+	 */
+	public int[][] readIntArrays() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		int[][] values = new int[length][];
+		for(int i = 0; i < count; ++i) values[i] = readInts();
+		return values;
+	}
+
+	/**
+	 * Adds a vehicle which has been read. Vehicles need to be added in the order of their index.
+	 *
+	 * @param vehicle	the vehicle
+	 *
+	 * @return the index of the vehicle
+	 */
+	public int addVehicle(Vehicle vehicle){
+		if(vehicleCount_ == vehicles_.length){
+			Vehicle[] newVehicles = new Vehicle[vehicles_.length * 2];
+			System.arraycopy(vehicles_, 0, newVehicles, 0, vehicleCount_);
+			vehicles_ = newVehicles;
+		}
+		vehicles_[vehicleCount_] = vehicle;
+		return vehicleCount_++;
+	}
+
+	/**
+	 * Gets all vehicles read so far. The array may be larger than the amount of vehicles.
+	 *
+	 * @return the vehicles by their index
+	 */
+	public Vehicle[] getVehicles(){
+		return vehicles_;
+	}
+
+	/**
+	 * Gets the amount of vehicles read so far.
+	 *
+	 * @return the amount
+	 */
+	public int getVehicleCount(){
+		return vehicleCount_;
+	}
+
+	/**
+	 * Gets a vehicle by its index.
+	 *
+	 * @param index	the index
+	 *
+	 * @return the vehicle or <code>null</code> if the index is <code>-1</code>
+	 *
+	 * @throws IOException if the vehicle has not been read
+	 */
+	private Vehicle getVehicle(int index) throws IOException{
+		if(index == -1) return null;
+		if(index < 0 || index >= vehicleCount_) throw invalid("vehicle " + index); //$NON-NLS-1$
+		return vehicles_[index];
+	}
+
+	/**
+	 * Reads a reference to a vehicle.
+	 *
+	 * @return the vehicle or <code>null</code>
+	 *
+	 * @throws IOException if the vehicle has not been read
+	 */
+	public Vehicle readVehicle() throws IOException{
+		return getVehicle(readInt());
+	}
+
+	/**
+	 * Reads an array of vehicles.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if a vehicle has not been read
+	 */
+	public Vehicle[] readVehicles() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		Vehicle[] vehicles = new Vehicle[length];
+		for(int i = 0; i < count; ++i) vehicles[i] = getVehicle(buffer_.getInt());
+		return vehicles;
+	}
+
+	/**
+	 * Reads a reference to a node.
+	 *
+	 * @return the node or <code>null</code>
+	 *
+	 * @throws IOException if the node does not exist
+	 */
+	public Node readNode() throws IOException{
+		int id = readInt();
+		if(id == -1) return null;
+		if(id < 0 || id >= nodes_.length || nodes_[id] == null) throw invalid("node " + id); //$NON-NLS-1$
+		return nodes_[id];
+	}
+
+	/**
+	 * Reads a reference to a street.
+	 *
+	 * @return the street or <code>null</code>
+	 *
+	 * @throws IOException if the street does not exist
+	 */
+	public Street readStreet() throws IOException{
+		Node node = readNode();
+		if(node == null) return null;
+		int slot = readInt();
+		Street[] streets = node.getCrossingStreets();
+		if(slot < 0 || slot >= streets.length) throw invalid("street " + node.getNodeID() + "/" + slot); //$NON-NLS-1$ //$NON-NLS-2$
+		return streets[slot];
+	}
+
+	/**
+	 * Reads an array of streets.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if a street does not exist
+	 */
+	public Street[] readStreets() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		Street[] streets = new Street[length];
+		for(int i = 0; i < count; ++i) streets[i] = readStreet();
+		return streets;
+	}
+
+	/**
+	 * Reads a reference to a region.
+	 *
+	 * @return the region or <code>null</code>
+	 *
+	 * @throws IOException if the region does not exist
+	 */
+	public Region readRegion() throws IOException{
+		int x = readInt();
+		if(x == -1) return null;
+		int y = readInt();
+		if(x < 0 || x >= regions_.length || y < 0 || y >= regions_[x].length) throw invalid("region " + x + "/" + y); //$NON-NLS-1$ //$NON-NLS-2$
+		return regions_[x][y];
+	}
+
+	/**
+	 * Reads a reference to an RSU.
+	 *
+	 * @return the RSU or <code>null</code>
+	 *
+	 * @throws IOException if the RSU does not exist
+	 */
+	public RSU readRSU() throws IOException{
+		Region region = readRegion();
+		if(region == null) return null;
+		int slot = readInt();
+		RSU[] rsus = region.getRSUs();
+		if(slot < 0 || slot >= rsus.length) throw invalid("RSU " + slot); //$NON-NLS-1$
+		return rsus[slot];
+	}
+
+	/**
+	 * Reads a message.
+	 *
+	 * @return the message or <code>null</code>
+	 *
+	 * @throws IOException if the message could not be read
+	 */
+	public Message readMessage() throws IOException{
+		int number = readInt();
+		if(number == -1) return null;
+		if(number == -2){
+			Message message = new PenaltyMessage(this);
+			if(messageCount_ == messages_.length){
+				Message[] newMessages = new Message[messages_.length * 2];
+				System.arraycopy(messages_, 0, newMessages, 0, messageCount_);
+				messages_ = newMessages;
+			}
+			messages_[messageCount_] = message;
+			++messageCount_;
+			return message;
+		}
+		if(number < 0 || number >= messageCount_) throw invalid("message " + number); //$NON-NLS-1$
+		return messages_[number];
+	}
+
+	/**
+	 * Reads an array of messages.
+	 *
+	 * @return the array or <code>null</code>
+	 *
+	 * @throws IOException if a message could not be read
+	 */
+	public Message[] readMessages() throws IOException{
+		int length = readLength();
+		if(length == -1) return null;
+		int count = readCount(length, 4);
+		Message[] messages = new Message[length];
+		for(int i = 0; i < count; ++i) messages[i] = readMessage();
+		return messages;
+	}
+
+	/**
+	 * Adds a blocking object which has been read. Blocking objects need to be added in the same order as they were written.
+	 *
+	 * @param object	the blocking object
+	 */
+	public void addBlockingObject(BlockingObject object){
+		blockingObjects_.add(object);
+	}
+
+	/**
+	 * Reads a reference to an object on a lane.
+	 *
+	 * @return the object or <code>null</code>
+	 *
+	 * @throws IOException if the object has not been read
+	 */
+	public LaneObject readLaneObject() throws IOException{
+		int number = readInt();
+		if(number > -2) return getVehicle(number);
+		number = -2 - number;
+		if(number >= blockingObjects_.size()) throw invalid("blocking " + number); //$NON-NLS-1$
+		return blockingObjects_.get(number);
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * Marks the variables a class keeps in a slot of the {@link SimulationContext} as part of the simulation state. All
+ * non-static fields of such an object are written to a {@link Checkpoint} by their name and restored by the same name.
+ * Fields which only hold caches or references to the map are declared <code>transient</code> and skipped. Slots holding
+ * other objects are either written separately (like the event list) or not part of a checkpoint at all.
+ */
+public interface CheckpointState {
+}
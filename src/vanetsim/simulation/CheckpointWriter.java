@@ -0,0 +1,583 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import vanetsim.localization.Messages;
+import vanetsim.map.Node;
+import vanetsim.map.Region;
+import vanetsim.map.Street;
+import vanetsim.scenario.LaneObject;
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+import vanetsim.scenario.events.BlockingObject;
+import vanetsim.scenario.messages.Message;
+import vanetsim.scenario.messages.PenaltyMessage;
+
+/**
+ * Writes the state of a simulation into a growing buffer in memory (see {@link Checkpoint}). Only primitive values are
+ * written: objects of the map are written as the ID of a node (streets as the start node and their position in the crossing
+ * streets of this node), vehicles as their index in the vehicle table. Messages are written completely where they occur
+ * first and as a number afterwards, so that messages known by several vehicles are still shared after restoring.
+ * <br><br>
+ * All arrays are written with their length and the amount of used elements so that they grow exactly the same way after
+ * restoring. The values are written in little-endian order, the native order of common processors, so that arrays are
+ * copied without swapping bytes. A writer is not thread-safe.
+ */
+public final class CheckpointWriter {
+
+	/** Arrays with at least this many elements are copied in bulk. Shorter ones (like saved beacons) are written value by value as creating the view costs more. */
+	static final int BULK_COPY_THRESHOLD = 64;
+
+	/** The buffer. */
+	private ByteBuffer buffer_;
+
+	/** The sequence numbers of the messages written so far (open addressing with linear probing). */
+	private long[] messageSequences_ = new long[1024];
+
+	/** The numbers of the messages written so far. <code>-1</code> marks an empty slot. */
+	private int[] messageNumbers_ = new int[1024];
+
+	/** The amount of messages written so far. */
+	private int messageCount_ = 0;
+
+	/** The numbers of the blocking objects on the streets. */
+	private final IdentityHashMap<BlockingObject, Integer> blockingObjects_ = new IdentityHashMap<BlockingObject, Integer>();
+
+	/**
+	 * Creates a new writer.
+	 *
+	 * @param capacity	the initial size of the buffer in bytes
+	 */
+	public CheckpointWriter(int capacity){
+		buffer_ = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+		Arrays.fill(messageNumbers_, -1);
+	}
+
+	/**
+	 * Makes sure that the buffer has space for some more bytes.
+	 *
+	 * @param bytes	the amount of bytes which shall be written
+	 */
+	private void ensure(int bytes){
+		if(buffer_.remaining() < bytes){
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer_.capacity() * 2, buffer_.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+			buffer_.flip();
+			newBuffer.put(buffer_);
+			buffer_ = newBuffer;
+		}
+	}
+
+	/**
+	 * Empties the writer so that it can be used for the next checkpoint. The buffer is kept, so writing a state of about
+	 * the same size again does not allocate anything.
+	 */
+	public void reset(){
+		buffer_.clear();
+		Arrays.fill(messageNumbers_, -1);
+		messageCount_ = 0;
+		blockingObjects_.clear();
+	}
+
+	/**
+	 * Gets a copy of everything written so far.
+	 *
+	 * @return the bytes
+	 */
+	public byte[] toByteArray(){
+		return Arrays.copyOf(buffer_.array(), buffer_.position());
+	}
+
+	/**
+	 * Gets the buffer itself. Only the first {@link #size()} bytes are valid and the buffer is replaced when it grows, so
+	 * this may only be used until the next write.
+	 *
+	 * @return the buffer
+	 */
+	public byte[] getBuffer(){
+		return buffer_.array();
+	}
+
+	/**
+	 * Gets the amount of bytes written so far.
+	 *
+	 * @return the amount of bytes
+	 */
+	public int size(){
+		return buffer_.position();
+	}
+
+	/**
+	 * Writes an integer.
+	 *
+	 * @param value	the value
+	 */
+	public void writeInt(int value){
+		ensure(4);
+		buffer_.putInt(value);
+	}
+
+	/**
+	 * Writes a long.
+	 *
+	 * @param value	the value
+	 */
+	public void writeLong(long value){
+		ensure(8);
+		buffer_.putLong(value);
+	}
+
+	/**
+	 * Writes a double. The exact bits are kept.
+	 *
+	 * @param value	the value
+	 */
+	public void writeDouble(double value){
+		ensure(8);
+		buffer_.putDouble(value);
+	}
+
+	/**
+	 * Writes a boolean.
+	 *
+	 * @param value	the value
+	 */
+	public void writeBoolean(boolean value){
+		ensure(1);
+		buffer_.put(value ? (byte)1 : (byte)0);
+	}
+
+	/**
+	 * Writes a byte.
+	 *
+	 * @param value	the value
+	 */
+	public void writeByte(int value){
+		ensure(1);
+		buffer_.put((byte)value);
+	}
+
+	/**
+	 * Writes a <code>Boolean</code> object which might be <code>null</code>.
+	 *
+	 * @param value	the value
+	 */
+	public void writeBooleanObject(Boolean value){
+		if(value == null) writeByte(-1);
+		else writeBoolean(value.booleanValue());
+	}
+
+	/**
+	 * Writes a string which might be <code>null</code>.
+	 *
+	 * @param value	the value
+	 */
+	public void writeString(String value){
+		if(value == null) writeInt(-1);
+		else {
+			int length = value.length();
+			ensure(4 + 2 * length);
+			buffer_.putInt(length);
+			for(int i = 0; i < length; ++i) buffer_.putChar(value.charAt(i));
+		}
+	}
+
+	/**
+	 * Writes a color which might be <code>null</code>.
+	 *
+	 * @param value	the color
+	 */
+	public void writeColor(Color value){
+		writeBoolean(value != null);
+		if(value != null) writeInt(value.getRGB());
+	}
+
+	/**
+	 * Writes the length of an array and the amount of elements which follow. <code>null</code> is written as length
+	 * <code>-1</code>.
+	 *
+	 * @param length	the length of the array or <code>-1</code>
+	 * @param count		the amount of elements which are written
+	 * @param size		the size of one element in bytes
+	 */
+	private void writeArrayHeader(int length, int count, int size){
+		ensure(8 + count * size);
+		buffer_.putInt(length);
+		if(length > -1) buffer_.putInt(count);
+	}
+
+	/**
+	 * Writes an array of integers which might be <code>null</code>.
+	 *
+	 * @param values	the array
+	 */
+	public void writeInts(int[] values){
+		writeInts(values, values == null ? 0 : values.length);
+	}
+
+	/**
+	 * Writes an array of integers of which only the first elements are used.
+	 *
+	 * @param values	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 */
+	public void writeInts(int[] values, int count){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, count, 4);
+			if(count < BULK_COPY_THRESHOLD){
+				for(int i = 0; i < count; ++i) buffer_.putInt(values[i]);
+			} else {
+				buffer_.asIntBuffer().put(values, 0, count);
+				buffer_.position(buffer_.position() + 4 * count);
+			}
+		}
+	}
+
+	/**
+	 * Writes an array of longs of which only the first elements are used.
+	 *
+	 * @param values	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 */
+	public void writeLongs(long[] values, int count){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, count, 8);
+			if(count < BULK_COPY_THRESHOLD){
+				for(int i = 0; i < count; ++i) buffer_.putLong(values[i]);
+			} else {
+				buffer_.asLongBuffer().put(values, 0, count);
+				buffer_.position(buffer_.position() + 8 * count);
+			}
+		}
+	}
+
+	/**
+	 * Writes an array of doubles which might be <code>null</code>.
+	 *
+	 * @param values	the array
+	 */
+	public void writeDoubles(double[] values){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, values.length, 8);
+			if(values.length < BULK_COPY_THRESHOLD){
+				for(int i = 0; i < values.length; ++i) buffer_.putDouble(values[i]);
+			} else {
+				buffer_.asDoubleBuffer().put(values);
+				buffer_.position(buffer_.position() + 8 * values.length);
+			}
+		}
+	}
+
+	/**
+	 * Writes an array of booleans which might be <code>null</code>.
+	 *
+	 * @param values	the array
+	 */
+	public void writeBooleans(boolean[] values){
+		writeBooleans(values, values == null ? 0 : values.length);
+	}
+
+	/**
+	 * Writes an array of booleans of which only the first elements are used.
+	 *
+	 * @param values	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 */
+	public void writeBooleans(boolean[] values, int count){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, count, 1);
+			for(int i = 0; i < count; ++i) buffer_.put(values[i] ? (byte)1 : (byte)0);
+		}
+	}
+
+	/**
+	 * Writes an array of bytes which might be <code>null</code>.
+	 *
+	 * @param values	the array
+	 */
+	public void writeBytes(byte[] values){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, values.length, 1);
+			buffer_.put(values);
+		}
+	}
+
+	/**
+	 * Writes an array of strings of which only the first elements are used.
+	 *
+	 * @param values	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 */
+	public void writeStrings(String[] values, int count){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, count, 0);
+			for(int i = 0; i < count; ++i) writeString(values[i]);
+		}
+	}
+
+	/**
+	 * Writes a two-dimensional array of integers which might be <code>null</code>.
+	 *
+	 * @param values	the array
+	 */
+	public void writeIntArrays(int[][] values){
+		if(values == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(values.length, values.length, 0);
+			for(int i = 0; i < values.length; ++i) writeInts(values[i]);
+		}
+	}
+
+	/**
+	 * Writes a reference to a vehicle.
+	 *
+	 * @param vehicle	the vehicle (might be <code>null</code>)
+	 */
+	public void writeVehicle(Vehicle vehicle){
+		writeInt(vehicle == null ? -1 : vehicle.getIndex());
+	}
+
+	/**
+	 * Writes an array of vehicles of which only the first elements are used.
+	 *
+	 * @param vehicles	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 */
+	public void writeVehicles(Vehicle[] vehicles, int count){
+		if(vehicles == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(vehicles.length, count, 4);
+			for(int i = 0; i < count; ++i) buffer_.putInt(vehicles[i] == null ? -1 : vehicles[i].getIndex());
+		}
+	}
+
+	/**
+	 * Writes a reference to a node.
+	 *
+	 * @param node	the node (might be <code>null</code>)
+	 */
+	public void writeNode(Node node){
+		writeInt(node == null ? -1 : node.getNodeID());
+	}
+
+	/**
+	 * Writes a reference to a street.
+	 *
+	 * @param street	the street (might be <code>null</code>)
+	 *
+	 * @throws IOException if the street is not connected to its start node
+	 */
+	public void writeStreet(Street street) throws IOException{
+		if(street == null) writeInt(-1);
+		else {
+			Node node = street.getStartNode();
+			Street[] streets = node.getCrossingStreets();
+			for(int i = 0; i < streets.length; ++i){
+				if(streets[i] == street){
+					ensure(8);
+					buffer_.putInt(node.getNodeID());
+					buffer_.putInt(i);
+					return;
+				}
+			}
+			throw new IOException(Messages.getString("Checkpoint.unknownObject") + street.getName()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes an array of streets which might be <code>null</code>.
+	 *
+	 * @param streets	the array
+	 *
+	 * @throws IOException if a street is not connected to its start node
+	 */
+	public void writeStreets(Street[] streets) throws IOException{
+		writeStreets(streets, streets == null ? 0 : streets.length);
+	}
+
+	/**
+	 * Writes an array of streets of which only the first elements are used.
+	 *
+	 * @param streets	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 *
+	 * @throws IOException if a street is not connected to its start node
+	 */
+	public void writeStreets(Street[] streets, int count) throws IOException{
+		if(streets == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(streets.length, count, 0);
+			for(int i = 0; i < count; ++i) writeStreet(streets[i]);
+		}
+	}
+
+	/**
+	 * Writes a reference to a region.
+	 *
+	 * @param region	the region (might be <code>null</code>)
+	 */
+	public void writeRegion(Region region){
+		if(region == null) writeInt(-1);
+		else {
+			ensure(8);
+			buffer_.putInt(region.getX());
+			buffer_.putInt(region.getY());
+		}
+	}
+
+	/**
+	 * Writes a reference to an RSU.
+	 *
+	 * @param rsu	the RSU (might be <code>null</code>)
+	 *
+	 * @throws IOException if the RSU is not in its region
+	 */
+	public void writeRSU(RSU rsu) throws IOException{
+		if(rsu == null) writeInt(-1);
+		else {
+			RSU[] rsus = rsu.getRegion().getRSUs();
+			for(int i = 0; i < rsus.length; ++i){
+				if(rsus[i] == rsu){
+					writeRegion(rsu.getRegion());
+					writeInt(i);
+					return;
+				}
+			}
+			throw new IOException(Messages.getString("Checkpoint.unknownObject") + rsu.getRSUID()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes a message. The complete message is only written the first time, afterwards only its number.
+	 *
+	 * @param message	the message (might be <code>null</code>)
+	 *
+	 * @throws IOException if the type of the message is not supported
+	 */
+	public void writeMessage(Message message) throws IOException{
+		if(message == null){
+			writeInt(-1);
+			return;
+		}
+		long sequence = message.getSequenceNumber();
+		int mask = messageNumbers_.length - 1;
+		int i = getSlot(sequence, mask);
+		while(messageNumbers_[i] != -1){
+			if(messageSequences_[i] == sequence){
+				writeInt(messageNumbers_[i]);
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		if(message.getClass() != PenaltyMessage.class) throw new IOException(Messages.getString("Checkpoint.unknownObject") + message.getClass().getName()); //$NON-NLS-1$
+		messageSequences_[i] = sequence;
+		messageNumbers_[i] = messageCount_;
+		++messageCount_;
+		writeInt(-2);
+		message.writeCheckpoint(this);
+		if(messageCount_ * 2 > messageNumbers_.length) growMessages();
+	}
+
+	/**
+	 * Writes an array of messages of which only the first elements are used.
+	 *
+	 * @param messages	the array (might be <code>null</code>)
+	 * @param count		the amount of used elements
+	 *
+	 * @throws IOException if the type of a message is not supported
+	 */
+	public void writeMessages(Message[] messages, int count) throws IOException{
+		if(messages == null) writeArrayHeader(-1, 0, 0);
+		else {
+			writeArrayHeader(messages.length, count, 0);
+			for(int i = 0; i < count; ++i) writeMessage(messages[i]);
+		}
+	}
+
+	/**
+	 * Doubles the size of the hash table with the written messages.
+	 */
+	private void growMessages(){
+		long[] oldSequences = messageSequences_;
+		int[] oldNumbers = messageNumbers_;
+		messageSequences_ = new long[oldNumbers.length * 2];
+		messageNumbers_ = new int[oldNumbers.length * 2];
+		Arrays.fill(messageNumbers_, -1);
+		int mask = messageNumbers_.length - 1, slot;
+		for(int i = 0; i < oldNumbers.length; ++i){
+			if(oldNumbers[i] != -1){
+				slot = getSlot(oldSequences[i], mask);
+				while(messageNumbers_[slot] != -1) slot = (slot + 1) & mask;
+				messageSequences_[slot] = oldSequences[i];
+				messageNumbers_[slot] = oldNumbers[i];
+			}
+		}
+	}
+
+	/**
+	 * Gets the home slot of a sequence number in the hash table with the written messages.
+	 *
+	 * @param sequence	the sequence number of the message
+	 * @param mask		the size of the hash table minus one
+	 *
+	 * @return the slot
+	 */
+	private static int getSlot(long sequence, int mask){
+		int hash = (int)(sequence ^ (sequence >>> 32)) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * Assigns the next number to a blocking object. The object needs to be written completely afterwards. References to it
+	 * (see {@link #writeLaneObject(LaneObject)}) may only be written after this.
+	 *
+	 * @param object	the blocking object
+	 */
+	public void addBlockingObject(BlockingObject object){
+		blockingObjects_.put(object, Integer.valueOf(blockingObjects_.size()));
+	}
+
+	/**
+	 * Writes a reference to an object on a lane (a vehicle or a blocking object).
+	 *
+	 * @param object	the object (might be <code>null</code>)
+	 *
+	 * @throws IOException if the object is neither a vehicle nor a known blocking object
+	 */
+	public void writeLaneObject(LaneObject object) throws IOException{
+		if(object == null) writeInt(-1);
+		else if(object instanceof Vehicle) writeInt(((Vehicle)object).getIndex());
+		else {
+			Integer number = blockingObjects_.get(object);
+			if(number == null) throw new IOException(Messages.getString("Checkpoint.unknownObject") + object.getClass().getName()); //$NON-NLS-1$
+			writeInt(-2 - number.intValue());
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+
+/**
+ * The vehicles and RSUs of one region whose countdown for an action (sending messages or beacons) has expired in the
+ * current step. The list is filled by the worker adjusting the speed of the region so that the later phases only need
+ * to visit the entities which are actually due instead of checking the countdowns of all of them.
+ * <br><br>
+ * The arrays are reused in every step and only grow. A list is only accessed by one worker at a time.
+ */
+public final class DueList {
+
+	/** An empty array of vehicles. */
+	private static final Vehicle[] EMPTY_VEHICLE = new Vehicle[0];
+
+	/** An empty array of RSUs. */
+	private static final RSU[] EMPTY_RSU = new RSU[0];
+
+	/** The vehicles which are due. Only the first <code>vehicleCount_</code> entries are valid. */
+	private Vehicle[] vehicles_ = EMPTY_VEHICLE;
+
+	/** The amount of vehicles which are due. */
+	private int vehicleCount_ = 0;
+
+	/** The RSUs which are due. Only the first <code>rsuCount_</code> entries are valid. */
+	private RSU[] rsus_ = EMPTY_RSU;
+
+	/** The amount of RSUs which are due. */
+	private int rsuCount_ = 0;
+
+	/**
+	 * Removes all entries. The references are not cleared as they are overwritten in the next step.
+	 */
+	public void clear(){
+		vehicleCount_ = 0;
+		rsuCount_ = 0;
+	}
+
+	/**
+	 * Adds a vehicle.
+	 * 
+	 * @param vehicle	the vehicle
+	 */
+	public void addVehicle(Vehicle vehicle){
+		if(vehicleCount_ == vehicles_.length){
+			Vehicle[] newArray = new Vehicle[Math.max(8, vehicles_.length * 2)];
+			System.arraycopy(vehicles_, 0, newArray, 0, vehicleCount_);
+			vehicles_ = newArray;
+		}
+		vehicles_[vehicleCount_++] = vehicle;
+	}
+
+	/**
+	 * Adds an RSU.
+	 * 
+	 * @param rsu	the RSU
+	 */
+	public void addRSU(RSU rsu){
+		if(rsuCount_ == rsus_.length){
+			RSU[] newArray = new RSU[Math.max(4, rsus_.length * 2)];
+			System.arraycopy(rsus_, 0, newArray, 0, rsuCount_);
+			rsus_ = newArray;
+		}
+		rsus_[rsuCount_++] = rsu;
+	}
+
+	/**
+	 * Gets the vehicles which are due. Only the first {@link #getVehicleCount()} entries are valid.
+	 * 
+	 * @return the vehicles
+	 */
+	public Vehicle[] getVehicles(){
+		return vehicles_;
+	}
+
+	/**
+	 * Gets the amount of vehicles which are due.
+	 * 
+	 * @return the amount
+	 */
+	public int getVehicleCount(){
+		return vehicleCount_;
+	}
+
+	/**
+	 * Gets the RSUs which are due. Only the first {@link #getRSUCount()} entries are valid.
+	 * 
+	 * @return the RSUs
+	 */
+	public RSU[] getRSUs(){
+		return rsus_;
+	}
+
+	/**
+	 * Gets the amount of RSUs which are due.
+	 * 
+	 * @return the amount
+	 */
+	public int getRSUCount(){
+		return rsuCount_;
+	}
+}
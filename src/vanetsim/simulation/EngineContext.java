@@ -0,0 +1,184 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import vanetsim.scenario.Vehicle;
+import java.util.function.Supplier;
+
+/**
+ * Holds the state of the simulation engine which is needed by the simulation itself (time, marked vehicles...).
+ * This state was formerly kept in the <code>Renderer</code>. It is kept here so that the simulation does not depend
+ * on any GUI class and a console run never needs to create the <code>Renderer</code> (and thus never touches AWT or Swing).
+ * The <code>Renderer</code> reads and writes these values through this class.
+ */
+public final class EngineContext {
+
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(EngineContext.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all classes of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The time passed since simulation start in milliseconds. */
+		volatile int timePassed_ = 0;
+
+		/** The vehicle marked by the user. */
+		volatile Vehicle markedVehicle_ = null;
+
+		/** The attacker vehicle. */
+		volatile Vehicle attackerVehicle_ = null;
+
+		/** The attacked vehicle. */
+		volatile Vehicle attackedVehicle_ = null;
+
+		/** If mix zones are added automatically to all street corners. */
+		volatile boolean autoAddMixZones_ = false;
+	}
+
+	/** <code>true</code> if the simulator was started from the console (no GUI available). */
+	private static volatile boolean consoleStart_ = false;
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private EngineContext(){
+	}
+
+	/**
+	 * Gets the time passed since simulation start.
+	 * 
+	 * @return the time passed in milliseconds
+	 */
+	public static int getTimePassed(){
+		return state().timePassed_;
+	}
+
+	/**
+	 * Sets the time passed since simulation start.
+	 * 
+	 * @param timePassed the new time in milliseconds
+	 */
+	public static void setTimePassed(int timePassed){
+		state().timePassed_ = timePassed;
+	}
+
+	/**
+	 * Checks if the simulator was started from the console.
+	 * 
+	 * @return <code>true</code> if no GUI is available, else <code>false</code>
+	 */
+	public static boolean isConsoleStart(){
+		return consoleStart_;
+	}
+
+	/**
+	 * Sets if the simulator was started from the console.
+	 * 
+	 * @param consoleStart <code>true</code> if no GUI is available, else <code>false</code>
+	 */
+	public static void setConsoleStart(boolean consoleStart){
+		consoleStart_ = consoleStart;
+	}
+
+	/**
+	 * Gets the vehicle marked by the user.
+	 * 
+	 * @return the marked vehicle or <code>null</code> if no vehicle is marked
+	 */
+	public static Vehicle getMarkedVehicle(){
+		return state().markedVehicle_;
+	}
+
+	/**
+	 * Sets a new marked vehicle.
+	 * 
+	 * @param markedVehicle the vehicle to mark
+	 */
+	public static void setMarkedVehicle(Vehicle markedVehicle){
+		state().markedVehicle_ = markedVehicle;
+	}
+
+	/**
+	 * Gets the attacker vehicle.
+	 * 
+	 * @return the attacker vehicle or <code>null</code> if there is none
+	 */
+	public static Vehicle getAttackerVehicle(){
+		return state().attackerVehicle_;
+	}
+
+	/**
+	 * Sets a new attacker vehicle.
+	 * 
+	 * @param attackerVehicle the attacker vehicle
+	 */
+	public static void setAttackerVehicle(Vehicle attackerVehicle){
+		state().attackerVehicle_ = attackerVehicle;
+	}
+
+	/**
+	 * Gets the attacked vehicle.
+	 * 
+	 * @return the attacked vehicle or <code>null</code> if there is none
+	 */
+	public static Vehicle getAttackedVehicle(){
+		return state().attackedVehicle_;
+	}
+
+	/**
+	 * Sets a new attacked vehicle.
+	 * 
+	 * @param attackedVehicle the attacked vehicle
+	 */
+	public static void setAttackedVehicle(Vehicle attackedVehicle){
+		state().attackedVehicle_ = attackedVehicle;
+	}
+
+	/**
+	 * Gets if mix zones are added automatically on each street corner.
+	 * 
+	 * @return <code>true</code> if mix zones are added automatically
+	 */
+	public static boolean isAutoAddMixZones(){
+		return state().autoAddMixZones_;
+	}
+
+	/**
+	 * If you want to add mix zones to all street corners automatically.
+	 * 
+	 * @param autoAddMixZones <code>true</code> if you want to add mix zones to all street corners automatically else <code>false</code>
+	 */
+	public static void setAutoAddMixZones(boolean autoAddMixZones){
+		state().autoAddMixZones_ = autoAddMixZones;
+	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
+}
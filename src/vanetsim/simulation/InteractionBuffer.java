@@ -0,0 +1,272 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import vanetsim.map.Region;
+import vanetsim.scenario.KnownRSUsList;
+import vanetsim.scenario.KnownVehiclesList;
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+import vanetsim.scenario.messages.Message;
+
+/**
+ * Collects the interactions of the vehicles and RSUs of one region with objects of other regions (received messages and
+ * beacons, vehicles changing their region, recycled vehicles) during a phase of the deterministic mode. The buffers of all
+ * regions are applied by the {@link RegionScheduler} at the end of the phase in a fixed order of the regions. The results
+ * thus don't depend on the order in which the workers process the regions or on the amount of workers.
+ * <br><br>
+ * A buffer is only filled by the worker processing its region. The objects are stored in parallel arrays which are reused
+ * in every phase.
+ */
+public final class InteractionBuffer {
+
+	/** Type of an entry: a vehicle receives a message. */
+	private static final int VEHICLE_MESSAGE = 0;
+
+	/** Type of an entry: an RSU receives a message. */
+	private static final int RSU_MESSAGE = 1;
+
+	/** Type of an entry: a list of known vehicles is updated by a beacon. */
+	private static final int KNOWN_VEHICLE = 2;
+
+	/** Type of an entry: a list of known RSUs is updated by a beacon. */
+	private static final int KNOWN_RSU = 3;
+
+	/** Type of an entry: a vehicle is added to a region. */
+	private static final int REGION_ADD = 4;
+
+	/** Type of an entry: a vehicle is removed from a region. */
+	private static final int REGION_DELETE = 5;
+
+	/** Type of an entry: a vehicle is recycled. */
+	private static final int RESET = 6;
+
+	/** The types of the entries. */
+	private int[] types_ = new int[16];
+
+	/** The objects receiving the interactions. */
+	private Object[] targets_ = new Object[16];
+
+	/** The vehicles or RSUs sending the beacons, the messages or the vehicles changing the region. */
+	private Object[] objects_ = new Object[16];
+
+	/** The IDs of the beacon senders. */
+	private long[] ids_ = new long[16];
+
+	/** The IDs of the beacon sources. */
+	private long[] sourceIDs_ = new long[16];
+
+	/** The x coordinates of the senders. */
+	private int[] xs_ = new int[16];
+
+	/** The y coordinates of the senders. */
+	private int[] ys_ = new int[16];
+
+	/** The speeds of the beacon senders. */
+	private double[] speeds_ = new double[16];
+
+	/** Additional flags (encrypted beacon, beacon from ARSU, check on region add). */
+	private int[] flags_ = new int[16];
+
+	/** The amount of entries. */
+	private int size_ = 0;
+
+	/**
+	 * Adds a new entry and returns its index.
+	 * 
+	 * @param type		the type of the entry
+	 * @param target	the object receiving the interaction
+	 * @param object	the sender or the vehicle
+	 * 
+	 * @return the index of the entry
+	 */
+	private int add(int type, Object target, Object object){
+		if(size_ == types_.length){
+			int length = size_ * 2;
+			int[] newTypes = new int[length];
+			System.arraycopy(types_, 0, newTypes, 0, size_);
+			types_ = newTypes;
+			Object[] newObjects = new Object[length];
+			System.arraycopy(targets_, 0, newObjects, 0, size_);
+			targets_ = newObjects;
+			newObjects = new Object[length];
+			System.arraycopy(objects_, 0, newObjects, 0, size_);
+			objects_ = newObjects;
+			long[] newLongs = new long[length];
+			System.arraycopy(ids_, 0, newLongs, 0, size_);
+			ids_ = newLongs;
+			newLongs = new long[length];
+			System.arraycopy(sourceIDs_, 0, newLongs, 0, size_);
+			sourceIDs_ = newLongs;
+			int[] newInts = new int[length];
+			System.arraycopy(xs_, 0, newInts, 0, size_);
+			xs_ = newInts;
+			newInts = new int[length];
+			System.arraycopy(ys_, 0, newInts, 0, size_);
+			ys_ = newInts;
+			double[] newDoubles = new double[length];
+			System.arraycopy(speeds_, 0, newDoubles, 0, size_);
+			speeds_ = newDoubles;
+			newInts = new int[length];
+			System.arraycopy(flags_, 0, newInts, 0, size_);
+			flags_ = newInts;
+		}
+		types_[size_] = type;
+		targets_[size_] = target;
+		objects_[size_] = object;
+		return size_++;
+	}
+
+	/**
+	 * Defers receiving a message by a vehicle. The message is retained until the buffer is applied (see {@link Message#retain()}).
+	 * 
+	 * @param vehicle	the receiving vehicle
+	 * @param sourceX	the x coordinate of the sender
+	 * @param sourceY	the y coordinate of the sender
+	 * @param message	the message
+	 */
+	public void addMessage(Vehicle vehicle, int sourceX, int sourceY, Message message){
+		message.retain();
+		int i = add(VEHICLE_MESSAGE, vehicle, message);
+		xs_[i] = sourceX;
+		ys_[i] = sourceY;
+	}
+
+	/**
+	 * Defers receiving a message by an RSU. The message is retained until the buffer is applied (see {@link Message#retain()}).
+	 * 
+	 * @param rsu		the receiving RSU
+	 * @param sourceX	the x coordinate of the sender
+	 * @param sourceY	the y coordinate of the sender
+	 * @param message	the message
+	 */
+	public void addMessage(RSU rsu, int sourceX, int sourceY, Message message){
+		message.retain();
+		int i = add(RSU_MESSAGE, rsu, message);
+		xs_[i] = sourceX;
+		ys_[i] = sourceY;
+	}
+
+	/**
+	 * Defers an update of a list of known vehicles. See {@link KnownVehiclesList#updateVehicle(Vehicle, long, int, int, double, long, boolean, boolean)}.
+	 * 
+	 * @param list			the list
+	 * @param vehicle		the vehicle sending the beacon
+	 * @param ID			the ID of the vehicle
+	 * @param x				the x coordinate
+	 * @param y				the y coordinate
+	 * @param speed			the speed
+	 * @param sourceID		ID of the source
+	 * @param isEncrypted	if the beacon was encrypted
+	 * @param isARSU		if the beacon was sent from an ARSU
+	 */
+	public void addKnownVehicle(KnownVehiclesList list, Vehicle vehicle, long ID, int x, int y, double speed, long sourceID, boolean isEncrypted, boolean isARSU){
+		int i = add(KNOWN_VEHICLE, list, vehicle);
+		ids_[i] = ID;
+		xs_[i] = x;
+		ys_[i] = y;
+		speeds_[i] = speed;
+		sourceIDs_[i] = sourceID;
+		flags_[i] = (isEncrypted ? 1 : 0) | (isARSU ? 2 : 0);
+	}
+
+	/**
+	 * Defers an update of a list of known RSUs. See {@link KnownRSUsList#updateRSU(RSU, long, int, int, boolean)}.
+	 * 
+	 * @param list			the list
+	 * @param rsu			the RSU sending the beacon
+	 * @param ID			the ID of the RSU
+	 * @param x				the x coordinate
+	 * @param y				the y coordinate
+	 * @param isEncrypted	if the beacon was encrypted
+	 */
+	public void addKnownRSU(KnownRSUsList list, RSU rsu, long ID, int x, int y, boolean isEncrypted){
+		int i = add(KNOWN_RSU, list, rsu);
+		ids_[i] = ID;
+		xs_[i] = x;
+		ys_[i] = y;
+		flags_[i] = isEncrypted ? 1 : 0;
+	}
+
+	/**
+	 * Defers adding a vehicle to a region.
+	 * 
+	 * @param region	the region
+	 * @param vehicle	the vehicle
+	 * @param doCheck	<code>true</code> if it shall be checked if the vehicle already exists in the region
+	 */
+	public void addRegionAdd(Region region, Vehicle vehicle, boolean doCheck){
+		int i = add(REGION_ADD, region, vehicle);
+		flags_[i] = doCheck ? 1 : 0;
+	}
+
+	/**
+	 * Defers removing a vehicle from a region.
+	 * 
+	 * @param region	the region
+	 * @param vehicle	the vehicle
+	 */
+	public void addRegionDelete(Region region, Vehicle vehicle){
+		add(REGION_DELETE, region, vehicle);
+	}
+
+	/**
+	 * Defers recycling a vehicle.
+	 * 
+	 * @param vehicle	the vehicle
+	 */
+	public void addReset(Vehicle vehicle){
+		add(RESET, vehicle, null);
+	}
+
+	/**
+	 * Checks if this buffer contains entries.
+	 * 
+	 * @return <code>true</code> if there are no entries, else <code>false</code>
+	 */
+	public boolean isEmpty(){
+		return size_ == 0;
+	}
+
+	/**
+	 * Applies all entries in the order they were added and clears the buffer. Must not be called by a thread which
+	 * currently fills a buffer.
+	 */
+	public void apply(){
+		int i;
+		for(i = 0; i < size_; ++i){
+			try{
+				switch(types_[i]){
+					case VEHICLE_MESSAGE: ((Vehicle)targets_[i]).receiveMessage(xs_[i], ys_[i], (Message)objects_[i]); break;
+					case RSU_MESSAGE: ((RSU)targets_[i]).receiveMessage(xs_[i], ys_[i], (Message)objects_[i]); break;
+					case KNOWN_VEHICLE: ((KnownVehiclesList)targets_[i]).updateVehicle((Vehicle)objects_[i], ids_[i], xs_[i], ys_[i], speeds_[i], sourceIDs_[i], (flags_[i] & 1) != 0, (flags_[i] & 2) != 0); break;
+					case KNOWN_RSU: ((KnownRSUsList)targets_[i]).updateRSU((RSU)objects_[i], ids_[i], xs_[i], ys_[i], flags_[i] != 0); break;
+					case REGION_ADD: ((Region)targets_[i]).addVehicle((Vehicle)objects_[i], flags_[i] != 0); break;
+					case REGION_DELETE: ((Region)targets_[i]).delVehicle((Vehicle)objects_[i]); break;
+					case RESET: ((Vehicle)targets_[i]).reset(); break;
+				}
+			} catch (Exception e){}		// like in the workers, a failing entry must not stop the others
+		}
+		for(i = 0; i < size_; ++i){		// don't keep references to vehicles which might be deleted
+			if(types_[i] == VEHICLE_MESSAGE || types_[i] == RSU_MESSAGE) ((Message)objects_[i]).release();
+			targets_[i] = null;
+			objects_[i] = null;
+		}
+		size_ = 0;
+	}
+}
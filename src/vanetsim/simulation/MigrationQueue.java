@@ -0,0 +1,143 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import vanetsim.map.Map;
+import vanetsim.map.Region;
+import vanetsim.scenario.Vehicle;
+
+/**
+ * Collects the vehicles which a worker adds to or removes from regions during a phase (mostly vehicles crossing a region
+ * boundary when moving). The workers use the vehicle arrays of the regions directly, so these arrays must not change while
+ * a phase is processed. Each worker has its own queue which is only filled by the worker itself and therefore needs no
+ * synchronization. The {@link RegionScheduler} applies all queues at the end of the phase.
+ * <br><br>
+ * The entries only hold numbers: the position of the region in the region grid and the index of the vehicle in the
+ * vehicle table (see {@link Vehicle#getIndex()}).
+ * <br><br>
+ * The deterministic mode uses the {@link InteractionBuffer} of the regions instead.
+ */
+public final class MigrationQueue {
+
+	/** Type of an entry: a vehicle is added to a region. */
+	private static final int ADD = 0;
+
+	/** Type of an entry: a vehicle is added to a region if it's not already in it. */
+	private static final int ADD_CHECKED = 1;
+
+	/** Type of an entry: a vehicle is removed from a region. */
+	private static final int DELETE = 2;
+
+	/** The types of the entries. */
+	private int[] types_ = new int[16];
+
+	/** The x positions of the regions in the region grid. */
+	private int[] regionXs_ = new int[16];
+
+	/** The y positions of the regions in the region grid. */
+	private int[] regionYs_ = new int[16];
+
+	/** The indices of the vehicles. */
+	private int[] vehicles_ = new int[16];
+
+	/** The amount of entries. */
+	private int size_ = 0;
+
+	/**
+	 * Adds a new entry.
+	 *
+	 * @param type		the type of the entry
+	 * @param region	the region
+	 * @param vehicle	the vehicle
+	 */
+	private void add(int type, Region region, Vehicle vehicle){
+		if(size_ == types_.length){
+			int length = size_ * 2;
+			int[] newTypes = new int[length];
+			System.arraycopy(types_, 0, newTypes, 0, size_);
+			types_ = newTypes;
+			int[] newRegionXs = new int[length];
+			System.arraycopy(regionXs_, 0, newRegionXs, 0, size_);
+			regionXs_ = newRegionXs;
+			int[] newRegionYs = new int[length];
+			System.arraycopy(regionYs_, 0, newRegionYs, 0, size_);
+			regionYs_ = newRegionYs;
+			int[] newVehicles = new int[length];
+			System.arraycopy(vehicles_, 0, newVehicles, 0, size_);
+			vehicles_ = newVehicles;
+		}
+		types_[size_] = type;
+		regionXs_[size_] = region.getX();
+		regionYs_[size_] = region.getY();
+		vehicles_[size_] = vehicle.getIndex();
+		++size_;
+	}
+
+	/**
+	 * Adds a vehicle to a region at the end of the phase.
+	 *
+	 * @param region	the region
+	 * @param vehicle	the vehicle
+	 * @param doCheck	<code>true</code> if a check should be made if the vehicle already exists in the region
+	 */
+	public void addRegionAdd(Region region, Vehicle vehicle, boolean doCheck){
+		add(doCheck ? ADD_CHECKED : ADD, region, vehicle);
+	}
+
+	/**
+	 * Removes a vehicle from a region at the end of the phase.
+	 *
+	 * @param region	the region
+	 * @param vehicle	the vehicle
+	 */
+	public void addRegionDelete(Region region, Vehicle vehicle){
+		add(DELETE, region, vehicle);
+	}
+
+	/**
+	 * Checks if this queue contains entries.
+	 *
+	 * @return <code>true</code> if there are no entries, else <code>false</code>
+	 */
+	public boolean isEmpty(){
+		return size_ == 0;
+	}
+
+	/**
+	 * Applies all entries in the order they were added and clears the queue. Must only be called while no worker is
+	 * processing a phase.
+	 */
+	public void apply(){
+		if(size_ == 0) return;
+		Region[][] regions = Map.getInstance().getRegions();
+		Region region;
+		Vehicle vehicle;
+		for(int i = 0; i < size_; ++i){
+			try{
+				region = regions[regionXs_[i]][regionYs_[i]];
+				vehicle = Vehicle.getByIndex(vehicles_[i]);
+				switch(types_[i]){
+					case ADD: region.addVehicle(vehicle, false); break;
+					case ADD_CHECKED: region.addVehicle(vehicle, true); break;
+					case DELETE: region.delVehicle(vehicle); break;
+				}
+			} catch (Exception e){}		// like in the workers, a failing entry must not stop the others
+		}
+		size_ = 0;
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * A counter-based random number generator. Each number is calculated from a key and a counter with the SplitMix64
+ * finalizer, so there's no shared generator state which threads would contend on and the numbers of an entity don't depend
+ * on the order in which the entities draw them. The key is derived from the seed of the simulation, the ID of the entity
+ * (for example the steady ID of a vehicle) and a stream number which separates the different users.
+ * <br><br>
+ * Entities which draw numbers very often (like vehicles) should only keep the key and a counter and use the static methods
+ * {@link #nextLong(long, long)} and {@link #nextInt(long, long, int)}. Objects of this class wrap a key and a counter for
+ * all other users.
+ */
+public final class RandomStream {
+
+	/** The stream used by vehicles (IDs and driving behaviour). */
+	public static final int STREAM_VEHICLE = 1;
+
+	/** The stream used by event spots. */
+	public static final int STREAM_EVENT_SPOT = 2;
+
+	/** The stream used to create seeds (for example for new event spots). */
+	public static final int STREAM_SEED = 3;
+
+	/** The stream used when creating random vehicles in the editor or for research series. */
+	public static final int STREAM_RANDOM_VEHICLES = 4;
+
+	/** The increment of the SplitMix64 generator (the golden ratio). */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(RandomStream.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all users of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** The seed of the simulation. Set before loading a scenario to get other vehicle IDs and driving behaviour. */
+		long seed_ = 1L;
+
+		/** The counter used for numbers which don't belong to an entity (seeds and new streams). */
+		long counter_ = 0;
+	}
+
+	/** The key of this stream. */
+	private final long key_;
+
+	/** The amount of numbers drawn from this stream. */
+	private long counter_ = 0;
+
+	/**
+	 * Creates a new stream.
+	 *
+	 * @param seed		the seed
+	 * @param entity	the ID of the entity using the stream
+	 * @param stream	the stream number (one of the <code>STREAM_</code> constants)
+	 */
+	public RandomStream(long seed, long entity, int stream){
+		key_ = key(seed, entity, stream);
+	}
+
+	/**
+	 * Reads a stream from a checkpoint.
+	 *
+	 * @param in	the checkpoint
+	 *
+	 * @throws IOException if the checkpoint could not be read
+	 */
+	public RandomStream(CheckpointReader in) throws IOException{
+		key_ = in.readLong();
+		counter_ = in.readLong();
+	}
+
+	/**
+	 * Writes the key and the counter of this stream to a checkpoint.
+	 *
+	 * @param out	the checkpoint
+	 */
+	public void writeCheckpoint(CheckpointWriter out){
+		out.writeLong(key_);
+		out.writeLong(counter_);
+	}
+
+	/**
+	 * Gets the next random <code>long</code> of this stream.
+	 *
+	 * @return the number
+	 */
+	public long nextLong(){
+		return nextLong(key_, counter_++);
+	}
+
+	/**
+	 * Gets the next random <code>int</code> of this stream which is between <code>0</code> (inclusive) and <code>bound</code> (exclusive).
+	 *
+	 * @param bound	the upper bound (must be positive)
+	 *
+	 * @return the number
+	 */
+	public int nextInt(int bound){
+		return nextInt(key_, counter_++, bound);
+	}
+
+	/**
+	 * Calculates the key of a stream.
+	 *
+	 * @param seed		the seed
+	 * @param entity	the ID of the entity using the stream
+	 * @param stream	the stream number (one of the <code>STREAM_</code> constants)
+	 *
+	 * @return the key
+	 */
+	public static long key(long seed, long entity, int stream){
+		return mix(mix(mix(seed) + entity * GOLDEN_GAMMA) + stream * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Gets a random <code>long</code>.
+	 *
+	 * @param key		the key of the stream
+	 * @param counter	the number of the value in the stream
+	 *
+	 * @return the number
+	 */
+	public static long nextLong(long key, long counter){
+		return mix(key + (counter + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Gets a random <code>int</code> which is between <code>0</code> (inclusive) and <code>bound</code> (exclusive).
+	 *
+	 * @param key		the key of the stream
+	 * @param counter	the number of the value in the stream
+	 * @param bound		the upper bound (must be positive)
+	 *
+	 * @return the number
+	 */
+	public static int nextInt(long key, long counter, int bound){
+		if(bound <= 0) throw new IllegalArgumentException("bound must be positive"); //$NON-NLS-1$
+		return (int)(((nextLong(key, counter) >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Sets the seed of the current simulation context. The default is <code>1</code>.
+	 *
+	 * @param seed	the seed
+	 */
+	public static void setSeed(long seed){
+		state().seed_ = seed;
+	}
+
+	/**
+	 * Gets the seed of the current simulation context.
+	 *
+	 * @return the seed
+	 */
+	public static long getSeed(){
+		return state().seed_;
+	}
+
+	/**
+	 * Resets the counter for numbers which don't belong to an entity. Called when a scenario is loaded so that the same
+	 * seeds and streams are handed out again.
+	 */
+	public static void reset(){
+		ContextState state = state();
+		synchronized(state){
+			state.counter_ = 0;
+		}
+	}
+
+	/**
+	 * Gets a new seed (for example for a new event spot).
+	 *
+	 * @return the seed
+	 */
+	public static long nextSeed(){
+		ContextState state = state();
+		synchronized(state){
+			return nextLong(key(state.seed_, 0, STREAM_SEED), state.counter_++);
+		}
+	}
+
+	/**
+	 * Creates a new stream which doesn't belong to an entity. The streams created after a {@link #reset()} are always the same.
+	 *
+	 * @param stream	the stream number (one of the <code>STREAM_</code> constants)
+	 *
+	 * @return the stream
+	 */
+	public static RandomStream newStream(int stream){
+		ContextState state = state();
+		synchronized(state){
+			return new RandomStream(state.seed_, state.counter_++, stream);
+		}
+	}
+
+	/**
+	 * The finalizer of the SplitMix64 generator.
+	 *
+	 * @param z	the value to mix
+	 *
+	 * @return the mixed value
+	 */
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 *
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
+}
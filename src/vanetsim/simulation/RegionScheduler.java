@@ -0,0 +1,1087 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import vanetsim.ErrorLog;
+import vanetsim.localization.Messages;
+import vanetsim.map.Node;
+import vanetsim.map.Region;
+import vanetsim.map.TrafficLight;
+import vanetsim.scenario.RSU;
+import vanetsim.scenario.Vehicle;
+
+/**
+ * Hands out the regions of the map to the worker threads. Instead of giving every worker a fixed slice of the map,
+ * each phase of a step has its own cursor on a shared list of chunks. Workers grab one chunk after another until the
+ * list is exhausted, so a worker which finished its (sparse) chunks early automatically takes over (dense) chunks which
+ * would otherwise have been processed by a busy worker.
+ * <p>
+ * A chunk is a contiguous part of the regions ordered along a Hilbert curve so that neighbouring regions (which exchange
+ * vehicles, messages and beacons) are mostly processed by the same thread. The time spent on every region is measured
+ * and the chunks are periodically recalculated so that all chunks cost about the same even if the vehicle density changes
+ * during the simulation.
+ * <p>
+ * The scheduler also synchronizes the workers between the phases of a step. Phases without pending work (for example if
+ * no vehicle needs to send beacons in this step) are skipped by all workers together so that the barrier is skipped, too.
+ * <p>
+ * Vehicles which wait for their start or have reached their last destination don't need to be processed in every step.
+ * They are put to sleep and left out of the vehicle arrays handed to the workers. A queue ordered by the wake up time brings
+ * them back exactly in the step in which their wait time ends.
+ * <p>
+ * Traffic lights are handled the same way: a queue ordered by the time of their next change hands each region only the
+ * traffic lights which change their state in the current step. Steps without a change skip the traffic light phase.
+ * <p>
+ * Regions without awake vehicles, RSUs and changing traffic lights are set idle and left out of the chunks, so that a large
+ * map with a small populated area costs about as much as a map of this area. An idle region is woken up by the region itself
+ * (as soon as a vehicle is added), by the wake up queue of the vehicles or by the queue of the traffic lights.
+ * <p>
+ * The workers use the vehicle arrays of the regions directly. Vehicles which get into another region are collected in a
+ * {@link MigrationQueue} of each worker and moved when the phase is finished, so these arrays never change during a phase.
+ * <p>
+ * In the deterministic mode, each region has an {@link InteractionBuffer} which collects the interactions of its vehicles
+ * and RSUs with other regions. The buffers are applied at the end of each phase in the order of the Hilbert curve so that
+ * the results are the same for any amount of workers.
+ */
+public final class RegionScheduler {
+
+	/** Phase in which the speed is adjusted and RSUs do their cleanup. */
+	public static final int PHASE_ADJUST_SPEED = 0;
+
+	/** Phase in which vehicles and RSUs send their messages. */
+	public static final int PHASE_MESSAGES = 1;
+
+	/** Phase in which the IDS processors are fired. */
+	public static final int PHASE_IDS = 2;
+
+	/** Phase in which vehicles and RSUs send their beacons. */
+	public static final int PHASE_BEACONS = 3;
+
+	/** Phase in which all vehicles are moved. */
+	public static final int PHASE_MOVE = 4;
+
+	/** Phase in which the traffic lights are switched. */
+	public static final int PHASE_TRAFFIC_LIGHTS = 5;
+
+	/** Phase in which vehicles whose wait time is over are started. Only used in the deterministic mode (before {@link #PHASE_ADJUST_SPEED}). */
+	public static final int PHASE_START_VEHICLES = 6;
+
+	/** The amount of phases. */
+	public static final int PHASE_COUNT = 7;
+
+	/** After how many steps the chunks are recalculated (250 steps = 10s of simulated time). */
+	private static final int REBALANCE_STEPS = 250;
+
+	/** How many chunks are created per worker. More chunks balance better but cost more synchronization. */
+	private static final int CHUNKS_PER_WORKER = 4;
+
+	/** Distance between two cursors (or worker slots) in the arrays. Keeps them on different cache lines to prevent false sharing. */
+	private static final int STRIDE = 16;
+
+	/** Offset in a worker slot: the next position in <code>activeOrder_</code> to process. */
+	private static final int SLOT_POSITION = 0;
+
+	/** Offset in a worker slot: the end (exclusive) of the current chunk in <code>activeOrder_</code>. */
+	private static final int SLOT_END = 1;
+
+	/** Offset in a worker slot: the region currently processed or <code>-1</code>. */
+	private static final int SLOT_REGION = 2;
+
+	/** Offset in a worker slot: the phase the current chunk belongs to. */
+	private static final int SLOT_PHASE = 3;
+
+	/** Offset in a worker time slot: the time the current region was handed out. */
+	private static final int TIME_START = 0;
+
+	/** Offset in a worker time slot: the time spent on regions since the last rebalance. */
+	private static final int TIME_BUSY = 1;
+
+	/** All regions of the map. */
+	private final Region[] regions_;
+
+	/** The arrays of the vehicles which are awake in all regions. Refreshed at the beginning of each step. */
+	private final Vehicle[][] vehicles_;
+
+	/** The amount of valid entries in <code>vehicles_</code> of each region. */
+	private final int[] vehicleCounts_;
+
+	/** The versions of the vehicles of all regions (see {@link Region#getVehiclesVersion()}) from which <code>vehicles_</code> was built. */
+	private final int[] vehicleVersions_;
+
+	/** Regions in which a vehicle might fall asleep. Only written by the worker processing the region in the move phase. */
+	private final boolean[] sleepersPending_;
+
+	/** The index in <code>regions_</code> of the first region of each column of the map. */
+	private final int[] columnStart_;
+
+	/** The sleeping vehicles which need to be woken up at a specific time, ordered by this time. */
+	private final PriorityQueue<Sleeper> sleepers_ = new PriorityQueue<Sleeper>();
+
+	/** <code>true</code> if vehicles may be put to sleep. Only the VANETsim and IDM models use wait times. */
+	private final boolean sleepingEnabled_;
+
+	/** The time per step in milliseconds. */
+	private final int timePerStep_;
+
+	/** <code>true</code> to wake up all sleeping vehicles at the beginning of the next step. */
+	private boolean wakeAll_ = true;
+
+	/** The traffic lights ordered by the time of their next change. */
+	private final PriorityQueue<LightChange> lightChanges_ = new PriorityQueue<LightChange>();
+
+	/** The traffic lights of each region which change their state in the current step. */
+	private final TrafficLight[][] dueLights_;
+
+	/** The amount of valid entries in <code>dueLights_</code> of each region. */
+	private final int[] dueLightCounts_;
+
+	/** The indices of the regions with entries in <code>dueLights_</code>. */
+	private final int[] lightRegions_;
+
+	/** The amount of valid entries in <code>lightRegions_</code>. */
+	private int lightRegionCount_ = 0;
+
+	/** <code>true</code> if traffic lights are used. Only the VANETsim model supports them. */
+	private final boolean trafficLightsEnabled_;
+
+	/** <code>true</code> to rebuild the queue of the traffic lights at the beginning of the next step. */
+	private boolean rebuildLights_ = true;
+
+	/** If recycling was enabled in the last step. */
+	private boolean recyclingEnabled_ = false;
+
+	/** The RSU arrays of all regions. */
+	private final RSU[][] rsus_;
+
+	/** The vehicles and RSUs of each region which need to send messages in the current step. */
+	private final DueList[] dueMessages_;
+
+	/** The vehicles and RSUs of each region which need to send beacons in the current step. */
+	private final DueList[] dueBeacons_;
+
+	/** The interaction buffers of all regions in the deterministic mode, else <code>null</code>. */
+	private final InteractionBuffer[] interactions_;
+
+	/** The migration queues of all workers (not used in the deterministic mode). */
+	private final MigrationQueue[] migrations_;
+
+	/** All region indices (into <code>regions_</code>) sorted along a Hilbert curve. */
+	private final int[] order_;
+
+	/** The position of each region in <code>order_</code>. */
+	private final int[] rank_;
+
+	/** The indices of the regions which are not idle, sorted along the Hilbert curve. Only these are handed out to the workers. */
+	private int[] activeOrder_;
+
+	/** The amount of valid entries in <code>activeOrder_</code>. */
+	private int activeCount_ = 0;
+
+	/** The amount of vehicles processed in the current step (the sum of <code>vehicleCounts_</code> of the active regions). */
+	private int awakeVehicleCount_ = 0;
+
+	/** Helper array to rebuild <code>activeOrder_</code> without creating objects. */
+	private int[] nextOrder_;
+
+	/** <code>true</code> for all regions which are in <code>activeOrder_</code> or have been woken up for the current step. */
+	private final boolean[] active_;
+
+	/** The positions in <code>order_</code> of the regions woken up for the current step. */
+	private final int[] woken_;
+
+	/** The amount of valid entries in <code>woken_</code>. */
+	private int wokenCount_ = 0;
+
+	/** <code>true</code> to wake up all regions at the beginning of the next step. */
+	private boolean wakeAllRegions_ = true;
+
+	/** The start of each chunk in <code>activeOrder_</code>. The end of chunk <code>k</code> is the start of chunk <code>k+1</code>. */
+	private final int[] chunkStart_;
+
+	/** The order in which the chunks are handed out (most expensive first). */
+	private final int[] chunkOrder_;
+
+	/** The amount of chunks currently used. */
+	private int chunkCount_ = 0;
+
+	/** The amount of workers. */
+	private final int workers_;
+
+	/** The nanoseconds spent on each region since the last rebalance. */
+	private final long[] regionNanos_;
+
+	/** The estimated cost of each region for one step. */
+	private final double[] regionCosts_;
+
+	/** <code>true</code> if <code>regionCosts_</code> contains measured times instead of estimates based on the amount of vehicles. */
+	private boolean costsMeasured_ = false;
+
+	/** Steps done since the last rebalance. */
+	private int stepsSinceRebalance_ = 0;
+
+	/** Ratio between the maximum and the mean busy time of all workers in the last rebalance interval. */
+	private volatile double imbalance_ = 1;
+
+	/** Helper array to sort without creating objects (sort criteria in the upper, index in the lower 32 bits). */
+	private final long[] sortKeys_;
+
+	/** One cursor for each phase pointing to the next position in <code>chunkOrder_</code> which has not been handed out yet. */
+	private final AtomicIntegerArray cursors_ = new AtomicIntegerArray(PHASE_COUNT * STRIDE);
+
+	/** The state of each worker (current chunk and region). Only written by the worker itself. */
+	private final int[] slots_;
+
+	/** The time measurements of each worker. Only written by the worker itself. */
+	private final long[] times_;
+
+	/** Phases which have been reported to have pending work by at least one worker during the current phase. */
+	private final boolean[] marks_ = new boolean[PHASE_COUNT];
+
+	/** Phases which have pending work in this step. Only changed while no worker is processing a phase. */
+	private final boolean[] pending_ = new boolean[PHASE_COUNT];
+
+	/** The phase which was completed last. */
+	private volatile int completedPhase_ = -1;
+
+	/** The exception thrown while the migrations or interactions were applied between two phases or <code>null</code>. */
+	private volatile Exception failure_ = null;
+
+	/**
+	 * Synchronizes the workers between the phases. When all workers arrived, the pending phases are updated. If this fails,
+	 * the vehicle arrays of the regions can't be trusted anymore. The phaser is terminated then and all remaining phases of
+	 * the step are skipped so that the workers go straight to the finish barrier where the master finds the failure.
+	 */
+	private final Phaser phaser_ = new Phaser(){
+		protected boolean onAdvance(int phase, int registeredParties){
+			try{
+				publishPendingPhases();
+				return false;
+			} catch (Exception e){
+				failure_ = e;
+				Arrays.fill(pending_, false);
+				return true;
+			}
+		}
+	};
+
+	/**
+	 * Creates a new scheduler for the given regions. Junctions are normally (re)calculated here as the user might have
+	 * edited the map after loading.
+	 *
+	 * @param regions				the regions of the map
+	 * @param workers				the amount of worker threads which will use this scheduler
+	 * @param calculateJunctions	<code>false</code> to keep the current junctions (and their state), for example after restoring a checkpoint
+	 * @param timePerStep			the time per step in milliseconds
+	 * @param simulationMode		the simulation mode of the workers (see {@link WorkerThread#getSimulationMode_()})
+	 * @param deterministic			<code>true</code> to use the deterministic mode (see {@link WorkerThread#isDeterministic()})
+	 */
+	public RegionScheduler(Region[][] regions, int workers, boolean calculateJunctions, int timePerStep, int simulationMode, boolean deterministic){
+		int i, j, count = 0, size = 1;
+		for(i = 0; i < regions.length; ++i){
+			count += regions[i].length;
+			if(regions[i].length > size) size = regions[i].length;
+		}
+		if(regions.length > size) size = regions.length;
+		while(Integer.bitCount(size) != 1) ++size;	// Hilbert curve needs a power of two as side length
+		regions_ = new Region[count];
+		sortKeys_ = new long[count];
+		columnStart_ = new int[regions.length];
+		count = 0;
+		for(i = 0; i < regions.length; ++i){
+			columnStart_[i] = count;
+			for(j = 0; j < regions[i].length; ++j){
+				regions_[count] = regions[i][j];
+				if(calculateJunctions) regions_[count].calculateJunctions();
+				sortKeys_[count] = (getHilbertIndex(size, i, j) << 32) | count;
+				++count;
+			}
+		}
+		Arrays.sort(sortKeys_);
+		vehicles_ = new Vehicle[count][];
+		vehicleCounts_ = new int[count];
+		vehicleVersions_ = new int[count];
+		sleepersPending_ = new boolean[count];
+		rsus_ = new RSU[count][];
+		order_ = new int[count];
+		rank_ = new int[count];
+		activeOrder_ = new int[count];
+		nextOrder_ = new int[count];
+		active_ = new boolean[count];
+		woken_ = new int[count];
+		dueMessages_ = new DueList[count];
+		dueBeacons_ = new DueList[count];
+		dueLights_ = new TrafficLight[count][];
+		dueLightCounts_ = new int[count];
+		lightRegions_ = new int[count];
+		if(deterministic) interactions_ = new InteractionBuffer[count];
+		else interactions_ = null;
+		for(i = 0; i < count; ++i){
+			dueMessages_[i] = new DueList();
+			dueBeacons_[i] = new DueList();
+			dueLights_[i] = new TrafficLight[0];
+			if(deterministic) interactions_[i] = new InteractionBuffer();
+			rsus_[i] = regions_[i].getRSUs();		// calculateJunctions() might add RSUs so this must be done afterwards!
+			order_[i] = (int)(sortKeys_[i] & 0xFFFFFFFFL);
+			rank_[order_[i]] = i;
+			vehicles_[i] = new Vehicle[0];		// idle regions are never refreshed
+		}
+		workers_ = Math.max(1, workers);
+		migrations_ = new MigrationQueue[workers_];
+		for(i = 0; i < workers_; ++i){
+			migrations_[i] = new MigrationQueue();
+		}
+		chunkStart_ = new int[count + 1];
+		chunkOrder_ = new int[count];
+		regionNanos_ = new long[count];
+		regionCosts_ = new double[count];
+		slots_ = new int[workers_ * STRIDE];
+		times_ = new long[workers_ * STRIDE];
+		timePerStep_ = timePerStep;
+		sleepingEnabled_ = simulationMode == 1 || simulationMode == 2;
+		trafficLightsEnabled_ = simulationMode == 1;
+	}
+
+	/**
+	 * Calculates the position of a cell on a Hilbert curve.
+	 *
+	 * @param size	the side length of the square (must be a power of two)
+	 * @param x		the x coordinate of the cell
+	 * @param y		the y coordinate of the cell
+	 *
+	 * @return the position on the curve
+	 */
+	private static long getHilbertIndex(int size, int x, int y){
+		long d = 0;
+		int rx, ry, tmp;
+		for(int s = size / 2; s > 0; s /= 2){
+			rx = (x & s) > 0 ? 1 : 0;
+			ry = (y & s) > 0 ? 1 : 0;
+			d += (long)s * s * ((3 * rx) ^ ry);
+			if(ry == 0){	// rotate quadrant
+				if(rx == 1){
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Prepares the next step. Wakes up vehicles and regions, updates the cached vehicle arrays of all active regions, sets
+	 * regions without work idle, recalculates the chunks if necessary and resets all phase cursors. Must only be called while
+	 * no worker is processing a phase!
+	 */
+	public void prepareStep(){
+		int i, region, count = 0, active = 0, woken = 0, vehicles = 0;
+		int time = EngineContext.getTimePassed();
+		boolean recyclingEnabled = Vehicle.getRecyclingEnabled();
+		Region wokenRegion;
+		while((wokenRegion = Region.pollWokenRegion()) != null){
+			i = getRegionIndex(wokenRegion.getX(), wokenRegion.getY());
+			if(i > -1 && regions_[i] == wokenRegion) wakeRegion(i);
+		}
+		if(sleepingEnabled_) wakeUpVehicles(time, recyclingEnabled);
+		boolean lightsPending = trafficLightsEnabled_ && collectDueLights(time + timePerStep_);
+		if(wakeAllRegions_){
+			wakeAllRegions_ = false;
+			for(i = 0; i < regions_.length; ++i) wakeRegion(i);
+		}
+
+		// merge the woken regions into the active ones (both along the Hilbert curve) and refresh their vehicle arrays
+		boolean changed = wokenCount_ > 0;
+		if(wokenCount_ > 1) Arrays.sort(woken_, 0, wokenCount_);
+		while(active < activeCount_ || woken < wokenCount_){
+			if(woken == wokenCount_ || (active < activeCount_ && rank_[activeOrder_[active]] < woken_[woken])) region = activeOrder_[active++];
+			else region = order_[woken_[woken++]];
+			if(refreshRegion(region, time, recyclingEnabled)){
+				nextOrder_[count++] = region;
+				vehicles += vehicleCounts_[region];
+			} else changed = true;
+		}
+		wokenCount_ = 0;
+		int[] tmp = activeOrder_;
+		activeOrder_ = nextOrder_;
+		nextOrder_ = tmp;
+		activeCount_ = count;
+		awakeVehicleCount_ = vehicles;
+
+		if((chunkCount_ == 0 && activeCount_ > 0) || stepsSinceRebalance_ >= REBALANCE_STEPS) rebalance();
+		else if(changed) cutChunks();
+		++stepsSinceRebalance_;
+		for(i = 0; i < PHASE_COUNT; ++i){
+			cursors_.set(i * STRIDE, 0);
+		}
+		for(i = 0; i < workers_; ++i){
+			slots_[i * STRIDE + SLOT_POSITION] = 0;
+			slots_[i * STRIDE + SLOT_END] = 0;
+			slots_[i * STRIDE + SLOT_REGION] = -1;
+		}
+		for(i = 0; i < PHASE_COUNT; ++i){
+			marks_[i] = false;
+			pending_[i] = false;
+		}
+		// these phases always have work. The others are marked during the step.
+		pending_[PHASE_START_VEHICLES] = true;
+		pending_[PHASE_ADJUST_SPEED] = true;
+		pending_[PHASE_MOVE] = true;
+		pending_[PHASE_TRAFFIC_LIGHTS] = lightsPending;
+		completedPhase_ = -1;
+	}
+
+	/**
+	 * Refreshes the vehicle array of an active region. If the region has no awake vehicles, no RSUs and no traffic light
+	 * changing in this step, it is set idle.
+	 *
+	 * @param region			the index of the region
+	 * @param time				the current simulation time
+	 * @param recyclingEnabled	if recycling of vehicles is enabled
+	 *
+	 * @return <code>true</code> if the region needs to be processed in this step, <code>false</code> if it has been set idle
+	 */
+	private boolean refreshRegion(int region, int time, boolean recyclingEnabled){
+		int version = regions_[region].getVehiclesVersion();
+		if(sleepingEnabled_){
+			if(version != vehicleVersions_[region] || sleepersPending_[region]){
+				vehicleVersions_[region] = version;
+				sleepersPending_[region] = false;
+				refreshAwakeVehicles(region, time, recyclingEnabled);
+			}
+		} else {
+			vehicles_[region] = regions_[region].getVehicleStore();
+			vehicleCounts_[region] = regions_[region].getVehicleCount();
+		}
+		if(vehicleCounts_[region] > 0 || rsus_[region].length > 0 || dueLightCounts_[region] > 0) return true;
+		regions_[region].setIdle(true);
+		if(regions_[region].getVehiclesVersion() != version){		// a vehicle has been added in the meantime (for example by the GUI)
+			regions_[region].setIdle(false);
+			return true;
+		}
+		active_[region] = false;
+		return false;
+	}
+
+	/**
+	 * Wakes up a region so that it is processed in the current step (if there's something to do for it).
+	 *
+	 * @param region	the index of the region
+	 */
+	private void wakeRegion(int region){
+		if(!active_[region]){
+			active_[region] = true;
+			woken_[wokenCount_++] = rank_[region];
+		}
+	}
+
+	/**
+	 * Gets the index of a region in <code>regions_</code>.
+	 *
+	 * @param x	the column of the region
+	 * @param y	the row of the region
+	 *
+	 * @return the index or <code>-1</code> if there's no such region
+	 */
+	private int getRegionIndex(int x, int y){
+		if(x < 0 || x >= columnStart_.length || y < 0) return -1;
+		int i = columnStart_[x] + y;
+		if(i < regions_.length && regions_[i].getX() == x && regions_[i].getY() == y) return i;
+		else return -1;
+	}
+
+	/**
+	 * Takes all traffic lights which change their state in this step from the queue and puts them into the lists of their
+	 * regions (which are woken up). The traffic lights changed in the last step are queued again first. If a traffic light
+	 * has been added or removed (or this is the first step), the queue is rebuilt from all nodes.
+	 * 
+	 * @param time	the simulation time of this step
+	 * 
+	 * @return <code>true</code> if at least one traffic light changes its state in this step, else <code>false</code>
+	 */
+	private boolean collectDueLights(int time){
+		int i, j, length;
+		TrafficLight light;
+		if(rebuildLights_ || TrafficLight.isChanged()){
+			rebuildLights_ = false;
+			TrafficLight.setChanged(false);
+			lightChanges_.clear();
+			Node[] nodes;
+			for(i = 0; i < regions_.length; ++i){
+				nodes = regions_[i].getNodes();
+				length = nodes.length;
+				for(j = 0; j < length; ++j){
+					if(nodes[j].isHasTrafficSignal_() && nodes[j].getJunction() != null && nodes[j].getJunction().getNode().getTrafficLight_() != null){
+						light = nodes[j].getJunction().getNode().getTrafficLight_();
+						light.checkTimer(time - timePerStep_);
+						lightChanges_.add(new LightChange(light.getNextChange(timePerStep_), i, light));
+					}
+				}
+			}
+			Arrays.fill(dueLightCounts_, 0);
+		} else {
+			for(int k = 0; k < lightRegionCount_; ++k){
+				i = lightRegions_[k];
+				length = dueLightCounts_[i];
+				for(j = 0; j < length; ++j){
+					light = dueLights_[i][j];
+					lightChanges_.add(new LightChange(light.getNextChange(timePerStep_), i, light));
+					dueLights_[i][j] = null;
+				}
+				dueLightCounts_[i] = 0;
+			}
+		}
+		lightRegionCount_ = 0;
+		if(lightChanges_.isEmpty() || lightChanges_.peek().time_ > time) return false;
+		LightChange change;
+		do {
+			change = lightChanges_.poll();
+			i = change.region_;
+			if(dueLightCounts_[i] == 0){
+				lightRegions_[lightRegionCount_++] = i;
+				wakeRegion(i);
+			}
+			if(dueLightCounts_[i] == dueLights_[i].length) dueLights_[i] = Arrays.copyOf(dueLights_[i], Math.max(4, dueLights_[i].length * 2));
+			dueLights_[i][dueLightCounts_[i]++] = change.light_;
+		} while(!lightChanges_.isEmpty() && lightChanges_.peek().time_ <= time);
+		return true;
+	}
+
+	/**
+	 * Wakes up all vehicles whose wait time ends in this step. If a setting or a sleeping vehicle has been changed (or this is
+	 * the first step), all sleeping vehicles are woken up. Those which may still sleep are put to sleep again when the
+	 * vehicle arrays are refreshed.
+	 * 
+	 * @param time				the current simulation time
+	 * @param recyclingEnabled	if recycling of vehicles is enabled
+	 */
+	private void wakeUpVehicles(int time, boolean recyclingEnabled){
+		int i, j, length;
+		Vehicle[] vehicles;
+		if(wakeAll_ || recyclingEnabled != recyclingEnabled_ || Vehicle.isSleepersChanged()){
+			wakeAll_ = false;
+			recyclingEnabled_ = recyclingEnabled;
+			Vehicle.setSleepersChanged(false);
+			sleepers_.clear();
+			for(i = 0; i < regions_.length; ++i){
+				vehicles = regions_[i].getVehicleArray();
+				length = vehicles.length;
+				for(j = 0; j < length; ++j){
+					vehicles[j].wakeUp(time);
+				}
+				sleepersPending_[i] = true;
+				wakeRegion(i);
+			}
+		} else {
+			Sleeper sleeper;
+			while(!sleepers_.isEmpty() && sleepers_.peek().time_ <= time){
+				sleeper = sleepers_.poll();
+				if(sleeper.vehicle_.getWakeTime() != sleeper.time_) continue;	// woken up and put to sleep again in the meantime
+				sleeper.vehicle_.wakeUp(time);
+				i = getRegionIndex(sleeper.vehicle_.getRegionX(), sleeper.vehicle_.getRegionY());
+				if(i > -1){
+					sleepersPending_[i] = true;
+					wakeRegion(i);
+				} else {
+					Arrays.fill(sleepersPending_, true);
+					wakeAllRegions_ = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts all vehicles of a region which may sleep to sleep and puts the vehicles which are still awake into
+	 * <code>vehicles_</code>. If all vehicles are awake, the vehicle array of the region itself is used.
+	 * 
+	 * @param region			the index of the region
+	 * @param time				the current simulation time
+	 * @param recyclingEnabled	if recycling of vehicles is enabled
+	 */
+	private void refreshAwakeVehicles(int region, int time, boolean recyclingEnabled){
+		Vehicle[] vehicles = regions_[region].getVehicleStore();
+		int i, wakeTime, count = 0, length = regions_[region].getVehicleCount();
+		Vehicle vehicle;
+		for(i = 0; i < length; ++i){
+			vehicle = vehicles[i];
+			if(vehicle.mayFallAsleep(timePerStep_, recyclingEnabled)){
+				wakeTime = vehicle.fallAsleep(time, timePerStep_);
+				if(wakeTime != Integer.MAX_VALUE) sleepers_.add(new Sleeper(wakeTime, vehicle));
+			}
+			if(!vehicle.isAsleep()) ++count;
+		}
+		if(count == length){
+			vehicles_[region] = vehicles;
+			vehicleCounts_[region] = length;
+			return;
+		}
+		Vehicle[] result = vehicles_[region];
+		if(result == vehicles || result.length < count) result = new Vehicle[count];		// else reuse the last array of this region
+		else Arrays.fill(result, count, result.length, null);
+		count = 0;
+		for(i = 0; i < length; ++i){
+			if(!vehicles[i].isAsleep()) result[count++] = vehicles[i];
+		}
+		vehicles_[region] = result;
+		vehicleCounts_[region] = count;
+	}
+
+	/**
+	 * Reports that a vehicle in a region might fall asleep. The vehicle arrays of this region are rebuilt at the beginning of
+	 * the next step.
+	 * 
+	 * @param region	the index of the region
+	 */
+	public void markSleepersPending(int region){
+		sleepersPending_[region] = true;
+	}
+
+	/**
+	 * Checks if vehicles may be put to sleep in the current simulation mode.
+	 * 
+	 * @return <code>true</code> if vehicles may sleep, else <code>false</code>
+	 */
+	public boolean isSleepingEnabled(){
+		return sleepingEnabled_;
+	}
+
+	/**
+	 * Registers the workers which will use this scheduler. Must be called before the first step.
+	 *
+	 * @param workers	the amount of workers
+	 */
+	public void registerWorkers(int workers){
+		if(workers > 0) phaser_.bulkRegister(workers);
+	}
+
+	/**
+	 * Marks a phase of the current step as having pending work. The mark becomes visible to all workers after the
+	 * current phase has been finished.
+	 *
+	 * @param phase	the phase
+	 */
+	public void markPhasePending(int phase){
+		marks_[phase] = true;
+	}
+
+	/**
+	 * Checks if a phase has pending work in the current step. All workers get the same result so that they
+	 * can skip a phase together.
+	 *
+	 * @param phase	the phase
+	 *
+	 * @return <code>true</code> if the phase needs to be processed, else <code>false</code>
+	 */
+	public boolean isPhasePending(int phase){
+		return pending_[phase];
+	}
+
+	/**
+	 * Called by a worker after it has finished its part of a phase. Waits until all workers have finished this phase.
+	 *
+	 * @param phase	the phase which was finished
+	 */
+	public void finishPhase(int phase){
+		completedPhase_ = phase;
+		phaser_.arriveAndAwaitAdvance();
+	}
+
+	/**
+	 * Publishes the marks of the workers. Called while all workers are waiting.
+	 */
+	private void publishPendingPhases(){
+		applyMigrations();
+		applyInteractions();	// might flag IDS processors
+		for(int i = 0; i < PHASE_COUNT; ++i){
+			if(marks_[i]) pending_[i] = true;
+		}
+		// vehicles flag their IDS processors in the message and beacon handling. Flags set after the IDS phase are kept for the next step.
+		if(completedPhase_ < PHASE_IDS && Vehicle.isIDSProcessorsPending()){
+			Vehicle.setIDSProcessorsPending(false);
+			pending_[PHASE_IDS] = true;
+		}
+	}
+
+	/**
+	 * Finishes a step. Must be called after all workers have finished the last phase and before anything else accesses
+	 * the simulation.
+	 */
+	public void finishStep(){
+		applyMigrations();
+		applyInteractions();
+	}
+
+	/**
+	 * Applies the migration queues of all workers so that the vehicles which got into another region during the last
+	 * phase are moved in the vehicle arrays of the regions.
+	 */
+	private void applyMigrations(){
+		for(int i = 0; i < workers_; ++i){
+			if(!migrations_[i].isEmpty()) migrations_[i].apply();
+		}
+	}
+
+	/**
+	 * Applies the interaction buffers of all active regions in the order of the Hilbert curve. Only used in the deterministic mode.
+	 */
+	private void applyInteractions(){
+		if(interactions_ != null){
+			InteractionBuffer buffer;
+			for(int i = 0; i < activeCount_; ++i){
+				buffer = interactions_[activeOrder_[i]];
+				if(!buffer.isEmpty()) buffer.apply();
+			}
+		}
+	}
+
+	/**
+	 * Recalculates the chunks so that all of them have about the same cost. The costs are taken from the measured times
+	 * since the last rebalance. If no times have been measured yet, the amount of vehicles and RSUs is used instead.
+	 */
+	private void rebalance(){
+		int i, length = regions_.length;
+		double cost;
+		if(stepsSinceRebalance_ > 0){
+			long maxBusy = 0, sumBusy = 0;
+			for(i = 0; i < workers_; ++i){
+				sumBusy += times_[i * STRIDE + TIME_BUSY];
+				if(times_[i * STRIDE + TIME_BUSY] > maxBusy) maxBusy = times_[i * STRIDE + TIME_BUSY];
+				times_[i * STRIDE + TIME_BUSY] = 0;
+			}
+			if(sumBusy > 0){
+				imbalance_ = maxBusy * workers_ / (double)sumBusy;
+				ErrorLog.log(Messages.getString("RegionScheduler.imbalance") + imbalance_, 1, RegionScheduler.class.getName(), "rebalance", null); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		for(i = 0; i < length; ++i){
+			if(stepsSinceRebalance_ > 0){
+				cost = regionNanos_[i] / (double)stepsSinceRebalance_;
+				if(costsMeasured_) regionCosts_[i] = (regionCosts_[i] + cost) / 2;	// smooth a little bit
+				else regionCosts_[i] = cost;
+			} else if(!costsMeasured_) regionCosts_[i] = vehicleCounts_[i] + rsus_[i].length + 1;
+			regionNanos_[i] = 0;
+		}
+		if(stepsSinceRebalance_ > 0) costsMeasured_ = true;
+		stepsSinceRebalance_ = 0;
+		cutChunks();
+	}
+
+	/**
+	 * Cuts the active regions (along the Hilbert curve) into chunks of about the same cost. Called after a rebalance and
+	 * whenever regions have been set idle or woken up.
+	 */
+	private void cutChunks(){
+		int i, length = activeCount_;
+		double cost = 0, total = 0;
+		for(i = 0; i < length; ++i){
+			total += regionCosts_[activeOrder_[i]];
+		}
+		double target = total / (workers_ * CHUNKS_PER_WORKER);
+		int chunks = 0;
+		chunkStart_[0] = 0;
+		for(i = 0; i < length; ++i){
+			cost += regionCosts_[activeOrder_[i]];
+			if(cost >= target || i == length - 1){
+				sortKeys_[chunks] = (Math.min((long)cost, Integer.MAX_VALUE) << 32) | chunks;
+				++chunks;
+				chunkStart_[chunks] = i + 1;
+				cost = 0;
+			}
+		}
+		if(workers_ > 1){
+			Arrays.sort(sortKeys_, 0, chunks);
+			for(i = 0; i < chunks; ++i){
+				chunkOrder_[i] = (int)(sortKeys_[chunks - 1 - i] & 0xFFFFFFFFL);	// descending => most expensive first
+			}
+		} else {
+			// a single worker always processes the regions in Hilbert order so that its results don't depend on the measured times
+			for(i = 0; i < chunks; ++i){
+				chunkOrder_[i] = i;
+			}
+		}
+		chunkCount_ = chunks;
+	}
+
+	/**
+	 * Gets the next region which has not been processed in the given phase yet. The time since the last call of the
+	 * same worker is accounted to the region handed out in that call.
+	 *
+	 * @param phase		the phase
+	 * @param worker	the number of the calling worker
+	 *
+	 * @return the index of the region or <code>-1</code> if all regions have already been handed out in this phase
+	 */
+	public int nextRegion(int phase, int worker){
+		int slot = worker * STRIDE;
+		long now = System.nanoTime();
+		int region = slots_[slot + SLOT_REGION];
+		if(region > -1){
+			now -= times_[slot + TIME_START];
+			regionNanos_[region] += now;
+			times_[slot + TIME_BUSY] += now;
+			now += times_[slot + TIME_START];
+		}
+		int position = slots_[slot + SLOT_POSITION];
+		if(position >= slots_[slot + SLOT_END] || slots_[slot + SLOT_PHASE] != phase){
+			int chunk = cursors_.getAndIncrement(phase * STRIDE);
+			if(chunk >= chunkCount_){
+				slots_[slot + SLOT_REGION] = -1;
+				return -1;
+			}
+			chunk = chunkOrder_[chunk];
+			position = chunkStart_[chunk];
+			slots_[slot + SLOT_END] = chunkStart_[chunk + 1];
+			slots_[slot + SLOT_PHASE] = phase;
+		}
+		slots_[slot + SLOT_POSITION] = position + 1;
+		region = activeOrder_[position];
+		slots_[slot + SLOT_REGION] = region;
+		times_[slot + TIME_START] = now;
+		return region;
+	}
+
+	/**
+	 * Gets all regions. The index in this array corresponds to the index returned by {@link #nextRegion(int, int)}.
+	 *
+	 * @return the regions
+	 */
+	public Region[] getRegions(){
+		return regions_;
+	}
+
+	/**
+	 * Gets the vehicle arrays of all regions as they were at the beginning of the current step. Sleeping vehicles are not
+	 * contained. Only the first entries (see {@link #getVehicleCounts()}) of each array are valid.
+	 *
+	 * @return the vehicle arrays
+	 */
+	public Vehicle[][] getVehicles(){
+		return vehicles_;
+	}
+
+	/**
+	 * Gets the amount of vehicles of all regions which are processed in the current step. Idle regions have no vehicles.
+	 *
+	 * @return the amounts (the index is the region)
+	 */
+	public int[] getVehicleCounts(){
+		return vehicleCounts_;
+	}
+
+	/**
+	 * Gets the migration queue of a worker.
+	 *
+	 * @param worker	the number of the worker
+	 *
+	 * @return the queue
+	 */
+	public MigrationQueue getMigrationQueue(int worker){
+		return migrations_[worker];
+	}
+
+	/**
+	 * Gets the RSU arrays of all regions.
+	 *
+	 * @return the RSU arrays
+	 */
+	public RSU[][] getRSUs(){
+		return rsus_;
+	}
+
+	/**
+	 * Gets the vehicles and RSUs of all regions which need to send messages in the current step. The lists are filled in
+	 * the phase {@link #PHASE_ADJUST_SPEED}.
+	 *
+	 * @return the lists (the index is the region)
+	 */
+	public DueList[] getDueMessages(){
+		return dueMessages_;
+	}
+
+	/**
+	 * Gets the vehicles and RSUs of all regions which need to send beacons in the current step. The lists are filled in
+	 * the phase {@link #PHASE_ADJUST_SPEED}.
+	 *
+	 * @return the lists (the index is the region)
+	 */
+	public DueList[] getDueBeacons(){
+		return dueBeacons_;
+	}
+
+	/**
+	 * Gets the traffic lights of all regions which change their state in the current step. Only the first entries (see
+	 * {@link #getDueLightCounts()}) of each array are valid.
+	 *
+	 * @return the traffic lights (the index is the region)
+	 */
+	public TrafficLight[][] getDueLights(){
+		return dueLights_;
+	}
+
+	/**
+	 * Gets the amount of traffic lights of all regions which change their state in the current step.
+	 *
+	 * @return the amounts (the index is the region)
+	 */
+	public int[] getDueLightCounts(){
+		return dueLightCounts_;
+	}
+
+	/**
+	 * Gets the interaction buffers of all regions.
+	 *
+	 * @return the buffers (the index is the region) or <code>null</code> if the deterministic mode is not used
+	 */
+	public InteractionBuffer[] getInteractionBuffers(){
+		return interactions_;
+	}
+
+	/**
+	 * Gets the amount of workers this scheduler was created for.
+	 *
+	 * @return the amount of workers
+	 */
+	public int getWorkerCount(){
+		return workers_;
+	}
+
+	/**
+	 * Gets the amount of regions.
+	 *
+	 * @return the amount of regions
+	 */
+	public int getRegionCount(){
+		return regions_.length;
+	}
+
+	/**
+	 * Gets the amount of regions which are not idle in the current step.
+	 *
+	 * @return the amount of active regions
+	 */
+	public int getActiveRegionCount(){
+		return activeCount_;
+	}
+
+	/**
+	 * Gets the amount of vehicles which are processed in the current step. Sleeping vehicles are not counted.
+	 *
+	 * @return the amount of awake vehicles
+	 */
+	public int getAwakeVehicleCount(){
+		return awakeVehicleCount_;
+	}
+
+	/**
+	 * Gets the ratio between the maximum and the mean time the workers spent on regions in the last rebalance interval.
+	 * A value of <code>1</code> means that all workers had exactly the same load.
+	 *
+	 * @return the imbalance
+	 */
+	public double getImbalance(){
+		return imbalance_;
+	}
+
+	/**
+	 * Gets the exception which stopped the workers between two phases. The simulation state is inconsistent afterwards
+	 * and this scheduler can't be used anymore.
+	 *
+	 * @return the exception or <code>null</code> if no phase failed
+	 */
+	public Exception getFailure(){
+		return failure_;
+	}
+
+	/**
+	 * A sleeping vehicle in the wake up queue.
+	 */
+	private static final class Sleeper implements Comparable<Sleeper>{
+
+		/** The simulation time at which the vehicle needs to be woken up. */
+		private final int time_;
+
+		/** The vehicle. */
+		private final Vehicle vehicle_;
+
+		/**
+		 * Creates a new entry for the wake up queue.
+		 * 
+		 * @param time		the simulation time at which the vehicle needs to be woken up
+		 * @param vehicle	the vehicle
+		 */
+		public Sleeper(int time, Vehicle vehicle){
+			time_ = time;
+			vehicle_ = vehicle;
+		}
+
+		/**
+		 * Compares by the wake up time.
+		 * 
+		 * @param other	the other entry
+		 * 
+		 * @return a negative value if this entry needs to be woken up earlier, a positive value if later, else <code>0</code>
+		 */
+		public int compareTo(Sleeper other){
+			return time_ < other.time_ ? -1 : (time_ == other.time_ ? 0 : 1);
+		}
+	}
+
+	/**
+	 * A traffic light in the queue of the next changes.
+	 */
+	private static final class LightChange implements Comparable<LightChange>{
+
+		/** The simulation time of the step in which the traffic light changes its state. */
+		private final int time_;
+
+		/** The index of the region of the traffic light. */
+		private final int region_;
+
+		/** The traffic light. */
+		private final TrafficLight light_;
+
+		/**
+		 * Creates a new entry for the queue of the next changes.
+		 * 
+		 * @param time		the simulation time of the step in which the traffic light changes its state
+		 * @param region	the index of the region of the traffic light
+		 * @param light		the traffic light
+		 */
+		public LightChange(int time, int region, TrafficLight light){
+			time_ = time;
+			region_ = region;
+			light_ = light;
+		}
+
+		/**
+		 * Compares by the time of the change.
+		 * 
+		 * @param other	the other entry
+		 * 
+		 * @return a negative value if this traffic light changes earlier, a positive value if later, else <code>0</code>
+		 */
+		public int compareTo(LightChange other){
+			return time_ < other.time_ ? -1 : (time_ == other.time_ ? 0 : 1);
+		}
+	}
+}
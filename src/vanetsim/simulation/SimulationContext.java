@@ -0,0 +1,177 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Holds everything that belongs to one simulation: the map, the scenario, the event lists and the variables which are
+ * shared by all vehicles, RSUs, IDS processors... of a simulation. Several simulations can thus run side by side in one JVM,
+ * each one in its own context.
+ * <br><br>
+ * Each class with such state reserves a slot with {@link #newSlot(Class)} and keeps its state in this slot
+ * (for example <code>Map.getInstance()</code> returns the map in the slot of the current context). The current context is
+ * bound to a thread and inherited by the threads it creates. The <code>SimulationMaster</code> gets its context explicitly and
+ * binds it to itself and its worker threads. Threads which never bind a context (like the GUI) use the default context.
+ * <br><br>
+ * Classes which used to share static variables between all their instances keep them in a small nested class instead and
+ * get it through {@link #state(int, Supplier)}. The state is created on first use, so a new context always starts with
+ * fresh state and two simulations never see each other's variables. The lookup goes through a thread local, so methods
+ * which need the state often should get it once and pass it on.
+ */
+public final class SimulationContext {
+
+	/** The maximum amount of slots. */
+	private static final int MAX_SLOTS = 64;
+
+	/** The classes owning the slots (the index is the slot). */
+	private static final ArrayList<Class<?>> OWNERS = new ArrayList<Class<?>>(MAX_SLOTS);
+
+	/** The context used by all threads which didn't bind another one (the GUI and single simulations). */
+	private static final SimulationContext DEFAULT = new SimulationContext();
+
+	/** The context bound to the current thread. Threads inherit the context of the thread creating them. */
+	private static final InheritableThreadLocal<SimulationContext> CURRENT = new InheritableThreadLocal<SimulationContext>(){
+		protected SimulationContext initialValue(){
+			return DEFAULT;
+		}
+	};
+
+	/** The content of the slots. */
+	private final AtomicReferenceArray<Object> slots_ = new AtomicReferenceArray<Object>(MAX_SLOTS);
+
+	/**
+	 * Creates a new (empty) context. The state of all classes is created on first use within this context.
+	 */
+	public SimulationContext(){
+	}
+
+	/**
+	 * Reserves a new slot. Should be called once per class when the class is initialized.
+	 *
+	 * @param owner	the class which keeps its state in the slot
+	 *
+	 * @return the slot
+	 */
+	public static synchronized int newSlot(Class<?> owner){
+		if(OWNERS.size() == MAX_SLOTS) throw new IllegalStateException("No free slot for " + owner.getName()); //$NON-NLS-1$
+		OWNERS.add(owner);
+		return OWNERS.size() - 1;
+	}
+
+	/**
+	 * Gets the slot of a class.
+	 *
+	 * @param owner	the class
+	 *
+	 * @return the slot or <code>-1</code> if the class hasn't reserved one
+	 */
+	public static synchronized int getSlot(Class<?> owner){
+		return OWNERS.indexOf(owner);
+	}
+
+	/**
+	 * Gets the classes which currently own a slot.
+	 *
+	 * @return the classes (the index is the slot)
+	 */
+	public static synchronized Class<?>[] getOwners(){
+		return OWNERS.toArray(new Class<?>[OWNERS.size()]);
+	}
+
+	/**
+	 * Gets the context bound to the current thread.
+	 *
+	 * @return the current context
+	 */
+	public static SimulationContext getCurrent(){
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds a context to the current thread. Threads created afterwards by this thread inherit it.
+	 *
+	 * @param context	the context or <code>null</code> to use the default context
+	 */
+	public static void setCurrent(SimulationContext context){
+		if(context == null) CURRENT.set(DEFAULT);
+		else CURRENT.set(context);
+	}
+
+	/**
+	 * Gets the content of a slot in the current context and creates it if the slot is still empty.
+	 *
+	 * @param slot		the slot
+	 * @param factory	creates the content if the slot is empty
+	 *
+	 * @return the content of the slot
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T state(int slot, Supplier<? extends T> factory){
+		SimulationContext context = CURRENT.get();
+		Object state = context.slots_.get(slot);
+		if(state == null) state = context.putIfAbsent(slot, factory.get());
+		return (T)state;
+	}
+
+	/**
+	 * Gets the default context which is used by all threads not bound to another one.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault(){
+		return DEFAULT;
+	}
+
+	/**
+	 * Gets the content of a slot.
+	 *
+	 * @param slot	the slot
+	 *
+	 * @return the content or <code>null</code> if the slot is empty
+	 */
+	public Object get(int slot){
+		return slots_.get(slot);
+	}
+
+	/**
+	 * Sets the content of a slot if it is still empty. If two threads try to fill a slot at the same time, only one of them
+	 * succeeds and both get the same content.
+	 *
+	 * @param slot	the slot
+	 * @param value	the new content
+	 *
+	 * @return the content of the slot afterwards
+	 */
+	public Object putIfAbsent(int slot, Object value){
+		if(slots_.compareAndSet(slot, null, value)) return value;
+		else return slots_.get(slot);
+	}
+
+	/**
+	 * Replaces the content of a slot.
+	 *
+	 * @param slot	the slot
+	 * @param value	the new content or <code>null</code> to let the owner create a new one on next use
+	 */
+	public void set(int slot, Object value){
+		slots_.set(slot, value);
+	}
+}
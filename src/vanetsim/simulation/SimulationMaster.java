@@ -20,21 +20,33 @@ package vanetsim.simulation;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import vanetsim.ErrorLog;
 import vanetsim.VanetSimStart;
 import vanetsim.gui.Renderer;
 import vanetsim.gui.controlpanels.ReportingControlPanel;
-import vanetsim.gui.controlpanels.SlowPanel;
 import vanetsim.gui.helpers.GeneralLogWriter;
 import vanetsim.gui.helpers.IDSLogWriter;
 import vanetsim.gui.helpers.PrivacyLogWriter;
@@ -54,16 +66,13 @@ import vanetsim.scenario.events.EventSpotList;
 
 /**
  * This thread delegates the simulation processing to subthreads and then calls a
- * repaint on the drawing area.
+ * repaint on the drawing area. It can be watched and controlled through JMX (see {@link SimulationMasterMBean}).
  */
-public final class SimulationMaster extends Thread{
+public final class SimulationMaster extends Thread implements SimulationMasterMBean{
 
 	/** How much time passes in one step (in milliseconds). 40ms results in a smooth animation with 25fps. */
 	public static final int TIME_PER_STEP = 40;
 	
-	/** The list with all events */
-	private static final EventList eventList_ = EventList.getInstance();
-	
 	/** Indicates if this simulation should run. If this flag is updated to false the current simulation step 
 	 * is finished and afterwards the simulation stops */
 	private volatile boolean running_ = false;
@@ -73,6 +82,15 @@ public final class SimulationMaster extends Thread{
 	
 	/** The time, one step should have in realtime. Decrease to get a faster simulation, increase to get a slower simulation. */
 	private volatile int targetStepTime_ = TIME_PER_STEP;
+	
+	/** The amount of steps simulated per frame shown in the GUI. <code>0</code> to choose it from the measured costs of drawing and simulating. */
+	private volatile int stepsPerFrame_ = 1;
+	
+	/** The largest amount of steps per frame which is chosen automatically (250 steps = 10s of simulated time). */
+	private static final int MAX_AUTO_STEPS_PER_FRAME = 250;
+	
+	/** The share of the time which may be spent on drawing and updating the statistics if the steps per frame are chosen automatically. */
+	private static final double AUTO_FRAME_SHARE = 0.1;
 
 	/** If the mode to jump to a specific time is enabled or not. */
 	private volatile boolean jumpTimeMode_ = false;
@@ -80,15 +98,27 @@ public final class SimulationMaster extends Thread{
 	/** A target time to jump to */
 	private volatile int jumpTimeTarget_ = -1;
 
+	/** If a console simulation exits the JVM at the end of a time jump or after an error. Disabled if several simulations run in one JVM. */
+	private volatile boolean exitAtEnd_ = true;
+
+	/** If this thread should end (see {@link #terminate()}). */
+	private volatile boolean terminated_ = false;
+
 	/** An array holding all worker threads. */
 	private WorkerThread[] workers_ = null;
 
+	/** The scheduler distributing the regions to the worker threads. */
+	private RegionScheduler scheduler_ = null;
+
+	/** The amount of worker threads to use. If smaller than 1, the amount of available processors is used. */
+	private static int threadCount_ = 0;
+
+	/** The amount of worker threads of this simulation. If smaller than 1, the global amount is used. */
+	private volatile int workerCount_ = 0;
+
 	/** Synchronization barrier for the start of the working threads. */
 	private CyclicBarrier barrierStart_ = null;
 	
-	/** Synchronization barrier for the worker threads. */
-	private CyclicBarrier barrierDuringWork_ = null;
-
 	/** Synchronization barrier for the end of one step in the working process. */
 	private CyclicBarrier barrierFinish_ = null;
 	
@@ -98,14 +128,98 @@ public final class SimulationMaster extends Thread{
 	/** Flag to log silent period header once */
 	private boolean logSilentPeriodHeader_ = true;
 	
-	/** the timer for the event spots */
-	private static int eventSpotCountdown_ = -1;
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(SimulationMaster.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables of the simulation master which belong to one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** the timer for the event spots */
+		int eventSpotCountdown_ = -1;
+	}
+
+	/** The file to which a checkpoint is written after the current step or <code>null</code> if no checkpoint was requested. */
+	private volatile File checkpointFile_ = null;
+	
+	/** The file to which a checkpoint is written when the current time jump has reached its target or <code>null</code>. */
+	private volatile File jumpCheckpointFile_ = null;
+	
+	/** Interval (in simulated milliseconds) between automatically written checkpoints. 0 disables automatic checkpoints. */
+	private static int checkpointInterval_ = 0;
+	
+	/** The directory for automatically written checkpoints. */
+	private static String checkpointDir_ = "./"; //$NON-NLS-1$
+	
+	/** If the junctions must not be recalculated when the workers are created the next time (they hold the state of a restored checkpoint). */
+	private volatile boolean keepJunctions_ = false;
+	
+	/** The context of the simulation run by this master. It is bound to this thread and all worker threads. */
+	private final SimulationContext context_;
+	
+	/** The statistics of the times of the steps and their phases. */
+	private final StepStatistics statistics_ = new StepStatistics();
+	
+	/** Counter to give each simulation master in this JVM its own JMX name. */
+	private static final AtomicInteger NEXT_MBEAN_ID = new AtomicInteger(0);
+	
+	/** The JMX names of this master and its statistics (<code>null</code> if not registered). */
+	private ObjectName[] mbeanNames_ = null;
+	
+	/** Commands from other threads (for example through JMX) which are run by this thread between two steps. */
+	private final ConcurrentLinkedQueue<Runnable> commands_ = new ConcurrentLinkedQueue<Runnable>();
+	
+	/** The simulation time after the last step. Published for other threads. */
+	private volatile int publishedTime_ = 0;
+	
+	/** The amount of worker threads. Published for other threads. */
+	private volatile int publishedWorkers_ = 0;
+	
+	/** The amount of vehicles processed in the last step. Published for other threads. */
+	private volatile int publishedAwakeVehicles_ = 0;
+	
+	/** The amount of regions processed in the last step. Published for other threads. */
+	private volatile int publishedActiveRegions_ = 0;
 	
 	
 	/**
-	 * Instantiates a new simulation master.
+	 * Instantiates a new simulation master for the simulation in the context of the calling thread.
 	 */
 	public SimulationMaster(){
+		this(SimulationContext.getCurrent());
+	}
+
+	/**
+	 * Instantiates a new simulation master for the simulation in the given context. Use this to run several simulations
+	 * in one JVM: the map, scenario and events have to be loaded in a thread bound to the same context.
+	 * 
+	 * @param context	the context of the simulation
+	 */
+	public SimulationMaster(SimulationContext context){
+		context_ = context;
+	}
+
+	/**
+	 * Gets the context of the simulation run by this master.
+	 * 
+	 * @return the context
+	 */
+	public SimulationContext getContext(){
+		return context_;
+	}
+
+	/**
+	 * Gets the statistics of the times of the steps and their phases. They are also available through JMX.
+	 * 
+	 * @return the statistics
+	 */
+	public StepStatistics getStatistics(){
+		return statistics_;
 	}
 
 	/**
@@ -114,7 +228,7 @@ public final class SimulationMaster extends Thread{
 	 */  
 	public synchronized void startThread(){
 		// write silent period log header
-		if(Vehicle.isSlowOn()) SlowPanel.writeSlowHeader();
+		if(Vehicle.isSlowOn()) PrivacyLogWriter.log("Slow speed limit:" + Vehicle.getSLOW_SPEED_LIMIT() + ":Time to pseudonym change:" + Vehicle.getTIME_TO_PSEUDONYM_CHANGE());
 		
 		if(Vehicle.isSilentPeriodsOn() && logSilentPeriodHeader_) {
 			logSilentPeriodHeader_ = false;
@@ -123,9 +237,9 @@ public final class SimulationMaster extends Thread{
 		
 		
 		
-		Renderer.getInstance().notifySimulationRunning(true);
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().notifySimulationRunning(true);
 		ErrorLog.log(Messages.getString("SimulationMaster.simulationStarted"), 2, SimulationMaster.class.getName(), "startThread", null); //$NON-NLS-1$ //$NON-NLS-2$
-		Renderer.getInstance().ReRender(true, false);
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(true, false);
 		running_ = true;		
 	}
 
@@ -136,7 +250,15 @@ public final class SimulationMaster extends Thread{
 	public synchronized void stopThread(){
 		if(running_) ErrorLog.log(Messages.getString("SimulationMaster.simulationStopped"), 2, SimulationMaster.class.getName(), "stopThread", null); //$NON-NLS-1$ //$NON-NLS-2$
 		running_ = false;
-		if ((Map.getInstance().getReadyState() == false || Scenario.getInstance().getReadyState() == false) && workers_ != null){
+		if (Map.getInstance().getReadyState() == false || Scenario.getInstance().getReadyState() == false) destroyWorkers();
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().notifySimulationRunning(false);
+	}
+	
+	/**
+	 * Stops all worker threads. They are created again when the simulation is started the next time.
+	 */
+	private void destroyWorkers(){
+		if(workers_ != null){
 			//wait till all workers get to the start barrier
 			while(barrierStart_.getParties() - barrierStart_.getNumberWaiting() != 1){
 				try{
@@ -147,8 +269,107 @@ public final class SimulationMaster extends Thread{
 			workers_[0].interrupt();
 		
 			workers_ = null;
-		}		
-		Renderer.getInstance().notifySimulationRunning(false);
+		}
+	}
+	
+	/**
+	 * Requests a checkpoint of the complete simulation state. The state is captured after the current step has finished 
+	 * (or as soon as possible if the simulation is stopped) and written to the file in the background.
+	 * 
+	 * @param file	the file to write the checkpoint to
+	 */
+	public void requestCheckpoint(File file){
+		checkpointFile_ = file;
+	}
+	
+	/**
+	 * Requests a checkpoint at the end of the next time jump (see {@link #jumpToTime(int)}). Unlike {@link #requestCheckpoint(File)},
+	 * the checkpoint is written before the simulation stops so that it is complete even if a console simulation exits afterwards.
+	 * 
+	 * @param file	the file to write the checkpoint to or <code>null</code> to cancel the request
+	 */
+	public void requestCheckpointAfterJump(File file){
+		jumpCheckpointFile_ = file;
+	}
+	
+	/**
+	 * Restores the simulation state from a checkpoint. The simulation needs to be stopped.
+	 * 
+	 * @param file	the checkpoint file
+	 * 
+	 * @return <code>true</code> if the checkpoint was restored, <code>false</code> if the simulation is running or the file could not be read
+	 */
+	public synchronized boolean restoreCheckpoint(File file){
+		if(running_) return false;
+		try{
+			Checkpoint.restore(file);
+		} catch (Exception e){
+			restoreFailed(file.getPath(), e);
+			return false;
+		}
+		restored();
+		return true;
+	}
+	
+	/**
+	 * Restores the simulation state from a state captured in memory with {@link Checkpoint#capture()}, for example to fork
+	 * several simulations from one warm-up. The simulation needs to be stopped.
+	 * 
+	 * @param state	the state
+	 * 
+	 * @return <code>true</code> if the state was restored, <code>false</code> if the simulation is running or the state could not be read
+	 */
+	public synchronized boolean restoreCheckpoint(byte[] state){
+		if(running_) return false;
+		try{
+			Checkpoint.restore(state);
+		} catch (Exception e){
+			restoreFailed("", e); //$NON-NLS-1$
+			return false;
+		}
+		restored();
+		return true;
+	}
+	
+	/**
+	 * Rebuilds the scheduler after a checkpoint has been restored so that no worker state from before the restore survives.
+	 */
+	private void restored(){
+		destroyWorkers();
+		keepJunctions_ = true;
+		ErrorLog.log(Messages.getString("Checkpoint.restored") + EngineContext.getTimePassed(), 3, SimulationMaster.class.getName(), "restoreCheckpoint", null); //$NON-NLS-1$ //$NON-NLS-2$
+		if(!EngineContext.isConsoleStart()) Renderer.getInstance().ReRender(true, false);
+	}
+	
+	/**
+	 * Handles a checkpoint which couldn't be restored. The state from before has been restored again, but the vehicles
+	 * are new objects now.
+	 * 
+	 * @param source	the file of the checkpoint (empty for a state in memory)
+	 * @param e			the error
+	 */
+	private void restoreFailed(String source, Exception e){
+		if(workers_ != null){
+			destroyWorkers();
+			keepJunctions_ = true;
+		}
+		ErrorLog.log(Messages.getString("Checkpoint.readError") + source, 6, SimulationMaster.class.getName(), "restoreCheckpoint", e); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
+	/**
+	 * Captures the simulation state for a requested checkpoint and starts writing it in the background. May only be called 
+	 * while all worker threads wait at the start barrier.
+	 * 
+	 * @param time	the current simulation time
+	 */
+	private void writeCheckpoint(int time){
+		File file = checkpointFile_;
+		checkpointFile_ = null;
+		try{
+			Checkpoint.writeInBackground(time, file);
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("Checkpoint.writeError") + file.getPath(), 6, SimulationMaster.class.getName(), "writeCheckpoint", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 	}
 	
 	/**
@@ -160,7 +381,7 @@ public final class SimulationMaster extends Thread{
 	public void jumpToTime(int time){
 		jumpTimeMode_ = true;
 		jumpTimeTarget_ = time;
-		if(!Renderer.getInstance().isConsoleStart())VanetSimStart.setProgressBar(true);
+		if(!EngineContext.isConsoleStart())VanetSimStart.setProgressBar(true);
 		startThread();
 	}
 	
@@ -173,22 +394,56 @@ public final class SimulationMaster extends Thread{
 		if(time > 0) targetStepTime_ = time;
 	}
 
+	/**
+	 * Gets the amount of steps simulated per frame shown in the GUI.
+	 * 
+	 * @return the amount of steps or <code>0</code> if it is chosen automatically
+	 */
+	public int getStepsPerFrame(){
+		return stepsPerFrame_;
+	}
+
+	/**
+	 * Sets the amount of steps simulated per frame shown in the GUI. Only the state after the last of these steps is drawn
+	 * and the statistics are only checked once per frame, so more steps per frame give a faster simulation. The target step
+	 * time is then used for a frame instead of a step.
+	 * 
+	 * @param steps	the amount of steps or <code>0</code> to choose it automatically so that about 10% of the time is spent on drawing
+	 */
+	public void setStepsPerFrame(int steps){
+		if(steps >= 0) stepsPerFrame_ = steps;
+	}
+
+	/**
+	 * Calculates the amount of steps per frame so that drawing a frame costs about {@link #AUTO_FRAME_SHARE} of the time.
+	 * 
+	 * @param frameCost	the cost of a frame (publishing the state, updating the statistics and drawing) in nanoseconds
+	 * @param stepCost	the cost of a step in nanoseconds
+	 * 
+	 * @return the amount of steps (at least <code>1</code>)
+	 */
+	private static int getAutoStepsPerFrame(long frameCost, double stepCost){
+		if(stepCost <= 0) return 1;
+		double steps = Math.ceil(frameCost / (AUTO_FRAME_SHARE * stepCost));
+		if(steps >= MAX_AUTO_STEPS_PER_FRAME) return MAX_AUTO_STEPS_PER_FRAME;
+		else if(steps < 1) return 1;
+		else return (int)steps;
+	}
+
 	/**
 	 * Proceed one single step forward.
 	 */
 	public void doOneStep(){
 		if(!running_){
-			Renderer.getInstance().notifySimulationRunning(true);
+			if(!EngineContext.isConsoleStart()) Renderer.getInstance().notifySimulationRunning(true);
 			doOneStep_ = true;
 		}
 	}
 
 	/**
-	 * Function to set up the worker threads with their corresponding regions. Each thread gets an equal amount of regions
-	 * (some might get one more because of rounding). The amount of items in a region is not used as a method to improve equality
-	 * between threads as this value might change over time (moving vehicles!).
-	 * This function expects to get 2x the amount of CPU cores as threads so that the negative effects of an unequal allocation
-	 * (some threads finishing faster as others => unused cpu power) are reduced.
+	 * Function to set up the worker threads. The regions are not assigned to the threads statically. Instead, all workers
+	 * share one {@link RegionScheduler} from which they take the regions to process in each phase. Threads finishing their
+	 * regions early thus help out with the remaining (dense) regions instead of waiting at the barrier.
 	 * 
 	 * @param timePerStep	the time per step in milliseconds
 	 * @param threads		the amount of threads that shall be created
@@ -198,50 +453,29 @@ public final class SimulationMaster extends Thread{
 	public WorkerThread[] createWorkers(int timePerStep, int threads){
 		ArrayList<WorkerThread> tmpWorkers = new ArrayList<WorkerThread>();
 		WorkerThread tmpWorker = null;
-		Region[][] regions = Map.getInstance().getRegions();
-		ArrayList<Region> tmpRegions = new ArrayList<Region>();
-		long regionCountX = Map.getInstance().getRegionCountX();
-		long regionCountY = Map.getInstance().getRegionCountY();		
-		double regionsPerThread = regionCountX * regionCountY / (double)threads;		
-		long count = 0;
-		double target = regionsPerThread;
-		threads = 0;	// reset to 0, perhaps we're getting more/less because of rounding so we calculate this later!
-
-		for(int i = 0; i < regionCountX; ++i){
-			for(int j = 0; j < regionCountY; ++j){
-				++count;
-				tmpRegions.add(regions[i][j]);
-				if(count >= Math.round(target)){					
-					try{
-						tmpWorker = new WorkerThread(tmpRegions.toArray(new Region[0]), timePerStep);			
-						++threads;
-						tmpWorkers.add(tmpWorker);
-						tmpWorker.start();
-					} catch (Exception e){
-						ErrorLog.log(Messages.getString("SimulationMaster.errorWorkerThread"), 7, SimulationMaster.class.getName(), "createWorkers", e); //$NON-NLS-1$ //$NON-NLS-2$
-					}	
-					tmpRegions = new ArrayList<Region>();
-					target += regionsPerThread;
-				}
-			}
-		}
-		if(tmpRegions.size() > 0){	// remaining items, normally this should never happen!
-			ErrorLog.log(Messages.getString("SimulationMaster.regionsRemained"), 6, SimulationMaster.class.getName(), "createWorkers", null); //$NON-NLS-1$ //$NON-NLS-2$
+		scheduler_ = new RegionScheduler(Map.getInstance().getRegions(), threads, !keepJunctions_, timePerStep, WorkerThread.getSimulationMode_(), WorkerThread.isDeterministic());
+		keepJunctions_ = false;
+		int requested = threads;
+		threads = 0;	// reset to 0, perhaps not all threads can be created so we count them here!
+
+		for(int i = 0; i < requested; ++i){
 			try{
-				tmpWorker = new WorkerThread(tmpRegions.toArray(new Region[0]), timePerStep);			
+				tmpWorker = new WorkerThread(i, scheduler_, timePerStep, context_, statistics_);			
 				++threads;
 				tmpWorkers.add(tmpWorker);
 				tmpWorker.start();
 			} catch (Exception e){
-				ErrorLog.log(Messages.getString("SimulationMaster.errorAddingRemainingRegions"), 7, SimulationMaster.class.getName(), "createWorkers", e); //$NON-NLS-1$ //$NON-NLS-2$
+				ErrorLog.log(Messages.getString("SimulationMaster.errorWorkerThread"), 7, SimulationMaster.class.getName(), "createWorkers", e); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		}
 		barrierStart_ = new CyclicBarrier(threads + 1);
-		barrierDuringWork_ = new CyclicBarrier(threads);
+		scheduler_.registerWorkers(threads);
+		statistics_.registerWorkers(threads);
 		barrierFinish_ = new CyclicBarrier(threads + 1);
+		publishedWorkers_ = threads;
 		Iterator<WorkerThread> iterator = tmpWorkers.iterator();
 		while(iterator.hasNext() ) { 
-			iterator.next().setBarriers(barrierStart_, barrierDuringWork_, barrierFinish_);
+			iterator.next().setBarriers(barrierStart_, barrierFinish_);
 		}
 		return tmpWorkers.toArray(new WorkerThread[0]);
 	}
@@ -253,30 +487,38 @@ public final class SimulationMaster extends Thread{
 	 */
 	public void run() {
 		setName("SimulationMaster"); //$NON-NLS-1$
+		SimulationContext.setCurrent(context_);
+		registerMBeans();
 		int time, threads;
-		long renderTime;
-		Renderer renderer = Renderer.getInstance();
-		CyclicBarrier barrierRender = new CyclicBarrier(2);
-		renderer.setBarrierForSimulationMaster(barrierRender);
+		long renderTime = 0, stepTime, frameTime, frameCost = 0;
+		int stepsInFrame = 0, frameSteps = 1;
+		double stepCost = 0;
+		boolean consoleStart = EngineContext.isConsoleStart();
+		// a console run never touches the renderer so that no AWT/Swing classes get loaded
+		Renderer renderer = null;
 		ReportingControlPanel statsPanel = null;
-		if(!Renderer.getInstance().isConsoleStart()) statsPanel = VanetSimStart.getMainControlPanel().getReportingPanel();
+		if(!consoleStart){
+			renderer = Renderer.getInstance();
+			statsPanel = VanetSimStart.getMainControlPanel().getReportingPanel();
+		}
 		long timeOld = 0;
 		long timeNew = 0;
 		long timeDistance = 0;
-		boolean consoleStart = Renderer.getInstance().isConsoleStart();
 		KnownVehiclesList.setTimePerStep_(TIME_PER_STEP);
 		//GeneralLogWriter.setLogPath(System.getProperty("user.dir"));
 		//GeneralLogWriter.log("EventType,Attack,x1,y1,v1,x2,y2,v2,x3,y3,v3,x4,y4,v4,x5,y5,v5,x6,y6,v6,x7,y7,v7,x8,y8,v8,x9,y9,v9,x10,y10,v10");
-		while(true){
+		while(!terminated_){
 			try{
+				runCommands();
 				if(running_ || doOneStep_){
-					renderTime = System.nanoTime();
-					barrierRender.reset();
+					if(stepsInFrame == 0) renderTime = System.nanoTime();	// the start of the frame
 					
 					while(workers_ == null){
 						if (Map.getInstance().getReadyState() == true && Scenario.getInstance().getReadyState() == true){	// wait until map is ready
-							if(Runtime.getRuntime().availableProcessors() < 2) threads = 1;	// on single processor systems or if system reports wrong (smaller 1) amount of CPUs => fallback to 1 CPU and 1 thread
-							else threads = Runtime.getRuntime().availableProcessors() * 2;		// on multiprocessor systems use double the amount of threads to use ressources more efficiently
+							if(workerCount_ > 0) threads = workerCount_;	// share of the processors if several simulations run in one JVM
+							else if(threadCount_ > 0) threads = threadCount_;	// fixed amount of threads set by the user (for example to measure scaling)
+							else if(Runtime.getRuntime().availableProcessors() < 2) threads = 1;	// on single processor systems or if system reports wrong (smaller 1) amount of CPUs => fallback to 1 CPU and 1 thread
+							else threads = Runtime.getRuntime().availableProcessors();		// one thread per CPU is enough as idle threads take over work from busy ones
 							long max_heap = Runtime.getRuntime().maxMemory()/1048576;		// Heap memory in MB
 							ErrorLog.log(Messages.getString("SimulationMaster.preparingSimulation") + threads + Messages.getString("SimulationMaster.threadsDetected") + max_heap + Messages.getString("SimulationMaster.heapMemory"), 3, SimulationMaster.class.getName(), "run", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 							// Prepare multiple worker threads to gain advantage of multi-core processors
@@ -285,24 +527,47 @@ public final class SimulationMaster extends Thread{
 							sleep(50);
 						}
 					}					
-					time = renderer.getTimePassed() + TIME_PER_STEP;
+					time = EngineContext.getTimePassed() + TIME_PER_STEP;
 
 					//process events
-					eventList_.processEvents(time);	
+					EventList.getInstance().processEvents(time);	
+
+					// update the vehicle arrays and the order in which the regions are processed
+					scheduler_.prepareStep();
 
 					// (re)start the working threads
+					statistics_.prepareStep();
+					stepTime = System.nanoTime();
 					barrierStart_.await();
 
 					// wait for all working threads to finish to prevent drawing an inconsistent state!
 					barrierFinish_.await();	
+					if(scheduler_.getFailure() != null){
+						// vehicles might have been lost or duplicated between regions so the simulation can't go on
+						ErrorLog.log(Messages.getString("SimulationMaster.stepFailed") + time, 7, SimulationMaster.class.getName(), "run", scheduler_.getFailure()); //$NON-NLS-1$ //$NON-NLS-2$
+						if(consoleStart && exitAtEnd_) System.exit(1);
+						stopThread();
+						destroyWorkers();
+						continue;
+					}
+					scheduler_.finishStep();
+					stepTime = System.nanoTime() - stepTime;
+					statistics_.finishStep(time, stepTime, scheduler_.getAwakeVehicleCount(), scheduler_.getActiveRegionCount());
+					publishedAwakeVehicles_ = scheduler_.getAwakeVehicleCount();
+					publishedActiveRegions_ = scheduler_.getActiveRegionCount();
 
 					// Rendering itself can't be multithreaded and thus must be done here and not in the workers!
 					KnownVehiclesList.setTimePassed(time);
 					IDSProcessorList.setTimePassed(time);
 					KnownRSUsList.setTimePassed(time);
-					renderer.setTimePassed(time);		
+					EngineContext.setTimePassed(time);		
+					publishedTime_ = time;
 					KnownEventSourcesList.setTimePassed(time);
-					if(eventSpotCountdown_ < time) eventSpotCountdown_ = EventSpotList.getInstance().doStep(time);
+					if(state().eventSpotCountdown_ < time) state().eventSpotCountdown_ = EventSpotList.getInstance().doStep(time);
+					
+					// the workers now wait at the start barrier so the state is consistent
+					if(checkpointInterval_ > 0 && time % checkpointInterval_ == 0) checkpointFile_ = new File(checkpointDir_, "checkpoint_" + time + ".vcp"); //$NON-NLS-1$ //$NON-NLS-2$
+					if(checkpointFile_ != null) writeCheckpoint(time);
 
 					
 					//GeneralLogWriter.setLogPath(System.getProperty("user.dir"));
@@ -310,23 +575,33 @@ public final class SimulationMaster extends Thread{
 					
 					
 					
-					if(!jumpTimeMode_){
-						
-						renderer.ReRender(false, true);
-	
-						statsPanel.checkUpdates(TIME_PER_STEP);
-						// wait until rendering has completed
-						Thread.yield();
-						barrierRender.await(3, TimeUnit.SECONDS);
-	
-						// wait so that we get near the desired frames per second (no waiting if processing power wasn't enough!)
-						renderTime = ((System.nanoTime() - renderTime)/1000000);
-						if(renderTime > 0) renderTime = targetStepTime_ - renderTime;
-						else renderTime = targetStepTime_ + renderTime;	//nanoTime might overflow
-						if(renderTime > 0 && renderTime <= targetStepTime_){
-							sleep(renderTime);
+					if(!jumpTimeMode_ && !consoleStart){
+						// several steps may be simulated per frame. Only the state after the last one is shown.
+						++stepsInFrame;
+						stepCost = (stepCost == 0) ? stepTime : stepCost * 0.9 + stepTime * 0.1;
+						if(stepsInFrame >= frameSteps || doOneStep_ || !running_){
+							frameTime = System.nanoTime();
+							
+							// hand the new state to the renderer which draws it on its own without blocking the next step
+							renderer.publishSnapshot(time);
+		
+							statsPanel.checkUpdates(stepsInFrame * TIME_PER_STEP);
+							
+							frameTime = System.nanoTime() - frameTime + renderer.getPaintTime();
+							frameCost = (frameCost == 0) ? frameTime : (frameCost * 4 + frameTime) / 5;
+							if(stepsPerFrame_ > 0) frameSteps = stepsPerFrame_;
+							else frameSteps = getAutoStepsPerFrame(frameCost, stepCost);
+							stepsInFrame = 0;
+		
+							// wait so that we get near the desired frames per second (no waiting if processing power wasn't enough!)
+							renderTime = ((System.nanoTime() - renderTime)/1000000);
+							if(renderTime > 0) renderTime = targetStepTime_ - renderTime;
+							else renderTime = targetStepTime_ + renderTime;	//nanoTime might overflow
+							if(renderTime > 0 && renderTime <= targetStepTime_){
+								sleep(renderTime);
+							}
 						}
-					} else {
+					} else if(jumpTimeMode_){
 						if(consoleStart && time%5000 == 0){
 							timeNew = System.currentTimeMillis();
 							timeDistance = timeNew-timeOld;
@@ -338,6 +613,15 @@ public final class SimulationMaster extends Thread{
 						if(time >= jumpTimeTarget_){
 							jumpTimeTarget_ = -1;
 							jumpTimeMode_ = false;
+							if(jumpCheckpointFile_ != null){
+								try{
+									Checkpoint.write(Checkpoint.capture(), time, jumpCheckpointFile_);
+									ErrorLog.log(Messages.getString("Checkpoint.written") + jumpCheckpointFile_.getPath(), 3, SimulationMaster.class.getName(), "run", null); //$NON-NLS-1$ //$NON-NLS-2$
+								} catch (Exception e){
+									ErrorLog.log(Messages.getString("Checkpoint.writeError") + jumpCheckpointFile_.getPath(), 6, SimulationMaster.class.getName(), "run", e); //$NON-NLS-1$ //$NON-NLS-2$
+								}
+								jumpCheckpointFile_ = null;
+							}
 							stopThread();
 							if(consoleStart){
 								System.out.println("Time:" + new Date());
@@ -352,7 +636,7 @@ public final class SimulationMaster extends Thread{
 								//createAndSaveSpamData();
 								//writeAverageKnownVehiclesTime();
 								//vehicleFluctuation();
-								System.exit(0);
+								if(exitAtEnd_) System.exit(0);
 							}
 							if(!consoleStart){
 								VanetSimStart.setProgressBar(false);
@@ -363,13 +647,55 @@ public final class SimulationMaster extends Thread{
 					}
 					if(doOneStep_){
 						doOneStep_ = false;
-						renderer.notifySimulationRunning(false);
+						if(renderer != null) renderer.notifySimulationRunning(false);
 					}
 				} else {
+					if(checkpointFile_ != null) writeCheckpoint(EngineContext.getTimePassed());
+					publishedTime_ = EngineContext.getTimePassed();	// might have been changed by loading a scenario or checkpoint
 					sleep(50);
 				}
 			} catch (Exception e){};
 		}
+		destroyWorkers();
+		unregisterMBeans();
+	}
+
+	/**
+	 * Ends this thread and its worker threads after the current step so that a simulation which is no longer needed can be
+	 * garbage collected. The simulation can't be started again afterwards.
+	 */
+	public void terminate(){
+		terminated_ = true;
+		running_ = false;
+	}
+
+	/**
+	 * Sets if a console simulation exits the JVM when a time jump has reached its target (or a step has failed). Needs to
+	 * be disabled if several simulations run in one JVM.
+	 * 
+	 * @param exitAtEnd	<code>true</code> to exit the JVM (default), <code>false</code> to only stop the simulation
+	 */
+	public void setExitAtEnd(boolean exitAtEnd){
+		exitAtEnd_ = exitAtEnd;
+	}
+
+	/**
+	 * Waits until the simulation has stopped, for example because a time jump has reached its target.
+	 * 
+	 * @throws InterruptedException if the calling thread was interrupted while waiting
+	 */
+	public void waitUntilStopped() throws InterruptedException{
+		while(running_) sleep(10);
+	}
+
+	/**
+	 * Sets the amount of worker threads of this simulation, for example to share the processors between several simulations
+	 * in one JVM. Only has an effect if set before the workers are created.
+	 * 
+	 * @param workerCount	the amount of threads or <code>0</code> to use the global amount (see {@link #setThreadCount(int)})
+	 */
+	public void setWorkerCount(int workerCount){
+		workerCount_ = workerCount;
 	}
 
 	/**
@@ -381,6 +707,227 @@ public final class SimulationMaster extends Thread{
 		return running_;
 	}
 
+	/**
+	 * Queues a command which is run by this thread between two steps (or while the simulation is paused). All workers wait
+	 * at the start barrier then, so the command may access the complete simulation state.
+	 * 
+	 * @param command	the command
+	 */
+	public void runBetweenSteps(Runnable command){
+		commands_.add(command);
+	}
+
+	/**
+	 * Runs all queued commands. Errors of a command are only logged.
+	 */
+	private void runCommands(){
+		Runnable command;
+		while((command = commands_.poll()) != null){
+			try{
+				command.run();
+			} catch (Exception e){
+				ErrorLog.log(Messages.getString("SimulationMaster.commandError"), 6, SimulationMaster.class.getName(), "runCommands", e); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+	}
+
+	/**
+	 * Registers this master and its statistics at the platform MBean server. Errors are only logged.
+	 */
+	private void registerMBeans(){
+		String simulation = String.valueOf(NEXT_MBEAN_ID.getAndIncrement());
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName[] names = new ObjectName[]{new ObjectName("vanetsim:type=SimulationMaster,simulation=" + simulation), new ObjectName("vanetsim:type=StepStatistics,simulation=" + simulation)}; //$NON-NLS-1$ //$NON-NLS-2$
+			server.registerMBean(this, names[0]);
+			server.registerMBean(statistics_, names[1]);
+			mbeanNames_ = names;
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("SimulationMaster.jmxError"), 5, SimulationMaster.class.getName(), "registerMBeans", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Removes this master and its statistics from the platform MBean server. Errors are only logged.
+	 */
+	private void unregisterMBeans(){
+		if(mbeanNames_ == null) return;
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			for(int i = 0; i < mbeanNames_.length; ++i){
+				if(server.isRegistered(mbeanNames_[i])) server.unregisterMBean(mbeanNames_[i]);
+			}
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("SimulationMaster.jmxError"), 5, SimulationMaster.class.getName(), "unregisterMBeans", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		mbeanNames_ = null;
+	}
+
+	/**
+	 * Counts all vehicles and the active vehicles on the map. The vehicles are counted by this thread between two steps
+	 * while the calling thread waits up to two seconds.
+	 * 
+	 * @return the amount of all vehicles and of the active vehicles or <code>-1</code> for both if this thread did not respond in time
+	 */
+	private int[] countVehicles(){
+		final int[] counts = {-1, -1};
+		final CountDownLatch done = new CountDownLatch(1);
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				Region[][] regions = Map.getInstance().getRegions();
+				int all = 0, active = 0, i, j, k, length;
+				Vehicle[] vehicles;
+				if(regions != null){
+					for(i = 0; i < regions.length; ++i){
+						for(j = 0; j < regions[i].length; ++j){
+							vehicles = regions[i][j].getVehicleStore();
+							length = regions[i][j].getVehicleCount();
+							all += length;
+							for(k = 0; k < length; ++k){
+								if(vehicles[k].isActive()) ++active;
+							}
+						}
+					}
+				}
+				counts[0] = all;
+				counts[1] = active;
+				done.countDown();
+			}
+		});
+		try{
+			if(done.await(2, TimeUnit.SECONDS)) return counts;
+		} catch (InterruptedException e){}
+		return new int[]{-1, -1};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getTime(){
+		return publishedTime_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getTargetStepTime(){
+		return targetStepTime_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getJumpTarget(){
+		if(jumpTimeMode_) return jumpTimeTarget_;
+		else return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getWorkerCount(){
+		return publishedWorkers_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getAwakeVehicleCount(){
+		return publishedAwakeVehicles_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getActiveRegionCount(){
+		return publishedActiveRegions_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getVehicleCount(){
+		return countVehicles()[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getActiveVehicleCount(){
+		return countVehicles()[1];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void pauseSimulation(){
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				if(running_) stopThread();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void resumeSimulation(){
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				if(!running_) startThread();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void stepSimulation(){
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				doOneStep();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void jump(final int time){
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				if(time > EngineContext.getTimePassed()) jumpToTime(time);	// jumping backwards is not possible
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void checkpoint(String path){
+		requestCheckpoint(new File(path));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void flushLogs(){
+		runBetweenSteps(new Runnable(){
+			public void run(){
+				statistics_.flush(EngineContext.getTimePassed());
+				LogManager manager = LogManager.getLogManager();
+				Enumeration<String> names = manager.getLoggerNames();
+				Logger logger;
+				while(names.hasMoreElements()){
+					logger = manager.getLogger(names.nextElement());
+					if(logger != null){
+						for(Handler handler : logger.getHandlers()) handler.flush();
+					}
+				}
+			}
+		});
+	}
+
 	public boolean isGuiEnabled() {
 		return guiEnabled;
 	}
@@ -393,14 +940,34 @@ public final class SimulationMaster extends Thread{
 	 * @return the eventSpotCountdown_
 	 */
 	public static  int getEventSpotCountdown_() {
-		return eventSpotCountdown_;
+		return state().eventSpotCountdown_;
 	}
 
 	/**
 	 * @param eventSpotCountdown_ the eventSpotCountdown_ to set
 	 */
 	public static void setEventSpotCountdown_(int eventSpotCountdown) {
-		eventSpotCountdown_ = eventSpotCountdown;
+		state().eventSpotCountdown_ = eventSpotCountdown;
+	}
+
+	/**
+	 * Sets the amount of worker threads. Only has an effect if set before the workers are created.
+	 * 
+	 * @param threadCount	the amount of threads or <code>0</code> to use one thread per available processor
+	 */
+	public static void setThreadCount(int threadCount) {
+		threadCount_ = threadCount;
+	}
+	
+	/**
+	 * Sets up automatic checkpoints which are written in regular intervals of simulated time.
+	 * 
+	 * @param interval	the interval in milliseconds (should be a multiple of {@link #TIME_PER_STEP}) or <code>0</code> to disable automatic checkpoints
+	 * @param directory	the directory to write the checkpoints to
+	 */
+	public static void setCheckpointInterval(int interval, String directory) {
+		checkpointInterval_ = interval;
+		checkpointDir_ = directory;
 	}
 	
 	/**
@@ -784,13 +1351,13 @@ public final class SimulationMaster extends Thread{
 						
 						knownVehiclesTotal += vehicle.getKnownVehiclesList().getSize();
 						
+						KnownVehicle[] knownVehicles = vehicle.getKnownVehiclesList().getKnownVehicles();
 						KnownVehicle next;
-						for(int l = 0; l < KnownVehiclesList.getHashSize(); ++l){
-							next = vehicle.getKnownVehiclesList().getFirstKnownVehicle()[l];
-							while(next != null){
+						for(int l = 0; l < knownVehicles.length; ++l){
+							next = knownVehicles[l];
+							if(next != null){
 								knownVehiclesCounter++;
 								knownTimeTotal +=  (next.getLastUpdate() - next.getFirstContact_());
-								next = next.getNext();
 							}
 						}		
 					}
@@ -802,4 +1369,13 @@ public final class SimulationMaster extends Thread{
 		returnArray[1] = (knownTimeTotal/knownVehiclesCounter);
 		return returnArray;
 	}
+
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * The JMX interface of the {@link SimulationMaster} to watch and control a simulation (for example a long console run)
+ * without the GUI. The operations are not executed by the calling thread but queued and run by the simulation master
+ * between two steps.
+ */
+public interface SimulationMasterMBean {
+
+	/**
+	 * Checks if the simulation is running.
+	 *
+	 * @return <code>true</code> if the simulation is running, <code>false</code> if it is paused
+	 */
+	public boolean isSimulationRunning();
+
+	/**
+	 * Gets the simulation time after the last step.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public int getTime();
+
+	/**
+	 * Gets the time one step should take in real time.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public int getTargetStepTime();
+
+	/**
+	 * Sets the time one step should take in real time. Only used if the simulation is shown in the GUI.
+	 *
+	 * @param time	the time in milliseconds
+	 */
+	public void setTargetStepTime(int time);
+
+	/**
+	 * Gets the amount of steps simulated per frame shown in the GUI.
+	 *
+	 * @return the amount of steps or <code>0</code> if it is chosen automatically
+	 */
+	public int getStepsPerFrame();
+
+	/**
+	 * Sets the amount of steps simulated per frame shown in the GUI.
+	 *
+	 * @param steps	the amount of steps or <code>0</code> to choose it automatically
+	 */
+	public void setStepsPerFrame(int steps);
+
+	/**
+	 * Gets the target of the current jump.
+	 *
+	 * @return the target time in milliseconds or <code>-1</code> if no jump is active
+	 */
+	public int getJumpTarget();
+
+	/**
+	 * Gets the amount of worker threads.
+	 *
+	 * @return the amount of workers or <code>0</code> if they have not been created yet
+	 */
+	public int getWorkerCount();
+
+	/**
+	 * Gets the amount of vehicles processed in the last step (sleeping vehicles are not processed).
+	 *
+	 * @return the amount of vehicles
+	 */
+	public int getAwakeVehicleCount();
+
+	/**
+	 * Gets the amount of regions processed in the last step (idle regions are not processed).
+	 *
+	 * @return the amount of regions
+	 */
+	public int getActiveRegionCount();
+
+	/**
+	 * Gets the amount of all vehicles on the map. The vehicles are counted between two steps.
+	 *
+	 * @return the amount of vehicles or <code>-1</code> if the simulation master did not respond in time
+	 */
+	public int getVehicleCount();
+
+	/**
+	 * Gets the amount of active vehicles on the map. The vehicles are counted between two steps.
+	 *
+	 * @return the amount of vehicles or <code>-1</code> if the simulation master did not respond in time
+	 */
+	public int getActiveVehicleCount();
+
+	/**
+	 * Pauses the simulation after the current step.
+	 */
+	public void pauseSimulation();
+
+	/**
+	 * Resumes the simulation.
+	 */
+	public void resumeSimulation();
+
+	/**
+	 * Simulates one step if the simulation is paused.
+	 */
+	public void stepSimulation();
+
+	/**
+	 * Runs the simulation without any delay until the given time is reached and pauses it then.
+	 *
+	 * @param time	the target time in milliseconds (must be later than the current time)
+	 */
+	public void jump(int time);
+
+	/**
+	 * Writes a checkpoint of the simulation after the current step.
+	 *
+	 * @param path	the path of the checkpoint file
+	 */
+	public void checkpoint(String path);
+
+	/**
+	 * Writes the step statistics of the current interval and flushes all log files.
+	 */
+	public void flushLogs();
+}
@@ -0,0 +1,171 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * A histogram of non-negative values (like durations in nanoseconds) with a fixed relative precision. Values are counted in
+ * buckets whose width grows with the value: each power of two is split into 16 buckets so that percentiles are accurate to
+ * about 6% over the whole range of <code>long</code>. Recording a value only increments a counter and never creates
+ * objects. A histogram is not thread-safe and should only be recorded to by one thread.
+ */
+public final class StepHistogram {
+
+	/** The amount of bits used for the buckets within one power of two. */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** The amount of buckets within one power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** The amount of buckets needed to cover all positive <code>long</code> values. */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/** The counts of all buckets. */
+	private final long[] counts_ = new long[BUCKETS];
+
+	/** The amount of recorded values. */
+	private long count_ = 0;
+
+	/** The sum of all recorded values. */
+	private long sum_ = 0;
+
+	/** The largest recorded value. */
+	private long max_ = 0;
+
+	/**
+	 * Gets the bucket of a value.
+	 *
+	 * @param value	the value (not negative)
+	 *
+	 * @return the index of the bucket
+	 */
+	private static int getIndex(long value){
+		if(value < SUB_BUCKETS) return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+
+	/**
+	 * Gets the largest value which is counted in a bucket.
+	 *
+	 * @param index	the index of the bucket
+	 *
+	 * @return the value
+	 */
+	private static long getHighestValue(int index){
+		if(index < 2 * SUB_BUCKETS) return index;
+		int shift = index / SUB_BUCKETS - 1;
+		return ((long)(index - shift * SUB_BUCKETS) << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * Records a value. Negative values are counted as <code>0</code>.
+	 *
+	 * @param value	the value
+	 */
+	public void record(long value){
+		if(value < 0) value = 0;
+		++counts_[getIndex(value)];
+		++count_;
+		sum_ += value;
+		if(value > max_) max_ = value;
+	}
+
+	/**
+	 * Adds all values of another histogram to this one.
+	 *
+	 * @param other	the other histogram
+	 */
+	public void add(StepHistogram other){
+		for(int i = 0; i < BUCKETS; ++i){
+			counts_[i] += other.counts_[i];
+		}
+		count_ += other.count_;
+		sum_ += other.sum_;
+		if(other.max_ > max_) max_ = other.max_;
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void reset(){
+		if(count_ == 0) return;
+		for(int i = 0; i < BUCKETS; ++i){
+			counts_[i] = 0;
+		}
+		count_ = 0;
+		sum_ = 0;
+		max_ = 0;
+	}
+
+	/**
+	 * Gets the amount of recorded values.
+	 *
+	 * @return the amount
+	 */
+	public long getCount(){
+		return count_;
+	}
+
+	/**
+	 * Gets the sum of all recorded values.
+	 *
+	 * @return the sum
+	 */
+	public long getSum(){
+		return sum_;
+	}
+
+	/**
+	 * Gets the largest recorded value.
+	 *
+	 * @return the value or <code>0</code> if nothing has been recorded
+	 */
+	public long getMax(){
+		return max_;
+	}
+
+	/**
+	 * Gets the mean of all recorded values.
+	 *
+	 * @return the mean or <code>0</code> if nothing has been recorded
+	 */
+	public double getMean(){
+		if(count_ == 0) return 0;
+		return sum_ / (double)count_;
+	}
+
+	/**
+	 * Gets the value below or at which the given percentage of all recorded values lie. The result is the upper end of the
+	 * bucket which contains this value, so it is never too small by more than the precision of the histogram.
+	 *
+	 * @param percentile	the percentage (between <code>0</code> and <code>100</code>)
+	 *
+	 * @return the value or <code>0</code> if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(count_ == 0) return 0;
+		long target = (long)Math.ceil(Math.min(percentile, 100) / 100 * count_);
+		if(target < 1) target = 1;
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; ++i){
+			seen += counts_[i];
+			if(seen >= target) return Math.min(getHighestValue(i), max_);
+		}
+		return max_;
+	}
+}
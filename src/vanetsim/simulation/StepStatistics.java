@@ -0,0 +1,487 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Locale;
+
+import vanetsim.ErrorLog;
+import vanetsim.localization.Messages;
+
+/**
+ * Records how long the worker threads spend on each phase of a step and at the barriers between the phases, how long the
+ * complete steps take and how many vehicles and regions are processed. Each worker records into its own histograms so
+ * that no synchronization is needed. The {@link SimulationMaster} merges them while the workers wait at the start barrier
+ * and publishes the result after each interval of simulated time: it is appended to a CSV file (if set) and can be read
+ * through JMX (see {@link StepStatisticsMBean}). The master registers it at the MBean server together with itself.
+ * <br><br>
+ * Recording can be switched on and off at any time (for example through JMX). The change takes effect with the next step.
+ * If it is disabled, the workers only check a flag once per step.
+ */
+public final class StepStatistics implements StepStatisticsMBean {
+
+	/** Index of the time spent waiting at barriers in the histograms of a worker (the other indices are the phases). */
+	public static final int WAIT = RegionScheduler.PHASE_COUNT;
+
+	/** The names of the phases as used in the CSV file (ordered like the phase constants of the {@link RegionScheduler}). */
+	private static final String[] NAMES = {"adjustSpeed", "messages", "ids", "beacons", "move", "trafficLights", "startVehicles", "barrierWait"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+
+	/** The header of the CSV file. Times are given in microseconds. */
+	private static final String CSV_HEADER = "time,worker,metric,count,mean,p50,p90,p99,max"; //$NON-NLS-1$
+
+	/** If recording is enabled. */
+	private volatile boolean enabled_ = false;
+
+	/** The length of an interval in milliseconds of simulated time. */
+	private volatile int interval_ = 10000;
+
+	/** The CSV file or <code>null</code>. */
+	private volatile File csvFile_ = null;
+
+	/** If the current step is recorded. Only written by the master before the workers are started. */
+	private boolean recording_ = false;
+
+	/** The histograms of each worker (one per phase and one for the barriers). */
+	private StepHistogram[][] workerHistograms_ = new StepHistogram[0][];
+
+	/** The times of the complete steps. */
+	private final StepHistogram steps_ = new StepHistogram();
+
+	/** The amounts of vehicles processed in each step. */
+	private final StepHistogram awakeVehicles_ = new StepHistogram();
+
+	/** The amounts of regions processed in each step. */
+	private final StepHistogram activeRegions_ = new StepHistogram();
+
+	/** The simulation time at which the current interval ends or <code>-1</code> if no step has been recorded in it yet. */
+	private int intervalEnd_ = -1;
+
+	/** The result of the last interval. */
+	private volatile Result result_ = new Result(0, 0, 0, new StepHistogram[WAIT + 1], new long[0], new StepHistogram(), new StepHistogram(), new StepHistogram());
+
+	/**
+	 * Sets the amount of workers. Called by the {@link SimulationMaster} whenever the workers are created. Unpublished
+	 * times of the old workers are dropped.
+	 *
+	 * @param workers	the amount of workers
+	 */
+	public void registerWorkers(int workers){
+		StepHistogram[][] histograms = new StepHistogram[workers][WAIT + 1];
+		for(int i = 0; i < workers; ++i){
+			for(int j = 0; j <= WAIT; ++j){
+				histograms[i][j] = new StepHistogram();
+			}
+		}
+		workerHistograms_ = histograms;
+	}
+
+	/**
+	 * Decides if the next step is recorded. Must be called by the master before the workers are started.
+	 */
+	public void prepareStep(){
+		recording_ = enabled_;
+	}
+
+	/**
+	 * Checks if the current step is recorded. Workers call this once at the beginning of each step.
+	 *
+	 * @return <code>true</code> if the times should be recorded
+	 */
+	public boolean isRecording(){
+		return recording_;
+	}
+
+	/**
+	 * Gets the histograms of a worker. Only this worker may record into them.
+	 *
+	 * @param worker	the number of the worker
+	 *
+	 * @return the histograms (indices are the phases and {@link #WAIT})
+	 */
+	public StepHistogram[] getWorkerHistograms(int worker){
+		return workerHistograms_[worker];
+	}
+
+	/**
+	 * Records a finished step and publishes the interval if it is over. Must be called by the master while the workers wait
+	 * at the start barrier. Does nothing if the step was not recorded.
+	 *
+	 * @param time			the simulation time after the step
+	 * @param nanos			the time the step took in nanoseconds
+	 * @param awakeVehicles	the amount of vehicles processed in the step
+	 * @param activeRegions	the amount of regions processed in the step
+	 */
+	public void finishStep(int time, long nanos, int awakeVehicles, int activeRegions){
+		if(!recording_) return;
+		steps_.record(nanos);
+		awakeVehicles_.record(awakeVehicles);
+		activeRegions_.record(activeRegions);
+		int interval = Math.max(interval_, 1);
+		if(intervalEnd_ < 0) intervalEnd_ = (time / interval + 1) * interval;
+		if(time >= intervalEnd_){
+			publish(time);
+			intervalEnd_ = -1;
+		}
+	}
+
+	/**
+	 * Publishes the steps recorded in the current interval now and starts a new interval. Must be called by the master while
+	 * the workers wait at the start barrier.
+	 *
+	 * @param time	the simulation time
+	 */
+	public void flush(int time){
+		if(steps_.getCount() == 0) return;
+		publish(time);
+		intervalEnd_ = -1;
+	}
+
+	/**
+	 * Merges the histograms of all workers, publishes the result and resets all histograms.
+	 *
+	 * @param time	the simulation time
+	 */
+	private void publish(int time){
+		StepHistogram[][] workerHistograms = workerHistograms_;
+		StepHistogram[] phases = new StepHistogram[WAIT + 1];
+		long[] workerWait = new long[workerHistograms.length];
+		int i, j;
+		for(j = 0; j <= WAIT; ++j){
+			phases[j] = new StepHistogram();
+			for(i = 0; i < workerHistograms.length; ++i){
+				phases[j].add(workerHistograms[i][j]);
+			}
+		}
+		for(i = 0; i < workerHistograms.length; ++i){
+			workerWait[i] = workerHistograms[i][WAIT].getSum() / 1000;
+		}
+		Result result = new Result(time, steps_.getCount(), workerHistograms.length, phases, workerWait, copy(steps_), copy(awakeVehicles_), copy(activeRegions_));
+		File file = csvFile_;
+		if(file != null) writeCsv(file, time, workerHistograms, result);
+		result_ = result;
+		for(i = 0; i < workerHistograms.length; ++i){
+			for(j = 0; j <= WAIT; ++j){
+				workerHistograms[i][j].reset();
+			}
+		}
+		steps_.reset();
+		awakeVehicles_.reset();
+		activeRegions_.reset();
+	}
+
+	/**
+	 * Appends an interval to the CSV file. A header is written if the file is new.
+	 *
+	 * @param file				the file
+	 * @param time				the simulation time
+	 * @param workerHistograms	the histograms of all workers
+	 * @param result			the merged histograms
+	 */
+	private void writeCsv(File file, int time, StepHistogram[][] workerHistograms, Result result){
+		BufferedWriter writer = null;
+		try{
+			boolean header = !file.exists() || file.length() == 0;
+			writer = new BufferedWriter(new FileWriter(file, true));
+			if(header){
+				writer.write(CSV_HEADER);
+				writer.newLine();
+			}
+			int i, j;
+			for(j = 0; j <= WAIT; ++j){
+				writeRow(writer, time, "all", NAMES[j], result.phases_[j], 1000); //$NON-NLS-1$
+				for(i = 0; i < workerHistograms.length; ++i){
+					writeRow(writer, time, String.valueOf(i), NAMES[j], workerHistograms[i][j], 1000);
+				}
+			}
+			writeRow(writer, time, "master", "step", result.steps_, 1000); //$NON-NLS-1$ //$NON-NLS-2$
+			writeRow(writer, time, "master", "awakeVehicles", result.awakeVehicles_, 1); //$NON-NLS-1$ //$NON-NLS-2$
+			writeRow(writer, time, "master", "activeRegions", result.activeRegions_, 1); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (Exception e){
+			ErrorLog.log(Messages.getString("StepStatistics.writeError") + file.getPath(), 6, StepStatistics.class.getName(), "writeCsv", e); //$NON-NLS-1$ //$NON-NLS-2$
+			csvFile_ = null;	// don't try again in every interval
+		} finally{
+			try{
+				if(writer != null) writer.close();
+			} catch (Exception e){}
+		}
+	}
+
+	/**
+	 * Writes one row of the CSV file. Histograms without values are left out.
+	 *
+	 * @param writer	the writer
+	 * @param time		the simulation time
+	 * @param worker	the worker column
+	 * @param metric	the metric column
+	 * @param histogram	the histogram
+	 * @param divisor	the divisor for all values (<code>1000</code> to get microseconds from nanoseconds)
+	 *
+	 * @throws Exception	if writing fails
+	 */
+	private static void writeRow(BufferedWriter writer, int time, String worker, String metric, StepHistogram histogram, int divisor) throws Exception{
+		if(histogram.getCount() == 0) return;
+		writer.write(time + "," + worker + "," + metric + "," + histogram.getCount() + "," + String.format(Locale.US, "%.1f", histogram.getMean() / divisor) + "," + histogram.getValueAtPercentile(50) / divisor + "," + histogram.getValueAtPercentile(90) / divisor + "," + histogram.getValueAtPercentile(99) / divisor + "," + histogram.getMax() / divisor); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+		writer.newLine();
+	}
+
+	/**
+	 * Copies a histogram.
+	 *
+	 * @param histogram	the histogram
+	 *
+	 * @return the copy
+	 */
+	private static StepHistogram copy(StepHistogram histogram){
+		StepHistogram result = new StepHistogram();
+		result.add(histogram);
+		return result;
+	}
+
+	/**
+	 * Gets the values of all phases converted from nanoseconds to microseconds.
+	 *
+	 * @param percentile	the percentile or <code>-1</code> for the maximum
+	 *
+	 * @return the values
+	 */
+	private long[] getPhaseMicros(double percentile){
+		StepHistogram[] phases = result_.phases_;
+		long[] values = new long[phases.length];
+		for(int i = 0; i < phases.length; ++i){
+			if(phases[i] == null) continue;
+			if(percentile < 0) values[i] = phases[i].getMax() / 1000;
+			else values[i] = phases[i].getValueAtPercentile(percentile) / 1000;
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isEnabled(){
+		return enabled_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setEnabled(boolean enabled){
+		enabled_ = enabled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getInterval(){
+		return interval_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setInterval(int interval){
+		if(interval > 0) interval_ = interval;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getCsvFile(){
+		File file = csvFile_;
+		if(file == null) return ""; //$NON-NLS-1$
+		else return file.getPath();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setCsvFile(String path){
+		if(path == null || path.equals("")) csvFile_ = null; //$NON-NLS-1$
+		else csvFile_ = new File(path);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getTime(){
+		return result_.time_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getSteps(){
+		return result_.stepCount_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getWorkers(){
+		return result_.workers_;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String[] getPhaseNames(){
+		return NAMES.clone();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getPhaseCounts(){
+		StepHistogram[] phases = result_.phases_;
+		long[] values = new long[phases.length];
+		for(int i = 0; i < phases.length; ++i){
+			if(phases[i] != null) values[i] = phases[i].getCount();
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double[] getPhaseMeanMicros(){
+		StepHistogram[] phases = result_.phases_;
+		double[] values = new double[phases.length];
+		for(int i = 0; i < phases.length; ++i){
+			if(phases[i] != null) values[i] = phases[i].getMean() / 1000;
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getPhaseP50Micros(){
+		return getPhaseMicros(50);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getPhaseP99Micros(){
+		return getPhaseMicros(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getPhaseMaxMicros(){
+		return getPhaseMicros(-1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getWorkerWaitMicros(){
+		return result_.workerWait_.clone();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double getStepMeanMicros(){
+		return result_.steps_.getMean() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getStepP99Micros(){
+		return result_.steps_.getValueAtPercentile(99) / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getStepMaxMicros(){
+		return result_.steps_.getMax() / 1000;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double getAwakeVehiclesMean(){
+		return result_.awakeVehicles_.getMean();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double getActiveRegionsMean(){
+		return result_.activeRegions_.getMean();
+	}
+
+	/**
+	 * The merged histograms of an interval. Never changed after creation so that it can be read by other threads.
+	 */
+	private static final class Result{
+
+		/** The simulation time at the end of the interval. */
+		private final int time_;
+
+		/** The amount of steps. */
+		private final long stepCount_;
+
+		/** The amount of workers. */
+		private final int workers_;
+
+		/** The histograms of the phases of all workers. */
+		private final StepHistogram[] phases_;
+
+		/** The time each worker waited at barriers in microseconds. */
+		private final long[] workerWait_;
+
+		/** The times of the steps. */
+		private final StepHistogram steps_;
+
+		/** The amounts of vehicles processed in each step. */
+		private final StepHistogram awakeVehicles_;
+
+		/** The amounts of regions processed in each step. */
+		private final StepHistogram activeRegions_;
+
+		/**
+		 * Instantiates a new result.
+		 *
+		 * @param time			the simulation time at the end of the interval
+		 * @param stepCount		the amount of steps
+		 * @param workers		the amount of workers
+		 * @param phases		the histograms of the phases
+		 * @param workerWait	the time each worker waited at barriers
+		 * @param steps			the times of the steps
+		 * @param awakeVehicles	the amounts of vehicles
+		 * @param activeRegions	the amounts of regions
+		 */
+		public Result(int time, long stepCount, int workers, StepHistogram[] phases, long[] workerWait, StepHistogram steps, StepHistogram awakeVehicles, StepHistogram activeRegions){
+			time_ = time;
+			stepCount_ = stepCount;
+			workers_ = workers;
+			phases_ = phases;
+			workerWait_ = workerWait;
+			steps_ = steps;
+			awakeVehicles_ = awakeVehicles;
+			activeRegions_ = activeRegions;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * The JMX interface of the {@link StepStatistics}. All values except the settings belong to the last completed interval.
+ * Times are given in microseconds. The arrays of the phases are ordered like {@link #getPhaseNames()}.
+ */
+public interface StepStatisticsMBean {
+
+	/**
+	 * Checks if the statistics are recorded.
+	 *
+	 * @return <code>true</code> if recording is enabled
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Enables or disables recording. Takes effect with the next step.
+	 *
+	 * @param enabled	<code>true</code> to record
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Gets the length of an interval.
+	 *
+	 * @return the length in milliseconds of simulated time
+	 */
+	public int getInterval();
+
+	/**
+	 * Sets the length of an interval.
+	 *
+	 * @param interval	the length in milliseconds of simulated time
+	 */
+	public void setInterval(int interval);
+
+	/**
+	 * Gets the CSV file to which each interval is appended.
+	 *
+	 * @return the path or an empty string if no file is written
+	 */
+	public String getCsvFile();
+
+	/**
+	 * Sets the CSV file to which each interval is appended.
+	 *
+	 * @param path	the path or an empty string to write no file
+	 */
+	public void setCsvFile(String path);
+
+	/**
+	 * Gets the simulation time at the end of the last interval.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public int getTime();
+
+	/**
+	 * Gets the amount of steps in the last interval.
+	 *
+	 * @return the amount of steps
+	 */
+	public long getSteps();
+
+	/**
+	 * Gets the amount of worker threads.
+	 *
+	 * @return the amount of workers
+	 */
+	public int getWorkers();
+
+	/**
+	 * Gets the names of the phases. The last entry is the time spent waiting at barriers.
+	 *
+	 * @return the names
+	 */
+	public String[] getPhaseNames();
+
+	/**
+	 * Gets how often each phase was processed by a worker.
+	 *
+	 * @return the counts
+	 */
+	public long[] getPhaseCounts();
+
+	/**
+	 * Gets the mean time a worker spent on each phase.
+	 *
+	 * @return the means
+	 */
+	public double[] getPhaseMeanMicros();
+
+	/**
+	 * Gets the median time a worker spent on each phase.
+	 *
+	 * @return the medians
+	 */
+	public long[] getPhaseP50Micros();
+
+	/**
+	 * Gets the 99th percentile of the time a worker spent on each phase.
+	 *
+	 * @return the percentiles
+	 */
+	public long[] getPhaseP99Micros();
+
+	/**
+	 * Gets the largest time a worker spent on each phase.
+	 *
+	 * @return the maxima
+	 */
+	public long[] getPhaseMaxMicros();
+
+	/**
+	 * Gets the total time each worker spent waiting at barriers.
+	 *
+	 * @return the times (the index is the number of the worker)
+	 */
+	public long[] getWorkerWaitMicros();
+
+	/**
+	 * Gets the mean time of a complete step.
+	 *
+	 * @return the mean
+	 */
+	public double getStepMeanMicros();
+
+	/**
+	 * Gets the 99th percentile of the time of a complete step.
+	 *
+	 * @return the percentile
+	 */
+	public long getStepP99Micros();
+
+	/**
+	 * Gets the largest time of a complete step.
+	 *
+	 * @return the maximum
+	 */
+	public long getStepMaxMicros();
+
+	/**
+	 * Gets the mean amount of vehicles processed in a step (sleeping vehicles are not processed).
+	 *
+	 * @return the mean
+	 */
+	public double getAwakeVehiclesMean();
+
+	/**
+	 * Gets the mean amount of regions processed in a step (idle regions are not processed).
+	 *
+	 * @return the mean
+	 */
+	public double getActiveRegionsMean();
+}
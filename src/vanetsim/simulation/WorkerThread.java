@@ -17,1124 +17,568 @@
  */
 package vanetsim.simulation;
 
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
 
 import vanetsim.ErrorLog;
-import vanetsim.gui.Renderer;
 import vanetsim.localization.Messages;
-import vanetsim.map.Node;
-import vanetsim.map.Region;
+import vanetsim.map.TrafficLight;
 import vanetsim.scenario.Vehicle;
 import vanetsim.scenario.RSU;
 
 
 /**
  * This thread is meant to run parallel with multiple others to gain advantage of multiple CPUs.
- * All simulation tasks are initiated from this class!
+ * All simulation tasks are initiated from this class! The regions to work on are not fixed but taken
+ * from a {@link RegionScheduler} shared by all workers.
  */
 public final class WorkerThread extends Thread {
 	
-	/** An array holding all regions this thread is working on. */
-	private final Region[] ourRegions_;
+	/** The number of this worker (used to identify it in the scheduler). */
+	private final int number_;
+	
+	/** The scheduler handing out the regions to process to all worker threads. */
+	private final RegionScheduler scheduler_;
 	
 	/** The available time in milliseconds to render in one step. This also determines how far a car moves in one time tick. */
 	private final int timePerStep_;
 	
-	/** The changed regions that need to be updated before doing the next step. */
-	private final LinkedHashSet<Integer> changedRegions_ = new LinkedHashSet<Integer>(16);
-	
 	/** The <code>CyclicBarrier</code> called to schedule start of new work. */
 	private CyclicBarrier barrierStart_;
 
-	/** The <code>CyclicBarrier</code> called during the work steps. */
-	private CyclicBarrier barrierDuringWork_;
-
 	/** The <code>CyclicBarrier</code> called after performing all tasks. */
 	private CyclicBarrier barrierFinish_;
 	
-	/** Select the simuation mode and switches between models and traces. 1 --> model VANETSim; 2 --> model IDS/MOBIL; 3 --> traces SJTU; 4 --> traces San Francisco */
-	private static int simulationMode_ = 1;
+	/** The context of the simulation this worker belongs to. */
+	private final SimulationContext context_;
+	
+	/** The slot of this class in the {@link SimulationContext}. */
+	private static final int STATE_SLOT = SimulationContext.newSlot(WorkerThread.class);
+
+	/** Creates the shared variables for a new simulation context. */
+	private static final Supplier<ContextState> NEW_STATE = new Supplier<ContextState>(){
+		public ContextState get(){
+			return new ContextState();
+		}
+	};
+
+	/** The variables shared by all worker threads of one simulation. */
+	private static final class ContextState implements CheckpointState{
+		/** Select the simuation mode and switches between models and traces. 1 --> model VANETSim; 2 --> model IDS/MOBIL; 3 --> traces SJTU; 4 --> traces San Francisco */
+		int simulationMode_ = 1;
+
+		/** If the deterministic mode is used in which interactions between regions are applied in a fixed order at the end of each phase. */
+		boolean deterministic_ = false;
+	}
+
+	/** The simulation mode used by this worker. Read once on start so that all phases of a run use the same model. */
+	private int mode_ = 1;
+	
+	/** Time when the current silent period started. */
+	private int silentPeriodStart_ = 99999999;
+
+	/** The interaction buffers of all regions in the deterministic mode, else <code>null</code>. */
+	private InteractionBuffer[] interactions_ = null;
+
+	/** The interaction buffer of the region currently processed in the deterministic mode, else <code>null</code>. */
+	private InteractionBuffer interactionBuffer_ = null;
+
+	/** The migration queue of this worker while it processes a phase (not used in the deterministic mode), else <code>null</code>. */
+	private MigrationQueue migrationQueue_ = null;
+
+	/** If other workers might change the same objects while a phase is processed (several workers and not the deterministic mode). */
+	private boolean concurrent_ = false;
+
+	/** The statistics into which the times of the phases are recorded. */
+	private final StepStatistics statistics_;
 	
 	/**
 	 * The main constructor for the worker thread. Don't use any other constructor inherited from the
 	 * Thread class as all parameters are essential!
 	 * 
-	 * @param ourRegions the regions which are assigned to us.
-	 * @param timePerStep the time in milliseconds for one step
+	 * @param number		the number of this worker (between <code>0</code> and the amount of workers the scheduler was created for)
+	 * @param scheduler		the scheduler shared by all workers which hands out the regions to process
+	 * @param timePerStep	the time in milliseconds for one step
+	 * @param context		the context of the simulation
+	 * @param statistics	the statistics into which the times of the phases are recorded
 	 */
-	public WorkerThread(Region[] ourRegions, int timePerStep){
-		setName("Worker startX:" + ourRegions[0].getX() + " startY:" + + ourRegions[0].getY()); //$NON-NLS-1$ //$NON-NLS-2$
-		ourRegions_ = ourRegions;
+	public WorkerThread(int number, RegionScheduler scheduler, int timePerStep, SimulationContext context, StepStatistics statistics){
+		setName("Worker " + number); //$NON-NLS-1$
+		number_ = number;
+		scheduler_ = scheduler;
 		timePerStep_ = timePerStep;
-		ErrorLog.log(Messages.getString("WorkerThread.workerCreated") + ourRegions_.length + Messages.getString("WorkerThread.regions"), 1, this.getName(), "Worker constructor", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		context_ = context;
+		statistics_ = statistics;
+		ErrorLog.log(Messages.getString("WorkerThread.workerCreated") + scheduler_.getRegionCount() + Messages.getString("WorkerThread.regions"), 1, this.getName(), "Worker constructor", null); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
 	/**
-	 * Set <code>CyclicBarriers</code> for thread synchronization.
+	 * Set <code>CyclicBarriers</code> for synchronization with the <code>SimulationMaster</code>. The phases within
+	 * one step are synchronized through the scheduler.
 	 * 
-	 * @param barrierStart 				the barrier for starting
-	 * @param barrierDuringWork	the barrier after adjusting the speed
-	 * @param barrierFinish				the barrier after completing all tasks
+	 * @param barrierStart 	the barrier for starting
+	 * @param barrierFinish	the barrier after completing all tasks
 	 */
-	public void setBarriers(CyclicBarrier barrierStart, CyclicBarrier barrierDuringWork, CyclicBarrier barrierFinish){
+	public void setBarriers(CyclicBarrier barrierStart, CyclicBarrier barrierFinish){
 		barrierStart_ = barrierStart;
-		barrierDuringWork_ = barrierDuringWork;
 		barrierFinish_ = barrierFinish;
 	}
 
-	/**
-	 * Adds a region to the list of changed region (so that it gets updated).
-	 * 
-	 * @param i	the number of the region in this thread
-	 */
-	public void addChangedRegion(int i){
-		synchronized(changedRegions_){
-			changedRegions_.add(Integer.valueOf(i));
-		}
-	}
-
 	/**
 	 * The main method. All simulation is initiated from here!
 	 */
 	public void run() {
-		int i, j, length;
-		int ourRegionsLength = ourRegions_.length;
-		// An array copy of the vehicles instead of an ArrayList or something else is used because of three reasons:
-		// 1. While iterating through all regions, a ConcurrentModificationExceptions is thrown when a vehicle gets into a new region.
-		// 2. As we need the array anyways because of (1), we can use it cached for the other actions as well!
-		// 3. Converting an ArrayList to an array is quite fast - it's basically a System.arraycopy()-operation which is made
-		//    through a very fast system-memcpy(). The overhead for array construction is by far less than the overhead
-		//    caused by working with iterators (if there are lots of vehicles)!
-		Vehicle[][] vehicles = new Vehicle[ourRegionsLength][];
-		Vehicle[] vehicleSubarray;	// it is better to cache lookups in the double-array.
-		Vehicle vehicle;
-		
-		int tmpTimePassed = 999999999;
-		int tmpTimePassedSaved = 99999999;
-		int silentPeriodDuration = Vehicle.getTIME_OF_SILENT_PERIODS();
-		int silentPeriodFrequency = Vehicle.getTIME_BETWEEN_SILENT_PERIODS();
-		
-		RSU[][] rsus = new RSU[ourRegionsLength][];
-		RSU[] rsuSubarray;	// it is better to cache lookups in the double-array.
-		RSU rsu;
-		
-		//ArrayList<IDSProcessor> idsReady_ = new ArrayList<IDSProcessor>();
-		
-		Iterator<Integer> changedRegionIterator;
-		int tmp;
-
-		for(i = 0; i < ourRegionsLength; ++i){
-			ourRegions_[i].createBacklink(this, i);
-			ourRegions_[i].calculateJunctions();	//recalculate because user might have edited map after loading
-			vehicles[i] = ourRegions_[i].getVehicleArray();
-			
-			rsus[i] = ourRegions_[i].getRSUs();
-		}
-
-		boolean communicationEnabled = Vehicle.getCommunicationEnabled();
-		boolean beaconsEnabled = Vehicle.getBeaconsEnabled();
-		boolean recyclingEnabled = Vehicle.getRecyclingEnabled();
-		boolean idsEnabled = Vehicle.isIdsActivated();
-		
+		SimulationContext.setCurrent(context_);
 		//sleep if no barriers have been set yet
-		while (barrierStart_ == null || barrierDuringWork_ == null || barrierFinish_ == null){
+		while (barrierStart_ == null || barrierFinish_ == null){
 			try{
 				sleep(50);
 			} catch (Exception e){}
 		}
+		mode_ = state().simulationMode_;
+		interactions_ = scheduler_.getInteractionBuffers();
+		MigrationQueue migrations = interactions_ == null ? scheduler_.getMigrationQueue(number_) : null;
+		concurrent_ = migrations != null && scheduler_.getWorkerCount() > 1;
+
+		// The phase table is the same for all simulation modes. Phases which are disabled for the whole simulation are left out.
+		// The last phase is always followed by the finish barrier (together with the SimulationMaster), even if it has no pending work.
+		int[] phases = new int[RegionScheduler.PHASE_COUNT];
+		int phaseCount = 0;
+		if(interactions_ != null && (mode_ == 1 || mode_ == 2)) phases[phaseCount++] = RegionScheduler.PHASE_START_VEHICLES;	// all vehicles need to see the same lanes when adjusting their speed
+		phases[phaseCount++] = RegionScheduler.PHASE_ADJUST_SPEED;
+		if(Vehicle.getCommunicationEnabled()) phases[phaseCount++] = RegionScheduler.PHASE_MESSAGES;
+		if(Vehicle.isIdsActivated()) phases[phaseCount++] = RegionScheduler.PHASE_IDS;
+		if(Vehicle.getCommunicationEnabled() && Vehicle.getBeaconsEnabled()) phases[phaseCount++] = RegionScheduler.PHASE_BEACONS;
+		phases[phaseCount++] = RegionScheduler.PHASE_MOVE;
+		if(mode_ == 1) phases[phaseCount++] = RegionScheduler.PHASE_TRAFFIC_LIGHTS;	// traffic lights are only supported in the VANETSim model
+		int i, phase, lastPhase = phaseCount - 1;
+		StepHistogram[] histograms, finishHistograms = null;
+		long time = 0, now, finishWait = 0;
 
 		// the try/catch-expressions are done in a way that the least possible amount is needed while still assuring some fail-safety.
 		// To debug problems or new functions, it is recommended to move the "try"s down so that they are just around the "wait()"-calls!
-		// Using redundant code for performance issues when switching between models and traces
-		
-		if(simulationMode_ == 1){
-			while(true){
-				// ================================= 
-				// Step 1: Update changed regions with new vehicle arrays
-				// ================================= 
-				if(changedRegions_.size() > 0){
-					changedRegionIterator = changedRegions_.iterator();
-					while(changedRegionIterator.hasNext()){
-						tmp = changedRegionIterator.next().intValue();
-						vehicles[tmp] = ourRegions_[tmp].getVehicleArray();
-					}
-					changedRegions_.clear();
-				}
-				// ================================= 
-				// Step 2: Wait for SimulationMaster to start
-				// ================================= 		
-				try{
-					barrierStart_.await();
-				} catch (InterruptedException e){	// master wants us to stop!
-					break;
-				} catch (BrokenBarrierException e){	// master wants us to stop!
-					break;
-				} catch (Exception e){
-					//e.printStackTrace();
-				}
-
-				// ================================= 
-				// Step 3: Adjust speed, do message cleanup and create jam messages
-				// ================================= 
-				try{
-					//vehicles: adjustSpeed()
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicleSubarray[j].adjustSpeed(timePerStep_);
-						}
-					}
-					
-					//rsus: cleanup old messages
-					for(i = 0; i < ourRegionsLength; ++i){
-						rsuSubarray = rsus[i];
-						length = rsuSubarray.length;
-						for(j = 0; j < length; ++j){
-							rsuSubarray[j].cleanup(timePerStep_);
-						}
-					}
+		// In each phase, regions are taken from the scheduler until all are processed so that idle workers help out busy ones.
+		while(true){
+			// ================================= 
+			// Step 1: Wait for SimulationMaster to start
+			// ================================= 		
+			try{
+				barrierStart_.await();
+			} catch (InterruptedException e){	// master wants us to stop!
+				break;
+			} catch (BrokenBarrierException e){	// master wants us to stop!
+				break;
+			} catch (Exception e){
+				//e.printStackTrace();
+			}
+			// the master reads the histograms after the finish barrier so the wait there is recorded now
+			if(finishHistograms != null){
+				finishHistograms[StepStatistics.WAIT].record(finishWait);
+				finishHistograms = null;
+			}
 
-					
-					// Wait for all concurrent threads to synchronize			
-					
-					barrierDuringWork_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierDuringWork_.await();
-					}catch (Exception e2){}
-				}
-					
-				// ================================= 
-				// Step 4: Send messages.
-				// ================================= 
-				if(communicationEnabled){
+			// ================================= 
+			// Step 2: Process all phases. Phases without pending work are skipped by all workers together (including their barrier).
+			// If the statistics are recorded, the time of each phase and of the following barrier is measured.
+			// ================================= 
+			histograms = statistics_.isRecording() ? statistics_.getWorkerHistograms(number_) : null;
+			for(i = 0; i < phaseCount; ++i){
+				phase = phases[i];
+				if(phase == RegionScheduler.PHASE_BEACONS) handleSilentPeriods();	// needs to be done even if no beacon is sent in this step
+				if(scheduler_.isPhasePending(phase)){
+					if(histograms != null) time = System.nanoTime();
+					migrationQueue_ = migrations;
 					try{
-						//vehicles send messages
-					
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getCommunicationCountdown() < 1){
-									vehicle.sendMessages();
-								}
-							}
+						switch(phase){
+							case RegionScheduler.PHASE_START_VEHICLES: startVehicles(); break;
+							case RegionScheduler.PHASE_ADJUST_SPEED: adjustSpeed(); break;
+							case RegionScheduler.PHASE_MESSAGES: sendMessages(); break;
+							case RegionScheduler.PHASE_IDS: fireIDSProcessors(); break;
+							case RegionScheduler.PHASE_BEACONS: sendBeacons(); break;
+							case RegionScheduler.PHASE_MOVE: move(); break;
+							case RegionScheduler.PHASE_TRAFFIC_LIGHTS: changeTrafficLights(); break;
 						}
-						
-						//rsus: send messages
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()){
-									rsuSubarray[j].sendMessages();	
-								}
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
 					} catch (Exception e){
 						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
 					}
-				}
-				
-				// ================================= 
-				// Step 4b: IDS calculations
-				// ================================= 
-				
-				if(idsEnabled){	
-					try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicle = vehicleSubarray[j];
-							if(vehicle.isCheckIDSProcessors_()){
-								vehicle.getIdsProcessorList_().fireIDSProcessors();
-							}
-						}
+					interactionBuffer_ = null;	// the buffers and queues might be applied by this thread when it arrives last
+					migrationQueue_ = null;
+					if(histograms != null){
+						now = System.nanoTime();
+						histograms[phase].record(now - time);
+						time = now;
 					}
-						
-						// Wait for all concurrent threads to synchronize
-					
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}	
+				} else if(i < lastPhase) continue;
+				else if(histograms != null) time = System.nanoTime();
 
-				// ================================= 
-				// Step 5a:  Send beacons. Beacons are sent here so that they are not considered in the current step yet!
-				//          Putting this in the movement step is not possible!
-				// ================================= 
-				if(communicationEnabled && beaconsEnabled){
+				// Wait for all concurrent threads to synchronize
+				if(i == lastPhase){
 					try{
-					//handle silent periods
-					if(Vehicle.isSilentPeriodsOn()){
-						tmpTimePassed = Renderer.getInstance().getTimePassed();
-						if(tmpTimePassed > silentPeriodFrequency && tmpTimePassed%(silentPeriodDuration + silentPeriodFrequency) < 240){
-							tmpTimePassedSaved = tmpTimePassed;
-							Vehicle.setSilent_period(true);
-						}
-						else if(Vehicle.isSilent_period() && tmpTimePassed > (tmpTimePassedSaved + silentPeriodDuration)) Vehicle.setSilent_period(false);
-					}
-
-						//vehicles: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && !vehicle.isInMixZone()){
-									vehicle.sendBeacons();
-								}
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && vehicle.isInMixZone() && vehicle.getCurMixNode_() != null && vehicle.getCurMixNode_().getEncryptedRSU_() != null){
-									vehicle.sendEncryptedBeacons();
-								}
-							}
-						}
-
-						//rsu: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getBeaconCountdown() < 1 && !rsu.isEncrypted_()) rsu.sendBeacons();
-								if(rsu.getBeaconCountdown() < 1 && rsu.isEncrypted_()) rsu.sendEncryptedBeacons();
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
+						barrierFinish_.await();
+					} catch (Exception e){}
+					if(histograms != null){
+						finishWait = System.nanoTime() - time;
+						finishHistograms = histograms;
+					}
+				} else {
+					scheduler_.finishPhase(phase);
+					if(histograms != null) histograms[StepStatistics.WAIT].record(System.nanoTime() - time);
 				}
+			}
+		}
+		ErrorLog.log(Messages.getString("WorkerThread.workerExited"), 1, this.getName(), "run", null); //$NON-NLS-1$ //$NON-NLS-2$
+	}
 
-				// ================================= 
-				// Step 5b: Move attacker
-				// ================================= 
-				
-				/*
-					if(Renderer.getInstance().getAttackerVehicle() != null) Renderer.getInstance().getAttackerVehicle().moveAttacker();
-				*/
-					
-				// ================================= 
-				// Step 6: Move all vehicles one step further
-				// ================================= 
-				try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							if(vehicleSubarray[j].isActive()) vehicleSubarray[j].move(timePerStep_);
-							else if(recyclingEnabled && vehicleSubarray[j].getMayBeRecycled() && !vehicleSubarray[j].isDoNotRecycle_()) vehicleSubarray[j].reset();
-							
-						}
-					}
-					
-					// Wait for all concurrent threads to synchronize	
-					
-						barrierDuringWork_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierDuringWork_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}		
+	/**
+	 * Gets the next region to process in a phase from the scheduler. In the deterministic mode, the interactions of the
+	 * region with other regions are collected in the buffer of the region.
+	 * 
+	 * @param phase	the phase
+	 * 
+	 * @return the index of the region or <code>-1</code> if all regions have been handed out in this phase
+	 */
+	private int nextRegion(int phase){
+		int region = scheduler_.nextRegion(phase, number_);
+		if(interactions_ != null){
+			if(region > -1) interactionBuffer_ = interactions_[region];
+			else interactionBuffer_ = null;
+		}
+		return region;
+	}
 
-				
-				// ================================= 
-				// Step 7: Check the states of all traffic lights and change if necessary
-				// ================================= 
-				try{
-				Node[] tmpNodes = null;
-				for(i = 0; i < ourRegions_.length; i++){
-					tmpNodes = ourRegions_[i].getNodes();
-					for(j = 0; j < tmpNodes.length; j++){
-						if(tmpNodes[j].isHasTrafficSignal_() && tmpNodes[j].getJunction() != null && tmpNodes[j].getJunction().getNode().getTrafficLight_() != null){	
-							tmpNodes[j].getJunction().getNode().getTrafficLight_().changePhases(timePerStep_);						
-						}
-					}
-				}
-				
-					// Wait for all concurrent threads to synchronize	
-				
-					barrierFinish_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierFinish_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}	
-				
-				
+	/**
+	 * Starts all vehicles whose wait time is over. Only used in the deterministic mode. Otherwise, this is done when
+	 * adjusting the speed.
+	 */
+	private void startVehicles(){
+		int i, j, length;
+		Vehicle[][] vehicles = scheduler_.getVehicles();
+		int[] vehicleCounts = scheduler_.getVehicleCounts();
+		Vehicle[] vehicleSubarray;
+
+		while((i = nextRegion(RegionScheduler.PHASE_START_VEHICLES)) > -1){
+			vehicleSubarray = vehicles[i];
+			length = vehicleCounts[i];
+			for(j = 0; j < length; ++j){
+				vehicleSubarray[j].updateWaitTime(timePerStep_);
 			}
 		}
+	}
+
+	/**
+	 * Adjusts the speed of all vehicles and does the message cleanup of the RSUs. Also collects the vehicles and RSUs which
+	 * need to send messages or beacons in this step and reports to the scheduler if there are any.
+	 */
+	private void adjustSpeed(){
+		int i, j, length;
+		// The vehicle arrays of the regions are used directly (only the first vehicleCounts[i] entries are valid). They don't
+		// change during a phase as vehicles getting into a new region are queued and moved at the end of the phase.
+		// The arrays are refreshed by the scheduler at the beginning of each step.
+		Vehicle[][] vehicles = scheduler_.getVehicles();
+		int[] vehicleCounts = scheduler_.getVehicleCounts();
+		Vehicle[] vehicleSubarray;	// it is better to cache lookups in the double-array.
+		Vehicle vehicle;
+		RSU[][] rsus = scheduler_.getRSUs();
+		RSU[] rsuSubarray;
+		RSU rsu;
+		DueList[] dueMessages = scheduler_.getDueMessages(), dueBeacons = scheduler_.getDueBeacons();
+		DueList messageList, beaconList;
+		boolean messagesPending = false, beaconsPending = false;
+		boolean updateWaitTime = interactions_ == null;	// else already done in an own phase
 		
-		else if(simulationMode_ == 2){
-			while(true){
-				// ================================= 
-				// Step 1: Update changed regions with new vehicle arrays
-				// ================================= 
-				if(changedRegions_.size() > 0){
-					changedRegionIterator = changedRegions_.iterator();
-					while(changedRegionIterator.hasNext()){
-						tmp = changedRegionIterator.next().intValue();
-						vehicles[tmp] = ourRegions_[tmp].getVehicleArray();
+		while((i = nextRegion(RegionScheduler.PHASE_ADJUST_SPEED)) > -1){
+			vehicleSubarray = vehicles[i];
+			length = vehicleCounts[i];
+			messageList = dueMessages[i];
+			beaconList = dueBeacons[i];
+			messageList.clear();
+			beaconList.clear();
+			// one loop per model so that the model is not checked for every vehicle
+			switch(mode_){
+				case 2:
+					for(j = 0; j < length; ++j){
+						vehicleSubarray[j].adjustSpeedWithIDM(timePerStep_, updateWaitTime);
 					}
-					changedRegions_.clear();
-				}
-				// ================================= 
-				// Step 2: Wait for SimulationMaster to start
-				// ================================= 		
-				try{
-					barrierStart_.await();
-				} catch (InterruptedException e){	// master wants us to stop!
-					break;
-				} catch (BrokenBarrierException e){	// master wants us to stop!
 					break;
-				} catch (Exception e){
-					//e.printStackTrace();
-				}
-
-				// ================================= 
-				// Step 3: Adjust speed, do message cleanup and create jam messages
-				// ================================= 
-				
-					//vehicles: adjustSpeed()
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicleSubarray[j].adjustSpeedWithIDM(timePerStep_);
-						}
+				case 3:
+					for(j = 0; j < length; ++j){
+						vehicleSubarray[j].adjustSpeedWithSJTUTraceFiles(timePerStep_);
 					}
-					
-					//rsus: cleanup old messages
-					for(i = 0; i < ourRegionsLength; ++i){
-						rsuSubarray = rsus[i];
-						length = rsuSubarray.length;
-						for(j = 0; j < length; ++j){
-							rsuSubarray[j].cleanup(timePerStep_);
-						}
+					break;
+				case 4:
+					for(j = 0; j < length; ++j){
+						vehicleSubarray[j].adjustSpeedWithSanFranciscoTraceFiles(timePerStep_);
 					}
-
-					
-					// Wait for all concurrent threads to synchronize			
-					try{	
-					barrierDuringWork_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierDuringWork_.await();
-					}catch (Exception e2){}
-				}
-					
-				// ================================= 
-				// Step 4: Send messages.
-				// ================================= 
-				if(communicationEnabled){
-					
-						//vehicles send messages
-					
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getCommunicationCountdown() < 1){
-									vehicle.sendMessages();
-								}
-							}
-						}
-						
-						//rsus: send messages
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()){
-									rsuSubarray[j].sendMessages();	
-								}
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						try{
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
+					break;
+				default:
+					for(j = 0; j < length; ++j){
+						vehicleSubarray[j].adjustSpeed(timePerStep_, updateWaitTime);
 					}
+					break;
+			}
+			// the countdowns are only changed by the vehicle itself so the lists stay valid until the phases are processed
+			for(j = 0; j < length; ++j){
+				vehicle = vehicleSubarray[j];
+				if(vehicle.isActive() && vehicle.isWiFiEnabled()){
+					if(vehicle.getCommunicationCountdown() < 1) messageList.addVehicle(vehicle);
+					if(vehicle.getBeaconCountdown() < 1) beaconList.addVehicle(vehicle);
 				}
-				
-				// ================================= 
-				// Step 4b: IDS calculations
-				// ================================= 
-			
-				if(idsEnabled){	
-				
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicle = vehicleSubarray[j];
-							if(vehicle.isCheckIDSProcessors_()){
-								vehicle.getIdsProcessorList_().fireIDSProcessors();
-							}
-						}
-					}
-						
-						// Wait for all concurrent threads to synchronize
-					try{
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}	
-
-				// ================================= 
-				// Step 5a:  Send beacons. Beacons are sent here so that they are not considered in the current step yet!
-				//          Putting this in the movement step is not possible!
-				// ================================= 
-				if(communicationEnabled && beaconsEnabled){
-				
-					//handle silent periods
-					if(Vehicle.isSilentPeriodsOn()){
-						tmpTimePassed = Renderer.getInstance().getTimePassed();
-						if(tmpTimePassed > silentPeriodFrequency && tmpTimePassed%(silentPeriodDuration + silentPeriodFrequency) < 240){
-							tmpTimePassedSaved = tmpTimePassed;
-							Vehicle.setSilent_period(true);
-						}
-						else if(Vehicle.isSilent_period() && tmpTimePassed > (tmpTimePassedSaved + silentPeriodDuration)) Vehicle.setSilent_period(false);
-					}
-
-						//vehicles: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && !vehicle.isInMixZone()){
-									vehicle.sendBeacons();
-								}
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && vehicle.isInMixZone() && vehicle.getCurMixNode_() != null && vehicle.getCurMixNode_().getEncryptedRSU_() != null){
-									vehicle.sendEncryptedBeacons();
-								}
-							}
-						}
+			}
 
-						//rsu: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getBeaconCountdown() < 1 && !rsu.isEncrypted_()) rsu.sendBeacons();
-								if(rsu.getBeaconCountdown() < 1 && rsu.isEncrypted_()) rsu.sendEncryptedBeacons();
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						try{
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}
+			//rsus: cleanup old messages
+			rsuSubarray = rsus[i];
+			length = rsuSubarray.length;
+			for(j = 0; j < length; ++j){
+				rsu = rsuSubarray[j];
+				rsu.cleanup(timePerStep_);
+				if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()) messageList.addRSU(rsu);
+				if(rsu.getBeaconCountdown() < 1) beaconList.addRSU(rsu);
+			}
+			if(messageList.getVehicleCount() > 0 || messageList.getRSUCount() > 0) messagesPending = true;
+			if(beaconList.getVehicleCount() > 0 || beaconList.getRSUCount() > 0) beaconsPending = true;
+		}
+		if(messagesPending) scheduler_.markPhasePending(RegionScheduler.PHASE_MESSAGES);
+		if(beaconsPending) scheduler_.markPhasePending(RegionScheduler.PHASE_BEACONS);
+	}
 
-				// ================================= 
-				// Step 5b: Move attacker
-				// ================================= 
-				
-				/*
-					if(Renderer.getInstance().getAttackerVehicle() != null) Renderer.getInstance().getAttackerVehicle().moveAttacker();
-				*/
-					
-				// ================================= 
-				// Step 6: Move all vehicles one step further
-				// ================================= 
-				
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							if(vehicleSubarray[j].isActive()) vehicleSubarray[j].move(timePerStep_);
-							else if(recyclingEnabled && vehicleSubarray[j].getMayBeRecycled() && !vehicleSubarray[j].isDoNotRecycle_()) vehicleSubarray[j].reset();
-							
-						}
-					}
-					
-					// Wait for all concurrent threads to synchronize	
-					try{
-					barrierFinish_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierFinish_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}		
+	/**
+	 * Lets all vehicles and RSUs whose communication countdown has expired send their messages.
+	 */
+	private void sendMessages(){
+		int i, j, length;
+		DueList[] dueMessages = scheduler_.getDueMessages();
+		DueList dueList;
+		Vehicle[] dueVehicles;
+		Vehicle vehicle;
+		RSU[] dueRSUs;
+		RSU rsu;
 
-				
-				// ================================= 
-				// Step 7: Check the states of all traffic lights and change if necessary
-				// ================================= 
-			/*
-				Node[] tmpNodes = null;
-				for(i = 0; i < ourRegions_.length; i++){
-					tmpNodes = ourRegions_[i].getNodes();
-					for(j = 0; j < tmpNodes.length; j++){
-						if(tmpNodes[j].isHasTrafficSignal_() && tmpNodes[j].getJunction() != null && tmpNodes[j].getJunction().getNode().getTrafficLight_() != null){	
-							tmpNodes[j].getJunction().getNode().getTrafficLight_().changePhases(timePerStep_);						
-						}
-					}
+		while((i = nextRegion(RegionScheduler.PHASE_MESSAGES)) > -1){
+			dueList = dueMessages[i];
+			//vehicles send messages
+			dueVehicles = dueList.getVehicles();
+			length = dueList.getVehicleCount();
+			for(j = 0; j < length; ++j){
+				vehicle = dueVehicles[j];
+				if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getCommunicationCountdown() < 1){
+					vehicle.sendMessages();
 				}
-
-				*/
-				
 			}
-		}
 		
-		if(simulationMode_ == 3){
-			while(true){
-				// ================================= 
-				// Step 1: Update changed regions with new vehicle arrays
-				// ================================= 
-				if(changedRegions_.size() > 0){
-					changedRegionIterator = changedRegions_.iterator();
-					while(changedRegionIterator.hasNext()){
-						tmp = changedRegionIterator.next().intValue();
-						vehicles[tmp] = ourRegions_[tmp].getVehicleArray();
-					}
-					changedRegions_.clear();
-				}
-				// ================================= 
-				// Step 2: Wait for SimulationMaster to start
-				// ================================= 		
-				try{
-					barrierStart_.await();
-				} catch (InterruptedException e){	// master wants us to stop!
-					break;
-				} catch (BrokenBarrierException e){	// master wants us to stop!
-					break;
-				} catch (Exception e){
-					//e.printStackTrace();
+			//rsus: send messages
+			dueRSUs = dueList.getRSUs();
+			length = dueList.getRSUCount();
+			for(j = 0; j < length; ++j){
+				rsu = dueRSUs[j];
+				if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()){
+					rsu.sendMessages();	
 				}
+			}
+		}
+	}
 
-				// ================================= 
-				// Step 3: Adjust speed, do message cleanup and create jam messages
-				// ================================= 
-				try{
-					//vehicles: adjustSpeed()
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicleSubarray[j].adjustSpeedWithSJTUTraceFiles(timePerStep_);
-						}
-					}
-					
-					//rsus: cleanup old messages
-					for(i = 0; i < ourRegionsLength; ++i){
-						rsuSubarray = rsus[i];
-						length = rsuSubarray.length;
-						for(j = 0; j < length; ++j){
-							rsuSubarray[j].cleanup(timePerStep_);
-						}
-					}
+	/**
+	 * Fires the IDS processors of all vehicles which have processors ready.
+	 */
+	private void fireIDSProcessors(){
+		int i, j, length;
+		Vehicle[][] vehicles = scheduler_.getVehicles();
+		int[] vehicleCounts = scheduler_.getVehicleCounts();
+		Vehicle[] vehicleSubarray;
+		Vehicle vehicle;
 
-					
-					// Wait for all concurrent threads to synchronize			
-					
-					barrierDuringWork_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierDuringWork_.await();
-					}catch (Exception e2){}
+		while((i = nextRegion(RegionScheduler.PHASE_IDS)) > -1){
+			vehicleSubarray = vehicles[i];
+			length = vehicleCounts[i];
+			for(j = 0; j < length; ++j){
+				vehicle = vehicleSubarray[j];
+				if(vehicle.isCheckIDSProcessors_()){
+					vehicle.getIdsProcessorList_().fireIDSProcessors();
 				}
-					
-				// ================================= 
-				// Step 4: Send messages.
-				// ================================= 
-				if(communicationEnabled){
-					try{
-						//vehicles send messages
-					
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getCommunicationCountdown() < 1){
-									vehicle.sendMessages();
-								}
-							}
-						}
-						
-						//rsus: send messages
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()){
-									rsuSubarray[j].sendMessages();	
-								}
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}
-				
-				// ================================= 
-				// Step 4b: IDS calculations
-				// ================================= 
-			
-				if(idsEnabled){	
-					try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicle = vehicleSubarray[j];
-							if(vehicle.isCheckIDSProcessors_()){
-								vehicle.getIdsProcessorList_().fireIDSProcessors();
-							}
-						}
-					}
-						
-						// Wait for all concurrent threads to synchronize
-					
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}	
+			}
+		}
+	}
 
-				// ================================= 
-				// Step 5a:  Send beacons. Beacons are sent here so that they are not considered in the current step yet!
-				//          Putting this in the movement step is not possible!
-				// ================================= 
-				if(communicationEnabled && beaconsEnabled){
-					try{
-					//handle silent periods
-					if(Vehicle.isSilentPeriodsOn()){
-						tmpTimePassed = Renderer.getInstance().getTimePassed();
-						if(tmpTimePassed > silentPeriodFrequency && tmpTimePassed%(silentPeriodDuration + silentPeriodFrequency) < 240){
-							tmpTimePassedSaved = tmpTimePassed;
-							Vehicle.setSilent_period(true);
-						}
-						else if(Vehicle.isSilent_period() && tmpTimePassed > (tmpTimePassedSaved + silentPeriodDuration)) Vehicle.setSilent_period(false);
-					}
+	/**
+	 * Starts and ends silent periods.
+	 */
+	private void handleSilentPeriods(){
+		if(Vehicle.isSilentPeriodsOn()){
+			int silentPeriodDuration = Vehicle.getTIME_OF_SILENT_PERIODS();
+			int silentPeriodFrequency = Vehicle.getTIME_BETWEEN_SILENT_PERIODS();
+			int timePassed = EngineContext.getTimePassed();
+			if(timePassed > silentPeriodFrequency && timePassed%(silentPeriodDuration + silentPeriodFrequency) < 240){
+				silentPeriodStart_ = timePassed;
+				Vehicle.setSilent_period(true);
+			}
+			else if(Vehicle.isSilent_period() && timePassed > (silentPeriodStart_ + silentPeriodDuration)) Vehicle.setSilent_period(false);
+		}
+	}
 
-						//vehicles: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && !vehicle.isInMixZone()){
-									vehicle.sendBeacons();
-								}
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && vehicle.isInMixZone() && vehicle.getCurMixNode_() != null && vehicle.getCurMixNode_().getEncryptedRSU_() != null){
-									vehicle.sendEncryptedBeacons();
-								}
-							}
-						}
+	/**
+	 * Lets all vehicles and RSUs whose beacon countdown has expired send their beacons. Beacons are sent after the messages
+	 * so that they are not considered in the current step yet! Putting this in the movement step is not possible!
+	 */
+	private void sendBeacons(){
+		int i, j, length;
+		DueList[] dueBeacons = scheduler_.getDueBeacons();
+		DueList dueList;
+		Vehicle[] dueVehicles;
+		Vehicle vehicle;
+		RSU[] dueRSUs;
+		RSU rsu;
 
-						//rsu: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getBeaconCountdown() < 1 && !rsu.isEncrypted_()) rsu.sendBeacons();
-								if(rsu.getBeaconCountdown() < 1 && rsu.isEncrypted_()) rsu.sendEncryptedBeacons();
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
+		while((i = nextRegion(RegionScheduler.PHASE_BEACONS)) > -1){
+			dueList = dueBeacons[i];
+			//vehicles: send beacons
+			dueVehicles = dueList.getVehicles();
+			length = dueList.getVehicleCount();
+			for(j = 0; j < length; ++j){
+				vehicle = dueVehicles[j];
+				if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && !vehicle.isInMixZone()){
+					vehicle.sendBeacons();
 				}
-
-				// ================================= 
-				// Step 5b: Move attacker
-				// ================================= 
-				
-				/*
-					if(Renderer.getInstance().getAttackerVehicle() != null) Renderer.getInstance().getAttackerVehicle().moveAttacker();
-				*/
-					
-				// ================================= 
-				// Step 6: Move all vehicles one step further
-				// ================================= 
-				try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							if(vehicleSubarray[j].isActive()) vehicleSubarray[j].move(timePerStep_);
-							else if(recyclingEnabled && vehicleSubarray[j].getMayBeRecycled() && !vehicleSubarray[j].isDoNotRecycle_()) vehicleSubarray[j].reset();
-							
-						}
-					}
-					
-					// Wait for all concurrent threads to synchronize	
-					
-					barrierFinish_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierFinish_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}		
-
-				
-				// ================================= 
-				// Step 7: Check the states of all traffic lights and change if necessary
-				// ================================= 
-			/*
-				Node[] tmpNodes = null;
-				for(i = 0; i < ourRegions_.length; i++){
-					tmpNodes = ourRegions_[i].getNodes();
-					for(j = 0; j < tmpNodes.length; j++){
-						if(tmpNodes[j].isHasTrafficSignal_() && tmpNodes[j].getJunction() != null && tmpNodes[j].getJunction().getNode().getTrafficLight_() != null){	
-							tmpNodes[j].getJunction().getNode().getTrafficLight_().changePhases(timePerStep_);						
-						}
-					}
+				if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && vehicle.isInMixZone() && vehicle.getCurMixNode_() != null && vehicle.getCurMixNode_().getEncryptedRSU_() != null){
+					vehicle.sendEncryptedBeacons();
 				}
+			}
 
-				*/
-				
+			//rsu: send beacons
+			dueRSUs = dueList.getRSUs();
+			length = dueList.getRSUCount();
+			for(j = 0; j < length; ++j){
+				rsu = dueRSUs[j];
+				if(rsu.getBeaconCountdown() < 1 && !rsu.isEncrypted_()) rsu.sendBeacons();
+				if(rsu.getBeaconCountdown() < 1 && rsu.isEncrypted_()) rsu.sendEncryptedBeacons();
 			}
 		}
-		
-		if(simulationMode_ == 4){
-			while(true){
-				// ================================= 
-				// Step 1: Update changed regions with new vehicle arrays
-				// ================================= 
-				if(changedRegions_.size() > 0){
-					changedRegionIterator = changedRegions_.iterator();
-					while(changedRegionIterator.hasNext()){
-						tmp = changedRegionIterator.next().intValue();
-						vehicles[tmp] = ourRegions_[tmp].getVehicleArray();
-					}
-					changedRegions_.clear();
-				}
-				// ================================= 
-				// Step 2: Wait for SimulationMaster to start
-				// ================================= 		
-				try{
-					barrierStart_.await();
-				} catch (InterruptedException e){	// master wants us to stop!
-					break;
-				} catch (BrokenBarrierException e){	// master wants us to stop!
-					break;
-				} catch (Exception e){
-					//e.printStackTrace();
-				}
-
-				// ================================= 
-				// Step 3: Adjust speed, do message cleanup and create jam messages
-				// ================================= 
-				try{
-					//vehicles: adjustSpeed()
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicleSubarray[j].adjustSpeedWithSanFranciscoTraceFiles(timePerStep_);
-						}
-					}
-					
-					//rsus: cleanup old messages
-					for(i = 0; i < ourRegionsLength; ++i){
-						rsuSubarray = rsus[i];
-						length = rsuSubarray.length;
-						for(j = 0; j < length; ++j){
-							rsuSubarray[j].cleanup(timePerStep_);
-						}
-					}
+	}
 
-					
-					// Wait for all concurrent threads to synchronize			
-					
-					barrierDuringWork_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierDuringWork_.await();
-					}catch (Exception e2){}
-				}
-					
-				// ================================= 
-				// Step 4: Send messages.
-				// ================================= 
-				if(communicationEnabled){
-					try{
-						//vehicles send messages
-					
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getCommunicationCountdown() < 1){
-									vehicle.sendMessages();
-								}
-							}
-						}
-						
-						//rsus: send messages
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getCommunicationCountdown() < 1 && !rsu.isEncrypted_()){
-									rsuSubarray[j].sendMessages();	
-								}
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
+	/**
+	 * Moves all vehicles one step further or recycles inactive vehicles. Regions with vehicles which may fall asleep are
+	 * reported to the scheduler.
+	 */
+	private void move(){
+		int i, j, length;
+		Vehicle[][] vehicles = scheduler_.getVehicles();
+		int[] vehicleCounts = scheduler_.getVehicleCounts();
+		Vehicle[] vehicleSubarray;
+		Vehicle vehicle;
+		boolean recyclingEnabled = Vehicle.getRecyclingEnabled();
+		boolean sleepingEnabled = scheduler_.isSleepingEnabled(), sleepersPending;
+
+		/*
+			if(EngineContext.getAttackerVehicle() != null) EngineContext.getAttackerVehicle().moveAttacker();
+		*/
+
+		while((i = nextRegion(RegionScheduler.PHASE_MOVE)) > -1){
+			vehicleSubarray = vehicles[i];
+			length = vehicleCounts[i];
+			sleepersPending = false;
+			for(j = 0; j < length; ++j){
+				vehicle = vehicleSubarray[j];
+				if(vehicle.isActive()) vehicle.move(timePerStep_);
+				else if(recyclingEnabled && vehicle.getMayBeRecycled() && !vehicle.isDoNotRecycle_()){
+					if(interactionBuffer_ != null) interactionBuffer_.addReset(vehicle);	// the steady IDs are given out in a fixed order
+					else vehicle.reset();
 				}
-				
-				// ================================= 
-				// Step 4b: IDS calculations
-				// ================================= 
-			
-				if(idsEnabled){	
-					try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							vehicle = vehicleSubarray[j];
-							if(vehicle.isCheckIDSProcessors_()){
-								vehicle.getIdsProcessorList_().fireIDSProcessors();
-							}
-						}
-					}
-						
-						// Wait for all concurrent threads to synchronize
-					
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}	
+				if(sleepingEnabled && !sleepersPending && vehicle.mayFallAsleep(timePerStep_, recyclingEnabled)) sleepersPending = true;
+			}
+			if(sleepersPending) scheduler_.markSleepersPending(i);
+		}
+	}
 
-				// ================================= 
-				// Step 5a:  Send beacons. Beacons are sent here so that they are not considered in the current step yet!
-				//          Putting this in the movement step is not possible!
-				// ================================= 
-				if(communicationEnabled && beaconsEnabled){
-					try{
-					//handle silent periods
-					if(Vehicle.isSilentPeriodsOn()){
-						tmpTimePassed = Renderer.getInstance().getTimePassed();
-						if(tmpTimePassed > silentPeriodFrequency && tmpTimePassed%(silentPeriodDuration + silentPeriodFrequency) < 240){
-							tmpTimePassedSaved = tmpTimePassed;
-							Vehicle.setSilent_period(true);
-						}
-						else if(Vehicle.isSilent_period() && tmpTimePassed > (tmpTimePassedSaved + silentPeriodDuration)) Vehicle.setSilent_period(false);
-					}
+	/**
+	 * Changes the states of the traffic lights which are due in this step. The scheduler only hands out the traffic lights
+	 * whose change falls into this step so that no node needs to be checked.
+	 */
+	private void changeTrafficLights(){
+		int i, j, length;
+		int time = EngineContext.getTimePassed() + timePerStep_;
+		TrafficLight[][] dueLights = scheduler_.getDueLights();
+		int[] dueLightCounts = scheduler_.getDueLightCounts();
+		TrafficLight[] lights;
+
+		while((i = nextRegion(RegionScheduler.PHASE_TRAFFIC_LIGHTS)) > -1){
+			lights = dueLights[i];
+			length = dueLightCounts[i];
+			for(j = 0; j < length; ++j){
+				lights[j].changePhases(time, timePerStep_);
+			}
+		}
+	}
 
-						//vehicles: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							vehicleSubarray = vehicles[i];
-							length = vehicleSubarray.length;
-							for(j = 0; j < length; ++j){
-								vehicle = vehicleSubarray[j];
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && !vehicle.isInMixZone()){
-									vehicle.sendBeacons();
-								}
-								if(vehicle.isActive() && vehicle.isWiFiEnabled() && vehicle.getBeaconCountdown() < 1 && vehicle.isInMixZone() && vehicle.getCurMixNode_() != null && vehicle.getCurMixNode_().getEncryptedRSU_() != null){
-									vehicle.sendEncryptedBeacons();
-								}
-							}
-						}
+	public static int getSimulationMode_() {
+		return state().simulationMode_;
+	}
 
-						//rsu: send beacons
-						for(i = 0; i < ourRegionsLength; ++i){
-							rsuSubarray = rsus[i];
-							length = rsuSubarray.length;
-							for(j = 0; j < length; ++j){
-								rsu = rsuSubarray[j];
-								if(rsu.getBeaconCountdown() < 1 && !rsu.isEncrypted_()) rsu.sendBeacons();
-								if(rsu.getBeaconCountdown() < 1 && rsu.isEncrypted_()) rsu.sendEncryptedBeacons();
-							}
-						}
-						
-						// Wait for all concurrent threads to synchronize
-						
-						barrierDuringWork_.await();
-					} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-					} catch (Exception e){
-						//e.printStackTrace();
-						try{
-							barrierDuringWork_.await();
-						}catch (Exception e2){}
-					}
-				}
+	public static void setSimulationMode_(int simulationMode) {
+		state().simulationMode_ = simulationMode;
+	}
 
-				// ================================= 
-				// Step 5b: Move attacker
-				// ================================= 
-				
-				/*
-					if(Renderer.getInstance().getAttackerVehicle() != null) Renderer.getInstance().getAttackerVehicle().moveAttacker();
-				*/
-					
-				// ================================= 
-				// Step 6: Move all vehicles one step further
-				// ================================= 
-				try{
-					for(i = 0; i < ourRegionsLength; ++i){
-						vehicleSubarray = vehicles[i];
-						length = vehicleSubarray.length;
-						for(j = 0; j < length; ++j){
-							if(vehicleSubarray[j].isActive()) vehicleSubarray[j].move(timePerStep_);
-							else if(recyclingEnabled && vehicleSubarray[j].getMayBeRecycled() && !vehicleSubarray[j].isDoNotRecycle_()) vehicleSubarray[j].reset();
-							
-						}
-					}
-					
-					// Wait for all concurrent threads to synchronize	
-					
-					barrierFinish_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-					//e.printStackTrace();
-					try{
-						barrierFinish_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}		
+	/**
+	 * Checks if the deterministic mode is used. In this mode, received messages and beacons, region changes and recycled
+	 * vehicles are buffered per region and applied in a fixed order at the end of each phase so that the results don't depend
+	 * on the amount of worker threads. Changes are used when the workers are created the next time.
+	 * 
+	 * @return <code>true</code> if the deterministic mode is used, else <code>false</code>
+	 */
+	public static boolean isDeterministic() {
+		return state().deterministic_;
+	}
 
-				
-				// ================================= 
-				// Step 7: Check the states of all traffic lights and change if necessary
-				// ================================= 
-				/*
-				try{
-					
-					Node[] tmpNodes = null;
-					for(i = 0; i < ourRegions_.length; i++){
-						tmpNodes = ourRegions_[i].getNodes();
-						for(j = 0; j < tmpNodes.length; j++){
-							if(tmpNodes[j].isHasTrafficSignal_() && tmpNodes[j].getJunction() != null && tmpNodes[j].getJunction().getNode().getTrafficLight_() != null){	
-								tmpNodes[j].getJunction().getNode().getTrafficLight_().changePhases(timePerStep_);						
-						}
-					}
-				}
+	/**
+	 * Sets if the deterministic mode is used. See {@link #isDeterministic()}.
+	 * 
+	 * @param deterministic	<code>true</code> to use the deterministic mode
+	 */
+	public static void setDeterministic(boolean deterministic) {
+		state().deterministic_ = deterministic;
+	}
 
+	/**
+	 * Gets the interaction buffer of the region the current thread is processing. Methods which are called by the vehicles
+	 * or RSUs of one region on objects of other regions use this buffer instead of changing the objects directly.
+	 * 
+	 * @return the buffer or <code>null</code> if the deterministic mode is not used or the current thread is not a worker processing a region
+	 */
+	public static InteractionBuffer getInteractionBuffer() {
+		Thread thread = Thread.currentThread();
+		if(thread instanceof WorkerThread) return ((WorkerThread)thread).interactionBuffer_;
+		else return null;
+	}
 
-					barrierFinish_.await();
-				} catch (BrokenBarrierException e){	//don't try to "repair" if barrier is broken
-				} catch (Exception e){
-				//e.printStackTrace();
-					try{
-						barrierFinish_.await();	//need to wait again...
-					}catch (Exception e2){}
-				}
-				*/
-				
-			}
-		}
-		// remove the backlinks from the regions so that garbage collection can really remove everything
-		for(i = 0; i < ourRegionsLength; ++i){
-			ourRegions_[i].createBacklink(null, -1);
-		}
-		
-		ErrorLog.log(Messages.getString("WorkerThread.workerExited"), 1, this.getName(), "run", null); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Gets the migration queue of the current thread. Regions use this queue instead of changing their vehicle arrays
+	 * while a phase is processed.
+	 * 
+	 * @return the queue or <code>null</code> if the deterministic mode is used or the current thread is not a worker processing a phase
+	 */
+	public static MigrationQueue getMigrationQueue() {
+		Thread thread = Thread.currentThread();
+		if(thread instanceof WorkerThread) return ((WorkerThread)thread).migrationQueue_;
+		else return null;
 	}
 
-	public static int getSimulationMode_() {
-		return simulationMode_;
+	/**
+	 * Checks if the current thread is a worker processing a phase while other workers might change the same objects. Objects
+	 * which are changed by the vehicles or RSUs of other regions only need to be locked in this case.
+	 * 
+	 * @return <code>true</code> if other threads might change the same objects, <code>false</code> in the deterministic mode, with only one worker or if the current thread is not a worker processing a phase
+	 */
+	public static boolean isConcurrentPhase() {
+		Thread thread = Thread.currentThread();
+		if(thread instanceof WorkerThread) return ((WorkerThread)thread).concurrent_ && ((WorkerThread)thread).migrationQueue_ != null;
+		else return false;
 	}
 
-	public static void setSimulationMode_(int simulationMode) {
-		simulationMode_ = simulationMode;
+	/**
+	 * Gets the shared variables of the current simulation context.
+	 * 
+	 * @return the shared variables
+	 */
+	private static ContextState state(){
+		return SimulationContext.state(STATE_SLOT, NEW_STATE);
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
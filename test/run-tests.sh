@@ -0,0 +1,23 @@
+#!/bin/sh
+# Compiles the simulator and the tests and runs all tests (classes named *Test with a main method).
+# The libraries the simulator needs (staxmate and a StAX implementation; com.apple.eawt on other systems than OS X)
+# have to be given in LIBS as a classpath.
+# Usage: LIBS=lib/staxmate.jar:... test/run-tests.sh
+
+cd "$(dirname "$0")/.." || exit 1
+OUT=$(mktemp -d) || exit 1
+trap 'rm -rf "$OUT"' EXIT
+
+javac -nowarn -encoding UTF-8 -cp "$LIBS" -d "$OUT" $(find src test -name '*.java') || exit 1
+
+FAILED=0
+for TEST in $(cd test && find . -name '*Test.java' | sed 's|^\./||; s|\.java$||; s|/|.|g' | sort); do
+	echo "== $TEST"
+	if java -Djava.awt.headless=true -cp "$OUT:src:$LIBS" "$TEST" > "$OUT/output.txt" 2>&1; then
+		grep -E '^(PASS|FAIL)' "$OUT/output.txt"
+	else
+		cat "$OUT/output.txt"
+		FAILED=1
+	fi
+done
+exit $FAILED
@@ -0,0 +1,16 @@
+#!/bin/sh
+# Compiles the simulator and the tests and measures how the step time scales with the amount of worker threads and
+# vehicles on a sparse and a dense scenario (see test/vanetsim/simulation/ScalingReport.java). The report is written
+# as a Markdown table. LIBS has to be set like for run-tests.sh, JAVA_OPTS may set the heap for many vehicles.
+# Usage: LIBS=lib/staxmate.jar:... test/scaling-report.sh report.md [threads] [vehicles] [steps]
+# Example: JAVA_OPTS=-Xmx8g test/scaling-report.sh report.md 1,2,4,8 500,2000,8000 200
+
+REPORT=$(cd "$(dirname "${1:-scaling-report.md}")" && pwd)/$(basename "${1:-scaling-report.md}") || exit 1
+[ $# -gt 0 ] && shift
+cd "$(dirname "$0")/.." || exit 1
+OUT=$(mktemp -d) || exit 1
+trap 'rm -rf "$OUT"' EXIT
+
+javac -nowarn -encoding UTF-8 -cp "$LIBS" -d "$OUT" $(find src test -name '*.java') || exit 1
+java $JAVA_OPTS -Djava.awt.headless=true -cp "$OUT:src:$LIBS" vanetsim.simulation.ScalingReport "$REPORT" "$@" > "$OUT/output.txt" 2>&1 || { cat "$OUT/output.txt"; exit 1; }
+cat "$REPORT"
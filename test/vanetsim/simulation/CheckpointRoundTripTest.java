@@ -0,0 +1,75 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Checks that a checkpoint restores the complete simulation state. A simulation with beacons, messages and penalties
+ * writes a checkpoint file and runs on. After restoring the checkpoint, it runs to the same time again and has to end in
+ * exactly the same state (including the penalties known by the vehicles). A damaged state must not be restored
+ * half: the simulation has to keep its state and go on.
+ */
+public final class CheckpointRoundTripTest {
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private CheckpointRoundTripTest(){
+	}
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args	not used
+	 *
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception{
+		final int checkpoint = 6000, end = 20000;
+		boolean passed = true;
+		File file = File.createTempFile("roundtrip", ".vcp"); //$NON-NLS-1$ //$NON-NLS-2$
+		file.deleteOnExit();
+
+		TestSimulation simulation = new TestSimulation(400, 5, true, false);
+		simulation.runTo(checkpoint);
+		simulation.bind();
+		Checkpoint.write(Checkpoint.capture(), checkpoint, file);
+		simulation.runTo(end);
+		long expected = simulation.fingerprint();
+		int penalties = simulation.countPenalties();
+		passed &= TestResult.check("penalties known at the end", penalties > 0); //$NON-NLS-1$
+
+		passed &= TestResult.check("checkpoint restored", simulation.getMaster().restoreCheckpoint(file)); //$NON-NLS-1$
+		passed &= TestResult.check("time after restoring", checkpoint, simulation.getTime()); //$NON-NLS-1$
+		simulation.runTo(end);
+		passed &= TestResult.check("state after restoring and running again", expected, simulation.fingerprint()); //$NON-NLS-1$
+		passed &= TestResult.check("penalties after restoring and running again", penalties, simulation.countPenalties()); //$NON-NLS-1$
+
+		// a state which ends in the middle is only noticed while restoring, so the state from before has to be restored again
+		simulation.bind();
+		byte[] state = Checkpoint.capture();
+		passed &= TestResult.check("damaged state rejected", !simulation.getMaster().restoreCheckpoint(Arrays.copyOf(state, state.length / 2))); //$NON-NLS-1$
+		passed &= TestResult.check("time after the damaged state", end, simulation.getTime()); //$NON-NLS-1$
+		passed &= TestResult.check("state after the damaged state", expected, simulation.fingerprint()); //$NON-NLS-1$
+		simulation.runTo(end + 2000);
+		passed &= TestResult.check("simulation goes on after the damaged state", end + 2000, simulation.getTime()); //$NON-NLS-1$
+		TestResult.finish(CheckpointRoundTripTest.class, passed);
+	}
+}
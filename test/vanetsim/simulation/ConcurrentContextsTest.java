@@ -0,0 +1,104 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * Checks that two simulations in their own {@link SimulationContext} can run at the same time in one JVM without
+ * influencing each other. Two different simulations are run alone first and then both at the same time in two threads.
+ * Each one has to end in exactly the same state as when it ran alone.
+ */
+public final class ConcurrentContextsTest {
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private ConcurrentContextsTest(){
+	}
+
+	/**
+	 * Creates one of the two simulations.
+	 *
+	 * @param first	<code>true</code> for the first, <code>false</code> for the second simulation
+	 *
+	 * @return the simulation
+	 *
+	 * @throws Exception if the simulation can't be created
+	 */
+	private static TestSimulation create(boolean first) throws Exception{
+		if(first) return new TestSimulation(300, 1, true, false);
+		else return new TestSimulation(200, 2, false, false);
+	}
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args	not used
+	 *
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception{
+		SimulationMaster.setThreadCount(1);
+		final int endFirst = 8000, endSecond = 12000;
+
+		TestSimulation simulation = create(true);
+		simulation.runTo(endFirst);
+		long expectedFirst = simulation.fingerprint();
+		simulation = create(false);
+		simulation.runTo(endSecond);
+		long expectedSecond = simulation.fingerprint();
+
+		final TestSimulation first = create(true);
+		final TestSimulation second = create(false);
+		final long[] results = new long[2];
+		final int[] times = new int[2];
+		final Exception[] errors = new Exception[2];
+		Thread threadFirst = new Thread("first"){ //$NON-NLS-1$
+			public void run(){
+				try{
+					first.runTo(endFirst);
+					results[0] = first.fingerprint();
+					times[0] = first.getTime();
+				} catch (Exception e){
+					errors[0] = e;
+				}
+			}
+		};
+		Thread threadSecond = new Thread("second"){ //$NON-NLS-1$
+			public void run(){
+				try{
+					second.runTo(endSecond);
+					results[1] = second.fingerprint();
+					times[1] = second.getTime();
+				} catch (Exception e){
+					errors[1] = e;
+				}
+			}
+		};
+		threadFirst.start();
+		threadSecond.start();
+		threadFirst.join();
+		threadSecond.join();
+
+		boolean passed = errors[0] == null && errors[1] == null;
+		passed &= TestResult.check("first simulation alone and concurrently", expectedFirst, results[0]); //$NON-NLS-1$
+		passed &= TestResult.check("second simulation alone and concurrently", expectedSecond, results[1]); //$NON-NLS-1$
+		passed &= TestResult.check("time of the first simulation", endFirst, times[0]); //$NON-NLS-1$
+		passed &= TestResult.check("time of the second simulation", endSecond, times[1]); //$NON-NLS-1$
+		TestResult.finish(ConcurrentContextsTest.class, passed);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * Checks that the deterministic mode gives the same results for any amount of worker threads. The same simulation (with
+ * beacons, messages and penalties) is run with one and with several workers and has to end in exactly the same state.
+ */
+public final class DeterminismTest {
+
+	/** The amounts of worker threads compared with one worker. */
+	private static final int[] WORKERS = {2, 4};
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private DeterminismTest(){
+	}
+
+	/**
+	 * Runs the simulation with a fixed amount of workers.
+	 *
+	 * @param workers	the amount of worker threads
+	 * @param end		the time to simulate in milliseconds
+	 *
+	 * @return the fingerprint of the state at the end
+	 *
+	 * @throws Exception if the simulation fails
+	 */
+	private static long run(int workers, int end) throws Exception{
+		TestSimulation simulation = new TestSimulation(300, 3, true, true);
+		simulation.getMaster().setWorkerCount(workers);
+		simulation.runTo(end);
+		long fingerprint = simulation.fingerprint();
+		simulation.getMaster().terminate();
+		return fingerprint;
+	}
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args	not used
+	 *
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception{
+		final int end = 10000;
+		long expected = run(1, end);
+		boolean passed = true;
+		for(int i = 0; i < WORKERS.length; ++i) passed &= TestResult.check("1 and " + WORKERS[i] + " workers", expected, run(WORKERS[i], end)); //$NON-NLS-1$ //$NON-NLS-2$
+		TestResult.finish(DeterminismTest.class, passed);
+	}
+}
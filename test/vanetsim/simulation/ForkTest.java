@@ -0,0 +1,96 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * Checks that several simulations can be forked from one warm-up in one JVM like the <code>ForkRunner</code> does. The
+ * state of the warm-up is captured once and restored into new {@link SimulationContext}s which then run at the same time.
+ * Each fork has to end in exactly the same state as the warm-up simulation continued without a fork.
+ */
+public final class ForkTest {
+
+	/** The amount of forks. */
+	private static final int FORKS = 3;
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private ForkTest(){
+	}
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args	not used
+	 *
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception{
+		SimulationMaster.setThreadCount(1);
+		final int warmUp = 6000, end = 14000;
+
+		TestSimulation warmUpSimulation = new TestSimulation(300, 1, true, false);
+		warmUpSimulation.runTo(warmUp);
+		warmUpSimulation.bind();
+		final byte[] state = Checkpoint.capture();
+		warmUpSimulation.runTo(end);
+		long expected = warmUpSimulation.fingerprint();
+		warmUpSimulation.getMaster().terminate();
+
+		final long[] results = new long[FORKS];
+		final int[] times = new int[FORKS];
+		final boolean[] restored = new boolean[FORKS];
+		final boolean[] terminated = new boolean[FORKS];
+		final Exception[] errors = new Exception[FORKS];
+		Thread[] threads = new Thread[FORKS];
+		for(int i = 0; i < FORKS; ++i){
+			final int fork = i;
+			threads[i] = new Thread("fork " + i){ //$NON-NLS-1$
+				public void run(){
+					try{
+						// a new simulation of the same scenario like a fork of the ForkRunner
+						TestSimulation simulation = new TestSimulation(300, 1, true, false);
+						restored[fork] = simulation.getMaster().restoreCheckpoint(state);
+						simulation.runTo(end);
+						results[fork] = simulation.fingerprint();
+						times[fork] = simulation.getTime();
+						simulation.getMaster().terminate();
+						simulation.getMaster().join(10000);
+						terminated[fork] = !simulation.getMaster().isAlive();
+					} catch (Exception e){
+						errors[fork] = e;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for(int i = 0; i < FORKS; ++i) threads[i].join();
+		warmUpSimulation.getMaster().join(10000);
+
+		boolean passed = true;
+		for(int i = 0; i < FORKS; ++i){
+			passed &= TestResult.check("fork " + i + " without errors", errors[i] == null); //$NON-NLS-1$ //$NON-NLS-2$
+			passed &= TestResult.check("fork " + i + " restored", restored[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			passed &= TestResult.check("fork " + i + " and continued warm-up", expected, results[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			passed &= TestResult.check("time of fork " + i, end, times[i]); //$NON-NLS-1$
+			passed &= TestResult.check("fork " + i + " terminated", terminated[i]); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		passed &= TestResult.check("warm-up terminated", !warmUpSimulation.getMaster().isAlive()); //$NON-NLS-1$
+		TestResult.finish(ForkTest.class, passed);
+	}
+}
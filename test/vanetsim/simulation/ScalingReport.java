@@ -0,0 +1,129 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.util.Date;
+
+/**
+ * Measures how the step time scales with the amount of worker threads and vehicles and writes the results as a Markdown
+ * table. A sparse scenario (the vehicles drive on the whole map) and a dense one (the vehicles drive in 3 x 3 of the
+ * 10 x 10 regions, so most regions are empty) are measured with beacons and messages enabled. Not a test: it only
+ * measures and never fails.
+ * <br><br>
+ * Usage: <code>ScalingReport file [threads] [vehicles] [steps]</code> with comma separated amounts of threads (default
+ * <code>1,2,4</code> and the amount of processors) and vehicles (default <code>500,1000,2000</code>) and the amount of
+ * measured steps (default 100). In the dense scenario every vehicle knows almost all others, so more vehicles need a
+ * larger heap (4000 vehicles need more than 1.5 GB).
+ */
+public final class ScalingReport {
+
+	/** The simulated time before the measurement starts in milliseconds (the worker threads are created in this time). */
+	private static final int WARM_UP = 2000;
+
+	/** The size of the square the vehicles of the dense scenario drive in (in cm). */
+	private static final int DENSE_AREA = 30000;
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private ScalingReport(){
+	}
+
+	/**
+	 * Parses a comma separated list of amounts.
+	 *
+	 * @param list	the list
+	 *
+	 * @return the amounts
+	 */
+	private static int[] parse(String list){
+		String[] values = list.split(","); //$NON-NLS-1$
+		int[] amounts = new int[values.length];
+		for(int i = 0; i < values.length; ++i) amounts[i] = Integer.parseInt(values[i].trim());
+		return amounts;
+	}
+
+	/**
+	 * Measures one simulation.
+	 *
+	 * @param vehicles	the amount of vehicles
+	 * @param area		the size of the square the vehicles drive in (in cm)
+	 * @param threads	the amount of worker threads
+	 * @param steps		the amount of measured steps
+	 *
+	 * @return the average time of a step in milliseconds
+	 *
+	 * @throws Exception if the simulation fails
+	 */
+	private static double measure(int vehicles, int area, int threads, int steps) throws Exception{
+		TestSimulation simulation = new TestSimulation(vehicles, 1, true, false, area);
+		simulation.getMaster().setWorkerCount(threads);
+		simulation.runTo(WARM_UP);
+		long time = System.nanoTime();
+		simulation.runTo(WARM_UP + steps * SimulationMaster.TIME_PER_STEP);
+		time = System.nanoTime() - time;
+		simulation.getMaster().terminate();
+		simulation.getMaster().join();
+		return time / 1000000.0 / steps;
+	}
+
+	/**
+	 * Runs all measurements and writes the report.
+	 *
+	 * @param args	the report file, the amounts of threads and vehicles and the amount of steps
+	 *
+	 * @throws Exception if a simulation fails or the report can't be written
+	 */
+	public static void main(String[] args) throws Exception{
+		int processors = Runtime.getRuntime().availableProcessors();
+		int[] threads = parse(args.length > 1 ? args[1] : "1,2,4" + (processors > 4 ? "," + processors : "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		int[] vehicles = parse(args.length > 2 ? args[2] : "500,1000,2000"); //$NON-NLS-1$
+		int steps = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+		// let the JIT compile the simulation before anything is measured
+		measure(vehicles[0], 100000, 1, steps);
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(args[0]));
+		try{
+			out.write("# Scaling report\n\n"); //$NON-NLS-1$
+			out.write(new Date() + ", Java " + System.getProperty("java.version") + ", " + processors + " processors, " + (Runtime.getRuntime().maxMemory() / 1048576) + " MB heap.  \n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			out.write("Average of " + steps + " steps after " + WARM_UP + " ms of simulated time, beacons and messages enabled. The speedup is relative to the first amount of workers.\n\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			out.write("| scenario | vehicles | workers | ms/step | steps/s | speedup |\n"); //$NON-NLS-1$
+			out.write("|---|---:|---:|---:|---:|---:|\n"); //$NON-NLS-1$
+			String scenario;
+			double time, first;
+			for(int i = 0; i < 2; ++i){
+				scenario = i == 0 ? "sparse" : "dense"; //$NON-NLS-1$ //$NON-NLS-2$
+				for(int j = 0; j < vehicles.length; ++j){
+					first = 0;
+					for(int k = 0; k < threads.length; ++k){
+						time = measure(vehicles[j], i == 0 ? 100000 : DENSE_AREA, threads[k], steps);
+						if(k == 0) first = time;
+						out.write(String.format("| %s | %d | %d | %.2f | %.1f | %.2f |\n", scenario, vehicles[j], threads[k], time, 1000 / time, first / time)); //$NON-NLS-1$
+						out.flush();
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		System.exit(0);
+	}
+}
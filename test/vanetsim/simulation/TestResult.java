@@ -0,0 +1,74 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+/**
+ * Reports the results of the tests. The tests are plain programs (there is no test framework in the build): each one
+ * prints its checks and exits with <code>0</code> if all passed and <code>1</code> otherwise.
+ */
+final class TestResult {
+
+	/**
+	 * Private constructor as this class only has static members.
+	 */
+	private TestResult(){
+	}
+
+	/**
+	 * Compares a value with the expected one and prints the result.
+	 *
+	 * @param name		what is checked
+	 * @param expected	the expected value
+	 * @param actual	the actual value
+	 *
+	 * @return <code>true</code> if both values are equal
+	 */
+	static boolean check(String name, long expected, long actual){
+		if(expected == actual){
+			System.out.println("PASS " + name + ": " + actual); //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
+		} else {
+			System.out.println("FAIL " + name + ": expected " + expected + " but was " + actual); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return false;
+		}
+	}
+
+	/**
+	 * Checks a condition and prints the result.
+	 *
+	 * @param name		what is checked
+	 * @param condition	the result of the check
+	 *
+	 * @return the result of the check
+	 */
+	static boolean check(String name, boolean condition){
+		System.out.println((condition ? "PASS " : "FAIL ") + name); //$NON-NLS-1$ //$NON-NLS-2$
+		return condition;
+	}
+
+	/**
+	 * Prints the result of a test and exits the JVM (the simulation threads never end by themselves).
+	 *
+	 * @param test		the test
+	 * @param passed	<code>true</code> if all checks passed
+	 */
+	static void finish(Class<?> test, boolean passed){
+		System.out.println((passed ? "PASSED " : "FAILED ") + test.getSimpleName()); //$NON-NLS-1$ //$NON-NLS-2$
+		System.exit(passed ? 0 : 1);
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * VANETsim open source project - http://www.vanet-simulator.org
+ * Copyright (C) 2008 - 2013  Andreas Tomandl, Florian Scheuer, Bernhard Gruber
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package vanetsim.simulation;
+
+import java.awt.Color;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import vanetsim.map.Map;
+import vanetsim.map.Node;
+import vanetsim.map.Region;
+import vanetsim.map.Street;
+import vanetsim.routing.WayPoint;
+import vanetsim.scenario.KnownPenalties;
+import vanetsim.scenario.Vehicle;
+
+/**
+ * A small simulation without GUI for the tests. The map is a grid of 21 x 21 junctions 50m apart in a square kilometer,
+ * the vehicles drive between random waypoints. Every simulation has its own {@link SimulationContext} and its own
+ * {@link SimulationMaster}, so several of them can exist (and run) in one JVM. All methods bind the context to the
+ * calling thread first.
+ */
+final class TestSimulation {
+
+	/** The amount of junctions in each direction. */
+	private static final int GRID_SIZE = 21;
+
+	/** The distance between two junctions in cm. */
+	private static final int GRID_SPACING = 5000;
+
+	/** The context of this simulation. */
+	private final SimulationContext context_ = new SimulationContext();
+
+	/** The master running this simulation. */
+	private final SimulationMaster master_;
+
+	/**
+	 * Creates the map and the vehicles and starts the simulation master (the simulation itself is paused).
+	 *
+	 * @param vehicles		the amount of vehicles
+	 * @param seed			the seed for the waypoints and speeds of the vehicles
+	 * @param communication	<code>true</code> to enable beacons and messages. Every 8th vehicle sends fake messages and
+	 * 						every 25th is an emergency vehicle, so that all kinds of penalties occur.
+	 * @param deterministic	<code>true</code> to use the deterministic mode
+	 *
+	 * @throws ParseException if a vehicle can't be created
+	 */
+	TestSimulation(int vehicles, long seed, boolean communication, boolean deterministic) throws ParseException{
+		this(vehicles, seed, communication, deterministic, 100000);
+	}
+
+	/**
+	 * Creates the map and the vehicles and starts the simulation master (the simulation itself is paused). The vehicles
+	 * only drive in a square in the lower left corner of the map, so the regions there are crowded and the others empty.
+	 *
+	 * @param vehicles		the amount of vehicles
+	 * @param seed			the seed for the waypoints and speeds of the vehicles
+	 * @param communication	<code>true</code> to enable beacons and messages (see above)
+	 * @param deterministic	<code>true</code> to use the deterministic mode
+	 * @param area			the size of the square in cm (100000 for the whole map)
+	 *
+	 * @throws ParseException if a vehicle can't be created
+	 */
+	TestSimulation(int vehicles, long seed, boolean communication, boolean deterministic, int area) throws ParseException{
+		EngineContext.setConsoleStart(true);
+		bind();
+		WorkerThread.setDeterministic(deterministic);
+		Map map = Map.getInstance();
+		map.initNewMap(100000, 100000, 10000, 10000);
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for(int i = 0; i < GRID_SIZE; ++i){
+			for(int j = 0; j < GRID_SIZE; ++j) nodes[i][j] = map.addNode(new Node(i * GRID_SPACING + 1000, j * GRID_SPACING + 1000));
+		}
+		Region region;
+		for(int i = 0; i < GRID_SIZE; ++i){
+			for(int j = 0; j < GRID_SIZE; ++j){
+				region = map.getRegionOfPoint(nodes[i][j].getX(), nodes[i][j].getY());
+				if(i + 1 < GRID_SIZE) map.addStreet(new Street("s", nodes[i][j], nodes[i+1][j], "residential", 0, 1, Color.black, region, 1400)); //$NON-NLS-1$ //$NON-NLS-2$
+				if(j + 1 < GRID_SIZE) map.addStreet(new Street("s", nodes[i][j], nodes[i][j+1], "residential", 0, 1, Color.black, region, 1400)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		map.signalMapLoaded();
+		if(communication){
+			Vehicle.setCommunicationEnabled(true);
+			Vehicle.setBeaconsEnabled(true);
+			Vehicle.setFakeMessagesInterval_(2000);
+		}
+		Random random = new Random(seed);
+		ArrayDeque<WayPoint> destinations;
+		boolean fake;
+		for(int i = 0; i < vehicles; ++i){
+			destinations = new ArrayDeque<WayPoint>();
+			for(int j = 0; j < 4; ++j) destinations.add(new WayPoint(random.nextInt(area), random.nextInt(area), random.nextInt(2000)));
+			fake = communication && i % 8 == 0;
+			map.addVehicle(new Vehicle(destinations, 500, 1000 + random.nextInt(1000), 20000, true, communication && i % 25 == 0, 800, 300, 100, 0, 0, Color.black, fake, fake ? (i % 16 == 0 ? "HUANG_PCN" : "HUANG_EEBL") : "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		master_ = new SimulationMaster(context_);
+		master_.setExitAtEnd(false);
+		master_.start();
+	}
+
+	/**
+	 * Binds the context of this simulation to the calling thread.
+	 */
+	void bind(){
+		SimulationContext.setCurrent(context_);
+	}
+
+	/**
+	 * Gets the master running this simulation.
+	 *
+	 * @return the master
+	 */
+	SimulationMaster getMaster(){
+		return master_;
+	}
+
+	/**
+	 * Runs the simulation until a time is reached and waits until it has stopped.
+	 *
+	 * @param time	the time in milliseconds (needs to be later than the current time)
+	 *
+	 * @throws InterruptedException if the calling thread was interrupted while waiting
+	 */
+	void runTo(int time) throws InterruptedException{
+		bind();
+		master_.jumpToTime(time);
+		master_.waitUntilStopped();
+	}
+
+	/**
+	 * Gets the simulation time.
+	 *
+	 * @return the time in milliseconds
+	 */
+	int getTime(){
+		bind();
+		return EngineContext.getTimePassed();
+	}
+
+	/**
+	 * Calculates a hash of the state of all vehicles: their position and speed, how many vehicles they know and all
+	 * penalties they know.
+	 *
+	 * @return the hash
+	 */
+	long fingerprint(){
+		bind();
+		long hash = 17;
+		Region[][] regions = Map.getInstance().getRegions();
+		Vehicle[] vehicles;
+		KnownPenalties penalties;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				vehicles = regions[i][j].getVehicleArray();
+				for(int k = 0; k < vehicles.length; ++k){
+					hash = hash * 31 + vehicles[k].getID();
+					hash = hash * 31 + vehicles[k].getX();
+					hash = hash * 31 + vehicles[k].getY();
+					hash = hash * 31 + vehicles[k].getCurSpeed();
+					hash = hash * 31 + (vehicles[k].isActive() ? 1 : 0);
+					hash = hash * 31 + vehicles[k].getKnownVehiclesList().getSize();
+					penalties = vehicles[k].getKnownPenalties();
+					hash = hash * 31 + penalties.getSize();
+					for(int l = 0; l < penalties.getSize(); ++l) hash = hash * 31 + penalties.getPenalties()[l];
+				}
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Counts the penalties known by all vehicles.
+	 *
+	 * @return the amount of penalties
+	 */
+	int countPenalties(){
+		bind();
+		int count = 0;
+		Region[][] regions = Map.getInstance().getRegions();
+		Vehicle[] vehicles;
+		for(int i = 0; i < regions.length; ++i){
+			for(int j = 0; j < regions[i].length; ++j){
+				vehicles = regions[i][j].getVehicleArray();
+				for(int k = 0; k < vehicles.length; ++k) count += vehicles[k].getKnownPenalties().getSize();
+			}
+		}
+		return count;
+	}
+}